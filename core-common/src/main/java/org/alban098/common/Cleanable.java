@@ -17,4 +17,26 @@ public interface Cleanable {
   default void initialize() {
     MemoryManager.register(this);
   }
+
+  /**
+   * Returns an action releasing the resources of the Object once it has become unreachable. The
+   * action must not reference the Object itself, or it will never become unreachable. When null,
+   * the Object is kept alive by the {@link MemoryManager} until freed or until program exit
+   *
+   * @return the action releasing the resources of the Object, null if it must be kept alive
+   */
+  default Runnable getReclaimAction() {
+    return null;
+  }
+
+  /**
+   * Returns whether the reclaim action must be run by the thread owning the resources, such as the
+   * thread holding an OpenGL context, through {@link MemoryManager#processReclaims()}
+   *
+   * @return true if the reclaim action must be run by the owner thread, false if it can be run by
+   *     any thread
+   */
+  default boolean isReclaimedOnOwnerThread() {
+    return false;
+  }
 }
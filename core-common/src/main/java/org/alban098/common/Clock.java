@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.common;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A source of time used by {@link Timer} and {@link FramePacer}, abstracted so that pacing can be
+ * driven by a fake clock instead of the system one
+ */
+public interface Clock {
+
+  /** The system clock, backed by {@link System#nanoTime()} */
+  Clock SYSTEM =
+      new Clock() {
+        @Override
+        public long nanoTime() {
+          return System.nanoTime();
+        }
+
+        @Override
+        public void sleep(long nanos) {
+          LockSupport.parkNanos(nanos);
+        }
+
+        @Override
+        public void spin() {
+          Thread.onSpinWait();
+        }
+      };
+
+  /**
+   * Returns the current time of the clock
+   *
+   * @return the current time, in ns
+   */
+  long nanoTime();
+
+  /**
+   * Blocks the current thread for approximately a set duration, possibly oversleeping
+   *
+   * @param nanos the duration to sleep for, in ns
+   */
+  void sleep(long nanos);
+
+  /** Called at every iteration of a spin-wait */
+  void spin();
+}
@@ -7,13 +7,24 @@ package org.alban098.common;
 
 import java.util.HashSet;
 import java.util.Set;
+import org.alban098.common.ecs.World;
 import org.joml.Vector2f;
 
-/** Main Entity interface for all Engine2J modules */
+/**
+ * Main Entity interface for all Engine2J modules. Kept as a compatibility facade over {@link
+ * World}, once attached to a World, the {@link Transform} and the {@link Component}s of the Entity
+ * are mirrored into it so systems can iterate them through cached queries
+ */
 public abstract class Entity {
 
   protected final Transform transform;
   protected final Set<Component> components;
+  /** The World the Entity is attached to, null if not attached */
+  private World world;
+  /** The handle of the Entity in its World, -1 if not attached */
+  private int handle = -1;
+  /** The Entity this Entity is attached to, null if it is a root */
+  private Entity parent = null;
 
   public Entity(Vector2f position, Vector2f scale, float rotation) {
     this.transform = new Transform(position, scale, rotation);
@@ -35,6 +46,110 @@ public abstract class Entity {
           "Entity already have a '" + component.getClass() + "' component");
     }
     this.components.add(component);
+    if (world != null) {
+      world.add(handle, component);
+    }
+  }
+
+  /**
+   * Returns the {@link Component} of a given class
+   *
+   * @param type the class of the Component
+   * @param <T> the type of the Component
+   * @return the Component of that class, null if the Entity doesn't have one
+   */
+  public <T extends Component> T getComponent(Class<T> type) {
+    if (world != null) {
+      return world.get(handle, type);
+    }
+    for (Component component : components) {
+      if (component.getClass() == type) {
+        return type.cast(component);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Attaches the Entity to a {@link World}, creating an entity holding its {@link Transform} and
+   * all its {@link Component}s. Components added afterward are added to the World as well
+   *
+   * @param world the World to attach the Entity to
+   * @return the handle of the Entity in the World
+   * @throws IllegalStateException if the Entity is already attached to a World
+   */
+  public int attach(World world) {
+    if (this.world != null) {
+      throw new IllegalStateException("Entity is already attached to a World");
+    }
+    Object[] parts = new Object[components.size() + 1];
+    parts[0] = transform;
+    int i = 1;
+    for (Component component : components) {
+      parts[i++] = component;
+    }
+    this.handle = world.create(parts);
+    this.world = world;
+    return handle;
+  }
+
+  /** Detaches the Entity from its {@link World}, destroying its entity there, if attached */
+  public void detach() {
+    if (world != null) {
+      world.destroy(handle);
+      world = null;
+      handle = -1;
+    }
+  }
+
+  /**
+   * Returns the {@link World} the Entity is attached to
+   *
+   * @return the World the Entity is attached to, null if not attached
+   */
+  public World getWorld() {
+    return world;
+  }
+
+  /**
+   * Attaches this Entity to another one, so that its {@link Transform} becomes relative to the
+   * parent's. Both Transforms are moved into the parent's {@link TransformHierarchy}, created if
+   * the parent is not part of one yet
+   *
+   * @param parent the new parent of the Entity, null to detach it from its current parent
+   */
+  public void setParent(Entity parent) {
+    if (parent == null) {
+      if (transform.getHierarchy() != null) {
+        transform.getHierarchy().add(transform);
+      }
+    } else {
+      TransformHierarchy hierarchy = parent.transform.getHierarchy();
+      if (hierarchy == null) {
+        hierarchy = new TransformHierarchy();
+        hierarchy.add(parent.transform);
+      }
+      hierarchy.setParent(transform, parent.transform);
+    }
+    this.parent = parent;
+  }
+
+  /**
+   * Returns the Entity this Entity is attached to
+   *
+   * @return the parent of the Entity, null if it is a root
+   */
+  public Entity getParent() {
+    return parent;
+  }
+
+  /**
+   * Returns the handle of the Entity in its {@link World}
+   *
+   * @return the handle of the Entity in its World, -1 if not attached
+   */
+  public int getHandle() {
+    return handle;
   }
 
   public Set<Component> getComponents() {
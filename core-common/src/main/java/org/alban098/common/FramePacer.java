@@ -0,0 +1,244 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.common;
+
+import org.alban098.common.metrics.MetricSeries;
+
+/**
+ * Paces frames to a target rate by waiting until the deadline of each frame. Waiting combines
+ * coarse sleeps, as long as the remaining time exceeds the calibrated cost of a sleep, with a
+ * spin-wait for the last stretch, so deadlines are met to within a few microseconds without burning
+ * a whole core. The cost of a sleep is measured continuously, its estimate being the mean plus one
+ * standard deviation of the observed sleeps.
+ *
+ * <p>In low latency mode, the start of each frame is also delayed until just enough time is left to
+ * compute it before its deadline, so input is sampled as late as possible before presenting
+ */
+public final class FramePacer {
+
+  /** The number of samples kept by the timing series */
+  public static final int SAMPLES = 256;
+
+  /** The duration of a single coarse sleep, in ns */
+  static final long SLEEP_QUANTUM_NS = 1_000_000;
+  /** The initial estimate of the cost of a sleep, in ns */
+  private static final long INITIAL_SLEEP_ESTIMATE_NS = 2_000_000;
+  /** The upper bound of the estimated cost of a sleep, in ns */
+  static final long MAX_SLEEP_ESTIMATE_NS = 5_000_000;
+  /** The margin kept between the predicted end of a frame and its deadline in low latency mode */
+  static final long LOW_LATENCY_MARGIN_NS = 1_000_000;
+  /** The percentile of the work time used to predict the duration of the next frame */
+  static final double WORK_PREDICTION_PERCENTILE = 95;
+
+  /** The clock providing the time */
+  private final Clock clock;
+  /** The time between frames, in ms */
+  private final MetricSeries frameTimes = new MetricSeries("frame", SAMPLES);
+  /** The time passed computing each frame, excluding pacing waits, in ms */
+  private final MetricSeries workTimes = new MetricSeries("work", SAMPLES);
+  /** The absolute deviation of each frame time from the target period, in ms */
+  private final MetricSeries jitter = new MetricSeries("jitter", SAMPLES);
+  /** The target period of a frame, 0 if uncapped */
+  private long periodNs = 0;
+  /** Is the low latency mode enabled */
+  private boolean lowLatency = false;
+  /** The deadline of the current frame */
+  private long deadlineNs;
+  /** The time at which the computation of the current frame has started */
+  private long workStartNs;
+  /** The time at which the last frame has ended */
+  private long lastFrameEndNs;
+  /** The number of observed sleeps */
+  private long sleepCount = 0;
+  /** The mean duration of the observed sleeps, in ns */
+  private double sleepMean = SLEEP_QUANTUM_NS;
+  /** The sum of squared differences from the mean of the observed sleeps, in ns² */
+  private double sleepM2 = 0;
+  /** The current estimate of the cost of a sleep, in ns */
+  private long sleepEstimateNs = INITIAL_SLEEP_ESTIMATE_NS;
+  /** The number of deadlines missed */
+  private long missedDeadlines = 0;
+
+  /** Creates a new uncapped FramePacer using the system clock */
+  public FramePacer() {
+    this(Clock.SYSTEM);
+  }
+
+  /**
+   * Creates a new uncapped FramePacer
+   *
+   * @param clock the clock providing the time
+   */
+  public FramePacer(Clock clock) {
+    this.clock = clock;
+    long now = clock.nanoTime();
+    this.deadlineNs = now;
+    this.workStartNs = now;
+    this.lastFrameEndNs = now;
+  }
+
+  /**
+   * Sets the target frame rate
+   *
+   * @param fps the target number of frames per second, 0 to disable pacing
+   */
+  public void setTargetFps(int fps) {
+    if (fps < 0) {
+      throw new IllegalArgumentException("The target frame rate can not be negative");
+    }
+    periodNs = fps == 0 ? 0 : 1_000_000_000L / fps;
+    deadlineNs = clock.nanoTime() + periodNs;
+  }
+
+  /**
+   * Enables or disables the low latency mode, delaying the start of each frame so that input is
+   * sampled as late as possible, only effective when a target frame rate is set
+   *
+   * @param lowLatency should the low latency mode be enabled
+   */
+  public void setLowLatency(boolean lowLatency) {
+    this.lowLatency = lowLatency;
+  }
+
+  /**
+   * Waits, in low latency mode, until just enough time is left to compute the frame before its
+   * deadline. Must be called before sampling input for the frame. Nothing is waited for until a
+   * frame has been measured, as there is no work time to predict from yet
+   */
+  public void waitForFrameStart() {
+    if (lowLatency && periodNs > 0 && workTimes.getSize() > 0) {
+      long predictedWork = (long) (workTimes.getPercentile(WORK_PREDICTION_PERCENTILE) * 1e6);
+      waitUntil(deadlineNs - predictedWork - LOW_LATENCY_MARGIN_NS);
+    }
+  }
+
+  /** Marks the start of the computation of a frame */
+  public void beginFrame() {
+    workStartNs = clock.nanoTime();
+  }
+
+  /**
+   * Marks the end of the computation of a frame, then waits until its deadline if a target frame
+   * rate is set. Must be called right before presenting the frame
+   */
+  public void endFrame() {
+    long now = clock.nanoTime();
+    workTimes.push((now - workStartNs) / 1e6);
+    if (periodNs > 0) {
+      if (now > deadlineNs) {
+        missedDeadlines++;
+        // Restart the schedule from now instead of rushing the next frames to catch up
+        deadlineNs = now;
+      } else {
+        waitUntil(deadlineNs);
+      }
+    }
+    now = clock.nanoTime();
+    double frameTime = (now - lastFrameEndNs) / 1e6;
+    frameTimes.push(frameTime);
+    if (periodNs > 0) {
+      jitter.push(Math.abs(frameTime - periodNs / 1e6));
+    }
+    lastFrameEndNs = now;
+    deadlineNs += periodNs;
+  }
+
+  /**
+   * Waits until a set time, sleeping while the remaining time exceeds the estimated cost of a
+   * sleep, then spinning
+   *
+   * @param targetNs the time to wait for, in ns
+   */
+  private void waitUntil(long targetNs) {
+    long now = clock.nanoTime();
+    while (targetNs - now > sleepEstimateNs) {
+      clock.sleep(SLEEP_QUANTUM_NS);
+      long after = clock.nanoTime();
+      calibrate(after - now);
+      now = after;
+    }
+    while (clock.nanoTime() < targetNs) {
+      clock.spin();
+    }
+  }
+
+  /**
+   * Updates the estimated cost of a sleep with an observed one, using Welford's online algorithm
+   *
+   * @param observedNs the observed duration of a sleep, in ns
+   */
+  private void calibrate(long observedNs) {
+    sleepCount++;
+    double delta = observedNs - sleepMean;
+    sleepMean += delta / sleepCount;
+    sleepM2 += delta * (observedNs - sleepMean);
+    double deviation = sleepCount > 1 ? Math.sqrt(sleepM2 / (sleepCount - 1)) : 0;
+    sleepEstimateNs = Math.min(MAX_SLEEP_ESTIMATE_NS, (long) (sleepMean + deviation));
+  }
+
+  /**
+   * Returns the target period of a frame
+   *
+   * @return the target period of a frame in ns, 0 if uncapped
+   */
+  public long getPeriodNs() {
+    return periodNs;
+  }
+
+  /**
+   * Returns whether the low latency mode is enabled
+   *
+   * @return true if the low latency mode is enabled, false otherwise
+   */
+  public boolean isLowLatency() {
+    return lowLatency;
+  }
+
+  /**
+   * Returns the current estimate of the cost of a sleep
+   *
+   * @return the current estimate of the cost of a sleep, in ns
+   */
+  public long getSleepEstimateNs() {
+    return sleepEstimateNs;
+  }
+
+  /**
+   * Returns the number of frames that have ended after their deadline
+   *
+   * @return the number of deadlines missed
+   */
+  public long getMissedDeadlines() {
+    return missedDeadlines;
+  }
+
+  /**
+   * Returns the time between frames, in ms
+   *
+   * @return the time between frames
+   */
+  public MetricSeries getFrameTimes() {
+    return frameTimes;
+  }
+
+  /**
+   * Returns the time passed computing each frame, excluding pacing waits, in ms
+   *
+   * @return the time passed computing each frame
+   */
+  public MetricSeries getWorkTimes() {
+    return workTimes;
+  }
+
+  /**
+   * Returns the absolute deviation of each frame time from the target period, in ms
+   *
+   * @return the jitter of each frame
+   */
+  public MetricSeries getJitter() {
+    return jitter;
+  }
+}
@@ -5,20 +5,49 @@
  */
 package org.alban098.common;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
+import java.lang.ref.Cleaner;
+import java.lang.ref.WeakReference;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-/** This static class is tasked with keeping track and cleaning up every Cleanable object */
+/**
+ * This static class is tasked with keeping track and cleaning up every Cleanable object. It also
+ * accounts the off-heap and estimated VRAM bytes held by each type of Cleanable.
+ *
+ * <p>Cleanables providing a {@link Cleanable#getReclaimAction()} are only tracked weakly, once
+ * unreachable their reclaim action is run, either directly by the collector's thread or, if {@link
+ * Cleanable#isReclaimedOnOwnerThread()}, by the next call to {@link #processReclaims()} from the
+ * thread owning their resources. Other Cleanables are kept until freed or until {@link #finish()}.
+ *
+ * <p>Setting the system property {@value #DEBUG_PROPERTY} to true records the allocation site of
+ * every Cleanable, reported by {@link #logOutstanding()} and when a Cleanable is reclaimed
+ */
 public class MemoryManager {
 
+  /** The system property enabling the recording of allocation sites */
+  public static final String DEBUG_PROPERTY = "engine2j.memory.debug";
+
   /** Just a Logger to log events */
   private static final Logger LOGGER = LoggerFactory.getLogger(MemoryManager.class);
-  /** A Map of all Cleanable objects of the application, sorted by type */
-  private static final Map<Class<?>, Set<Cleanable>> OBJECTS = new HashMap<>();
+  /** Is the recording of allocation sites enabled */
+  private static final boolean DEBUG = Boolean.getBoolean(DEBUG_PROPERTY);
+  /** The Cleaner in charge of detecting unreachable Cleanables */
+  private static final Cleaner CLEANER = Cleaner.create();
+  /** The lock guarding the tracking structures, also accessed by the Cleaner thread */
+  private static final Object LOCK = new Object();
+  /** All tracked Cleanables, by identity */
+  private static final Map<IdentityKey, Record> RECORDS = new HashMap<>();
+  /** The memory accounting of each type of Cleanable */
+  private static final Map<Class<?>, MemoryStatistics> STATISTICS = new LinkedHashMap<>();
+  /** The records of unreachable Cleanables waiting to be reclaimed on the owner thread */
+  private static final Queue<Record> PENDING_RECLAIMS = new ConcurrentLinkedQueue<>();
+  /** The total number of off-heap bytes held by tracked Cleanables */
+  private static long offHeapBytes = 0;
+  /** The total estimated number of VRAM bytes held by tracked Cleanables */
+  private static long vramBytes = 0;
 
   /**
    * Adds a new Cleanable to the Manager, only called by {@link Cleanable#initialize()}
@@ -26,21 +55,78 @@ public class MemoryManager {
    * @param cleanable the cleanable to add
    */
   static void register(Cleanable cleanable) {
-    if (!OBJECTS.containsKey(cleanable.getClass())) {
-      OBJECTS.put(cleanable.getClass(), new HashSet<>());
+    Runnable reclaimAction = cleanable.getReclaimAction();
+    Record record =
+        new Record(
+            cleanable,
+            reclaimAction,
+            cleanable.isReclaimedOnOwnerThread(),
+            DEBUG ? new Throwable("Allocation site") : null);
+    synchronized (LOCK) {
+      if (RECORDS.containsKey(record.key)) {
+        return;
+      }
+      RECORDS.put(record.key, record);
+      STATISTICS.computeIfAbsent(record.type, MemoryStatistics::new).onRegister();
+    }
+    if (reclaimAction != null) {
+      record.cleanerHandle = CLEANER.register(cleanable, record::onUnreachable);
+    }
+  }
+
+  /**
+   * Sets the memory held by a Cleanable, replacing the previously accounted values
+   *
+   * @param cleanable the Cleanable
+   * @param offHeap the number of off-heap bytes held by the Cleanable
+   * @param vram the estimated number of VRAM bytes held by the Cleanable
+   */
+  public static void account(Cleanable cleanable, long offHeap, long vram) {
+    synchronized (LOCK) {
+      Record record = RECORDS.get(new IdentityKey(cleanable));
+      if (record == null) {
+        return;
+      }
+      long offHeapDelta = offHeap - record.offHeapBytes;
+      long vramDelta = vram - record.vramBytes;
+      record.offHeapBytes = offHeap;
+      record.vramBytes = vram;
+      offHeapBytes += offHeapDelta;
+      vramBytes += vramDelta;
+      STATISTICS.get(record.type).onResize(offHeapDelta, vramDelta);
     }
-    OBJECTS.get(cleanable.getClass()).add(cleanable);
   }
 
   /** Cleans up all Objects */
   public static void finish() {
-    OBJECTS.forEach(
-        (type, set) -> {
-          LOGGER.info("Clearing objects of type '{}'", type.getSimpleName());
-          set.forEach(Cleanable::cleanUp);
-          set.clear();
-        });
-    OBJECTS.clear();
+    processReclaims();
+    if (DEBUG) {
+      logOutstanding();
+    }
+    List<Record> records;
+    synchronized (LOCK) {
+      records = new ArrayList<>(RECORDS.values());
+    }
+    records.sort(Comparator.comparing(record -> record.type.getName()));
+    Class<?> currentType = null;
+    for (Record record : records) {
+      if (record.type != currentType) {
+        currentType = record.type;
+        LOGGER.info("Clearing objects of type '{}'", currentType.getSimpleName());
+      }
+      Cleanable cleanable = record.get();
+      if (record.release(false)) {
+        if (cleanable != null) {
+          cleanable.cleanUp();
+        } else {
+          // Became unreachable but not processed by the Cleaner yet
+          record.reclaimAction.run();
+        }
+      }
+    }
+    synchronized (LOCK) {
+      RECORDS.clear();
+    }
   }
 
   /**
@@ -49,9 +135,258 @@ public class MemoryManager {
    * @param cleanable the object to free
    */
   public static void free(Cleanable cleanable) {
-    cleanable.cleanUp();
-    if (OBJECTS.containsKey(cleanable.getClass())) {
-      OBJECTS.get(cleanable.getClass()).remove(cleanable);
+    Record record;
+    synchronized (LOCK) {
+      record = RECORDS.get(new IdentityKey(cleanable));
+    }
+    if (record == null || record.release(false)) {
+      cleanable.cleanUp();
+    }
+  }
+
+  /**
+   * Runs the reclaim actions of unreachable Cleanables bound to their owner thread, must be called
+   * regularly from the thread owning their resources, typically once per frame
+   *
+   * @return the number of Cleanables reclaimed
+   */
+  public static int processReclaims() {
+    int count = 0;
+    Record record;
+    while ((record = PENDING_RECLAIMS.poll()) != null) {
+      record.reclaimAction.run();
+      count++;
+    }
+    return count;
+  }
+
+  /**
+   * Returns a snapshot of the memory accounting of every type of Cleanable
+   *
+   * @return a snapshot of the memory accounting of every type of Cleanable
+   */
+  public static List<MemoryStatistics> getStatistics() {
+    synchronized (LOCK) {
+      List<MemoryStatistics> statistics = new ArrayList<>(STATISTICS.size());
+      for (MemoryStatistics typeStatistics : STATISTICS.values()) {
+        statistics.add(typeStatistics.copy());
+      }
+      return statistics;
+    }
+  }
+
+  /**
+   * Returns the total number of off-heap bytes held by tracked Cleanables
+   *
+   * @return the total number of off-heap bytes held by tracked Cleanables
+   */
+  public static long getOffHeapBytes() {
+    synchronized (LOCK) {
+      return offHeapBytes;
+    }
+  }
+
+  /**
+   * Returns the total estimated number of VRAM bytes held by tracked Cleanables
+   *
+   * @return the total estimated number of VRAM bytes held by tracked Cleanables
+   */
+  public static long getVramBytes() {
+    synchronized (LOCK) {
+      return vramBytes;
+    }
+  }
+
+  /**
+   * Returns the number of tracked Cleanables
+   *
+   * @return the number of tracked Cleanables
+   */
+  public static int getLiveCount() {
+    synchronized (LOCK) {
+      return RECORDS.size();
+    }
+  }
+
+  /**
+   * Returns whether allocation sites are recorded, see {@link #DEBUG_PROPERTY}
+   *
+   * @return true if allocation sites are recorded, false otherwise
+   */
+  public static boolean isDebugEnabled() {
+    return DEBUG;
+  }
+
+  /**
+   * Logs the number of tracked Cleanables per allocation site, only available when {@link
+   * #DEBUG_PROPERTY} is set
+   */
+  public static void logOutstanding() {
+    if (!DEBUG) {
+      LOGGER.warn("Allocation sites are not recorded, set -D{}=true", DEBUG_PROPERTY);
+      return;
+    }
+    Map<String, Integer> sites = new TreeMap<>();
+    synchronized (LOCK) {
+      for (Record record : RECORDS.values()) {
+        sites.merge(record.type.getSimpleName() + " " + describeSite(record.site), 1, Integer::sum);
+      }
+    }
+    sites.forEach((site, count) -> LOGGER.warn("{} outstanding object(s) : {}", count, site));
+  }
+
+  /**
+   * Describes an allocation site as the first stack frame outside of the memory management
+   *
+   * @param site the recorded allocation site
+   * @return the description of the allocation site
+   */
+  private static String describeSite(Throwable site) {
+    for (StackTraceElement element : site.getStackTrace()) {
+      String className = element.getClassName();
+      if (!className.equals(MemoryManager.class.getName())
+          && !className.equals(Cleanable.class.getName())) {
+        return element.toString();
+      }
+    }
+    return "unknown";
+  }
+
+  /**
+   * Stops tracking a released Cleanable and updates the accounting
+   *
+   * @param record the record of the Cleanable
+   * @param reclaimed was the Cleanable reclaimed after becoming unreachable or freed explicitly
+   */
+  private static void untrack(Record record, boolean reclaimed) {
+    synchronized (LOCK) {
+      RECORDS.remove(record.key);
+      offHeapBytes -= record.offHeapBytes;
+      vramBytes -= record.vramBytes;
+      STATISTICS.get(record.type).onRelease(reclaimed, record.offHeapBytes, record.vramBytes);
+    }
+  }
+
+  /**
+   * A weak reference to a Cleanable comparing by identity, so Cleanables overriding equals and
+   * hashCode are tracked individually
+   */
+  private static final class IdentityKey extends WeakReference<Cleanable> {
+
+    /** The identity hash code of the Cleanable, kept once the reference is cleared */
+    private final int hash;
+
+    /**
+     * Creates a new IdentityKey
+     *
+     * @param cleanable the Cleanable
+     */
+    private IdentityKey(Cleanable cleanable) {
+      super(cleanable);
+      this.hash = System.identityHashCode(cleanable);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof IdentityKey other)) {
+        return false;
+      }
+      Object referent = get();
+      return referent != null && referent == other.get();
+    }
+  }
+
+  /** The tracking state of a single Cleanable */
+  private static final class Record {
+
+    /** The key of the Cleanable */
+    private final IdentityKey key;
+    /** The type of the Cleanable */
+    private final Class<?> type;
+    /** A strong reference keeping alive Cleanables without reclaim action, null otherwise */
+    private final Cleanable strongReference;
+    /** The action releasing the resources of the Cleanable once unreachable, may be null */
+    private final Runnable reclaimAction;
+    /** Must the reclaim action be run on the thread owning the resources */
+    private final boolean ownerThread;
+    /** The allocation site of the Cleanable, null if not recorded */
+    private final Throwable site;
+    /** Has the Cleanable already been released, freed or reclaimed */
+    private final AtomicBoolean released = new AtomicBoolean(false);
+    /** The registration of the Cleanable into the Cleaner, null if not reclaimable */
+    private Cleaner.Cleanable cleanerHandle;
+    /** The number of off-heap bytes held by the Cleanable */
+    private long offHeapBytes = 0;
+    /** The estimated number of VRAM bytes held by the Cleanable */
+    private long vramBytes = 0;
+
+    /**
+     * Creates a new Record
+     *
+     * @param cleanable the Cleanable to track
+     * @param reclaimAction the action releasing the resources of the Cleanable, may be null
+     * @param ownerThread must the reclaim action be run on the thread owning the resources
+     * @param site the allocation site of the Cleanable, may be null
+     */
+    private Record(
+        Cleanable cleanable, Runnable reclaimAction, boolean ownerThread, Throwable site) {
+      this.key = new IdentityKey(cleanable);
+      this.type = cleanable.getClass();
+      this.strongReference = reclaimAction == null ? cleanable : null;
+      this.reclaimAction = reclaimAction;
+      this.ownerThread = ownerThread;
+      this.site = site;
+    }
+
+    /**
+     * Returns the tracked Cleanable
+     *
+     * @return the tracked Cleanable, null if it has become unreachable
+     */
+    private Cleanable get() {
+      return strongReference != null ? strongReference : key.get();
+    }
+
+    /**
+     * Marks the Cleanable as released and stops tracking it, the caller is then in charge of
+     * releasing its resources
+     *
+     * @param reclaimed was the Cleanable reclaimed after becoming unreachable or freed explicitly
+     * @return true if the Cleanable was not already released, false otherwise
+     */
+    private boolean release(boolean reclaimed) {
+      if (!released.compareAndSet(false, true)) {
+        return false;
+      }
+      untrack(this, reclaimed);
+      if (cleanerHandle != null && !reclaimed) {
+        // Unregisters from the Cleaner, onUnreachable will see the record already released
+        cleanerHandle.clean();
+      }
+      return true;
+    }
+
+    /** Called by the Cleaner once the Cleanable has become unreachable */
+    private void onUnreachable() {
+      if (!release(true)) {
+        return;
+      }
+      if (site != null) {
+        LOGGER.debug("Reclaiming unreachable {} allocated at {}", type, describeSite(site));
+      }
+      if (ownerThread) {
+        PENDING_RECLAIMS.add(this);
+      } else {
+        reclaimAction.run();
+      }
     }
   }
 }
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.common;
+
+/**
+ * The memory accounting of a type of {@link Cleanable}, as tracked by {@link MemoryManager}.
+ * Instances returned by {@link MemoryManager#getStatistics()} are snapshots and never change
+ */
+public final class MemoryStatistics {
+
+  /** The type of Cleanable */
+  private final Class<?> type;
+  /** The number of objects currently tracked */
+  private long liveCount = 0;
+  /** The number of objects registered since the start */
+  private long registeredCount = 0;
+  /** The number of objects freed explicitly */
+  private long freedCount = 0;
+  /** The number of objects reclaimed after becoming unreachable */
+  private long reclaimedCount = 0;
+  /** The number of off-heap bytes held by tracked objects */
+  private long offHeapBytes = 0;
+  /** The estimated number of VRAM bytes held by tracked objects */
+  private long vramBytes = 0;
+
+  /**
+   * Creates a new empty MemoryStatistics
+   *
+   * @param type the type of Cleanable
+   */
+  MemoryStatistics(Class<?> type) {
+    this.type = type;
+  }
+
+  /**
+   * Creates a snapshot of this MemoryStatistics
+   *
+   * @return a copy of this MemoryStatistics
+   */
+  MemoryStatistics copy() {
+    MemoryStatistics copy = new MemoryStatistics(type);
+    copy.liveCount = liveCount;
+    copy.registeredCount = registeredCount;
+    copy.freedCount = freedCount;
+    copy.reclaimedCount = reclaimedCount;
+    copy.offHeapBytes = offHeapBytes;
+    copy.vramBytes = vramBytes;
+    return copy;
+  }
+
+  /** Records the registration of an object */
+  void onRegister() {
+    liveCount++;
+    registeredCount++;
+  }
+
+  /**
+   * Records the release of an object
+   *
+   * @param reclaimed was the object reclaimed after becoming unreachable or freed explicitly
+   * @param offHeap the number of off-heap bytes the object held
+   * @param vram the estimated number of VRAM bytes the object held
+   */
+  void onRelease(boolean reclaimed, long offHeap, long vram) {
+    liveCount--;
+    if (reclaimed) {
+      reclaimedCount++;
+    } else {
+      freedCount++;
+    }
+    offHeapBytes -= offHeap;
+    vramBytes -= vram;
+  }
+
+  /**
+   * Records a change of the memory held by an object
+   *
+   * @param offHeapDelta the change of off-heap bytes
+   * @param vramDelta the change of estimated VRAM bytes
+   */
+  void onResize(long offHeapDelta, long vramDelta) {
+    offHeapBytes += offHeapDelta;
+    vramBytes += vramDelta;
+  }
+
+  /**
+   * Returns the type of Cleanable
+   *
+   * @return the type of Cleanable
+   */
+  public Class<?> getType() {
+    return type;
+  }
+
+  /**
+   * Returns the number of objects currently tracked
+   *
+   * @return the number of objects currently tracked
+   */
+  public long getLiveCount() {
+    return liveCount;
+  }
+
+  /**
+   * Returns the number of objects registered since the start
+   *
+   * @return the number of objects registered since the start
+   */
+  public long getRegisteredCount() {
+    return registeredCount;
+  }
+
+  /**
+   * Returns the number of objects freed explicitly
+   *
+   * @return the number of objects freed explicitly
+   */
+  public long getFreedCount() {
+    return freedCount;
+  }
+
+  /**
+   * Returns the number of objects reclaimed after becoming unreachable
+   *
+   * @return the number of objects reclaimed after becoming unreachable
+   */
+  public long getReclaimedCount() {
+    return reclaimedCount;
+  }
+
+  /**
+   * Returns the number of off-heap bytes held by tracked objects
+   *
+   * @return the number of off-heap bytes held by tracked objects
+   */
+  public long getOffHeapBytes() {
+    return offHeapBytes;
+  }
+
+  /**
+   * Returns the estimated number of VRAM bytes held by tracked objects
+   *
+   * @return the estimated number of VRAM bytes held by tracked objects
+   */
+  public long getVramBytes() {
+    return vramBytes;
+  }
+}
@@ -8,11 +8,23 @@ package org.alban098.common;
 /** This class represent an accurate timer used to calculate update and frame times */
 public final class Timer {
 
+  /** The clock providing the time */
+  private final Clock clock;
   /** The time at which the last frame has ended */
   private long lastFrameTime;
 
-  /** Creates and initializes a new Timer */
+  /** Creates and initializes a new Timer using the system clock */
   public Timer() {
+    this(Clock.SYSTEM);
+  }
+
+  /**
+   * Creates and initializes a new Timer
+   *
+   * @param clock the clock providing the time
+   */
+  public Timer(Clock clock) {
+    this.clock = clock;
     lastFrameTime = getTime();
   }
 
@@ -22,7 +34,7 @@ public final class Timer {
    * @return the current time in seconds
    */
   public long getTime() {
-    return System.nanoTime();
+    return clock.nanoTime();
   }
 
   /**
@@ -14,11 +14,13 @@ import org.lwjgl.system.MemoryUtil;
 /** an Element allowing an Entity to be moved, scaled and rotated in the world */
 public final class Transform implements Cleanable {
 
-  /** The transformation matrix */
+  /** The local transformation matrix, relative to the parent Transform if any */
   private final Matrix4f matrix;
+  /** The world transformation matrix, with all parent transformations applied */
+  private final Matrix4f worldMatrix;
   /** A Buffer used to store the absolute transformation matrix for rendering */
   private final FloatBuffer buffer = MemoryUtil.memAllocFloat(16);
-  /** An array used to store the transformation matrix before loading it to a GPU buffer */
+  /** An array used to store the world transformation matrix before loading it to a GPU buffer */
   private final float[] matrixArray = new float[16];
   /** The current displacement of the Component */
   private final Vector2f displacement;
@@ -34,6 +36,13 @@ public final class Transform implements Cleanable {
   private float requestedRotation;
   /** A flag to indicate that a change has occurred */
   private boolean change = false;
+  /** The number of changes committed so far, used to detect that the Transform has moved */
+  private int version = 0;
+  /** The hierarchy this Transform is part of, null if it is standalone */
+  private TransformHierarchy hierarchy = null;
+  /** The index of this Transform in its hierarchy, -1 if it is standalone */
+  private int node = -1;
+
   /** Creates a new Transform */
   public Transform() {
     this(new Vector2f(), new Vector2f(1, 1), 0);
@@ -67,9 +76,11 @@ public final class Transform implements Cleanable {
     this.requestedRotation = rotation;
 
     this.matrix = new Matrix4f().identity();
+    this.worldMatrix = new Matrix4f().identity();
 
     updateMatrix();
     initialize();
+    MemoryManager.account(this, (long) buffer.capacity() * Float.BYTES, 0);
   }
 
   /** Applies the requested state to the current state */
@@ -78,25 +89,77 @@ public final class Transform implements Cleanable {
     scale.set(requestedScale);
     rotation = requestedRotation;
     change = false;
+    version++;
   }
 
-  /** Recomputes the transformation matrix */
+  /**
+   * Recomputes the local transformation matrix, and the world one if the Transform is standalone,
+   * otherwise the world matrix is recomputed by the hierarchy at its next update
+   */
   private void updateMatrix() {
     matrix
         .identity()
         .translate(displacement.x, displacement.y, 0)
         .rotateZ(rotation)
         .scale(scale.x, scale.y, 1);
-    matrix.get(matrixArray);
+    if (hierarchy == null) {
+      updateWorld(null);
+    } else {
+      hierarchy.markDirty(node);
+    }
+  }
+
+  /**
+   * Recomputes the world transformation matrix by applying the parent's world matrix to the local
+   * one
+   *
+   * @param parentWorld the world matrix of the parent, null if the Transform has no parent
+   */
+  void updateWorld(Matrix4f parentWorld) {
+    if (parentWorld == null) {
+      worldMatrix.set(matrix);
+    } else {
+      parentWorld.mul(matrix, worldMatrix);
+    }
+    worldMatrix.get(matrixArray);
+  }
+
+  /**
+   * Sets the hierarchy this Transform is part of, only called by the hierarchy itself
+   *
+   * @param hierarchy the hierarchy, null if the Transform becomes standalone
+   * @param node the index of the Transform in the hierarchy
+   */
+  void setHierarchy(TransformHierarchy hierarchy, int node) {
+    this.hierarchy = hierarchy;
+    this.node = node;
+  }
+
+  /**
+   * Returns the hierarchy this Transform is part of
+   *
+   * @return the hierarchy this Transform is part of, null if it is standalone
+   */
+  public TransformHierarchy getHierarchy() {
+    return hierarchy;
+  }
+
+  /**
+   * Returns the index of this Transform in its hierarchy
+   *
+   * @return the index of this Transform in its hierarchy, -1 if it is standalone
+   */
+  int getNode() {
+    return node;
   }
 
   /**
-   * Apply a transformation to the current one
+   * Returns the world transformation matrix without updating the hierarchy first
    *
-   * @param parent the parent transform to apply
+   * @return the world transformation matrix as last computed
    */
-  private void applyTransform(Transform parent) {
-    matrix.mul(parent.matrix);
+  Matrix4f getWorldMatrix() {
+    return worldMatrix;
   }
 
   /**
@@ -105,6 +168,18 @@ public final class Transform implements Cleanable {
    * @return the absolute transformation matrix, with all parent transformations applied
    */
   public Matrix4f getMatrix() {
+    if (hierarchy != null) {
+      hierarchy.update();
+    }
+    return worldMatrix;
+  }
+
+  /**
+   * Returns the local transformation matrix, relative to the parent Transform if any
+   *
+   * @return the local transformation matrix
+   */
+  public Matrix4f getLocalMatrix() {
     return matrix;
   }
 
@@ -204,18 +279,17 @@ public final class Transform implements Cleanable {
   }
 
   /**
-   * Rotates the Transform by a certain amount, and then wrap the rotation between 0 and 2*PI
+   * Rotates the Transform by a certain amount, and then wrap the rotation between 0 and 2*PI in a
+   * single step, however many turns the rotation has made
    *
    * @param angle the amount to rotate
    */
   public void rotate(float angle) {
-    requestedRotation += angle;
-    while (requestedRotation < 0) {
-      requestedRotation += 2 * Math.PI;
-    }
-    while (requestedRotation > 2 * Math.PI) {
-      requestedRotation -= 2 * Math.PI;
+    double rotation = requestedRotation + angle;
+    if (rotation < 0 || rotation > 2 * Math.PI) {
+      rotation -= 2 * Math.PI * Math.floor(rotation / (2 * Math.PI));
     }
+    requestedRotation = (float) rotation;
     change = true;
   }
 
@@ -225,6 +299,9 @@ public final class Transform implements Cleanable {
    * @return a {@link java.nio.Buffer} containing the transformation matrix
    */
   public FloatBuffer toFloatBuffer() {
+    if (hierarchy != null) {
+      hierarchy.update();
+    }
     buffer.clear();
     return buffer.put(matrixArray).flip();
   }
@@ -235,6 +312,17 @@ public final class Transform implements Cleanable {
     MemoryUtil.memFree(buffer);
   }
 
+  /**
+   * Returns an action freeing the buffer of the Transform once it has become unreachable
+   *
+   * @return an action freeing the buffer of the Transform
+   */
+  @Override
+  public Runnable getReclaimAction() {
+    FloatBuffer matrixBuffer = buffer;
+    return () -> MemoryUtil.memFree(matrixBuffer);
+  }
+
   /** Updates the Transform by recomputing its matrix */
   public void commit() {
     if (change) {
@@ -243,6 +331,16 @@ public final class Transform implements Cleanable {
     }
   }
 
+  /**
+   * Returns the number of changes committed so far, a cached value derived from the Transform is
+   * up-to-date as long as this number has not changed since it was computed
+   *
+   * @return the number of changes committed so far
+   */
+  public int getVersion() {
+    return version;
+  }
+
   /**
    * Returns the current displacement fo the Transform
    *
@@ -260,4 +358,13 @@ public final class Transform implements Cleanable {
   public Vector2f getScale() {
     return scale;
   }
+
+  /**
+   * Returns the current rotation of the Transform around the Z axis
+   *
+   * @return the current rotation of the Transform around the Z axis
+   */
+  public float getRotation() {
+    return rotation;
+  }
 }
@@ -0,0 +1,374 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.common;
+
+import java.util.Arrays;
+
+/**
+ * A scene graph of {@link Transform}s, stored as flat arrays in depth-first order so that a parent
+ * is always stored before its children and every subtree is contiguous. Local changes only mark a
+ * node dirty, and world matrices are recomputed by {@link #update()} in a single linear pass over
+ * the dirty subtrees, making the cost of an update proportional to the number of dirty nodes
+ * instead of the size of the hierarchy. Structural changes are O(n) and should stay rare
+ */
+public final class TransformHierarchy {
+
+  /** The initial capacity of the arrays of the hierarchy */
+  private static final int INITIAL_CAPACITY = 16;
+  /** The inverse of the share of dirty nodes above which flags are scanned instead of sorted */
+  private static final int DENSE_DIRTY_RATIO = 16;
+
+  /** The Transforms of the hierarchy, in depth-first order */
+  private Transform[] nodes = new Transform[INITIAL_CAPACITY];
+  /** The index of the parent of each node, -1 for roots */
+  private int[] parents = new int[INITIAL_CAPACITY];
+  /** The number of nodes in the subtree of each node, including itself */
+  private int[] subtreeSizes = new int[INITIAL_CAPACITY];
+  /** Whether each node has been marked dirty since the last update */
+  private boolean[] dirty = new boolean[INITIAL_CAPACITY];
+  /** The indices of the nodes marked dirty since the last update */
+  private int[] dirtyNodes = new int[INITIAL_CAPACITY];
+  /** The number of nodes marked dirty since the last update */
+  private int dirtyCount = 0;
+  /** Has the structure changed since the last update, requiring every node to be recomputed */
+  private boolean structureChanged = false;
+  /** The number of nodes in the hierarchy */
+  private int size = 0;
+
+  /**
+   * Adds a Transform to the hierarchy as a root, moving it and its descendants out of the hierarchy
+   * they were part of if any
+   *
+   * @param transform the Transform to add
+   */
+  public void add(Transform transform) {
+    setParent(transform, null);
+  }
+
+  /**
+   * Sets the parent of a Transform, adding it to the hierarchy if necessary. The Transform is moved
+   * along with all its descendants, even if it was part of another hierarchy
+   *
+   * @param child the Transform to parent
+   * @param parent the new parent of the Transform, or null to make it a root
+   * @throws IllegalArgumentException if the parent is not part of the hierarchy, or is a descendant
+   *     of the child
+   */
+  public void setParent(Transform child, Transform parent) {
+    if (parent != null) {
+      if (parent.getHierarchy() != this) {
+        throw new IllegalArgumentException("The parent is not part of this hierarchy");
+      }
+      if (child.getHierarchy() == this && isInSubtree(parent.getNode(), child.getNode())) {
+        throw new IllegalArgumentException("A Transform can not be parented to its own descendant");
+      }
+    }
+    Subtree subtree;
+    if (child.getHierarchy() == null) {
+      subtree = new Subtree(child);
+    } else {
+      subtree = child.getHierarchy().extract(child.getNode());
+    }
+    insert(subtree, parent == null ? -1 : parent.getNode());
+  }
+
+  /**
+   * Removes a Transform and all its descendants from the hierarchy, their world matrices then only
+   * reflect their own local state
+   *
+   * @param transform the Transform to remove
+   * @throws IllegalArgumentException if the Transform is not part of the hierarchy
+   */
+  public void remove(Transform transform) {
+    if (transform.getHierarchy() != this) {
+      throw new IllegalArgumentException("The Transform is not part of this hierarchy");
+    }
+    Subtree subtree = extract(transform.getNode());
+    for (Transform node : subtree.nodes) {
+      node.setHierarchy(null, -1);
+      node.updateWorld(null);
+    }
+  }
+
+  /**
+   * Returns the parent of a Transform of the hierarchy
+   *
+   * @param transform the Transform to get the parent of
+   * @return the parent of the Transform, null if it is a root or not part of the hierarchy
+   */
+  public Transform getParent(Transform transform) {
+    if (transform.getHierarchy() != this) {
+      return null;
+    }
+    int parent = parents[transform.getNode()];
+    return parent < 0 ? null : nodes[parent];
+  }
+
+  /**
+   * Returns the number of Transforms in the hierarchy
+   *
+   * @return the number of Transforms in the hierarchy
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns whether some world matrices need to be recomputed
+   *
+   * @return true if some world matrices need to be recomputed, false otherwise
+   */
+  public boolean isDirty() {
+    return structureChanged || dirtyCount > 0;
+  }
+
+  /**
+   * Recomputes the world matrices of every dirty node and of their descendants, in a single pass in
+   * depth-first order. Subtrees nested in an already recomputed subtree are skipped
+   */
+  public void update() {
+    if (structureChanged) {
+      recompute(0, size);
+      structureChanged = false;
+      return;
+    }
+    if (dirtyCount == 0) {
+      return;
+    }
+    if (dirtyCount * DENSE_DIRTY_RATIO >= size) {
+      // Scanning the flags in order is cheaper than sorting that many nodes
+      for (int node = 0; node < size; node++) {
+        if (dirty[node]) {
+          int end = node + subtreeSizes[node];
+          recompute(node, end);
+          for (int i = node; i < end; i++) {
+            dirty[i] = false;
+          }
+          node = end - 1;
+        }
+      }
+    } else {
+      // Arrays.sort allocates when the nodes contain presorted runs, which is the common case
+      heapSort(dirtyNodes, dirtyCount);
+      int end = -1;
+      for (int i = 0; i < dirtyCount; i++) {
+        int node = dirtyNodes[i];
+        dirty[node] = false;
+        if (node >= end) {
+          end = node + subtreeSizes[node];
+          recompute(node, end);
+        }
+      }
+    }
+    dirtyCount = 0;
+  }
+
+  /**
+   * Sorts the first values of an array in ascending order, in place and without allocating
+   *
+   * @param values the array to sort
+   * @param count the number of values to sort
+   */
+  private static void heapSort(int[] values, int count) {
+    for (int i = count / 2 - 1; i >= 0; i--) {
+      siftDown(values, i, count);
+    }
+    for (int end = count - 1; end > 0; end--) {
+      int max = values[0];
+      values[0] = values[end];
+      values[end] = max;
+      siftDown(values, 0, end);
+    }
+  }
+
+  /**
+   * Moves a value down a max-heap until both its children are lower
+   *
+   * @param values the array holding the heap
+   * @param index the index of the value to move
+   * @param count the number of values in the heap
+   */
+  private static void siftDown(int[] values, int index, int count) {
+    int value = values[index];
+    int child;
+    while ((child = 2 * index + 1) < count) {
+      if (child + 1 < count && values[child + 1] > values[child]) {
+        child++;
+      }
+      if (values[child] <= value) {
+        break;
+      }
+      values[index] = values[child];
+      index = child;
+    }
+    values[index] = value;
+  }
+
+  /**
+   * Marks a node dirty, its world matrix and those of its descendants will be recomputed at the
+   * next update
+   *
+   * @param node the index of the node
+   */
+  void markDirty(int node) {
+    if (structureChanged || dirty[node]) {
+      return;
+    }
+    dirty[node] = true;
+    dirtyNodes[dirtyCount++] = node;
+  }
+
+  /**
+   * Recomputes the world matrices of a range of nodes, every parent outside the range being
+   * considered up to date
+   *
+   * @param start the index of the first node, inclusive
+   * @param end the index of the last node, exclusive
+   */
+  private void recompute(int start, int end) {
+    for (int i = start; i < end; i++) {
+      int parent = parents[i];
+      nodes[i].updateWorld(parent < 0 ? null : nodes[parent].getWorldMatrix());
+    }
+  }
+
+  /**
+   * Returns whether a node is part of the subtree of another one
+   *
+   * @param node the index of the node to look for
+   * @param root the index of the root of the subtree
+   * @return true if the node is part of the subtree, false otherwise
+   */
+  private boolean isInSubtree(int node, int root) {
+    return node >= root && node < root + subtreeSizes[root];
+  }
+
+  /**
+   * Removes a subtree from the hierarchy, shifting the following nodes back
+   *
+   * @param root the index of the root of the subtree
+   * @return the removed subtree
+   */
+  private Subtree extract(int root) {
+    int count = subtreeSizes[root];
+    int end = root + count;
+    Subtree subtree = new Subtree(count);
+    for (int i = 0; i < count; i++) {
+      subtree.nodes[i] = nodes[root + i];
+      subtree.parents[i] = i == 0 ? -1 : parents[root + i] - root;
+      subtree.subtreeSizes[i] = subtreeSizes[root + i];
+    }
+    for (int ancestor = parents[root]; ancestor >= 0; ancestor = parents[ancestor]) {
+      subtreeSizes[ancestor] -= count;
+    }
+    System.arraycopy(nodes, end, nodes, root, size - end);
+    System.arraycopy(parents, end, parents, root, size - end);
+    System.arraycopy(subtreeSizes, end, subtreeSizes, root, size - end);
+    Arrays.fill(nodes, size - count, size, null);
+    size -= count;
+    for (int i = 0; i < size; i++) {
+      if (parents[i] >= end) {
+        parents[i] -= count;
+      }
+    }
+    for (int i = root; i < size; i++) {
+      nodes[i].setHierarchy(this, i);
+    }
+    onStructureChanged();
+    return subtree;
+  }
+
+  /**
+   * Inserts a subtree into the hierarchy, as the last child of a node or as the last root
+   *
+   * @param subtree the subtree to insert
+   * @param parent the index of the parent node, -1 to insert the subtree as a root
+   */
+  private void insert(Subtree subtree, int parent) {
+    int count = subtree.nodes.length;
+    int position = parent < 0 ? size : parent + subtreeSizes[parent];
+    ensureCapacity(size + count);
+    for (int i = 0; i < size; i++) {
+      if (parents[i] >= position) {
+        parents[i] += count;
+      }
+    }
+    System.arraycopy(nodes, position, nodes, position + count, size - position);
+    System.arraycopy(parents, position, parents, position + count, size - position);
+    System.arraycopy(subtreeSizes, position, subtreeSizes, position + count, size - position);
+    for (int i = 0; i < count; i++) {
+      nodes[position + i] = subtree.nodes[i];
+      parents[position + i] = i == 0 ? parent : subtree.parents[i] + position;
+      subtreeSizes[position + i] = subtree.subtreeSizes[i];
+    }
+    for (int ancestor = parent; ancestor >= 0; ancestor = parents[ancestor]) {
+      subtreeSizes[ancestor] += count;
+    }
+    size += count;
+    for (int i = position; i < size; i++) {
+      nodes[i].setHierarchy(this, i);
+    }
+    onStructureChanged();
+  }
+
+  /** Discards the dirty nodes, as every node will be recomputed at the next update */
+  private void onStructureChanged() {
+    Arrays.fill(dirty, false);
+    dirtyCount = 0;
+    structureChanged = true;
+  }
+
+  /**
+   * Grows the arrays of the hierarchy if necessary
+   *
+   * @param capacity the minimum capacity required
+   */
+  private void ensureCapacity(int capacity) {
+    if (capacity <= nodes.length) {
+      return;
+    }
+    int newCapacity = Math.max(capacity, nodes.length * 2);
+    nodes = Arrays.copyOf(nodes, newCapacity);
+    parents = Arrays.copyOf(parents, newCapacity);
+    subtreeSizes = Arrays.copyOf(subtreeSizes, newCapacity);
+    dirty = Arrays.copyOf(dirty, newCapacity);
+    dirtyNodes = Arrays.copyOf(dirtyNodes, newCapacity);
+  }
+
+  /** A subtree extracted from a hierarchy, with parent indices relative to its root */
+  private static final class Subtree {
+
+    /** The Transforms of the subtree, in depth-first order */
+    private final Transform[] nodes;
+    /** The index of the parent of each node relative to the root, -1 for the root */
+    private final int[] parents;
+    /** The number of nodes in the subtree of each node, including itself */
+    private final int[] subtreeSizes;
+
+    /**
+     * Creates a new empty Subtree
+     *
+     * @param count the number of nodes of the subtree
+     */
+    private Subtree(int count) {
+      this.nodes = new Transform[count];
+      this.parents = new int[count];
+      this.subtreeSizes = new int[count];
+    }
+
+    /**
+     * Creates a new Subtree containing a single Transform
+     *
+     * @param transform the Transform of the subtree
+     */
+    private Subtree(Transform transform) {
+      this(1);
+      nodes[0] = transform;
+      parents[0] = -1;
+      subtreeSizes[0] = 1;
+    }
+  }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.common.ecs;
+
+import java.util.*;
+
+/**
+ * Groups all entities having exactly the same set of component types, their components being stored
+ * in {@link Chunk}s. Chunks are kept packed, an entity leaving the Archetype being replaced by the
+ * last one, so only the last chunk is ever partially filled
+ */
+public final class Archetype {
+
+  /** The component types of the Archetype, sorted by id */
+  private final ComponentType<?>[] types;
+  /** The set of the ids of the component types of the Archetype */
+  private final BitSet signature;
+  /** The column of each component type, indexed by type id, -1 if absent */
+  private final int[] columnByType;
+  /** The chunks of the Archetype, all full except maybe the last one */
+  private final List<Chunk> chunks = new ArrayList<>();
+  /** The capacity of each chunk */
+  private final int chunkCapacity;
+  /** The Archetypes reached by adding a component type, indexed by type id, built lazily */
+  private final Map<Integer, Archetype> addEdges = new HashMap<>();
+  /** The Archetypes reached by removing a component type, indexed by type id, built lazily */
+  private final Map<Integer, Archetype> removeEdges = new HashMap<>();
+  /** The number of entities of the Archetype */
+  private int size = 0;
+
+  /**
+   * Creates a new Archetype
+   *
+   * @param types the component types of the Archetype, sorted by id
+   * @param chunkCapacity the capacity of each chunk
+   */
+  Archetype(ComponentType<?>[] types, int chunkCapacity) {
+    this.types = types;
+    this.chunkCapacity = chunkCapacity;
+    this.signature = new BitSet();
+    int maxId = -1;
+    for (ComponentType<?> type : types) {
+      signature.set(type.getId());
+      maxId = Math.max(maxId, type.getId());
+    }
+    this.columnByType = new int[maxId + 1];
+    Arrays.fill(columnByType, -1);
+    for (int i = 0; i < types.length; i++) {
+      columnByType[types[i].getId()] = i;
+    }
+  }
+
+  /**
+   * Returns the column of a component type
+   *
+   * @param type the component type
+   * @return the column of the component type, -1 if the Archetype doesn't contain it
+   */
+  int getColumn(ComponentType<?> type) {
+    int id = type.getId();
+    return id < columnByType.length ? columnByType[id] : -1;
+  }
+
+  /**
+   * Returns the chunk with free room, creating it if needed
+   *
+   * @return a chunk with free room
+   */
+  Chunk getWritableChunk() {
+    Chunk last = chunks.isEmpty() ? null : chunks.get(chunks.size() - 1);
+    if (last == null || last.isFull()) {
+      last = new Chunk(this, chunkCapacity);
+      chunks.add(last);
+    }
+    return last;
+  }
+
+  /**
+   * Returns the last chunk of the Archetype
+   *
+   * @return the last chunk of the Archetype, null if it has no entity
+   */
+  Chunk getLastChunk() {
+    return chunks.isEmpty() ? null : chunks.get(chunks.size() - 1);
+  }
+
+  /** Releases the last chunk if it doesn't hold any entity anymore */
+  void trimLastChunk() {
+    Chunk last = getLastChunk();
+    if (last != null && last.size() == 0) {
+      chunks.remove(chunks.size() - 1);
+    }
+  }
+
+  /**
+   * Updates the number of entities of the Archetype
+   *
+   * @param delta the number of entities added, negative if removed
+   */
+  void changeSize(int delta) {
+    size += delta;
+  }
+
+  /**
+   * Returns the lazily built edges to the Archetypes reached by adding a component type
+   *
+   * @return the edges to the Archetypes reached by adding a component type
+   */
+  Map<Integer, Archetype> getAddEdges() {
+    return addEdges;
+  }
+
+  /**
+   * Returns the lazily built edges to the Archetypes reached by removing a component type
+   *
+   * @return the edges to the Archetypes reached by removing a component type
+   */
+  Map<Integer, Archetype> getRemoveEdges() {
+    return removeEdges;
+  }
+
+  /**
+   * Returns the set of the ids of the component types of the Archetype, must not be modified
+   *
+   * @return the signature of the Archetype
+   */
+  BitSet getSignature() {
+    return signature;
+  }
+
+  /**
+   * Returns the component types of the Archetype, sorted by id, must not be modified
+   *
+   * @return the component types of the Archetype
+   */
+  ComponentType<?>[] getTypes() {
+    return types;
+  }
+
+  /**
+   * Returns whether the Archetype contains a component type
+   *
+   * @param type the component type
+   * @return true if the Archetype contains the component type, false otherwise
+   */
+  public boolean has(ComponentType<?> type) {
+    return getColumn(type) >= 0;
+  }
+
+  /**
+   * Returns a read-only view of the chunks of the Archetype
+   *
+   * @return a read-only view of the chunks of the Archetype
+   */
+  public List<Chunk> getChunks() {
+    return Collections.unmodifiableList(chunks);
+  }
+
+  /**
+   * Returns the number of chunks of the Archetype
+   *
+   * @return the number of chunks of the Archetype
+   */
+  public int getChunkCount() {
+    return chunks.size();
+  }
+
+  /**
+   * Returns a chunk of the Archetype
+   *
+   * @param index the index of the chunk
+   * @return the chunk
+   */
+  public Chunk getChunk(int index) {
+    return chunks.get(index);
+  }
+
+  /**
+   * Returns the number of entities of the Archetype
+   *
+   * @return the number of entities of the Archetype
+   */
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public String toString() {
+    return Arrays.toString(types);
+  }
+}
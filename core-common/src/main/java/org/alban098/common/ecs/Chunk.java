@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.common.ecs;
+
+import java.lang.reflect.Array;
+
+/**
+ * A fixed capacity block of entities sharing the same {@link Archetype}. Each component type of the
+ * Archetype is stored in its own dense array, the component of the entity at row {@code i} being at
+ * index {@code i} of every array, so a system iterates a chunk linearly
+ */
+public final class Chunk {
+
+  /** The Archetype of all entities of the chunk */
+  private final Archetype archetype;
+  /** The entities stored in the chunk, by row */
+  private final int[] entities;
+  /** The component arrays, in the order of the component types of the Archetype */
+  private final Object[][] columns;
+  /** The number of entities stored in the chunk */
+  private int size = 0;
+
+  /**
+   * Creates a new Chunk
+   *
+   * @param archetype the Archetype of all entities of the chunk
+   * @param capacity the maximum number of entities of the chunk
+   */
+  Chunk(Archetype archetype, int capacity) {
+    this.archetype = archetype;
+    this.entities = new int[capacity];
+    ComponentType<?>[] types = archetype.getTypes();
+    this.columns = new Object[types.length][];
+    for (int i = 0; i < types.length; i++) {
+      columns[i] = (Object[]) Array.newInstance(types[i].getType(), capacity);
+    }
+  }
+
+  /**
+   * Returns the dense array of a component type, only the first {@link #size()} elements are valid
+   *
+   * @param type the component type
+   * @param <T> the type of the component
+   * @return the dense array of the component type
+   * @throws IllegalArgumentException if the Archetype of the chunk doesn't contain the type
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T[] getColumn(ComponentType<T> type) {
+    int column = archetype.getColumn(type);
+    if (column < 0) {
+      throw new IllegalArgumentException("Archetype " + archetype + " has no " + type + " column");
+    }
+    return (T[]) columns[column];
+  }
+
+  /**
+   * Returns the entity stored at a row of the chunk
+   *
+   * @param row the row of the entity
+   * @return the entity stored at that row
+   */
+  public int getEntity(int row) {
+    return entities[row];
+  }
+
+  /**
+   * Returns the number of entities stored in the chunk
+   *
+   * @return the number of entities stored in the chunk
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the Archetype of all entities of the chunk
+   *
+   * @return the Archetype of all entities of the chunk
+   */
+  public Archetype getArchetype() {
+    return archetype;
+  }
+
+  /**
+   * Returns whether the chunk can't store more entities
+   *
+   * @return true if the chunk is full, false otherwise
+   */
+  boolean isFull() {
+    return size == entities.length;
+  }
+
+  /**
+   * Appends an entity to the chunk, its components must be set afterward
+   *
+   * @param entity the entity to append
+   * @return the row of the entity
+   */
+  int append(int entity) {
+    entities[size] = entity;
+    return size++;
+  }
+
+  /**
+   * Sets a component of an entity
+   *
+   * @param column the column of the component type in the Archetype
+   * @param row the row of the entity
+   * @param component the component
+   */
+  void set(int column, int row, Object component) {
+    columns[column][row] = component;
+  }
+
+  /**
+   * Returns a component of an entity
+   *
+   * @param column the column of the component type in the Archetype
+   * @param row the row of the entity
+   * @return the component
+   */
+  Object get(int column, int row) {
+    return columns[column][row];
+  }
+
+  /**
+   * Removes the last entity of the chunk
+   *
+   * @return the removed entity
+   */
+  int removeLast() {
+    size--;
+    for (Object[] column : columns) {
+      column[size] = null;
+    }
+    return entities[size];
+  }
+
+  /**
+   * Overwrites a row with the content of another row, possibly of another chunk of the same
+   * Archetype
+   *
+   * @param row the row to overwrite
+   * @param source the chunk to copy from
+   * @param sourceRow the row to copy from
+   */
+  void copyRow(int row, Chunk source, int sourceRow) {
+    entities[row] = source.entities[sourceRow];
+    for (int i = 0; i < columns.length; i++) {
+      columns[i][row] = source.columns[i][sourceRow];
+    }
+  }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.common.ecs;
+
+import java.util.Arrays;
+
+/**
+ * Records structural changes of a {@link World} to apply them later, typically once a {@link Query}
+ * iteration is over. Entities created through the buffer are given provisional negative handles,
+ * valid only for later commands of the same buffer until {@link #playback()} resolves them
+ */
+public final class CommandBuffer {
+
+  /** The command creating an entity */
+  private static final byte CREATE = 0;
+  /** The command destroying an entity */
+  private static final byte DESTROY = 1;
+  /** The command adding or replacing a component */
+  private static final byte ADD = 2;
+  /** The command removing a component */
+  private static final byte REMOVE = 3;
+
+  /** The World the commands are applied to */
+  private final World world;
+  /** The recorded commands */
+  private byte[] commands = new byte[64];
+  /** The entity targeted by each command */
+  private int[] entities = new int[64];
+  /** The component or component class of each command, if any */
+  private Object[] payloads = new Object[64];
+  /** The number of recorded commands */
+  private int count = 0;
+  /** The number of entities created by the recorded commands */
+  private int created = 0;
+  /** The real handles of the entities created during playback, by creation order */
+  private int[] resolved = new int[16];
+
+  /**
+   * Creates a new CommandBuffer
+   *
+   * @param world the World the commands are applied to
+   */
+  public CommandBuffer(World world) {
+    this.world = world;
+  }
+
+  /**
+   * Records the creation of an entity without component
+   *
+   * @return the provisional handle of the entity, only valid for this buffer
+   */
+  public int create() {
+    record(CREATE, 0, null);
+    return -(++created);
+  }
+
+  /**
+   * Records the destruction of an entity
+   *
+   * @param entity the entity to destroy, may be provisional
+   */
+  public void destroy(int entity) {
+    record(DESTROY, entity, null);
+  }
+
+  /**
+   * Records the addition of a component to an entity, replacing the one of the same type if any
+   *
+   * @param entity the entity, may be provisional
+   * @param component the component to add
+   */
+  public void add(int entity, Object component) {
+    record(ADD, entity, component);
+  }
+
+  /**
+   * Records the removal of a component from an entity
+   *
+   * @param entity the entity, may be provisional
+   * @param type the class of the component to remove
+   */
+  public void remove(int entity, Class<?> type) {
+    record(REMOVE, entity, type);
+  }
+
+  /**
+   * Applies all recorded commands in order and clears the buffer
+   *
+   * @throws IllegalStateException if the World is being iterated
+   */
+  public void playback() {
+    if (resolved.length < created) {
+      resolved = new int[created];
+    }
+    int nextCreated = 0;
+    for (int i = 0; i < count; i++) {
+      int entity = entities[i] < 0 ? resolved[-entities[i] - 1] : entities[i];
+      switch (commands[i]) {
+        case CREATE -> resolved[nextCreated++] = world.create();
+        case DESTROY -> world.destroy(entity);
+        case ADD -> world.add(entity, payloads[i]);
+        case REMOVE -> world.remove(entity, (Class<?>) payloads[i]);
+        default -> throw new IllegalStateException("Unknown command " + commands[i]);
+      }
+    }
+    clear();
+  }
+
+  /** Discards all recorded commands */
+  public void clear() {
+    Arrays.fill(payloads, 0, count, null);
+    count = 0;
+    created = 0;
+  }
+
+  /**
+   * Returns the number of recorded commands
+   *
+   * @return the number of recorded commands
+   */
+  public int size() {
+    return count;
+  }
+
+  /**
+   * Records a command
+   *
+   * @param command the command
+   * @param entity the entity targeted by the command
+   * @param payload the component or component class of the command, if any
+   */
+  private void record(byte command, int entity, Object payload) {
+    if (count == commands.length) {
+      commands = Arrays.copyOf(commands, count * 2);
+      entities = Arrays.copyOf(entities, count * 2);
+      payloads = Arrays.copyOf(payloads, count * 2);
+    }
+    commands[count] = command;
+    entities[count] = entity;
+    payloads[count] = payload;
+    count++;
+  }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.common.ecs;
+
+/**
+ * Identifies a type of component inside a {@link World}, components are identified by their exact
+ * class. Retrieving a component through its ComponentType avoids looking up the class on every
+ * access
+ *
+ * @param <T> the type of the component
+ */
+public final class ComponentType<T> {
+
+  /** The id of the type, dense and unique inside its {@link World} */
+  private final int id;
+  /** The class of the component */
+  private final Class<T> type;
+
+  /**
+   * Creates a new ComponentType, only called by {@link World#getType(Class)}
+   *
+   * @param id the id of the type
+   * @param type the class of the component
+   */
+  ComponentType(int id, Class<T> type) {
+    this.id = id;
+    this.type = type;
+  }
+
+  /**
+   * Returns the id of the type, dense and unique inside its {@link World}
+   *
+   * @return the id of the type
+   */
+  public int getId() {
+    return id;
+  }
+
+  /**
+   * Returns the class of the component
+   *
+   * @return the class of the component
+   */
+  public Class<T> getType() {
+    return type;
+  }
+
+  @Override
+  public String toString() {
+    return type.getSimpleName();
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.common.ecs;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * A cached query over a {@link World}, matching every {@link Archetype} containing all the required
+ * component types and none of the excluded ones. Matching Archetypes are collected once and kept up
+ * to date as new Archetypes are created, so iterating never tests entities individually. Structural
+ * changes are forbidden while iterating, they must be deferred through a {@link CommandBuffer}
+ */
+public final class Query {
+
+  /** The World the query iterates */
+  private final World world;
+  /** The ids of the component types an Archetype must contain */
+  private final BitSet required;
+  /** The ids of the component types an Archetype must not contain */
+  private final BitSet excluded;
+  /** All matching Archetypes */
+  private final List<Archetype> archetypes = new ArrayList<>();
+
+  /**
+   * Creates a new Query, only called by {@link World}
+   *
+   * @param world the World the query iterates
+   * @param required the ids of the component types an Archetype must contain
+   * @param excluded the ids of the component types an Archetype must not contain
+   */
+  Query(World world, BitSet required, BitSet excluded) {
+    this.world = world;
+    this.required = required;
+    this.excluded = excluded;
+  }
+
+  /**
+   * Registers an Archetype to the query if it matches
+   *
+   * @param archetype the Archetype to test
+   */
+  void offer(Archetype archetype) {
+    BitSet signature = archetype.getSignature();
+    if (excluded.intersects(signature)) {
+      return;
+    }
+    for (int id = required.nextSetBit(0); id >= 0; id = required.nextSetBit(id + 1)) {
+      if (!signature.get(id)) {
+        return;
+      }
+    }
+    archetypes.add(archetype);
+  }
+
+  /**
+   * Applies an action to every non-empty chunk matching the query
+   *
+   * @param action the action to apply
+   */
+  public void forEachChunk(Consumer<Chunk> action) {
+    world.beginIteration();
+    try {
+      for (int i = 0; i < archetypes.size(); i++) {
+        Archetype archetype = archetypes.get(i);
+        for (int c = 0; c < archetype.getChunkCount(); c++) {
+          Chunk chunk = archetype.getChunk(c);
+          if (chunk.size() > 0) {
+            action.accept(chunk);
+          }
+        }
+      }
+    } finally {
+      world.endIteration();
+    }
+  }
+
+  /**
+   * Applies an action to every entity matching the query
+   *
+   * @param action the action to apply, receiving the entity
+   */
+  public void forEachEntity(IntConsumer action) {
+    world.beginIteration();
+    try {
+      for (int i = 0; i < archetypes.size(); i++) {
+        Archetype archetype = archetypes.get(i);
+        for (int c = 0; c < archetype.getChunkCount(); c++) {
+          Chunk chunk = archetype.getChunk(c);
+          for (int row = 0; row < chunk.size(); row++) {
+            action.accept(chunk.getEntity(row));
+          }
+        }
+      }
+    } finally {
+      world.endIteration();
+    }
+  }
+
+  /**
+   * Returns the number of entities matching the query
+   *
+   * @return the number of entities matching the query
+   */
+  public int count() {
+    int count = 0;
+    for (int i = 0; i < archetypes.size(); i++) {
+      count += archetypes.get(i).size();
+    }
+    return count;
+  }
+
+  /**
+   * Returns a read-only view of the Archetypes matching the query
+   *
+   * @return a read-only view of the Archetypes matching the query
+   */
+  public List<Archetype> getArchetypes() {
+    return Collections.unmodifiableList(archetypes);
+  }
+}
@@ -0,0 +1,499 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.common.ecs;
+
+import java.util.*;
+
+/**
+ * An archetype based entity-component store. Entities are plain integer handles, grouped by the
+ * exact set of their component types into {@link Archetype}s whose components are stored in dense
+ * per-type arrays, so systems iterate matching entities linearly through cached {@link Query}s
+ * instead of probing each entity. Components are identified by their exact class. Adding or
+ * removing a component type moves the entity to another Archetype, such structural changes are
+ * forbidden while a Query is being iterated and must be deferred through a {@link CommandBuffer}. A
+ * World is not thread-safe
+ */
+public final class World {
+
+  /** The default number of entities stored in each chunk */
+  public static final int DEFAULT_CHUNK_CAPACITY = 256;
+  /** The number of bits of an entity handle used for its index */
+  private static final int INDEX_BITS = 24;
+  /** The mask extracting the index of an entity handle */
+  private static final int INDEX_MASK = (1 << INDEX_BITS) - 1;
+  /** The mask of the generation of an entity handle, 7 bits to keep handles positive */
+  private static final int GENERATION_MASK = 0x7F;
+
+  /** The capacity of each chunk */
+  private final int chunkCapacity;
+  /** All registered component types, indexed by class */
+  private final Map<Class<?>, ComponentType<?>> types = new HashMap<>();
+  /** All registered component types, indexed by id */
+  private final List<ComponentType<?>> typesById = new ArrayList<>();
+  /** All Archetypes, indexed by signature */
+  private final Map<BitSet, Archetype> archetypes = new HashMap<>();
+  /** All Archetypes, in creation order */
+  private final List<Archetype> archetypeList = new ArrayList<>();
+  /** All cached Queries, indexed by required and excluded signatures */
+  private final Map<List<BitSet>, Query> queries = new HashMap<>();
+  /** The Archetype of entities without component */
+  private final Archetype emptyArchetype;
+
+  /** The current generation of each entity index */
+  private int[] generations = new int[1024];
+  /** The Archetype of each entity index, null if not alive */
+  private Archetype[] locationArchetypes = new Archetype[1024];
+  /** The chunk of each entity index */
+  private Chunk[] locationChunks = new Chunk[1024];
+  /** The row of each entity index in its chunk */
+  private int[] locationRows = new int[1024];
+  /** The entity indices released and available for reuse */
+  private int[] freeIndices = new int[64];
+  /** The number of entity indices available for reuse */
+  private int freeCount = 0;
+  /** The next never used entity index */
+  private int nextIndex = 0;
+  /** The number of alive entities */
+  private int entityCount = 0;
+  /** The number of Query iterations in progress */
+  private int iterating = 0;
+
+  /** Creates a new World with the default chunk capacity */
+  public World() {
+    this(DEFAULT_CHUNK_CAPACITY);
+  }
+
+  /**
+   * Creates a new World
+   *
+   * @param chunkCapacity the number of entities stored in each chunk
+   */
+  public World(int chunkCapacity) {
+    if (chunkCapacity <= 0) {
+      throw new IllegalArgumentException("The chunk capacity must be positive");
+    }
+    this.chunkCapacity = chunkCapacity;
+    this.emptyArchetype = getArchetype(new BitSet());
+  }
+
+  /**
+   * Returns the {@link ComponentType} of a class, registering it if necessary
+   *
+   * @param type the class of the component
+   * @param <T> the type of the component
+   * @return the ComponentType of the class
+   */
+  @SuppressWarnings("unchecked")
+  public <T> ComponentType<T> getType(Class<T> type) {
+    ComponentType<?> componentType = types.get(type);
+    if (componentType == null) {
+      componentType = new ComponentType<>(typesById.size(), type);
+      types.put(type, componentType);
+      typesById.add(componentType);
+    }
+    return (ComponentType<T>) componentType;
+  }
+
+  /**
+   * Creates a new entity without component
+   *
+   * @return the handle of the new entity
+   * @throws IllegalStateException if a Query is being iterated
+   */
+  public int create() {
+    checkStructuralChange();
+    int index = allocateIndex();
+    Chunk chunk = emptyArchetype.getWritableChunk();
+    int entity = (generations[index] << INDEX_BITS) | index;
+    place(index, emptyArchetype, chunk, chunk.append(entity));
+    emptyArchetype.changeSize(1);
+    entityCount++;
+    return entity;
+  }
+
+  /**
+   * Creates a new entity with a set of components, placed directly in its final Archetype
+   *
+   * @param components the components of the entity, at most one per class
+   * @return the handle of the new entity
+   * @throws IllegalStateException if a Query is being iterated
+   * @throws IllegalArgumentException if two components have the same class
+   */
+  public int create(Object... components) {
+    checkStructuralChange();
+    BitSet signature = new BitSet();
+    for (Object component : components) {
+      int id = getType(component.getClass()).getId();
+      if (signature.get(id)) {
+        throw new IllegalArgumentException("Duplicate component " + component.getClass());
+      }
+      signature.set(id);
+    }
+    Archetype archetype = getArchetype(signature);
+    int index = allocateIndex();
+    Chunk chunk = archetype.getWritableChunk();
+    int entity = (generations[index] << INDEX_BITS) | index;
+    int row = chunk.append(entity);
+    for (Object component : components) {
+      chunk.set(archetype.getColumn(getType(component.getClass())), row, component);
+    }
+    place(index, archetype, chunk, row);
+    archetype.changeSize(1);
+    entityCount++;
+    return entity;
+  }
+
+  /**
+   * Destroys an entity and releases its components
+   *
+   * @param entity the entity to destroy
+   * @throws IllegalStateException if a Query is being iterated
+   * @throws IllegalArgumentException if the entity is not alive
+   */
+  public void destroy(int entity) {
+    checkStructuralChange();
+    int index = checkAlive(entity);
+    removeFromArchetype(index);
+    locationArchetypes[index] = null;
+    locationChunks[index] = null;
+    generations[index] = (generations[index] + 1) & GENERATION_MASK;
+    if (freeCount == freeIndices.length) {
+      freeIndices = Arrays.copyOf(freeIndices, freeCount * 2);
+    }
+    freeIndices[freeCount++] = index;
+    entityCount--;
+  }
+
+  /**
+   * Returns whether an entity is alive
+   *
+   * @param entity the entity
+   * @return true if the entity is alive, false if it has been destroyed
+   */
+  public boolean isAlive(int entity) {
+    if (entity < 0) {
+      return false;
+    }
+    int index = entity & INDEX_MASK;
+    return index < nextIndex
+        && locationArchetypes[index] != null
+        && generations[index] == (entity >>> INDEX_BITS);
+  }
+
+  /**
+   * Adds a component to an entity, replacing the one of the same class if any. Replacing is not a
+   * structural change and is allowed while iterating
+   *
+   * @param entity the entity
+   * @param component the component to add
+   * @throws IllegalStateException if the type is new to the entity and a Query is being iterated
+   * @throws IllegalArgumentException if the entity is not alive
+   */
+  public void add(int entity, Object component) {
+    int index = checkAlive(entity);
+    ComponentType<?> type = getType(component.getClass());
+    Archetype source = locationArchetypes[index];
+    int column = source.getColumn(type);
+    if (column >= 0) {
+      locationChunks[index].set(column, locationRows[index], component);
+      return;
+    }
+    checkStructuralChange();
+    Archetype target = source.getAddEdges().get(type.getId());
+    if (target == null) {
+      BitSet signature = (BitSet) source.getSignature().clone();
+      signature.set(type.getId());
+      target = getArchetype(signature);
+      source.getAddEdges().put(type.getId(), target);
+    }
+    Chunk chunk = move(index, target);
+    chunk.set(target.getColumn(type), locationRows[index], component);
+  }
+
+  /**
+   * Removes a component from an entity
+   *
+   * @param entity the entity
+   * @param type the class of the component to remove
+   * @return the removed component, null if the entity didn't have one of that class
+   * @throws IllegalStateException if a Query is being iterated
+   * @throws IllegalArgumentException if the entity is not alive
+   */
+  public Object remove(int entity, Class<?> type) {
+    int index = checkAlive(entity);
+    ComponentType<?> componentType = types.get(type);
+    Archetype source = locationArchetypes[index];
+    int column = componentType == null ? -1 : source.getColumn(componentType);
+    if (column < 0) {
+      return null;
+    }
+    checkStructuralChange();
+    Object removed = locationChunks[index].get(column, locationRows[index]);
+    Archetype target = source.getRemoveEdges().get(componentType.getId());
+    if (target == null) {
+      BitSet signature = (BitSet) source.getSignature().clone();
+      signature.clear(componentType.getId());
+      target = getArchetype(signature);
+      source.getRemoveEdges().put(componentType.getId(), target);
+    }
+    move(index, target);
+    return removed;
+  }
+
+  /**
+   * Returns a component of an entity
+   *
+   * @param entity the entity
+   * @param type the type of the component
+   * @param <T> the type of the component
+   * @return the component, null if the entity doesn't have one of that type
+   * @throws IllegalArgumentException if the entity is not alive
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T get(int entity, ComponentType<T> type) {
+    int index = checkAlive(entity);
+    int column = locationArchetypes[index].getColumn(type);
+    return column < 0 ? null : (T) locationChunks[index].get(column, locationRows[index]);
+  }
+
+  /**
+   * Returns a component of an entity
+   *
+   * @param entity the entity
+   * @param type the class of the component
+   * @param <T> the type of the component
+   * @return the component, null if the entity doesn't have one of that class
+   * @throws IllegalArgumentException if the entity is not alive
+   */
+  public <T> T get(int entity, Class<T> type) {
+    return get(entity, getType(type));
+  }
+
+  /**
+   * Returns whether an entity has a component of a given class
+   *
+   * @param entity the entity
+   * @param type the class of the component
+   * @return true if the entity has a component of that class, false otherwise
+   * @throws IllegalArgumentException if the entity is not alive
+   */
+  public boolean has(int entity, Class<?> type) {
+    int index = checkAlive(entity);
+    ComponentType<?> componentType = types.get(type);
+    return componentType != null && locationArchetypes[index].has(componentType);
+  }
+
+  /**
+   * Returns the cached {@link Query} matching every entity having all the required components
+   *
+   * @param required the classes of the required components
+   * @return the cached Query
+   */
+  public Query query(Class<?>... required) {
+    return query(required, new Class<?>[0]);
+  }
+
+  /**
+   * Returns the cached {@link Query} matching every entity having all the required components and
+   * none of the excluded ones
+   *
+   * @param required the classes of the required components
+   * @param excluded the classes of the excluded components
+   * @return the cached Query
+   */
+  public Query query(Class<?>[] required, Class<?>[] excluded) {
+    BitSet requiredSignature = new BitSet();
+    for (Class<?> type : required) {
+      requiredSignature.set(getType(type).getId());
+    }
+    BitSet excludedSignature = new BitSet();
+    for (Class<?> type : excluded) {
+      excludedSignature.set(getType(type).getId());
+    }
+    List<BitSet> key = List.of(requiredSignature, excludedSignature);
+    Query query = queries.get(key);
+    if (query == null) {
+      query = new Query(this, requiredSignature, excludedSignature);
+      for (Archetype archetype : archetypeList) {
+        query.offer(archetype);
+      }
+      queries.put(key, query);
+    }
+    return query;
+  }
+
+  /**
+   * Creates a new {@link CommandBuffer} recording structural changes to this World
+   *
+   * @return a new CommandBuffer
+   */
+  public CommandBuffer createCommandBuffer() {
+    return new CommandBuffer(this);
+  }
+
+  /**
+   * Returns the number of alive entities
+   *
+   * @return the number of alive entities
+   */
+  public int getEntityCount() {
+    return entityCount;
+  }
+
+  /**
+   * Returns a read-only view of all Archetypes, in creation order
+   *
+   * @return a read-only view of all Archetypes
+   */
+  public List<Archetype> getArchetypes() {
+    return Collections.unmodifiableList(archetypeList);
+  }
+
+  /** Marks the beginning of a Query iteration, during which structural changes are forbidden */
+  void beginIteration() {
+    iterating++;
+  }
+
+  /** Marks the end of a Query iteration */
+  void endIteration() {
+    iterating--;
+  }
+
+  /**
+   * Returns the Archetype of a signature, creating it and offering it to all cached Queries if
+   * needed
+   *
+   * @param signature the set of component type ids, must not be modified afterward
+   * @return the Archetype of the signature
+   */
+  private Archetype getArchetype(BitSet signature) {
+    Archetype archetype = archetypes.get(signature);
+    if (archetype == null) {
+      ComponentType<?>[] archetypeTypes = new ComponentType<?>[signature.cardinality()];
+      int i = 0;
+      for (int id = signature.nextSetBit(0); id >= 0; id = signature.nextSetBit(id + 1)) {
+        archetypeTypes[i++] = typesById.get(id);
+      }
+      archetype = new Archetype(archetypeTypes, chunkCapacity);
+      archetypes.put(signature, archetype);
+      archetypeList.add(archetype);
+      for (Query query : queries.values()) {
+        query.offer(archetype);
+      }
+    }
+    return archetype;
+  }
+
+  /**
+   * Moves an entity to another Archetype, copying the components common to both
+   *
+   * @param index the index of the entity
+   * @param target the Archetype to move the entity to
+   * @return the chunk the entity has been moved to
+   */
+  private Chunk move(int index, Archetype target) {
+    Archetype source = locationArchetypes[index];
+    Chunk sourceChunk = locationChunks[index];
+    int sourceRow = locationRows[index];
+    Chunk chunk = target.getWritableChunk();
+    int row = chunk.append(sourceChunk.getEntity(sourceRow));
+    ComponentType<?>[] targetTypes = target.getTypes();
+    for (int column = 0; column < targetTypes.length; column++) {
+      int sourceColumn = source.getColumn(targetTypes[column]);
+      if (sourceColumn >= 0) {
+        chunk.set(column, row, sourceChunk.get(sourceColumn, sourceRow));
+      }
+    }
+    removeFromArchetype(index);
+    place(index, target, chunk, row);
+    target.changeSize(1);
+    return chunk;
+  }
+
+  /**
+   * Removes an entity from its Archetype, filling its row with the last entity of the Archetype
+   *
+   * @param index the index of the entity
+   */
+  private void removeFromArchetype(int index) {
+    Archetype archetype = locationArchetypes[index];
+    Chunk chunk = locationChunks[index];
+    int row = locationRows[index];
+    Chunk last = archetype.getLastChunk();
+    int lastRow = last.size() - 1;
+    if (chunk != last || row != lastRow) {
+      chunk.copyRow(row, last, lastRow);
+      int moved = chunk.getEntity(row) & INDEX_MASK;
+      locationChunks[moved] = chunk;
+      locationRows[moved] = row;
+    }
+    last.removeLast();
+    archetype.trimLastChunk();
+    archetype.changeSize(-1);
+  }
+
+  /**
+   * Records the location of an entity
+   *
+   * @param index the index of the entity
+   * @param archetype the Archetype of the entity
+   * @param chunk the chunk of the entity
+   * @param row the row of the entity in its chunk
+   */
+  private void place(int index, Archetype archetype, Chunk chunk, int row) {
+    locationArchetypes[index] = archetype;
+    locationChunks[index] = chunk;
+    locationRows[index] = row;
+  }
+
+  /**
+   * Allocates an entity index, reusing a released one if possible
+   *
+   * @return the allocated index
+   */
+  private int allocateIndex() {
+    if (freeCount > 0) {
+      return freeIndices[--freeCount];
+    }
+    if (nextIndex > INDEX_MASK) {
+      throw new IllegalStateException("Too many entities, at most " + (INDEX_MASK + 1));
+    }
+    if (nextIndex == generations.length) {
+      int capacity = generations.length * 2;
+      generations = Arrays.copyOf(generations, capacity);
+      locationArchetypes = Arrays.copyOf(locationArchetypes, capacity);
+      locationChunks = Arrays.copyOf(locationChunks, capacity);
+      locationRows = Arrays.copyOf(locationRows, capacity);
+    }
+    return nextIndex++;
+  }
+
+  /**
+   * Checks that an entity is alive
+   *
+   * @param entity the entity
+   * @return the index of the entity
+   * @throws IllegalArgumentException if the entity is not alive
+   */
+  private int checkAlive(int entity) {
+    if (!isAlive(entity)) {
+      throw new IllegalArgumentException("Entity " + entity + " is not alive");
+    }
+    return entity & INDEX_MASK;
+  }
+
+  /**
+   * Checks that no Query is being iterated before a structural change
+   *
+   * @throws IllegalStateException if a Query is being iterated
+   */
+  private void checkStructuralChange() {
+    if (iterating > 0) {
+      throw new IllegalStateException(
+          "Structural changes are forbidden while iterating, use a CommandBuffer");
+    }
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.common.jobs;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+import org.alban098.common.Cleanable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A pool of work-stealing worker threads executing {@link TaskGraph}s. The thread that created the
+ * JobSystem is its main thread, it executes the graphs and runs their main lane tasks, usually
+ * because it owns the OpenGL context
+ */
+public final class JobSystem implements Cleanable {
+
+  /** Just a Logger to log events */
+  private static final Logger LOGGER = LoggerFactory.getLogger(JobSystem.class);
+
+  /** The work-stealing pool of workers */
+  private final ForkJoinPool workers;
+  /** The thread that created the JobSystem, the only one allowed to execute graphs */
+  private final Thread mainThread;
+
+  /** Creates a new JobSystem with one worker per available core, minus the main thread */
+  public JobSystem() {
+    this(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+  }
+
+  /**
+   * Creates a new JobSystem
+   *
+   * @param workerCount the number of worker threads
+   */
+  public JobSystem(int workerCount) {
+    if (workerCount <= 0) {
+      throw new IllegalArgumentException("A JobSystem needs at least one worker");
+    }
+    this.mainThread = Thread.currentThread();
+    this.workers =
+        new ForkJoinPool(
+            workerCount,
+            pool -> {
+              ForkJoinWorkerThread thread =
+                  ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+              thread.setName("JobWorker-" + thread.getPoolIndex());
+              return thread;
+            },
+            null,
+            true);
+    initialize();
+    LOGGER.info("Started JobSystem with {} workers", workerCount);
+  }
+
+  /**
+   * Executes every task of a graph, blocking until all have completed. Main lane tasks are run by
+   * the calling thread
+   *
+   * @param graph the graph to execute
+   * @throws IllegalStateException if not called from the main thread, if the graph contains a cycle
+   *     or if a task has failed
+   */
+  public void execute(TaskGraph graph) {
+    if (Thread.currentThread() != mainThread) {
+      throw new IllegalStateException(
+          "Task graph '" + graph.getName() + "' must be executed from the main thread");
+    }
+    graph.execute(workers);
+  }
+
+  /**
+   * Returns the number of worker threads
+   *
+   * @return the number of worker threads
+   */
+  public int getWorkerCount() {
+    return workers.getParallelism();
+  }
+
+  /**
+   * Returns the number of tasks stolen between workers since the creation of the JobSystem
+   *
+   * @return the number of tasks stolen between workers
+   */
+  public long getStealCount() {
+    return workers.getStealCount();
+  }
+
+  /** Stops the workers */
+  @Override
+  public void cleanUp() {
+    workers.shutdownNow();
+    try {
+      if (!workers.awaitTermination(1, TimeUnit.SECONDS)) {
+        LOGGER.warn("Job workers did not terminate in time");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,606 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.common.jobs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import org.alban098.common.metrics.AllocationProbe;
+import org.alban098.common.metrics.MetricGroup;
+import org.alban098.common.metrics.MetricSeries;
+
+/**
+ * A graph of tasks with explicit dependencies, built once and executed every frame by a {@link
+ * JobSystem}. A task is dispatched as soon as all its dependencies have completed, so independent
+ * tasks overlap on the workers. Tasks added with {@link #addOnMainThread(String, Runnable)} are
+ * always run by the thread executing the graph, making them suitable for OpenGL work. The duration
+ * of every task and the parallelism achieved are recorded after each execution
+ *
+ * <p>Executing a graph does not allocate : the tasks are reused from one execution to the next, and
+ * the main lane is an array with one slot per main lane task, the calling thread being parked until
+ * a slot is filled. When a task fails, only the tasks depending on it, directly or not, are
+ * skipped, the independent ones still run, and the execution then throws the first failure
+ */
+public final class TaskGraph {
+
+  /** The number of frames kept by the timing series */
+  public static final int TIMING_SAMPLES = 128;
+
+  /** The name of the graph */
+  private final String name;
+  /** The tasks of the graph, indexed by their id, iterated by index so no iterator is allocated */
+  private final List<Task> tasks = new ArrayList<>();
+  /**
+   * The main lane tasks in the order they have become ready during the current execution, each one
+   * being queued exactly once per execution, so there is one slot per main lane task
+   */
+  private AtomicReferenceArray<Task> mainLane = new AtomicReferenceArray<>(0);
+  /** The number of main lane tasks queued during the current execution */
+  private final AtomicInteger mainLaneTail = new AtomicInteger();
+  /**
+   * The thread executing the graph, woken up when a main lane task is ready or all have completed
+   */
+  private volatile Thread mainThread;
+  /** The number of tasks not completed yet during the current execution */
+  private final AtomicInteger remaining = new AtomicInteger();
+  /** The time passed in each task, in ms */
+  private final MetricGroup taskTimes;
+  /** The heap allocated by each task, in KB */
+  private final MetricGroup taskAllocations;
+  /** The wall time of each execution, in ms */
+  private final MetricSeries wallTimes;
+  /** The ratio between the summed duration of the tasks and the wall time of each execution */
+  private final MetricSeries parallelism;
+  /** The pool running the worker tasks during the current execution */
+  private ForkJoinPool workers;
+  /** The first task that has failed during the current execution, null if none */
+  private volatile Task failedTask;
+  /** The exception thrown by the first failed task, the others being added as suppressed */
+  private volatile Throwable failure;
+  /** Has the graph been modified since it has last been validated */
+  private boolean modified = true;
+  /** Is the graph currently being executed */
+  private boolean running = false;
+  /** The time at which the last execution has started, in ns */
+  private long startTimeNs = 0;
+  /** The wall time of the last execution, in ns */
+  private long lastWallTimeNs = 0;
+  /** The summed duration of every task of the last execution, in ns */
+  private long lastBusyTimeNs = 0;
+
+  /**
+   * Creates a new empty TaskGraph
+   *
+   * @param name the name of the graph
+   */
+  public TaskGraph(String name) {
+    this.name = name;
+    this.taskTimes = new MetricGroup(name, TIMING_SAMPLES);
+    this.taskAllocations = new MetricGroup(name, TIMING_SAMPLES);
+    this.wallTimes = new MetricSeries("wall", TIMING_SAMPLES);
+    this.parallelism = new MetricSeries("parallelism", TIMING_SAMPLES);
+  }
+
+  /**
+   * Adds a task run by any worker of the {@link JobSystem}
+   *
+   * @param taskName the name of the task
+   * @param job the work of the task
+   * @return the id of the task, used to declare dependencies
+   */
+  public int add(String taskName, Runnable job) {
+    return add(taskName, job, false);
+  }
+
+  /**
+   * Adds a task always run by the thread executing the graph, such as OpenGL work
+   *
+   * @param taskName the name of the task
+   * @param job the work of the task
+   * @return the id of the task, used to declare dependencies
+   */
+  public int addOnMainThread(String taskName, Runnable job) {
+    return add(taskName, job, true);
+  }
+
+  /**
+   * Adds a task to the graph
+   *
+   * @param taskName the name of the task
+   * @param job the work of the task
+   * @param mainThread must the task be run by the thread executing the graph
+   * @return the id of the task
+   */
+  private int add(String taskName, Runnable job, boolean mainThread) {
+    checkNotRunning();
+    Task task = new Task(this, taskName, job, mainThread);
+    task.times = taskTimes.register(taskName);
+    task.allocations = taskAllocations.register(taskName);
+    tasks.add(task);
+    modified = true;
+    return tasks.size() - 1;
+  }
+
+  /**
+   * Declares that a task can only start once some others have completed
+   *
+   * @param task the id of the dependent task
+   * @param dependencies the ids of the tasks it depends on
+   * @throws IllegalArgumentException if an id is not part of the graph
+   */
+  public void dependsOn(int task, int... dependencies) {
+    checkNotRunning();
+    Task dependent = getTask(task);
+    for (int dependency : dependencies) {
+      getTask(dependency).addSuccessor(task);
+      dependent.dependencyCount++;
+    }
+    modified = true;
+  }
+
+  /**
+   * Returns a task of the graph
+   *
+   * @param id the id of the task
+   * @return the task
+   * @throws IllegalArgumentException if the id is not part of the graph
+   */
+  private Task getTask(int id) {
+    if (id < 0 || id >= tasks.size()) {
+      throw new IllegalArgumentException("No task with id " + id + " in graph '" + name + "'");
+    }
+    return tasks.get(id);
+  }
+
+  /**
+   * Throws an exception if the graph is being executed
+   *
+   * @throws IllegalStateException if the graph is being executed
+   */
+  private void checkNotRunning() {
+    if (running) {
+      throw new IllegalStateException("Task graph '" + name + "' can not change while executing");
+    }
+  }
+
+  /**
+   * Checks that the graph has no dependency cycle, using Kahn's algorithm
+   *
+   * @throws IllegalStateException if the graph contains a cycle
+   */
+  private void validate() {
+    int[] pending = new int[tasks.size()];
+    int[] ready = new int[tasks.size()];
+    int readyCount = 0;
+    for (int i = 0; i < tasks.size(); i++) {
+      pending[i] = tasks.get(i).dependencyCount;
+      if (pending[i] == 0) {
+        ready[readyCount++] = i;
+      }
+    }
+    int visited = 0;
+    while (visited < readyCount) {
+      Task task = tasks.get(ready[visited++]);
+      for (int i = 0; i < task.successorCount; i++) {
+        if (--pending[task.successors[i]] == 0) {
+          ready[readyCount++] = task.successors[i];
+        }
+      }
+    }
+    if (visited != tasks.size()) {
+      throw new IllegalStateException("Task graph '" + name + "' contains a dependency cycle");
+    }
+    int mainLaneSize = 0;
+    for (Task task : tasks) {
+      if (task.mainThread) {
+        mainLaneSize++;
+      }
+    }
+    mainLane = new AtomicReferenceArray<>(mainLaneSize);
+    modified = false;
+  }
+
+  /**
+   * Executes every task of the graph, blocking until all have completed. Worker tasks are submitted
+   * to the pool, while main lane tasks are run by the calling thread as they become ready
+   *
+   * @param pool the pool running the worker tasks
+   * @throws IllegalStateException if the graph contains a cycle or if a task has failed
+   */
+  void execute(ForkJoinPool pool) {
+    checkNotRunning();
+    if (modified) {
+      validate();
+    }
+    if (tasks.isEmpty()) {
+      return;
+    }
+    running = true;
+    workers = pool;
+    mainThread = Thread.currentThread();
+    failedTask = null;
+    failure = null;
+    mainLaneTail.set(0);
+    remaining.set(tasks.size());
+    for (int i = 0; i < tasks.size(); i++) {
+      Task task = tasks.get(i);
+      task.reinitialize();
+      task.skipped = false;
+      task.pending.set(task.dependencyCount);
+    }
+    startTimeNs = System.nanoTime();
+    try {
+      for (int i = 0; i < tasks.size(); i++) {
+        Task task = tasks.get(i);
+        if (task.dependencyCount == 0) {
+          schedule(task);
+        }
+      }
+      for (int head = 0; head < mainLane.length(); head++) {
+        Task task;
+        while ((task = mainLane.get(head)) == null) {
+          awaitSignal();
+        }
+        mainLane.set(head, null);
+        runTask(task);
+      }
+      while (remaining.get() > 0) {
+        awaitSignal();
+      }
+      // A worker completes its task just after running it, which must be seen before the task can
+      // be reinitialized by the next execution
+      for (int i = 0; i < tasks.size(); i++) {
+        Task task = tasks.get(i);
+        while (!task.mainThread && !task.isDone()) {
+          Thread.onSpinWait();
+        }
+      }
+    } finally {
+      running = false;
+      workers = null;
+      mainThread = null;
+    }
+    recordTimes();
+    if (failedTask != null) {
+      throw new IllegalStateException(
+          "Task '" + failedTask.name + "' of graph '" + name + "' has failed", failure);
+    }
+  }
+
+  /**
+   * Parks the thread executing the graph until a task signals it, a spurious wake up being handled
+   * by the caller checking its condition again
+   *
+   * @throws IllegalStateException if the thread has been interrupted
+   */
+  private void awaitSignal() {
+    if (Thread.currentThread().isInterrupted()) {
+      throw new IllegalStateException("Interrupted while executing task graph '" + name + "'");
+    }
+    LockSupport.park(this);
+  }
+
+  /**
+   * Dispatches a task whose dependencies have all completed. A worker task dispatched from a worker
+   * is pushed to its own queue, to be run by it or stolen by an idle worker
+   *
+   * @param task the task to dispatch
+   */
+  private void schedule(Task task) {
+    if (task.mainThread) {
+      mainLane.set(mainLaneTail.getAndIncrement(), task);
+      LockSupport.unpark(mainThread);
+    } else if (Thread.currentThread() instanceof ForkJoinWorkerThread worker
+        && worker.getPool() == workers) {
+      task.fork();
+    } else {
+      workers.execute(task);
+    }
+  }
+
+  /**
+   * Runs a task, then dispatches every successor it was the last dependency of. A task that has
+   * failed or has been skipped makes all its successors skipped, so they are only marked as
+   * completed and the execution still terminates, while the tasks not depending on it still run
+   *
+   * @param task the task to run
+   */
+  private void runTask(Task task) {
+    task.lane = Thread.currentThread().getName();
+    long allocationStart = AllocationProbe.allocatedBytes();
+    task.startNs = System.nanoTime();
+    boolean skipSuccessors = task.skipped;
+    if (!task.skipped) {
+      try {
+        task.job.run();
+      } catch (Throwable t) {
+        skipSuccessors = true;
+        synchronized (this) {
+          if (failedTask == null) {
+            failure = t;
+            failedTask = task;
+          } else {
+            failure.addSuppressed(t);
+          }
+        }
+      }
+    }
+    task.endNs = System.nanoTime();
+    task.allocatedBytes = AllocationProbe.allocatedBytes() - allocationStart;
+    for (int i = 0; i < task.successorCount; i++) {
+      Task successor = tasks.get(task.successors[i]);
+      if (skipSuccessors) {
+        // Written before the decrement, so visible to the thread dispatching the successor
+        successor.skipped = true;
+      }
+      if (successor.pending.decrementAndGet() == 0) {
+        schedule(successor);
+      }
+    }
+    if (remaining.decrementAndGet() == 0) {
+      LockSupport.unpark(mainThread);
+    }
+  }
+
+  /** Publishes the timings of the last execution */
+  private void recordTimes() {
+    lastWallTimeNs = System.nanoTime() - startTimeNs;
+    lastBusyTimeNs = 0;
+    for (int i = 0; i < tasks.size(); i++) {
+      Task task = tasks.get(i);
+      long duration = task.endNs - task.startNs;
+      lastBusyTimeNs += duration;
+      task.times.push(duration / 1_000_000.0);
+      task.allocations.push(task.allocatedBytes / 1_000.0);
+    }
+    wallTimes.push(lastWallTimeNs / 1_000_000.0);
+    parallelism.push(getLastParallelism());
+  }
+
+  /**
+   * Returns the name of the graph
+   *
+   * @return the name of the graph
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Returns the number of tasks of the graph
+   *
+   * @return the number of tasks of the graph
+   */
+  public int size() {
+    return tasks.size();
+  }
+
+  /**
+   * Returns the name of a task
+   *
+   * @param id the id of the task
+   * @return the name of the task
+   */
+  public String getTaskName(int id) {
+    return getTask(id).name;
+  }
+
+  /**
+   * Returns whether a task is run by the thread executing the graph
+   *
+   * @param id the id of the task
+   * @return true if the task is run on the main lane, false otherwise
+   */
+  public boolean isOnMainThread(int id) {
+    return getTask(id).mainThread;
+  }
+
+  /**
+   * Returns the name of the thread that has run a task during the last execution
+   *
+   * @param id the id of the task
+   * @return the name of the thread, null if the graph has never been executed
+   */
+  public String getLastLane(int id) {
+    return getTask(id).lane;
+  }
+
+  /**
+   * Returns the time at which a task has started during the last execution, relative to the start
+   * of the execution
+   *
+   * @param id the id of the task
+   * @return the start time of the task, in ns
+   */
+  public long getLastStartNs(int id) {
+    return getTask(id).startNs - startTimeNs;
+  }
+
+  /**
+   * Returns the duration of a task during the last execution
+   *
+   * @param id the id of the task
+   * @return the duration of the task, in ns
+   */
+  public long getLastDurationNs(int id) {
+    Task task = getTask(id);
+    return task.endNs - task.startNs;
+  }
+
+  /**
+   * Returns the number of heap bytes allocated by a task during the last execution
+   *
+   * @param id the id of the task
+   * @return the number of bytes allocated by the task
+   */
+  public long getLastAllocatedBytes(int id) {
+    return getTask(id).allocatedBytes;
+  }
+
+  /**
+   * Returns the wall time of the last execution
+   *
+   * @return the wall time of the last execution, in ns
+   */
+  public long getLastWallTimeNs() {
+    return lastWallTimeNs;
+  }
+
+  /**
+   * Returns the summed duration of every task of the last execution
+   *
+   * @return the summed duration of every task of the last execution, in ns
+   */
+  public long getLastBusyTimeNs() {
+    return lastBusyTimeNs;
+  }
+
+  /**
+   * Returns the parallelism achieved during the last execution, 1 meaning no task has overlapped
+   *
+   * @return the ratio between the summed duration of the tasks and the wall time
+   */
+  public double getLastParallelism() {
+    return lastWallTimeNs == 0 ? 0 : (double) lastBusyTimeNs / lastWallTimeNs;
+  }
+
+  /**
+   * Returns the time passed in each task, one series per task in ms
+   *
+   * @return the time passed in each task
+   */
+  public MetricGroup getTaskTimes() {
+    return taskTimes;
+  }
+
+  /**
+   * Returns the heap allocated by each task, one series per task in KB
+   *
+   * @return the heap allocated by each task
+   */
+  public MetricGroup getTaskAllocations() {
+    return taskAllocations;
+  }
+
+  /**
+   * Returns the wall time of each execution, in ms
+   *
+   * @return the wall time of each execution
+   */
+  public MetricSeries getWallTimes() {
+    return wallTimes;
+  }
+
+  /**
+   * Returns the parallelism achieved during each execution
+   *
+   * @return the parallelism achieved during each execution
+   */
+  public MetricSeries getParallelism() {
+    return parallelism;
+  }
+
+  /**
+   * A task of the graph, submitted as is to the workers and reinitialized before every execution,
+   * so dispatching it never allocates a wrapper
+   */
+  private static final class Task extends ForkJoinTask<Void> {
+
+    /** The graph the task is part of */
+    private final TaskGraph graph;
+    /** The name of the task */
+    private final String name;
+    /** The work of the task */
+    private final Runnable job;
+    /** Must the task be run by the thread executing the graph */
+    private final boolean mainThread;
+    /** The number of dependencies not completed yet during the current execution */
+    private final AtomicInteger pending = new AtomicInteger();
+    /** Has a task this one depends on, directly or not, failed during the current execution */
+    private volatile boolean skipped;
+    /** The ids of the tasks depending on this one */
+    private int[] successors = new int[2];
+    /** The number of tasks depending on this one */
+    private int successorCount = 0;
+    /** The number of tasks this one depends on */
+    private int dependencyCount = 0;
+    /** The time passed in the task, in ms */
+    private MetricSeries times;
+    /** The heap allocated by the task, in KB */
+    private MetricSeries allocations;
+    /** The name of the thread that has run the task during the last execution */
+    private volatile String lane;
+    /** The time at which the task has started during the last execution, in ns */
+    private volatile long startNs;
+    /** The time at which the task has ended during the last execution, in ns */
+    private volatile long endNs;
+    /** The number of heap bytes allocated by the task during the last execution */
+    private volatile long allocatedBytes;
+
+    /**
+     * Creates a new Task
+     *
+     * @param graph the graph the task is part of
+     * @param name the name of the task
+     * @param job the work of the task
+     * @param mainThread must the task be run by the thread executing the graph
+     */
+    private Task(TaskGraph graph, String name, Runnable job, boolean mainThread) {
+      this.graph = graph;
+      this.name = name;
+      this.job = job;
+      this.mainThread = mainThread;
+    }
+
+    /**
+     * Registers a task depending on this one
+     *
+     * @param id the id of the dependent task
+     */
+    private void addSuccessor(int id) {
+      if (successorCount == successors.length) {
+        successors = Arrays.copyOf(successors, successorCount * 2);
+      }
+      successors[successorCount++] = id;
+    }
+
+    /**
+     * Runs the task on a worker, a failure of its job being recorded by the graph rather than by
+     * the task
+     *
+     * @return true, the task being completed
+     */
+    @Override
+    protected boolean exec() {
+      graph.runTask(this);
+      return true;
+    }
+
+    /**
+     * Returns the result of the task
+     *
+     * @return null, a task has no result
+     */
+    @Override
+    public Void getRawResult() {
+      return null;
+    }
+
+    /**
+     * Sets the result of the task, ignored as a task has no result
+     *
+     * @param value ignored
+     */
+    @Override
+    protected void setRawResult(Void value) {}
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.common.metrics;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures the number of heap bytes allocated by the current thread, using the allocation counters
+ * of the JVM. Used to track allocations per frame, as any of them eventually turns into a garbage
+ * collection pause. Falls back to reporting nothing if the JVM does not provide the counters
+ */
+public final class AllocationProbe {
+
+  /** The bean providing the allocation counters, null if not supported */
+  private static final com.sun.management.ThreadMXBean THREADS = resolveBean();
+
+  /** The value of the counter when the measure has started */
+  private long start = 0;
+
+  /**
+   * Returns whether the JVM provides per thread allocation counters
+   *
+   * @return true if allocations can be measured, false otherwise
+   */
+  public static boolean isSupported() {
+    return THREADS != null;
+  }
+
+  /**
+   * Returns the number of bytes allocated by the current thread since its start
+   *
+   * @return the number of bytes allocated by the current thread, 0 if not supported
+   */
+  public static long allocatedBytes() {
+    return THREADS == null ? 0 : THREADS.getCurrentThreadAllocatedBytes();
+  }
+
+  /**
+   * Measures the mean number of bytes allocated by an action, after running it a few times so its
+   * code is compiled and its lazily allocated storage is in place
+   *
+   * @param action the action to measure
+   * @param warmup the number of runs before measuring
+   * @param runs the number of runs measured
+   * @return the mean number of bytes allocated per run
+   */
+  public static double measure(Runnable action, int warmup, int runs) {
+    for (int i = 0; i < warmup; i++) {
+      action.run();
+    }
+    AllocationProbe probe = new AllocationProbe();
+    probe.begin();
+    for (int i = 0; i < runs; i++) {
+      action.run();
+    }
+    return (double) probe.end() / runs;
+  }
+
+  /** Starts measuring the allocations of the current thread */
+  public void begin() {
+    start = allocatedBytes();
+  }
+
+  /**
+   * Returns the number of bytes allocated by the current thread since the last call to {@link
+   * #begin()}, must be called by the same thread
+   *
+   * @return the number of bytes allocated since the start of the measure
+   */
+  public long end() {
+    return allocatedBytes() - start;
+  }
+
+  /**
+   * Resolves the bean providing the allocation counters, enabling them if needed
+   *
+   * @return the bean providing the allocation counters, null if not supported
+   */
+  private static com.sun.management.ThreadMXBean resolveBean() {
+    if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+        && bean.isThreadAllocatedMemorySupported()) {
+      if (!bean.isThreadAllocatedMemoryEnabled()) {
+        bean.setThreadAllocatedMemoryEnabled(true);
+      }
+      return bean;
+    }
+    return null;
+  }
+}
@@ -0,0 +1,290 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.common.metrics;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import org.alban098.common.Cleanable;
+import org.alban098.common.MemoryManager;
+
+/**
+ * Samples the memory behavior of every frame : the heap allocated by the thread running the frames,
+ * the garbage collection pauses that have occurred, and the off-heap memory held by the {@link
+ * MemoryManager} and by direct buffers. Pauses are reported by the JVM through notifications, on
+ * its own thread, and attributed to the frame during which they have been received
+ */
+public final class MemoryTelemetry implements Cleanable {
+
+  /** The number of frames kept by the series */
+  public static final int SAMPLES = 256;
+
+  /** The probe measuring the heap allocated by the thread running the frames */
+  private final AllocationProbe probe = new AllocationProbe();
+  /** The heap allocated during each frame, in KB */
+  private final MetricGroup heap = new MetricGroup("Heap", SAMPLES);
+  /** The garbage collection pauses of each frame, in ms */
+  private final MetricGroup pauses = new MetricGroup("GC", SAMPLES);
+  /** The off-heap memory held at the end of each frame, in MB */
+  private final MetricGroup offHeap = new MetricGroup("Off-heap", SAMPLES);
+  /** The series of heap allocated by the thread running the frames */
+  private final MetricSeries allocated;
+  /** The series of garbage collection pauses */
+  private final MetricSeries pause;
+  /** The series of off-heap memory tracked by the {@link MemoryManager} */
+  private final MetricSeries tracked;
+  /** The series of memory held by direct buffers */
+  private final MetricSeries direct;
+  /** The pool of direct buffers, null if not exposed by the JVM */
+  private final BufferPoolMXBean directPool;
+  /** The collectors the listener is registered to */
+  private final List<NotificationEmitter> emitters = new ArrayList<>();
+  /** The listener accumulating the garbage collection pauses */
+  private final NotificationListener listener = this::onNotification;
+  /** The garbage collection pauses accumulated since the last frame, in ms */
+  private final AtomicLong pendingPauseMs = new AtomicLong();
+  /**
+   * The number of garbage collection pauses received since the last frame, counted rather than
+   * deduced from their duration, the JVM rounding the short pauses down to 0 ms
+   */
+  private final AtomicLong pendingPauses = new AtomicLong();
+  /** The number of garbage collection pauses since the start */
+  private final AtomicLong pauseCount = new AtomicLong();
+  /** The summed duration of every garbage collection pause since the start, in ms */
+  private final AtomicLong totalPauseMs = new AtomicLong();
+  /** The longest garbage collection pause since the start, in ms */
+  private volatile long worstPauseMs = 0;
+  /** The number of frames sampled */
+  private long frameCount = 0;
+  /** The number of frames that have allocated on the heap */
+  private long allocatingFrames = 0;
+  /** The number of frames during which a garbage collection pause has occurred */
+  private long pausedFrames = 0;
+  /** The number of heap bytes allocated during the last frame */
+  private long lastAllocatedBytes = 0;
+  /** The number of garbage collection pauses received during the last frame */
+  private long lastPauseCount = 0;
+
+  /** Creates a new MemoryTelemetry and subscribes to the garbage collection notifications */
+  public MemoryTelemetry() {
+    this.allocated = heap.register("allocated");
+    this.pause = pauses.register("pause");
+    this.tracked = offHeap.register("tracked");
+    this.direct = offHeap.register("direct");
+    BufferPoolMXBean pool = null;
+    for (BufferPoolMXBean bean : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+      if ("direct".equals(bean.getName())) {
+        pool = bean;
+      }
+    }
+    this.directPool = pool;
+    for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+      if (collector instanceof NotificationEmitter emitter && isPausing(collector.getName())) {
+        emitter.addNotificationListener(listener, null, null);
+        emitters.add(emitter);
+      }
+    }
+    initialize();
+  }
+
+  /** Starts sampling a frame, must be called by the thread running the frames */
+  public void beginFrame() {
+    probe.begin();
+  }
+
+  /** Ends sampling a frame, must be called by the thread running the frames */
+  public void endFrame() {
+    lastAllocatedBytes = probe.end();
+    long pauseMs = pendingPauseMs.getAndSet(0);
+    lastPauseCount = pendingPauses.getAndSet(0);
+    frameCount++;
+    if (lastAllocatedBytes > 0) {
+      allocatingFrames++;
+    }
+    if (lastPauseCount > 0) {
+      pausedFrames++;
+    }
+    allocated.push(lastAllocatedBytes / 1_000.0);
+    pause.push(pauseMs);
+    tracked.push(MemoryManager.getOffHeapBytes() / 1_000_000.0);
+    direct.push(getDirectBytes() / 1_000_000.0);
+  }
+
+  /**
+   * Accumulates the duration of a garbage collection, called by the JVM on its own thread
+   *
+   * @param notification the notification sent by the collector
+   * @param handback unused
+   */
+  private void onNotification(Notification notification, Object handback) {
+    if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(
+        notification.getType())) {
+      return;
+    }
+    GarbageCollectionNotificationInfo info =
+        GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+    long duration = info.getGcInfo().getDuration();
+    pendingPauseMs.addAndGet(duration);
+    pendingPauses.incrementAndGet();
+    pauseCount.incrementAndGet();
+    totalPauseMs.addAndGet(duration);
+    if (duration > worstPauseMs) {
+      worstPauseMs = duration;
+    }
+  }
+
+  /**
+   * Returns whether a collector stops the application threads, concurrent cycles are not pauses
+   *
+   * @param name the name of the collector
+   * @return true if the collections of the collector are pauses, false otherwise
+   */
+  private static boolean isPausing(String name) {
+    return !name.contains("Concurrent") && !name.contains("Cycles");
+  }
+
+  /**
+   * Returns the heap allocated by the thread running the frames during each frame, in KB
+   *
+   * @return the heap allocated during each frame
+   */
+  public MetricGroup getHeap() {
+    return heap;
+  }
+
+  /**
+   * Returns the garbage collection pauses that have occurred during each frame, in ms
+   *
+   * @return the garbage collection pauses of each frame
+   */
+  public MetricGroup getPauses() {
+    return pauses;
+  }
+
+  /**
+   * Returns the off-heap memory tracked by the {@link MemoryManager} and held by direct buffers at
+   * the end of each frame, in MB
+   *
+   * @return the off-heap memory held at the end of each frame
+   */
+  public MetricGroup getOffHeap() {
+    return offHeap;
+  }
+
+  /**
+   * Returns the number of heap bytes allocated by the thread running the frames during the last
+   * frame
+   *
+   * @return the number of bytes allocated during the last frame
+   */
+  public long getLastAllocatedBytes() {
+    return lastAllocatedBytes;
+  }
+
+  /**
+   * Returns the number of garbage collection pauses received during the last frame, however short
+   *
+   * @return the number of pauses of the last frame
+   */
+  public long getLastPauseCount() {
+    return lastPauseCount;
+  }
+
+  /**
+   * Returns the number of bytes currently held by direct buffers
+   *
+   * @return the number of bytes held by direct buffers, 0 if unknown
+   */
+  public long getDirectBytes() {
+    return directPool == null ? 0 : directPool.getMemoryUsed();
+  }
+
+  /**
+   * Returns the number of frames sampled
+   *
+   * @return the number of frames sampled
+   */
+  public long getFrameCount() {
+    return frameCount;
+  }
+
+  /**
+   * Returns the number of frames that have allocated on the heap
+   *
+   * @return the number of frames that have allocated
+   */
+  public long getAllocatingFrames() {
+    return allocatingFrames;
+  }
+
+  /**
+   * Returns the number of frames during which a garbage collection pause has occurred, including
+   * the pauses too short to last a whole millisecond
+   *
+   * @return the number of frames hit by a pause
+   */
+  public long getPausedFrames() {
+    return pausedFrames;
+  }
+
+  /**
+   * Returns the number of garbage collection pauses since the start
+   *
+   * @return the number of pauses
+   */
+  public long getPauseCount() {
+    return pauseCount.get();
+  }
+
+  /**
+   * Returns the summed duration of every garbage collection pause since the start
+   *
+   * @return the summed duration of the pauses, in ms
+   */
+  public long getTotalPauseMs() {
+    return totalPauseMs.get();
+  }
+
+  /**
+   * Returns the longest garbage collection pause since the start
+   *
+   * @return the duration of the longest pause, in ms
+   */
+  public long getWorstPauseMs() {
+    return worstPauseMs;
+  }
+
+  /**
+   * Returns whether heap allocations can be measured on this JVM
+   *
+   * @return true if heap allocations are measured, false otherwise
+   */
+  public boolean isAllocationTrackingSupported() {
+    return AllocationProbe.isSupported();
+  }
+
+  /** Unsubscribes from the garbage collection notifications */
+  @Override
+  public void cleanUp() {
+    for (NotificationEmitter emitter : emitters) {
+      try {
+        emitter.removeNotificationListener(listener);
+      } catch (ListenerNotFoundException e) {
+        // Already removed
+      }
+    }
+    emitters.clear();
+  }
+}
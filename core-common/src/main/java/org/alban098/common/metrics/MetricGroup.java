@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.common.metrics;
+
+import java.util.Arrays;
+
+/**
+ * A named group of {@link MetricSeries} sharing the same capacity, such as the times passed in each
+ * shader of a renderer. Series are registered once and then published to directly, so the group is
+ * never looked up by key on the hot path
+ */
+public final class MetricGroup {
+
+  /** The name of the group */
+  private final String name;
+  /** The capacity of every series of the group */
+  private final int capacity;
+  /** The series of the group, in registration order */
+  private MetricSeries[] series = new MetricSeries[4];
+  /** The number of series of the group */
+  private int count = 0;
+
+  /**
+   * Creates a new MetricGroup
+   *
+   * @param name the name of the group
+   * @param capacity the capacity of every series of the group
+   */
+  public MetricGroup(String name, int capacity) {
+    this.name = name;
+    this.capacity = capacity;
+  }
+
+  /**
+   * Registers a new series into the group
+   *
+   * @param seriesName the name of the series
+   * @return the new series, to publish samples to
+   */
+  public MetricSeries register(String seriesName) {
+    if (count == series.length) {
+      series = Arrays.copyOf(series, count * 2);
+    }
+    MetricSeries created = new MetricSeries(seriesName, capacity);
+    series[count++] = created;
+    return created;
+  }
+
+  /** Removes all samples from every series of the group */
+  public void clear() {
+    for (int i = 0; i < count; i++) {
+      series[i].clear();
+    }
+  }
+
+  /**
+   * Returns a series of the group
+   *
+   * @param index the registration index of the series
+   * @return the series
+   */
+  public MetricSeries get(int index) {
+    if (index < 0 || index >= count) {
+      throw new IndexOutOfBoundsException(index);
+    }
+    return series[index];
+  }
+
+  /**
+   * Returns the number of series of the group
+   *
+   * @return the number of series of the group
+   */
+  public int size() {
+    return count;
+  }
+
+  /**
+   * Returns the highest number of samples pushed into a series of the group
+   *
+   * @return the highest number of samples pushed into a series of the group
+   */
+  public long getSampleCount() {
+    long max = 0;
+    for (int i = 0; i < count; i++) {
+      max = Math.max(max, series[i].getSampleCount());
+    }
+    return max;
+  }
+
+  /**
+   * Returns the name of the group
+   *
+   * @return the name of the group
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Returns the capacity of every series of the group
+   *
+   * @return the capacity of every series of the group
+   */
+  public int getCapacity() {
+    return capacity;
+  }
+}
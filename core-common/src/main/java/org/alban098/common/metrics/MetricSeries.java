@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.common.metrics;
+
+import java.util.Arrays;
+
+/**
+ * A fixed capacity ring of samples stored in primitive arrays, discarding the oldest sample when
+ * full. Minimum, maximum, mean and percentiles are computed over the samples currently in the ring,
+ * lazily and into preallocated storage, so neither publishing nor querying a series allocates
+ */
+public final class MetricSeries {
+
+  /** The name of the series */
+  private final String name;
+  /** The values of the samples, in ring order */
+  private final double[] values;
+  /**
+   * The indices of the samples, in ring order, stored as doubles to be plotted without conversion
+   */
+  private final double[] indices;
+  /** A scratch array holding the sorted values, used to compute percentiles */
+  private final double[] sorted;
+  /** The position at which the next sample will be written */
+  private int head = 0;
+  /** The number of samples currently in the ring */
+  private int size = 0;
+  /** The number of samples pushed since creation or last clear */
+  private long sampleCount = 0;
+  /** Have samples been pushed since the statistics have last been computed */
+  private boolean dirty = false;
+  /** The minimum value of the samples in the ring */
+  private double min = 0;
+  /** The maximum value of the samples in the ring */
+  private double max = 0;
+  /** The mean value of the samples in the ring */
+  private double mean = 0;
+
+  /**
+   * Creates a new MetricSeries
+   *
+   * @param name the name of the series
+   * @param capacity the maximum number of samples kept in the ring
+   */
+  public MetricSeries(String name, int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("The capacity of a MetricSeries must be positive");
+    }
+    this.name = name;
+    this.values = new double[capacity];
+    this.indices = new double[capacity];
+    this.sorted = new double[capacity];
+  }
+
+  /**
+   * Pushes a new sample, indexed by the number of samples pushed so far
+   *
+   * @param value the value of the sample
+   */
+  public void push(double value) {
+    push(sampleCount, value);
+  }
+
+  /**
+   * Pushes a new sample with a set index, discarding the oldest one if the ring is full
+   *
+   * @param index the index of the sample, usually a frame number
+   * @param value the value of the sample
+   */
+  public void push(long index, double value) {
+    values[head] = value;
+    indices[head] = index;
+    head = (head + 1) % values.length;
+    if (size < values.length) {
+      size++;
+    }
+    sampleCount++;
+    dirty = true;
+  }
+
+  /** Removes all samples from the series */
+  public void clear() {
+    head = 0;
+    size = 0;
+    sampleCount = 0;
+    dirty = false;
+    min = 0;
+    max = 0;
+    mean = 0;
+  }
+
+  /** Recomputes the statistics of the series if samples have been pushed since last time */
+  private void computeStatistics() {
+    if (!dirty) {
+      return;
+    }
+    double sum = 0;
+    for (int i = 0; i < size; i++) {
+      sum += values[i];
+    }
+    System.arraycopy(values, 0, sorted, 0, size);
+    Arrays.sort(sorted, 0, size);
+    min = sorted[0];
+    max = sorted[size - 1];
+    mean = sum / size;
+    dirty = false;
+  }
+
+  /**
+   * Returns the value of a percentile of the samples in the ring, using the nearest rank method
+   *
+   * @param percentile the percentile to compute, between 0 and 100
+   * @return the value of the percentile, 0 if the series is empty
+   */
+  public double getPercentile(double percentile) {
+    if (size == 0) {
+      return 0;
+    }
+    computeStatistics();
+    int rank = (int) Math.ceil(percentile / 100.0 * size) - 1;
+    return sorted[Math.max(0, Math.min(size - 1, rank))];
+  }
+
+  /**
+   * Returns the minimum value of the samples in the ring
+   *
+   * @return the minimum value of the samples in the ring, 0 if the series is empty
+   */
+  public double getMin() {
+    computeStatistics();
+    return min;
+  }
+
+  /**
+   * Returns the maximum value of the samples in the ring
+   *
+   * @return the maximum value of the samples in the ring, 0 if the series is empty
+   */
+  public double getMax() {
+    computeStatistics();
+    return max;
+  }
+
+  /**
+   * Returns the mean value of the samples in the ring
+   *
+   * @return the mean value of the samples in the ring, 0 if the series is empty
+   */
+  public double getMean() {
+    computeStatistics();
+    return mean;
+  }
+
+  /**
+   * Returns the value of the last pushed sample
+   *
+   * @return the value of the last pushed sample, 0 if the series is empty
+   */
+  public double getLast() {
+    return size == 0 ? 0 : values[(head - 1 + values.length) % values.length];
+  }
+
+  /**
+   * Returns the name of the series
+   *
+   * @return the name of the series
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Returns the array of values of the ring, the oldest sample being at {@link #getOffset()}
+   *
+   * @return the array of values of the ring
+   */
+  public double[] getValues() {
+    return values;
+  }
+
+  /**
+   * Returns the array of indices of the ring, the oldest sample being at {@link #getOffset()}
+   *
+   * @return the array of indices of the ring
+   */
+  public double[] getIndices() {
+    return indices;
+  }
+
+  /**
+   * Returns the position of the oldest sample in the arrays of the ring
+   *
+   * @return the position of the oldest sample in the arrays of the ring
+   */
+  public int getOffset() {
+    return size < values.length ? 0 : head;
+  }
+
+  /**
+   * Returns the number of samples currently in the ring
+   *
+   * @return the number of samples currently in the ring
+   */
+  public int getSize() {
+    return size;
+  }
+
+  /**
+   * Returns the maximum number of samples kept in the ring
+   *
+   * @return the capacity of the ring
+   */
+  public int getCapacity() {
+    return values.length;
+  }
+
+  /**
+   * Returns the number of samples pushed since creation or last clear
+   *
+   * @return the number of samples pushed since creation or last clear
+   */
+  public long getSampleCount() {
+    return sampleCount;
+  }
+}
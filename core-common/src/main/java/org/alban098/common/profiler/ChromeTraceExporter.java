@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.common.profiler;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Exports the content of {@link ScopeRecorder}s to the Chrome trace-event JSON format, readable by
+ * chrome://tracing or Perfetto. Each recorder is exported as its own thread track
+ */
+public final class ChromeTraceExporter {
+
+  /** Just a private constructor to disable instantiation */
+  private ChromeTraceExporter() {}
+
+  /**
+   * Exports recorders to a file
+   *
+   * @param file the file to write
+   * @param recorders the recorders to export, one track each
+   * @throws IOException if the file can't be written
+   */
+  public static void export(Path file, ScopeRecorder... recorders) throws IOException {
+    try (Writer writer = Files.newBufferedWriter(file)) {
+      export(writer, recorders);
+    }
+  }
+
+  /**
+   * Exports recorders to a Writer
+   *
+   * @param writer the writer to write to
+   * @param recorders the recorders to export, one track each
+   * @throws IOException if the writer can't be written to
+   */
+  public static void export(Writer writer, ScopeRecorder... recorders) throws IOException {
+    writer.write("{\"traceEvents\":[");
+    boolean first = true;
+    for (int track = 0; track < recorders.length; track++) {
+      if (!first) {
+        writer.write(',');
+      }
+      first = false;
+      writer.write("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":0,\"tid\":");
+      writer.write(Integer.toString(track));
+      writer.write(",\"args\":{\"name\":\"");
+      writeEscaped(writer, recorders[track].getName());
+      writer.write("\"}}");
+    }
+    for (int track = 0; track < recorders.length; track++) {
+      ScopeRecorder recorder = recorders[track];
+      int tid = track;
+      try {
+        recorder.forEachScope(
+            (scopeId, depth, startNs, endNs) -> {
+              try {
+                writer.write(",{\"name\":\"");
+                writeEscaped(writer, recorder.getRegistry().getName(scopeId));
+                writer.write("\",\"ph\":\"X\",\"pid\":0,\"tid\":");
+                writer.write(Integer.toString(tid));
+                writer.write(",\"ts\":");
+                writer.write(formatMicros(startNs));
+                writer.write(",\"dur\":");
+                writer.write(formatMicros(endNs - startNs));
+                writer.write('}');
+              } catch (IOException e) {
+                throw new UncheckedIOException(e);
+              }
+            });
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+    }
+    writer.write("],\"displayTimeUnit\":\"ms\"}");
+  }
+
+  /**
+   * Formats a duration in nanoseconds as microseconds, the unit of the trace-event format
+   *
+   * @param nanos the duration in nanoseconds
+   * @return the duration in microseconds
+   */
+  private static String formatMicros(long nanos) {
+    return String.format(Locale.ENGLISH, "%.3f", nanos / 1000.0);
+  }
+
+  /**
+   * Writes a String as the content of a JSON string literal
+   *
+   * @param writer the writer to write to
+   * @param value the String to write
+   * @throws IOException if the writer can't be written to
+   */
+  private static void writeEscaped(Writer writer, String value) throws IOException {
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      switch (c) {
+        case '"' -> writer.write("\\\"");
+        case '\\' -> writer.write("\\\\");
+        case '\n' -> writer.write("\\n");
+        case '\r' -> writer.write("\\r");
+        case '\t' -> writer.write("\\t");
+        default -> {
+          if (c < 0x20) {
+            writer.write(String.format("\\u%04x", (int) c));
+          } else {
+            writer.write(c);
+          }
+        }
+      }
+    }
+  }
+}
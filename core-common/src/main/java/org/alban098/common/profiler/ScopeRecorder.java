@@ -0,0 +1,360 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.common.profiler;
+
+import java.util.function.LongSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Records nested named scopes into a fixed size ring buffer of primitive arrays, so recording never
+ * allocates. Scopes are grouped into frames, the last completed frame can be inspected while the
+ * next one is being recorded. Older events are overwritten once the ring is full. A recorder must
+ * only be used by a single thread
+ */
+public final class ScopeRecorder {
+
+  /** Just a Logger to log events */
+  private static final Logger LOGGER = LoggerFactory.getLogger(ScopeRecorder.class);
+
+  /** The default maximum nesting depth of scopes */
+  private static final int DEFAULT_MAX_DEPTH = 64;
+
+  /** The name of the recorder, used as a track name when exporting */
+  private final String name;
+  /** The registry interning scope names */
+  private final ScopeRegistry registry;
+  /** The clock used to timestamp scopes, in nanoseconds */
+  private final LongSupplier clock;
+  /** The number of events the ring can hold */
+  private final int capacity;
+  /** The scope id of each event */
+  private final int[] eventScopes;
+  /** The nesting depth of each event */
+  private final int[] eventDepths;
+  /** The start time of each event in nanoseconds */
+  private final long[] eventStarts;
+  /** The end time of each event in nanoseconds, -1 while the scope is open */
+  private final long[] eventEnds;
+  /** The absolute indices of the events of the currently open scopes */
+  private final long[] openScopes;
+  /** The number of currently open scopes */
+  private int depth = 0;
+  /** The total number of events ever recorded */
+  private long written = 0;
+  /** The absolute index of the first event of the current frame */
+  private long frameFirstEvent = 0;
+  /** The start time of the current frame in nanoseconds */
+  private long frameStart = 0;
+  /** Is a frame currently being recorded */
+  private boolean inFrame = false;
+  /** The absolute index of the first event of the last completed frame */
+  private long lastFrameFirstEvent = 0;
+  /** The absolute index following the last event of the last completed frame */
+  private long lastFrameEndEvent = 0;
+  /** The start time of the last completed frame in nanoseconds */
+  private long lastFrameStart = 0;
+  /** The end time of the last completed frame in nanoseconds */
+  private long lastFrameEnd = 0;
+  /** The number of frames completed so far */
+  private long frameCount = 0;
+
+  /**
+   * Creates a new ScopeRecorder timestamping scopes with {@link System#nanoTime()}
+   *
+   * @param name the name of the recorder, used as a track name when exporting
+   * @param registry the registry interning scope names
+   * @param capacity the number of events the ring can hold
+   */
+  public ScopeRecorder(String name, ScopeRegistry registry, int capacity) {
+    this(name, registry, capacity, System::nanoTime);
+  }
+
+  /**
+   * Creates a new ScopeRecorder
+   *
+   * @param name the name of the recorder, used as a track name when exporting
+   * @param registry the registry interning scope names
+   * @param capacity the number of events the ring can hold
+   * @param clock the clock used to timestamp scopes, in nanoseconds
+   */
+  public ScopeRecorder(String name, ScopeRegistry registry, int capacity, LongSupplier clock) {
+    this.name = name;
+    this.registry = registry;
+    this.capacity = capacity;
+    this.clock = clock;
+    this.eventScopes = new int[capacity];
+    this.eventDepths = new int[capacity];
+    this.eventStarts = new long[capacity];
+    this.eventEnds = new long[capacity];
+    this.openScopes = new long[DEFAULT_MAX_DEPTH];
+  }
+
+  /** Starts recording a new frame, timestamped by the clock */
+  public void beginFrame() {
+    beginFrame(clock.getAsLong());
+  }
+
+  /**
+   * Starts recording a new frame
+   *
+   * @param timestampNs the start time of the frame in nanoseconds
+   */
+  public void beginFrame(long timestampNs) {
+    if (inFrame) {
+      endFrame(timestampNs);
+    }
+    inFrame = true;
+    frameStart = timestampNs;
+    frameFirstEvent = written;
+  }
+
+  /** Ends the current frame, timestamped by the clock */
+  public void endFrame() {
+    endFrame(clock.getAsLong());
+  }
+
+  /**
+   * Ends the current frame, scopes still open are closed at the end of the frame
+   *
+   * @param timestampNs the end time of the frame in nanoseconds
+   */
+  public void endFrame(long timestampNs) {
+    if (depth > 0) {
+      LOGGER.warn("{} scope(s) still open at the end of frame {}", depth, frameCount);
+      while (depth > 0) {
+        end(timestampNs);
+      }
+    }
+    inFrame = false;
+    lastFrameFirstEvent = Math.max(frameFirstEvent, written - capacity);
+    lastFrameEndEvent = written;
+    lastFrameStart = frameStart;
+    lastFrameEnd = timestampNs;
+    frameCount++;
+  }
+
+  /**
+   * Opens a scope, timestamped by the clock
+   *
+   * @param scopeId the id of the scope in the registry
+   */
+  public void begin(int scopeId) {
+    begin(scopeId, clock.getAsLong());
+  }
+
+  /**
+   * Opens a scope, looking up its id in the registry
+   *
+   * @param scopeName the name of the scope
+   */
+  public void begin(String scopeName) {
+    begin(registry.getId(scopeName));
+  }
+
+  /**
+   * Opens a scope
+   *
+   * @param scopeId the id of the scope in the registry
+   * @param timestampNs the start time of the scope in nanoseconds
+   */
+  public void begin(int scopeId, long timestampNs) {
+    if (depth == openScopes.length) {
+      throw new IllegalStateException("Maximum scope depth reached (" + depth + ")");
+    }
+    int slot = (int) (written % capacity);
+    eventScopes[slot] = scopeId;
+    eventDepths[slot] = depth;
+    eventStarts[slot] = timestampNs;
+    eventEnds[slot] = -1;
+    openScopes[depth++] = written++;
+  }
+
+  /** Closes the last opened scope, timestamped by the clock */
+  public void end() {
+    end(clock.getAsLong());
+  }
+
+  /**
+   * Closes the last opened scope
+   *
+   * @param timestampNs the end time of the scope in nanoseconds
+   */
+  public void end(long timestampNs) {
+    if (depth == 0) {
+      throw new IllegalStateException("No scope to close");
+    }
+    long event = openScopes[--depth];
+    // The event may have been overwritten if the ring is too small for the frame
+    if (event >= written - capacity) {
+      eventEnds[(int) (event % capacity)] = timestampNs;
+    }
+  }
+
+  /**
+   * Records an already completed scope, for scopes measured by another mean (GPU queries)
+   *
+   * @param scopeId the id of the scope in the registry
+   * @param scopeDepth the nesting depth of the scope
+   * @param startNs the start time of the scope in nanoseconds
+   * @param endNs the end time of the scope in nanoseconds
+   */
+  public void record(int scopeId, int scopeDepth, long startNs, long endNs) {
+    int slot = (int) (written++ % capacity);
+    eventScopes[slot] = scopeId;
+    eventDepths[slot] = scopeDepth;
+    eventStarts[slot] = startNs;
+    eventEnds[slot] = endNs;
+  }
+
+  /**
+   * Visits every scope of the last completed frame, in the order they were opened
+   *
+   * @param visitor the visitor to apply
+   */
+  public void forEachFrameScope(ScopeVisitor visitor) {
+    visit(Math.max(lastFrameFirstEvent, written - capacity), lastFrameEndEvent, visitor);
+  }
+
+  /**
+   * Visits every closed scope still held by the ring, in the order they were opened
+   *
+   * @param visitor the visitor to apply
+   */
+  public void forEachScope(ScopeVisitor visitor) {
+    visit(Math.max(0, written - capacity), written, visitor);
+  }
+
+  /**
+   * Visits closed scopes in a range of absolute event indices
+   *
+   * @param from the first absolute index, inclusive
+   * @param to the last absolute index, exclusive
+   * @param visitor the visitor to apply
+   */
+  private void visit(long from, long to, ScopeVisitor visitor) {
+    for (long event = from; event < to; event++) {
+      int slot = (int) (event % capacity);
+      if (eventEnds[slot] >= 0) {
+        visitor.visit(eventScopes[slot], eventDepths[slot], eventStarts[slot], eventEnds[slot]);
+      }
+    }
+  }
+
+  /**
+   * Returns the total time spent in a scope during the last completed frame, nested occurrences of
+   * the scope inside itself are only counted once
+   *
+   * @param scopeId the id of the scope in the registry
+   * @return the total time spent in the scope in nanoseconds
+   */
+  public long getFrameScopeTime(int scopeId) {
+    long total = 0;
+    long coveredUntil = Long.MIN_VALUE;
+    for (long event = Math.max(lastFrameFirstEvent, written - capacity);
+        event < lastFrameEndEvent;
+        event++) {
+      int slot = (int) (event % capacity);
+      if (eventScopes[slot] == scopeId
+          && eventEnds[slot] >= 0
+          && eventStarts[slot] >= coveredUntil) {
+        total += eventEnds[slot] - eventStarts[slot];
+        coveredUntil = eventEnds[slot];
+      }
+    }
+    return total;
+  }
+
+  /**
+   * Returns the number of scopes recorded during the last completed frame and still in the ring
+   *
+   * @return the number of scopes of the last completed frame
+   */
+  public int getFrameScopeCount() {
+    return (int) (lastFrameEndEvent - Math.max(lastFrameFirstEvent, written - capacity));
+  }
+
+  /**
+   * Returns the start time of the frame currently being recorded
+   *
+   * @return the start time of the frame currently being recorded in nanoseconds
+   */
+  public long getCurrentFrameStart() {
+    return frameStart;
+  }
+
+  /**
+   * Returns the start time of the last completed frame
+   *
+   * @return the start time of the last completed frame in nanoseconds
+   */
+  public long getFrameStart() {
+    return lastFrameStart;
+  }
+
+  /**
+   * Returns the end time of the last completed frame
+   *
+   * @return the end time of the last completed frame in nanoseconds
+   */
+  public long getFrameEnd() {
+    return lastFrameEnd;
+  }
+
+  /**
+   * Returns the duration of the last completed frame
+   *
+   * @return the duration of the last completed frame in nanoseconds
+   */
+  public long getFrameDuration() {
+    return lastFrameEnd - lastFrameStart;
+  }
+
+  /**
+   * Returns the number of frames completed so far
+   *
+   * @return the number of frames completed so far
+   */
+  public long getFrameCount() {
+    return frameCount;
+  }
+
+  /**
+   * Returns the current nesting depth, the number of currently open scopes
+   *
+   * @return the current nesting depth
+   */
+  public int getDepth() {
+    return depth;
+  }
+
+  /**
+   * Returns the number of events the ring can hold
+   *
+   * @return the number of events the ring can hold
+   */
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * Returns the name of the recorder
+   *
+   * @return the name of the recorder
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Returns the registry interning scope names
+   *
+   * @return the registry interning scope names
+   */
+  public ScopeRegistry getRegistry() {
+    return registry;
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.common.profiler;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Interns profiling scope names into dense integer ids, so recording a scope never has to store or
+ * compare Strings. A registry can be shared by several {@link ScopeRecorder}s so a scope has the
+ * same id everywhere
+ */
+public final class ScopeRegistry {
+
+  /** The ids of all registered names */
+  private final Map<String, Integer> ids = new HashMap<>();
+  /** The registered names, indexed by id */
+  private String[] names = new String[32];
+  /** The number of registered names */
+  private int count = 0;
+
+  /**
+   * Returns the id of a scope name, registering it if necessary. Only the first call for a given
+   * name allocates
+   *
+   * @param name the name of the scope
+   * @return the id of the scope
+   */
+  public synchronized int getId(String name) {
+    Integer id = ids.get(name);
+    if (id != null) {
+      return id;
+    }
+    if (count == names.length) {
+      names = Arrays.copyOf(names, count * 2);
+    }
+    names[count] = name;
+    ids.put(name, count);
+    return count++;
+  }
+
+  /**
+   * Returns the name of a scope
+   *
+   * @param id the id of the scope
+   * @return the name of the scope
+   */
+  public synchronized String getName(int id) {
+    return names[id];
+  }
+
+  /**
+   * Returns the number of registered scopes
+   *
+   * @return the number of registered scopes
+   */
+  public synchronized int size() {
+    return count;
+  }
+}
@@ -0,0 +1,21 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.common.profiler;
+
+/** Visits recorded scopes without allocating any intermediate object */
+@FunctionalInterface
+public interface ScopeVisitor {
+
+  /**
+   * Visits a recorded scope
+   *
+   * @param scopeId the id of the scope in its {@link ScopeRegistry}
+   * @param depth the nesting depth of the scope, 0 for top level scopes
+   * @param startNs the time at which the scope started in nanoseconds
+   * @param endNs the time at which the scope ended in nanoseconds
+   */
+  void visit(int scopeId, int depth, long startNs, long endNs);
+}
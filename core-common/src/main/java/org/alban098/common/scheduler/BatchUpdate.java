@@ -0,0 +1,25 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.common.scheduler;
+
+/**
+ * A callback updating, in one call, every due object of a type registered to an {@link
+ * UpdateScheduler}
+ *
+ * @param <T> the type of object updated
+ */
+@FunctionalInterface
+public interface BatchUpdate<T> {
+
+  /**
+   * Updates a batch of due objects, the arrays are reused and only valid during the call
+   *
+   * @param objects the objects to update, only the first count are valid
+   * @param elapsedTimes the time elapsed since the last update of each object, in seconds
+   * @param count the number of objects to update
+   */
+  void update(T[] objects, double[] elapsedTimes, int count);
+}
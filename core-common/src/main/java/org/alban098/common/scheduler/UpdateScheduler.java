@@ -0,0 +1,480 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.common.scheduler;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Schedules updates of objects at given ticks, so that each tick only touches the objects that are
+ * due instead of the whole population. Wakeups are stored in a hierarchical timing wheel of {@value
+ * #LEVELS} levels of {@value #SLOTS} slots, making scheduling, cancelling and advancing a tick O(1)
+ * amortized, with delays of up to 2^32 ticks. Due objects are grouped by type and handed to the
+ * {@link BatchUpdate} registered for that type, one call per type and tick.
+ *
+ * <p>A wakeup is identified by a handle made of a generation and an index, so a stale handle never
+ * cancels a recycled wakeup. The scheduler is not thread-safe and must be used by a single thread
+ */
+public final class UpdateScheduler {
+
+  /** The number of bits of a slot index */
+  private static final int SLOT_BITS = 8;
+  /** The number of slots of each level of the wheel */
+  private static final int SLOTS = 1 << SLOT_BITS;
+  /** The mask extracting a slot index */
+  private static final int SLOT_MASK = SLOTS - 1;
+  /** The number of levels of the wheel */
+  private static final int LEVELS = 4;
+  /** The longest delay that can be scheduled, in ticks */
+  private static final long MAX_DELAY = (1L << (SLOT_BITS * LEVELS)) - 1;
+  /** The number of bits of a handle holding the index of a wakeup */
+  private static final int INDEX_BITS = 24;
+  /** The mask extracting the index of a wakeup from a handle */
+  private static final int INDEX_MASK = (1 << INDEX_BITS) - 1;
+  /** The mask applied to generations, keeping handles positive */
+  private static final int GENERATION_MASK = 0x7F;
+  /** Marks the end of a list */
+  private static final int NONE = -1;
+
+  /** The duration of a tick, in seconds */
+  private final double tickDuration;
+  /** The first wakeup of each slot of the wheel, level after level */
+  private final int[] slotHeads = new int[LEVELS * SLOTS];
+  /** The batches, in registration order */
+  private final List<Batch<?>> batches = new ArrayList<>();
+  /** The batch of each class, resolved once by walking the class hierarchy */
+  private final Map<Class<?>, Batch<?>> batchByClass = new HashMap<>();
+  /** The objects to wake up */
+  private Object[] targets = new Object[64];
+  /** The tick at which each wakeup is due */
+  private long[] deadlines = new long[64];
+  /** The period of each wakeup in ticks, 0 for a single wakeup */
+  private long[] periods = new long[64];
+  /** The tick at which each object has last been updated or scheduled */
+  private long[] lastRuns = new long[64];
+  /** The generation of each wakeup slot, incremented when freed */
+  private int[] generations = new int[64];
+  /** The batch of each wakeup */
+  private int[] batchIndices = new int[64];
+  /** The slot of the wheel holding each wakeup, -1 if not in the wheel */
+  private int[] slots = new int[64];
+  /** The next wakeup in the same list */
+  private int[] nexts = new int[64];
+  /** The previous wakeup in the same list */
+  private int[] previouses = new int[64];
+  /** The first free wakeup */
+  private int freeHead = NONE;
+  /** The number of wakeups ever allocated */
+  private int allocated = 0;
+  /** The handles of the wakeups due during the current tick */
+  private int[] due = new int[64];
+  /** The number of wakeups due during the last tick */
+  private int dueCount = 0;
+  /** The number of live wakeups */
+  private int scheduledCount = 0;
+  /** The current tick */
+  private long currentTick = 0;
+
+  /**
+   * Creates a new UpdateScheduler
+   *
+   * @param tickDuration the duration of a tick, in seconds
+   */
+  public UpdateScheduler(double tickDuration) {
+    this.tickDuration = tickDuration;
+    Arrays.fill(slotHeads, NONE);
+  }
+
+  /**
+   * Registers the callback updating every due object of a type, objects of subclasses being updated
+   * by it too unless a more specific callback is registered first
+   *
+   * @param type the type of object to update
+   * @param update the callback updating a batch of due objects
+   * @param <T> the type of object to update
+   * @throws IllegalArgumentException if a callback is already registered for the type
+   */
+  public <T> void registerBatch(Class<T> type, BatchUpdate<? super T> update) {
+    if (batchByClass.containsKey(type)) {
+      throw new IllegalArgumentException("A batch is already registered for " + type.getName());
+    }
+    Batch<T> batch = new Batch<>(type, update, batches.size());
+    batches.add(batch);
+    batchByClass.put(type, batch);
+  }
+
+  /**
+   * Schedules an object to be updated at the next tick
+   *
+   * @param object the object to update
+   * @return the handle of the wakeup
+   */
+  public int scheduleNextTick(Object object) {
+    return schedule(object, 1, 0);
+  }
+
+  /**
+   * Schedules an object to be updated once after a delay
+   *
+   * @param object the object to update
+   * @param delayTicks the number of ticks to wait, at least 1
+   * @return the handle of the wakeup
+   */
+  public int scheduleDelayed(Object object, long delayTicks) {
+    return schedule(object, delayTicks, 0);
+  }
+
+  /**
+   * Schedules an object to be updated periodically until cancelled
+   *
+   * @param object the object to update
+   * @param periodTicks the number of ticks between updates, at least 1
+   * @param initialDelayTicks the number of ticks to wait before the first update, at least 1
+   * @return the handle of the wakeup
+   */
+  public int scheduleFixedRate(Object object, long periodTicks, long initialDelayTicks) {
+    // A period is rescheduled as a delay, so it is bound by the span of the wheel as well
+    if (periodTicks < 1 || periodTicks > MAX_DELAY) {
+      throw new IllegalArgumentException(
+          "The period of a wakeup must be between 1 and " + MAX_DELAY + " ticks");
+    }
+    return schedule(object, initialDelayTicks, periodTicks);
+  }
+
+  /**
+   * Allocates a wakeup and inserts it into the wheel
+   *
+   * @param object the object to update
+   * @param delayTicks the number of ticks to wait
+   * @param periodTicks the period of the wakeup, 0 for a single wakeup
+   * @return the handle of the wakeup
+   */
+  private int schedule(Object object, long delayTicks, long periodTicks) {
+    if (delayTicks < 1 || delayTicks > MAX_DELAY) {
+      throw new IllegalArgumentException(
+          "The delay of a wakeup must be between 1 and " + MAX_DELAY + " ticks");
+    }
+    Batch<?> batch = resolveBatch(object.getClass());
+    int index = allocate();
+    targets[index] = object;
+    deadlines[index] = currentTick + delayTicks;
+    periods[index] = periodTicks;
+    lastRuns[index] = currentTick;
+    batchIndices[index] = batch.index;
+    insert(index);
+    scheduledCount++;
+    return (generations[index] << INDEX_BITS) | index;
+  }
+
+  /**
+   * Cancels a wakeup, does nothing if it has already been freed
+   *
+   * @param handle the handle of the wakeup
+   * @return true if the wakeup has been cancelled, false if the handle was stale
+   */
+  public boolean cancel(int handle) {
+    int index = handle & INDEX_MASK;
+    if (!isScheduled(handle)) {
+      return false;
+    }
+    if (slots[index] != NONE) {
+      unlink(index);
+    }
+    free(index);
+    return true;
+  }
+
+  /**
+   * Returns whether a wakeup is still scheduled
+   *
+   * @param handle the handle of the wakeup
+   * @return true if the wakeup is still scheduled, false otherwise
+   */
+  public boolean isScheduled(int handle) {
+    int index = handle & INDEX_MASK;
+    return index < allocated
+        && targets[index] != null
+        && generations[index] == (handle >>> INDEX_BITS);
+  }
+
+  /**
+   * Advances the scheduler by one tick, cascading the wakeups of the upper levels of the wheel
+   * whose range has been reached, then updating every due object batch by batch. Periodic wakeups
+   * are rescheduled after the updates, single ones are freed
+   */
+  public void tick() {
+    currentTick++;
+    for (int level = 1; level < LEVELS; level++) {
+      if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) != 0) {
+        break;
+      }
+      cascade(level * SLOTS + (int) ((currentTick >>> (SLOT_BITS * level)) & SLOT_MASK));
+    }
+
+    dueCount = 0;
+    int slot = (int) (currentTick & SLOT_MASK);
+    int index = slotHeads[slot];
+    slotHeads[slot] = NONE;
+    while (index != NONE) {
+      int next = nexts[index];
+      slots[index] = NONE;
+      if (dueCount == due.length) {
+        due = Arrays.copyOf(due, dueCount * 2);
+      }
+      due[dueCount++] = (generations[index] << INDEX_BITS) | index;
+      batches
+          .get(batchIndices[index])
+          .add(targets[index], (currentTick - lastRuns[index]) * tickDuration);
+      lastRuns[index] = currentTick;
+      index = next;
+    }
+
+    for (Batch<?> batch : batches) {
+      batch.dispatch();
+    }
+
+    for (int i = 0; i < dueCount; i++) {
+      int handle = due[i];
+      // The wakeup may have been cancelled by an update
+      if (!isScheduled(handle)) {
+        continue;
+      }
+      int dueIndex = handle & INDEX_MASK;
+      if (periods[dueIndex] > 0) {
+        deadlines[dueIndex] += periods[dueIndex];
+        insert(dueIndex);
+      } else {
+        free(dueIndex);
+      }
+    }
+  }
+
+  /**
+   * Moves every wakeup of a slot of an upper level down the wheel, closer to its deadline
+   *
+   * @param slot the slot to cascade
+   */
+  private void cascade(int slot) {
+    int index = slotHeads[slot];
+    slotHeads[slot] = NONE;
+    while (index != NONE) {
+      int next = nexts[index];
+      insert(index);
+      index = next;
+    }
+  }
+
+  /**
+   * Inserts a wakeup into the slot matching its deadline, on the lowest level covering it
+   *
+   * @param index the index of the wakeup
+   */
+  private void insert(int index) {
+    long delta = deadlines[index] - currentTick;
+    int level = 0;
+    while (level < LEVELS - 1 && delta >= (1L << (SLOT_BITS * (level + 1)))) {
+      level++;
+    }
+    int slot = level * SLOTS + (int) ((deadlines[index] >>> (SLOT_BITS * level)) & SLOT_MASK);
+    int head = slotHeads[slot];
+    nexts[index] = head;
+    previouses[index] = NONE;
+    if (head != NONE) {
+      previouses[head] = index;
+    }
+    slotHeads[slot] = index;
+    slots[index] = slot;
+  }
+
+  /**
+   * Removes a wakeup from the slot holding it
+   *
+   * @param index the index of the wakeup
+   */
+  private void unlink(int index) {
+    int next = nexts[index];
+    int previous = previouses[index];
+    if (previous == NONE) {
+      slotHeads[slots[index]] = next;
+    } else {
+      nexts[previous] = next;
+    }
+    if (next != NONE) {
+      previouses[next] = previous;
+    }
+    slots[index] = NONE;
+  }
+
+  /**
+   * Returns a free wakeup index, growing the storage if necessary
+   *
+   * @return a free wakeup index
+   */
+  private int allocate() {
+    if (freeHead != NONE) {
+      int index = freeHead;
+      freeHead = nexts[index];
+      return index;
+    }
+    if (allocated > INDEX_MASK) {
+      throw new IllegalStateException("Too many wakeups scheduled");
+    }
+    if (allocated == targets.length) {
+      int capacity = allocated * 2;
+      targets = Arrays.copyOf(targets, capacity);
+      deadlines = Arrays.copyOf(deadlines, capacity);
+      periods = Arrays.copyOf(periods, capacity);
+      lastRuns = Arrays.copyOf(lastRuns, capacity);
+      generations = Arrays.copyOf(generations, capacity);
+      batchIndices = Arrays.copyOf(batchIndices, capacity);
+      slots = Arrays.copyOf(slots, capacity);
+      nexts = Arrays.copyOf(nexts, capacity);
+      previouses = Arrays.copyOf(previouses, capacity);
+    }
+    slots[allocated] = NONE;
+    return allocated++;
+  }
+
+  /**
+   * Frees a wakeup, invalidating its handle
+   *
+   * @param index the index of the wakeup
+   */
+  private void free(int index) {
+    targets[index] = null;
+    generations[index] = (generations[index] + 1) & GENERATION_MASK;
+    nexts[index] = freeHead;
+    freeHead = index;
+    scheduledCount--;
+  }
+
+  /**
+   * Returns the batch updating objects of a class, walking up its hierarchy
+   *
+   * @param type the class of the object
+   * @return the batch updating objects of the class
+   * @throws IllegalArgumentException if no batch is registered for the class or its superclasses
+   */
+  private Batch<?> resolveBatch(Class<?> type) {
+    Batch<?> batch = batchByClass.get(type);
+    if (batch != null) {
+      return batch;
+    }
+    for (Class<?> parent = type.getSuperclass(); parent != null; parent = parent.getSuperclass()) {
+      batch = batchByClass.get(parent);
+      if (batch != null) {
+        batchByClass.put(type, batch);
+        return batch;
+      }
+    }
+    throw new IllegalArgumentException("No batch registered for " + type.getName());
+  }
+
+  /**
+   * Returns the current tick
+   *
+   * @return the current tick
+   */
+  public long getCurrentTick() {
+    return currentTick;
+  }
+
+  /**
+   * Returns the duration of a tick
+   *
+   * @return the duration of a tick, in seconds
+   */
+  public double getTickDuration() {
+    return tickDuration;
+  }
+
+  /**
+   * Returns the number of wakeups currently scheduled
+   *
+   * @return the number of wakeups currently scheduled
+   */
+  public int getScheduledCount() {
+    return scheduledCount;
+  }
+
+  /**
+   * Returns the number of objects updated during the last tick
+   *
+   * @return the number of objects updated during the last tick
+   */
+  public int getLastDueCount() {
+    return dueCount;
+  }
+
+  /**
+   * The due objects of a type collected during a tick, stored in a typed array so the callback
+   * iterates them without casts
+   *
+   * @param <T> the type of object updated
+   */
+  private static final class Batch<T> {
+
+    /** The type of object updated */
+    private final Class<T> type;
+    /** The callback updating the due objects */
+    private final BatchUpdate<? super T> update;
+    /** The index of the batch in the scheduler */
+    private final int index;
+    /** The due objects */
+    private T[] objects;
+    /** The time elapsed since the last update of each due object */
+    private double[] elapsedTimes = new double[16];
+    /** The number of due objects */
+    private int count = 0;
+
+    /**
+     * Creates a new empty Batch
+     *
+     * @param type the type of object updated
+     * @param update the callback updating the due objects
+     * @param index the index of the batch in the scheduler
+     */
+    @SuppressWarnings("unchecked")
+    private Batch(Class<T> type, BatchUpdate<? super T> update, int index) {
+      this.type = type;
+      this.update = update;
+      this.index = index;
+      this.objects = (T[]) Array.newInstance(type, 16);
+    }
+
+    /**
+     * Adds a due object to the batch
+     *
+     * @param object the due object
+     * @param elapsedTime the time elapsed since its last update
+     */
+    private void add(Object object, double elapsedTime) {
+      if (count == objects.length) {
+        objects = Arrays.copyOf(objects, count * 2);
+        elapsedTimes = Arrays.copyOf(elapsedTimes, count * 2);
+      }
+      objects[count] = type.cast(object);
+      elapsedTimes[count++] = elapsedTime;
+    }
+
+    /** Calls the callback if objects are due, then releases them */
+    private void dispatch() {
+      if (count == 0) {
+        return;
+      }
+      try {
+        update.update(objects, elapsedTimes, count);
+      } finally {
+        Arrays.fill(objects, 0, count, null);
+        count = 0;
+      }
+    }
+  }
+}
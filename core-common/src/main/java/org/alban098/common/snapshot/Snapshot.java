@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.common.snapshot;
+
+import java.util.Arrays;
+import org.alban098.common.Transform;
+import org.joml.Math;
+
+/**
+ * A compact copy of the simulated state of a set of objects at a given tick, published by the
+ * simulation thread and read by the rendering thread. Each object occupies a slot, holding its
+ * position, rotation and scale, followed by a fixed number of render attributes such as a color.
+ * Slots must be written in the same order at every tick for two snapshots to be interpolated
+ */
+public final class Snapshot {
+
+  /** The number of floats used to store the Transform of a slot */
+  public static final int TRANSFORM_STRIDE = 5;
+
+  /** The number of render attributes of each slot */
+  private final int attributeStride;
+  /** The Transforms of the slots, as x, y, rotation, scale x, scale y */
+  private float[] transforms;
+  /** The render attributes of the slots */
+  private float[] attributes;
+  /** The number of slots written */
+  private int count = 0;
+  /** The simulation tick the snapshot has been taken at */
+  private long tick = -1;
+  /** The time at which the snapshot has been published, in ns */
+  private long publishTimeNs = 0;
+
+  /**
+   * Creates a new empty Snapshot
+   *
+   * @param capacity the initial number of slots
+   * @param attributeStride the number of render attributes of each slot
+   */
+  public Snapshot(int capacity, int attributeStride) {
+    this.attributeStride = attributeStride;
+    this.transforms = new float[Math.max(1, capacity) * TRANSFORM_STRIDE];
+    this.attributes = new float[Math.max(1, capacity) * attributeStride];
+  }
+
+  /**
+   * Empties the Snapshot before writing a new tick into it
+   *
+   * @param tick the simulation tick the snapshot is taken at
+   */
+  public void clear(long tick) {
+    this.tick = tick;
+    this.count = 0;
+  }
+
+  /**
+   * Writes the current state of a Transform into the next slot
+   *
+   * @param transform the Transform to write
+   * @return the slot the Transform has been written to
+   */
+  public int add(Transform transform) {
+    if (count * TRANSFORM_STRIDE == transforms.length) {
+      transforms = Arrays.copyOf(transforms, transforms.length * 2);
+      attributes = Arrays.copyOf(attributes, Math.max(attributeStride, attributes.length * 2));
+    }
+    int base = count * TRANSFORM_STRIDE;
+    transforms[base] = transform.getDisplacement().x;
+    transforms[base + 1] = transform.getDisplacement().y;
+    transforms[base + 2] = transform.getRotation();
+    transforms[base + 3] = transform.getScale().x;
+    transforms[base + 4] = transform.getScale().y;
+    return count++;
+  }
+
+  /**
+   * Sets a render attribute of a slot
+   *
+   * @param slot the slot
+   * @param index the index of the attribute, lower than the attribute stride
+   * @param value the value of the attribute
+   */
+  public void setAttribute(int slot, int index, float value) {
+    attributes[slot * attributeStride + index] = value;
+  }
+
+  /**
+   * Returns a render attribute of a slot
+   *
+   * @param slot the slot
+   * @param index the index of the attribute, lower than the attribute stride
+   * @return the value of the attribute
+   */
+  public float getAttribute(int slot, int index) {
+    return attributes[slot * attributeStride + index];
+  }
+
+  /**
+   * Copies the content of another Snapshot into this one
+   *
+   * @param other the Snapshot to copy
+   */
+  public void copyFrom(Snapshot other) {
+    if (transforms.length < other.count * TRANSFORM_STRIDE) {
+      transforms = new float[other.transforms.length];
+      attributes = new float[other.attributes.length];
+    }
+    System.arraycopy(other.transforms, 0, transforms, 0, other.count * TRANSFORM_STRIDE);
+    System.arraycopy(other.attributes, 0, attributes, 0, other.count * attributeStride);
+    count = other.count;
+    tick = other.tick;
+    publishTimeNs = other.publishTimeNs;
+  }
+
+  /**
+   * Applies the state of a slot to a Transform, interpolated between two snapshots. Rotations are
+   * interpolated along the shortest arc. If the slot is missing from the previous snapshot, the
+   * current state is applied as is
+   *
+   * @param previous the older snapshot
+   * @param current the newer snapshot
+   * @param slot the slot to interpolate
+   * @param alpha the interpolation factor, 0 being the previous state and 1 the current one
+   * @param dest the Transform to apply the interpolated state to
+   */
+  public static void interpolate(
+      Snapshot previous, Snapshot current, int slot, float alpha, Transform dest) {
+    int base = slot * TRANSFORM_STRIDE;
+    float[] to = current.transforms;
+    if (slot >= previous.count) {
+      dest.setDisplacement(to[base], to[base + 1]);
+      dest.setRotation(to[base + 2]);
+      dest.setScale(to[base + 3], to[base + 4]);
+      dest.commit();
+      return;
+    }
+    float[] from = previous.transforms;
+    float rotationDelta = to[base + 2] - from[base + 2];
+    if (rotationDelta > Math.PI) {
+      rotationDelta -= 2 * Math.PI;
+    } else if (rotationDelta < -Math.PI) {
+      rotationDelta += 2 * Math.PI;
+    }
+    dest.setDisplacement(
+        Math.lerp(from[base], to[base], alpha), Math.lerp(from[base + 1], to[base + 1], alpha));
+    dest.setRotation(from[base + 2] + rotationDelta * alpha);
+    dest.setScale(
+        Math.lerp(from[base + 3], to[base + 3], alpha),
+        Math.lerp(from[base + 4], to[base + 4], alpha));
+    dest.commit();
+  }
+
+  /**
+   * Returns the number of slots written
+   *
+   * @return the number of slots written
+   */
+  public int size() {
+    return count;
+  }
+
+  /**
+   * Returns the number of render attributes of each slot
+   *
+   * @return the number of render attributes of each slot
+   */
+  public int getAttributeStride() {
+    return attributeStride;
+  }
+
+  /**
+   * Returns the simulation tick the snapshot has been taken at
+   *
+   * @return the simulation tick, -1 if nothing has been written yet
+   */
+  public long getTick() {
+    return tick;
+  }
+
+  /**
+   * Returns the time at which the snapshot has been published
+   *
+   * @return the time at which the snapshot has been published, in ns
+   */
+  public long getPublishTimeNs() {
+    return publishTimeNs;
+  }
+
+  /**
+   * Sets the time at which the snapshot has been published
+   *
+   * @param publishTimeNs the time at which the snapshot has been published, in ns
+   */
+  void setPublishTimeNs(long publishTimeNs) {
+    this.publishTimeNs = publishTimeNs;
+  }
+}
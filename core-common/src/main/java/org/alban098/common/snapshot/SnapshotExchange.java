@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.common.snapshot;
+
+import org.alban098.common.metrics.MetricSeries;
+
+/**
+ * The handoff of {@link Snapshot}s between a simulation thread and a rendering thread, through a
+ * lock-free {@link TripleBuffer}. The rendering side keeps a private copy of the previously
+ * acquired snapshot, so it can always interpolate between the last two ticks
+ */
+public final class SnapshotExchange {
+
+  /** The number of samples kept by the latency series */
+  private static final int LATENCY_SAMPLES = 128;
+
+  /** The triple buffer exchanging the snapshots */
+  private final TripleBuffer<Snapshot> buffer;
+  /** A copy of the snapshot acquired before the current one, owned by the rendering thread */
+  private final Snapshot previous;
+  /** The time between the publication of a snapshot and its acquisition, in ms */
+  private final MetricSeries latency = new MetricSeries("latency", LATENCY_SAMPLES);
+  /** The number of snapshots published */
+  private volatile long publishedCount = 0;
+  /** The number of snapshots acquired */
+  private long acquiredCount = 0;
+
+  /**
+   * Creates a new SnapshotExchange
+   *
+   * @param capacity the initial number of slots of the snapshots
+   * @param attributeStride the number of render attributes of each slot
+   */
+  public SnapshotExchange(int capacity, int attributeStride) {
+    this.buffer = new TripleBuffer<>(() -> new Snapshot(capacity, attributeStride));
+    this.previous = new Snapshot(capacity, attributeStride);
+  }
+
+  /**
+   * Returns the snapshot to write the next tick into, must only be called by the simulation thread
+   *
+   * @param tick the simulation tick the snapshot is taken at
+   * @return an empty snapshot to write into
+   */
+  public Snapshot beginWrite(long tick) {
+    Snapshot snapshot = buffer.getWriteBuffer();
+    snapshot.clear(tick);
+    return snapshot;
+  }
+
+  /** Publishes the snapshot being written, must only be called by the simulation thread */
+  public void publish() {
+    buffer.getWriteBuffer().setPublishTimeNs(System.nanoTime());
+    buffer.publish();
+    publishedCount++;
+  }
+
+  /**
+   * Acquires the latest published snapshot if there is one, keeping a copy of the current one as
+   * the previous snapshot, must only be called by the rendering thread
+   *
+   * @return true if a new snapshot has been acquired, false otherwise
+   */
+  public boolean poll() {
+    if (!buffer.isFresh()) {
+      return false;
+    }
+    previous.copyFrom(buffer.getReadBuffer());
+    buffer.acquire();
+    acquiredCount++;
+    latency.push((System.nanoTime() - getCurrent().getPublishTimeNs()) / 1_000_000.0);
+    return true;
+  }
+
+  /**
+   * Returns the last acquired snapshot
+   *
+   * @return the last acquired snapshot
+   */
+  public Snapshot getCurrent() {
+    return buffer.getReadBuffer();
+  }
+
+  /**
+   * Returns a copy of the snapshot acquired before the current one
+   *
+   * @return the snapshot acquired before the current one
+   */
+  public Snapshot getPrevious() {
+    return previous;
+  }
+
+  /**
+   * Returns the interpolation factor between the previous and the current snapshot, as the fraction
+   * of a tick elapsed since the current one has been published
+   *
+   * @param nowNs the current time, in ns
+   * @param tickIntervalNs the duration of a simulation tick, in ns
+   * @return the interpolation factor, between 0 and 1
+   */
+  public float getAlpha(long nowNs, long tickIntervalNs) {
+    float alpha = (float) (nowNs - getCurrent().getPublishTimeNs()) / tickIntervalNs;
+    return Math.max(0, Math.min(1, alpha));
+  }
+
+  /**
+   * Returns the time between the publication of each snapshot and its acquisition, in ms
+   *
+   * @return the time between the publication of each snapshot and its acquisition
+   */
+  public MetricSeries getLatency() {
+    return latency;
+  }
+
+  /**
+   * Returns the number of snapshots published
+   *
+   * @return the number of snapshots published
+   */
+  public long getPublishedCount() {
+    return publishedCount;
+  }
+
+  /**
+   * Returns the number of snapshots acquired by the rendering thread
+   *
+   * @return the number of snapshots acquired
+   */
+  public long getAcquiredCount() {
+    return acquiredCount;
+  }
+
+  /**
+   * Returns the number of snapshots published but replaced before being acquired
+   *
+   * @return the number of snapshots skipped by the rendering thread
+   */
+  public long getSkippedCount() {
+    return publishedCount - acquiredCount;
+  }
+}
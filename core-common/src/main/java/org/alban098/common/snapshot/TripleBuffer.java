@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.common.snapshot;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * A lock-free single producer, single consumer triple buffer. The producer always owns a buffer to
+ * write into and the consumer always owns the last buffer it has acquired, the third one being
+ * exchanged atomically between them. Publishing never waits for the consumer and acquiring always
+ * returns the latest published buffer, skipping older ones the consumer was too slow to read
+ *
+ * @param <T> the type of buffer exchanged
+ */
+public final class TripleBuffer<T> {
+
+  /** The bit of the shared index set when it holds a buffer not acquired yet */
+  private static final int FRESH = 0b100;
+  /** The bits of the shared index holding the index of the buffer */
+  private static final int INDEX_MASK = 0b011;
+
+  /** The three buffers */
+  private final T[] buffers;
+  /** The index of the shared buffer, and whether it is fresh */
+  private final AtomicInteger shared = new AtomicInteger(1);
+  /** The index of the buffer owned by the producer */
+  private int writeIndex = 0;
+  /** The index of the buffer owned by the consumer */
+  private int readIndex = 2;
+
+  /**
+   * Creates a new TripleBuffer
+   *
+   * @param factory the factory used to create the three buffers
+   */
+  @SuppressWarnings("unchecked")
+  public TripleBuffer(Supplier<T> factory) {
+    this.buffers = (T[]) new Object[] {factory.get(), factory.get(), factory.get()};
+  }
+
+  /**
+   * Returns the buffer owned by the producer, must only be called by the producer
+   *
+   * @return the buffer to write into
+   */
+  public T getWriteBuffer() {
+    return buffers[writeIndex];
+  }
+
+  /**
+   * Publishes the buffer owned by the producer, which then receives the previously shared buffer to
+   * write into, must only be called by the producer
+   */
+  public void publish() {
+    writeIndex = shared.getAndSet(writeIndex | FRESH) & INDEX_MASK;
+  }
+
+  /**
+   * Returns whether a buffer has been published since the last acquisition
+   *
+   * @return true if a buffer is waiting to be acquired, false otherwise
+   */
+  public boolean isFresh() {
+    return (shared.get() & FRESH) != 0;
+  }
+
+  /**
+   * Acquires the latest published buffer if there is one, must only be called by the consumer
+   *
+   * @return true if a new buffer has been acquired, false if the read buffer did not change
+   */
+  public boolean acquire() {
+    if (!isFresh()) {
+      return false;
+    }
+    readIndex = shared.getAndSet(readIndex) & INDEX_MASK;
+    return true;
+  }
+
+  /**
+   * Returns the buffer owned by the consumer, must only be called by the consumer
+   *
+   * @return the last acquired buffer
+   */
+  public T getReadBuffer() {
+    return buffers[readIndex];
+  }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class FramePacerTest {
+
+  /** The time a fake spin-wait iteration takes, bounding how late a deadline may be met */
+  private static final long SPIN_NS = 1_000;
+  /** The period of a frame at 60 fps */
+  private static final long PERIOD_NS = 1_000_000_000L / 60;
+
+  private FakeClock clock;
+  private FramePacer pacer;
+
+  @Before
+  public void setUp() {
+    clock = new FakeClock();
+    pacer = new FramePacer(clock);
+    pacer.setTargetFps(60);
+  }
+
+  private void runFrame(long workNs) {
+    pacer.waitForFrameStart();
+    pacer.beginFrame();
+    clock.advance(workNs);
+    pacer.endFrame();
+  }
+
+  @Test
+  public void meetsDeadlines() {
+    long start = clock.nanoTime();
+    for (int frame = 1; frame <= 300; frame++) {
+      runFrame(2_000_000 + (frame % 7) * 1_000_000);
+      long deadline = start + frame * PERIOD_NS;
+      assertTrue("frame " + frame + " ended early", clock.nanoTime() >= deadline);
+      assertTrue("frame " + frame + " ended late", clock.nanoTime() < deadline + SPIN_NS);
+    }
+    assertEquals(0, pacer.getMissedDeadlines());
+    assertTrue(pacer.getJitter().getMax() < SPIN_NS / 1e6);
+    // The pacer sleeps through most of the wait instead of spinning
+    assertTrue(clock.sleepCount > 0);
+    assertTrue(clock.spinCount < 300 * (pacer.getSleepEstimateNs() / SPIN_NS + 1));
+  }
+
+  @Test
+  public void missedDeadlineResetsSchedule() {
+    runFrame(1_000_000);
+    long end = clock.nanoTime();
+
+    runFrame(3 * PERIOD_NS);
+    long lateEnd = clock.nanoTime();
+    assertEquals(1, pacer.getMissedDeadlines());
+    // The late frame is presented as soon as it is computed
+    assertEquals(end + 3 * PERIOD_NS, lateEnd);
+
+    // The next frames are paced from the late one, none of them is rushed to catch up
+    for (int frame = 1; frame <= 10; frame++) {
+      runFrame(1_000_000);
+      long deadline = lateEnd + frame * PERIOD_NS;
+      assertTrue(clock.nanoTime() >= deadline);
+      assertTrue(clock.nanoTime() < deadline + SPIN_NS);
+    }
+    assertEquals(1, pacer.getMissedDeadlines());
+  }
+
+  @Test
+  public void uncappedPacerNeverWaits() {
+    pacer.setTargetFps(0);
+    pacer.setLowLatency(true);
+    long start = clock.nanoTime();
+    for (int frame = 0; frame < 10; frame++) {
+      runFrame(1_000_000);
+    }
+    assertEquals(start + 10 * 1_000_000, clock.nanoTime());
+    assertEquals(0, clock.sleepCount);
+    assertEquals(0, clock.spinCount);
+  }
+
+  @Test
+  public void lowLatencyDelaysFrameStartByPredictedWork() {
+    pacer.setLowLatency(true);
+    for (int frame = 0; frame < 100; frame++) {
+      runFrame(3_000_000 + (frame % 10) * 200_000);
+    }
+    assertEquals(0, pacer.getMissedDeadlines());
+    long frameEnd = clock.nanoTime();
+    long predictedWork =
+        (long) (pacer.getWorkTimes().getPercentile(FramePacer.WORK_PREDICTION_PERCENTILE) * 1e6);
+    long expectedStart = frameEnd + PERIOD_NS - predictedWork - FramePacer.LOW_LATENCY_MARGIN_NS;
+
+    pacer.waitForFrameStart();
+    assertTrue(predictedWork >= 4_600_000 && predictedWork <= 4_800_000);
+    assertTrue(clock.nanoTime() >= expectedStart);
+    assertTrue(clock.nanoTime() < expectedStart + SPIN_NS);
+
+    // The frame still meets its deadline
+    pacer.beginFrame();
+    clock.advance(predictedWork);
+    pacer.endFrame();
+    assertEquals(0, pacer.getMissedDeadlines());
+    assertTrue(clock.nanoTime() < frameEnd + PERIOD_NS + SPIN_NS);
+  }
+
+  @Test
+  public void lowLatencyDoesNotDelayUnmeasuredFrame() {
+    pacer.setLowLatency(true);
+    long start = clock.nanoTime();
+    pacer.waitForFrameStart();
+    assertEquals(start, clock.nanoTime());
+    pacer.beginFrame();
+    clock.advance(10_000_000);
+    pacer.endFrame();
+    assertEquals(0, pacer.getMissedDeadlines());
+  }
+
+  @Test
+  public void lowLatencyIsIgnoredWhenUncapped() {
+    pacer.setTargetFps(0);
+    pacer.setLowLatency(true);
+    long start = clock.nanoTime();
+    pacer.waitForFrameStart();
+    assertEquals(start, clock.nanoTime());
+  }
+
+  @Test
+  public void calibrationFollowsObservedSleeps() {
+    clock.oversleepNs = 300_000;
+    for (int frame = 0; frame < 200; frame++) {
+      runFrame(1_000_000);
+    }
+    long observed = FramePacer.SLEEP_QUANTUM_NS + clock.oversleepNs;
+    assertTrue(pacer.getSleepEstimateNs() >= observed);
+    assertTrue(pacer.getSleepEstimateNs() < observed + 200_000);
+    assertEquals(0, pacer.getMissedDeadlines());
+  }
+
+  @Test
+  public void calibrationStaysBelowMaximum() {
+    // A clock whose sleeps overshoot wildly would otherwise make the pacer spin whole frames
+    clock.oversleepNs = 40_000_000;
+    for (int frame = 0; frame < 50; frame++) {
+      runFrame(1_000_000);
+      assertTrue(pacer.getSleepEstimateNs() <= FramePacer.MAX_SLEEP_ESTIMATE_NS);
+    }
+    assertEquals(FramePacer.MAX_SLEEP_ESTIMATE_NS, pacer.getSleepEstimateNs());
+  }
+
+  /** A clock only advancing when slept on, spun on or advanced explicitly */
+  private static final class FakeClock implements Clock {
+
+    private long now = 1_000_000_000L;
+    private long oversleepNs = 0;
+    private int sleepCount = 0;
+    private long spinCount = 0;
+
+    @Override
+    public long nanoTime() {
+      return now;
+    }
+
+    @Override
+    public void sleep(long nanos) {
+      sleepCount++;
+      now += nanos + oversleepNs;
+    }
+
+    @Override
+    public void spin() {
+      spinCount++;
+      now += SPIN_NS;
+    }
+
+    private void advance(long nanos) {
+      now += nanos;
+    }
+  }
+}
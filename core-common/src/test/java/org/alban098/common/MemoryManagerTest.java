@@ -0,0 +1,241 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import org.junit.Test;
+
+/**
+ * The MemoryManager is global, so every test uses Cleanable types of its own and compares the
+ * statistics of shared types before and after
+ */
+public class MemoryManagerTest {
+
+  private static final long TIMEOUT_MS = 10_000;
+
+  private static MemoryStatistics statistics(Class<?> type) {
+    for (MemoryStatistics statistics : MemoryManager.getStatistics()) {
+      if (statistics.getType() == type) {
+        return statistics;
+      }
+    }
+    return null;
+  }
+
+  /** Collects garbage until a condition holds, the Cleaner running on its own thread */
+  private static boolean collectUntil(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+    while (!condition.getAsBoolean()) {
+      if (System.currentTimeMillis() > deadline) {
+        return false;
+      }
+      System.gc();
+      Thread.sleep(10);
+    }
+    return true;
+  }
+
+  @Test
+  public void accountsMemoryPerType() {
+    long offHeap = MemoryManager.getOffHeapBytes();
+    long vram = MemoryManager.getVramBytes();
+    int live = MemoryManager.getLiveCount();
+    Kept first = new Kept();
+    Kept second = new Kept();
+    MemoryManager.account(first, 100, 1_000);
+    MemoryManager.account(second, 50, 0);
+    // Accounting again replaces the previous values
+    MemoryManager.account(second, 20, 10);
+
+    MemoryStatistics statistics = statistics(Kept.class);
+    assertEquals(2, statistics.getLiveCount());
+    assertEquals(2, statistics.getRegisteredCount());
+    assertEquals(120, statistics.getOffHeapBytes());
+    assertEquals(1_010, statistics.getVramBytes());
+    assertEquals(offHeap + 120, MemoryManager.getOffHeapBytes());
+    assertEquals(vram + 1_010, MemoryManager.getVramBytes());
+    assertEquals(live + 2, MemoryManager.getLiveCount());
+
+    MemoryManager.free(first);
+
+    statistics = statistics(Kept.class);
+    assertEquals(1, first.cleanUps);
+    assertEquals(1, statistics.getLiveCount());
+    assertEquals(1, statistics.getFreedCount());
+    assertEquals(0, statistics.getReclaimedCount());
+    assertEquals(20, statistics.getOffHeapBytes());
+    assertEquals(offHeap + 20, MemoryManager.getOffHeapBytes());
+    assertEquals(vram + 10, MemoryManager.getVramBytes());
+    MemoryManager.free(second);
+    assertEquals(0, statistics(Kept.class).getLiveCount());
+  }
+
+  @Test
+  public void registersEachCleanableOnce() {
+    Equal first = new Equal();
+    Equal second = new Equal();
+    // Equal Cleanables are still tracked individually
+    first.initialize();
+
+    assertEquals(2, statistics(Equal.class).getRegisteredCount());
+    MemoryManager.free(first);
+    MemoryManager.free(second);
+    assertEquals(2, statistics(Equal.class).getFreedCount());
+  }
+
+  @Test
+  public void reclaimsUnreachableCleanables() throws InterruptedException {
+    MemoryStatistics before = statistics(Reclaimable.class);
+    long reclaimedBefore = before == null ? 0 : before.getReclaimedCount();
+    long freedBefore = before == null ? 0 : before.getFreedCount();
+    AtomicInteger reclaimed = new AtomicInteger();
+    for (int i = 0; i < 1_000; i++) {
+      MemoryManager.account(new Reclaimable(reclaimed), 64, 0);
+    }
+    assertEquals(1_000 * 64, statistics(Reclaimable.class).getOffHeapBytes());
+
+    assertTrue(collectUntil(() -> reclaimed.get() == 1_000));
+    MemoryStatistics statistics = statistics(Reclaimable.class);
+    assertEquals(0, statistics.getLiveCount());
+    assertEquals(1_000, statistics.getReclaimedCount() - reclaimedBefore);
+    assertEquals(freedBefore, statistics.getFreedCount());
+    assertEquals(0, statistics.getOffHeapBytes());
+  }
+
+  @Test
+  public void freedCleanablesAreNotReclaimedAgain() throws InterruptedException {
+    AtomicInteger reclaimed = new AtomicInteger();
+    Reclaimable reclaimable = new Reclaimable(reclaimed);
+    MemoryManager.free(reclaimable);
+    assertEquals(1, reclaimed.get());
+    reclaimable = null;
+    new Reclaimable(reclaimed);
+
+    // Only the second one is reclaimed once both are unreachable
+    assertTrue(collectUntil(() -> reclaimed.get() > 1));
+    Thread.sleep(50);
+    System.gc();
+    Thread.sleep(50);
+    assertEquals(2, reclaimed.get());
+  }
+
+  @Test
+  public void reclaimsOnTheOwnerThread() throws InterruptedException {
+    AtomicInteger reclaimed = new AtomicInteger();
+    Thread owner = Thread.currentThread();
+    Thread[] reclaimThread = new Thread[1];
+    for (int i = 0; i < 100; i++) {
+      new OwnerThreadReclaimable(
+          () -> {
+            reclaimThread[0] = Thread.currentThread();
+            reclaimed.incrementAndGet();
+          });
+    }
+
+    // Released by the Cleaner, but the resources wait for the owner thread
+    assertTrue(collectUntil(() -> statistics(OwnerThreadReclaimable.class).getLiveCount() == 0));
+    assertEquals(0, reclaimed.get());
+    assertTrue(MemoryManager.processReclaims() >= 100);
+    assertEquals(100, reclaimed.get());
+    assertEquals(owner, reclaimThread[0]);
+  }
+
+  @Test
+  public void reclaimsDroppedTransforms() throws InterruptedException {
+    MemoryStatistics before = statistics(Transform.class);
+    long reclaimedBefore = before == null ? 0 : before.getReclaimedCount();
+    long offHeap = MemoryManager.getOffHeapBytes();
+    for (int i = 0; i < 10_000; i++) {
+      new Transform();
+    }
+    assertTrue(MemoryManager.getOffHeapBytes() > offHeap);
+
+    assertTrue(
+        collectUntil(
+            () -> statistics(Transform.class).getReclaimedCount() - reclaimedBefore >= 10_000));
+    assertTrue(MemoryManager.getOffHeapBytes() <= offHeap);
+  }
+
+  private static final class Kept implements Cleanable {
+    private int cleanUps = 0;
+
+    private Kept() {
+      initialize();
+    }
+
+    @Override
+    public void cleanUp() {
+      cleanUps++;
+    }
+  }
+
+  private static final class Equal implements Cleanable {
+    private Equal() {
+      initialize();
+    }
+
+    @Override
+    public void cleanUp() {}
+
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof Equal;
+    }
+
+    @Override
+    public int hashCode() {
+      return 0;
+    }
+  }
+
+  private static final class Reclaimable implements Cleanable {
+    private final AtomicInteger reclaimed;
+
+    private Reclaimable(AtomicInteger reclaimed) {
+      this.reclaimed = reclaimed;
+      initialize();
+    }
+
+    @Override
+    public void cleanUp() {
+      reclaimed.incrementAndGet();
+    }
+
+    @Override
+    public Runnable getReclaimAction() {
+      AtomicInteger counter = reclaimed;
+      return counter::incrementAndGet;
+    }
+  }
+
+  private static final class OwnerThreadReclaimable implements Cleanable {
+    private final Runnable reclaimAction;
+
+    private OwnerThreadReclaimable(Runnable reclaimAction) {
+      this.reclaimAction = reclaimAction;
+      initialize();
+    }
+
+    @Override
+    public void cleanUp() {
+      reclaimAction.run();
+    }
+
+    @Override
+    public Runnable getReclaimAction() {
+      return reclaimAction;
+    }
+
+    @Override
+    public boolean isReclaimedOnOwnerThread() {
+      return true;
+    }
+  }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import org.joml.Matrix4f;
+import org.joml.Vector2f;
+import org.joml.Vector3f;
+import org.junit.Test;
+
+public class TransformHierarchyTest {
+
+  private static Vector3f worldPosition(Transform transform) {
+    return transform.getMatrix().transformPosition(new Vector3f());
+  }
+
+  private static void assertPosition(float x, float y, Transform transform) {
+    Vector3f position = worldPosition(transform);
+    assertEquals(x, position.x, 1e-4f);
+    assertEquals(y, position.y, 1e-4f);
+  }
+
+  private static Transform at(float x, float y) {
+    return new Transform(new Vector2f(x, y), 1, 0);
+  }
+
+  @Test
+  public void propagatesParentTransformsToDescendants() {
+    TransformHierarchy hierarchy = new TransformHierarchy();
+    Transform root = at(10, 0);
+    Transform child = at(1, 0);
+    Transform grandChild = at(0, 2);
+    hierarchy.add(root);
+    hierarchy.setParent(child, root);
+    hierarchy.setParent(grandChild, child);
+
+    assertEquals(3, hierarchy.size());
+    assertSame(root, hierarchy.getParent(child));
+    assertNull(hierarchy.getParent(root));
+    assertPosition(11, 2, grandChild);
+
+    root.rotate((float) Math.PI / 2);
+    root.commit();
+    assertTrue(hierarchy.isDirty());
+    hierarchy.update();
+    assertFalse(hierarchy.isDirty());
+    assertPosition(10, 1, child);
+    assertPosition(8, 1, grandChild);
+
+    // The local matrix stays relative to the parent
+    assertEquals(1, child.getLocalMatrix().transformPosition(new Vector3f()).x, 1e-4f);
+  }
+
+  @Test
+  public void onlyRecomputesDirtySubtrees() {
+    TransformHierarchy hierarchy = new TransformHierarchy();
+    Transform left = at(0, 0);
+    Transform leftChild = at(1, 0);
+    Transform right = at(5, 0);
+    Transform rightChild = at(1, 0);
+    hierarchy.add(left);
+    hierarchy.setParent(leftChild, left);
+    hierarchy.add(right);
+    hierarchy.setParent(rightChild, right);
+    hierarchy.update();
+    Matrix4f leftWorld = new Matrix4f(leftChild.getWorldMatrix());
+
+    right.move(1, 0);
+    right.commit();
+    hierarchy.update();
+
+    assertEquals(leftWorld, leftChild.getWorldMatrix());
+    assertPosition(7, 0, rightChild);
+  }
+
+  @Test
+  public void storesParentsBeforeTheirContiguousSubtrees() {
+    TransformHierarchy hierarchy = new TransformHierarchy();
+    Transform[] transforms = new Transform[8];
+    for (int i = 0; i < transforms.length; i++) {
+      transforms[i] = at(i, 0);
+      hierarchy.add(transforms[i]);
+    }
+    // Parents added after their children are moved in front of them
+    hierarchy.setParent(transforms[1], transforms[7]);
+    hierarchy.setParent(transforms[2], transforms[1]);
+    hierarchy.setParent(transforms[3], transforms[7]);
+    hierarchy.setParent(transforms[4], transforms[2]);
+
+    int root = transforms[7].getNode();
+    for (int i = 1; i <= 4; i++) {
+      Transform parent = hierarchy.getParent(transforms[i]);
+      assertTrue(parent.getNode() < transforms[i].getNode());
+      assertTrue(transforms[i].getNode() > root && transforms[i].getNode() <= root + 4);
+    }
+    assertTrue(transforms[4].getNode() <= transforms[1].getNode() + 2);
+  }
+
+  @Test
+  public void reparentsWholeSubtrees() {
+    TransformHierarchy hierarchy = new TransformHierarchy();
+    Transform first = at(10, 0);
+    Transform second = at(0, 10);
+    Transform child = at(1, 0);
+    Transform grandChild = at(1, 0);
+    hierarchy.add(first);
+    hierarchy.add(second);
+    hierarchy.setParent(child, first);
+    hierarchy.setParent(grandChild, child);
+    assertPosition(12, 0, grandChild);
+
+    hierarchy.setParent(child, second);
+
+    assertSame(second, hierarchy.getParent(child));
+    assertSame(child, hierarchy.getParent(grandChild));
+    assertPosition(2, 10, grandChild);
+    hierarchy.setParent(child, null);
+    assertPosition(2, 0, grandChild);
+  }
+
+  @Test
+  public void rejectsCycles() {
+    TransformHierarchy hierarchy = new TransformHierarchy();
+    Transform root = at(0, 0);
+    Transform child = at(0, 0);
+    Transform grandChild = at(0, 0);
+    hierarchy.add(root);
+    hierarchy.setParent(child, root);
+    hierarchy.setParent(grandChild, child);
+
+    assertThrows(IllegalArgumentException.class, () -> hierarchy.setParent(root, grandChild));
+    assertThrows(IllegalArgumentException.class, () -> hierarchy.setParent(child, child));
+    assertThrows(IllegalArgumentException.class, () -> hierarchy.setParent(root, at(0, 0)));
+    assertSame(child, hierarchy.getParent(grandChild));
+    assertEquals(3, hierarchy.size());
+  }
+
+  @Test
+  public void removesSubtreesAndMovesThemBetweenHierarchies() {
+    TransformHierarchy hierarchy = new TransformHierarchy();
+    Transform root = at(10, 0);
+    Transform child = at(1, 0);
+    Transform grandChild = at(1, 0);
+    Transform other = at(0, 0);
+    hierarchy.add(root);
+    hierarchy.setParent(child, root);
+    hierarchy.setParent(grandChild, child);
+    hierarchy.add(other);
+
+    hierarchy.remove(child);
+
+    assertEquals(2, hierarchy.size());
+    assertNull(child.getHierarchy());
+    assertNull(grandChild.getHierarchy());
+    assertPosition(1, 0, child);
+    // Standalone Transforms only reflect their own state
+    assertPosition(1, 0, grandChild);
+    assertThrows(IllegalArgumentException.class, () -> hierarchy.remove(child));
+
+    TransformHierarchy target = new TransformHierarchy();
+    target.add(root);
+    assertEquals(1, hierarchy.size());
+    assertSame(target, root.getHierarchy());
+    assertNull(hierarchy.getParent(root));
+  }
+
+  @Test
+  public void matchesRecursiveComputation() {
+    Random random = new Random(3);
+    TransformHierarchy hierarchy = new TransformHierarchy();
+    Transform[] transforms = new Transform[300];
+    int[] parents = new int[transforms.length];
+    for (int i = 0; i < transforms.length; i++) {
+      transforms[i] =
+          new Transform(
+              new Vector2f(random.nextFloat(), random.nextFloat()), 1, random.nextFloat());
+      parents[i] = i == 0 ? -1 : random.nextInt(i + 1) - 1;
+      if (parents[i] < 0) {
+        hierarchy.add(transforms[i]);
+      } else {
+        hierarchy.setParent(transforms[i], transforms[parents[i]]);
+      }
+    }
+    for (int round = 0; round < 50; round++) {
+      // Few dirty nodes are sorted, many are scanned
+      int changes = round % 2 == 0 ? 3 : 100;
+      for (int i = 0; i < changes; i++) {
+        Transform transform = transforms[random.nextInt(transforms.length)];
+        transform.move(random.nextFloat() - 0.5f, random.nextFloat() - 0.5f);
+        transform.rotate(random.nextFloat() - 0.5f);
+        transform.commit();
+      }
+      hierarchy.update();
+      for (int i = 0; i < transforms.length; i++) {
+        Matrix4f expected = new Matrix4f();
+        for (int node = i; node >= 0; node = parents[node]) {
+          expected.mulLocal(transforms[node].getLocalMatrix());
+        }
+        assertTrue(expected.equals(transforms[i].getWorldMatrix(), 1e-3f));
+      }
+    }
+  }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.common.ecs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.Test;
+
+public class WorldTest {
+
+  @Test
+  public void groupsEntitiesByComponentSet() {
+    World world = new World();
+    Position position = new Position(1);
+    int moving = world.create(position, new Velocity(2));
+    int still = world.create(new Position(3));
+    int tagged = world.create(new Position(4), new Velocity(5), new Tag());
+
+    assertEquals(3, world.getEntityCount());
+    assertSame(position, world.get(moving, Position.class));
+    assertNull(world.get(still, Velocity.class));
+    assertTrue(world.has(tagged, Tag.class));
+    assertFalse(world.has(moving, Tag.class));
+    // Plus the Archetype of entities without component
+    assertEquals(4, world.getArchetypes().size());
+    assertThrows(
+        IllegalArgumentException.class, () -> world.create(new Position(0), new Position(1)));
+  }
+
+  @Test
+  public void queriesMatchRequiredAndExcludedComponents() {
+    World world = new World();
+    Query moving = world.query(Position.class, Velocity.class);
+    int a = world.create(new Position(0), new Velocity(1));
+    int b = world.create(new Position(0), new Velocity(1), new Tag());
+    world.create(new Position(0));
+    // Archetypes created after the query are offered to it
+    int c = world.create();
+    world.add(c, new Velocity(1));
+    world.add(c, new Position(0));
+
+    assertSame(moving, world.query(Position.class, Velocity.class));
+    assertEquals(3, moving.count());
+    assertEquals(Set.of(a, b, c), entities(moving));
+    Query untagged =
+        world.query(new Class<?>[] {Position.class, Velocity.class}, new Class<?>[] {Tag.class});
+    assertEquals(Set.of(a, c), entities(untagged));
+  }
+
+  @Test
+  public void iteratesComponentsInDenseChunks() {
+    World world = new World(4);
+    for (int i = 0; i < 10; i++) {
+      world.create(new Position(i), new Velocity(1));
+    }
+    Query query = world.query(Position.class, Velocity.class);
+    int[] chunks = {0};
+    query.forEachChunk(
+        chunk -> {
+          Position[] positions = chunk.getColumn(world.getType(Position.class));
+          Velocity[] velocities = chunk.getColumn(world.getType(Velocity.class));
+          for (int row = 0; row < chunk.size(); row++) {
+            positions[row].x += velocities[row].x;
+          }
+          chunks[0]++;
+        });
+
+    assertEquals(3, chunks[0]);
+    float sum = 0;
+    for (int entity : entities(query)) {
+      sum += world.get(entity, Position.class).x;
+    }
+    assertEquals(55, sum, 0);
+  }
+
+  @Test
+  public void destroyFillsTheHoleWithTheLastEntity() {
+    World world = new World(4);
+    int[] entities = new int[10];
+    for (int i = 0; i < entities.length; i++) {
+      entities[i] = world.create(new Position(i));
+    }
+    world.destroy(entities[2]);
+    world.destroy(entities[5]);
+
+    assertFalse(world.isAlive(entities[2]));
+    assertEquals(8, world.getEntityCount());
+    assertEquals(8, world.query(Position.class).count());
+    for (int i = 0; i < entities.length; i++) {
+      if (i != 2 && i != 5) {
+        assertEquals(i, world.get(entities[i], Position.class).x, 0);
+      }
+    }
+    // The emptied last chunk is trimmed
+    assertEquals(2, world.query(Position.class).getArchetypes().get(0).getChunkCount());
+  }
+
+  @Test
+  public void addAndRemoveMoveEntitiesBetweenArchetypes() {
+    World world = new World();
+    Position position = new Position(1);
+    int entity = world.create(position);
+    int other = world.create(new Position(2));
+    world.add(entity, new Velocity(3));
+
+    assertSame(position, world.get(entity, Position.class));
+    assertEquals(3, world.get(entity, Velocity.class).x, 0);
+    assertEquals(2, world.get(other, Position.class).x, 0);
+
+    Velocity replacement = new Velocity(4);
+    world.add(entity, replacement);
+    assertSame(replacement, world.get(entity, Velocity.class));
+
+    assertSame(replacement, world.remove(entity, Velocity.class));
+    assertNull(world.remove(entity, Velocity.class));
+    assertNull(world.remove(entity, Tag.class));
+    assertSame(position, world.get(entity, Position.class));
+    assertEquals(2, world.query(Position.class).count());
+    assertEquals(0, world.query(Velocity.class).count());
+  }
+
+  @Test
+  public void staleHandlesAreRejected() {
+    World world = new World();
+    int entity = world.create(new Position(0));
+    world.destroy(entity);
+    int reused = world.create(new Position(1));
+
+    assertFalse(world.isAlive(entity));
+    assertTrue(world.isAlive(reused));
+    assertFalse(entity == reused);
+    assertFalse(world.isAlive(-1));
+    assertThrows(IllegalArgumentException.class, () -> world.get(entity, Position.class));
+    assertThrows(IllegalArgumentException.class, () -> world.destroy(entity));
+    assertEquals(1, world.get(reused, Position.class).x, 0);
+  }
+
+  @Test
+  public void structuralChangesAreDeferredWhileIterating() {
+    World world = new World();
+    for (int i = 0; i < 5; i++) {
+      world.create(new Position(i));
+    }
+    Query query = world.query(Position.class);
+    CommandBuffer commands = world.createCommandBuffer();
+    query.forEachEntity(
+        entity -> {
+          assertThrows(IllegalStateException.class, () -> world.add(entity, new Tag()));
+          // Replacing a component is not a structural change
+          world.add(entity, new Position(world.get(entity, Position.class).x * 2));
+          if (world.get(entity, Position.class).x >= 4) {
+            commands.destroy(entity);
+          } else {
+            commands.add(entity, new Tag());
+          }
+        });
+    int created = commands.create();
+    commands.add(created, new Position(100));
+    commands.add(created, new Tag());
+    assertEquals(8, commands.size());
+
+    commands.playback();
+
+    assertEquals(0, commands.size());
+    assertEquals(3, world.getEntityCount());
+    assertEquals(3, world.query(Position.class, Tag.class).count());
+    float sum = 0;
+    for (int entity : entities(world.query(Tag.class))) {
+      sum += world.get(entity, Position.class).x;
+    }
+    assertEquals(0 + 2 + 100, sum, 0);
+    // The iteration guard is released even if the action throws
+    assertThrows(
+        IllegalStateException.class,
+        () ->
+            query.forEachEntity(
+                entity -> {
+                  throw new IllegalStateException();
+                }));
+    world.create();
+  }
+
+  private static Set<Integer> entities(Query query) {
+    Set<Integer> entities = new HashSet<>();
+    query.forEachEntity(entities::add);
+    return entities;
+  }
+
+  private static final class Position {
+    private float x;
+
+    private Position(float x) {
+      this.x = x;
+    }
+  }
+
+  private static final class Velocity {
+    private final float x;
+
+    private Velocity(float x) {
+      this.x = x;
+    }
+  }
+
+  private static final class Tag {}
+}
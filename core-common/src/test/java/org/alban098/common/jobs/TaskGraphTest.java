@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.common.jobs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.alban098.common.metrics.AllocationProbe;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TaskGraphTest {
+
+  private JobSystem jobSystem;
+
+  @Before
+  public void setUp() {
+    jobSystem = new JobSystem(3);
+  }
+
+  @After
+  public void tearDown() {
+    jobSystem.cleanUp();
+  }
+
+  @Test
+  public void runsTasksAfterTheirDependencies() {
+    TaskGraph graph = new TaskGraph("order");
+    AtomicInteger clock = new AtomicInteger();
+    int[] order = new int[5];
+    int a = graph.add("a", () -> order[0] = clock.incrementAndGet());
+    int b = graph.add("b", () -> order[1] = clock.incrementAndGet());
+    int c = graph.addOnMainThread("c", () -> order[2] = clock.incrementAndGet());
+    int d = graph.add("d", () -> order[3] = clock.incrementAndGet());
+    int e = graph.addOnMainThread("e", () -> order[4] = clock.incrementAndGet());
+    graph.dependsOn(b, a);
+    graph.dependsOn(c, a);
+    graph.dependsOn(d, b, c);
+    graph.dependsOn(e, d);
+
+    for (int run = 0; run < 200; run++) {
+      clock.set(0);
+      jobSystem.execute(graph);
+      assertEquals(1, order[a]);
+      assertTrue(order[b] > order[a] && order[c] > order[a]);
+      assertTrue(order[d] > order[b] && order[d] > order[c]);
+      assertEquals(5, order[e]);
+    }
+  }
+
+  @Test
+  public void runsMainLaneTasksOnCallingThread() {
+    TaskGraph graph = new TaskGraph("lanes");
+    Thread caller = Thread.currentThread();
+    Thread[] threads = new Thread[2];
+    int worker = graph.add("worker", () -> threads[0] = Thread.currentThread());
+    int main = graph.addOnMainThread("main", () -> threads[1] = Thread.currentThread());
+    graph.dependsOn(main, worker);
+
+    jobSystem.execute(graph);
+    assertNotEquals(caller, threads[0]);
+    assertSame(caller, threads[1]);
+    assertTrue(graph.isOnMainThread(main));
+    assertEquals(caller.getName(), graph.getLastLane(main));
+  }
+
+  @Test
+  public void skipsOnlySuccessorsOfFailedTask() {
+    TaskGraph graph = new TaskGraph("failure");
+    RuntimeException error = new RuntimeException("boom");
+    AtomicInteger ran = new AtomicInteger();
+    boolean[] done = new boolean[6];
+    int failing =
+        graph.add(
+            "failing",
+            () -> {
+              throw error;
+            });
+    int direct = graph.add("direct", () -> done[1] = true);
+    int transitive = graph.addOnMainThread("transitive", () -> done[2] = true);
+    int independent = graph.add("independent", () -> done[3] = true);
+    int independentMain = graph.addOnMainThread("independent main", () -> done[4] = true);
+    int joined = graph.add("joined", () -> done[5] = true);
+    graph.dependsOn(direct, failing);
+    graph.dependsOn(transitive, direct);
+    graph.dependsOn(independentMain, independent);
+    graph.dependsOn(joined, independent, transitive);
+
+    for (int run = 0; run < 50; run++) {
+      java.util.Arrays.fill(done, false);
+      try {
+        jobSystem.execute(graph);
+        fail("The failure must be thrown");
+      } catch (IllegalStateException e) {
+        assertSame(error, e.getCause());
+        ran.incrementAndGet();
+      }
+      assertTrue(!done[direct] && !done[transitive] && !done[joined]);
+      assertTrue(done[independent] && done[independentMain]);
+    }
+    assertEquals(50, ran.get());
+  }
+
+  @Test
+  public void recoversAfterFailure() {
+    TaskGraph graph = new TaskGraph("recovery");
+    boolean[] shouldFail = {true};
+    AtomicInteger successorRuns = new AtomicInteger();
+    int first =
+        graph.add(
+            "first",
+            () -> {
+              if (shouldFail[0]) {
+                throw new IllegalArgumentException();
+              }
+            });
+    int second = graph.add("second", successorRuns::incrementAndGet);
+    graph.dependsOn(second, first);
+
+    try {
+      jobSystem.execute(graph);
+      fail("The failure must be thrown");
+    } catch (IllegalStateException e) {
+      assertTrue(e.getCause() instanceof IllegalArgumentException);
+    }
+    assertEquals(0, successorRuns.get());
+    shouldFail[0] = false;
+    jobSystem.execute(graph);
+    assertEquals(1, successorRuns.get());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void rejectsCycles() {
+    TaskGraph graph = new TaskGraph("cycle");
+    int a = graph.add("a", () -> {});
+    int b = graph.add("b", () -> {});
+    graph.dependsOn(a, b);
+    graph.dependsOn(b, a);
+    jobSystem.execute(graph);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsUnknownDependency() {
+    TaskGraph graph = new TaskGraph("unknown");
+    graph.dependsOn(graph.add("a", () -> {}), 3);
+  }
+
+  @Test
+  public void executesWithoutAllocating() {
+    assumeTrue(AllocationProbe.isSupported());
+    TaskGraph graph = new TaskGraph("frame");
+    AtomicLong sum = new AtomicLong();
+    int input = graph.addOnMainThread("input", () -> sum.addAndGet(1));
+    int physics = graph.add("physics", () -> sum.addAndGet(2));
+    int entities = graph.add("entities", () -> sum.addAndGet(3));
+    int culling = graph.add("culling", () -> sum.addAndGet(4));
+    int render = graph.addOnMainThread("render", () -> sum.addAndGet(5));
+    graph.dependsOn(physics, input);
+    graph.dependsOn(entities, input);
+    graph.dependsOn(culling, physics, entities);
+    graph.dependsOn(render, culling);
+
+    for (int i = 0; i < 20_000; i++) {
+      jobSystem.execute(graph);
+    }
+    long start = AllocationProbe.allocatedBytes();
+    for (int i = 0; i < 1_000; i++) {
+      jobSystem.execute(graph);
+    }
+    assertEquals(0, AllocationProbe.allocatedBytes() - start);
+    assertEquals(21_000 * 15L, sum.get());
+  }
+}
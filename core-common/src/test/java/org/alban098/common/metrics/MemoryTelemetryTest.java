@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.common.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MemoryTelemetryTest {
+
+  private MemoryTelemetry telemetry;
+
+  @Before
+  public void setUp() {
+    telemetry = new MemoryTelemetry();
+  }
+
+  @After
+  public void tearDown() {
+    telemetry.cleanUp();
+  }
+
+  @Test
+  public void flagsFrameHitByPauseWhateverItsDuration() throws InterruptedException {
+    telemetry.beginFrame();
+    long before = telemetry.getPauseCount();
+    System.gc();
+    // The notification is delivered asynchronously by the JVM
+    long deadline = System.nanoTime() + 5_000_000_000L;
+    while (telemetry.getPauseCount() == before && System.nanoTime() < deadline) {
+      Thread.sleep(1);
+    }
+    assumeTrue("no pausing collector notified", telemetry.getPauseCount() > before);
+    telemetry.endFrame();
+
+    assertEquals(1, telemetry.getFrameCount());
+    assertEquals(1, telemetry.getPausedFrames());
+    assertTrue(telemetry.getLastPauseCount() >= 1);
+  }
+
+  @Test
+  public void countsAllocatingFrames() {
+    assumeTrue(telemetry.isAllocationTrackingSupported());
+    telemetry.beginFrame();
+    byte[][] garbage = new byte[16][];
+    for (int i = 0; i < garbage.length; i++) {
+      garbage[i] = new byte[1024];
+    }
+    telemetry.endFrame();
+
+    assertEquals(1024, garbage[garbage.length - 1].length);
+    assertEquals(1, telemetry.getAllocatingFrames());
+    assertTrue(telemetry.getLastAllocatedBytes() >= 16 * 1024);
+  }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.common.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+
+import org.junit.Test;
+
+public class MetricSeriesTest {
+
+  @Test
+  public void rejectsNonPositiveCapacity() {
+    assertThrows(IllegalArgumentException.class, () -> new MetricSeries("frame", 0));
+  }
+
+  @Test
+  public void emptySeriesReportsZero() {
+    MetricSeries series = new MetricSeries("frame", 4);
+    assertEquals(0, series.getPercentile(50), 0);
+    assertEquals(0, series.getMin(), 0);
+    assertEquals(0, series.getMax(), 0);
+    assertEquals(0, series.getMean(), 0);
+    assertEquals(0, series.getLast(), 0);
+    assertEquals(0, series.getOffset());
+  }
+
+  @Test
+  public void percentileOfSingleSampleIsThatSample() {
+    MetricSeries series = new MetricSeries("frame", 4);
+    series.push(7);
+    assertEquals(7, series.getPercentile(0), 0);
+    assertEquals(7, series.getPercentile(50), 0);
+    assertEquals(7, series.getPercentile(100), 0);
+  }
+
+  @Test
+  public void percentileUsesNearestRank() {
+    MetricSeries series = new MetricSeries("frame", 100);
+    // Pushed out of order so the sort is exercised
+    for (int i = 100; i >= 1; i--) {
+      series.push(i);
+    }
+    assertEquals(1, series.getPercentile(0), 0);
+    assertEquals(1, series.getPercentile(1), 0);
+    assertEquals(50, series.getPercentile(50), 0);
+    assertEquals(51, series.getPercentile(50.5), 0);
+    assertEquals(99, series.getPercentile(99), 0);
+    assertEquals(100, series.getPercentile(100), 0);
+  }
+
+  @Test
+  public void percentileOfSmallSeriesRoundsUp() {
+    MetricSeries series = new MetricSeries("frame", 4);
+    series.push(10);
+    series.push(20);
+    series.push(30);
+    // ceil(0.5 * 3) = 2nd smallest, ceil(0.9 * 3) = 3rd smallest
+    assertEquals(10, series.getPercentile(0), 0);
+    assertEquals(20, series.getPercentile(50), 0);
+    assertEquals(30, series.getPercentile(90), 0);
+    assertEquals(30, series.getPercentile(100), 0);
+  }
+
+  @Test
+  public void offsetPointsAtOldestSampleOnceWrapped() {
+    MetricSeries series = new MetricSeries("frame", 4);
+    for (int i = 0; i < 3; i++) {
+      series.push(i);
+    }
+    assertEquals(0, series.getOffset());
+    assertEquals(3, series.getSize());
+
+    for (int i = 3; i < 10; i++) {
+      series.push(i);
+    }
+    assertEquals(4, series.getSize());
+    assertEquals(10, series.getSampleCount());
+    assertEquals(10 % 4, series.getOffset());
+    double[] values = series.getValues();
+    double[] indices = series.getIndices();
+    for (int i = 0; i < series.getSize(); i++) {
+      int slot = (series.getOffset() + i) % series.getCapacity();
+      assertEquals(6 + i, values[slot], 0);
+      assertEquals(6 + i, indices[slot], 0);
+    }
+  }
+
+  @Test
+  public void exactlyCapacityPushesWrapToSlotZero() {
+    MetricSeries series = new MetricSeries("frame", 4);
+    for (int i = 0; i < 4; i++) {
+      series.push(i);
+    }
+    assertEquals(0, series.getOffset());
+    assertEquals(0, series.getValues()[series.getOffset()], 0);
+    assertEquals(3, series.getLast(), 0);
+
+    series.push(4);
+    assertEquals(1, series.getOffset());
+    assertEquals(1, series.getValues()[series.getOffset()], 0);
+    assertEquals(4, series.getLast(), 0);
+  }
+
+  @Test
+  public void lastIsNewestSampleAfterWrap() {
+    MetricSeries series = new MetricSeries("frame", 3);
+    for (int i = 0; i < 7; i++) {
+      series.push(i * 2);
+      assertEquals(i * 2, series.getLast(), 0);
+    }
+  }
+
+  @Test
+  public void statisticsOnlyCoverLiveWindow() {
+    MetricSeries series = new MetricSeries("frame", 4);
+    // Outliers that will be overwritten
+    series.push(-1000);
+    series.push(1000);
+    assertEquals(-1000, series.getMin(), 0);
+    assertEquals(1000, series.getMax(), 0);
+    assertEquals(0, series.getMean(), 0);
+
+    for (int i = 1; i <= 4; i++) {
+      series.push(i);
+    }
+    assertEquals(1, series.getMin(), 0);
+    assertEquals(4, series.getMax(), 0);
+    assertEquals(2.5, series.getMean(), 1e-9);
+    assertEquals(4, series.getPercentile(100), 0);
+  }
+
+  @Test
+  public void statisticsOfPartialWindowIgnoreUnusedSlots() {
+    MetricSeries series = new MetricSeries("frame", 8);
+    series.push(5);
+    series.push(7);
+    // The 6 unused slots hold 0 and must not drag the minimum or the mean down
+    assertEquals(5, series.getMin(), 0);
+    assertEquals(7, series.getMax(), 0);
+    assertEquals(6, series.getMean(), 1e-9);
+  }
+
+  @Test
+  public void explicitIndexIsStoredAlongsideValue() {
+    MetricSeries series = new MetricSeries("frame", 2);
+    series.push(100, 1.5);
+    series.push(250, 2.5);
+    series.push(300, 3.5);
+    int oldest = series.getOffset();
+    assertEquals(250, series.getIndices()[oldest], 0);
+    assertEquals(300, series.getIndices()[(oldest + 1) % 2], 0);
+    assertEquals(3, series.getSampleCount());
+  }
+
+  @Test
+  public void clearResetsWindowAndStatistics() {
+    MetricSeries series = new MetricSeries("frame", 4);
+    for (int i = 0; i < 6; i++) {
+      series.push(10 + i);
+    }
+    series.clear();
+    assertEquals(0, series.getSize());
+    assertEquals(0, series.getSampleCount());
+    assertEquals(0, series.getOffset());
+    assertEquals(0, series.getLast(), 0);
+    assertEquals(0, series.getMin(), 0);
+    assertEquals(0, series.getMax(), 0);
+    assertEquals(0, series.getPercentile(100), 0);
+
+    // Samples pushed before the clear don't leak into the new window
+    series.push(3);
+    assertEquals(1, series.getSize());
+    assertEquals(3, series.getMin(), 0);
+    assertEquals(3, series.getMax(), 0);
+    assertEquals(3, series.getMean(), 0);
+    assertEquals(3, series.getLast(), 0);
+  }
+
+  @Test
+  public void groupRegistersAndClearsItsSeries() {
+    MetricGroup group = new MetricGroup("render", 4);
+    MetricSeries[] registered = new MetricSeries[6];
+    // Past the initial array size of the group
+    for (int i = 0; i < registered.length; i++) {
+      registered[i] = group.register("series" + i);
+    }
+    assertEquals(registered.length, group.size());
+    for (int i = 0; i < registered.length; i++) {
+      assertSame(registered[i], group.get(i));
+      assertEquals(4, group.get(i).getCapacity());
+    }
+    assertThrows(IndexOutOfBoundsException.class, () -> group.get(registered.length));
+
+    registered[0].push(1);
+    registered[2].push(1);
+    registered[2].push(2);
+    assertEquals(2, group.getSampleCount());
+    group.clear();
+    assertEquals(0, group.getSampleCount());
+    assertEquals(0, registered[2].getSize());
+  }
+}
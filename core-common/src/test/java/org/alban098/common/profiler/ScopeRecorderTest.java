@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.common.profiler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import org.alban098.common.metrics.AllocationProbe;
+import org.junit.Test;
+
+public class ScopeRecorderTest {
+
+  /** Collects the visited scopes as "name:depth:start:end" */
+  private static List<String> scopes(ScopeRecorder recorder, boolean frameOnly) {
+    List<String> scopes = new ArrayList<>();
+    ScopeVisitor visitor =
+        (scopeId, depth, startNs, endNs) ->
+            scopes.add(
+                recorder.getRegistry().getName(scopeId)
+                    + ":"
+                    + depth
+                    + ":"
+                    + startNs
+                    + ":"
+                    + endNs);
+    if (frameOnly) {
+      recorder.forEachFrameScope(visitor);
+    } else {
+      recorder.forEachScope(visitor);
+    }
+    return scopes;
+  }
+
+  @Test
+  public void registryInternsNames() {
+    ScopeRegistry registry = new ScopeRegistry();
+    int update = registry.getId("Update");
+    int render = registry.getId("Render");
+    for (int i = 0; i < 100; i++) {
+      registry.getId("Scope " + i);
+    }
+
+    assertNotEquals(update, render);
+    assertEquals(update, registry.getId("Update"));
+    assertEquals(render, registry.getId("Render"));
+    assertEquals("Render", registry.getName(render));
+    assertEquals("Scope 99", registry.getName(registry.getId("Scope 99")));
+    assertEquals(102, registry.size());
+  }
+
+  @Test
+  public void recordsNestedScopesInOpeningOrder() {
+    ScopeRecorder recorder = new ScopeRecorder("Main", new ScopeRegistry(), 64);
+    recorder.beginFrame(0);
+    recorder.begin(recorder.getRegistry().getId("Frame"), 0);
+    recorder.begin(recorder.getRegistry().getId("Update"), 10);
+    recorder.begin(recorder.getRegistry().getId("Physics"), 20);
+    assertEquals(3, recorder.getDepth());
+    recorder.end(50);
+    recorder.end(60);
+    recorder.begin(recorder.getRegistry().getId("Render"), 70);
+    recorder.end(90);
+    recorder.end(100);
+    recorder.endFrame(100);
+
+    assertEquals(0, recorder.getDepth());
+    assertEquals(
+        List.of("Frame:0:0:100", "Update:1:10:60", "Physics:2:20:50", "Render:1:70:90"),
+        scopes(recorder, true));
+    assertEquals(4, recorder.getFrameScopeCount());
+    assertEquals(1, recorder.getFrameCount());
+    assertEquals(100, recorder.getFrameDuration());
+  }
+
+  @Test
+  public void visitsOnlyTheLastCompletedFrame() {
+    ScopeRecorder recorder = new ScopeRecorder("Main", new ScopeRegistry(), 64);
+    for (int frame = 0; frame < 3; frame++) {
+      recorder.beginFrame(frame * 100);
+      recorder.begin(recorder.getRegistry().getId("Frame " + frame), frame * 100);
+      recorder.end(frame * 100 + 50);
+      recorder.endFrame(frame * 100 + 100);
+    }
+    // A frame being recorded is not visible until completed
+    recorder.beginFrame(300);
+    recorder.begin(recorder.getRegistry().getId("Frame 3"), 300);
+
+    assertEquals(1, recorder.getFrameScopeCount());
+    assertEquals(List.of("Frame 2:0:200:250"), scopes(recorder, true));
+    assertEquals(200, recorder.getFrameStart());
+    assertEquals(300, recorder.getFrameEnd());
+    assertEquals(3, scopes(recorder, false).size());
+  }
+
+  @Test
+  public void ringKeepsOnlyTheMostRecentScopes() {
+    ScopeRecorder recorder = new ScopeRecorder("Main", new ScopeRegistry(), 8);
+    int scope = recorder.getRegistry().getId("Scope");
+    recorder.beginFrame(0);
+    for (int i = 0; i < 20; i++) {
+      recorder.begin(scope, i * 10);
+      recorder.end(i * 10 + 5);
+    }
+    recorder.endFrame(200);
+
+    List<String> scopes = scopes(recorder, true);
+    assertEquals(8, recorder.getFrameScopeCount());
+    assertEquals(8, scopes.size());
+    assertEquals("Scope:0:120:125", scopes.get(0));
+    assertEquals("Scope:0:190:195", scopes.get(7));
+  }
+
+  @Test
+  public void closesScopesLeftOpenAtTheEndOfTheFrame() {
+    ScopeRecorder recorder = new ScopeRecorder("Main", new ScopeRegistry(), 16);
+    recorder.beginFrame(0);
+    recorder.begin(recorder.getRegistry().getId("Outer"), 0);
+    recorder.begin(recorder.getRegistry().getId("Inner"), 10);
+    recorder.endFrame(40);
+
+    assertEquals(0, recorder.getDepth());
+    assertEquals(List.of("Outer:0:0:40", "Inner:1:10:40"), scopes(recorder, true));
+  }
+
+  @Test
+  public void rejectsUnbalancedScopes() {
+    ScopeRecorder recorder = new ScopeRecorder("Main", new ScopeRegistry(), 16);
+    assertThrows(IllegalStateException.class, () -> recorder.end(0));
+    for (int i = 0; i < 64; i++) {
+      recorder.begin(0, i);
+    }
+    assertThrows(IllegalStateException.class, () -> recorder.begin(0, 64));
+  }
+
+  @Test
+  public void countsRecursiveScopesOnce() {
+    ScopeRecorder recorder = new ScopeRecorder("Main", new ScopeRegistry(), 16);
+    int traverse = recorder.getRegistry().getId("Traverse");
+    int other = recorder.getRegistry().getId("Other");
+    recorder.beginFrame(0);
+    recorder.begin(traverse, 0);
+    recorder.begin(traverse, 10);
+    recorder.end(30);
+    recorder.end(40);
+    recorder.begin(other, 40);
+    recorder.end(45);
+    recorder.begin(traverse, 50);
+    recorder.end(60);
+    recorder.endFrame(60);
+
+    assertEquals(50, recorder.getFrameScopeTime(traverse));
+    assertEquals(5, recorder.getFrameScopeTime(other));
+  }
+
+  @Test
+  public void recordsScopesMeasuredElsewhere() {
+    ScopeRecorder recorder = new ScopeRecorder("GPU", new ScopeRegistry(), 16);
+    recorder.beginFrame(0);
+    recorder.record(recorder.getRegistry().getId("Pass"), 0, 5, 25);
+    recorder.endFrame(30);
+
+    assertEquals(List.of("Pass:0:5:25"), scopes(recorder, true));
+  }
+
+  @Test
+  public void exportsOneTrackPerRecorder() throws IOException {
+    ScopeRegistry registry = new ScopeRegistry();
+    ScopeRecorder main = new ScopeRecorder("Main", registry, 16);
+    ScopeRecorder gpu = new ScopeRecorder("GPU \"0\"", registry, 16);
+    main.beginFrame(0);
+    main.begin(registry.getId("Update"), 1_000);
+    main.end(3_500);
+    main.endFrame(4_000);
+    gpu.record(registry.getId("Pass"), 0, 2_000, 2_250);
+
+    StringWriter writer = new StringWriter();
+    ChromeTraceExporter.export(writer, main, gpu);
+    String json = writer.toString();
+
+    assertTrue(json.startsWith("{\"traceEvents\":["));
+    assertTrue(json.endsWith("],\"displayTimeUnit\":\"ms\"}"));
+    assertTrue(json.contains("\"tid\":0,\"args\":{\"name\":\"Main\"}"));
+    assertTrue(json.contains("\"tid\":1,\"args\":{\"name\":\"GPU \\\"0\\\"\"}"));
+    assertTrue(
+        json.contains(
+            "{\"name\":\"Update\",\"ph\":\"X\",\"pid\":0,\"tid\":0,\"ts\":1.000,\"dur\":2.500}"));
+    assertTrue(
+        json.contains(
+            "{\"name\":\"Pass\",\"ph\":\"X\",\"pid\":0,\"tid\":1,\"ts\":2.000,\"dur\":0.250}"));
+  }
+
+  @Test
+  public void recordingAFrameDoesNotAllocate() {
+    assumeTrue(AllocationProbe.isSupported());
+    long[] time = {0};
+    ScopeRecorder recorder = new ScopeRecorder("Main", new ScopeRegistry(), 256, () -> time[0]++);
+    int frame = recorder.getRegistry().getId("Frame");
+    int update = recorder.getRegistry().getId("Update");
+    long[] sink = {0};
+    ScopeVisitor visitor = (scopeId, depth, startNs, endNs) -> sink[0] += endNs - startNs;
+    Runnable record =
+        () -> {
+          recorder.beginFrame();
+          recorder.begin(frame);
+          for (int i = 0; i < 10; i++) {
+            recorder.begin(update);
+            recorder.end();
+          }
+          recorder.begin("Render");
+          recorder.end();
+          recorder.end();
+          recorder.endFrame();
+          recorder.forEachFrameScope(visitor);
+          sink[0] += recorder.getFrameScopeTime(update);
+        };
+
+    double bytes = AllocationProbe.measure(record, 20_000, 10_000);
+    // A one time allocation shows in a single round, one made by every frame in all of them
+    for (int round = 1; round < 3 && bytes > 0; round++) {
+      bytes = AllocationProbe.measure(record, 0, 10_000);
+    }
+    assertEquals(0, bytes, 0);
+    assertEquals(12, recorder.getFrameScopeCount());
+  }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.common.scheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+public class UpdateSchedulerTest {
+
+  private static UpdateScheduler scheduler() {
+    UpdateScheduler scheduler = new UpdateScheduler(0.5);
+    scheduler.registerBatch(
+        Wakeup.class,
+        (objects, elapsedTimes, count) -> {
+          for (int i = 0; i < count; i++) {
+            objects[i].wake(elapsedTimes[i]);
+          }
+        });
+    return scheduler;
+  }
+
+  @Test
+  public void wakesUpAtTheDeadlineAcrossEveryLevelOfTheWheel() {
+    UpdateScheduler scheduler = scheduler();
+    long[] delays = {
+      1, 2, 255, 256, 257, 511, 65_535, 65_536, 65_537, 70_000, 131_071, 300_000, (1 << 24) + 5
+    };
+    Wakeup[] wakeups = new Wakeup[delays.length];
+    // Scheduled from a tick that is not aligned on any level
+    for (int i = 0; i < 77; i++) {
+      scheduler.tick();
+    }
+    for (int i = 0; i < delays.length; i++) {
+      wakeups[i] = new Wakeup(scheduler);
+      scheduler.scheduleDelayed(wakeups[i], delays[i]);
+    }
+
+    for (int tick = 0; tick < (1 << 24) + 5; tick++) {
+      scheduler.tick();
+    }
+
+    for (int i = 0; i < delays.length; i++) {
+      assertEquals("delay " + delays[i], List.of(77 + delays[i]), wakeups[i].ticks);
+      assertEquals(delays[i] * 0.5, wakeups[i].elapsedTimes.get(0), 0);
+    }
+    assertEquals(0, scheduler.getScheduledCount());
+  }
+
+  @Test
+  public void matchesRandomDeadlines() {
+    Random random = new Random(7);
+    UpdateScheduler scheduler = scheduler();
+    List<Wakeup> wakeups = new ArrayList<>();
+    List<Long> deadlines = new ArrayList<>();
+    for (int tick = 0; tick < 100_000; tick++) {
+      if (random.nextInt(20) == 0) {
+        long delay = 1 + (long) Math.pow(random.nextDouble(), 3) * 150_000;
+        Wakeup wakeup = new Wakeup(scheduler);
+        scheduler.scheduleDelayed(wakeup, delay);
+        wakeups.add(wakeup);
+        deadlines.add(scheduler.getCurrentTick() + delay);
+      }
+      scheduler.tick();
+    }
+    while (scheduler.getScheduledCount() > 0) {
+      scheduler.tick();
+    }
+
+    for (int i = 0; i < wakeups.size(); i++) {
+      assertEquals(List.of(deadlines.get(i)), wakeups.get(i).ticks);
+    }
+  }
+
+  @Test
+  public void reschedulesFixedRateWakeups() {
+    UpdateScheduler scheduler = scheduler();
+    Wakeup wakeup = new Wakeup(scheduler);
+    int handle = scheduler.scheduleFixedRate(wakeup, 300, 5);
+
+    for (int tick = 0; tick < 1_000; tick++) {
+      scheduler.tick();
+    }
+
+    assertEquals(List.of(5L, 305L, 605L, 905L), wakeup.ticks);
+    // The first update covers the initial delay, the next ones a period
+    assertEquals(List.of(2.5, 150.0, 150.0, 150.0), wakeup.elapsedTimes);
+    assertTrue(scheduler.isScheduled(handle));
+    assertTrue(scheduler.cancel(handle));
+    assertEquals(0, scheduler.getScheduledCount());
+  }
+
+  @Test
+  public void staleHandlesDoNotCancelRecycledWakeups() {
+    UpdateScheduler scheduler = scheduler();
+    Wakeup first = new Wakeup(scheduler);
+    int stale = scheduler.scheduleNextTick(first);
+    scheduler.tick();
+    assertFalse(scheduler.isScheduled(stale));
+
+    Wakeup second = new Wakeup(scheduler);
+    int recycled = scheduler.scheduleDelayed(second, 10);
+    assertEquals(stale & 0xFFFFFF, recycled & 0xFFFFFF);
+    assertFalse(scheduler.cancel(stale));
+    assertTrue(scheduler.isScheduled(recycled));
+
+    assertTrue(scheduler.cancel(recycled));
+    assertFalse(scheduler.cancel(recycled));
+    for (int tick = 0; tick < 20; tick++) {
+      scheduler.tick();
+    }
+    assertEquals(List.of(), second.ticks);
+  }
+
+  @Test
+  public void updatesMayCancelWakeups() {
+    UpdateScheduler scheduler = scheduler();
+    Wakeup wakeup = new Wakeup(scheduler);
+    wakeup.handle = scheduler.scheduleFixedRate(wakeup, 1, 1);
+    wakeup.cancelAfter = 3;
+
+    for (int tick = 0; tick < 10; tick++) {
+      scheduler.tick();
+    }
+
+    assertEquals(List.of(1L, 2L, 3L), wakeup.ticks);
+    assertEquals(0, scheduler.getScheduledCount());
+  }
+
+  @Test
+  public void groupsDueObjectsByType() {
+    UpdateScheduler scheduler = scheduler();
+    List<Integer> batchSizes = new ArrayList<>();
+    scheduler.registerBatch(Object.class, (objects, elapsedTimes, count) -> batchSizes.add(count));
+    for (int i = 0; i < 5; i++) {
+      scheduler.scheduleNextTick(new Wakeup(scheduler));
+      scheduler.scheduleNextTick(new Object());
+    }
+    // Subclasses are updated by the batch of their closest registered superclass
+    Wakeup subclass = new Wakeup(scheduler) {};
+    scheduler.scheduleNextTick(subclass);
+
+    scheduler.tick();
+
+    assertEquals(11, scheduler.getLastDueCount());
+    assertEquals(List.of(5), batchSizes);
+    assertEquals(List.of(1L), subclass.ticks);
+  }
+
+  @Test
+  public void rejectsInvalidSchedules() {
+    UpdateScheduler scheduler = scheduler();
+    Wakeup wakeup = new Wakeup(scheduler);
+    assertThrows(IllegalArgumentException.class, () -> scheduler.scheduleDelayed(wakeup, 0));
+    assertThrows(IllegalArgumentException.class, () -> scheduler.scheduleDelayed(wakeup, 1L << 32));
+    assertThrows(IllegalArgumentException.class, () -> scheduler.scheduleFixedRate(wakeup, 0, 1));
+    assertThrows(
+        IllegalArgumentException.class, () -> scheduler.scheduleFixedRate(wakeup, 1L << 32, 1));
+    assertThrows(IllegalArgumentException.class, () -> scheduler.scheduleNextTick("unregistered"));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> scheduler.registerBatch(Wakeup.class, (objects, elapsedTimes, count) -> {}));
+    assertEquals(0, scheduler.getScheduledCount());
+  }
+
+  @Test
+  public void acceptsLongestPeriod() {
+    UpdateScheduler scheduler = scheduler();
+    Wakeup wakeup = new Wakeup(scheduler);
+    int handle = scheduler.scheduleFixedRate(wakeup, (1L << 32) - 1, 1);
+    scheduler.tick();
+
+    assertEquals(List.of(1L), wakeup.ticks);
+    // Rescheduled a full span of the wheel away
+    assertTrue(scheduler.isScheduled(handle));
+    assertEquals(1, scheduler.getScheduledCount());
+  }
+
+  private static class Wakeup {
+    private final UpdateScheduler scheduler;
+    private final List<Long> ticks = new ArrayList<>();
+    private final List<Double> elapsedTimes = new ArrayList<>();
+    private int handle;
+    private int cancelAfter = -1;
+
+    private Wakeup(UpdateScheduler scheduler) {
+      this.scheduler = scheduler;
+    }
+
+    private void wake(double elapsedTime) {
+      ticks.add(scheduler.getCurrentTick());
+      elapsedTimes.add(elapsedTime);
+      if (ticks.size() == cancelAfter) {
+        scheduler.cancel(handle);
+      }
+    }
+  }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.common.snapshot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicReference;
+import org.alban098.common.Transform;
+import org.joml.Vector2f;
+import org.junit.Test;
+
+public class SnapshotExchangeTest {
+
+  @Test
+  public void tripleBufferHandsOverTheLatestPublishedBuffer() {
+    int[] created = {0};
+    TripleBuffer<int[]> buffer = new TripleBuffer<>(() -> new int[] {created[0]++});
+    assertFalse(buffer.isFresh());
+    assertFalse(buffer.acquire());
+
+    int[] first = buffer.getWriteBuffer();
+    buffer.publish();
+    int[] second = buffer.getWriteBuffer();
+    assertNotSame(first, second);
+    assertNotSame(buffer.getReadBuffer(), second);
+    // Publishing again before the reader acquires replaces the first buffer
+    buffer.publish();
+
+    assertTrue(buffer.acquire());
+    assertSame(second, buffer.getReadBuffer());
+    assertFalse(buffer.isFresh());
+    assertNotSame(second, buffer.getWriteBuffer());
+  }
+
+  @Test
+  public void pollKeepsThePreviousSnapshot() {
+    SnapshotExchange exchange = new SnapshotExchange(4, 1);
+    Transform transform = new Transform();
+    assertFalse(exchange.poll());
+
+    for (int tick = 0; tick < 3; tick++) {
+      transform.setDisplacement(tick, 0);
+      transform.commit();
+      Snapshot snapshot = exchange.beginWrite(tick);
+      snapshot.setAttribute(snapshot.add(transform), 0, tick * 10);
+      exchange.publish();
+      assertTrue(exchange.poll());
+    }
+
+    assertEquals(2, exchange.getCurrent().getTick());
+    assertEquals(1, exchange.getPrevious().getTick());
+    assertEquals(1, exchange.getPrevious().size());
+    assertEquals(10, exchange.getPrevious().getAttribute(0, 0), 0);
+    assertEquals(20, exchange.getCurrent().getAttribute(0, 0), 0);
+    assertEquals(0, exchange.getSkippedCount());
+    assertEquals(3, exchange.getLatency().getSize());
+    assertFalse(exchange.poll());
+  }
+
+  @Test
+  public void countsSnapshotsSkippedByASlowReader() {
+    SnapshotExchange exchange = new SnapshotExchange(1, 0);
+    for (int tick = 0; tick < 5; tick++) {
+      exchange.beginWrite(tick);
+      exchange.publish();
+    }
+
+    assertTrue(exchange.poll());
+    assertEquals(4, exchange.getCurrent().getTick());
+    assertEquals(5, exchange.getPublishedCount());
+    assertEquals(1, exchange.getAcquiredCount());
+    assertEquals(4, exchange.getSkippedCount());
+  }
+
+  @Test
+  public void readerNeverSeesATornSnapshot() throws InterruptedException {
+    int objects = 64;
+    int ticks = 20_000;
+    SnapshotExchange exchange = new SnapshotExchange(objects, 0);
+    Transform[] transforms = new Transform[objects];
+    for (int i = 0; i < objects; i++) {
+      transforms[i] = new Transform();
+    }
+    AtomicReference<Throwable> failure = new AtomicReference<>();
+    Thread writer =
+        new Thread(
+            () -> {
+              for (int tick = 1; tick <= ticks; tick++) {
+                Snapshot snapshot = exchange.beginWrite(tick);
+                for (Transform transform : transforms) {
+                  transform.setDisplacement(tick, -tick);
+                  transform.commit();
+                  snapshot.add(transform);
+                }
+                exchange.publish();
+              }
+            });
+    writer.setUncaughtExceptionHandler((thread, e) -> failure.set(e));
+    writer.start();
+
+    Transform dest = new Transform();
+    long lastTick = 0;
+    while (lastTick < ticks && failure.get() == null) {
+      if (!exchange.poll()) {
+        Thread.onSpinWait();
+        continue;
+      }
+      Snapshot current = exchange.getCurrent();
+      assertTrue(current.getTick() > lastTick);
+      lastTick = current.getTick();
+      assertEquals(objects, current.size());
+      for (int i = 0; i < objects; i++) {
+        Snapshot.interpolate(current, current, i, 0, dest);
+        assertEquals(lastTick, dest.getDisplacement().x, 0);
+        assertEquals(-lastTick, dest.getDisplacement().y, 0);
+      }
+    }
+    writer.join();
+    assertNull(failure.get());
+    assertEquals(ticks, exchange.getAcquiredCount() + exchange.getSkippedCount());
+  }
+
+  @Test
+  public void interpolatesAlongTheShortestArc() {
+    Snapshot previous = new Snapshot(1, 0);
+    Snapshot current = new Snapshot(1, 0);
+    Transform from = new Transform(new Vector2f(0, 0), new Vector2f(1, 1), 3f);
+    Transform to = new Transform(new Vector2f(10, -4), new Vector2f(3, 5), -3f);
+    previous.clear(0);
+    previous.add(from);
+    current.clear(1);
+    current.add(to);
+    Transform dest = new Transform();
+
+    Snapshot.interpolate(previous, current, 0, 0.25f, dest);
+
+    assertEquals(2.5f, dest.getDisplacement().x, 1e-5f);
+    assertEquals(-1, dest.getDisplacement().y, 1e-5f);
+    assertEquals(1.5f, dest.getScale().x, 1e-5f);
+    assertEquals(2, dest.getScale().y, 1e-5f);
+    // From 3 to -3 through PI rather than through 0
+    float arc = (float) (2 * Math.PI - 6);
+    assertEquals(3 + arc * 0.25f, dest.getRotation(), 1e-5f);
+
+    Snapshot.interpolate(previous, current, 0, 1, dest);
+    assertEquals(-3, Math.IEEEremainder(dest.getRotation(), 2 * Math.PI), 1e-5f);
+  }
+
+  @Test
+  public void snapsObjectsAbsentFromThePreviousSnapshot() {
+    Snapshot previous = new Snapshot(1, 0);
+    Snapshot current = new Snapshot(1, 0);
+    previous.clear(0);
+    current.clear(1);
+    current.add(new Transform(new Vector2f(1, 2), 1, 0));
+    // Grows past the initial capacity
+    current.add(new Transform(new Vector2f(3, 4), 2, 0.5f));
+    Transform dest = new Transform();
+
+    Snapshot.interpolate(previous, current, 1, 0.1f, dest);
+
+    assertEquals(2, current.size());
+    assertEquals(new Vector2f(3, 4), dest.getDisplacement());
+    assertEquals(new Vector2f(2, 2), dest.getScale());
+    assertEquals(0.5f, dest.getRotation(), 0);
+
+    previous.copyFrom(current);
+    assertEquals(2, previous.size());
+    assertEquals(1, previous.getTick());
+  }
+}
@@ -5,16 +5,29 @@
  */
 package org.alban098.graphics2j.example;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
 import org.alban098.common.Timer;
+import org.alban098.common.jobs.JobSystem;
+import org.alban098.common.jobs.TaskGraph;
+import org.alban098.common.scheduler.UpdateScheduler;
+import org.alban098.common.snapshot.Snapshot;
+import org.alban098.common.snapshot.SnapshotExchange;
 import org.alban098.graphics2j.common.Window;
 import org.alban098.graphics2j.common.components.Camera;
 import org.alban098.graphics2j.common.shaders.data.Texture;
-import org.alban098.graphics2j.common.utils.ResourceLoader;
+import org.alban098.graphics2j.common.textures.AsyncTextureLoader;
+import org.alban098.graphics2j.common.textures.TextureCache;
 import org.alban098.graphics2j.debug.DebugImGuiTab;
+import org.alban098.graphics2j.debug.MemoryImGuiTab;
+import org.alban098.graphics2j.debug.TaskGraphImGuiTab;
+import org.alban098.graphics2j.debug.TextureCacheImGuiTab;
 import org.alban098.graphics2j.example.entities.ColoredEntity;
+import org.alban098.graphics2j.example.entities.ColoredProxy;
+import org.alban098.graphics2j.example.entities.RenderProxy;
 import org.alban098.graphics2j.example.entities.TexturedEntity;
+import org.alban098.graphics2j.example.entities.TexturedProxy;
 import org.alban098.graphics2j.example.entities.UpdatableEntity;
 import org.alban098.graphics2j.example.renderer.ColoredEntityRenderer;
 import org.alban098.graphics2j.fonts.FontManager;
@@ -23,8 +36,8 @@ import org.alban098.graphics2j.interfaces.InterfaceRenderingManager;
 import org.alban098.graphics2j.objects.RendererManager;
 import org.alban098.graphics2j.objects.renderers.DefaultPointRenderer;
 import org.alban098.physics2j.PhysicsManager;
-import org.alban098.physics2j.QuadTree;
-import org.alban098.physics2j.debug.QuadTreeRenderer;
+import org.alban098.physics2j.debug.AabbTreeOverlay;
+import org.alban098.physics2j.debug.AabbTreeRenderer;
 import org.apache.log4j.PropertyConfigurator;
 import org.joml.Random;
 import org.joml.Vector2f;
@@ -36,6 +49,11 @@ public class ExampleLauncher {
   private static final int TPS = 1200;
   private static final int NB_ENTITIES = 1000;
   private static final boolean FPS_CAP = false;
+  private static final long TEXTURE_UPLOAD_BUDGET_NS = 2_000_000;
+  private static final long TEXTURE_VRAM_BUDGET = 64_000_000;
+  private static final boolean DECOUPLED_SIMULATION = false;
+  private static final long TICK_INTERVAL_NS = 1_000_000_000L / TPS;
+  private static final int COLOR_CHANGE_PERIOD_TICKS = 60;
 
   private final Window window;
   private final Timer timer;
@@ -44,8 +62,18 @@ public class ExampleLauncher {
   private final PhysicsManager physicsManager;
   private final InterfaceRenderingManager interfaceManager;
   private final Camera camera;
+  private final AsyncTextureLoader textureLoader;
+  private final TextureCache textureCache;
+  private final JobSystem jobSystem;
+  private final TaskGraph frameGraph;
+  private final AabbTreeOverlay treeOverlay;
 
-  private final Set<UpdatableEntity> entities;
+  private final List<UpdatableEntity> entities;
+  private final List<RenderProxy> proxies;
+  private final SnapshotExchange snapshots;
+  private final UpdateScheduler scheduler;
+  private volatile boolean simulating = false;
+  private int pendingUpdates = 0;
 
   public static void main(String[] args) {
     PropertyConfigurator.configure("./log4j.properties");
@@ -54,22 +82,48 @@ public class ExampleLauncher {
 
   public ExampleLauncher() {
     window = new Window("Example", 1200, 600, false);
+    window.setTargetFps(FPS_CAP ? FPS : 0);
     mouseState = new MouseState();
     mouseState.linkCallbacks(window);
     timer = new Timer();
     rendererManager = new RendererManager();
     physicsManager = new PhysicsManager();
+    treeOverlay = new AabbTreeOverlay();
     interfaceManager = new InterfaceRenderingManager(window, mouseState);
     camera = new Camera(window, new Vector2f());
-    entities = new HashSet<>();
+    textureLoader = new AsyncTextureLoader(2);
+    textureCache = new TextureCache(TEXTURE_VRAM_BUDGET, textureLoader);
+    entities = new ArrayList<>();
+    proxies = new ArrayList<>();
+    snapshots = new SnapshotExchange(NB_ENTITIES, 4);
+    scheduler = new UpdateScheduler(1.0 / TPS);
+    jobSystem = new JobSystem();
+    frameGraph = new TaskGraph("Frame");
 
     init();
+    Thread simulation = null;
+    if (DECOUPLED_SIMULATION) {
+      simulating = true;
+      simulation = new Thread(this::simulate, "Simulation");
+      simulation.start();
+    }
     loop();
+    if (simulation != null) {
+      simulating = false;
+      try {
+        simulation.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
     window.cleanUp();
   }
 
   private void init() {
     window.addDebugInterface(new DebugImGuiTab(window, rendererManager, interfaceManager));
+    window.addDebugInterface(new TextureCacheImGuiTab(textureCache));
+    window.addDebugInterface(new TaskGraphImGuiTab(jobSystem, frameGraph));
+    window.addDebugInterface(new MemoryImGuiTab(window, frameGraph));
 
     FontManager.registerFont("Candara", "assets/fonts/");
     FontManager.registerFont("Calibri", "assets/fonts/");
@@ -78,25 +132,39 @@ public class ExampleLauncher {
     // Setup custom entity renderer
     rendererManager.registerRenderer(ColoredEntity.class, new ColoredEntityRenderer());
     rendererManager.registerRenderer(TexturedEntity.class, new DefaultPointRenderer());
-    rendererManager.registerRenderer(QuadTree.Node.class, new QuadTreeRenderer());
+    rendererManager.registerRenderer(AabbTreeOverlay.Node.class, new AabbTreeRenderer());
+    rendererManager.registerRenderer(ColoredProxy.class, new ColoredEntityRenderer());
+    rendererManager.registerRenderer(TexturedProxy.class, new DefaultPointRenderer());
+
+    Texture texture0 = textureCache.get("assets/textures/texture.png");
+    Texture texture1 = textureCache.get("assets/textures/texture2.png");
 
-    Texture texture0 = ResourceLoader.loadTexture("assets/textures/texture.png");
-    Texture texture1 = ResourceLoader.loadTexture("assets/textures/texture2.png");
+    // Textured entities are idle, only colored ones change periodically
+    scheduler.registerBatch(
+        ColoredEntity.class,
+        (batch, elapsedTimes, count) -> {
+          for (int i = 0; i < count; i++) {
+            batch[i].update(elapsedTimes[i]);
+          }
+        });
 
     Random random = new Random();
     for (int i = 0; i < NB_ENTITIES / 2; i++) {
+      Vector2f texturedPosition =
+          new Vector2f(random.nextFloat() * 150 - 75f, random.nextFloat() * 150 - 75f);
+      Vector2f texturedScale = new Vector2f(random.nextFloat() + 0.2f);
+      float texturedRotation = (float) (random.nextFloat() * Math.PI * 2f);
+      Texture texture = random.nextInt(100) < 50 ? texture0 : texture1;
+      Vector2f coloredPosition =
+          new Vector2f(random.nextFloat() * 150 - 75f, random.nextFloat() * 150 - 75f);
+      Vector2f coloredScale = new Vector2f(random.nextFloat() + 0.2f);
+      float coloredRotation = (float) (random.nextFloat() * Math.PI * 2f);
+      Vector4f color = new Vector4f(random.nextFloat(), random.nextFloat(), random.nextFloat(), 1);
+
       UpdatableEntity texturedEntity =
-          new TexturedEntity(
-              new Vector2f(random.nextFloat() * 150 - 75f, random.nextFloat() * 150 - 75f),
-              new Vector2f(random.nextFloat() + 0.2f),
-              (float) (random.nextFloat() * Math.PI * 2f),
-              random.nextInt(100) < 50 ? texture0 : texture1);
+          new TexturedEntity(texturedPosition, texturedScale, texturedRotation, texture);
       UpdatableEntity coloredEntity =
-          new ColoredEntity(
-              new Vector2f(random.nextFloat() * 150 - 75f, random.nextFloat() * 150 - 75f),
-              new Vector2f(random.nextFloat() + 0.2f),
-              (float) (random.nextFloat() * Math.PI * 2f),
-              new Vector4f(random.nextFloat(), random.nextFloat(), random.nextFloat(), 1));
+          new ColoredEntity(coloredPosition, coloredScale, coloredRotation, color);
 
       texturedEntity
           .getPhysicsComponent()
@@ -112,9 +180,24 @@ public class ExampleLauncher {
 
       entities.add(texturedEntity);
       entities.add(coloredEntity);
+      // Spread the wakeups over the period so every tick updates roughly the same number
+      scheduler.scheduleFixedRate(
+          coloredEntity, COLOR_CHANGE_PERIOD_TICKS, 1 + i % COLOR_CHANGE_PERIOD_TICKS);
 
-      rendererManager.add(texturedEntity);
-      rendererManager.add(coloredEntity);
+      if (DECOUPLED_SIMULATION) {
+        // The simulation thread owns the entities, the GL thread renders proxies instead
+        RenderProxy texturedProxy =
+            new TexturedProxy(texturedPosition, texturedScale, texturedRotation, texture);
+        RenderProxy coloredProxy =
+            new ColoredProxy(coloredPosition, coloredScale, coloredRotation, color);
+        proxies.add(texturedProxy);
+        proxies.add(coloredProxy);
+        rendererManager.add(texturedProxy);
+        rendererManager.add(coloredProxy);
+      } else {
+        rendererManager.add(texturedEntity);
+        rendererManager.add(coloredEntity);
+      }
 
       physicsManager.track(texturedEntity);
       physicsManager.track(coloredEntity);
@@ -122,6 +205,78 @@ public class ExampleLauncher {
     // UserInterface ui = new ExampleInterface(window, "Demo");
     // interfaceManager.add(ui);
     // interfaceManager.setVisibility(ui, true);
+
+    buildFrameGraph();
+  }
+
+  private void buildFrameGraph() {
+    double interval = 1f / TPS;
+    int input =
+        frameGraph.addOnMainThread(
+            "Input",
+            () -> {
+              mouseState.update();
+              camera.update(window, mouseState);
+              interfaceManager.processUserInput();
+            });
+    int interfaces =
+        frameGraph.add(
+            "Interface update",
+            () -> {
+              for (int i = 0; i < pendingUpdates; i++) {
+                interfaceManager.update(interval);
+              }
+            });
+    int simulation =
+        frameGraph.add(
+            DECOUPLED_SIMULATION ? "Snapshot interpolation" : "Simulation",
+            () -> {
+              if (DECOUPLED_SIMULATION) {
+                applySnapshot();
+                return;
+              }
+              for (int i = 0; i < pendingUpdates; i++) {
+                physicsManager.applyPhysics(interval);
+                scheduler.tick();
+              }
+            });
+    int broadPhase =
+        frameGraph.addOnMainThread(
+            "Broad phase debug",
+            () -> {
+              // The tree belongs to the simulation thread when decoupled
+              if (!DECOUPLED_SIMULATION) {
+                rendererManager.clearRenderer(AabbTreeOverlay.Node.class);
+                treeOverlay.clear();
+                for (int layer = 0; layer < physicsManager.getLayerCount(); layer++) {
+                  treeOverlay.add(physicsManager.getTree(layer));
+                }
+                treeOverlay.forEach(rendererManager::add);
+              }
+            });
+    int uploads =
+        frameGraph.addOnMainThread(
+            "Texture uploads",
+            () -> {
+              // Upload the textures decoded in the background
+              textureLoader.processUploads(TEXTURE_UPLOAD_BUDGET_NS);
+              textureCache.update();
+            });
+    int render =
+        frameGraph.addOnMainThread(
+            "Render",
+            () -> {
+              rendererManager.render(window, camera);
+              interfaceManager.render();
+            });
+
+    // The interfaces and the simulation are independent, and overlap on the workers while the
+    // main thread uploads textures
+    frameGraph.dependsOn(interfaces, input);
+    frameGraph.dependsOn(simulation, input);
+    frameGraph.dependsOn(uploads, input);
+    frameGraph.dependsOn(broadPhase, simulation);
+    frameGraph.dependsOn(render, interfaces, broadPhase, uploads);
   }
 
   private void loop() {
@@ -136,45 +291,51 @@ public class ExampleLauncher {
       interval = 1f / TPS;
       accumulator += timer.getElapsedTime();
 
-      // Handle user inputs
-      mouseState.update();
-      camera.update(window, mouseState);
-      interfaceManager.processUserInput();
-
       // Update as many times as needed to respect the number of updates per second
+      pendingUpdates = 0;
       while (accumulator >= interval) {
-        update(interval);
+        pendingUpdates++;
         accumulator -= interval;
       }
 
-      // Render the frame
-      rendererManager.render(window, camera);
-      interfaceManager.render();
+      // Handle user inputs, update and render the frame
+      jobSystem.execute(frameGraph);
 
       // Draw the frame
       window.endFrame();
-
-      if (FPS_CAP) {
-        sync();
-      }
     }
   }
 
-  private void update(double elapsedTime) {
-    interfaceManager.update(elapsedTime);
-    physicsManager.applyPhysics(elapsedTime);
-    rendererManager.clearRenderer(QuadTree.Node.class);
-    physicsManager.getQuadTree().getAllLeafs().forEach(rendererManager::add);
-    entities.forEach(e -> e.update(elapsedTime));
+  private void applySnapshot() {
+    snapshots.poll();
+    Snapshot previous = snapshots.getPrevious();
+    Snapshot current = snapshots.getCurrent();
+    float alpha = snapshots.getAlpha(System.nanoTime(), TICK_INTERVAL_NS);
+    for (int i = 0; i < current.size(); i++) {
+      proxies.get(i).apply(previous, current, i, alpha);
+    }
   }
 
-  private void sync() {
-    float loopSlot = 1f / FPS;
-    double endTime = timer.getLastFrameTime() + loopSlot;
-    while (timer.getTime() < endTime) {
-      try {
-        Thread.sleep(1);
-      } catch (InterruptedException ignored) {
+  private void simulate() {
+    double interval = 1f / TPS;
+    long tick = 0;
+    long nextTick = System.nanoTime();
+    while (simulating) {
+      physicsManager.applyPhysics(interval);
+      scheduler.tick();
+      Snapshot snapshot = snapshots.beginWrite(tick++);
+      for (UpdatableEntity entity : entities) {
+        entity.writeTo(snapshot);
+      }
+      snapshots.publish();
+
+      nextTick += TICK_INTERVAL_NS;
+      long wait = nextTick - System.nanoTime();
+      if (wait > 0) {
+        LockSupport.parkNanos(wait);
+      } else if (wait < -TICK_INTERVAL_NS) {
+        // Too far behind, drop the missed ticks instead of spiraling
+        nextTick = System.nanoTime();
       }
     }
   }
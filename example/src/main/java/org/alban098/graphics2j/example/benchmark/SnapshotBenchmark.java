@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.graphics2j.example.benchmark;
+
+import java.util.Locale;
+import org.alban098.common.Transform;
+import org.alban098.common.snapshot.Snapshot;
+import org.alban098.common.snapshot.SnapshotExchange;
+
+/**
+ * A headless benchmark of the snapshot handoff between a simulation thread and a rendering thread.
+ * The simulation thread publishes snapshots as fast as possible, every slot holding the tick it has
+ * been written at, while the rendering thread polls them and checks that no acquired snapshot is
+ * torn. Reports the throughput of both sides and the publication to acquisition latency
+ */
+public class SnapshotBenchmark {
+
+  private static final int SLOTS = 1000;
+  private static final long DURATION_NS = 3_000_000_000L;
+
+  public static void main(String[] args) throws InterruptedException {
+    SnapshotExchange exchange = new SnapshotExchange(SLOTS, 4);
+    Transform[] transforms = new Transform[SLOTS];
+    for (int i = 0; i < SLOTS; i++) {
+      transforms[i] = new Transform();
+    }
+
+    Thread producer =
+        new Thread(
+            () -> {
+              long end = System.nanoTime() + DURATION_NS;
+              long tick = 0;
+              while (System.nanoTime() < end) {
+                Snapshot snapshot = exchange.beginWrite(tick);
+                for (Transform transform : transforms) {
+                  transform.setDisplacement(tick, -tick);
+                  transform.commit();
+                  int slot = snapshot.add(transform);
+                  snapshot.setAttribute(slot, 0, tick);
+                }
+                exchange.publish();
+                tick++;
+              }
+            },
+            "Simulation");
+
+    long torn = 0;
+    long start = System.nanoTime();
+    producer.start();
+    while (producer.isAlive()) {
+      if (exchange.poll()) {
+        Snapshot snapshot = exchange.getCurrent();
+        float expected = snapshot.getTick();
+        for (int i = 0; i < snapshot.size(); i++) {
+          if (snapshot.getAttribute(i, 0) != expected) {
+            torn++;
+            break;
+          }
+        }
+      }
+    }
+    producer.join();
+    double seconds = (System.nanoTime() - start) / 1e9;
+
+    System.out.printf(
+        Locale.ENGLISH,
+        "Published %d snapshots of %d slots (%.0f/s), acquired %d (%.0f/s), skipped %d%n",
+        exchange.getPublishedCount(),
+        SLOTS,
+        exchange.getPublishedCount() / seconds,
+        exchange.getAcquiredCount(),
+        exchange.getAcquiredCount() / seconds,
+        exchange.getSkippedCount());
+    System.out.printf(
+        Locale.ENGLISH,
+        "Latency over the last %d acquisitions: median %.4f ms, 99th perc. %.4f ms, worst %.4f"
+            + " ms%n",
+        exchange.getLatency().getSize(),
+        exchange.getLatency().getPercentile(50),
+        exchange.getLatency().getPercentile(99),
+        exchange.getLatency().getMax());
+    System.out.println("Torn snapshots: " + torn);
+  }
+}
@@ -5,6 +5,7 @@
  */
 package org.alban098.graphics2j.example.entities;
 
+import org.alban098.common.snapshot.Snapshot;
 import org.alban098.graphics2j.common.shaders.ShaderAttributes;
 import org.joml.Vector2f;
 import org.joml.Vector4f;
@@ -27,6 +28,16 @@ public class ColoredEntity extends UpdatableEntity {
     }
   }
 
+  @Override
+  public int writeTo(Snapshot snapshot) {
+    int slot = super.writeTo(snapshot);
+    snapshot.setAttribute(slot, 0, color.x);
+    snapshot.setAttribute(slot, 1, color.y);
+    snapshot.setAttribute(slot, 2, color.z);
+    snapshot.setAttribute(slot, 3, color.w);
+    return slot;
+  }
+
   @Override
   public void update(double elapsedTime) {
     setColor(
@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.graphics2j.example.entities;
+
+import org.alban098.common.snapshot.Snapshot;
+import org.alban098.graphics2j.common.components.RenderElement;
+import org.alban098.graphics2j.common.shaders.ShaderAttributes;
+import org.alban098.graphics2j.common.shaders.data.model.Models;
+import org.joml.Vector2f;
+import org.joml.Vector4f;
+
+public class ColoredProxy extends RenderProxy {
+
+  private final Vector4f color = new Vector4f();
+
+  public ColoredProxy(Vector2f position, Vector2f scale, float rotation, Vector4f color) {
+    super(position, scale, rotation, "Colored", new RenderElement(color, Models.POINT));
+  }
+
+  @Override
+  public void apply(Snapshot previous, Snapshot current, int slot, float alpha) {
+    super.apply(previous, current, slot, alpha);
+    color.set(
+        current.getAttribute(slot, 0),
+        current.getAttribute(slot, 1),
+        current.getAttribute(slot, 2),
+        current.getAttribute(slot, 3));
+    getRenderableComponent()
+        .getRenderable()
+        .setAttributeValue(ShaderAttributes.COLOR_ATTRIBUTE, color);
+  }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.graphics2j.example.entities;
+
+import org.alban098.common.Transform;
+import org.alban098.common.snapshot.Snapshot;
+import org.alban098.graphics2j.common.Renderable;
+import org.alban098.graphics2j.common.RenderableComponent;
+import org.alban098.graphics2j.common.components.RenderElement;
+import org.joml.Vector2f;
+
+public abstract class RenderProxy implements Renderable {
+
+  private final Transform transform;
+  private final RenderableComponent renderableComponent;
+
+  protected RenderProxy(
+      Vector2f position, Vector2f scale, float rotation, String name, RenderElement element) {
+    this.transform = new Transform(position, new Vector2f(scale), rotation);
+    this.renderableComponent = new RenderableComponent(element, name);
+  }
+
+  public void apply(Snapshot previous, Snapshot current, int slot, float alpha) {
+    Snapshot.interpolate(previous, current, slot, alpha, transform);
+  }
+
+  @Override
+  public RenderableComponent getRenderableComponent() {
+    return renderableComponent;
+  }
+
+  @Override
+  public Transform getTransform() {
+    return transform;
+  }
+}
@@ -0,0 +1,18 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.graphics2j.example.entities;
+
+import org.alban098.graphics2j.common.components.RenderElement;
+import org.alban098.graphics2j.common.shaders.data.Texture;
+import org.alban098.graphics2j.common.shaders.data.model.Models;
+import org.joml.Vector2f;
+
+public class TexturedProxy extends RenderProxy {
+
+  public TexturedProxy(Vector2f position, Vector2f scale, float rotation, Texture texture) {
+    super(position, scale, rotation, "Textured", new RenderElement(texture, Models.POINT));
+  }
+}
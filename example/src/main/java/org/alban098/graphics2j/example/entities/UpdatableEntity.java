@@ -6,6 +6,7 @@
 package org.alban098.graphics2j.example.entities;
 
 import org.alban098.common.Entity;
+import org.alban098.common.snapshot.Snapshot;
 import org.alban098.graphics2j.common.Renderable;
 import org.alban098.graphics2j.common.RenderableComponent;
 import org.alban098.graphics2j.common.components.RenderElement;
@@ -24,6 +25,10 @@ public abstract class UpdatableEntity extends Entity implements Renderable, Phys
 
   public abstract void update(double elapsedTime);
 
+  public int writeTo(Snapshot snapshot) {
+    return snapshot.add(transform);
+  }
+
   public UpdatableEntity(
       Vector2f position, Vector2f scale, float rotation, float mass, String name, Texture texture) {
     this(position, scale, rotation, mass, name, new RenderElement(texture, Models.POINT));
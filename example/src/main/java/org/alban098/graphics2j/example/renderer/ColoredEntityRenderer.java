@@ -6,6 +6,7 @@
 package org.alban098.graphics2j.example.renderer;
 
 import java.io.File;
+import org.alban098.graphics2j.common.Renderable;
 import org.alban098.graphics2j.common.Window;
 import org.alban098.graphics2j.common.components.Camera;
 import org.alban098.graphics2j.common.shaders.ShaderAttribute;
@@ -15,11 +16,10 @@ import org.alban098.graphics2j.common.shaders.data.model.Primitive;
 import org.alban098.graphics2j.common.shaders.data.uniform.Uniform;
 import org.alban098.graphics2j.common.shaders.data.uniform.UniformMat4;
 import org.alban098.graphics2j.common.shaders.data.uniform.Uniforms;
-import org.alban098.graphics2j.example.entities.ColoredEntity;
 import org.alban098.graphics2j.objects.renderers.AbstractRenderer;
 import org.joml.Matrix4f;
 
-public class ColoredEntityRenderer extends AbstractRenderer<ColoredEntity> {
+public class ColoredEntityRenderer extends AbstractRenderer<Renderable> {
 
   public ColoredEntityRenderer() {
     super(
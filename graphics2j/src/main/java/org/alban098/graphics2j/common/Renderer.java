@@ -6,7 +6,7 @@
 package org.alban098.graphics2j.common;
 
 import java.util.Collection;
-import java.util.Map;
+import org.alban098.common.metrics.MetricGroup;
 import org.alban098.graphics2j.common.shaders.ShaderProgram;
 import org.alban098.graphics2j.common.shaders.data.Texture;
 import org.alban098.graphics2j.common.shaders.data.vao.ArrayObject;
@@ -14,6 +14,9 @@ import org.alban098.graphics2j.common.shaders.data.vao.ArrayObject;
 /** An Interface referencing all common behavior a Renderer should be able to do */
 public interface Renderer {
 
+  /** The number of samples kept for each series of {@link Renderer#getShaderTimes()} */
+  int SHADER_TIME_SAMPLES = 128;
+
   /**
    * Returns a Collection of all {@link Texture}s the Renderer can use during the rendering of a
    * frame
@@ -56,12 +59,12 @@ public interface Renderer {
   int getShaderBoundCount();
 
   /**
-   * Returns a Map of the times passed with each {@link ShaderProgram} of the Renderer bound, index
-   * by {@link ShaderProgram}
+   * Returns the times passed with each {@link ShaderProgram} of the Renderer bound, as one series
+   * per {@link ShaderProgram} in milliseconds, a sample being published every frame
    *
-   * @return a Map of time passed in each {@link ShaderProgram} of the Renderer
+   * @return the times passed in each {@link ShaderProgram} of the Renderer
    */
-  Map<ShaderProgram, Double> getShaderTimes();
+  MetricGroup getShaderTimes();
 
   /**
    * Returns the {@link ArrayObject}s used by this Renderer
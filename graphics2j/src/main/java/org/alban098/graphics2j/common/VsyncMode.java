@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.graphics2j.common;
+
+/** Regroups the possible synchronisations of the buffer swap with the display refresh */
+public enum VsyncMode {
+  /** Swap buffers as soon as a frame is ready, possibly tearing */
+  OFF(0),
+  /** Wait for every vertical blank before swapping buffers */
+  ON(1),
+  /** Wait for every other vertical blank, halving the refresh rate */
+  HALF(2),
+  /** Wait for the vertical blank unless the frame is late, then swap immediately and tear */
+  ADAPTIVE(-1);
+
+  /** The swap interval passed to GLFW */
+  private final int swapInterval;
+
+  /**
+   * Creates a new VsyncMode
+   *
+   * @param swapInterval the swap interval passed to GLFW
+   */
+  VsyncMode(int swapInterval) {
+    this.swapInterval = swapInterval;
+  }
+
+  /**
+   * Returns the swap interval passed to GLFW
+   *
+   * @return the swap interval passed to GLFW
+   */
+  public int getSwapInterval() {
+    return swapInterval;
+  }
+}
@@ -18,9 +18,14 @@ import imgui.flag.ImGuiConfigFlags;
 import imgui.gl3.ImGuiImplGl3;
 import imgui.glfw.ImGuiImplGlfw;
 import imgui.internal.ImGuiContext;
+import org.alban098.common.FramePacer;
 import org.alban098.common.MemoryManager;
+import org.alban098.common.metrics.MemoryTelemetry;
+import org.alban098.graphics2j.common.shaders.data.DeletionQueue;
+import org.alban098.graphics2j.common.shaders.data.Texture;
 import org.alban098.graphics2j.debug.ImGuiOverlay;
 import org.alban098.graphics2j.debug.ImGuiTab;
+import org.alban098.graphics2j.profiler.FrameProfiler;
 import org.lwjgl.glfw.GLFWErrorCallback;
 import org.lwjgl.glfw.GLFWFramebufferSizeCallback;
 import org.lwjgl.glfw.GLFWVidMode;
@@ -69,6 +74,16 @@ public final class Window {
   private long frameStartTimeNs = 0;
   /** The time at which the last frame has finished being computed in nanoseconds */
   private long lastFrameTimeEnd = 0;
+  /** The profiler recording CPU and GPU scopes of every frame */
+  private FrameProfiler profiler;
+  /** The id of the profiler scope wrapping the debug interface rendering */
+  private int imGuiScope;
+  /** The pacer waiting for the deadline of each frame */
+  private final FramePacer pacer = new FramePacer();
+  /** The telemetry sampling heap allocations, GC pauses and off-heap memory of each frame */
+  private final MemoryTelemetry memoryTelemetry = new MemoryTelemetry();
+  /** The current synchronisation of the buffer swap with the display refresh */
+  private VsyncMode vsyncMode = VsyncMode.OFF;
 
   /**
    * Create a new Window
@@ -141,9 +156,12 @@ public final class Window {
     glfwSetWindowPos(windowPtr, (videoMode.width() - width) / 2, (videoMode.height() - height) / 2);
 
     glfwMakeContextCurrent(windowPtr);
+    glfwSwapInterval(vsyncMode.getSwapInterval());
 
     glfwShowWindow(windowPtr);
     GL.createCapabilities();
+    profiler = new FrameProfiler();
+    imGuiScope = profiler.getScopeId("ImGui");
 
     glEnable(GL_MULTISAMPLE); // Enabled Multisample
     glEnable(GL_BLEND);
@@ -170,9 +188,11 @@ public final class Window {
       ImPlot.destroyContext(plotCtx);
       ImGui.destroyContext(imGuiCtx);
     }
+    // Everything must be released while the context still exists
+    MemoryManager.finish();
+    DeletionQueue.process();
     GL.destroy();
     glfwDestroyWindow(windowPtr);
-    MemoryManager.finish();
   }
 
   /**
@@ -241,18 +261,22 @@ public final class Window {
 
   /** Initialize the window to draw a new frame */
   public void newFrame() {
+    frameStartTimeNs = System.nanoTime();
+    pacer.beginFrame();
+    memoryTelemetry.beginFrame();
+    profiler.beginFrame();
     glClear(GL_COLOR_BUFFER_BIT);
     if (imGuiActivated) {
       imguiGlfw.newFrame();
       ImGui.newFrame();
     }
-    frameStartTimeNs = System.nanoTime();
+    Texture.nextFrame();
   }
 
   /** Process the frame to draw it to the screen */
   public void endFrame() {
-    frameStartTimeNs = System.nanoTime();
     if (imGuiActivated) {
+      profiler.begin(imGuiScope);
       if (debugInterface.isVisible()) {
         debugInterface.render();
       }
@@ -267,11 +291,22 @@ public final class Window {
         ImGui.renderPlatformWindowsDefault();
         glfwMakeContextCurrent(backupWindowPtr);
       }
+      profiler.end();
     }
+    profiler.endFrame();
+    // Runs the reclaim actions of unreachable objects that must run on this thread
+    MemoryManager.processReclaims();
+    // Deletes the OpenGL objects released since the last frame, possibly by other threads
+    DeletionQueue.process();
+    // The computation time of the frame excludes pacing and waiting for the buffer swap
+    frametime = System.nanoTime() - frameStartTimeNs;
+    memoryTelemetry.endFrame();
+    pacer.endFrame();
     glfwSwapBuffers(windowPtr);
+    // In low latency mode, input is polled as late as the next frame allows
+    pacer.waitForFrameStart();
     glfwPollEvents();
 
-    frametime = System.nanoTime() - frameStartTimeNs;
     timeSinceLastFrame = System.nanoTime() - lastFrameTimeEnd;
     lastFrameTimeEnd = System.nanoTime();
   }
@@ -303,6 +338,79 @@ public final class Window {
     return timeSinceLastFrame / 1_000_000_000.0;
   }
 
+  /**
+   * Sets the synchronisation of the buffer swap with the display refresh, falling back to {@link
+   * VsyncMode#ON} if adaptive synchronisation is not supported
+   *
+   * @param mode the new synchronisation mode
+   */
+  public void setVsync(VsyncMode mode) {
+    if (mode == VsyncMode.ADAPTIVE
+        && !glfwExtensionSupported("WGL_EXT_swap_control_tear")
+        && !glfwExtensionSupported("GLX_EXT_swap_control_tear")) {
+      LOGGER.warn("Adaptive vsync is not supported, falling back to regular vsync");
+      mode = VsyncMode.ON;
+    }
+    vsyncMode = mode;
+    glfwSwapInterval(mode.getSwapInterval());
+  }
+
+  /**
+   * Returns the current synchronisation of the buffer swap with the display refresh
+   *
+   * @return the current synchronisation mode
+   */
+  public VsyncMode getVsync() {
+    return vsyncMode;
+  }
+
+  /**
+   * Sets the frame rate the Window is paced to, should be left uncapped when vsync is enabled
+   *
+   * @param fps the target number of frames per second, 0 to disable pacing
+   */
+  public void setTargetFps(int fps) {
+    pacer.setTargetFps(fps);
+  }
+
+  /**
+   * Enables or disables the low latency mode, delaying input polling until just enough time is left
+   * to compute the next frame before its deadline. Only effective when a target frame rate is set
+   *
+   * @param lowLatency should the low latency mode be enabled
+   */
+  public void setLowLatency(boolean lowLatency) {
+    pacer.setLowLatency(lowLatency);
+  }
+
+  /**
+   * Returns the pacer waiting for the deadline of each frame, and tracking frame times and jitter
+   *
+   * @return the pacer of the Window
+   */
+  public FramePacer getPacer() {
+    return pacer;
+  }
+
+  /**
+   * Returns the telemetry sampling the heap allocations, garbage collection pauses and off-heap
+   * memory of each frame, a steady state frame should not allocate anything
+   *
+   * @return the memory telemetry of the Window
+   */
+  public MemoryTelemetry getMemoryTelemetry() {
+    return memoryTelemetry;
+  }
+
+  /**
+   * Returns the profiler recording CPU and GPU scopes of every frame
+   *
+   * @return the profiler of the Window
+   */
+  public FrameProfiler getProfiler() {
+    return profiler;
+  }
+
   /**
    * Adds a new {@link ImGuiTab} to the {@link ImGuiOverlay} of the Window
    *
@@ -37,6 +37,10 @@ public final class Camera {
   private float zoom = 10;
   /** A bounding box for the Camera's viewport used for Entity clipping */
   private final Vector4f viewportBoundingBox;
+  /** A corner of the viewport, reused to avoid allocating when computing the bounding box */
+  private final Vector4f corner = new Vector4f();
+  /** The displacement of the Camera, reused to avoid allocating when panning */
+  private final Vector2f pan = new Vector2f();
 
   /**
    * Creates a new Camera at a specified position
@@ -45,12 +49,22 @@ public final class Camera {
    * @param position the position of the Camera in world space
    */
   public Camera(Window window, Vector2f position) {
+    this(window.getAspectRatio(), position);
+  }
+
+  /**
+   * Creates a new Camera at a specified position, for a viewport of a set aspect ratio
+   *
+   * @param aspectRatio the aspect ratio of the viewport of the Camera
+   * @param position the position of the Camera in world space
+   */
+  public Camera(float aspectRatio, Vector2f position) {
     this.position = position;
     this.projectionMatrix = new Matrix4f();
     this.viewMatrix = new Matrix4f();
     this.inverseTransform = new Matrix4f();
     this.viewportBoundingBox = new Vector4f(-1, 1, 1, -1);
-    adjustProjection(window.getAspectRatio());
+    adjustProjection(aspectRatio);
   }
 
   /**
@@ -73,11 +87,11 @@ public final class Camera {
 
   /** Calculates the view matrix of the Camera, used to convert from world space to view space */
   public void adjustView() {
-    this.viewMatrix.identity();
-    this.viewMatrix.lookAt(
-        new Vector3f(position.x, position.y, 1f),
-        new Vector3f(position.x, position.y, 0f),
-        new Vector3f(0f, 1f, 0f).rotateZ(rotation));
+    float sin = Math.sin(rotation);
+    float cos = Math.cosFromSin(sin, rotation);
+    // The up vector is the Y axis rotated around the Z axis
+    this.viewMatrix.setLookAt(
+        position.x, position.y, 1f, position.x, position.y, 0f, -sin, cos, 0f);
   }
 
   /**
@@ -182,15 +196,14 @@ public final class Camera {
     if (mouseInputManager.canTakeControl(this)) {
       if (mouseInputManager.isLeftButtonPressed()) {
         mouseInputManager.halt(this);
-        Vector2f pan =
-            mouseInputManager.getDisplacementVector().div(window.getHeight()).mul(getZoom());
+        mouseInputManager.getDisplacementVector(pan).div(window.getHeight()).mul(getZoom());
         pan.x = -pan.x;
         move(pan);
       }
 
       if (mouseInputManager.isRightButtonPressed()) {
         mouseInputManager.halt(this);
-        float rotation = mouseInputManager.getDisplacementVector().y;
+        float rotation = mouseInputManager.getDisplacementVector(pan).y;
         rotate((float) (rotation / java.lang.Math.PI / 128f));
       }
 
@@ -210,18 +223,23 @@ public final class Camera {
   }
 
   /**
-   * Computes the pseudo viewport by computing an orthogonal bounding box around the real viewport
+   * Computes the pseudo viewport by computing an orthogonal bounding box around the real viewport,
+   * done by {@link #update(Window, MouseState)}, must be called after the view or the projection
+   * has been changed otherwise
    */
-  private void computeViewportBoundingBox() {
+  public void computeViewportBoundingBox() {
     inverseTransform.identity().mul(projectionMatrix).mul(viewMatrix).invert();
-    Vector4f topLeft = new Vector4f(-1, 1, 0, 1).mul(inverseTransform);
-    Vector4f topRight = new Vector4f(1, 1, 0, 1).mul(inverseTransform);
-    Vector4f bottomLeft = new Vector4f(-1, -1, 0, 1).mul(inverseTransform);
-    Vector4f bottomRight = new Vector4f(1, -1, 0, 1).mul(inverseTransform);
-    float maxX = Math.max(Math.max(Math.max(topLeft.x, topRight.x), bottomRight.x), bottomLeft.x);
-    float maxY = Math.max(Math.max(Math.max(topLeft.y, topRight.y), bottomRight.y), bottomLeft.y);
-    float minX = Math.min(Math.min(Math.min(topLeft.x, topRight.x), bottomRight.x), bottomLeft.x);
-    float minY = Math.min(Math.min(Math.min(topLeft.y, topRight.y), bottomRight.y), bottomLeft.y);
+    float minX = Float.POSITIVE_INFINITY;
+    float minY = Float.POSITIVE_INFINITY;
+    float maxX = Float.NEGATIVE_INFINITY;
+    float maxY = Float.NEGATIVE_INFINITY;
+    for (int i = 0; i < 4; i++) {
+      corner.set((i & 1) == 0 ? -1 : 1, (i & 2) == 0 ? -1 : 1, 0, 1).mul(inverseTransform);
+      minX = Math.min(minX, corner.x);
+      minY = Math.min(minY, corner.y);
+      maxX = Math.max(maxX, corner.x);
+      maxY = Math.max(maxY, corner.y);
+    }
     viewportBoundingBox.set(minX, minY, maxX, maxY);
   }
 }
@@ -10,6 +10,7 @@ import java.nio.IntBuffer;
 import java.util.HashMap;
 import java.util.Map;
 import org.alban098.common.Cleanable;
+import org.alban098.common.MemoryManager;
 import org.alban098.graphics2j.common.shaders.ShaderAttribute;
 import org.alban098.graphics2j.common.shaders.ShaderAttributes;
 import org.alban098.graphics2j.common.shaders.data.Texture;
@@ -39,6 +40,7 @@ public final class RenderElement implements Cleanable {
     this.attributes = new HashMap<>();
     this.model = model;
     initialize();
+    accountMemory();
   }
 
   /**
@@ -50,8 +52,8 @@ public final class RenderElement implements Cleanable {
     this.texture = null;
     this.attributes = new HashMap<>();
     this.model = model;
-    setAttributeValue(ShaderAttributes.COLOR_ATTRIBUTE, color);
     initialize();
+    setAttributeValue(ShaderAttributes.COLOR_ATTRIBUTE, color);
   }
 
   /**
@@ -64,6 +66,7 @@ public final class RenderElement implements Cleanable {
     this.attributes = new HashMap<>();
     this.model = model;
     initialize();
+    accountMemory();
   }
 
   /**
@@ -98,6 +101,7 @@ public final class RenderElement implements Cleanable {
         buffer = MemoryUtil.memAllocInt(1);
         buffer.put(data);
         this.attributes.put(attribute, buffer);
+        accountMemory();
       } else {
         buffer.clear();
         buffer.put(data);
@@ -106,6 +110,7 @@ public final class RenderElement implements Cleanable {
       IntBuffer buffer = MemoryUtil.memAllocInt(1);
       buffer.put(data);
       this.attributes.put(attribute, buffer);
+      accountMemory();
     }
   }
 
@@ -116,22 +121,7 @@ public final class RenderElement implements Cleanable {
    * @param data the new value
    */
   public void setAttributeValue(ShaderAttribute attribute, float data) {
-    if (this.attributes.containsKey(attribute)) {
-      FloatBuffer buffer = (FloatBuffer) this.attributes.get(attribute);
-      if (buffer.capacity() != 1) {
-        MemoryUtil.memFree(buffer);
-        buffer = MemoryUtil.memAllocFloat(1);
-        buffer.put(data);
-        this.attributes.put(attribute, buffer);
-      } else {
-        buffer.clear();
-        buffer.put(data);
-      }
-    } else {
-      FloatBuffer buffer = MemoryUtil.memAllocFloat(1);
-      buffer.put(data);
-      this.attributes.put(attribute, buffer);
-    }
+    floatBuffer(attribute, 1).put(data);
   }
 
   /**
@@ -141,22 +131,7 @@ public final class RenderElement implements Cleanable {
    * @param data the new value
    */
   public void setAttributeValue(ShaderAttribute attribute, Vector2f data) {
-    if (this.attributes.containsKey(attribute)) {
-      FloatBuffer buffer = (FloatBuffer) this.attributes.get(attribute);
-      if (buffer.capacity() < 2) {
-        MemoryUtil.memFree(buffer);
-        buffer = MemoryUtil.memAllocFloat(2);
-        buffer.put(new float[] {data.x, data.y});
-        this.attributes.put(attribute, buffer);
-      } else {
-        buffer.clear();
-        buffer.put(new float[] {data.x, data.y});
-      }
-    } else {
-      FloatBuffer buffer = MemoryUtil.memAllocFloat(2);
-      buffer.put(new float[] {data.x, data.y});
-      this.attributes.put(attribute, buffer);
-    }
+    floatBuffer(attribute, 2).put(data.x).put(data.y);
   }
 
   /**
@@ -166,22 +141,7 @@ public final class RenderElement implements Cleanable {
    * @param data the new value
    */
   public void setAttributeValue(ShaderAttribute attribute, Vector3f data) {
-    if (this.attributes.containsKey(attribute)) {
-      FloatBuffer buffer = (FloatBuffer) this.attributes.get(attribute);
-      if (buffer.capacity() < 3) {
-        MemoryUtil.memFree(buffer);
-        buffer = MemoryUtil.memAllocFloat(3);
-        buffer.put(new float[] {data.x, data.y, data.z});
-        this.attributes.put(attribute, buffer);
-      } else {
-        buffer.clear();
-        buffer.put(new float[] {data.x, data.y, data.z});
-      }
-    } else {
-      FloatBuffer buffer = MemoryUtil.memAllocFloat(3);
-      buffer.put(new float[] {data.x, data.y, data.z});
-      this.attributes.put(attribute, buffer);
-    }
+    floatBuffer(attribute, 3).put(data.x).put(data.y).put(data.z);
   }
 
   /**
@@ -191,22 +151,7 @@ public final class RenderElement implements Cleanable {
    * @param data the new value
    */
   public void setAttributeValue(ShaderAttribute attribute, Vector4f data) {
-    if (this.attributes.containsKey(attribute)) {
-      FloatBuffer buffer = (FloatBuffer) this.attributes.get(attribute);
-      if (buffer.capacity() < 4) {
-        MemoryUtil.memFree(buffer);
-        buffer = MemoryUtil.memAllocFloat(4);
-        buffer.put(new float[] {data.x, data.y, data.z, data.w});
-        this.attributes.put(attribute, buffer);
-      } else {
-        buffer.clear();
-        buffer.put(new float[] {data.x, data.y, data.z, data.w});
-      }
-    } else {
-      FloatBuffer buffer = MemoryUtil.memAllocFloat(4);
-      buffer.put(new float[] {data.x, data.y, data.z, data.w});
-      this.attributes.put(attribute, buffer);
-    }
+    floatBuffer(attribute, 4).put(data.x).put(data.y).put(data.z).put(data.w);
   }
 
   /**
@@ -216,22 +161,29 @@ public final class RenderElement implements Cleanable {
    * @param data the new value
    */
   public void setAttributeValue(ShaderAttribute attribute, Matrix2f data) {
-    if (this.attributes.containsKey(attribute)) {
-      FloatBuffer buffer = (FloatBuffer) this.attributes.get(attribute);
-      if (buffer.capacity() < 4) {
-        MemoryUtil.memFree(buffer);
-        buffer = MemoryUtil.memAllocFloat(4);
-        buffer.put(data.get(new float[4]));
-        this.attributes.put(attribute, buffer);
-      } else {
-        buffer.clear();
-        buffer.put(data.get(new float[4]));
-      }
-    } else {
-      FloatBuffer buffer = MemoryUtil.memAllocFloat(4);
-      buffer.put(data.get(new float[4]));
-      this.attributes.put(attribute, buffer);
+    floatBuffer(attribute, 4).put(data.m00).put(data.m01).put(data.m10).put(data.m11);
+  }
+
+  /**
+   * Returns the cleared buffer of a float {@link ShaderAttribute}, reusing the current one if it is
+   * large enough, so setting a value every frame does not allocate
+   *
+   * @param attribute the {@link ShaderAttribute} to retrieve the buffer of
+   * @param size the number of floats that will be written
+   * @return the buffer to write the value into
+   */
+  private FloatBuffer floatBuffer(ShaderAttribute attribute, int size) {
+    FloatBuffer buffer = (FloatBuffer) attributes.get(attribute);
+    if (buffer != null && buffer.capacity() >= size) {
+      return buffer.clear();
     }
+    if (buffer != null) {
+      MemoryUtil.memFree(buffer);
+    }
+    buffer = MemoryUtil.memAllocFloat(size);
+    attributes.put(attribute, buffer);
+    accountMemory();
+    return buffer;
   }
 
   /**
@@ -253,6 +205,27 @@ public final class RenderElement implements Cleanable {
     attributes.values().forEach(MemoryUtil::memFree);
   }
 
+  /**
+   * Returns an action freeing the attribute buffers of the Element once it has become unreachable
+   *
+   * @return an action freeing the attribute buffers of the Element
+   */
+  @Override
+  public Runnable getReclaimAction() {
+    Map<ShaderAttribute, java.nio.Buffer> buffers = attributes;
+    return () -> buffers.values().forEach(MemoryUtil::memFree);
+  }
+
+  /** Reports the off-heap memory held by the attribute buffers to the {@link MemoryManager} */
+  private void accountMemory() {
+    long bytes = 0;
+    for (java.nio.Buffer buffer : attributes.values()) {
+      // All attribute buffers hold 4 bytes elements
+      bytes += buffer.capacity() * 4L;
+    }
+    MemoryManager.account(this, bytes, 0);
+  }
+
   public Model getModel() {
     return model;
   }
@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.graphics2j.common.shaders.data;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+import org.alban098.common.metrics.MetricSeries;
+import org.lwjgl.BufferUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This static class defers the deletion of OpenGL objects. Releases can be posted by any thread,
+ * and are accumulated until the thread owning the OpenGL context drains them at the end of the
+ * frame, issuing a single bulk glDelete* call per {@link ResourceType}. Producers and the consumer
+ * work on two distinct batches swapped when draining, so posting never waits for the deletions
+ */
+public final class DeletionQueue {
+
+  /** The number of samples kept by the timing series */
+  public static final int SAMPLES = 128;
+
+  /** Just a Logger to log events */
+  private static final Logger LOGGER = LoggerFactory.getLogger(DeletionQueue.class);
+  /** All types of objects */
+  private static final ResourceType[] TYPES = ResourceType.values();
+  /** The lock guarding the batch receiving the releases */
+  private static final Object LOCK = new Object();
+  /** The time between the oldest release of each drained batch and its deletion, in ms */
+  private static final MetricSeries latency = new MetricSeries("latency", SAMPLES);
+  /** The number of bytes reclaimed by each drained batch */
+  private static final MetricSeries reclaimedBytes = new MetricSeries("reclaimed", SAMPLES);
+  /** The batch receiving the releases */
+  private static Batch pending = new Batch();
+  /** The batch being drained, only accessed by the thread owning the OpenGL context */
+  private static Batch draining = new Batch();
+  /** The buffer passing the names of a batch to OpenGL, grown as needed */
+  private static IntBuffer names = BufferUtils.createIntBuffer(64);
+  /** The number of objects deleted since the start */
+  private static long deletedCount = 0;
+  /** The number of bytes reclaimed since the start */
+  private static long deletedBytes = 0;
+  /** The number of objects deleted by the last drain */
+  private static int lastDeletedCount = 0;
+
+  /** Private constructor to prevent instantiation */
+  private DeletionQueue() {}
+
+  /**
+   * Posts the release of an OpenGL object, it will be deleted by the next call to {@link
+   * #process()}. Can be called from any thread
+   *
+   * @param type the type of the object
+   * @param name the name of the object as provided by OpenGL, 0 is ignored
+   * @param bytes the number of bytes of VRAM held by the object, 0 if unknown
+   */
+  public static void post(ResourceType type, int name, long bytes) {
+    if (name == 0) {
+      return;
+    }
+    long now = System.nanoTime();
+    synchronized (LOCK) {
+      pending.add(type, name, bytes, now);
+    }
+  }
+
+  /**
+   * Deletes every object released since the last call, one bulk call per type of object. Must be
+   * called by the thread owning the OpenGL context, once per frame
+   *
+   * @return the number of objects deleted
+   */
+  public static int process() {
+    return process(ResourceType::delete);
+  }
+
+  /**
+   * Deletes every object released since the last call, one call of the deleter per type of object
+   *
+   * @param deleter the bulk deletion of a type of object, fed with the names between the position
+   *     and the limit of the buffer
+   * @return the number of objects deleted
+   */
+  static int process(BiConsumer<ResourceType, IntBuffer> deleter) {
+    Batch batch;
+    synchronized (LOCK) {
+      batch = pending;
+      pending = draining;
+      draining = batch;
+    }
+    lastDeletedCount = batch.size;
+    if (batch.size == 0) {
+      latency.push(0);
+      reclaimedBytes.push(0);
+      return 0;
+    }
+    for (ResourceType type : TYPES) {
+      int count = batch.counts[type.ordinal()];
+      if (count > 0) {
+        if (names.capacity() < count) {
+          names = BufferUtils.createIntBuffer(Integer.highestOneBit(count - 1) << 1);
+        }
+        names.clear();
+        names.put(batch.names[type.ordinal()], 0, count).flip();
+        deleter.accept(type, names);
+      }
+    }
+    latency.push((System.nanoTime() - batch.oldestPostNs) / 1_000_000.0);
+    reclaimedBytes.push(batch.bytes);
+    deletedCount += batch.size;
+    deletedBytes += batch.bytes;
+    LOGGER.debug("Deleted {} OpenGL objects, reclaiming {} bytes", batch.size, batch.bytes);
+    batch.clear();
+    return lastDeletedCount;
+  }
+
+  /**
+   * Returns the number of releases waiting to be processed
+   *
+   * @return the number of releases waiting to be processed
+   */
+  public static int getPendingCount() {
+    synchronized (LOCK) {
+      return pending.size;
+    }
+  }
+
+  /**
+   * Returns the number of objects deleted by the last call to {@link #process()}
+   *
+   * @return the number of objects deleted by the last drain
+   */
+  public static int getLastDeletedCount() {
+    return lastDeletedCount;
+  }
+
+  /**
+   * Returns the number of objects deleted since the start
+   *
+   * @return the total number of objects deleted
+   */
+  public static long getDeletedCount() {
+    return deletedCount;
+  }
+
+  /**
+   * Returns the number of bytes of VRAM reclaimed since the start
+   *
+   * @return the total number of bytes reclaimed
+   */
+  public static long getDeletedBytes() {
+    return deletedBytes;
+  }
+
+  /**
+   * Returns the time between the oldest release of each drained batch and its deletion, in ms
+   *
+   * @return the deletion latency of each drain
+   */
+  public static MetricSeries getLatency() {
+    return latency;
+  }
+
+  /**
+   * Returns the number of bytes of VRAM reclaimed by each drain
+   *
+   * @return the number of bytes reclaimed by each drain
+   */
+  public static MetricSeries getReclaimedBytes() {
+    return reclaimedBytes;
+  }
+
+  /** A set of releases, grouped by type of object */
+  private static final class Batch {
+
+    /** The names of the released objects, indexed by type */
+    private final int[][] names = new int[TYPES.length][16];
+    /** The number of released objects of each type */
+    private final int[] counts = new int[TYPES.length];
+    /** The total number of released objects */
+    private int size = 0;
+    /** The number of bytes of VRAM held by the released objects */
+    private long bytes = 0;
+    /** The time at which the first release of the batch has been posted, in ns */
+    private long oldestPostNs = 0;
+
+    /**
+     * Adds a release to the batch
+     *
+     * @param type the type of the object
+     * @param name the name of the object
+     * @param bytes the number of bytes of VRAM held by the object
+     * @param now the current time, in ns
+     */
+    private void add(ResourceType type, int name, long bytes, long now) {
+      int index = type.ordinal();
+      if (counts[index] == names[index].length) {
+        names[index] = Arrays.copyOf(names[index], names[index].length * 2);
+      }
+      names[index][counts[index]++] = name;
+      if (size++ == 0) {
+        oldestPostNs = now;
+      }
+      this.bytes += bytes;
+    }
+
+    /** Empties the batch, keeping its storage */
+    private void clear() {
+      Arrays.fill(counts, 0);
+      size = 0;
+      bytes = 0;
+    }
+  }
+}
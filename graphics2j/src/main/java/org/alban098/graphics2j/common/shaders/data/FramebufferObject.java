@@ -78,10 +78,23 @@ public final class FramebufferObject implements Cleanable {
   /** Deletes the frame buffer and its attachments */
   @Override
   public void cleanUp() {
-    GL30.glDeleteFramebuffers(framebuffer);
+    DeletionQueue.post(ResourceType.FRAMEBUFFER, framebuffer, 0);
     LOGGER.info("FBO {} cleaned up", framebuffer);
   }
 
+  /**
+   * Returns an action releasing the Framebuffer once it has become unreachable, its attachments are
+   * reclaimed on their own. The release is posted to the {@link DeletionQueue} so it can run on any
+   * thread
+   *
+   * @return an action releasing the Framebuffer
+   */
+  @Override
+  public Runnable getReclaimAction() {
+    int framebufferId = framebuffer;
+    return () -> DeletionQueue.post(ResourceType.FRAMEBUFFER, framebufferId, 0);
+  }
+
   /**
    * Return the width of the buffer
    *
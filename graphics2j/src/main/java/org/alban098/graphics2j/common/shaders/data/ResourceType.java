@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.graphics2j.common.shaders.data;
+
+import java.nio.IntBuffer;
+import java.util.function.Consumer;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL15;
+import org.lwjgl.opengl.GL30;
+
+/** The types of OpenGL objects that can be released through the {@link DeletionQueue} */
+public enum ResourceType {
+  /** Vertex, index and storage buffers */
+  BUFFER(GL15::glDeleteBuffers),
+  /** Textures */
+  TEXTURE(GL11::glDeleteTextures),
+  /** Framebuffers */
+  FRAMEBUFFER(GL30::glDeleteFramebuffers),
+  /** Renderbuffers */
+  RENDERBUFFER(GL30::glDeleteRenderbuffers),
+  /** Vertex array objects */
+  VERTEX_ARRAY(GL30::glDeleteVertexArrays),
+  /** Timer and occlusion queries */
+  QUERY(GL15::glDeleteQueries);
+
+  /** The bulk deletion function of this type of object */
+  private final Consumer<IntBuffer> deleter;
+
+  /**
+   * Creates a new ResourceType
+   *
+   * @param deleter the bulk deletion function of this type of object
+   */
+  ResourceType(Consumer<IntBuffer> deleter) {
+    this.deleter = deleter;
+  }
+
+  /**
+   * Deletes a batch of objects of this type in a single call, must be called by the thread owning
+   * the OpenGL context
+   *
+   * @param names the names of the objects to delete, between the position and the limit
+   */
+  void delete(IntBuffer names) {
+    deleter.accept(names);
+  }
+}
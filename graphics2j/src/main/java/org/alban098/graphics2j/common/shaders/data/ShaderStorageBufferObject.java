@@ -12,6 +12,7 @@ import static org.lwjgl.opengl.GL43.GL_SHADER_STORAGE_BUFFER;
 import java.nio.Buffer;
 import java.nio.FloatBuffer;
 import org.alban098.common.Cleanable;
+import org.alban098.common.MemoryManager;
 import org.alban098.graphics2j.common.shaders.ShaderProgram;
 import org.alban098.graphics2j.common.shaders.data.vao.ArrayObject;
 import org.alban098.graphics2j.common.shaders.data.vbo.VertexBufferObject;
@@ -64,6 +65,8 @@ public final class ShaderStorageBufferObject implements Cleanable {
         this.buffer.capacity());
     bind();
     initialize();
+    // The staging buffer is mirrored in VRAM once loaded
+    MemoryManager.account(this, size, size);
   }
 
   /**
@@ -96,7 +99,7 @@ public final class ShaderStorageBufferObject implements Cleanable {
   /** Clears the Shader Storage Buffer Object from VRAM */
   @Override
   public void cleanUp() {
-    glDeleteBuffers(id);
+    DeletionQueue.post(ResourceType.BUFFER, id, size);
     MemoryUtil.memFree(buffer);
     LOGGER.info("SSBO {} cleaned up", id);
   }
@@ -9,6 +9,9 @@ import static org.lwjgl.opengl.GL11.*;
 
 import java.util.Objects;
 import org.alban098.common.Cleanable;
+import org.alban098.common.MemoryManager;
+import org.alban098.graphics2j.common.Window;
+import org.alban098.graphics2j.common.textures.TextureFormat;
 import org.lwjgl.BufferUtils;
 import org.lwjgl.opengl.GL11;
 import org.lwjgl.opengl.GL12;
@@ -20,17 +23,27 @@ public final class Texture implements Cleanable {
 
   /** Just a Logger to log events */
   private static final Logger LOGGER = LoggerFactory.getLogger(Texture.class);
+  /** The index of the current frame, used to keep track of when Textures have last been bound */
+  private static long currentFrame = 0;
 
   /** The id of the texture as provided by OpenGL */
   private final int id;
   /** The width of the Texture in pixels */
-  private final int width;
+  private int width;
   /** The height of the Texture in pixels */
-  private final int height;
-  /** The size of the Texture in bytes */
-  private final int size;
+  private int height;
+  /** The internal format of the Texture in VRAM */
+  private TextureFormat format;
+  /** The number of Mip Map levels of the Texture */
+  private int mipLevels;
   /** Is the texture extracted from a file or is it an internal buffer */
   private final boolean fromFile;
+  /** Does the Texture hold its final content, false while it is only a placeholder */
+  private volatile boolean ready;
+  /** The index of the last frame during which the Texture has been bound, -1 if never bound */
+  private long lastBoundFrame = -1;
+  /** The size of the Texture in VRAM in bytes, shared with the reclaim action */
+  private final long[] residentBytes = new long[1];
 
   /**
    * Create a new empty Texture from attributes
@@ -38,16 +51,21 @@ public final class Texture implements Cleanable {
    * @param id the id of the texture provided by OpenGL
    * @param width the Texture width in pixels
    * @param height the Texture height in pixels
-   * @param size the size of the Texture in bytes
+   * @param format the internal format of the Texture in VRAM
+   * @param mipLevels the number of Mip Map levels of the Texture
    * @param fromFile is the texture supposed to hold data extracted from an external file
    */
-  public Texture(int id, int width, int height, int size, boolean fromFile) {
+  public Texture(
+      int id, int width, int height, TextureFormat format, int mipLevels, boolean fromFile) {
     this.id = id;
     this.width = width;
     this.height = height;
-    this.size = size;
+    this.format = format;
+    this.mipLevels = mipLevels;
     this.fromFile = fromFile;
+    this.ready = true;
     initialize();
+    account();
   }
 
   /**
@@ -61,7 +79,9 @@ public final class Texture implements Cleanable {
     this.width = width;
     this.height = height;
     this.fromFile = fromFile;
-    size = width * height * 4;
+    this.ready = true;
+    this.format = TextureFormat.RGBA8;
+    this.mipLevels = 1;
     // Generate the texture
     id = glGenTextures();
     bind();
@@ -84,13 +104,132 @@ public final class Texture implements Cleanable {
     LOGGER.info(
         "Created empty Texture of size {}*{} with Linear filtering in RGBA mode", width, height);
     initialize();
+    account();
+  }
+
+  /**
+   * Creates a 1*1 transparent placeholder Texture, meant to be filled later by calling {@link
+   * Texture#setContent(int, int, TextureFormat, int)} once its real content has been uploaded. Must
+   * be called from the thread owning the OpenGL context
+   *
+   * @param fromFile is the texture supposed to hold data extracted from an external file
+   * @return a new placeholder Texture
+   */
+  public static Texture createPlaceholder(boolean fromFile) {
+    int id = glGenTextures();
+    glBindTexture(GL_TEXTURE_2D, id);
+    glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_LINEAR);
+    glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_LINEAR);
+    glTexImage2D(
+        GL_TEXTURE_2D,
+        0,
+        GL_RGBA,
+        1,
+        1,
+        0,
+        GL_RGBA,
+        GL_UNSIGNED_BYTE,
+        BufferUtils.createByteBuffer(4));
+    glBindTexture(GL_TEXTURE_2D, 0);
+    Texture texture = new Texture(id, 1, 1, TextureFormat.RGBA8, 1, fromFile);
+    texture.ready = false;
+    LOGGER.debug("Created placeholder Texture {}", id);
+    return texture;
+  }
+
+  /**
+   * Updates the dimensions of the Texture after its content has been (re)uploaded into VRAM, and
+   * marks it as ready
+   *
+   * @param width the new width of the Texture in pixels
+   * @param height the new height of the Texture in pixels
+   * @param format the new internal format of the Texture in VRAM
+   * @param mipLevels the new number of Mip Map levels of the Texture
+   */
+  public void setContent(int width, int height, TextureFormat format, int mipLevels) {
+    this.width = width;
+    this.height = height;
+    this.format = format;
+    this.mipLevels = mipLevels;
+    this.ready = true;
+    account();
+  }
+
+  /**
+   * Returns whether the Texture holds its final content, or is still a placeholder waiting for an
+   * upload to finish
+   *
+   * @return whether the Texture holds its final content
+   */
+  public boolean isReady() {
+    return ready;
+  }
+
+  /**
+   * Releases the VRAM used by the Texture content while keeping its id, so it stays valid for any
+   * structure referencing it. The Texture becomes a 1*1 transparent placeholder until its content
+   * is uploaded again. Must be called from the thread owning the OpenGL context
+   */
+  public void evict() {
+    glBindTexture(GL_TEXTURE_2D, id);
+    // Redefining every level with an empty image releases their storage
+    for (int level = mipLevels - 1; level > 0; level--) {
+      glTexImage2D(GL_TEXTURE_2D, level, GL_RGBA, 0, 0, 0, GL_RGBA, GL_UNSIGNED_BYTE, 0L);
+    }
+    glTexImage2D(
+        GL_TEXTURE_2D,
+        0,
+        GL_RGBA,
+        1,
+        1,
+        0,
+        GL_RGBA,
+        GL_UNSIGNED_BYTE,
+        BufferUtils.createByteBuffer(4));
+    glBindTexture(GL_TEXTURE_2D, 0);
+    width = 1;
+    height = 1;
+    format = TextureFormat.RGBA8;
+    mipLevels = 1;
+    ready = false;
+    account();
+    LOGGER.debug("Texture {} evicted from VRAM", id);
+  }
+
+  /** Signals that a new frame has started, called once per frame by the {@link Window} */
+  public static void nextFrame() {
+    currentFrame++;
+  }
+
+  /**
+   * Returns the index of the current frame
+   *
+   * @return the index of the current frame
+   */
+  public static long getCurrentFrame() {
+    return currentFrame;
+  }
+
+  /**
+   * Returns the index of the last frame during which the Texture has been bound
+   *
+   * @return the index of the last frame during which the Texture has been bound, -1 if never bound
+   */
+  public long getLastBoundFrame() {
+    return lastBoundFrame;
   }
 
   /** Bind the texture for rendering */
   public void bind() {
+    markBound();
     glBindTexture(GL_TEXTURE_2D, id);
   }
 
+  /** Records that the Texture has been bound during the current frame, without any OpenGL call */
+  public void markBound() {
+    lastBoundFrame = currentFrame;
+  }
+
   /**
    * Return the Texture id
    *
@@ -127,25 +266,71 @@ public final class Texture implements Cleanable {
     return (float) width / height;
   }
 
-  /** Cleanup the Texture */
+  /** Cleanup the Texture, its deletion is deferred to the end of the frame */
   @Override
   public void cleanUp() {
-    glDeleteTextures(id);
+    DeletionQueue.post(ResourceType.TEXTURE, id, residentBytes[0]);
     LOGGER.info("Texture {} cleaned up", id);
   }
 
+  /**
+   * Returns an action releasing the Texture from VRAM once it has become unreachable, the release
+   * is posted to the {@link DeletionQueue} so it can run on any thread
+   *
+   * @return an action releasing the Texture from VRAM
+   */
+  @Override
+  public Runnable getReclaimAction() {
+    int textureId = id;
+    long[] bytes = residentBytes;
+    return () -> DeletionQueue.post(ResourceType.TEXTURE, textureId, bytes[0]);
+  }
+
+  /** Updates the accounting of the Texture after its storage has changed */
+  private void account() {
+    residentBytes[0] = getMemorySize();
+    MemoryManager.account(this, 0, residentBytes[0]);
+  }
+
   /** Unbind the texture after use */
   public void unbind() {
     glBindTexture(GL_TEXTURE_2D, 0);
   }
 
   /**
-   * Returns the size of the Texture in VRAM in bytes
+   * Returns the size of the base level of the Texture in VRAM in bytes, according to its format
    *
-   * @return the size of the Texture in VRAM in bytes
+   * @return the size of the base level of the Texture in VRAM in bytes
    */
   public int getSize() {
-    return size;
+    return format.getLevelSize(width, height);
+  }
+
+  /**
+   * Returns the number of Mip Map levels of the Texture
+   *
+   * @return the number of Mip Map levels of the Texture
+   */
+  public int getMipLevelCount() {
+    return mipLevels;
+  }
+
+  /**
+   * Returns the size of the Texture in VRAM in bytes, including all its Mip Map levels
+   *
+   * @return the size of the Texture in VRAM in bytes, including all its Mip Map levels
+   */
+  public long getMemorySize() {
+    return format.getMipChainSize(width, height, mipLevels);
+  }
+
+  /**
+   * Returns the internal format of the Texture in VRAM
+   *
+   * @return the internal format of the Texture in VRAM
+   */
+  public TextureFormat getFormat() {
+    return format;
   }
 
   /**
@@ -154,7 +339,7 @@ public final class Texture implements Cleanable {
    * @return the formatted descriptor of the Texture
    */
   public String getTypeDescriptor() {
-    return "RGBA 32bit (8 bit/channel)";
+    return format.getDescriptor();
   }
 
   /**
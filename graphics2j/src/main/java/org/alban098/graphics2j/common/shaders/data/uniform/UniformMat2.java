@@ -54,9 +54,8 @@ public final class UniformMat2 extends Uniform<Matrix2f> {
    */
   public void load(Matrix2f matrix) {
     currentValue.set(matrix);
-    matrixBuffer.put(matrix.get(new float[4]));
-    matrixBuffer.flip();
-    GL20.glUniformMatrix3fv(super.getLocation(), false, matrixBuffer);
-    matrixBuffer.clear();
+    // Writes the matrix without moving the position of the buffer
+    matrix.get(matrixBuffer);
+    GL20.glUniformMatrix2fv(super.getLocation(), false, matrixBuffer);
   }
 }
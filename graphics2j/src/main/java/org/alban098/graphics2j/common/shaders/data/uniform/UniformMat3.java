@@ -54,9 +54,8 @@ public final class UniformMat3 extends Uniform<Matrix3f> {
    */
   public void load(Matrix3f matrix) {
     currentValue.set(matrix);
-    matrixBuffer.put(matrix.get(new float[9]));
-    matrixBuffer.flip();
+    // Writes the matrix without moving the position of the buffer
+    matrix.get(matrixBuffer);
     GL20.glUniformMatrix3fv(super.getLocation(), false, matrixBuffer);
-    matrixBuffer.clear();
   }
 }
@@ -54,10 +54,19 @@ public final class UniformMat4 extends Uniform<Matrix4f> {
    * @param matrix the value to load
    */
   public void load(Matrix4f matrix) {
+    GL20.glUniformMatrix4fv(super.getLocation(), false, store(matrix));
+  }
+
+  /**
+   * Stores a value as the current one and writes it to the buffer sent to the GPU
+   *
+   * @param matrix the value to store
+   * @return the buffer holding the value, ready to be sent
+   */
+  FloatBuffer store(Matrix4f matrix) {
     currentValue.set(matrix);
-    matrixBuffer.put(matrix.get(new float[16]));
-    matrixBuffer.flip();
-    GL20.glUniformMatrix4fv(super.getLocation(), false, matrixBuffer);
-    matrixBuffer.clear();
+    // Writes the matrix without moving the position of the buffer
+    matrix.get(matrixBuffer);
+    return matrixBuffer;
   }
 }
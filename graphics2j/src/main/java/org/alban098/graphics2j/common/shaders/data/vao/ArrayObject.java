@@ -7,7 +7,6 @@ package org.alban098.graphics2j.common.shaders.data.vao;
 
 import static org.lwjgl.opengl.GL30.glBindVertexArray;
 import static org.lwjgl.opengl.GL30.glGenVertexArrays;
-import static org.lwjgl.opengl.GL30C.glDeleteVertexArrays;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -16,6 +15,8 @@ import org.alban098.common.Transform;
 import org.alban098.graphics2j.common.components.RenderElement;
 import org.alban098.graphics2j.common.shaders.ShaderAttribute;
 import org.alban098.graphics2j.common.shaders.ShaderProgram;
+import org.alban098.graphics2j.common.shaders.data.DeletionQueue;
+import org.alban098.graphics2j.common.shaders.data.ResourceType;
 import org.alban098.graphics2j.common.shaders.data.ShaderStorageBufferObject;
 import org.alban098.graphics2j.common.shaders.data.vbo.VertexBufferObject;
 import org.slf4j.Logger;
@@ -89,7 +90,7 @@ public abstract class ArrayObject implements Cleanable {
   /** Clears the VAO by clearing the VBOs and SSBO */
   @Override
   public void cleanUp() {
-    glDeleteVertexArrays(id);
+    DeletionQueue.post(ResourceType.VERTEX_ARRAY, id, 0);
     LOGGER.info("VAO {} cleaned up", id);
   }
 
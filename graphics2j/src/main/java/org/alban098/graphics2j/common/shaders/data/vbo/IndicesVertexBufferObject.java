@@ -10,6 +10,8 @@ import static org.lwjgl.opengl.GL15C.glBufferSubData;
 
 import java.nio.IntBuffer;
 import org.alban098.common.Cleanable;
+import org.alban098.graphics2j.common.shaders.data.DeletionQueue;
+import org.alban098.graphics2j.common.shaders.data.ResourceType;
 import org.lwjgl.system.MemoryUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -64,7 +66,7 @@ public class IndicesVertexBufferObject implements Cleanable {
   /** Clears the Vertex Buffer Object from VRAM */
   @Override
   public void cleanUp() {
-    glDeleteBuffers(id);
+    DeletionQueue.post(ResourceType.BUFFER, id, size);
     MemoryUtil.memFree(buffer);
     LOGGER.info("VBO {} cleaned up", id);
   }
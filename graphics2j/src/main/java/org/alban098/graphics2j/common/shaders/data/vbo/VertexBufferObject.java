@@ -9,6 +9,8 @@ import static org.lwjgl.opengl.GL15.*;
 
 import java.nio.Buffer;
 import org.alban098.common.Cleanable;
+import org.alban098.graphics2j.common.shaders.data.DeletionQueue;
+import org.alban098.graphics2j.common.shaders.data.ResourceType;
 import org.alban098.graphics2j.common.shaders.data.model.Primitive;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -81,7 +83,7 @@ public abstract class VertexBufferObject<T extends Number> implements Cleanable
   /** Clears the Vertex Buffer Object from VRAM */
   @Override
   public void cleanUp() {
-    glDeleteBuffers(id);
+    DeletionQueue.post(ResourceType.BUFFER, id, size);
     LOGGER.info("VBO {} cleaned up", id);
   }
 
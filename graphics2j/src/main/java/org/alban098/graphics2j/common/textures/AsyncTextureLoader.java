@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.graphics2j.common.textures;
+
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.alban098.common.Cleanable;
+import org.alban098.graphics2j.common.shaders.data.Texture;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Loads Textures without stalling the rendering thread. Images are decoded into native memory by a
+ * pool of worker threads, then uploaded into VRAM by the thread owning the OpenGL context when it
+ * calls {@link AsyncTextureLoader#processUploads(long)}, within a per-frame time budget. Requested
+ * Textures are usable right away as placeholders, and become ready once their upload is done
+ */
+public final class AsyncTextureLoader implements Cleanable {
+
+  /** Just a Logger to log events */
+  private static final Logger LOGGER = LoggerFactory.getLogger(AsyncTextureLoader.class);
+
+  /** The default number of decoded images that can wait for an upload at the same time */
+  private static final int DEFAULT_UPLOAD_QUEUE_CAPACITY = 8;
+
+  /** The decoder used by the workers */
+  private final ImageDecoder decoder;
+  /** The uploader used by the OpenGL thread */
+  private final TextureUploader uploader;
+  /** The queue of decoded requests waiting for an upload */
+  private final TextureUploadQueue uploadQueue;
+  /** The pool of workers decoding the images, by priority */
+  private final ThreadPoolExecutor workers;
+  /** The submission counter, used to keep requests of the same priority in order */
+  private final AtomicLong sequence = new AtomicLong();
+  /** The number of Textures uploaded so far */
+  private long uploadedCount = 0;
+
+  /**
+   * Creates a new AsyncTextureLoader with a stb_image decoder and direct uploads
+   *
+   * @param workerCount the number of decoding workers
+   */
+  public AsyncTextureLoader(int workerCount) {
+    this(
+        workerCount,
+        DEFAULT_UPLOAD_QUEUE_CAPACITY,
+        new StbImageDecoder(),
+        new DirectTextureUploader());
+  }
+
+  /**
+   * Creates a new AsyncTextureLoader
+   *
+   * @param workerCount the number of decoding workers
+   * @param uploadQueueCapacity the number of decoded images that can wait for an upload
+   * @param decoder the decoder used by the workers
+   * @param uploader the uploader used by the OpenGL thread
+   */
+  public AsyncTextureLoader(
+      int workerCount, int uploadQueueCapacity, ImageDecoder decoder, TextureUploader uploader) {
+    this.decoder = decoder;
+    this.uploader = uploader;
+    this.uploadQueue = new TextureUploadQueue(uploadQueueCapacity);
+    AtomicInteger threadIndex = new AtomicInteger();
+    ThreadFactory factory =
+        runnable -> {
+          Thread thread = new Thread(runnable, "TextureDecoder-" + threadIndex.getAndIncrement());
+          thread.setDaemon(true);
+          return thread;
+        };
+    this.workers =
+        new ThreadPoolExecutor(
+            workerCount,
+            workerCount,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new PriorityBlockingQueue<>(),
+            factory);
+    initialize();
+  }
+
+  /**
+   * Requests a Texture to be loaded with the default priority, must be called from the thread
+   * owning the OpenGL context
+   *
+   * @param filePath the path of the image file
+   * @return a placeholder Texture, that will become ready once loaded
+   */
+  public Texture load(String filePath) {
+    return request(filePath, 0).getTexture();
+  }
+
+  /**
+   * Requests a Texture to be loaded, must be called from the thread owning the OpenGL context
+   *
+   * @param filePath the path of the image file
+   * @param priority the priority of the request, higher is served first
+   * @return the request, holding a placeholder Texture that will become ready once loaded
+   */
+  public TextureRequest request(String filePath, int priority) {
+    return request(filePath, priority, Texture.createPlaceholder(true));
+  }
+
+  /**
+   * Requests an image to be loaded into an existing Texture, keeping its id. The Texture keeps its
+   * current content until the upload is done
+   *
+   * @param filePath the path of the image file
+   * @param priority the priority of the request, higher is served first
+   * @param target the Texture to load the image into
+   * @return the request
+   */
+  public TextureRequest request(String filePath, int priority, Texture target) {
+    TextureRequest request =
+        new TextureRequest(filePath, priority, sequence.getAndIncrement(), target);
+    // execute() and not submit(), tasks must stay Comparable for the priority queue
+    workers.execute(new TextureDecodeTask(request, decoder, uploadQueue));
+    return request;
+  }
+
+  /**
+   * Uploads decoded images into their Textures, by priority, until the time budget is exhausted.
+   * Must be called from the thread owning the OpenGL context, typically once per frame
+   *
+   * @param budgetNs the time budget in nanoseconds, at least one upload is done if any is pending
+   * @return the number of Textures uploaded
+   */
+  public int processUploads(long budgetNs) {
+    return uploadQueue.drain(budgetNs, System::nanoTime, this::upload);
+  }
+
+  /**
+   * Uploads a single decoded request, unless it has been cancelled in the meantime
+   *
+   * @param request the request to upload
+   */
+  private void upload(TextureRequest request) {
+    // Claim the request first, so a concurrent cancellation can't free the image mid-upload
+    if (!request.transition(TextureRequest.State.DECODED, TextureRequest.State.UPLOADED)) {
+      request.releaseImage();
+      return;
+    }
+    uploader.upload(request.getTexture(), request.getImage());
+    request.releaseImage();
+    uploadedCount++;
+    LOGGER.debug(
+        "Texture [{}] uploaded, size is {}*{}",
+        request.getFilePath(),
+        request.getTexture().getWidth(),
+        request.getTexture().getHeight());
+  }
+
+  /**
+   * Returns the number of requests waiting for a worker
+   *
+   * @return the number of requests waiting for a worker
+   */
+  public int getPendingDecodeCount() {
+    return workers.getQueue().size();
+  }
+
+  /**
+   * Returns the number of decoded images waiting for an upload
+   *
+   * @return the number of decoded images waiting for an upload
+   */
+  public int getPendingUploadCount() {
+    return uploadQueue.size();
+  }
+
+  /**
+   * Returns the number of Textures uploaded so far
+   *
+   * @return the number of Textures uploaded so far
+   */
+  public long getUploadedCount() {
+    return uploadedCount;
+  }
+
+  /** Stops the workers and releases every decoded image not uploaded yet */
+  @Override
+  public void cleanUp() {
+    workers.shutdownNow();
+    try {
+      if (!workers.awaitTermination(1, TimeUnit.SECONDS)) {
+        LOGGER.warn("Texture decoding workers did not terminate in time");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    int discarded = uploadQueue.clear();
+    if (discarded > 0) {
+      LOGGER.info("Discarded {} decoded textures waiting for an upload", discarded);
+    }
+  }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.graphics2j.common.textures;
+
+/**
+ * Represents an image ready to be uploaded as is into VRAM, along with its prebuilt Mip Map levels,
+ * as read from or written to a texture container (DDS, KTX)
+ */
+public final class CompressedImage {
+
+  /** The format of the image */
+  private final TextureFormat format;
+  /** The width of the base level in pixels */
+  private final int width;
+  /** The height of the base level in pixels */
+  private final int height;
+  /** The data of every Mip Map level, starting with the base level */
+  private final byte[][] levels;
+
+  /**
+   * Creates a new CompressedImage
+   *
+   * @param format the format of the image
+   * @param width the width of the base level in pixels
+   * @param height the height of the base level in pixels
+   * @param levels the data of every Mip Map level, starting with the base level
+   */
+  public CompressedImage(TextureFormat format, int width, int height, byte[][] levels) {
+    for (int level = 0; level < levels.length; level++) {
+      int expected =
+          format.getLevelSize(getLevelDimension(width, level), getLevelDimension(height, level));
+      if (levels[level].length != expected) {
+        throw new IllegalArgumentException(
+            "Level "
+                + level
+                + " of a "
+                + format
+                + " image must be "
+                + expected
+                + " bytes, was "
+                + levels[level].length);
+      }
+    }
+    this.format = format;
+    this.width = width;
+    this.height = height;
+    this.levels = levels;
+  }
+
+  /**
+   * Returns the dimension of a Mip Map level
+   *
+   * @param baseDimension the dimension of the base level in pixels
+   * @param level the Mip Map level
+   * @return the dimension of the level in pixels
+   */
+  private static int getLevelDimension(int baseDimension, int level) {
+    return Math.max(1, baseDimension >> level);
+  }
+
+  /**
+   * Returns the format of the image
+   *
+   * @return the format of the image
+   */
+  public TextureFormat getFormat() {
+    return format;
+  }
+
+  /**
+   * Returns the width of the base level in pixels
+   *
+   * @return the width of the base level in pixels
+   */
+  public int getWidth() {
+    return width;
+  }
+
+  /**
+   * Returns the height of the base level in pixels
+   *
+   * @return the height of the base level in pixels
+   */
+  public int getHeight() {
+    return height;
+  }
+
+  /**
+   * Returns the width of a Mip Map level in pixels
+   *
+   * @param level the Mip Map level
+   * @return the width of the level in pixels
+   */
+  public int getWidth(int level) {
+    return getLevelDimension(width, level);
+  }
+
+  /**
+   * Returns the height of a Mip Map level in pixels
+   *
+   * @param level the Mip Map level
+   * @return the height of the level in pixels
+   */
+  public int getHeight(int level) {
+    return getLevelDimension(height, level);
+  }
+
+  /**
+   * Returns the number of Mip Map levels
+   *
+   * @return the number of Mip Map levels
+   */
+  public int getLevelCount() {
+    return levels.length;
+  }
+
+  /**
+   * Returns the data of a Mip Map level
+   *
+   * @param level the Mip Map level
+   * @return the data of the level
+   */
+  public byte[] getLevel(int level) {
+    return levels[level];
+  }
+
+  /**
+   * Returns the total size of the image in bytes, all levels included
+   *
+   * @return the total size of the image in bytes
+   */
+  public long getSize() {
+    long total = 0;
+    for (byte[] level : levels) {
+      total += level.length;
+    }
+    return total;
+  }
+}
@@ -0,0 +1,30 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.graphics2j.common.textures;
+
+import org.alban098.graphics2j.common.shaders.data.Texture;
+import org.alban098.graphics2j.common.utils.ResourceLoader;
+
+/** An implementation of {@link TextureUploader} copying pixels straight from client memory */
+public final class DirectTextureUploader implements TextureUploader {
+
+  /**
+   * Uploads an image into a Texture with a regular glTexImage2D call
+   *
+   * @param texture the Texture to upload into
+   * @param image the image to upload
+   */
+  @Override
+  public void upload(Texture texture, ImageData image) {
+    ResourceLoader.uploadTexture(
+        texture.getId(), image.getWidth(), image.getHeight(), image.getPixels());
+    texture.setContent(
+        image.getWidth(),
+        image.getHeight(),
+        TextureFormat.RGBA8,
+        TextureFormat.getFullMipLevelCount(image.getWidth(), image.getHeight()));
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.graphics2j.common.textures;
+
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
+/**
+ * Represents a decoded image living in native memory, waiting to be uploaded into VRAM. The pixels
+ * are stored as RGBA, 1 byte per channel
+ */
+public final class ImageData {
+
+  /** The width of the image in pixels */
+  private final int width;
+  /** The height of the image in pixels */
+  private final int height;
+  /** The RGBA pixels of the image */
+  private final ByteBuffer pixels;
+  /** The action used to release the pixels buffer, depends on how it was allocated */
+  private final Consumer<ByteBuffer> releaser;
+  /** Has the native memory already been released */
+  private boolean freed = false;
+
+  /**
+   * Creates a new ImageData
+   *
+   * @param width the width of the image in pixels
+   * @param height the height of the image in pixels
+   * @param pixels the RGBA pixels of the image
+   * @param releaser the action used to release the pixels buffer
+   */
+  public ImageData(int width, int height, ByteBuffer pixels, Consumer<ByteBuffer> releaser) {
+    this.width = width;
+    this.height = height;
+    this.pixels = pixels;
+    this.releaser = releaser;
+  }
+
+  /**
+   * Returns the width of the image in pixels
+   *
+   * @return the width of the image in pixels
+   */
+  public int getWidth() {
+    return width;
+  }
+
+  /**
+   * Returns the height of the image in pixels
+   *
+   * @return the height of the image in pixels
+   */
+  public int getHeight() {
+    return height;
+  }
+
+  /**
+   * Returns the RGBA pixels of the image
+   *
+   * @return the RGBA pixels of the image
+   */
+  public ByteBuffer getPixels() {
+    return pixels;
+  }
+
+  /**
+   * Returns the size of the pixels in bytes
+   *
+   * @return the size of the pixels in bytes
+   */
+  public int getSize() {
+    return pixels.remaining();
+  }
+
+  /** Releases the native memory holding the pixels, subsequent calls have no effect */
+  public synchronized void free() {
+    if (!freed) {
+      freed = true;
+      releaser.accept(pixels);
+    }
+  }
+}
@@ -0,0 +1,26 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.graphics2j.common.textures;
+
+import java.io.IOException;
+
+/**
+ * Represents a way of decoding an image file into native memory. Implementations must be thread
+ * safe, as they are called from the worker threads of an {@link AsyncTextureLoader}, and must not
+ * make any OpenGL call
+ */
+@FunctionalInterface
+public interface ImageDecoder {
+
+  /**
+   * Decodes an image file into RGBA pixels
+   *
+   * @param filePath the path of the image file
+   * @return the decoded image, the caller is responsible for freeing it
+   * @throws IOException if the file can't be read or decoded
+   */
+  ImageData decode(String filePath) throws IOException;
+}
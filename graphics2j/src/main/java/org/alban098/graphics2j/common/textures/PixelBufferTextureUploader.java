@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.graphics2j.common.textures;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL12.GL_TEXTURE_MAX_LEVEL;
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL21.GL_PIXEL_UNPACK_BUFFER;
+import static org.lwjgl.opengl.GL30.*;
+
+import java.nio.ByteBuffer;
+import org.alban098.common.Cleanable;
+import org.alban098.graphics2j.common.shaders.data.DeletionQueue;
+import org.alban098.graphics2j.common.shaders.data.ResourceType;
+import org.alban098.graphics2j.common.shaders.data.Texture;
+import org.lwjgl.system.MemoryUtil;
+
+/**
+ * An implementation of {@link TextureUploader} staging pixels through a ring of Pixel Buffer
+ * Objects. Each buffer is orphaned before being written, so the driver never has to wait for a
+ * previous transfer to finish before accepting a new one
+ */
+public final class PixelBufferTextureUploader implements TextureUploader, Cleanable {
+
+  /** The default number of Pixel Buffer Objects in the ring */
+  private static final int DEFAULT_BUFFER_COUNT = 2;
+
+  /** The ids of the Pixel Buffer Objects as provided by OpenGL */
+  private final int[] buffers;
+  /** The index of the next Pixel Buffer Object to use */
+  private int next = 0;
+
+  /** Creates a new PixelBufferTextureUploader with the default number of buffers */
+  public PixelBufferTextureUploader() {
+    this(DEFAULT_BUFFER_COUNT);
+  }
+
+  /**
+   * Creates a new PixelBufferTextureUploader
+   *
+   * @param bufferCount the number of Pixel Buffer Objects in the ring
+   */
+  public PixelBufferTextureUploader(int bufferCount) {
+    buffers = new int[bufferCount];
+    glGenBuffers(buffers);
+    initialize();
+  }
+
+  /**
+   * Uploads an image into a Texture, by first copying it into the next Pixel Buffer Object of the
+   * ring, and then sourcing the Texture from it
+   *
+   * @param texture the Texture to upload into
+   * @param image the image to upload
+   */
+  @Override
+  public void upload(Texture texture, ImageData image) {
+    int pbo = buffers[next];
+    next = (next + 1) % buffers.length;
+    long size = image.getSize();
+
+    glBindBuffer(GL_PIXEL_UNPACK_BUFFER, pbo);
+    // Orphan the previous storage, then write the pixels into the new one
+    glBufferData(GL_PIXEL_UNPACK_BUFFER, size, GL_STREAM_DRAW);
+    ByteBuffer mapped =
+        glMapBufferRange(
+            GL_PIXEL_UNPACK_BUFFER, 0, size, GL_MAP_WRITE_BIT | GL_MAP_INVALIDATE_BUFFER_BIT);
+    if (mapped != null) {
+      MemoryUtil.memCopy(image.getPixels(), mapped);
+      glUnmapBuffer(GL_PIXEL_UNPACK_BUFFER);
+    }
+
+    glBindTexture(GL_TEXTURE_2D, texture.getId());
+    glPixelStorei(GL_UNPACK_ALIGNMENT, 1);
+    glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_LINEAR);
+    glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_LINEAR);
+    // The texture may previously have held a shorter prebuilt Mip Map chain
+    glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAX_LEVEL, 1000);
+    if (mapped != null) {
+      // Source the pixels from the bound Pixel Buffer Object
+      glTexImage2D(
+          GL_TEXTURE_2D,
+          0,
+          GL_RGBA,
+          image.getWidth(),
+          image.getHeight(),
+          0,
+          GL_RGBA,
+          GL_UNSIGNED_BYTE,
+          0L);
+      glBindBuffer(GL_PIXEL_UNPACK_BUFFER, 0);
+    } else {
+      // Mapping failed, fallback to a direct upload
+      glBindBuffer(GL_PIXEL_UNPACK_BUFFER, 0);
+      glTexImage2D(
+          GL_TEXTURE_2D,
+          0,
+          GL_RGBA,
+          image.getWidth(),
+          image.getHeight(),
+          0,
+          GL_RGBA,
+          GL_UNSIGNED_BYTE,
+          image.getPixels());
+    }
+    glGenerateMipmap(GL_TEXTURE_2D);
+    glBindTexture(GL_TEXTURE_2D, 0);
+    texture.setContent(
+        image.getWidth(),
+        image.getHeight(),
+        TextureFormat.RGBA8,
+        TextureFormat.getFullMipLevelCount(image.getWidth(), image.getHeight()));
+  }
+
+  /** Clears the Pixel Buffer Objects, their deletion is deferred to the {@link DeletionQueue} */
+  @Override
+  public void cleanUp() {
+    for (int buffer : buffers) {
+      DeletionQueue.post(ResourceType.BUFFER, buffer, 0);
+    }
+  }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.graphics2j.common.textures;
+
+import static org.lwjgl.stb.STBImage.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import org.lwjgl.stb.STBImage;
+import org.lwjgl.system.MemoryStack;
+
+/** An implementation of {@link ImageDecoder} backed by stb_image */
+public final class StbImageDecoder implements ImageDecoder {
+
+  /**
+   * Decodes an image file into RGBA pixels using stb_image
+   *
+   * @param filePath the path of the image file
+   * @return the decoded image, the caller is responsible for freeing it
+   * @throws IOException if the file can't be read or decoded
+   */
+  @Override
+  public ImageData decode(String filePath) throws IOException {
+    try (MemoryStack stack = MemoryStack.stackPush()) {
+      IntBuffer w = stack.mallocInt(1);
+      IntBuffer h = stack.mallocInt(1);
+      IntBuffer channels = stack.mallocInt(1);
+
+      ByteBuffer buf = stbi_load(filePath, w, h, channels, 4);
+      if (buf == null) {
+        throw new IOException(
+            "Image file [" + filePath + "] not decoded: " + stbi_failure_reason());
+      }
+      return new ImageData(w.get(0), h.get(0), buf, STBImage::stbi_image_free);
+    }
+  }
+}
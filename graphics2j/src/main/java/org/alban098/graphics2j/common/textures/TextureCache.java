@@ -0,0 +1,441 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.graphics2j.common.textures;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import org.alban098.common.MemoryManager;
+import org.alban098.graphics2j.common.shaders.data.Texture;
+import org.alban098.graphics2j.common.utils.ResourceLoader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the VRAM used by file based Textures under a budget. Textures are identified by the path of
+ * their file, and usage is tracked through {@link Texture#bind()}. When the resident Textures, Mip
+ * Maps included, exceed the budget, the least recently used ones are evicted. Evicted Textures keep
+ * their id, so they stay valid for the renderers, and are reloaded as soon as they are used again,
+ * either synchronously through {@link ResourceLoader} or through an {@link AsyncTextureLoader}.
+ * Must only be used from the thread owning the OpenGL context
+ */
+public final class TextureCache {
+
+  /** Just a Logger to log events */
+  private static final Logger LOGGER = LoggerFactory.getLogger(TextureCache.class);
+
+  /** The priority given to reloads of evicted Textures, as they are already needed on screen */
+  private static final int RELOAD_PRIORITY = 100;
+  /** Orders eviction candidates from the least to the most recently used */
+  private static final Comparator<Entry> LEAST_RECENTLY_USED =
+      Comparator.comparingLong(Entry::getLastUsedFrame);
+
+  /** All the states a cached Texture can be in */
+  public enum Residency {
+    /** The content of the Texture is in VRAM */
+    RESIDENT,
+    /** The content of the Texture is being loaded asynchronously */
+    LOADING,
+    /** The content of the Texture has been evicted from VRAM */
+    EVICTED
+  }
+
+  /** All cached Textures, indexed by the path of their file */
+  private final Map<String, Entry> entriesByPath = new HashMap<>();
+  /** All cached Textures, in insertion order, walked by index so a frame never allocates */
+  private final List<Entry> entries = new ArrayList<>();
+  /** A reusable list used to sort eviction candidates */
+  private final List<Entry> candidates = new ArrayList<>();
+  /** The loader used to load Textures asynchronously, null to load them synchronously */
+  private final AsyncTextureLoader loader;
+  /** Creates the placeholders of the Textures loaded asynchronously */
+  private final Supplier<Texture> placeholders;
+  /** Releases the VRAM of an evicted Texture */
+  private final Consumer<Texture> evictor;
+  /** The maximum number of bytes resident Textures should use in VRAM */
+  private long budget;
+  /** The number of bytes currently used in VRAM by resident Textures */
+  private long residentBytes = 0;
+  /** The number of resident Textures */
+  private int residentCount = 0;
+  /** The number of times a resident Texture has been requested or used during a frame */
+  private long hits = 0;
+  /** The number of times a Texture not resident has been requested or used during a frame */
+  private long misses = 0;
+  /** The number of Textures evicted so far */
+  private long evictions = 0;
+  /** The number of Textures reloaded so far */
+  private long reloads = 0;
+
+  /**
+   * Creates a new TextureCache loading Textures synchronously
+   *
+   * @param budget the maximum number of bytes resident Textures should use in VRAM
+   */
+  public TextureCache(long budget) {
+    this(budget, null);
+  }
+
+  /**
+   * Creates a new TextureCache
+   *
+   * @param budget the maximum number of bytes resident Textures should use in VRAM
+   * @param loader the loader used to load Textures asynchronously, null to load them synchronously
+   */
+  public TextureCache(long budget, AsyncTextureLoader loader) {
+    this(budget, loader, () -> Texture.createPlaceholder(true), Texture::evict);
+  }
+
+  /**
+   * Creates a new TextureCache with custom placeholder creation and eviction, so the cache can be
+   * driven without an OpenGL context
+   *
+   * @param budget the maximum number of bytes resident Textures should use in VRAM
+   * @param loader the loader used to load Textures asynchronously, null to load them synchronously
+   * @param placeholders creates the placeholders of the Textures loaded asynchronously
+   * @param evictor releases the VRAM of an evicted Texture
+   */
+  TextureCache(
+      long budget,
+      AsyncTextureLoader loader,
+      Supplier<Texture> placeholders,
+      Consumer<Texture> evictor) {
+    this.budget = budget;
+    this.loader = loader;
+    this.placeholders = placeholders;
+    this.evictor = evictor;
+  }
+
+  /**
+   * Retrieves a Texture from the cache, loading it if it's not cached yet, or reloading it if it
+   * has been evicted
+   *
+   * @param filePath the path of the texture file
+   * @return the Texture, may still be a placeholder if loaded asynchronously, null if it couldn't
+   *     be loaded
+   */
+  public Texture get(String filePath) {
+    Entry entry = entriesByPath.get(filePath);
+    if (entry == null) {
+      misses++;
+      entry = load(filePath);
+      if (entry == null) {
+        return null;
+      }
+      entriesByPath.put(filePath, entry);
+      entries.add(entry);
+    } else if (entry.residency == Residency.EVICTED) {
+      misses++;
+      entry.failed = false;
+      reload(entry);
+    } else {
+      hits++;
+    }
+    entry.lastAccessFrame = Texture.getCurrentFrame();
+    return entry.texture;
+  }
+
+  /**
+   * Updates the cache, must be called once per frame after rendering. Evicted Textures bound during
+   * the frame are reloaded, and if the budget is exceeded, the least recently used Textures are
+   * evicted. Textures used during the current frame are never evicted
+   */
+  public void update() {
+    long frame = Texture.getCurrentFrame();
+    for (int i = 0; i < entries.size(); i++) {
+      Entry entry = entries.get(i);
+      if (entry.residency == Residency.LOADING) {
+        pollLoading(entry);
+      }
+      if (entry.texture.getLastBoundFrame() == frame) {
+        if (entry.residency == Residency.EVICTED && !entry.failed) {
+          misses++;
+          reload(entry);
+        } else if (entry.residency == Residency.RESIDENT) {
+          hits++;
+        }
+      }
+    }
+    computeResidency();
+    if (residentBytes > budget) {
+      evictLeastRecentlyUsed(frame);
+    }
+  }
+
+  /**
+   * Removes a Texture from the cache and frees it
+   *
+   * @param filePath the path of the texture file
+   */
+  public void remove(String filePath) {
+    Entry entry = entriesByPath.remove(filePath);
+    if (entry != null) {
+      entries.remove(entry);
+      if (entry.request != null) {
+        entry.request.cancel();
+      }
+      MemoryManager.free(entry.texture);
+      computeResidency();
+    }
+  }
+
+  /**
+   * Loads a Texture not cached yet
+   *
+   * @param filePath the path of the texture file
+   * @return the new entry, null if the Texture couldn't be loaded
+   */
+  private Entry load(String filePath) {
+    if (loader != null) {
+      TextureRequest request = loader.request(filePath, 0, placeholders.get());
+      Entry entry = new Entry(filePath, request.getTexture(), Residency.LOADING);
+      entry.request = request;
+      return entry;
+    }
+    Texture texture = ResourceLoader.loadTexture(filePath);
+    return texture == null ? null : new Entry(filePath, texture, Residency.RESIDENT);
+  }
+
+  /**
+   * Reloads the content of an evicted Texture
+   *
+   * @param entry the entry of the Texture
+   */
+  private void reload(Entry entry) {
+    reloads++;
+    if (loader != null) {
+      entry.request = loader.request(entry.filePath, RELOAD_PRIORITY, entry.texture);
+      entry.residency = Residency.LOADING;
+    } else if (ResourceLoader.reloadTexture(entry.texture, entry.filePath)) {
+      entry.residency = Residency.RESIDENT;
+    } else {
+      entry.failed = true;
+    }
+  }
+
+  /**
+   * Checks whether an asynchronous load has completed
+   *
+   * @param entry the entry of the Texture being loaded
+   */
+  private void pollLoading(Entry entry) {
+    switch (entry.request.getState()) {
+      case UPLOADED -> {
+        entry.residency = Residency.RESIDENT;
+        entry.request = null;
+      }
+      case FAILED, CANCELLED -> {
+        LOGGER.warn("Texture [{}] could not be loaded into the cache", entry.filePath);
+        entry.residency = Residency.EVICTED;
+        entry.failed = true;
+        entry.request = null;
+      }
+      default -> {}
+    }
+  }
+
+  /**
+   * Evicts the least recently used Textures until the budget is respected
+   *
+   * @param frame the index of the current frame
+   */
+  private void evictLeastRecentlyUsed(long frame) {
+    candidates.clear();
+    for (int i = 0; i < entries.size(); i++) {
+      Entry entry = entries.get(i);
+      if (entry.residency == Residency.RESIDENT && entry.getLastUsedFrame() < frame) {
+        candidates.add(entry);
+      }
+    }
+    candidates.sort(LEAST_RECENTLY_USED);
+    for (int i = 0; i < candidates.size() && residentBytes > budget; i++) {
+      Entry entry = candidates.get(i);
+      long size = entry.texture.getMemorySize();
+      evictor.accept(entry.texture);
+      entry.residency = Residency.EVICTED;
+      residentBytes -= size;
+      residentCount--;
+      evictions++;
+      LOGGER.debug("Texture [{}] evicted, {} bytes released", entry.filePath, size);
+    }
+    candidates.clear();
+  }
+
+  /** Recomputes the number of resident Textures and the VRAM they use */
+  private void computeResidency() {
+    residentBytes = 0;
+    residentCount = 0;
+    for (int i = 0; i < entries.size(); i++) {
+      Entry entry = entries.get(i);
+      if (entry.residency == Residency.RESIDENT) {
+        residentBytes += entry.texture.getMemorySize();
+        residentCount++;
+      }
+    }
+  }
+
+  /**
+   * Returns the residency of a cached Texture
+   *
+   * @param filePath the path of the texture file
+   * @return the residency of the Texture, null if not cached
+   */
+  public Residency getResidency(String filePath) {
+    Entry entry = entriesByPath.get(filePath);
+    return entry == null ? null : entry.residency;
+  }
+
+  /**
+   * Returns a read-only view of all cached Textures, indexed by the path of their file
+   *
+   * @return a read-only view of all cached Textures
+   */
+  public Map<String, Texture> getTextures() {
+    Map<String, Texture> textures = new LinkedHashMap<>();
+    for (Entry entry : entries) {
+      textures.put(entry.filePath, entry.texture);
+    }
+    return Collections.unmodifiableMap(textures);
+  }
+
+  /**
+   * Sets the maximum number of bytes resident Textures should use in VRAM, applied on next update
+   *
+   * @param budget the maximum number of bytes resident Textures should use in VRAM
+   */
+  public void setBudget(long budget) {
+    this.budget = budget;
+  }
+
+  /**
+   * Returns the maximum number of bytes resident Textures should use in VRAM
+   *
+   * @return the maximum number of bytes resident Textures should use in VRAM
+   */
+  public long getBudget() {
+    return budget;
+  }
+
+  /**
+   * Returns the number of bytes currently used in VRAM by resident Textures, Mip Maps included
+   *
+   * @return the number of bytes currently used in VRAM by resident Textures
+   */
+  public long getResidentBytes() {
+    return residentBytes;
+  }
+
+  /**
+   * Returns the number of resident Textures
+   *
+   * @return the number of resident Textures
+   */
+  public int getResidentCount() {
+    return residentCount;
+  }
+
+  /**
+   * Returns the number of cached Textures, resident or not
+   *
+   * @return the number of cached Textures
+   */
+  public int getTextureCount() {
+    return entries.size();
+  }
+
+  /**
+   * Returns the number of times a resident Texture has been requested or used during a frame
+   *
+   * @return the number of hits
+   */
+  public long getHits() {
+    return hits;
+  }
+
+  /**
+   * Returns the number of times a Texture not resident has been requested or used during a frame
+   *
+   * @return the number of misses
+   */
+  public long getMisses() {
+    return misses;
+  }
+
+  /**
+   * Returns the ratio of hits over all accesses
+   *
+   * @return the ratio of hits over all accesses, 1 if the cache has never been accessed
+   */
+  public double getHitRate() {
+    long accesses = hits + misses;
+    return accesses == 0 ? 1 : (double) hits / accesses;
+  }
+
+  /**
+   * Returns the number of Textures evicted so far
+   *
+   * @return the number of Textures evicted so far
+   */
+  public long getEvictions() {
+    return evictions;
+  }
+
+  /**
+   * Returns the number of Textures reloaded so far
+   *
+   * @return the number of Textures reloaded so far
+   */
+  public long getReloads() {
+    return reloads;
+  }
+
+  /** Resets the hits, misses, evictions and reloads counters */
+  public void resetStats() {
+    hits = 0;
+    misses = 0;
+    evictions = 0;
+    reloads = 0;
+  }
+
+  /** Represents a Texture tracked by the cache */
+  private static final class Entry {
+
+    /** The path of the texture file */
+    private final String filePath;
+    /** The cached Texture */
+    private final Texture texture;
+    /** The residency of the Texture */
+    private Residency residency;
+    /** The pending asynchronous load of the Texture, if any */
+    private TextureRequest request;
+    /** Has the last load failed, failed Textures are only reloaded when requested explicitly */
+    private boolean failed = false;
+    /** The index of the last frame during which the Texture has been requested from the cache */
+    private long lastAccessFrame = -1;
+
+    /**
+     * Creates a new Entry
+     *
+     * @param filePath the path of the texture file
+     * @param texture the cached Texture
+     * @param residency the initial residency of the Texture
+     */
+    private Entry(String filePath, Texture texture, Residency residency) {
+      this.filePath = filePath;
+      this.texture = texture;
+      this.residency = residency;
+    }
+
+    /**
+     * Returns the index of the last frame during which the Texture has been bound or requested
+     *
+     * @return the index of the last frame during which the Texture has been used
+     */
+    private long getLastUsedFrame() {
+      return Math.max(lastAccessFrame, texture.getLastBoundFrame());
+    }
+  }
+}
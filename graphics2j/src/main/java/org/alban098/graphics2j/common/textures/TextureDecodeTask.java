@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.graphics2j.common.textures;
+
+import java.io.IOException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Represents the decoding step of a {@link TextureRequest}, executed by a worker thread. Once
+ * decoded, the request is pushed to a {@link TextureUploadQueue}. Tasks are ordered like their
+ * requests so a priority based executor serves the most important ones first. This class makes no
+ * OpenGL call
+ */
+public final class TextureDecodeTask implements Runnable, Comparable<TextureDecodeTask> {
+
+  /** Just a Logger to log events */
+  private static final Logger LOGGER = LoggerFactory.getLogger(TextureDecodeTask.class);
+
+  /** The request to decode */
+  private final TextureRequest request;
+  /** The decoder used to decode the image */
+  private final ImageDecoder decoder;
+  /** The queue receiving the decoded request */
+  private final TextureUploadQueue uploadQueue;
+
+  /**
+   * Creates a new TextureDecodeTask
+   *
+   * @param request the request to decode
+   * @param decoder the decoder used to decode the image
+   * @param uploadQueue the queue receiving the decoded request
+   */
+  public TextureDecodeTask(
+      TextureRequest request, ImageDecoder decoder, TextureUploadQueue uploadQueue) {
+    this.request = request;
+    this.decoder = decoder;
+    this.uploadQueue = uploadQueue;
+  }
+
+  /** Decodes the image of the request and pushes it to the upload queue */
+  @Override
+  public void run() {
+    if (!request.transition(TextureRequest.State.PENDING, TextureRequest.State.DECODING)) {
+      return;
+    }
+    ImageData image;
+    try {
+      image = decoder.decode(request.getFilePath());
+    } catch (IOException e) {
+      request.transition(TextureRequest.State.DECODING, TextureRequest.State.FAILED);
+      LOGGER.error("Unable to decode texture [{}]: {}", request.getFilePath(), e.getMessage());
+      return;
+    }
+    request.setImage(image);
+    if (!request.transition(TextureRequest.State.DECODING, TextureRequest.State.DECODED)) {
+      // cancelled while decoding
+      request.releaseImage();
+      return;
+    }
+    try {
+      uploadQueue.put(request);
+    } catch (InterruptedException e) {
+      request.cancel();
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Returns the request decoded by this task
+   *
+   * @return the request decoded by this task
+   */
+  public TextureRequest getRequest() {
+    return request;
+  }
+
+  /**
+   * Orders tasks like their requests
+   *
+   * @param other the task to compare to
+   * @return a negative value if this task must be executed first, a positive one otherwise
+   */
+  @Override
+  public int compareTo(TextureDecodeTask other) {
+    return request.compareTo(other.request);
+  }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.graphics2j.common.textures;
+
+import org.lwjgl.opengl.EXTTextureCompressionS3TC;
+import org.lwjgl.opengl.GL;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL43;
+import org.lwjgl.opengl.GLCapabilities;
+
+/**
+ * All the internal formats a Texture can be stored as in VRAM. Compressed formats are stored as 4*4
+ * texel blocks of a fixed number of bytes
+ */
+public enum TextureFormat {
+  /** Uncompressed RGBA, 8 bits per channel */
+  RGBA8(GL11.GL_RGBA8, false, 4, "RGBA 32bit (8 bit/channel)"),
+  /** BC1 (DXT1) compressed RGB with 1 bit alpha, 8 bytes per block */
+  BC1(
+      EXTTextureCompressionS3TC.GL_COMPRESSED_RGBA_S3TC_DXT1_EXT,
+      true,
+      8,
+      "BC1 / DXT1 (4 bit/texel)"),
+  /** BC3 (DXT5) compressed RGBA with interpolated alpha, 16 bytes per block */
+  BC3(
+      EXTTextureCompressionS3TC.GL_COMPRESSED_RGBA_S3TC_DXT5_EXT,
+      true,
+      16,
+      "BC3 / DXT5 (8 bit/texel)"),
+  /** ETC2 compressed RGB, 8 bytes per block */
+  ETC2_RGB8(GL43.GL_COMPRESSED_RGB8_ETC2, true, 8, "ETC2 RGB (4 bit/texel)"),
+  /** ETC2 compressed RGBA with EAC alpha, 16 bytes per block */
+  ETC2_RGBA8(GL43.GL_COMPRESSED_RGBA8_ETC2_EAC, true, 16, "ETC2 RGBA (8 bit/texel)");
+
+  /** The OpenGL internal format */
+  private final int internalFormat;
+  /** Is the format block compressed */
+  private final boolean compressed;
+  /** The number of bytes per texel if uncompressed, per 4*4 block otherwise */
+  private final int unitSize;
+  /** The formatted descriptor of the format */
+  private final String descriptor;
+
+  /**
+   * Creates a new TextureFormat
+   *
+   * @param internalFormat the OpenGL internal format
+   * @param compressed is the format block compressed
+   * @param unitSize the number of bytes per texel if uncompressed, per 4*4 block otherwise
+   * @param descriptor the formatted descriptor of the format
+   */
+  TextureFormat(int internalFormat, boolean compressed, int unitSize, String descriptor) {
+    this.internalFormat = internalFormat;
+    this.compressed = compressed;
+    this.unitSize = unitSize;
+    this.descriptor = descriptor;
+  }
+
+  /**
+   * Returns the size in bytes of an image of this format
+   *
+   * @param width the width of the image in pixels
+   * @param height the height of the image in pixels
+   * @return the size in bytes of the image
+   */
+  public int getLevelSize(int width, int height) {
+    if (compressed) {
+      return Math.max(1, (width + 3) / 4) * Math.max(1, (height + 3) / 4) * unitSize;
+    }
+    return Math.max(1, width) * Math.max(1, height) * unitSize;
+  }
+
+  /**
+   * Returns the size in bytes of a Mip Map chain of this format
+   *
+   * @param width the width of the base level in pixels
+   * @param height the height of the base level in pixels
+   * @param levels the number of levels in the chain
+   * @return the size in bytes of the Mip Map chain
+   */
+  public long getMipChainSize(int width, int height, int levels) {
+    long total = 0;
+    for (int level = 0; level < levels; level++) {
+      total += getLevelSize(Math.max(1, width >> level), Math.max(1, height >> level));
+    }
+    return total;
+  }
+
+  /**
+   * Returns whether the format can be used with the current OpenGL context
+   *
+   * @return whether the format can be used with the current OpenGL context
+   */
+  public boolean isSupported() {
+    GLCapabilities capabilities = GL.getCapabilities();
+    return switch (this) {
+      case RGBA8 -> true;
+      case BC1, BC3 -> capabilities.GL_EXT_texture_compression_s3tc;
+      case ETC2_RGB8, ETC2_RGBA8 -> capabilities.OpenGL43 || capabilities.GL_ARB_ES3_compatibility;
+    };
+  }
+
+  /**
+   * Returns the number of levels of a full Mip Map chain
+   *
+   * @param width the width of the base level in pixels
+   * @param height the height of the base level in pixels
+   * @return the number of levels of a full Mip Map chain
+   */
+  public static int getFullMipLevelCount(int width, int height) {
+    return 32 - Integer.numberOfLeadingZeros(Math.max(1, Math.max(width, height)));
+  }
+
+  /**
+   * Returns the OpenGL internal format
+   *
+   * @return the OpenGL internal format
+   */
+  public int getInternalFormat() {
+    return internalFormat;
+  }
+
+  /**
+   * Returns whether the format is block compressed
+   *
+   * @return whether the format is block compressed
+   */
+  public boolean isCompressed() {
+    return compressed;
+  }
+
+  /**
+   * Returns the formatted descriptor of the format
+   *
+   * @return the formatted descriptor of the format
+   */
+  public String getDescriptor() {
+    return descriptor;
+  }
+}
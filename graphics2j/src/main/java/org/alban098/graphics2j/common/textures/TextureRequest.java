@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.graphics2j.common.textures;
+
+import java.util.concurrent.atomic.AtomicReference;
+import org.alban098.graphics2j.common.shaders.data.Texture;
+
+/**
+ * Represents a request to asynchronously load a {@link Texture}, it goes through decoding on a
+ * worker thread, then through upload on the thread owning the OpenGL context. Requests with a
+ * higher priority are decoded and uploaded first, requests of the same priority are served in
+ * submission order
+ */
+public final class TextureRequest implements Comparable<TextureRequest> {
+
+  /** All the states a request can be in */
+  public enum State {
+    /** Waiting for a worker to decode it */
+    PENDING,
+    /** Currently being decoded by a worker */
+    DECODING,
+    /** Decoded and waiting in the upload queue */
+    DECODED,
+    /** Uploaded into VRAM, the Texture is ready */
+    UPLOADED,
+    /** Cancelled before its upload */
+    CANCELLED,
+    /** The image couldn't be decoded */
+    FAILED
+  }
+
+  /** The path of the image file to load */
+  private final String filePath;
+  /** The priority of the request, higher is served first */
+  private final int priority;
+  /** The submission order of the request, used to break priority ties */
+  private final long sequence;
+  /** The Texture that will receive the image, a placeholder until the upload is done */
+  private final Texture texture;
+  /** The current state of the request */
+  private final AtomicReference<State> state = new AtomicReference<>(State.PENDING);
+  /** The decoded image, only set between decoding and upload */
+  private final AtomicReference<ImageData> image = new AtomicReference<>();
+
+  /**
+   * Creates a new TextureRequest
+   *
+   * @param filePath the path of the image file to load
+   * @param priority the priority of the request, higher is served first
+   * @param sequence the submission order of the request
+   * @param texture the Texture that will receive the image
+   */
+  public TextureRequest(String filePath, int priority, long sequence, Texture texture) {
+    this.filePath = filePath;
+    this.priority = priority;
+    this.sequence = sequence;
+    this.texture = texture;
+  }
+
+  /**
+   * Cancels the request, if it hasn't already been uploaded or hasn't failed. Any decoded image is
+   * released as soon as the request is discarded, the Texture stays a placeholder
+   *
+   * @return true if the request has been cancelled, false if it was already completed
+   */
+  public boolean cancel() {
+    State current = state.get();
+    while (current == State.PENDING || current == State.DECODING || current == State.DECODED) {
+      if (state.compareAndSet(current, State.CANCELLED)) {
+        if (current == State.DECODED) {
+          releaseImage();
+        }
+        return true;
+      }
+      current = state.get();
+    }
+    return false;
+  }
+
+  /**
+   * Atomically moves the request from a state to another
+   *
+   * @param from the expected current state
+   * @param to the new state
+   * @return true if the transition happened, false if the request wasn't in the expected state
+   */
+  boolean transition(State from, State to) {
+    return state.compareAndSet(from, to);
+  }
+
+  /**
+   * Attaches the decoded image to the request
+   *
+   * @param image the decoded image
+   */
+  void setImage(ImageData image) {
+    this.image.set(image);
+  }
+
+  /**
+   * Releases the decoded image if any, and detaches it from the request. The image is detached
+   * atomically, so when a cancellation races the upload queue only one of them frees it
+   */
+  void releaseImage() {
+    ImageData data = image.getAndSet(null);
+    if (data != null) {
+      data.free();
+    }
+  }
+
+  /**
+   * Returns the decoded image, null if not decoded yet or already uploaded
+   *
+   * @return the decoded image
+   */
+  public ImageData getImage() {
+    return image.get();
+  }
+
+  /**
+   * Returns the path of the image file to load
+   *
+   * @return the path of the image file to load
+   */
+  public String getFilePath() {
+    return filePath;
+  }
+
+  /**
+   * Returns the priority of the request
+   *
+   * @return the priority of the request
+   */
+  public int getPriority() {
+    return priority;
+  }
+
+  /**
+   * Returns the submission order of the request
+   *
+   * @return the submission order of the request
+   */
+  public long getSequence() {
+    return sequence;
+  }
+
+  /**
+   * Returns the Texture that will receive the image
+   *
+   * @return the Texture that will receive the image
+   */
+  public Texture getTexture() {
+    return texture;
+  }
+
+  /**
+   * Returns the current state of the request
+   *
+   * @return the current state of the request
+   */
+  public State getState() {
+    return state.get();
+  }
+
+  /**
+   * Returns whether the request has been cancelled
+   *
+   * @return whether the request has been cancelled
+   */
+  public boolean isCancelled() {
+    return state.get() == State.CANCELLED;
+  }
+
+  /**
+   * Orders requests by descending priority, then by ascending submission order
+   *
+   * @param other the request to compare to
+   * @return a negative value if this request must be served first, a positive one otherwise
+   */
+  @Override
+  public int compareTo(TextureRequest other) {
+    int result = Integer.compare(other.priority, priority);
+    return result != 0 ? result : Long.compare(sequence, other.sequence);
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.graphics2j.common.textures;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * A bounded priority queue of decoded {@link TextureRequest}s waiting to be uploaded. Producers
+ * (decoding workers) block while the queue is full, bounding the amount of native memory held by
+ * decoded images. The consumer (the OpenGL thread) drains it within a time budget. This class makes
+ * no OpenGL call
+ */
+public final class TextureUploadQueue {
+
+  /** The maximum number of decoded requests the queue can hold */
+  private final int capacity;
+  /** The decoded requests, ordered by priority */
+  private final PriorityQueue<TextureRequest> queue;
+  /** The lock guarding the queue */
+  private final ReentrantLock lock = new ReentrantLock();
+  /** Signaled when a slot is freed in the queue */
+  private final Condition notFull = lock.newCondition();
+
+  /**
+   * Creates a new TextureUploadQueue
+   *
+   * @param capacity the maximum number of decoded requests the queue can hold
+   */
+  public TextureUploadQueue(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Capacity must be strictly positive, was " + capacity);
+    }
+    this.capacity = capacity;
+    this.queue = new PriorityQueue<>(capacity);
+  }
+
+  /**
+   * Adds a decoded request to the queue, waiting for a slot to be freed if necessary
+   *
+   * @param request the request to add
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public void put(TextureRequest request) throws InterruptedException {
+    lock.lockInterruptibly();
+    try {
+      while (queue.size() >= capacity) {
+        notFull.await();
+      }
+      queue.add(request);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Retrieves and removes the request with the highest priority, discarding cancelled requests and
+   * releasing their images on the way
+   *
+   * @return the request with the highest priority, null if the queue is empty
+   */
+  public TextureRequest poll() {
+    lock.lock();
+    try {
+      TextureRequest request;
+      while ((request = queue.poll()) != null) {
+        notFull.signal();
+        if (!request.isCancelled()) {
+          return request;
+        }
+        request.releaseImage();
+      }
+      return null;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Drains the queue in priority order until it is empty or the time budget is exhausted. At least
+   * one request is processed per call so the queue always makes progress
+   *
+   * @param budgetNs the time budget in nanoseconds
+   * @param clock the clock used to measure the elapsed time, in nanoseconds
+   * @param consumer the action to apply to each drained request
+   * @return the number of requests drained
+   */
+  public int drain(long budgetNs, LongSupplier clock, Consumer<TextureRequest> consumer) {
+    long start = clock.getAsLong();
+    int drained = 0;
+    do {
+      TextureRequest request = poll();
+      if (request == null) {
+        break;
+      }
+      consumer.accept(request);
+      drained++;
+    } while (clock.getAsLong() - start < budgetNs);
+    return drained;
+  }
+
+  /**
+   * Removes all requests from the queue, releasing their images
+   *
+   * @return the number of requests removed
+   */
+  public int clear() {
+    lock.lock();
+    try {
+      int removed = queue.size();
+      queue.forEach(TextureRequest::releaseImage);
+      queue.clear();
+      notFull.signalAll();
+      return removed;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the number of requests in the queue, including cancelled ones not discarded yet
+   *
+   * @return the number of requests in the queue
+   */
+  public int size() {
+    lock.lock();
+    try {
+      return queue.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the maximum number of decoded requests the queue can hold
+   *
+   * @return the maximum number of decoded requests the queue can hold
+   */
+  public int getCapacity() {
+    return capacity;
+  }
+}
@@ -0,0 +1,23 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.graphics2j.common.textures;
+
+import org.alban098.graphics2j.common.shaders.data.Texture;
+
+/**
+ * Represents a way of uploading decoded images into VRAM. Implementations are only ever called from
+ * the thread owning the OpenGL context
+ */
+public interface TextureUploader {
+
+  /**
+   * Uploads an image into a Texture, and updates the Texture accordingly
+   *
+   * @param texture the Texture to upload into
+   * @param image the image to upload
+   */
+  void upload(Texture texture, ImageData image);
+}
@@ -0,0 +1,297 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.graphics2j.common.textures.compression;
+
+import org.alban098.graphics2j.common.textures.TextureFormat;
+
+/**
+ * A pure Java BC1 (DXT1) and BC3 (DXT5) encoder. Colors are fitted to the bounding box of each 4*4
+ * block, slightly inset to reduce the quantization error, alpha is fitted to its min/max range.
+ * This class makes no OpenGL call
+ */
+public final class BlockEncoder {
+
+  /** The alpha threshold under which a texel is considered transparent in BC1 */
+  private static final int BC1_ALPHA_THRESHOLD = 128;
+
+  /** Just a private constructor to disable instantiation */
+  private BlockEncoder() {}
+
+  /**
+   * Encodes RGBA pixels into a block compressed format
+   *
+   * @param rgba the RGBA pixels, 1 byte per channel, row by row
+   * @param width the width of the image in pixels
+   * @param height the height of the image in pixels
+   * @param format the format to encode to, {@link TextureFormat#BC1} or {@link TextureFormat#BC3}
+   * @return the encoded blocks
+   */
+  public static byte[] encode(byte[] rgba, int width, int height, TextureFormat format) {
+    return switch (format) {
+      case BC1 -> encodeBC1(rgba, width, height);
+      case BC3 -> encodeBC3(rgba, width, height);
+      default -> throw new IllegalArgumentException("Unsupported encoding format " + format);
+    };
+  }
+
+  /**
+   * Encodes RGBA pixels into BC1, texels with an alpha lower than 128 are encoded as transparent
+   *
+   * @param rgba the RGBA pixels, 1 byte per channel, row by row
+   * @param width the width of the image in pixels
+   * @param height the height of the image in pixels
+   * @return the encoded blocks
+   */
+  public static byte[] encodeBC1(byte[] rgba, int width, int height) {
+    byte[] out = new byte[TextureFormat.BC1.getLevelSize(width, height)];
+    int[] block = new int[64];
+    int offset = 0;
+    for (int y = 0; y < height; y += 4) {
+      for (int x = 0; x < width; x += 4) {
+        fetchBlock(rgba, width, height, x, y, block);
+        encodeColorBlock(block, true, out, offset);
+        offset += 8;
+      }
+    }
+    return out;
+  }
+
+  /**
+   * Encodes RGBA pixels into BC3
+   *
+   * @param rgba the RGBA pixels, 1 byte per channel, row by row
+   * @param width the width of the image in pixels
+   * @param height the height of the image in pixels
+   * @return the encoded blocks
+   */
+  public static byte[] encodeBC3(byte[] rgba, int width, int height) {
+    byte[] out = new byte[TextureFormat.BC3.getLevelSize(width, height)];
+    int[] block = new int[64];
+    int offset = 0;
+    for (int y = 0; y < height; y += 4) {
+      for (int x = 0; x < width; x += 4) {
+        fetchBlock(rgba, width, height, x, y, block);
+        encodeAlphaBlock(block, out, offset);
+        encodeColorBlock(block, false, out, offset + 8);
+        offset += 16;
+      }
+    }
+    return out;
+  }
+
+  /**
+   * Copies a 4*4 block of texels, clamping coordinates at the edges of the image
+   *
+   * @param rgba the RGBA pixels of the image
+   * @param width the width of the image in pixels
+   * @param height the height of the image in pixels
+   * @param x the x coordinate of the top left texel of the block
+   * @param y the y coordinate of the top left texel of the block
+   * @param block the array receiving the 16 texels as 4 channels each
+   */
+  private static void fetchBlock(byte[] rgba, int width, int height, int x, int y, int[] block) {
+    for (int j = 0; j < 4; j++) {
+      int row = Math.min(y + j, height - 1);
+      for (int i = 0; i < 4; i++) {
+        int column = Math.min(x + i, width - 1);
+        int src = (row * width + column) * 4;
+        int dst = (j * 4 + i) * 4;
+        block[dst] = rgba[src] & 0xFF;
+        block[dst + 1] = rgba[src + 1] & 0xFF;
+        block[dst + 2] = rgba[src + 2] & 0xFF;
+        block[dst + 3] = rgba[src + 3] & 0xFF;
+      }
+    }
+  }
+
+  /**
+   * Encodes the color part of a block, as 2 RGB565 endpoints followed by 16 2-bit indices
+   *
+   * @param block the 16 texels of the block
+   * @param punchThrough whether transparent texels must be encoded (BC1 3-color mode)
+   * @param out the array receiving the encoded block
+   * @param offset the offset of the block in the output array
+   */
+  private static void encodeColorBlock(int[] block, boolean punchThrough, byte[] out, int offset) {
+    int minR = 255, minG = 255, minB = 255;
+    int maxR = 0, maxG = 0, maxB = 0;
+    boolean transparent = false;
+    boolean opaque = false;
+    for (int i = 0; i < 16; i++) {
+      if (punchThrough && block[i * 4 + 3] < BC1_ALPHA_THRESHOLD) {
+        transparent = true;
+        continue;
+      }
+      opaque = true;
+      minR = Math.min(minR, block[i * 4]);
+      minG = Math.min(minG, block[i * 4 + 1]);
+      minB = Math.min(minB, block[i * 4 + 2]);
+      maxR = Math.max(maxR, block[i * 4]);
+      maxG = Math.max(maxG, block[i * 4 + 1]);
+      maxB = Math.max(maxB, block[i * 4 + 2]);
+    }
+    if (!opaque) {
+      // Fully transparent block, 3-color mode with every index pointing to transparent
+      writeShort(out, offset, 0);
+      writeShort(out, offset + 2, 0);
+      writeInt(out, offset + 4, 0xFFFFFFFF);
+      return;
+    }
+
+    // Inset the bounding box by 1/16th of its extent
+    int insetR = (maxR - minR) >> 4;
+    int insetG = (maxG - minG) >> 4;
+    int insetB = (maxB - minB) >> 4;
+    int color0 = toRgb565(maxR - insetR, maxG - insetG, maxB - insetB);
+    int color1 = toRgb565(minR + insetR, minG + insetG, minB + insetB);
+
+    // color0 > color1 selects the 4-color mode, color0 <= color1 the 3-color + transparent mode
+    if ((transparent && color0 > color1) || (!transparent && color0 < color1)) {
+      int tmp = color0;
+      color0 = color1;
+      color1 = tmp;
+    }
+    int[] palette = new int[12];
+    expandRgb565(color0, palette, 0);
+    expandRgb565(color1, palette, 3);
+    int paletteSize;
+    if (transparent || color0 == color1) {
+      for (int c = 0; c < 3; c++) {
+        palette[6 + c] = (palette[c] + palette[3 + c]) / 2;
+      }
+      paletteSize = 3;
+    } else {
+      for (int c = 0; c < 3; c++) {
+        palette[6 + c] = (2 * palette[c] + palette[3 + c]) / 3;
+        palette[9 + c] = (palette[c] + 2 * palette[3 + c]) / 3;
+      }
+      paletteSize = 4;
+    }
+
+    int indices = 0;
+    for (int i = 0; i < 16; i++) {
+      int index;
+      if (transparent && block[i * 4 + 3] < BC1_ALPHA_THRESHOLD) {
+        index = 3;
+      } else {
+        index = 0;
+        int bestDistance = Integer.MAX_VALUE;
+        for (int p = 0; p < paletteSize; p++) {
+          int dr = block[i * 4] - palette[p * 3];
+          int dg = block[i * 4 + 1] - palette[p * 3 + 1];
+          int db = block[i * 4 + 2] - palette[p * 3 + 2];
+          int distance = dr * dr + dg * dg + db * db;
+          if (distance < bestDistance) {
+            bestDistance = distance;
+            index = p;
+          }
+        }
+      }
+      indices |= index << (i * 2);
+    }
+    writeShort(out, offset, color0);
+    writeShort(out, offset + 2, color1);
+    writeInt(out, offset + 4, indices);
+  }
+
+  /**
+   * Encodes the alpha part of a BC3 block, as 2 8-bit endpoints followed by 16 3-bit indices
+   *
+   * @param block the 16 texels of the block
+   * @param out the array receiving the encoded block
+   * @param offset the offset of the block in the output array
+   */
+  private static void encodeAlphaBlock(int[] block, byte[] out, int offset) {
+    int min = 255;
+    int max = 0;
+    for (int i = 0; i < 16; i++) {
+      min = Math.min(min, block[i * 4 + 3]);
+      max = Math.max(max, block[i * 4 + 3]);
+    }
+    out[offset] = (byte) max;
+    out[offset + 1] = (byte) min;
+    long indices = 0;
+    if (max != min) {
+      // alpha0 > alpha1 selects the 8 interpolated values mode
+      int[] palette = new int[8];
+      palette[0] = max;
+      palette[1] = min;
+      for (int p = 2; p < 8; p++) {
+        palette[p] = ((8 - p) * max + (p - 1) * min) / 7;
+      }
+      for (int i = 0; i < 16; i++) {
+        int alpha = block[i * 4 + 3];
+        int index = 0;
+        int bestDistance = Integer.MAX_VALUE;
+        for (int p = 0; p < 8; p++) {
+          int distance = Math.abs(alpha - palette[p]);
+          if (distance < bestDistance) {
+            bestDistance = distance;
+            index = p;
+          }
+        }
+        indices |= (long) index << (i * 3);
+      }
+    }
+    for (int b = 0; b < 6; b++) {
+      out[offset + 2 + b] = (byte) (indices >>> (b * 8));
+    }
+  }
+
+  /**
+   * Quantizes a color to RGB565
+   *
+   * @param r the red channel
+   * @param g the green channel
+   * @param b the blue channel
+   * @return the color as RGB565
+   */
+  static int toRgb565(int r, int g, int b) {
+    return ((r * 31 + 127) / 255) << 11 | ((g * 63 + 127) / 255) << 5 | ((b * 31 + 127) / 255);
+  }
+
+  /**
+   * Expands a RGB565 color to 8 bits per channel
+   *
+   * @param color the color as RGB565
+   * @param out the array receiving the 3 channels
+   * @param offset the offset of the color in the output array
+   */
+  static void expandRgb565(int color, int[] out, int offset) {
+    int r = (color >> 11) & 0x1F;
+    int g = (color >> 5) & 0x3F;
+    int b = color & 0x1F;
+    out[offset] = (r << 3) | (r >> 2);
+    out[offset + 1] = (g << 2) | (g >> 4);
+    out[offset + 2] = (b << 3) | (b >> 2);
+  }
+
+  /**
+   * Writes a little endian 16-bit value
+   *
+   * @param out the output array
+   * @param offset the offset of the value in the output array
+   * @param value the value to write
+   */
+  private static void writeShort(byte[] out, int offset, int value) {
+    out[offset] = (byte) value;
+    out[offset + 1] = (byte) (value >>> 8);
+  }
+
+  /**
+   * Writes a little endian 32-bit value
+   *
+   * @param out the output array
+   * @param offset the offset of the value in the output array
+   * @param value the value to write
+   */
+  private static void writeInt(byte[] out, int offset, int value) {
+    out[offset] = (byte) value;
+    out[offset + 1] = (byte) (value >>> 8);
+    out[offset + 2] = (byte) (value >>> 16);
+    out[offset + 3] = (byte) (value >>> 24);
+  }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.graphics2j.common.textures.compression;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import org.alban098.graphics2j.common.textures.CompressedImage;
+import org.alban098.graphics2j.common.textures.TextureFormat;
+
+/**
+ * Reads and writes DDS containers holding BC1 (DXT1) or BC3 (DXT5) images with their Mip Maps, or
+ * uncompressed 32-bit RGBA images. This class makes no OpenGL call
+ */
+public final class DdsContainer {
+
+  /** The magic number starting every DDS file, "DDS " */
+  private static final int MAGIC = 0x20534444;
+  /** The size of the DDS header, magic number excluded */
+  private static final int HEADER_SIZE = 124;
+  /** The size of the pixel format structure of the header */
+  private static final int PIXEL_FORMAT_SIZE = 32;
+  /** Header flags, caps, height, width and pixel format are always present */
+  private static final int DDSD_REQUIRED = 0x1 | 0x2 | 0x4 | 0x1000;
+  /** Header flag, the Mip Map count is present */
+  private static final int DDSD_MIPMAPCOUNT = 0x20000;
+  /** Header flag, the pitch or linear size field holds the size of the compressed base level */
+  private static final int DDSD_LINEARSIZE = 0x80000;
+  /** Header flag, the pitch or linear size field holds the pitch of the uncompressed base level */
+  private static final int DDSD_PITCH = 0x8;
+  /** Pixel format flag, the image is compressed and identified by a FourCC */
+  private static final int DDPF_FOURCC = 0x4;
+  /** Pixel format flag, the image is uncompressed RGB */
+  private static final int DDPF_RGB = 0x40;
+  /** Pixel format flag, the uncompressed image has an alpha channel */
+  private static final int DDPF_ALPHAPIXELS = 0x1;
+  /** Caps flag, the file holds a texture */
+  private static final int DDSCAPS_TEXTURE = 0x1000;
+  /** Caps flags, the file holds Mip Maps */
+  private static final int DDSCAPS_MIPMAP = 0x8 | 0x400000;
+  /** The FourCC of BC1 images, "DXT1" */
+  private static final int FOURCC_DXT1 = 0x31545844;
+  /** The FourCC of BC3 images, "DXT5" */
+  private static final int FOURCC_DXT5 = 0x35545844;
+
+  /** Just a private constructor to disable instantiation */
+  private DdsContainer() {}
+
+  /**
+   * Reads a DDS container
+   *
+   * @param data the content of the file
+   * @return the image held by the container
+   * @throws IOException if the container is malformed or holds an unsupported format
+   */
+  public static CompressedImage read(ByteBuffer data) throws IOException {
+    ByteBuffer buffer = data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    if (buffer.remaining() < HEADER_SIZE + 4 || buffer.getInt() != MAGIC) {
+      throw new IOException("Not a DDS file");
+    }
+    int start = buffer.position();
+    if (buffer.getInt() != HEADER_SIZE) {
+      throw new IOException("Malformed DDS header");
+    }
+    int flags = buffer.getInt();
+    int height = buffer.getInt();
+    int width = buffer.getInt();
+    buffer.getInt(); // pitch or linear size
+    buffer.getInt(); // depth
+    int mipMapField = buffer.getInt();
+    int mipMapCount = (flags & DDSD_MIPMAPCOUNT) != 0 ? Math.max(1, mipMapField) : 1;
+    buffer.position(buffer.position() + 11 * 4); // reserved
+
+    buffer.getInt(); // pixel format size
+    int pixelFlags = buffer.getInt();
+    int fourCC = buffer.getInt();
+    int bitCount = buffer.getInt();
+    int redMask = buffer.getInt();
+    int greenMask = buffer.getInt();
+    int blueMask = buffer.getInt();
+    int alphaMask = buffer.getInt();
+    TextureFormat format;
+    if ((pixelFlags & DDPF_FOURCC) != 0) {
+      format =
+          switch (fourCC) {
+            case FOURCC_DXT1 -> TextureFormat.BC1;
+            case FOURCC_DXT5 -> TextureFormat.BC3;
+            default -> throw new IOException(
+                "Unsupported DDS FourCC 0x" + Integer.toHexString(fourCC));
+          };
+    } else if ((pixelFlags & DDPF_RGB) != 0
+        && bitCount == 32
+        && redMask == 0xFF
+        && greenMask == 0xFF00
+        && blueMask == 0xFF0000
+        && alphaMask == 0xFF000000) {
+      format = TextureFormat.RGBA8;
+    } else {
+      throw new IOException("Unsupported DDS pixel format");
+    }
+
+    buffer.position(start + HEADER_SIZE);
+    byte[][] levels = new byte[mipMapCount][];
+    for (int level = 0; level < mipMapCount; level++) {
+      int size = format.getLevelSize(Math.max(1, width >> level), Math.max(1, height >> level));
+      if (buffer.remaining() < size) {
+        throw new IOException("Truncated DDS file at level " + level);
+      }
+      levels[level] = new byte[size];
+      buffer.get(levels[level]);
+    }
+    return new CompressedImage(format, width, height, levels);
+  }
+
+  /**
+   * Writes an image and its Mip Maps into a DDS container
+   *
+   * @param image the image to write, must be BC1, BC3 or RGBA8
+   * @param out the stream to write to
+   * @throws IOException if the stream can't be written or the format isn't supported by DDS
+   */
+  public static void write(CompressedImage image, OutputStream out) throws IOException {
+    TextureFormat format = image.getFormat();
+    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE + 4).order(ByteOrder.LITTLE_ENDIAN);
+    header.putInt(MAGIC);
+    header.putInt(HEADER_SIZE);
+    header.putInt(
+        DDSD_REQUIRED | DDSD_MIPMAPCOUNT | (format.isCompressed() ? DDSD_LINEARSIZE : DDSD_PITCH));
+    header.putInt(image.getHeight());
+    header.putInt(image.getWidth());
+    header.putInt(format.isCompressed() ? image.getLevel(0).length : image.getWidth() * 4);
+    header.putInt(0); // depth
+    header.putInt(image.getLevelCount());
+    header.position(header.position() + 11 * 4); // reserved
+
+    header.putInt(PIXEL_FORMAT_SIZE);
+    switch (format) {
+      case BC1, BC3 -> {
+        header.putInt(DDPF_FOURCC);
+        header.putInt(format == TextureFormat.BC1 ? FOURCC_DXT1 : FOURCC_DXT5);
+        header.putInt(0);
+        header.putInt(0);
+        header.putInt(0);
+        header.putInt(0);
+        header.putInt(0);
+      }
+      case RGBA8 -> {
+        header.putInt(DDPF_RGB | DDPF_ALPHAPIXELS);
+        header.putInt(0);
+        header.putInt(32);
+        header.putInt(0xFF);
+        header.putInt(0xFF00);
+        header.putInt(0xFF0000);
+        header.putInt(0xFF000000);
+      }
+      default -> throw new IOException("Format " + format + " can't be stored in a DDS file");
+    }
+    header.putInt(DDSCAPS_TEXTURE | (image.getLevelCount() > 1 ? DDSCAPS_MIPMAP : 0));
+    // caps2, caps3, caps4 and reserved are left to 0
+    out.write(header.array());
+    for (int level = 0; level < image.getLevelCount(); level++) {
+      out.write(image.getLevel(level));
+    }
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.graphics2j.common.textures.compression;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import org.alban098.graphics2j.common.textures.CompressedImage;
+import org.alban098.graphics2j.common.textures.TextureFormat;
+
+/**
+ * Reads KTX (version 1) containers holding 2D images of any {@link TextureFormat}, with their Mip
+ * Maps. This class makes no OpenGL call
+ */
+public final class KtxContainer {
+
+  /** The identifier starting every KTX 1 file */
+  private static final byte[] IDENTIFIER = {
+    (byte) 0xAB, 'K', 'T', 'X', ' ', '1', '1', (byte) 0xBB, '\r', '\n', 0x1A, '\n'
+  };
+  /** The endianness marker, as read when the file has the same endianness as the reader */
+  private static final int ENDIANNESS = 0x04030201;
+
+  /** Just a private constructor to disable instantiation */
+  private KtxContainer() {}
+
+  /**
+   * Reads a KTX container
+   *
+   * @param data the content of the file
+   * @return the image held by the container
+   * @throws IOException if the container is malformed or holds an unsupported format
+   */
+  public static CompressedImage read(ByteBuffer data) throws IOException {
+    ByteBuffer buffer = data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    if (buffer.remaining() < IDENTIFIER.length + 13 * 4) {
+      throw new IOException("Not a KTX file");
+    }
+    for (byte b : IDENTIFIER) {
+      if (buffer.get() != b) {
+        throw new IOException("Not a KTX file");
+      }
+    }
+    int endianness = buffer.getInt();
+    if (endianness != ENDIANNESS) {
+      buffer.order(ByteOrder.BIG_ENDIAN);
+      if (Integer.reverseBytes(endianness) != ENDIANNESS) {
+        throw new IOException("Malformed KTX endianness marker");
+      }
+    }
+    buffer.getInt(); // glType
+    buffer.getInt(); // glTypeSize
+    buffer.getInt(); // glFormat
+    int internalFormat = buffer.getInt();
+    buffer.getInt(); // glBaseInternalFormat
+    int width = buffer.getInt();
+    int height = Math.max(1, buffer.getInt());
+    int depth = buffer.getInt();
+    int arrayElements = buffer.getInt();
+    int faces = buffer.getInt();
+    int mipMapCount = Math.max(1, buffer.getInt());
+    int keyValueBytes = buffer.getInt();
+    if (depth > 1 || arrayElements > 0 || faces != 1) {
+      throw new IOException("Only 2D KTX textures are supported");
+    }
+    TextureFormat format = null;
+    for (TextureFormat candidate : TextureFormat.values()) {
+      if (candidate.getInternalFormat() == internalFormat) {
+        format = candidate;
+      }
+    }
+    if (format == null) {
+      throw new IOException(
+          "Unsupported KTX internal format 0x" + Integer.toHexString(internalFormat));
+    }
+    buffer.position(buffer.position() + keyValueBytes);
+
+    byte[][] levels = new byte[mipMapCount][];
+    for (int level = 0; level < mipMapCount; level++) {
+      int size = buffer.getInt();
+      int expected = format.getLevelSize(Math.max(1, width >> level), Math.max(1, height >> level));
+      if (size != expected || buffer.remaining() < size) {
+        throw new IOException("Malformed KTX level " + level);
+      }
+      levels[level] = new byte[size];
+      buffer.get(levels[level]);
+      // Levels are padded to 4 bytes
+      buffer.position(Math.min(buffer.limit(), buffer.position() + (3 - ((size + 3) % 4))));
+    }
+    return new CompressedImage(format, width, height, levels);
+  }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.graphics2j.common.textures.compression;
+
+import org.alban098.graphics2j.common.textures.TextureFormat;
+
+/** Generates Mip Map chains of RGBA images using a box filter. This class makes no OpenGL call */
+public final class MipMapGenerator {
+
+  /** Just a private constructor to disable instantiation */
+  private MipMapGenerator() {}
+
+  /**
+   * Generates the full Mip Map chain of an image, down to 1*1
+   *
+   * @param rgba the RGBA pixels of the base level, 1 byte per channel, row by row
+   * @param width the width of the base level in pixels
+   * @param height the height of the base level in pixels
+   * @return every level of the chain, starting with the base level
+   */
+  public static byte[][] generateChain(byte[] rgba, int width, int height) {
+    byte[][] levels = new byte[TextureFormat.getFullMipLevelCount(width, height)][];
+    levels[0] = rgba;
+    for (int level = 1; level < levels.length; level++) {
+      levels[level] = downsample(levels[level - 1], width, height);
+      width = Math.max(1, width >> 1);
+      height = Math.max(1, height >> 1);
+    }
+    return levels;
+  }
+
+  /**
+   * Halves the dimensions of an image, averaging each 2*2 texel footprint. Odd dimensions are
+   * handled by clamping the footprint at the edges
+   *
+   * @param rgba the RGBA pixels of the image, 1 byte per channel, row by row
+   * @param width the width of the image in pixels
+   * @param height the height of the image in pixels
+   * @return the RGBA pixels of the downsampled image
+   */
+  public static byte[] downsample(byte[] rgba, int width, int height) {
+    int outWidth = Math.max(1, width >> 1);
+    int outHeight = Math.max(1, height >> 1);
+    byte[] out = new byte[outWidth * outHeight * 4];
+    for (int y = 0; y < outHeight; y++) {
+      int y0 = Math.min(y * 2, height - 1);
+      int y1 = Math.min(y * 2 + 1, height - 1);
+      for (int x = 0; x < outWidth; x++) {
+        int x0 = Math.min(x * 2, width - 1);
+        int x1 = Math.min(x * 2 + 1, width - 1);
+        for (int c = 0; c < 4; c++) {
+          int sum =
+              (rgba[(y0 * width + x0) * 4 + c] & 0xFF)
+                  + (rgba[(y0 * width + x1) * 4 + c] & 0xFF)
+                  + (rgba[(y1 * width + x0) * 4 + c] & 0xFF)
+                  + (rgba[(y1 * width + x1) * 4 + c] & 0xFF);
+          out[(y * outWidth + x) * 4 + c] = (byte) ((sum + 2) >> 2);
+        }
+      }
+    }
+    return out;
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.graphics2j.common.textures.compression;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.alban098.graphics2j.common.textures.CompressedImage;
+import org.alban098.graphics2j.common.textures.ImageData;
+import org.alban098.graphics2j.common.textures.StbImageDecoder;
+import org.alban098.graphics2j.common.textures.TextureFormat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Offline asset pipeline tool, converting image files into DDS containers holding BC1 or BC3
+ * compressed images with a full Mip Map chain. Usage : {@code TextureCompressor <input image>
+ * <output.dds> [BC1|BC3]}, BC3 being the default. This class makes no OpenGL call
+ */
+public final class TextureCompressor {
+
+  /** Just a Logger to log events */
+  private static final Logger LOGGER = LoggerFactory.getLogger(TextureCompressor.class);
+
+  /** Just a private constructor to disable instantiation */
+  private TextureCompressor() {}
+
+  /**
+   * Compresses an image file into a DDS container
+   *
+   * @param args the input image, the output file and optionally the format (BC1 or BC3)
+   * @throws IOException if the input can't be decoded or the output can't be written
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 2) {
+      System.err.println("Usage: TextureCompressor <input image> <output.dds> [BC1|BC3]");
+      System.exit(1);
+    }
+    TextureFormat format = args.length > 2 ? TextureFormat.valueOf(args[2]) : TextureFormat.BC3;
+    compressFile(args[0], Path.of(args[1]), format);
+  }
+
+  /**
+   * Compresses an image file into a DDS container
+   *
+   * @param input the path of the image file
+   * @param output the path of the DDS container to write
+   * @param format the format to compress to, {@link TextureFormat#BC1} or {@link TextureFormat#BC3}
+   * @throws IOException if the input can't be decoded or the output can't be written
+   */
+  public static void compressFile(String input, Path output, TextureFormat format)
+      throws IOException {
+    ImageData image = new StbImageDecoder().decode(input);
+    byte[] rgba = new byte[image.getSize()];
+    image.getPixels().get(0, rgba);
+    image.free();
+    CompressedImage compressed = compress(rgba, image.getWidth(), image.getHeight(), format, true);
+    try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(output))) {
+      DdsContainer.write(compressed, out);
+    }
+    LOGGER.info(
+        "Texture [{}] compressed to [{}] as {}, {} levels, {} bytes instead of {}",
+        input,
+        output,
+        format,
+        compressed.getLevelCount(),
+        compressed.getSize(),
+        TextureFormat.RGBA8.getMipChainSize(
+            image.getWidth(), image.getHeight(), compressed.getLevelCount()));
+  }
+
+  /**
+   * Compresses RGBA pixels
+   *
+   * @param rgba the RGBA pixels, 1 byte per channel, row by row
+   * @param width the width of the image in pixels
+   * @param height the height of the image in pixels
+   * @param format the format to compress to, {@link TextureFormat#BC1} or {@link TextureFormat#BC3}
+   * @param mipMaps whether to generate and compress the full Mip Map chain
+   * @return the compressed image
+   */
+  public static CompressedImage compress(
+      byte[] rgba, int width, int height, TextureFormat format, boolean mipMaps) {
+    byte[][] levels =
+        mipMaps ? MipMapGenerator.generateChain(rgba, width, height) : new byte[][] {rgba};
+    byte[][] compressed = new byte[levels.length][];
+    for (int level = 0; level < levels.length; level++) {
+      compressed[level] =
+          BlockEncoder.encode(
+              levels[level], Math.max(1, width >> level), Math.max(1, height >> level), format);
+    }
+    return new CompressedImage(format, width, height, compressed);
+  }
+}
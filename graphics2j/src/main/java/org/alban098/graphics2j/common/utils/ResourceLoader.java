@@ -6,24 +6,34 @@
 package org.alban098.graphics2j.common.utils;
 
 import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL12.GL_TEXTURE_MAX_LEVEL;
+import static org.lwjgl.opengl.GL13.glCompressedTexImage2D;
 import static org.lwjgl.opengl.GL30.glGenerateMipmap;
-import static org.lwjgl.stb.STBImage.*;
 
 import java.awt.image.BufferedImage;
 import java.io.*;
 import java.nio.ByteBuffer;
-import java.nio.IntBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Base64;
 import java.util.Collection;
+import java.util.Locale;
 import javax.imageio.ImageIO;
 import org.alban098.graphics2j.common.shaders.data.Texture;
+import org.alban098.graphics2j.common.textures.CompressedImage;
+import org.alban098.graphics2j.common.textures.ImageData;
+import org.alban098.graphics2j.common.textures.ImageDecoder;
+import org.alban098.graphics2j.common.textures.StbImageDecoder;
+import org.alban098.graphics2j.common.textures.TextureFormat;
+import org.alban098.graphics2j.common.textures.compression.DdsContainer;
+import org.alban098.graphics2j.common.textures.compression.KtxContainer;
 import org.alban098.graphics2j.fonts.CharacterDescriptor;
 import org.alban098.graphics2j.fonts.Font;
 import org.joml.Vector2f;
 import org.lwjgl.BufferUtils;
-import org.lwjgl.system.MemoryStack;
+import org.lwjgl.system.MemoryUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -32,6 +42,8 @@ public final class ResourceLoader {
 
   /** Just a Logger to log events */
   private static final Logger LOGGER = LoggerFactory.getLogger(ResourceLoader.class);
+  /** The decoder used to read image files */
+  private static final ImageDecoder DECODER = new StbImageDecoder();
 
   /** Empty private constructor to prevent instantiation */
   private ResourceLoader() {}
@@ -61,48 +73,156 @@ public final class ResourceLoader {
    * @return a Texture retrieved from an image file
    */
   public static Texture loadTexture(String filePath) {
-    int width;
-    int height;
-    ByteBuffer buf;
-    try (MemoryStack stack = MemoryStack.stackPush()) {
-      IntBuffer w = stack.mallocInt(1);
-      IntBuffer h = stack.mallocInt(1);
-      IntBuffer channels = stack.mallocInt(1);
-
-      buf = stbi_load(filePath, w, h, channels, 4);
-      if (buf == null) {
-        LOGGER.error("Image file [{}] not loaded: {}", filePath, stbi_failure_reason());
-        return null;
-      }
-
-      width = w.get();
-      height = h.get();
+    if (isTextureContainer(filePath)) {
+      return loadCompressedTexture(filePath);
+    }
+    ImageData image = decodeImage(filePath);
+    if (image == null) {
+      return null;
     }
-    int size = buf.limit() * 4;
     // Create a new OpenGL texture
     int textureId = glGenTextures();
-    // Bind the texture
-    glBindTexture(GL_TEXTURE_2D, textureId);
-
-    // Tell OpenGL how to unpack the RGBA bytes. Each component is 1 byte size
-    glPixelStorei(GL_UNPACK_ALIGNMENT, 1);
-
-    glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_LINEAR);
-    glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_LINEAR);
-
-    // Upload the texture data
-    glTexImage2D(GL_TEXTURE_2D, 0, GL_RGBA, width, height, 0, GL_RGBA, GL_UNSIGNED_BYTE, buf);
-    // Generate Mip Map
-    glGenerateMipmap(GL_TEXTURE_2D);
+    uploadTexture(textureId, image.getWidth(), image.getHeight(), image.getPixels());
 
     // Free used memory
-    stbi_image_free(buf);
+    image.free();
     LOGGER.info(
         "Texture [{}] successfully loaded, size is {}*{} with Linear filtering in RGBA mode",
         filePath,
-        width,
-        height);
-    return new Texture(textureId, width, height, size, true);
+        image.getWidth(),
+        image.getHeight());
+    return new Texture(
+        textureId,
+        image.getWidth(),
+        image.getHeight(),
+        TextureFormat.RGBA8,
+        TextureFormat.getFullMipLevelCount(image.getWidth(), image.getHeight()),
+        true);
+  }
+
+  /**
+   * Loads a texture from a DDS or KTX container, uploading its levels as is, without decompressing
+   * them nor generating Mip Maps
+   *
+   * @param filePath the Path to the container file
+   * @return a Texture retrieved from the container, null if it can't be read or its format isn't
+   *     supported by the current OpenGL context
+   */
+  public static Texture loadCompressedTexture(String filePath) {
+    CompressedImage image = readTextureContainer(filePath);
+    if (image == null) {
+      return null;
+    }
+    int textureId = glGenTextures();
+    uploadCompressedTexture(textureId, image);
+    LOGGER.info(
+        "Texture [{}] successfully loaded, size is {}*{} with {} levels in {} mode",
+        filePath,
+        image.getWidth(),
+        image.getHeight(),
+        image.getLevelCount(),
+        image.getFormat());
+    return new Texture(
+        textureId,
+        image.getWidth(),
+        image.getHeight(),
+        image.getFormat(),
+        image.getLevelCount(),
+        true);
+  }
+
+  /**
+   * Reloads the content of an existing Texture from a file, keeping its id
+   *
+   * @param texture the Texture to reload
+   * @param filePath the Path to the texture file
+   * @return true if the Texture has been reloaded, false otherwise
+   */
+  public static boolean reloadTexture(Texture texture, String filePath) {
+    if (isTextureContainer(filePath)) {
+      CompressedImage compressed = readTextureContainer(filePath);
+      if (compressed == null) {
+        return false;
+      }
+      uploadCompressedTexture(texture.getId(), compressed);
+      texture.setContent(
+          compressed.getWidth(),
+          compressed.getHeight(),
+          compressed.getFormat(),
+          compressed.getLevelCount());
+      LOGGER.info("Texture [{}] successfully reloaded", filePath);
+      return true;
+    }
+    ImageData image = decodeImage(filePath);
+    if (image == null) {
+      return false;
+    }
+    uploadTexture(texture.getId(), image.getWidth(), image.getHeight(), image.getPixels());
+    texture.setContent(
+        image.getWidth(),
+        image.getHeight(),
+        TextureFormat.RGBA8,
+        TextureFormat.getFullMipLevelCount(image.getWidth(), image.getHeight()));
+
+    // Free used memory
+    image.free();
+    LOGGER.info("Texture [{}] successfully reloaded", filePath);
+    return true;
+  }
+
+  /**
+   * Returns whether a file is a texture container (DDS or KTX) based on its extension
+   *
+   * @param filePath the Path to the file
+   * @return whether the file is a texture container
+   */
+  private static boolean isTextureContainer(String filePath) {
+    String lowerCase = filePath.toLowerCase(Locale.ROOT);
+    return lowerCase.endsWith(".dds") || lowerCase.endsWith(".ktx");
+  }
+
+  /**
+   * Reads a DDS or KTX texture container
+   *
+   * @param filePath the Path to the container file
+   * @return the image held by the container, null if it can't be read or its format isn't supported
+   *     by the current OpenGL context
+   */
+  private static CompressedImage readTextureContainer(String filePath) {
+    CompressedImage image;
+    try {
+      ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(Path.of(filePath)));
+      image =
+          filePath.toLowerCase(Locale.ROOT).endsWith(".dds")
+              ? DdsContainer.read(data)
+              : KtxContainer.read(data);
+    } catch (IOException e) {
+      LOGGER.error("Texture container [{}] not loaded: {}", filePath, e.getMessage());
+      return null;
+    }
+    if (!image.getFormat().isSupported()) {
+      LOGGER.error(
+          "Texture container [{}] not loaded: format {} is not supported by the OpenGL context",
+          filePath,
+          image.getFormat());
+      return null;
+    }
+    return image;
+  }
+
+  /**
+   * Decodes an image file into RGBA pixels
+   *
+   * @param filePath the Path to the image file
+   * @return the decoded image, null if an error occurs
+   */
+  private static ImageData decodeImage(String filePath) {
+    try {
+      return DECODER.decode(filePath);
+    } catch (IOException e) {
+      LOGGER.error("Image file [{}] not loaded: {}", filePath, e.getMessage());
+      return null;
+    }
   }
 
   /**
@@ -208,39 +328,97 @@ public final class ResourceLoader {
       data.flip();
       // Create a new OpenGL texture
       int textureId = glGenTextures();
-      // Bind the texture
-      glBindTexture(GL_TEXTURE_2D, textureId);
-
-      // Tell OpenGL how to unpack the RGBA bytes. Each component is 1 byte size
-      glPixelStorei(GL_UNPACK_ALIGNMENT, 1);
-
-      glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_LINEAR);
-      glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_LINEAR);
-
-      // Upload the texture data
-      glTexImage2D(
-          GL_TEXTURE_2D,
-          0,
-          GL_RGBA,
-          image.getWidth(),
-          image.getHeight(),
-          0,
-          GL_RGBA,
-          GL_UNSIGNED_BYTE,
-          data);
-      // Generate Mip Map
-      glGenerateMipmap(GL_TEXTURE_2D);
-
-      // Free used memory
+      uploadTexture(textureId, image.getWidth(), image.getHeight(), data);
 
       LOGGER.info(
           "Texture successfully decoded, size is {}*{} with Linear filtering in RGBA mode",
           image.getWidth(),
           image.getHeight());
-      return new Texture(textureId, image.getWidth(), image.getHeight(), size * 4, true);
+      return new Texture(
+          textureId,
+          image.getWidth(),
+          image.getHeight(),
+          TextureFormat.RGBA8,
+          TextureFormat.getFullMipLevelCount(image.getWidth(), image.getHeight()),
+          true);
     } catch (Exception e) {
       LOGGER.error("Unable to decode image file, caused by : {}", e.getMessage());
     }
     return null;
   }
+
+  /**
+   * Uploads RGBA pixels into an existing OpenGL texture, with Linear filtering, and generates its
+   * Mip Maps. Must be called from the thread owning the OpenGL context
+   *
+   * @param textureId the id of the texture to upload into
+   * @param width the width of the image in pixels
+   * @param height the height of the image in pixels
+   * @param pixels the RGBA pixels of the image, 1 byte per channel
+   */
+  public static void uploadTexture(int textureId, int width, int height, ByteBuffer pixels) {
+    // Bind the texture
+    glBindTexture(GL_TEXTURE_2D, textureId);
+
+    // Tell OpenGL how to unpack the RGBA bytes. Each component is 1 byte size
+    glPixelStorei(GL_UNPACK_ALIGNMENT, 1);
+
+    glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_LINEAR);
+    glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_LINEAR);
+    // The texture may previously have held a shorter prebuilt Mip Map chain
+    glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAX_LEVEL, 1000);
+
+    // Upload the texture data
+    glTexImage2D(GL_TEXTURE_2D, 0, GL_RGBA, width, height, 0, GL_RGBA, GL_UNSIGNED_BYTE, pixels);
+    // Generate Mip Map
+    glGenerateMipmap(GL_TEXTURE_2D);
+    glBindTexture(GL_TEXTURE_2D, 0);
+  }
+
+  /**
+   * Uploads an image and its prebuilt Mip Maps as is into an existing OpenGL texture, with Linear
+   * filtering. Must be called from the thread owning the OpenGL context
+   *
+   * @param textureId the id of the texture to upload into
+   * @param image the image to upload
+   */
+  public static void uploadCompressedTexture(int textureId, CompressedImage image) {
+    glBindTexture(GL_TEXTURE_2D, textureId);
+    glPixelStorei(GL_UNPACK_ALIGNMENT, 1);
+    glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_LINEAR);
+    glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_LINEAR);
+    glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAX_LEVEL, image.getLevelCount() - 1);
+
+    // A single staging buffer, large enough for the base level, is reused for every level
+    ByteBuffer staging = MemoryUtil.memAlloc(image.getLevel(0).length);
+    TextureFormat format = image.getFormat();
+    for (int level = 0; level < image.getLevelCount(); level++) {
+      byte[] data = image.getLevel(level);
+      staging.clear();
+      staging.put(data).flip();
+      if (format.isCompressed()) {
+        glCompressedTexImage2D(
+            GL_TEXTURE_2D,
+            level,
+            format.getInternalFormat(),
+            image.getWidth(level),
+            image.getHeight(level),
+            0,
+            staging);
+      } else {
+        glTexImage2D(
+            GL_TEXTURE_2D,
+            level,
+            GL_RGBA,
+            image.getWidth(level),
+            image.getHeight(level),
+            0,
+            GL_RGBA,
+            GL_UNSIGNED_BYTE,
+            staging);
+      }
+    }
+    MemoryUtil.memFree(staging);
+    glBindTexture(GL_TEXTURE_2D, 0);
+  }
 }
@@ -9,7 +9,11 @@ import imgui.ImGui;
 import imgui.ImVec2;
 import imgui.extension.implot.flag.ImPlotFlags;
 import imgui.flag.ImGuiStyleVar;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
+import org.alban098.common.metrics.MetricGroup;
+import org.alban098.common.metrics.MetricSeries;
 import org.alban098.graphics2j.common.Renderer;
 import org.alban098.graphics2j.common.Window;
 import org.alban098.graphics2j.common.shaders.ShaderAttribute;
@@ -22,6 +26,9 @@ import org.alban098.graphics2j.common.shaders.data.vao.VertexArrayObject;
 import org.alban098.graphics2j.common.shaders.data.vbo.VertexBufferObject;
 import org.alban098.graphics2j.interfaces.InterfaceRenderingManager;
 import org.alban098.graphics2j.objects.RendererManager;
+import org.alban098.graphics2j.profiler.FrameProfiler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * The standard {@link ImGuiTab} displaying timing, {@link Renderer}s, {@link ShaderProgram}, {@link
@@ -29,6 +36,8 @@ import org.alban098.graphics2j.objects.RendererManager;
  */
 public class DebugImGuiTab extends ImGuiTab {
 
+  /** Just a Logger to log events */
+  private static final Logger LOGGER = LoggerFactory.getLogger(DebugImGuiTab.class);
   /** Delay between 2 timing delay updates */
   private static final int LABEL_RENEW_TIME = 100;
   /** The {@link Window} the Tab is associated to */
@@ -47,13 +56,25 @@ public class DebugImGuiTab extends ImGuiTab {
   /** A Collection of all available {@link Renderer} */
   private final Collection<Renderer> renderers = new ArrayList<>();
   /** The Plot of time passed in each {@link ShaderProgram} */
-  private final ImGuiTimePlot<ShaderProgram> shaderTimePlot;
+  private final ImGuiTimePlot shaderTimePlot;
   /** The Plot for frame time */
-  private final ImGuiTimePlot<String> frameTimePlot;
+  private final ImGuiTimePlot frameTimePlot;
+  /** The samples of frame time in milliseconds */
+  private final MetricSeries frameTimes;
+  /** A buffer for the median frametime label */
+  private double frametimeP50 = 0;
+  /** A buffer for the 99th percentile frametime label */
+  private double frametimeP99 = 0;
+  /** A buffer for the worst frametime label */
+  private double frametimeMax = 0;
   /** The Manager in charge of handling all Entities, used to retrieve entity renderers */
   private final RendererManager entityRenderingManager;
   /** The Manager in charge of handling all UIs, used to retrieve UI renderers */
   private final InterfaceRenderingManager interfaceRenderingManager;
+  /** The flame graph of the CPU scopes of the last frame */
+  private final ImGuiFlameGraph cpuFlameGraph = new ImGuiFlameGraph("CPU", 4);
+  /** The flame graph of the GPU scopes of the last resolved frame */
+  private final ImGuiFlameGraph gpuFlameGraph = new ImGuiFlameGraph("GPU", 4);
 
   /**
    * Creates a new {@link DebugImGuiTab}
@@ -70,15 +91,10 @@ public class DebugImGuiTab extends ImGuiTab {
     this.window = window;
     this.entityRenderingManager = entityRenderingManager;
     this.interfaceRenderingManager = interfaceRenderingManager;
-    shaderTimePlot =
-        new ImGuiTimePlot<>(
-            "Shader Rendering times", 128, new ImVec2(485, 183), Collections::emptyMap);
-    frameTimePlot =
-        new ImGuiTimePlot<>(
-            "Frametime plot",
-            128,
-            new ImVec2(438, 183),
-            () -> Map.of("frameTime", window.getFrametime()));
+    shaderTimePlot = new ImGuiTimePlot("Shader Rendering times", new ImVec2(485, 183), null);
+    MetricGroup frameGroup = new MetricGroup("Frame", 128);
+    frameTimes = frameGroup.register("frameTime");
+    frameTimePlot = new ImGuiTimePlot("Frametime plot", new ImVec2(438, 183), frameGroup);
   }
 
   /**
@@ -90,10 +106,9 @@ public class DebugImGuiTab extends ImGuiTab {
     renderers.clear();
     renderers.addAll(entityRenderingManager.getRenderers());
     renderers.addAll(interfaceRenderingManager.getRenderers());
-    ImGui.setWindowSize(1140, 663);
+    ImGui.setWindowSize(1140, 900);
     ImGui.pushStyleVar(ImGuiStyleVar.ChildRounding, 5.0f);
-    shaderTimePlot.update();
-    frameTimePlot.update();
+    frameTimes.push(window.getFrametime() * 1_000);
     // Top half of the window
     if (ImGui.beginChild("top half##" + uuid, 1200, 400)) {
       // Row 0
@@ -127,9 +142,37 @@ public class DebugImGuiTab extends ImGuiTab {
       displayShadersTimePlot();
     }
     ImGui.endChild();
+    displayProfilerSection();
     ImGui.popStyleVar();
   }
 
+  /** Displays the Section with the CPU and GPU flame graphs of the {@link FrameProfiler} */
+  private void displayProfilerSection() {
+    FrameProfiler profiler = window.getProfiler();
+    if (ImGui.beginChild("profiler##" + uuid, 1122, 230, true)) {
+      if (ImGui.checkbox("GPU timer queries##" + uuid, profiler.isGpuEnabled())) {
+        profiler.setGpuEnabled(!profiler.isGpuEnabled());
+      }
+      ImGui.sameLine();
+      if (ImGui.button("Export Chrome trace##" + uuid)) {
+        Path file = Path.of("profile-" + System.currentTimeMillis() + ".json");
+        try {
+          profiler.exportChromeTrace(file);
+          LOGGER.info("Profiler trace exported to [{}]", file.toAbsolutePath());
+        } catch (IOException e) {
+          LOGGER.error("Unable to export profiler trace to [{}]", file, e);
+        }
+      }
+      cpuFlameGraph.render(profiler.getCpuRecorder(), 1100);
+      if (profiler.getGpuProfiler().isSupported()) {
+        gpuFlameGraph.render(profiler.getGpuRecorder(), 1100);
+      } else {
+        ImGui.textColored(255, 0, 255, 255, "GPU timer queries not supported");
+      }
+    }
+    ImGui.endChild();
+  }
+
   /** Displays the Section with all Timing info such as frame time, FPS, and frametime plot */
   private void displayTimingInfoSection() {
     if (ImGui.beginChild("Timing##" + uuid, 613, 200, true)) {
@@ -138,6 +181,9 @@ public class DebugImGuiTab extends ImGuiTab {
             window.getTimeSinceLastFrame() == 0 ? 0 : (int) (1.0 / window.getTimeSinceLastFrame());
         frametime = (int) (window.getFrametime() * 10000) / 10.0;
         lastFrame = (int) (window.getTimeSinceLastFrame() * 10000) / 10.0;
+        frametimeP50 = (int) (frameTimes.getPercentile(50) * 10) / 10.0;
+        frametimeP99 = (int) (frameTimes.getPercentile(99) * 10) / 10.0;
+        frametimeMax = (int) (frameTimes.getMax() * 10) / 10.0;
         refreshLabelAt = System.currentTimeMillis() + LABEL_RENEW_TIME;
       }
       if (ImGui.beginChild("timing##" + uuid, 150, 170)) {
@@ -148,6 +194,12 @@ public class DebugImGuiTab extends ImGuiTab {
         ImGui.textColored(255, 0, 0, 255, "Frame");
         ImGuiUtils.drawAttrib("Computation ", frametime + " ms", 10, 100);
         ImGuiUtils.drawAttrib("Duration", lastFrame + " ms", 10, 100);
+
+        ImGui.separator();
+        ImGui.textColored(255, 0, 0, 255, "Computation");
+        ImGuiUtils.drawAttrib("Median", frametimeP50 + " ms", 10, 100);
+        ImGuiUtils.drawAttrib("99th perc.", frametimeP99 + " ms", 10, 100);
+        ImGuiUtils.drawAttrib("Worst", frametimeMax + " ms", 10, 100);
       }
       ImGui.endChild();
       ImGui.sameLine();
@@ -321,7 +373,7 @@ public class DebugImGuiTab extends ImGuiTab {
    */
   private void selectRenderer(Renderer renderer) {
     selectedRenderer = renderer;
-    shaderTimePlot.setSampleSupplier(selectedRenderer::getShaderTimes);
+    shaderTimePlot.setGroup(selectedRenderer.getShaderTimes());
   }
 
   /** Displays the section where info about the {@link Renderer} are shown */
@@ -358,7 +410,8 @@ public class DebugImGuiTab extends ImGuiTab {
         123 + 255 / texture.getAspectRatio(),
         true)) {
       ImGuiUtils.drawAttrib("Id", texture.getId(), 10, 65);
-      ImGuiUtils.drawAttrib("Size", ImGuiUtils.formatSize(texture.getSize()), 10, 65);
+      ImGuiUtils.drawAttrib("Size", ImGuiUtils.formatSize(texture.getMemorySize()), 10, 65);
+      ImGuiUtils.drawAttrib("Mip Maps", texture.getMipLevelCount() + " levels", 10, 65);
       ImGuiUtils.drawAttrib("Type", texture.getTypeDescriptor(), 10, 65);
       ImGuiUtils.drawAttrib(
           "Origin", texture.isFromFile() ? "Image file" : "Framebuffer rendering target", 10, 65);
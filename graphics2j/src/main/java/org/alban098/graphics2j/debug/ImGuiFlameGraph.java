@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.graphics2j.debug;
+
+import imgui.ImColor;
+import imgui.ImDrawList;
+import imgui.ImGui;
+import java.util.Locale;
+import org.alban098.common.profiler.ScopeRecorder;
+import org.alban098.common.profiler.ScopeVisitor;
+
+/**
+ * Represents a flame graph displaying the scopes of the last frame recorded by a {@link
+ * ScopeRecorder}, time on the horizontal axis and nesting depth on the vertical axis
+ */
+public class ImGuiFlameGraph implements ScopeVisitor {
+
+  /** The height of a row of the graph in pixels */
+  private static final float ROW_HEIGHT = 18;
+  /** The color of the text drawn on top of the scopes */
+  private static final int TEXT_COLOR = ImColor.intToColor(0, 0, 0, 255);
+
+  /** The title of the graph */
+  private final String title;
+  /** The number of rows of the graph */
+  private final int rows;
+  /** The recorder currently being drawn */
+  private ScopeRecorder recorder;
+  /** The draw list currently being drawn into */
+  private ImDrawList drawList;
+  /** The screen position of the top left corner of the graph */
+  private float originX, originY;
+  /** The width of the graph in pixels */
+  private float width;
+  /** The start time of the frame being drawn in nanoseconds */
+  private long frameStart;
+  /** The number of pixels per nanosecond */
+  private double scale;
+
+  /**
+   * Creates a new Flame graph
+   *
+   * @param title the title of the graph
+   * @param rows the number of rows of the graph, deeper scopes are not drawn
+   */
+  public ImGuiFlameGraph(String title, int rows) {
+    this.title = title;
+    this.rows = rows;
+  }
+
+  /**
+   * Draws the last frame recorded by a {@link ScopeRecorder}
+   *
+   * @param recorder the recorder to draw
+   * @param width the width of the graph in pixels
+   */
+  public void render(ScopeRecorder recorder, float width) {
+    ImGui.textColored(
+        255,
+        0,
+        0,
+        255,
+        String.format(
+            Locale.ENGLISH, "%s (%.3f ms)", title, recorder.getFrameDuration() / 1_000_000.0));
+    this.recorder = recorder;
+    this.drawList = ImGui.getWindowDrawList();
+    this.originX = ImGui.getCursorScreenPosX();
+    this.originY = ImGui.getCursorScreenPosY();
+    this.width = width;
+    this.frameStart = recorder.getFrameStart();
+    long duration = recorder.getFrameDuration();
+    this.scale = duration <= 0 ? 0 : width / (double) duration;
+    float height = rows * ROW_HEIGHT;
+    drawList.pushClipRect(originX, originY, originX + width, originY + height, true);
+    recorder.forEachFrameScope(this);
+    drawList.popClipRect();
+    ImGui.dummy(width, height);
+    this.recorder = null;
+    this.drawList = null;
+  }
+
+  /**
+   * Draws a single scope and its tooltip if hovered
+   *
+   * @param scopeId the id of the scope in its registry
+   * @param depth the nesting depth of the scope, 0 for top level scopes
+   * @param startNs the time at which the scope started in nanoseconds
+   * @param endNs the time at which the scope ended in nanoseconds
+   */
+  @Override
+  public void visit(int scopeId, int depth, long startNs, long endNs) {
+    if (depth >= rows) {
+      return;
+    }
+    float x1 = originX + (float) ((startNs - frameStart) * scale);
+    float x2 = Math.max(x1 + 1, originX + (float) ((endNs - frameStart) * scale));
+    float y1 = originY + depth * ROW_HEIGHT;
+    float y2 = y1 + ROW_HEIGHT - 1;
+    if (x2 < originX || x1 > originX + width) {
+      return;
+    }
+    // A stable color per scope, spread along the hue circle
+    float hue = (scopeId * 0.618034f) % 1f;
+    drawList.addRectFilled(x1, y1, x2, y2, ImColor.hsl(hue, 0.6f, 0.65f), 2);
+    String name = recorder.getRegistry().getName(scopeId);
+    if (x2 - x1 > name.length() * 7 + 4) {
+      drawList.addText(x1 + 2, y1 + 2, TEXT_COLOR, name);
+    }
+    if (ImGui.isMouseHoveringRect(x1, y1, x2, y2)) {
+      ImGui.setTooltip(
+          String.format(Locale.ENGLISH, "%s\n%.3f ms", name, (endNs - startNs) / 1_000_000.0));
+    }
+  }
+}
@@ -10,78 +10,75 @@ import imgui.extension.implot.ImPlot;
 import imgui.extension.implot.flag.ImPlotAxisFlags;
 import imgui.extension.implot.flag.ImPlotFlags;
 import imgui.flag.ImGuiCond;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.function.Supplier;
-import org.alban098.graphics2j.debug.structures.ScrollingBuffer;
+import org.alban098.common.metrics.MetricGroup;
+import org.alban098.common.metrics.MetricSeries;
 
 /**
- * A Small simplicity of life class for rendering time plots
- *
- * @param <T> the Type of Objects for plot legend
+ * A Small simplicity of life class for rendering time plots, plotting every {@link MetricSeries} of
+ * a {@link MetricGroup} directly from its primitive arrays
  */
-public class ImGuiTimePlot<T> {
+public class ImGuiTimePlot {
 
-  /** A Map of all samples indexed by legends element */
-  private final Map<T, ScrollingBuffer<Double>> times = new HashMap<>();
-  /** A Supplier in charge of supplying a Map of Sample for one time step */
-  private Supplier<Map<T, Double>> sampleSupplier;
-  /** The maximum number of samples on the plot before scrolling */
-  private final int sampleSize;
+  /** The group of series to plot, values in milliseconds */
+  private MetricGroup group;
   /** The name of the Plot */
   private final String name;
   /** The dimension of the plot in pixels */
   private final ImVec2 plotSize;
-  /** The number of samples already plotted, used for scrolling */
-  private long sampleCount = 0;
+  /** The label of the Y axis */
+  private final String yLabel;
+  /** The value above which samples are highlighted, NaN to disable highlighting */
+  private double threshold = Double.NaN;
+  /** The threshold as passed to ImPlot */
+  private final double[] thresholdLine = new double[1];
+  /** The indices of the highlighted samples, reused every render */
+  private double[] highlightedIndices = new double[0];
+  /** The values of the highlighted samples, reused every render */
+  private double[] highlightedValues = new double[0];
 
   /**
    * Creates a new {@link ImGuiTimePlot}
    *
    * @param name the name of the Plot
-   * @param sampleCapacity the max number of samples on the Plot
    * @param plotSize the size of the Plot in pixels
-   * @param sampleSupplier the supplier in charge of supplying a Map of Sample for one time step
+   * @param group the group of series to plot, values in milliseconds, may be null
    */
-  public ImGuiTimePlot(
-      String name, int sampleCapacity, ImVec2 plotSize, Supplier<Map<T, Double>> sampleSupplier) {
-    this.sampleSize = sampleCapacity;
-    this.name = name;
-    this.plotSize = plotSize;
-    this.sampleSupplier = sampleSupplier;
-    populateTimeKeys();
-  }
-
-  /** Populates the time map keys */
-  private void populateTimeKeys() {
-    for (T t : sampleSupplier.get().keySet()) {
-      times.put(t, new ScrollingBuffer<>(sampleSize));
-    }
+  public ImGuiTimePlot(String name, ImVec2 plotSize, MetricGroup group) {
+    this(name, plotSize, group, "Time in ms");
   }
 
   /**
-   * Sets the sample Supplier methods, resets the plot and recompute the time Map keys
+   * Creates a new {@link ImGuiTimePlot} of values that are not durations
    *
-   * @param sampleSupplier the new samples Supplier
+   * @param name the name of the Plot
+   * @param plotSize the size of the Plot in pixels
+   * @param group the group of series to plot, may be null
+   * @param yLabel the label of the Y axis
    */
-  public void setSampleSupplier(Supplier<Map<T, Double>> sampleSupplier) {
-    this.sampleSupplier = sampleSupplier;
-    clear();
-    populateTimeKeys();
+  public ImGuiTimePlot(String name, ImVec2 plotSize, MetricGroup group, String yLabel) {
+    this.name = name;
+    this.plotSize = plotSize;
+    this.group = group;
+    this.yLabel = yLabel;
   }
 
-  /** Clears the Plot */
-  public void clear() {
-    times.clear();
-    sampleCount = 0;
+  /**
+   * Sets a threshold above which samples are highlighted, to spot outliers at a glance
+   *
+   * @param threshold the value above which samples are highlighted, NaN to disable highlighting
+   */
+  public void setThreshold(double threshold) {
+    this.threshold = threshold;
+    this.thresholdLine[0] = threshold;
   }
 
-  /** Updates the plot by appending the next sample */
-  public void update() {
-    for (Map.Entry<T, Double> entry : sampleSupplier.get().entrySet()) {
-      times.get(entry.getKey()).push(sampleCount, entry.getValue() * 1_000);
-    }
-    sampleCount++;
+  /**
+   * Sets the group of series to plot
+   *
+   * @param group the new group of series to plot, values in milliseconds, may be null
+   */
+  public void setGroup(MetricGroup group) {
+    this.group = group;
   }
 
   /**
@@ -92,21 +89,58 @@ public class ImGuiTimePlot<T> {
    * @param flags additional flag to be passed to {@link ImPlot#beginPlot(String)}
    */
   public void render(double yMin, double yMax, int flags) {
-    ImPlot.setNextPlotLimitsX(sampleCount - sampleSize, sampleCount, ImGuiCond.Always);
+    long sampleCount = group == null ? 0 : group.getSampleCount();
+    int capacity = group == null ? 1 : group.getCapacity();
+    ImPlot.setNextPlotLimitsX(sampleCount - capacity, sampleCount, ImGuiCond.Always);
     ImPlot.setNextPlotLimitsY(yMin, yMax, 0);
     if (ImPlot.beginPlot(
         name,
         "",
-        "Time in ms",
+        yLabel,
         plotSize,
         ImPlotFlags.NoMousePos | flags,
         ImPlotAxisFlags.NoGridLines | ImPlotAxisFlags.NoDecorations,
         ImPlotAxisFlags.LockMin)) {
-      for (T t : times.keySet()) {
-        ScrollingBuffer<Double> buffer = times.get(t);
-        ImPlot.plotLine(t.toString(), buffer.getIndices(), buffer.getValues(), buffer.getOffset());
+      if (group != null) {
+        for (int i = 0; i < group.size(); i++) {
+          MetricSeries series = group.get(i);
+          ImPlot.plotLine(
+              series.getName(),
+              series.getIndices(),
+              series.getValues(),
+              series.getSize(),
+              series.getOffset());
+        }
+        if (!Double.isNaN(threshold)) {
+          renderHighlights();
+        }
       }
       ImPlot.endPlot();
     }
   }
+
+  /** Renders the threshold line and marks every sample above it */
+  private void renderHighlights() {
+    ImPlot.plotHLines("threshold", thresholdLine, 1, 0);
+    int capacity = group.size() * group.getCapacity();
+    if (highlightedIndices.length < capacity) {
+      highlightedIndices = new double[capacity];
+      highlightedValues = new double[capacity];
+    }
+    int count = 0;
+    for (int i = 0; i < group.size(); i++) {
+      MetricSeries series = group.get(i);
+      double[] values = series.getValues();
+      double[] indices = series.getIndices();
+      for (int j = 0; j < series.getSize(); j++) {
+        if (values[j] > threshold) {
+          highlightedIndices[count] = indices[j];
+          highlightedValues[count++] = values[j];
+        }
+      }
+    }
+    if (count > 0) {
+      ImPlot.plotScatter("above threshold", highlightedIndices, highlightedValues, count, 0);
+    }
+  }
 }
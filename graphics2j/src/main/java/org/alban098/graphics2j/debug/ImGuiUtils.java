@@ -93,4 +93,24 @@ public final class ImGuiUtils {
     }
     return String.format(Locale.ENGLISH, "%.3f MB", size / 1_000_000f);
   }
+
+  /**
+   * Formats a size in bytes into a readable String featuring the right prefix
+   *
+   * <ul>
+   *   <li><b>X bytes</b> if less than 1.000
+   *   <li><b>X KB</b> if between 1.000 and 1.000.000
+   *   <li><b>X MB</b> if between 1.000.000 and 1.000.000.000
+   *   <li><b>X GB</b> if greater than 1.000.000.000
+   * </ul>
+   *
+   * @param size the size to format (in bytes)
+   * @return a formatted String representing the size
+   */
+  public static String formatSize(long size) {
+    if (size < 1_000_000_000L) {
+      return formatSize((int) size);
+    }
+    return String.format(Locale.ENGLISH, "%.3f GB", size / 1_000_000_000f);
+  }
 }
@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.graphics2j.debug;
+
+import imgui.ImGui;
+import imgui.ImVec2;
+import imgui.extension.implot.flag.ImPlotFlags;
+import imgui.flag.ImGuiTableFlags;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import org.alban098.common.MemoryManager;
+import org.alban098.common.MemoryStatistics;
+import org.alban098.common.jobs.TaskGraph;
+import org.alban098.common.metrics.MemoryTelemetry;
+import org.alban098.graphics2j.common.Window;
+import org.alban098.graphics2j.common.shaders.data.DeletionQueue;
+
+/**
+ * An {@link ImGuiTab} displaying the memory behavior of every frame : heap allocations, per phase
+ * when a {@link TaskGraph} is provided, garbage collection pauses and off-heap memory. Frames that
+ * have allocated or have been hit by a pause are highlighted, as they are the source of frame time
+ * spikes
+ */
+public class MemoryImGuiTab extends ImGuiTab {
+
+  /** The time between two refreshes of the accounting table, in ms */
+  private static final int TABLE_RENEW_TIME = 500;
+
+  /** The telemetry to display */
+  private final MemoryTelemetry telemetry;
+  /** The {@link TaskGraph} whose tasks are the phases of the frame, may be null */
+  private final TaskGraph graph;
+  /** The Plot of heap allocated by the thread running the frames */
+  private final ImGuiTimePlot heapPlot;
+  /** The Plot of heap allocated by each phase of the frame */
+  private final ImGuiTimePlot phasePlot;
+  /** The Plot of garbage collection pauses */
+  private final ImGuiTimePlot pausePlot;
+  /** The Plot of off-heap memory */
+  private final ImGuiTimePlot offHeapPlot;
+  /** The last snapshot of the accounting of the {@link MemoryManager} */
+  private List<MemoryStatistics> statistics = new ArrayList<>();
+  /** The next time at which the accounting table must be refreshed */
+  private long refreshTableAt = 0;
+
+  /**
+   * Creates a new {@link MemoryImGuiTab}
+   *
+   * @param window the {@link Window} whose telemetry to display
+   * @param graph the {@link TaskGraph} whose tasks are the phases of the frame, may be null
+   */
+  public MemoryImGuiTab(Window window, TaskGraph graph) {
+    super("Memory");
+    this.telemetry = window.getMemoryTelemetry();
+    this.graph = graph;
+    this.heapPlot =
+        new ImGuiTimePlot("Heap allocated", new ImVec2(400, 170), telemetry.getHeap(), "KB");
+    this.phasePlot =
+        new ImGuiTimePlot(
+            "Heap allocated per phase",
+            new ImVec2(400, 170),
+            graph == null ? null : graph.getTaskAllocations(),
+            "KB");
+    this.pausePlot =
+        new ImGuiTimePlot("GC pauses", new ImVec2(400, 170), telemetry.getPauses(), "ms");
+    this.offHeapPlot =
+        new ImGuiTimePlot("Off-heap", new ImVec2(400, 170), telemetry.getOffHeap(), "MB");
+    // Any allocation or pause is worth highlighting in a steady state
+    heapPlot.setThreshold(0);
+    phasePlot.setThreshold(0);
+    pausePlot.setThreshold(0);
+  }
+
+  /**
+   * The main rendering method, {@link ImGui#beginTabItem(String)} and {@link ImGui#endTabItem()}
+   * calls are already handled, only render the content of the tab inside this method
+   */
+  @Override
+  public void render() {
+    if (ImGui.beginChild("stats##" + uuid, 300, 400, true)) {
+      displayStatistics();
+    }
+    ImGui.endChild();
+    ImGui.sameLine();
+    if (ImGui.beginChild("plots##" + uuid, 830, 400, true)) {
+      heapPlot.render(0, Math.max(1, telemetry.getHeap().get(0).getMax()), ImPlotFlags.NoLegend);
+      ImGui.sameLine();
+      double phaseMax = 1;
+      if (graph != null) {
+        for (int i = 0; i < graph.size(); i++) {
+          phaseMax = Math.max(phaseMax, graph.getTaskAllocations().get(i).getMax());
+        }
+      }
+      phasePlot.render(0, phaseMax, 0);
+      pausePlot.render(0, Math.max(1, telemetry.getPauses().get(0).getMax()), ImPlotFlags.NoLegend);
+      ImGui.sameLine();
+      double offHeapMax = 1;
+      for (int i = 0; i < telemetry.getOffHeap().size(); i++) {
+        offHeapMax = Math.max(offHeapMax, telemetry.getOffHeap().get(i).getMax() * 1.25);
+      }
+      offHeapPlot.render(0, offHeapMax, 0);
+    }
+    ImGui.endChild();
+    displayAccountingTable();
+  }
+
+  /** Displays the counters of the telemetry and of the {@link DeletionQueue} */
+  private void displayStatistics() {
+    ImGui.textColored(255, 0, 0, 255, "Heap");
+    if (!telemetry.isAllocationTrackingSupported()) {
+      ImGui.textColored(255, 0, 255, 255, "Allocation counters not supported");
+    }
+    ImGuiUtils.drawAttrib(
+        "Last frame", ImGuiUtils.formatSize(telemetry.getLastAllocatedBytes()), 10, 150);
+    ImGuiUtils.drawAttrib(
+        "Allocating frames",
+        formatRatio(telemetry.getAllocatingFrames(), telemetry.getFrameCount()),
+        10,
+        150);
+    ImGui.separator();
+    ImGui.textColored(255, 0, 0, 255, "Garbage collection");
+    ImGuiUtils.drawAttrib("Pauses", telemetry.getPauseCount(), 10, 150);
+    ImGuiUtils.drawAttrib("Total", telemetry.getTotalPauseMs() + " ms", 10, 150);
+    ImGuiUtils.drawAttrib("Worst", telemetry.getWorstPauseMs() + " ms", 10, 150);
+    ImGuiUtils.drawAttrib(
+        "Paused frames",
+        formatRatio(telemetry.getPausedFrames(), telemetry.getFrameCount()),
+        10,
+        150);
+    ImGui.separator();
+    ImGui.textColored(255, 0, 0, 255, "Off-heap");
+    ImGuiUtils.drawAttrib(
+        "Tracked", ImGuiUtils.formatSize(MemoryManager.getOffHeapBytes()), 10, 150);
+    ImGuiUtils.drawAttrib(
+        "Direct buffers", ImGuiUtils.formatSize(telemetry.getDirectBytes()), 10, 150);
+    ImGuiUtils.drawAttrib("VRAM", ImGuiUtils.formatSize(MemoryManager.getVramBytes()), 10, 150);
+    ImGuiUtils.drawAttrib("Live objects", MemoryManager.getLiveCount(), 10, 150);
+    ImGui.separator();
+    ImGui.textColored(255, 0, 0, 255, "Deletion queue");
+    ImGuiUtils.drawAttrib("Pending", DeletionQueue.getPendingCount(), 10, 150);
+    ImGuiUtils.drawAttrib("Deleted", DeletionQueue.getDeletedCount(), 10, 150);
+    ImGuiUtils.drawAttrib(
+        "Reclaimed", ImGuiUtils.formatSize(DeletionQueue.getDeletedBytes()), 10, 150);
+    ImGuiUtils.drawAttrib(
+        "Worst latency",
+        String.format(Locale.ENGLISH, "%.3f ms", DeletionQueue.getLatency().getMax()),
+        10,
+        150);
+  }
+
+  /** Displays the memory accounting of every type of Cleanable */
+  private void displayAccountingTable() {
+    if (System.currentTimeMillis() >= refreshTableAt) {
+      statistics = MemoryManager.getStatistics();
+      refreshTableAt = System.currentTimeMillis() + TABLE_RENEW_TIME;
+    }
+    if (ImGui.beginChild("accounting##" + uuid, 1138, 250, true)) {
+      if (ImGui.beginTable(
+          "accounting##" + uuid, 6, ImGuiTableFlags.Borders | ImGuiTableFlags.ScrollY)) {
+        ImGui.tableSetupColumn("Type");
+        ImGui.tableSetupColumn("Live");
+        ImGui.tableSetupColumn("Freed");
+        ImGui.tableSetupColumn("Reclaimed");
+        ImGui.tableSetupColumn("Off-heap");
+        ImGui.tableSetupColumn("VRAM");
+        ImGui.tableHeadersRow();
+        for (MemoryStatistics typeStatistics : statistics) {
+          ImGui.tableNextRow();
+          ImGui.tableNextColumn();
+          ImGui.text(typeStatistics.getType().getSimpleName());
+          ImGui.tableNextColumn();
+          ImGui.text(String.valueOf(typeStatistics.getLiveCount()));
+          ImGui.tableNextColumn();
+          ImGui.text(String.valueOf(typeStatistics.getFreedCount()));
+          ImGui.tableNextColumn();
+          ImGui.text(String.valueOf(typeStatistics.getReclaimedCount()));
+          ImGui.tableNextColumn();
+          ImGui.text(ImGuiUtils.formatSize(typeStatistics.getOffHeapBytes()));
+          ImGui.tableNextColumn();
+          ImGui.text(ImGuiUtils.formatSize(typeStatistics.getVramBytes()));
+        }
+        ImGui.endTable();
+      }
+    }
+    ImGui.endChild();
+  }
+
+  /**
+   * Formats a count as a ratio of a total
+   *
+   * @param count the count
+   * @param total the total
+   * @return the formatted ratio
+   */
+  private static String formatRatio(long count, long total) {
+    return String.format(
+        Locale.ENGLISH, "%d (%.1f%%)", count, total == 0 ? 0 : 100.0 * count / total);
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.graphics2j.debug;
+
+import imgui.ImGui;
+import imgui.ImVec2;
+import imgui.flag.ImGuiTableFlags;
+import java.util.Locale;
+import org.alban098.common.jobs.JobSystem;
+import org.alban098.common.jobs.TaskGraph;
+
+/**
+ * An {@link ImGuiTab} displaying the frame-time breakdown of a {@link TaskGraph}, and how much
+ * parallelism its execution achieves
+ */
+public class TaskGraphImGuiTab extends ImGuiTab {
+
+  /** The {@link JobSystem} executing the graph */
+  private final JobSystem jobSystem;
+  /** The {@link TaskGraph} the Tab is associated to */
+  private final TaskGraph graph;
+  /** The Plot of time passed in each task */
+  private final ImGuiTimePlot taskTimePlot;
+
+  /**
+   * Creates a new {@link TaskGraphImGuiTab}
+   *
+   * @param jobSystem the {@link JobSystem} executing the graph
+   * @param graph the {@link TaskGraph} to associate the Tab to
+   */
+  public TaskGraphImGuiTab(JobSystem jobSystem, TaskGraph graph) {
+    super("Jobs");
+    this.jobSystem = jobSystem;
+    this.graph = graph;
+    this.taskTimePlot = new ImGuiTimePlot("Task times", new ImVec2(585, 230), graph.getTaskTimes());
+  }
+
+  /**
+   * The main rendering method, {@link ImGui#beginTabItem(String)} and {@link ImGui#endTabItem()}
+   * calls are already handled, only render the content of the tab inside this method
+   */
+  @Override
+  public void render() {
+    if (ImGui.beginChild("stats##" + uuid, 300, 250, true)) {
+      ImGui.textColored(255, 0, 0, 255, "Workers");
+      ImGuiUtils.drawAttrib("Threads", jobSystem.getWorkerCount(), 10, 150);
+      ImGuiUtils.drawAttrib("Steals", jobSystem.getStealCount(), 10, 150);
+      ImGui.separator();
+      ImGui.textColored(255, 0, 0, 255, "Last frame");
+      ImGuiUtils.drawAttrib("Wall time", formatMs(graph.getLastWallTimeNs() / 1e6), 10, 150);
+      ImGuiUtils.drawAttrib("Busy time", formatMs(graph.getLastBusyTimeNs() / 1e6), 10, 150);
+      ImGuiUtils.drawAttrib(
+          "Parallelism",
+          String.format(Locale.ENGLISH, "%.2fx", graph.getLastParallelism()),
+          10,
+          150);
+      ImGui.separator();
+      ImGui.textColored(255, 0, 0, 255, "Over " + TaskGraph.TIMING_SAMPLES + " frames");
+      ImGuiUtils.drawAttrib(
+          "Median wall", formatMs(graph.getWallTimes().getPercentile(50)), 10, 150);
+      ImGuiUtils.drawAttrib("Worst wall", formatMs(graph.getWallTimes().getMax()), 10, 150);
+      ImGuiUtils.drawAttrib(
+          "Mean parallelism",
+          String.format(Locale.ENGLISH, "%.2fx", graph.getParallelism().getMean()),
+          10,
+          150);
+    }
+    ImGui.endChild();
+    ImGui.sameLine();
+    if (ImGui.beginChild("plot##" + uuid, 600, 250, true)) {
+      taskTimePlot.render(0, 5, 0);
+    }
+    ImGui.endChild();
+    if (ImGui.beginChild("tasks##" + uuid, 908, 250, true)) {
+      if (ImGui.beginTable(
+          "tasks##" + uuid, 6, ImGuiTableFlags.Borders | ImGuiTableFlags.ScrollY)) {
+        ImGui.tableSetupColumn("Task");
+        ImGui.tableSetupColumn("Lane");
+        ImGui.tableSetupColumn("Start");
+        ImGui.tableSetupColumn("Duration");
+        ImGui.tableSetupColumn("Median");
+        ImGui.tableSetupColumn("Allocated");
+        ImGui.tableHeadersRow();
+        for (int i = 0; i < graph.size(); i++) {
+          ImGui.tableNextRow();
+          ImGui.tableNextColumn();
+          ImGui.text(graph.getTaskName(i));
+          ImGui.tableNextColumn();
+          ImGui.text(graph.isOnMainThread(i) ? "main" : String.valueOf(graph.getLastLane(i)));
+          ImGui.tableNextColumn();
+          ImGui.text(formatMs(graph.getLastStartNs(i) / 1e6));
+          ImGui.tableNextColumn();
+          ImGui.text(formatMs(graph.getLastDurationNs(i) / 1e6));
+          ImGui.tableNextColumn();
+          ImGui.text(formatMs(graph.getTaskTimes().get(i).getPercentile(50)));
+          ImGui.tableNextColumn();
+          ImGui.text(ImGuiUtils.formatSize(graph.getLastAllocatedBytes(i)));
+        }
+        ImGui.endTable();
+      }
+    }
+    ImGui.endChild();
+  }
+
+  /**
+   * Formats a duration in milliseconds
+   *
+   * @param ms the duration in milliseconds
+   * @return the formatted duration
+   */
+  private static String formatMs(double ms) {
+    return String.format(Locale.ENGLISH, "%.3f ms", ms);
+  }
+}
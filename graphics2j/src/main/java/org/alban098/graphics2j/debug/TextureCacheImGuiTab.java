@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.graphics2j.debug;
+
+import imgui.ImGui;
+import imgui.flag.ImGuiTableFlags;
+import java.util.Locale;
+import java.util.Map;
+import org.alban098.graphics2j.common.shaders.data.Texture;
+import org.alban098.graphics2j.common.textures.TextureCache;
+
+/** An {@link ImGuiTab} displaying the state and statistics of a {@link TextureCache} */
+public class TextureCacheImGuiTab extends ImGuiTab {
+
+  /** The {@link TextureCache} the Tab is associated to */
+  private final TextureCache cache;
+
+  /**
+   * Creates a new {@link TextureCacheImGuiTab}
+   *
+   * @param cache the {@link TextureCache} to associate the Tab to
+   */
+  public TextureCacheImGuiTab(TextureCache cache) {
+    super("Texture Cache");
+    this.cache = cache;
+  }
+
+  /**
+   * The main rendering method, {@link ImGui#beginTabItem(String)} and {@link ImGui#endTabItem()}
+   * calls are already handled, only render the content of the tab inside this method
+   */
+  @Override
+  public void render() {
+    if (ImGui.beginChild("stats##" + uuid, 300, 250, true)) {
+      ImGui.textColored(255, 0, 0, 255, "VRAM");
+      ImGuiUtils.drawAttrib("Budget", ImGuiUtils.formatSize(cache.getBudget()), 10, 120);
+      ImGuiUtils.drawAttrib("Resident", ImGuiUtils.formatSize(cache.getResidentBytes()), 10, 120);
+      ImGui.progressBar(
+          cache.getBudget() == 0 ? 0 : (float) cache.getResidentBytes() / cache.getBudget());
+      ImGui.separator();
+      ImGui.textColored(255, 0, 0, 255, "Textures");
+      ImGuiUtils.drawAttrib("Cached", cache.getTextureCount(), 10, 120);
+      ImGuiUtils.drawAttrib("Resident", cache.getResidentCount(), 10, 120);
+      ImGui.separator();
+      ImGui.textColored(255, 0, 0, 255, "Statistics");
+      ImGuiUtils.drawAttrib(
+          "Hit rate", String.format(Locale.ENGLISH, "%.2f %%", cache.getHitRate() * 100), 10, 120);
+      ImGuiUtils.drawAttrib("Hits", cache.getHits(), 10, 120);
+      ImGuiUtils.drawAttrib("Misses", cache.getMisses(), 10, 120);
+      ImGuiUtils.drawAttrib("Evictions", cache.getEvictions(), 10, 120);
+      ImGuiUtils.drawAttrib("Reloads", cache.getReloads(), 10, 120);
+      if (ImGui.button("Reset statistics##" + uuid)) {
+        cache.resetStats();
+      }
+    }
+    ImGui.endChild();
+    ImGui.sameLine();
+    if (ImGui.beginChild("entries##" + uuid, 600, 250, true)) {
+      if (ImGui.beginTable(
+          "textures##" + uuid, 4, ImGuiTableFlags.Borders | ImGuiTableFlags.ScrollY)) {
+        ImGui.tableSetupColumn("File");
+        ImGui.tableSetupColumn("State");
+        ImGui.tableSetupColumn("Size");
+        ImGui.tableSetupColumn("Last bound");
+        ImGui.tableHeadersRow();
+        for (Map.Entry<String, Texture> entry : cache.getTextures().entrySet()) {
+          Texture texture = entry.getValue();
+          ImGui.tableNextRow();
+          ImGui.tableNextColumn();
+          ImGui.text(entry.getKey());
+          ImGui.tableNextColumn();
+          ImGui.text(String.valueOf(cache.getResidency(entry.getKey())));
+          ImGui.tableNextColumn();
+          ImGui.text(ImGuiUtils.formatSize(texture.getMemorySize()));
+          ImGui.tableNextColumn();
+          ImGui.text(String.valueOf(texture.getLastBoundFrame()));
+        }
+        ImGui.endTable();
+      }
+    }
+    ImGui.endChild();
+  }
+}
@@ -87,12 +87,23 @@ public final class MouseState implements Cleanable {
   }
 
   /**
-   * get the displacement Vector of the mouse cursor
+   * get the displacement Vector of the mouse cursor, allocates a new vector, prefer {@link
+   * #getDisplacementVector(Vector2f)} in code running every frame
    *
    * @return the displacement vector of the mouse
    */
   public Vector2f getDisplacementVector() {
-    return new Vector2f(displacementVector);
+    return getDisplacementVector(new Vector2f());
+  }
+
+  /**
+   * Copies the displacement Vector of the mouse cursor into a destination vector
+   *
+   * @param dest the vector to store the displacement into
+   * @return dest
+   */
+  public Vector2f getDisplacementVector(Vector2f dest) {
+    return dest.set(displacementVector);
   }
 
   /**
@@ -131,12 +142,23 @@ public final class MouseState implements Cleanable {
   }
 
   /**
-   * Returns the current position of the cursor inside the window in pixels
+   * Returns the current position of the cursor inside the window in pixels, allocates a new vector,
+   * prefer {@link #getCurrentPos(Vector2f)} in code running every frame
    *
    * @return the current position of the cursor inside the window in pixels
    */
   public Vector2f getCurrentPos() {
-    return new Vector2f(currentPos);
+    return getCurrentPos(new Vector2f());
+  }
+
+  /**
+   * Copies the current position of the cursor inside the window in pixels into a destination vector
+   *
+   * @param dest the vector to store the position into
+   * @return dest
+   */
+  public Vector2f getCurrentPos(Vector2f dest) {
+    return dest.set(currentPos);
   }
 
   /**
@@ -44,6 +44,10 @@ public final class InterfaceRenderingManager {
 
   /** The {@link InterfaceRenderer} in charge of rendering {@link UserInterface}s */
   private final InterfaceRenderer renderer;
+  /** The {@link Window} the {@link UserInterface}s are rendered to */
+  private final Window window;
+  /** The id of the profiler scope wrapping the rendering of all {@link UserInterface}s */
+  private final int profilerScope;
 
   /**
    * Creates a new InterfaceManager registered with a {@link RendererManager}
@@ -57,6 +61,8 @@ public final class InterfaceRenderingManager {
     this.visibleInterfaces = new TreeMap<>(Collections.reverseOrder());
     this.mouseInputManager = mouseInputManager;
     this.renderer = new InterfaceRenderer(window, new FontRenderer(), new LineRenderer());
+    this.window = window;
+    this.profilerScope = window.getProfiler().getScopeId("Interfaces");
     LOGGER.info("Successfully initialized InterfaceManager");
   }
 
@@ -199,7 +205,9 @@ public final class InterfaceRenderingManager {
 
   /** Renders all visible {@link UserInterface}s to the screen */
   public void render() {
+    window.getProfiler().begin(profilerScope);
     renderer.render();
+    window.getProfiler().end();
   }
 
   /**
@@ -15,21 +15,22 @@ import org.joml.Vector2f;
 public final class Dragger extends UIElement implements Clickable {
 
   /** The position the cursor was in when started to drag, relative to the container, in pixel */
-  private Vector2f posInParentOnClick;
+  private final Vector2f posInParentOnClick = new Vector2f();
+  /** The position of the container while dragged, reused to avoid allocating every frame */
+  private final Vector2f containerPosition = new Vector2f();
 
   /** Creates a new Dragger and sets the correct {@link Clickable} callback */
   public Dragger() {
     super();
     onClickStart(
         (input) ->
-            posInParentOnClick =
-                input
-                    .getCurrentPos()
-                    .sub(getContainer().getProperties().get(Properties.POSITION, Vector2f.class)));
+            input
+                .getCurrentPos(posInParentOnClick)
+                .sub(getContainer().getProperties().get(Properties.POSITION, Vector2f.class)));
     onHold(
         (input) -> {
-          Vector2f newPos = input.getCurrentPos().sub(posInParentOnClick);
-          getContainer().getProperties().set(Properties.POSITION, newPos);
+          input.getCurrentPos(containerPosition).sub(posInParentOnClick);
+          getContainer().getProperties().set(Properties.POSITION, containerPosition);
         });
   }
 
@@ -82,23 +82,33 @@ public final class Line extends UIElement implements Hoverable {
   protected boolean isInside(Vector2f pos) {
     // retrieve the 2 points in the Window's reference frame
     Vector2f offset = getPositionInWindow();
-    Vector2f absoluteStart = new Vector2f().add(offset).add(start);
-    Vector2f absoluteEnd = new Vector2f().add(offset).add(end);
+    float startX = offset.x + start.x;
+    float startY = offset.y + start.y;
+    float endX = offset.x + end.x;
+    float endY = offset.y + end.y;
 
     // computes the equation of the line as : ax + by + c = 0
-    Vector2f dir = new Vector2f().add(absoluteEnd).sub(absoluteStart);
-    double a = dir.y;
-    double b = -dir.x;
-    double c = -(a * absoluteStart.x + b * absoluteStart.y);
+    float dirX = endX - startX;
+    float dirY = endY - startY;
+    double a = dirY;
+    double b = -dirX;
+    double c = -(a * startX + b * startY);
 
     // computes the distance to the line, not considering the start and end points
     double dist = Math.abs(a * pos.x + b * pos.y + c) / (Math.sqrt(a * a + b * b));
 
     // correcting from the line to a segment
-    Vector2f startToPoint = new Vector2f().add(pos).sub(absoluteStart);
-    Vector2f endToPoint = new Vector2f().add(pos).sub(absoluteEnd);
-    if (dir.dot(startToPoint) < 0 || dir.dot(endToPoint) > 0) {
-      dist = Math.sqrt(Math.min(startToPoint.lengthSquared(), endToPoint.lengthSquared()));
+    float startToPointX = pos.x - startX;
+    float startToPointY = pos.y - startY;
+    float endToPointX = pos.x - endX;
+    float endToPointY = pos.y - endY;
+    if (dirX * startToPointX + dirY * startToPointY < 0
+        || dirX * endToPointX + dirY * endToPointY > 0) {
+      dist =
+          Math.sqrt(
+              Math.min(
+                  startToPointX * startToPointX + startToPointY * startToPointY,
+                  endToPointX * endToPointX + endToPointY * endToPointY));
     }
 
     return dist < getProperties().get(Properties.LINE_WIDTH, Float.class);
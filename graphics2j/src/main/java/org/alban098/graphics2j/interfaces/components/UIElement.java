@@ -33,6 +33,11 @@ public abstract class UIElement implements UIRenderable {
 
   /** A Map of all the direct children of this element */
   private final TreeMap<String, UIElement> uiElements;
+  /**
+   * The direct children in the order of their identifiers, rebuilt when one is added, so they are
+   * walked every frame without allocating an iterator
+   */
+  private UIElement[] orderedElements = new UIElement[0];
   /** A Collection of all direct children that are {@link Textable} */
   private final Collection<Textable> textables;
   /** The {@link RenderElement} used to render this element to the screen */
@@ -47,6 +52,12 @@ public abstract class UIElement implements UIRenderable {
   private FramebufferObject fbo;
   /** The parent of this element, may be null if at the top of the hierarchy */
   private UIElement parent;
+  /** The position of the element in the Window, reused to avoid allocating when computed */
+  private final Vector2f positionInWindow = new Vector2f();
+  /** The position of the cursor, reused to avoid allocating when processing inputs */
+  private final Vector2f cursor = new Vector2f();
+  /** The position of the {@link Modal}, owned by the element so it can be moved every frame */
+  private final Vector2f modalPosition = new Vector2f();
   /**
    * A flag indicating if the element is clicked, only relevant if concrete implementation
    * implements {@link Clickable}
@@ -187,6 +198,7 @@ public abstract class UIElement implements UIRenderable {
    */
   public void addElement(String identifier, UIElement element) {
     uiElements.put(identifier, element);
+    orderedElements = uiElements.values().toArray(orderedElements);
     element.setParent(this);
     if (fbo == null) {
       Vector2f size = properties.get(Properties.SIZE, Vector2f.class);
@@ -386,7 +398,7 @@ public abstract class UIElement implements UIRenderable {
   public void onEnter(MouseState input) {
     if (getModal() != null) {
       getModal().setVisible(true);
-      getModal().getProperties().set(Properties.POSITION, input.getCurrentPos());
+      getModal().getProperties().set(Properties.POSITION, input.getCurrentPos(modalPosition));
     }
     if (onEnter != null) {
       onEnter.accept(input);
@@ -414,7 +426,7 @@ public abstract class UIElement implements UIRenderable {
    */
   public void onInside(MouseState input) {
     if (getModal() != null) {
-      getModal().getProperties().set(Properties.POSITION, input.getCurrentPos());
+      getModal().getProperties().set(Properties.POSITION, input.getCurrentPos(modalPosition));
     }
     if (onInside != null) {
       onInside.accept(input);
@@ -427,7 +439,9 @@ public abstract class UIElement implements UIRenderable {
    * @param elapsedTime the time elapsed since last call to update in seconds
    */
   public final void updateInternal(double elapsedTime) {
-    uiElements.forEach((k, v) -> v.updateInternal(elapsedTime));
+    for (UIElement element : orderedElements) {
+      element.updateInternal(elapsedTime);
+    }
     update(elapsedTime);
   }
 
@@ -439,9 +453,8 @@ public abstract class UIElement implements UIRenderable {
    * @return true if this UIElement or one of its children has caught the input, false otherwise
    */
   public final boolean propagateInput(MouseState input) {
-    for (String key : uiElements.descendingKeySet()) {
-      UIElement element = uiElements.get(key);
-      if (element.propagateInput(input)) {
+    for (int i = orderedElements.length - 1; i >= 0; i--) {
+      if (orderedElements[i].propagateInput(input)) {
         return true;
       }
     }
@@ -458,7 +471,7 @@ public abstract class UIElement implements UIRenderable {
         parent == null
             ? container.getProperties().get(Properties.SIZE, Vector2f.class)
             : parent.properties.get(Properties.SIZE, Vector2f.class);
-    Vector2f position = new Vector2f(properties.get(Properties.POSITION, Vector2f.class));
+    Vector2f position = properties.get(Properties.POSITION, Vector2f.class);
 
     // transform the size from pixels space to OpenGL coordinate system
     float width = 2f * size.x / parentSize.x;
@@ -495,18 +508,23 @@ public abstract class UIElement implements UIRenderable {
   }
 
   /**
-   * Returns the position of the element in the Window instead of in ts container, in pixels
+   * Returns the position of the element in the Window instead of in ts container, in pixels, by
+   * walking up the hierarchy of elements. The returned vector is reused by subsequent calls
    *
    * @return the position of the element in the Window
    */
   protected final Vector2f getPositionInWindow() {
-    if (parent == null) {
-      return new Vector2f(properties.get(Properties.POSITION, Vector2f.class))
-          .add(container.getProperties().get(Properties.POSITION, Vector2f.class));
-    } else {
-      return new Vector2f(properties.get(Properties.POSITION, Vector2f.class))
-          .add(parent.getPositionInWindow());
+    positionInWindow.zero();
+    UIElement element = this;
+    while (element != null) {
+      positionInWindow.add(element.properties.get(Properties.POSITION, Vector2f.class));
+      if (element.parent == null) {
+        positionInWindow.add(
+            element.container.getProperties().get(Properties.POSITION, Vector2f.class));
+      }
+      element = element.parent;
     }
+    return positionInWindow;
   }
 
   /**
@@ -517,7 +535,7 @@ public abstract class UIElement implements UIRenderable {
    * @return true if the input has been caught, false otherwise
    */
   private boolean input(MouseState input) {
-    boolean inside = isInside(input.getCurrentPos());
+    boolean inside = isInside(input.getCurrentPos(cursor));
     if (this instanceof Hoverable) {
       ((Hoverable) this).hoverRoutine(input, inside);
     }
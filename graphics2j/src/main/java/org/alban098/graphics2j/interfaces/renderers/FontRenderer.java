@@ -9,6 +9,8 @@ import static org.lwjgl.opengl.GL11.*;
 import static org.lwjgl.opengl.GL11.GL_TEXTURE_2D;
 
 import java.util.*;
+import org.alban098.common.metrics.MetricGroup;
+import org.alban098.common.metrics.MetricSeries;
 import org.alban098.graphics2j.common.Renderer;
 import org.alban098.graphics2j.common.RenderingMode;
 import org.alban098.graphics2j.common.resources.InternalResources;
@@ -50,8 +52,10 @@ public final class FontRenderer implements Renderer {
   private final ArrayObject vao;
   /** A Set of all registered Font Atlas {@link Texture}s */
   private final Set<Texture> textures = new HashSet<>();
-  /** A Map of times passed in each {@link ShaderProgram} */
-  private final Map<ShaderProgram, Double> shaderTimes = new HashMap<>();
+  /** The times passed in each {@link ShaderProgram} */
+  private final MetricGroup shaderTimes;
+  /** The series of times passed in the {@link ShaderProgram} of the Renderer */
+  private final MetricSeries shaderTime;
   /** The number of draw calls for the last frame */
   private int drawCalls = 0;
   /** The number of {@link Character}s rendered during the last frame */
@@ -81,7 +85,8 @@ public final class FontRenderer implements Renderer {
               new UniformFloat(Uniforms.FONT_BLUR, 0.15f),
             });
     this.vao = shader.createCompatibleVao(64, true, VertexMode.INDEX, null);
-    shaderTimes.put(shader, 0d);
+    this.shaderTimes = new MetricGroup("Font Renderer", SHADER_TIME_SAMPLES);
+    this.shaderTime = shaderTimes.register(shader.getName());
     LOGGER.info("Successfully initialized Font Renderer");
   }
 
@@ -203,17 +208,24 @@ public final class FontRenderer implements Renderer {
   }
 
   /**
-   * Returns a Map of the times passed with each {@link ShaderProgram} of the Renderer bound, index
-   * by {@link ShaderProgram}
+   * Returns the times passed with each {@link ShaderProgram} of the Renderer bound, as one series
+   * per {@link ShaderProgram} in milliseconds, a sample being published every frame
    *
-   * @return a Map of time passed in each {@link ShaderProgram} of the Renderer
+   * @return the times passed in each {@link ShaderProgram} of the Renderer
    */
   @Override
-  public Map<ShaderProgram, Double> getShaderTimes() {
-    shaderTimes.put(shader, getRenderingTime());
+  public MetricGroup getShaderTimes() {
     return shaderTimes;
   }
 
+  /**
+   * Publishes the time passed rendering the frame to {@link #getShaderTimes()}, called once all
+   * {@link UserInterface}s of the frame have been rendered
+   */
+  public void publishTimes() {
+    shaderTime.push(renderingTimeNs / 1_000_000.0);
+  }
+
   /**
    * Return a Collection of all the {@link ShaderProgram}s of this Renderer
    *
@@ -10,6 +10,8 @@ import static org.lwjgl.opengl.GL13.GL_TEXTURE0;
 import static org.lwjgl.opengl.GL13.glActiveTexture;
 
 import java.util.*;
+import org.alban098.common.metrics.MetricGroup;
+import org.alban098.common.metrics.MetricSeries;
 import org.alban098.graphics2j.common.Renderer;
 import org.alban098.graphics2j.common.RenderingMode;
 import org.alban098.graphics2j.common.Window;
@@ -93,8 +95,12 @@ public final class InterfaceRenderer implements Renderer {
   private long elementShaderTime = 0;
   /** A Collection of {@link FontRenderer} and {@link LineRenderer} */
   private final Collection<Renderer> renderers;
-  /** A Map of times passed in each {@link ShaderProgram} */
-  private final Map<ShaderProgram, Double> shaderTimes = new HashMap<>();
+  /** The times passed in each {@link ShaderProgram} */
+  private final MetricGroup shaderTimes;
+  /** The series of times passed in the Simple Shader */
+  private final MetricSeries simpleShaderTimes;
+  /** The series of times passed in the Element Shader */
+  private final MetricSeries elementShaderTimes;
   /** The number of time a {@link ShaderProgram} has been bound during this frame */
   private int bounds = 0;
 
@@ -146,8 +152,9 @@ public final class InterfaceRenderer implements Renderer {
     this.vao = simpleShader.createCompatibleVao(1, true, VertexMode.INDEX, null);
     this.fontRenderer = fontRenderer;
     this.lineRenderer = lineRenderer;
-    shaderTimes.put(simpleShader, 0d);
-    shaderTimes.put(elementShader, 0d);
+    this.shaderTimes = new MetricGroup("Interface Renderer", SHADER_TIME_SAMPLES);
+    this.simpleShaderTimes = shaderTimes.register(simpleShader.getName());
+    this.elementShaderTimes = shaderTimes.register(elementShader.getName());
     renderers = List.of(this, fontRenderer, lineRenderer);
     LOGGER.info("Successfully initialized Interface Renderer");
   }
@@ -177,6 +184,15 @@ public final class InterfaceRenderer implements Renderer {
       renderFbo(modal, modal.getFbo(), modal.getProperties());
     }
     modals.clear();
+    publishTimes();
+  }
+
+  /** Publishes the times passed rendering the frame to the shader time series of all Renderers */
+  private void publishTimes() {
+    simpleShaderTimes.push(simpleShaderTime / 1_000_000.0);
+    elementShaderTimes.push(elementShaderTime / 1_000_000.0);
+    fontRenderer.publishTimes();
+    lineRenderer.publishTimes();
   }
 
   /** Prepare everything for the next frame rendering */
@@ -455,15 +471,13 @@ public final class InterfaceRenderer implements Renderer {
   }
 
   /**
-   * Returns a Map of the times passed with each {@link ShaderProgram} of the Renderer bound, index
-   * by {@link ShaderProgram}
+   * Returns the times passed with each {@link ShaderProgram} of the Renderer bound, as one series
+   * per {@link ShaderProgram} in milliseconds, a sample being published every frame
    *
-   * @return a Map of time passed in each {@link ShaderProgram} of the Renderer
+   * @return the times passed in each {@link ShaderProgram} of the Renderer
    */
   @Override
-  public Map<ShaderProgram, Double> getShaderTimes() {
-    shaderTimes.put(simpleShader, simpleShaderTime / 1_000_000_000.0);
-    shaderTimes.put(elementShader, elementShaderTime / 1_000_000_000.0);
+  public MetricGroup getShaderTimes() {
     return shaderTimes;
   }
 
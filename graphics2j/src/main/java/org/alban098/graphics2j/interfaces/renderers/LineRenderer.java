@@ -7,8 +7,8 @@ package org.alban098.graphics2j.interfaces.renderers;
 
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
+import org.alban098.common.metrics.MetricGroup;
+import org.alban098.common.metrics.MetricSeries;
 import org.alban098.graphics2j.common.Renderer;
 import org.alban098.graphics2j.common.RenderingMode;
 import org.alban098.graphics2j.common.resources.InternalResources;
@@ -42,8 +42,10 @@ public final class LineRenderer implements Renderer {
   private final ArrayObject vao;
   /** The current viewport to render into in pixels */
   private final Vector2f viewport = new Vector2f();
-  /** A Map of times passed in each {@link ShaderProgram} */
-  private final Map<ShaderProgram, Double> shaderTimes = new HashMap<>();
+  /** The times passed in each {@link ShaderProgram} */
+  private final MetricGroup shaderTimes;
+  /** The series of times passed in the {@link ShaderProgram} of the Renderer */
+  private final MetricSeries shaderTime;
   /** The number of {@link Line}s rendered during the last frame */
   private int nbObjects = 0;
   /** The time of the last rendering pass in nanoseconds */
@@ -69,7 +71,8 @@ public final class LineRenderer implements Renderer {
               new UniformFloat(Uniforms.LINE_WIDTH, 0)
             });
     this.vao = shader.createCompatibleVao(1, false, VertexMode.INDEX, null);
-    shaderTimes.put(shader, 0d);
+    this.shaderTimes = new MetricGroup("Line Renderer", SHADER_TIME_SAMPLES);
+    this.shaderTime = shaderTimes.register(shader.getName());
     LOGGER.info("Successfully initialized Line Renderer");
   }
 
@@ -170,17 +173,24 @@ public final class LineRenderer implements Renderer {
   }
 
   /**
-   * Returns a Map of the times passed with each {@link ShaderProgram} of the Renderer bound, index
-   * by {@link ShaderProgram}
+   * Returns the times passed with each {@link ShaderProgram} of the Renderer bound, as one series
+   * per {@link ShaderProgram} in milliseconds, a sample being published every frame
    *
-   * @return a Map of time passed in each {@link ShaderProgram} of the Renderer
+   * @return the times passed in each {@link ShaderProgram} of the Renderer
    */
   @Override
-  public Map<ShaderProgram, Double> getShaderTimes() {
-    shaderTimes.put(shader, getRenderingTime());
+  public MetricGroup getShaderTimes() {
     return shaderTimes;
   }
 
+  /**
+   * Publishes the time passed rendering the frame to {@link #getShaderTimes()}, called once all
+   * {@link UserInterface}s of the frame have been rendered
+   */
+  public void publishTimes() {
+    shaderTime.push(renderingTimeNs / 1_000_000.0);
+  }
+
   /**
    * Return a Collection of all the {@link ShaderProgram}s of this Renderer
    *
@@ -206,6 +216,5 @@ public final class LineRenderer implements Renderer {
     nbObjects = 0;
     bounds = 0;
     renderingTimeNs = 0;
-    shaderTimes.put(shader, 0d);
   }
 }
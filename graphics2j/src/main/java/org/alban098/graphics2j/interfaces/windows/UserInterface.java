@@ -41,6 +41,13 @@ public abstract class UserInterface implements UIRenderable {
   private final RenderingProperties properties;
   /** a Tree of {@link UIElement} that are direct children of this UserInterface */
   private final TreeMap<String, UIElement> uiElements = new TreeMap<>();
+  /**
+   * The direct children in the order of their identifiers, rebuilt when one is added, so they are
+   * walked every frame without allocating an iterator
+   */
+  private UIElement[] orderedElements = new UIElement[0];
+  /** The position of the cursor, reused to avoid allocating when processing inputs */
+  private final Vector2f cursor = new Vector2f();
   /** The {@link FramebufferObject} where this UserInterface is rendered */
   private FramebufferObject fbo;
   /** Is the UserInterface currently visible on screen */
@@ -136,6 +143,7 @@ public abstract class UserInterface implements UIRenderable {
     element.setContainer(this);
     element.setParent(null);
     uiElements.put(identifier, element);
+    orderedElements = uiElements.values().toArray(orderedElements);
     if (fbo == null) {
       Vector2f size = properties.get(Properties.SIZE, Vector2f.class);
       if (size.x != 0 && size.y != 0) {
@@ -219,7 +227,9 @@ public abstract class UserInterface implements UIRenderable {
    */
   public final void updateInternal(double elapsedTime) {
     // update children before updating the UI
-    uiElements.forEach((k, v) -> v.updateInternal(elapsedTime));
+    for (UIElement element : orderedElements) {
+      element.updateInternal(elapsedTime);
+    }
     update(elapsedTime);
   }
 
@@ -232,10 +242,9 @@ public abstract class UserInterface implements UIRenderable {
    */
   public final boolean propagateInput(MouseState input) {
     boolean caught = false;
-    boolean inside = isInside(input.getCurrentPos());
-    for (String key : uiElements.descendingKeySet()) {
-      UIElement element = uiElements.get(key);
-      if (element.propagateInput(input)) {
+    boolean inside = isInside(input.getCurrentPos(cursor));
+    for (int i = orderedElements.length - 1; i >= 0; i--) {
+      if (orderedElements[i].propagateInput(input)) {
         caught = true;
         break;
       }
@@ -11,6 +11,8 @@ import static org.lwjgl.opengl.GL13.GL_TEXTURE0;
 import static org.lwjgl.opengl.GL13.glActiveTexture;
 
 import java.util.*;
+import org.alban098.common.metrics.MetricGroup;
+import org.alban098.common.metrics.MetricSeries;
 import org.alban098.graphics2j.common.Renderable;
 import org.alban098.graphics2j.common.Renderer;
 import org.alban098.graphics2j.common.RenderingMode;
@@ -24,6 +26,7 @@ import org.alban098.graphics2j.common.shaders.data.uniform.Uniform;
 import org.alban098.graphics2j.common.shaders.data.uniform.UniformMat4;
 import org.alban098.graphics2j.common.shaders.data.uniform.Uniforms;
 import org.alban098.graphics2j.common.shaders.data.vao.ArrayObject;
+import org.alban098.graphics2j.profiler.FrameProfiler;
 import org.lwjgl.opengl.GL11;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -48,8 +51,12 @@ public abstract class AbstractRenderer<T extends Renderable> implements Renderer
   protected int nbObjects = 0;
   /** The time passed rendering in nanoseconds */
   protected long renderingTimeNs = 0;
-  /** A Map of times passed in each {@link ShaderProgram} */
-  private final Map<ShaderProgram, Double> shaderTimes = new HashMap<>();
+  /** The id of the profiler scope of the Renderer, resolved on first render */
+  private int profilerScope = -1;
+  /** The times passed in each {@link ShaderProgram} */
+  private final MetricGroup shaderTimes;
+  /** The series of times passed in the {@link ShaderProgram} of the Renderer */
+  private final MetricSeries shaderTime;
   /** Just a variable to keep trace of the number of distinct Textures already encountered */
   private int distinctTextureCount = 0;
 
@@ -66,7 +73,8 @@ public abstract class AbstractRenderer<T extends Renderable> implements Renderer
     this.shader = shader;
     this.primitive = primitive;
     this.vao = shader.createCompatibleVao(8096, true, shader.getMode(), primitive);
-    shaderTimes.put(shader, 0d);
+    this.shaderTimes = new MetricGroup(getClass().getSimpleName(), SHADER_TIME_SAMPLES);
+    this.shaderTime = shaderTimes.register(shader.getName());
     LOGGER.info(
         "Successfully initialized {} with a VAO of capacity 8096 quads",
         getClass().getSimpleName());
@@ -105,6 +113,11 @@ public abstract class AbstractRenderer<T extends Renderable> implements Renderer
       }
     }
 
+    FrameProfiler profiler = window.getProfiler();
+    if (profilerScope < 0) {
+      profilerScope = profiler.getScopeId(getClass().getSimpleName());
+    }
+    profiler.begin(profilerScope);
     renderingTimeNs = System.nanoTime();
     shader.bind();
     glActiveTexture(GL_TEXTURE0);
@@ -134,7 +147,8 @@ public abstract class AbstractRenderer<T extends Renderable> implements Renderer
     }
     shader.unbind();
     renderingTimeNs = System.nanoTime() - renderingTimeNs;
-    shaderTimes.put(shader, getRenderingTime());
+    shaderTime.push(renderingTimeNs / 1_000_000.0);
+    profiler.end();
   }
 
   /**
@@ -277,13 +291,13 @@ public abstract class AbstractRenderer<T extends Renderable> implements Renderer
   }
 
   /**
-   * Returns a Map of the times passed with each {@link ShaderProgram} of the Renderer bound, index
-   * by {@link ShaderProgram}
+   * Returns the times passed with each {@link ShaderProgram} of the Renderer bound, as one series
+   * per {@link ShaderProgram} in milliseconds, a sample being published every frame
    *
-   * @return a Map of time passed in each {@link ShaderProgram} of the Renderer
+   * @return the times passed in each {@link ShaderProgram} of the Renderer
    */
   @Override
-  public final Map<ShaderProgram, Double> getShaderTimes() {
+  public final MetricGroup getShaderTimes() {
     return shaderTimes;
   }
 
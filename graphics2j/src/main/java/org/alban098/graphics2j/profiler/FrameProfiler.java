@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.graphics2j.profiler;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import org.alban098.common.profiler.ChromeTraceExporter;
+import org.alban098.common.profiler.ScopeRecorder;
+import org.alban098.common.profiler.ScopeRegistry;
+
+/**
+ * Profiles frames on both the CPU and the GPU through nested named scopes. Each scope is recorded
+ * by a {@link ScopeRecorder} on the CPU side and by a {@link GpuProfiler} on the GPU side, both
+ * sharing the same {@link ScopeRegistry}. Must only be used from the thread owning the OpenGL
+ * context
+ */
+public final class FrameProfiler {
+
+  /** The default number of events held by each recorder */
+  private static final int DEFAULT_CAPACITY = 16384;
+  /** The default maximum number of GPU scopes per frame */
+  private static final int DEFAULT_MAX_GPU_SCOPES = 256;
+
+  /** The registry interning scope names */
+  private final ScopeRegistry registry = new ScopeRegistry();
+  /** The recorder of CPU scopes */
+  private final ScopeRecorder cpuRecorder;
+  /** The profiler of GPU scopes */
+  private final GpuProfiler gpuProfiler;
+  /** The id of the root scope wrapping every frame */
+  private final int frameScope;
+  /** Should the GPU also be profiled, applied at the start of each frame */
+  private boolean gpuEnabled = true;
+  /** Is the GPU profiled during the current frame */
+  private boolean gpuActive = false;
+
+  /** Creates a new FrameProfiler with the default capacities */
+  public FrameProfiler() {
+    this(DEFAULT_CAPACITY, DEFAULT_MAX_GPU_SCOPES);
+  }
+
+  /**
+   * Creates a new FrameProfiler
+   *
+   * @param capacity the number of events held by each recorder
+   * @param maxGpuScopes the maximum number of GPU scopes per frame
+   */
+  public FrameProfiler(int capacity, int maxGpuScopes) {
+    this.cpuRecorder = new ScopeRecorder("CPU", registry, capacity);
+    this.gpuProfiler = new GpuProfiler(registry, maxGpuScopes, capacity);
+    this.frameScope = registry.getId("Frame");
+  }
+
+  /** Starts profiling a new frame, opening its root scope */
+  public void beginFrame() {
+    cpuRecorder.beginFrame();
+    gpuActive = gpuEnabled && gpuProfiler.isSupported();
+    if (gpuActive) {
+      gpuProfiler.beginFrame(cpuRecorder.getCurrentFrameStart());
+    }
+    begin(frameScope);
+  }
+
+  /** Closes the root scope and ends the current frame */
+  public void endFrame() {
+    end();
+    if (gpuActive) {
+      gpuProfiler.endFrame();
+    }
+    gpuActive = false;
+    cpuRecorder.endFrame();
+  }
+
+  /**
+   * Opens a scope on both the CPU and the GPU
+   *
+   * @param scopeId the id of the scope, as returned by {@link FrameProfiler#getScopeId(String)}
+   */
+  public void begin(int scopeId) {
+    cpuRecorder.begin(scopeId);
+    if (gpuActive) {
+      gpuProfiler.begin(scopeId);
+    }
+  }
+
+  /**
+   * Opens a scope on both the CPU and the GPU, looking up its id. Prefer caching the id and calling
+   * {@link FrameProfiler#begin(int)} in hot paths
+   *
+   * @param scopeName the name of the scope
+   */
+  public void begin(String scopeName) {
+    begin(registry.getId(scopeName));
+  }
+
+  /** Closes the last opened scope on both the CPU and the GPU */
+  public void end() {
+    if (gpuActive) {
+      gpuProfiler.end();
+    }
+    cpuRecorder.end();
+  }
+
+  /**
+   * Returns the id of a scope name, registering it if necessary
+   *
+   * @param scopeName the name of the scope
+   * @return the id of the scope
+   */
+  public int getScopeId(String scopeName) {
+    return registry.getId(scopeName);
+  }
+
+  /**
+   * Exports everything still held by the recorders to a Chrome trace-event JSON file
+   *
+   * @param file the file to write
+   * @throws IOException if the file can't be written
+   */
+  public void exportChromeTrace(Path file) throws IOException {
+    ChromeTraceExporter.export(file, cpuRecorder, gpuProfiler.getRecorder());
+  }
+
+  /**
+   * Returns the recorder of CPU scopes
+   *
+   * @return the recorder of CPU scopes
+   */
+  public ScopeRecorder getCpuRecorder() {
+    return cpuRecorder;
+  }
+
+  /**
+   * Returns the recorder of resolved GPU scopes
+   *
+   * @return the recorder of resolved GPU scopes
+   */
+  public ScopeRecorder getGpuRecorder() {
+    return gpuProfiler.getRecorder();
+  }
+
+  /**
+   * Returns the profiler of GPU scopes
+   *
+   * @return the profiler of GPU scopes
+   */
+  public GpuProfiler getGpuProfiler() {
+    return gpuProfiler;
+  }
+
+  /**
+   * Returns the registry interning scope names
+   *
+   * @return the registry interning scope names
+   */
+  public ScopeRegistry getRegistry() {
+    return registry;
+  }
+
+  /**
+   * Returns whether the GPU is also profiled
+   *
+   * @return whether the GPU is also profiled
+   */
+  public boolean isGpuEnabled() {
+    return gpuEnabled && gpuProfiler.isSupported();
+  }
+
+  /**
+   * Enables or disables GPU profiling, takes effect on the next frame
+   *
+   * @param gpuEnabled whether the GPU should be profiled
+   */
+  public void setGpuEnabled(boolean gpuEnabled) {
+    this.gpuEnabled = gpuEnabled;
+  }
+}
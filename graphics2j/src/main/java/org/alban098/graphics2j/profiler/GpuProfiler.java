@@ -0,0 +1,239 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.graphics2j.profiler;
+
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL33.*;
+
+import org.alban098.common.Cleanable;
+import org.alban098.common.profiler.ScopeRecorder;
+import org.alban098.common.profiler.ScopeRegistry;
+import org.alban098.graphics2j.common.shaders.data.DeletionQueue;
+import org.alban098.graphics2j.common.shaders.data.ResourceType;
+import org.lwjgl.opengl.GL;
+import org.lwjgl.opengl.GLCapabilities;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Measures the GPU time spent in nested scopes with timer queries. Every scope is bracketed by a
+ * pair of GL_TIMESTAMP queries, as GL_TIME_ELAPSED queries can't be nested. Queries are double
+ * buffered, the results of a frame are read back 2 frames later, once the GPU is done with them, so
+ * reading them never stalls the pipeline. Resolved scopes are fed into a {@link ScopeRecorder},
+ * converted into the CPU time domain by aligning the start of each GPU frame with the start of the
+ * matching CPU frame. Must only be used from the thread owning the OpenGL context
+ */
+public final class GpuProfiler implements Cleanable {
+
+  /** Just a Logger to log events */
+  private static final Logger LOGGER = LoggerFactory.getLogger(GpuProfiler.class);
+
+  /** The number of frames in flight, each with its own set of queries */
+  private static final int BUFFER_COUNT = 2;
+  /** The maximum nesting depth of scopes */
+  private static final int MAX_DEPTH = 64;
+
+  /** The recorder receiving resolved GPU scopes */
+  private final ScopeRecorder recorder;
+  /** Are timer queries supported by the current OpenGL context */
+  private final boolean supported;
+  /** The maximum number of scopes per frame */
+  private final int maxScopes;
+  /** The query objects of each buffer, 2 per scope (start and end timestamps) */
+  private final int[][] queries;
+  /** The scope id of each scope of each buffer */
+  private final int[][] scopeIds;
+  /** The depth of each scope of each buffer */
+  private final int[][] scopeDepths;
+  /** The number of scopes recorded into each buffer */
+  private final int[] scopeCounts;
+  /** The last query issued into each buffer, the last one to become available */
+  private final int[] lastIssued;
+  /** The CPU start time of the frame recorded into each buffer */
+  private final long[] cpuFrameStarts;
+  /** Does each buffer hold queries waiting to be read back */
+  private final boolean[] pending;
+  /** The indices of the currently open scopes, -1 if dropped because the buffer was full */
+  private final int[] openScopes = new int[MAX_DEPTH];
+  /** The number of currently open scopes */
+  private int depth = 0;
+  /** The buffer of the frame being recorded */
+  private int current = 0;
+  /** Is a frame currently being recorded */
+  private boolean inFrame = false;
+  /** The number of frames whose results were dropped because they weren't available in time */
+  private long droppedFrames = 0;
+
+  /**
+   * Creates a new GpuProfiler
+   *
+   * @param registry the registry interning scope names, shared with the CPU recorder
+   * @param maxScopes the maximum number of scopes per frame, extra scopes are ignored
+   * @param capacity the number of resolved scopes the recorder can hold
+   */
+  public GpuProfiler(ScopeRegistry registry, int maxScopes, int capacity) {
+    GLCapabilities capabilities = GL.getCapabilities();
+    this.supported = capabilities.OpenGL33 || capabilities.GL_ARB_timer_query;
+    this.recorder = new ScopeRecorder("GPU", registry, capacity);
+    this.maxScopes = maxScopes;
+    this.queries = new int[BUFFER_COUNT][maxScopes * 2];
+    this.scopeIds = new int[BUFFER_COUNT][maxScopes];
+    this.scopeDepths = new int[BUFFER_COUNT][maxScopes];
+    this.scopeCounts = new int[BUFFER_COUNT];
+    this.lastIssued = new int[BUFFER_COUNT];
+    this.cpuFrameStarts = new long[BUFFER_COUNT];
+    this.pending = new boolean[BUFFER_COUNT];
+    if (supported) {
+      for (int[] buffer : queries) {
+        glGenQueries(buffer);
+      }
+    } else {
+      LOGGER.warn("Timer queries are not supported, GPU profiling is disabled");
+    }
+    initialize();
+  }
+
+  /**
+   * Starts recording a new frame, reading back the results of the frame that last used the same
+   * buffer
+   *
+   * @param cpuFrameStartNs the CPU start time of the frame in nanoseconds
+   */
+  public void beginFrame(long cpuFrameStartNs) {
+    if (!supported) {
+      return;
+    }
+    if (inFrame) {
+      endFrame();
+    }
+    current = (current + 1) % BUFFER_COUNT;
+    if (pending[current]) {
+      resolve(current);
+    }
+    scopeCounts[current] = 0;
+    cpuFrameStarts[current] = cpuFrameStartNs;
+    depth = 0;
+    inFrame = true;
+  }
+
+  /** Ends the current frame, its results will be available 2 frames later */
+  public void endFrame() {
+    if (!supported || !inFrame) {
+      return;
+    }
+    while (depth > 0) {
+      end();
+    }
+    pending[current] = scopeCounts[current] > 0;
+    inFrame = false;
+  }
+
+  /**
+   * Opens a scope
+   *
+   * @param scopeId the id of the scope in the registry
+   */
+  public void begin(int scopeId) {
+    if (!supported || !inFrame) {
+      return;
+    }
+    if (depth == MAX_DEPTH) {
+      throw new IllegalStateException("Maximum scope depth reached (" + depth + ")");
+    }
+    int index = scopeCounts[current];
+    if (index == maxScopes) {
+      openScopes[depth++] = -1;
+      return;
+    }
+    scopeIds[current][index] = scopeId;
+    scopeDepths[current][index] = depth;
+    glQueryCounter(queries[current][index * 2], GL_TIMESTAMP);
+    lastIssued[current] = queries[current][index * 2];
+    scopeCounts[current]++;
+    openScopes[depth++] = index;
+  }
+
+  /** Closes the last opened scope */
+  public void end() {
+    if (!supported || !inFrame) {
+      return;
+    }
+    if (depth == 0) {
+      throw new IllegalStateException("No scope to close");
+    }
+    int index = openScopes[--depth];
+    if (index >= 0) {
+      glQueryCounter(queries[current][index * 2 + 1], GL_TIMESTAMP);
+      lastIssued[current] = queries[current][index * 2 + 1];
+    }
+  }
+
+  /**
+   * Reads back the results of a buffer and feeds them into the recorder. If they aren't available
+   * yet, the frame is dropped rather than waiting for the GPU
+   *
+   * @param buffer the buffer to read back
+   */
+  private void resolve(int buffer) {
+    pending[buffer] = false;
+    int count = scopeCounts[buffer];
+    int[] bufferQueries = queries[buffer];
+    if (glGetQueryObjecti(lastIssued[buffer], GL_QUERY_RESULT_AVAILABLE) == GL_FALSE) {
+      droppedFrames++;
+      return;
+    }
+    long origin = glGetQueryObjecti64(bufferQueries[0], GL_QUERY_RESULT);
+    long offset = cpuFrameStarts[buffer] - origin;
+    long frameEnd = origin;
+    recorder.beginFrame(cpuFrameStarts[buffer]);
+    for (int i = 0; i < count; i++) {
+      long start = glGetQueryObjecti64(bufferQueries[i * 2], GL_QUERY_RESULT);
+      long end = glGetQueryObjecti64(bufferQueries[i * 2 + 1], GL_QUERY_RESULT);
+      frameEnd = Math.max(frameEnd, end);
+      recorder.record(scopeIds[buffer][i], scopeDepths[buffer][i], start + offset, end + offset);
+    }
+    recorder.endFrame(frameEnd + offset);
+  }
+
+  /**
+   * Returns the recorder holding resolved GPU scopes
+   *
+   * @return the recorder holding resolved GPU scopes
+   */
+  public ScopeRecorder getRecorder() {
+    return recorder;
+  }
+
+  /**
+   * Returns whether timer queries are supported by the current OpenGL context
+   *
+   * @return whether GPU profiling is available
+   */
+  public boolean isSupported() {
+    return supported;
+  }
+
+  /**
+   * Returns the number of frames whose results were dropped because they weren't available in time
+   *
+   * @return the number of dropped frames
+   */
+  public long getDroppedFrames() {
+    return droppedFrames;
+  }
+
+  /** Clears all query objects, their deletion is deferred to the {@link DeletionQueue} */
+  @Override
+  public void cleanUp() {
+    if (supported) {
+      for (int[] buffer : queries) {
+        for (int query : buffer) {
+          DeletionQueue.post(ResourceType.QUERY, query, 0);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,271 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.graphics2j;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.nio.FloatBuffer;
+import org.alban098.common.Transform;
+import org.alban098.common.TransformHierarchy;
+import org.alban098.common.jobs.JobSystem;
+import org.alban098.common.jobs.TaskGraph;
+import org.alban098.common.metrics.AllocationProbe;
+import org.alban098.common.scheduler.UpdateScheduler;
+import org.alban098.common.snapshot.Snapshot;
+import org.alban098.common.snapshot.SnapshotExchange;
+import org.alban098.graphics2j.common.components.Camera;
+import org.alban098.graphics2j.common.components.RenderElement;
+import org.alban098.graphics2j.common.shaders.ShaderAttributes;
+import org.alban098.graphics2j.common.shaders.data.model.Models;
+import org.alban098.graphics2j.input.MouseState;
+import org.alban098.graphics2j.interfaces.components.Clickable;
+import org.alban098.graphics2j.interfaces.components.Hoverable;
+import org.alban098.graphics2j.interfaces.components.Section;
+import org.alban098.graphics2j.interfaces.components.UIElement;
+import org.alban098.graphics2j.interfaces.components.property.Properties;
+import org.alban098.graphics2j.interfaces.windows.UserInterface;
+import org.joml.Vector2f;
+import org.joml.Vector4f;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Guards the steady state frame against heap allocations, running the per frame paths that do not
+ * need an OpenGL context headlessly and measuring the allocations of the calling thread
+ */
+public class FrameAllocationTest {
+
+  private static final int OBJECTS = 1000;
+  private static final int WARMUP_FRAMES = 20_000;
+  private static final int MEASURED_FRAMES = 2_000;
+
+  private static JobSystem jobSystem;
+
+  @BeforeClass
+  public static void setUp() {
+    assumeTrue(AllocationProbe.isSupported());
+    jobSystem = new JobSystem(2);
+  }
+
+  @AfterClass
+  public static void tearDown() {
+    if (jobSystem != null) {
+      jobSystem.cleanUp();
+    }
+  }
+
+  /**
+   * Asserts that a frame does not allocate once warmed up. A few rounds are measured so that a one
+   * time allocation, such as a lazily initialized JDK structure, does not fail the test, while an
+   * allocation made every frame shows in every round
+   */
+  private static void assertNoAllocation(Runnable frame) {
+    double bytes = AllocationProbe.measure(frame, WARMUP_FRAMES, MEASURED_FRAMES);
+    for (int round = 1; round < 3 && bytes > 0; round++) {
+      bytes = AllocationProbe.measure(frame, 0, MEASURED_FRAMES);
+    }
+    assertEquals("bytes allocated per frame", 0, bytes, 0);
+  }
+
+  @Test
+  public void transformsSchedulerAndSnapshotsDoNotAllocate() {
+    Transform[] transforms = new Transform[OBJECTS];
+    Transform[] interpolated = new Transform[OBJECTS];
+    TransformHierarchy hierarchy = new TransformHierarchy();
+    UpdateScheduler scheduler = new UpdateScheduler(1 / 60.0);
+    SnapshotExchange exchange = new SnapshotExchange(OBJECTS, 0);
+    for (int i = 0; i < OBJECTS; i++) {
+      transforms[i] = new Transform();
+      interpolated[i] = new Transform();
+      hierarchy.add(transforms[i]);
+      if (i % 10 != 0) {
+        // Chains of 10 transforms
+        hierarchy.setParent(transforms[i], transforms[i - 1]);
+      }
+    }
+    scheduler.registerBatch(
+        Transform.class,
+        (objects, elapsedTimes, count) -> {
+          for (int i = 0; i < count; i++) {
+            objects[i].rotate((float) elapsedTimes[i]);
+            objects[i].commit();
+          }
+        });
+    for (int i = 0; i < OBJECTS; i++) {
+      scheduler.scheduleFixedRate(transforms[i], 1 + i % 4, 1 + i % 4);
+    }
+    long[] tick = {0};
+
+    assertNoAllocation(
+        () -> {
+          scheduler.tick();
+          hierarchy.update();
+          Snapshot snapshot = exchange.beginWrite(tick[0]++);
+          for (Transform transform : transforms) {
+            snapshot.add(transform);
+          }
+          exchange.publish();
+          exchange.poll();
+          for (int i = 0; i < OBJECTS; i++) {
+            Snapshot.interpolate(
+                exchange.getPrevious(), exchange.getCurrent(), i, 0.5f, interpolated[i]);
+          }
+        });
+    assertTrue(transforms[OBJECTS - 1].getRotation() != 0);
+  }
+
+  @Test
+  public void inputAndRenderAttributesDoNotAllocate() {
+    MouseState mouse = new MouseState();
+    RenderElement element = new RenderElement(new Vector4f(), Models.QUAD);
+    Vector2f cursor = new Vector2f();
+    Vector2f displacement = new Vector2f();
+    Vector4f color = new Vector4f();
+    long[] tick = {0};
+
+    assertNoAllocation(
+        () -> {
+          mouse.update();
+          mouse.getCurrentPos(cursor);
+          mouse.getDisplacementVector(displacement);
+          color.set(tick[0]++ % 255 / 255f, 0, 0, 1);
+          element.setAttributeValue(ShaderAttributes.COLOR_ATTRIBUTE, color);
+          element.get(ShaderAttributes.COLOR_ATTRIBUTE, FloatBuffer.class);
+        });
+    mouse.cleanUp();
+  }
+
+  @Test
+  public void cameraDoesNotAllocate() {
+    Camera camera = new Camera(16 / 9f, new Vector2f());
+    Vector2f offset = new Vector2f();
+    Vector2f point = new Vector2f(100, 0);
+    Vector2f tolerance = new Vector2f(1, 1);
+
+    assertNoAllocation(
+        () -> {
+          camera.move(offset.set(0.01f, 0));
+          camera.rotate(0.001f);
+          camera.adjustView();
+          camera.computeViewportBoundingBox();
+          camera.isInsidePseudoViewport(point, tolerance);
+        });
+    camera.moveTo(point);
+    camera.adjustView();
+    camera.computeViewportBoundingBox();
+    assertTrue(camera.isInsidePseudoViewport(point, tolerance));
+  }
+
+  @Test
+  public void interfaceUpdatesDoNotAllocate() {
+    UserInterface ui = new TestInterface();
+    // A container with children and a size gets a framebuffer, which needs an OpenGL context
+    Section section = new Section();
+    ui.addElement("section", section);
+    TestElement[] elements = new TestElement[16];
+    for (int i = 0; i < elements.length; i++) {
+      elements[i] = new TestElement();
+      elements[i].getProperties().set(Properties.SIZE, new Vector2f(10, 10));
+      elements[i].getProperties().set(Properties.POSITION, new Vector2f(i % 2 * 20, 0));
+      if (i < elements.length / 2) {
+        ui.addElement("element" + i, elements[i]);
+      } else {
+        section.addElement("element" + i, elements[i]);
+      }
+    }
+    MouseState mouse = new MouseState();
+
+    assertNoAllocation(
+        () -> {
+          mouse.update();
+          ui.propagateInput(mouse);
+          ui.updateInternal(1 / 60.0);
+          for (TestElement element : elements) {
+            element.getTransform();
+            element.getRenderable();
+          }
+        });
+    // The cursor stays at the origin, the first element found under it catches the input
+    int hovered = 0;
+    for (TestElement element : elements) {
+      hovered += element.isHovered() ? 1 : 0;
+    }
+    assertEquals(1, hovered);
+    assertTrue(elements[0].updates > WARMUP_FRAMES);
+    mouse.cleanUp();
+  }
+
+  @Test
+  public void taskGraphFrameDoesNotAllocate() {
+    TaskGraph graph = new TaskGraph("Frame");
+    Transform[] transforms = new Transform[OBJECTS];
+    TransformHierarchy hierarchy = new TransformHierarchy();
+    for (int i = 0; i < OBJECTS; i++) {
+      transforms[i] = new Transform();
+      hierarchy.add(transforms[i]);
+    }
+    MouseState mouse = new MouseState();
+    Camera camera = new Camera(1, new Vector2f());
+    int input = graph.addOnMainThread("Input", mouse::update);
+    int update =
+        graph.add(
+            "Entities update",
+            () -> {
+              for (Transform transform : transforms) {
+                transform.rotate(0.01f);
+                transform.commit();
+              }
+            });
+    int propagate = graph.add("Transform propagation", hierarchy::update);
+    int view =
+        graph.add(
+            "Camera",
+            () -> {
+              camera.adjustView();
+              camera.computeViewportBoundingBox();
+            });
+    int render = graph.addOnMainThread("Render", () -> {});
+    graph.dependsOn(update, input);
+    graph.dependsOn(view, input);
+    graph.dependsOn(propagate, update);
+    graph.dependsOn(render, propagate, view);
+
+    assertNoAllocation(() -> jobSystem.execute(graph));
+    for (int task = 0; task < graph.size(); task++) {
+      assertEquals(graph.getTaskName(task), 0, graph.getLastAllocatedBytes(task));
+    }
+    mouse.cleanUp();
+  }
+
+  private static final class TestInterface extends UserInterface {
+
+    private TestInterface() {
+      super(null, "test");
+    }
+
+    @Override
+    protected void update(double elapsedTime) {}
+
+    @Override
+    protected void onPropertyChange(Properties property, Object value) {}
+  }
+
+  private static final class TestElement extends UIElement implements Hoverable, Clickable {
+
+    private long updates = 0;
+
+    @Override
+    public void update(double elapsedTime) {
+      updates++;
+    }
+
+    @Override
+    protected void onPropertyChange(Properties property, Object value) {}
+  }
+}
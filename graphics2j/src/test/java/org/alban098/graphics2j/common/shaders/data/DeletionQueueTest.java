@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.graphics2j.common.shaders.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DeletionQueueTest {
+
+  /** The names received by each call of the deleter, by type */
+  private final Map<ResourceType, List<int[]>> deleted = new EnumMap<>(ResourceType.class);
+
+  private void record(ResourceType type, IntBuffer names) {
+    int[] batch = new int[names.remaining()];
+    names.get(names.position(), batch);
+    deleted.computeIfAbsent(type, key -> new ArrayList<>()).add(batch);
+  }
+
+  @Before
+  public void setUp() {
+    // The queue is static, drop what other tests may have left in it
+    DeletionQueue.process((type, names) -> {});
+  }
+
+  @Test
+  public void issuesOneCallPerTypeOfObject() {
+    DeletionQueue.post(ResourceType.TEXTURE, 1, 100);
+    DeletionQueue.post(ResourceType.BUFFER, 2, 10);
+    DeletionQueue.post(ResourceType.TEXTURE, 3, 200);
+    DeletionQueue.post(ResourceType.QUERY, 4, 0);
+    // The name 0 is never deleted
+    DeletionQueue.post(ResourceType.BUFFER, 0, 1000);
+    assertEquals(4, DeletionQueue.getPendingCount());
+
+    assertEquals(4, DeletionQueue.process(this::record));
+    assertEquals(3, deleted.size());
+    assertEquals(1, deleted.get(ResourceType.TEXTURE).size());
+    assertEquals(2, deleted.get(ResourceType.TEXTURE).get(0).length);
+    assertEquals(1, deleted.get(ResourceType.TEXTURE).get(0)[0]);
+    assertEquals(3, deleted.get(ResourceType.TEXTURE).get(0)[1]);
+    assertEquals(2, deleted.get(ResourceType.BUFFER).get(0)[0]);
+    assertEquals(4, deleted.get(ResourceType.QUERY).get(0)[0]);
+    assertEquals(0, DeletionQueue.getPendingCount());
+    assertEquals(4, DeletionQueue.getLastDeletedCount());
+
+    // Nothing posted since, nothing deleted
+    deleted.clear();
+    assertEquals(0, DeletionQueue.process(this::record));
+    assertTrue(deleted.isEmpty());
+    assertEquals(0, DeletionQueue.getLastDeletedCount());
+  }
+
+  @Test
+  public void growsBatchesAndNamesBuffer() {
+    int count = 5000;
+    for (int i = 1; i <= count; i++) {
+      DeletionQueue.post(ResourceType.VERTEX_ARRAY, i, 0);
+    }
+    assertEquals(count, DeletionQueue.process(this::record));
+    int[] names = deleted.get(ResourceType.VERTEX_ARRAY).get(0);
+    assertEquals(count, names.length);
+    for (int i = 0; i < count; i++) {
+      assertEquals(i + 1, names[i]);
+    }
+
+    // The grown storage is reused, and only holds the names of the new batch
+    deleted.clear();
+    DeletionQueue.post(ResourceType.VERTEX_ARRAY, 7, 0);
+    DeletionQueue.process(this::record);
+    assertEquals(1, deleted.get(ResourceType.VERTEX_ARRAY).get(0).length);
+    assertEquals(7, deleted.get(ResourceType.VERTEX_ARRAY).get(0)[0]);
+  }
+
+  @Test
+  public void acceptsReleasesFromSeveralThreads() throws InterruptedException {
+    int threads = 4;
+    int perThread = 10_000;
+    CountDownLatch start = new CountDownLatch(1);
+    List<Thread> producers = new ArrayList<>();
+    for (int t = 0; t < threads; t++) {
+      int first = t * perThread + 1;
+      Thread producer =
+          new Thread(
+              () -> {
+                try {
+                  start.await();
+                } catch (InterruptedException e) {
+                  Thread.currentThread().interrupt();
+                }
+                for (int i = 0; i < perThread; i++) {
+                  DeletionQueue.post(ResourceType.BUFFER, first + i, 1);
+                }
+              });
+      producers.add(producer);
+      producer.start();
+    }
+    start.countDown();
+    // Drained while the producers are still posting, as the OpenGL thread would every frame
+    int total = 0;
+    boolean alive = true;
+    while (alive) {
+      alive = false;
+      for (Thread producer : producers) {
+        alive |= producer.isAlive();
+      }
+      total += DeletionQueue.process(this::record);
+    }
+    total += DeletionQueue.process(this::record);
+
+    assertEquals(threads * perThread, total);
+    Set<Integer> names = new HashSet<>();
+    for (int[] batch : deleted.get(ResourceType.BUFFER)) {
+      for (int name : batch) {
+        assertTrue("deleted twice", names.add(name));
+      }
+    }
+    assertEquals(threads * perThread, names.size());
+  }
+
+  @Test
+  public void accountsForDeletedObjects() throws InterruptedException {
+    long count = DeletionQueue.getDeletedCount();
+    long bytes = DeletionQueue.getDeletedBytes();
+    long samples = DeletionQueue.getLatency().getSampleCount();
+
+    DeletionQueue.post(ResourceType.TEXTURE, 1, 1024);
+    DeletionQueue.post(ResourceType.RENDERBUFFER, 2, 512);
+    Thread.sleep(20);
+    DeletionQueue.process(this::record);
+
+    assertEquals(count + 2, DeletionQueue.getDeletedCount());
+    assertEquals(bytes + 1536, DeletionQueue.getDeletedBytes());
+    assertEquals(1536, DeletionQueue.getReclaimedBytes().getLast(), 0);
+    // Measured from the oldest release of the batch
+    assertTrue(DeletionQueue.getLatency().getLast() >= 20);
+
+    // An empty drain still pushes a sample, so the plots keep scrolling
+    DeletionQueue.process(this::record);
+    assertEquals(count + 2, DeletionQueue.getDeletedCount());
+    assertEquals(0, DeletionQueue.getLatency().getLast(), 0);
+    assertEquals(samples + 2, DeletionQueue.getLatency().getSampleCount());
+  }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.graphics2j.common.shaders.data.uniform;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+import java.nio.FloatBuffer;
+import org.alban098.common.metrics.AllocationProbe;
+import org.joml.Matrix4f;
+import org.junit.Test;
+
+public class UniformMat4Test {
+
+  @Test
+  public void storesMatrixInBufferSentToGpu() {
+    UniformMat4 uniform = new UniformMat4("model", new Matrix4f());
+    Matrix4f matrix = new Matrix4f().translate(1, 2, 3).rotateZ(0.5f);
+    FloatBuffer buffer = uniform.store(matrix);
+
+    assertEquals(matrix, uniform.getValue());
+    assertEquals(0, buffer.position());
+    assertEquals(16, buffer.remaining());
+    assertEquals(new Matrix4f().set(buffer), matrix);
+  }
+
+  @Test
+  public void storesWithoutAllocating() {
+    assumeTrue(AllocationProbe.isSupported());
+    UniformMat4 uniform = new UniformMat4("model", new Matrix4f());
+    Matrix4f matrix = new Matrix4f();
+    Runnable load = () -> uniform.store(matrix.rotateZ(0.01f)).get(0);
+    double bytes = AllocationProbe.measure(load, 20_000, 10_000);
+    // A one time allocation shows in a single round, one made by every call in all of them
+    for (int round = 1; round < 3 && bytes > 0; round++) {
+      bytes = AllocationProbe.measure(load, 0, 10_000);
+    }
+    assertEquals(0, bytes, 0);
+  }
+}
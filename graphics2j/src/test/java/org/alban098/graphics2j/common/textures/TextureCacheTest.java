@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.graphics2j.common.textures;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import org.alban098.common.metrics.AllocationProbe;
+import org.alban098.graphics2j.common.shaders.data.Texture;
+import org.junit.After;
+import org.junit.Test;
+
+public class TextureCacheTest {
+
+  /** The size of the 64*64 images decoded by the fake decoder */
+  private static final int SIZE = 64 * 64 * 4;
+
+  private final List<Texture> evicted = new ArrayList<>();
+  private final AsyncTextureLoader loader =
+      new AsyncTextureLoader(1, 16, TextureCacheTest::decode, TextureCacheTest::upload);
+  private int nextId = 1;
+
+  /** Decodes every path as a 64*64 image, except the missing ones */
+  private static ImageData decode(String filePath) throws IOException {
+    if (filePath.startsWith("missing")) {
+      throw new IOException("not found");
+    }
+    return new ImageData(64, 64, ByteBuffer.allocate(SIZE), pixels -> {});
+  }
+
+  private static void upload(Texture texture, ImageData image) {
+    texture.setContent(image.getWidth(), image.getHeight(), TextureFormat.RGBA8, 1);
+  }
+
+  private TextureCache cache(long budget) {
+    return new TextureCache(
+        budget,
+        loader,
+        () -> new Texture(nextId++, 1, 1, TextureFormat.RGBA8, 1, true),
+        texture -> {
+          evicted.add(texture);
+          texture.setContent(1, 1, TextureFormat.RGBA8, 1);
+        });
+  }
+
+  /** Uploads decoded images until a number of them have been uploaded */
+  private void awaitUploads(long count) throws InterruptedException {
+    long deadline = System.nanoTime() + 5_000_000_000L;
+    while (loader.getUploadedCount() < count) {
+      assertTrue("uploads timed out", System.nanoTime() < deadline);
+      loader.processUploads(Long.MAX_VALUE);
+      Thread.sleep(1);
+    }
+  }
+
+  /** Loads Textures during successive frames, then waits for them to be resident */
+  private void load(TextureCache cache, String... filePaths) throws InterruptedException {
+    long uploaded = loader.getUploadedCount();
+    for (String filePath : filePaths) {
+      Texture.nextFrame();
+      cache.get(filePath);
+    }
+    awaitUploads(uploaded + filePaths.length);
+  }
+
+  @After
+  public void tearDown() {
+    loader.cleanUp();
+  }
+
+  @Test
+  public void evictsTheLeastRecentlyUsedTexturesOverBudget() throws InterruptedException {
+    TextureCache cache = cache(3 * SIZE);
+    load(cache, "a", "b", "c", "d");
+    Texture.nextFrame();
+    cache.update();
+
+    assertEquals(TextureCache.Residency.EVICTED, cache.getResidency("a"));
+    for (String filePath : new String[] {"b", "c", "d"}) {
+      assertEquals(TextureCache.Residency.RESIDENT, cache.getResidency(filePath));
+    }
+    assertEquals(List.of(cache.getTextures().get("a")), evicted);
+    assertEquals(3 * SIZE, cache.getResidentBytes());
+    assertEquals(3, cache.getResidentCount());
+    assertEquals(4, cache.getTextureCount());
+    assertEquals(1, cache.getEvictions());
+
+    // Within budget, nothing more is evicted
+    Texture.nextFrame();
+    cache.update();
+    assertEquals(1, cache.getEvictions());
+  }
+
+  @Test
+  public void ordersEvictionsByLastBoundFrame() throws InterruptedException {
+    TextureCache cache = cache(Long.MAX_VALUE);
+    load(cache, "a", "b", "c");
+    Texture a = cache.getTextures().get("a");
+    Texture b = cache.getTextures().get("b");
+    Texture c = cache.getTextures().get("c");
+    Texture.nextFrame();
+    cache.update();
+    // Bound in the opposite order of their loading
+    Texture.nextFrame();
+    b.markBound();
+    Texture.nextFrame();
+    c.markBound();
+    Texture.nextFrame();
+    a.markBound();
+
+    // The Texture bound during the current frame is never evicted, even over budget
+    cache.setBudget(0);
+    cache.update();
+    assertEquals(List.of(b, c), evicted);
+    assertEquals(TextureCache.Residency.RESIDENT, cache.getResidency("a"));
+    assertEquals(SIZE, cache.getResidentBytes());
+
+    Texture.nextFrame();
+    cache.update();
+    assertEquals(List.of(b, c, a), evicted);
+    assertEquals(0, cache.getResidentBytes());
+  }
+
+  @Test
+  public void countsHitsMissesAndReloads() throws InterruptedException {
+    TextureCache cache = cache(SIZE);
+    load(cache, "a", "b");
+    Texture a = cache.getTextures().get("a");
+    assertEquals(2, cache.getMisses());
+    assertEquals(0, cache.getHits());
+
+    Texture.nextFrame();
+    cache.update();
+    assertEquals(TextureCache.Residency.EVICTED, cache.getResidency("a"));
+    // Requested while resident
+    assertSame(cache.getTextures().get("b"), cache.get("b"));
+    assertEquals(1, cache.getHits());
+
+    // Requesting an evicted Texture reloads it into the same Texture, at once
+    assertSame(a, cache.get("a"));
+    assertEquals(3, cache.getMisses());
+    assertEquals(1, cache.getReloads());
+    assertEquals(TextureCache.Residency.LOADING, cache.getResidency("a"));
+    awaitUploads(3);
+    // Bound once resident, a is kept and b, requested during the previous frame, is evicted
+    Texture.nextFrame();
+    a.markBound();
+    cache.update();
+    assertEquals(TextureCache.Residency.RESIDENT, cache.getResidency("a"));
+    assertEquals(TextureCache.Residency.EVICTED, cache.getResidency("b"));
+    assertEquals(2, cache.getHits());
+
+    // Binding an evicted Texture reloads it at the end of the frame
+    Texture.nextFrame();
+    cache.getTextures().get("b").markBound();
+    a.markBound();
+    cache.update();
+    assertEquals(TextureCache.Residency.LOADING, cache.getResidency("b"));
+    assertEquals(4, cache.getMisses());
+    assertEquals(3, cache.getHits());
+    assertEquals(2, cache.getReloads());
+    assertEquals(3 / 7.0, cache.getHitRate(), 1e-9);
+
+    cache.resetStats();
+    assertEquals(0, cache.getHits());
+    assertEquals(0, cache.getMisses());
+    assertEquals(0, cache.getEvictions());
+    assertEquals(0, cache.getReloads());
+    assertEquals(1, cache.getHitRate(), 0);
+  }
+
+  @Test
+  public void failedLoadsAreOnlyRetriedOnRequest() throws InterruptedException {
+    TextureCache cache = cache(Long.MAX_VALUE);
+    Texture texture = cache.get("missing");
+    long deadline = System.nanoTime() + 5_000_000_000L;
+    while (cache.getResidency("missing") != TextureCache.Residency.EVICTED) {
+      assertTrue("decode timed out", System.nanoTime() < deadline);
+      Thread.sleep(1);
+      cache.update();
+    }
+    texture.markBound();
+    cache.update();
+    assertEquals(0, cache.getReloads());
+    assertEquals(TextureCache.Residency.EVICTED, cache.getResidency("missing"));
+
+    cache.get("missing");
+    assertEquals(1, cache.getReloads());
+    assertEquals(TextureCache.Residency.LOADING, cache.getResidency("missing"));
+  }
+
+  @Test
+  public void removesTextures() throws InterruptedException {
+    TextureCache cache = cache(Long.MAX_VALUE);
+    load(cache, "a", "b");
+    cache.update();
+    assertEquals(2 * SIZE, cache.getResidentBytes());
+    cache.remove("a");
+    assertNull(cache.getResidency("a"));
+    assertEquals(1, cache.getTextureCount());
+    assertEquals(SIZE, cache.getResidentBytes());
+    assertEquals(List.of("b"), new ArrayList<>(cache.getTextures().keySet()));
+  }
+
+  @Test
+  public void updateDoesNotAllocate() throws InterruptedException {
+    assumeTrue(AllocationProbe.isSupported());
+    TextureCache cache = cache(Long.MAX_VALUE);
+    String[] filePaths = new String[16];
+    for (int i = 0; i < filePaths.length; i++) {
+      filePaths[i] = "texture" + i;
+    }
+    load(cache, filePaths);
+    Texture[] textures = cache.getTextures().values().toArray(new Texture[0]);
+    long[] frame = {0};
+    Runnable update =
+        () -> {
+          textures[(int) (frame[0]++ % textures.length)].markBound();
+          cache.update();
+        };
+
+    double bytes = AllocationProbe.measure(update, 20_000, 10_000);
+    // A one time allocation shows in a single round, one made by every frame in all of them
+    for (int round = 1; round < 3 && bytes > 0; round++) {
+      bytes = AllocationProbe.measure(update, 0, 10_000);
+    }
+    assertEquals(0, bytes, 0);
+    assertEquals(16, cache.getResidentCount());
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.graphics2j.common.textures;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+public class TextureDecodeTaskTest {
+
+  private final TextureUploadQueue queue = new TextureUploadQueue(4);
+  private final AtomicInteger decoded = new AtomicInteger();
+  private final AtomicInteger released = new AtomicInteger();
+
+  private ImageData decode(String filePath) {
+    decoded.incrementAndGet();
+    return new ImageData(2, 2, ByteBuffer.allocate(16), pixels -> released.incrementAndGet());
+  }
+
+  @Test
+  public void queuesDecodedRequest() {
+    TextureRequest request = new TextureRequest("image", 0, 0, null);
+    new TextureDecodeTask(request, this::decode, queue).run();
+
+    assertEquals(TextureRequest.State.DECODED, request.getState());
+    assertEquals(16, request.getImage().getSize());
+    assertSame(request, queue.poll());
+  }
+
+  @Test
+  public void failedDecodeIsNotQueued() {
+    TextureRequest request = new TextureRequest("missing", 0, 0, null);
+    new TextureDecodeTask(
+            request,
+            path -> {
+              throw new IOException("not found");
+            },
+            queue)
+        .run();
+
+    assertEquals(TextureRequest.State.FAILED, request.getState());
+    assertEquals(0, queue.size());
+    assertFalse(request.cancel());
+  }
+
+  @Test
+  public void cancelledRequestIsNeverDecoded() {
+    TextureRequest request = new TextureRequest("image", 0, 0, null);
+    assertTrue(request.cancel());
+    new TextureDecodeTask(request, this::decode, queue).run();
+
+    assertEquals(0, decoded.get());
+    assertEquals(0, queue.size());
+  }
+
+  @Test
+  public void requestCancelledWhileDecodingReleasesImage() {
+    TextureRequest request = new TextureRequest("image", 0, 0, null);
+    new TextureDecodeTask(
+            request,
+            path -> {
+              request.cancel();
+              return decode(path);
+            },
+            queue)
+        .run();
+
+    assertEquals(TextureRequest.State.CANCELLED, request.getState());
+    assertEquals(1, released.get());
+    assertNull(request.getImage());
+    assertEquals(0, queue.size());
+  }
+
+  @Test
+  public void tasksFollowRequestOrder() {
+    TextureDecodeTask urgent =
+        new TextureDecodeTask(new TextureRequest("a", 10, 1, null), this::decode, queue);
+    TextureDecodeTask early =
+        new TextureDecodeTask(new TextureRequest("b", 0, 0, null), this::decode, queue);
+    TextureDecodeTask late =
+        new TextureDecodeTask(new TextureRequest("c", 0, 2, null), this::decode, queue);
+
+    assertTrue(urgent.compareTo(early) < 0);
+    assertTrue(early.compareTo(late) < 0);
+    assertTrue(late.compareTo(urgent) > 0);
+  }
+}
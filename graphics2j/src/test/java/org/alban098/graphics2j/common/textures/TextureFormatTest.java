@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.graphics2j.common.textures;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class TextureFormatTest {
+
+  @Test
+  public void compressedLevelsAreRoundedUpToWholeBlocks() {
+    assertEquals(8, TextureFormat.BC1.getLevelSize(4, 4));
+    assertEquals(8, TextureFormat.BC1.getLevelSize(1, 1));
+    assertEquals(8, TextureFormat.BC1.getLevelSize(2, 3));
+    assertEquals(32, TextureFormat.BC1.getLevelSize(5, 5));
+    assertEquals(16, TextureFormat.BC1.getLevelSize(6, 1));
+    assertEquals(16, TextureFormat.BC3.getLevelSize(1, 1));
+    assertEquals(48, TextureFormat.BC3.getLevelSize(9, 3));
+    assertEquals(16, TextureFormat.ETC2_RGB8.getLevelSize(1, 7));
+    assertEquals(16, TextureFormat.ETC2_RGBA8.getLevelSize(1, 1));
+  }
+
+  @Test
+  public void uncompressedLevelsHoldEveryTexel() {
+    assertEquals(4, TextureFormat.RGBA8.getLevelSize(1, 1));
+    assertEquals(60, TextureFormat.RGBA8.getLevelSize(3, 5));
+    // A level is never smaller than a texel
+    assertEquals(4, TextureFormat.RGBA8.getLevelSize(0, 0));
+  }
+
+  @Test
+  public void mipChainsSumTheirLevels() {
+    assertEquals(1, TextureFormat.getFullMipLevelCount(1, 1));
+    assertEquals(3, TextureFormat.getFullMipLevelCount(5, 3));
+    assertEquals(11, TextureFormat.getFullMipLevelCount(1024, 1));
+    assertEquals(11, TextureFormat.getFullMipLevelCount(1, 1024));
+
+    // 5*3, 2*1 and 1*1
+    assertEquals(60 + 8 + 4, TextureFormat.RGBA8.getMipChainSize(5, 3, 3));
+    // 8*8, 4*4, 2*2 and 1*1, the last 2 levels still take a whole block
+    assertEquals(32 + 8 + 8 + 8, TextureFormat.BC1.getMipChainSize(8, 8, 4));
+    assertEquals(16 * 4, TextureFormat.BC3.getMipChainSize(4, 1, 4));
+    assertEquals(0, TextureFormat.BC3.getMipChainSize(4, 4, 0));
+  }
+}
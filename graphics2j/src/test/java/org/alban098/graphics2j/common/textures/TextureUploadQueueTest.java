@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.graphics2j.common.textures;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+public class TextureUploadQueueTest {
+
+  private final AtomicInteger released = new AtomicInteger();
+
+  private TextureRequest decoded(int priority, long sequence) {
+    TextureRequest request = new TextureRequest("image" + sequence, priority, sequence, null);
+    request.transition(TextureRequest.State.PENDING, TextureRequest.State.DECODING);
+    request.setImage(
+        new ImageData(1, 1, ByteBuffer.allocate(4), pixels -> released.incrementAndGet()));
+    request.transition(TextureRequest.State.DECODING, TextureRequest.State.DECODED);
+    return request;
+  }
+
+  @Test
+  public void drainsByPriorityThenSubmissionOrder() throws InterruptedException {
+    TextureUploadQueue queue = new TextureUploadQueue(8);
+    TextureRequest low = decoded(0, 0);
+    TextureRequest highLate = decoded(5, 3);
+    TextureRequest highEarly = decoded(5, 1);
+    TextureRequest medium = decoded(2, 2);
+    queue.put(low);
+    queue.put(highLate);
+    queue.put(highEarly);
+    queue.put(medium);
+
+    List<TextureRequest> drained = new ArrayList<>();
+    assertEquals(4, queue.drain(Long.MAX_VALUE, System::nanoTime, drained::add));
+    assertEquals(List.of(highEarly, highLate, medium, low), drained);
+    assertEquals(0, queue.size());
+  }
+
+  @Test
+  public void drainStopsOnceBudgetIsExhausted() throws InterruptedException {
+    TextureUploadQueue queue = new TextureUploadQueue(8);
+    for (int i = 0; i < 8; i++) {
+      queue.put(decoded(0, i));
+    }
+    // Every upload takes 3 ms of the fake clock
+    long[] now = {0};
+    int drained = queue.drain(10_000_000, () -> now[0], request -> now[0] += 3_000_000);
+    assertEquals(4, drained);
+    assertEquals(4, queue.size());
+  }
+
+  @Test
+  public void drainAlwaysMakesProgress() throws InterruptedException {
+    TextureUploadQueue queue = new TextureUploadQueue(2);
+    queue.put(decoded(0, 0));
+    queue.put(decoded(0, 1));
+    long[] now = {0};
+    assertEquals(1, queue.drain(0, () -> now[0], request -> now[0] += 1));
+    assertEquals(1, queue.size());
+  }
+
+  @Test
+  public void discardsCancelledRequests() throws InterruptedException {
+    TextureUploadQueue queue = new TextureUploadQueue(4);
+    TextureRequest cancelled = decoded(9, 0);
+    TextureRequest kept = decoded(1, 1);
+    queue.put(cancelled);
+    queue.put(kept);
+    assertTrue(cancelled.cancel());
+    assertEquals(1, released.get());
+    assertNull(cancelled.getImage());
+
+    assertSame(kept, queue.poll());
+    assertNull(queue.poll());
+    assertEquals(TextureRequest.State.DECODED, kept.getState());
+  }
+
+  @Test
+  public void cancelRacingPollFreesImageOnce() throws Exception {
+    int rounds = 2000;
+    TextureUploadQueue queue = new TextureUploadQueue(1);
+    CyclicBarrier start = new CyclicBarrier(2);
+    for (int round = 0; round < rounds; round++) {
+      TextureRequest request = decoded(0, round);
+      queue.put(request);
+      Thread canceller =
+          new Thread(
+              () -> {
+                try {
+                  start.await();
+                } catch (Exception e) {
+                  throw new IllegalStateException(e);
+                }
+                request.cancel();
+              });
+      canceller.start();
+      start.await();
+      TextureRequest polled = queue.poll();
+      canceller.join();
+      if (polled != null) {
+        // Polled before the cancellation, the request is released by the cancellation alone
+        assertSame(request, polled);
+      }
+      assertTrue(request.isCancelled());
+      assertNull(request.getImage());
+      assertEquals(round + 1, released.get());
+      queue.clear();
+    }
+    assertEquals(rounds, released.get());
+  }
+
+  @Test
+  public void clearReleasesImages() throws InterruptedException {
+    TextureUploadQueue queue = new TextureUploadQueue(4);
+    for (int i = 0; i < 3; i++) {
+      queue.put(decoded(0, i));
+    }
+    assertEquals(3, queue.clear());
+    assertEquals(3, released.get());
+    assertEquals(0, queue.size());
+  }
+
+  @Test
+  public void putWaitsForFreeSlot() throws InterruptedException {
+    TextureUploadQueue queue = new TextureUploadQueue(1);
+    queue.put(decoded(0, 0));
+    CountDownLatch added = new CountDownLatch(1);
+    Thread producer =
+        new Thread(
+            () -> {
+              try {
+                queue.put(decoded(0, 1));
+                added.countDown();
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              }
+            });
+    producer.start();
+    assertFalse(added.await(50, TimeUnit.MILLISECONDS));
+    assertEquals(0, queue.poll().getSequence());
+    assertTrue(added.await(5, TimeUnit.SECONDS));
+    assertEquals(1, queue.size());
+    producer.join();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsEmptyCapacity() {
+    new TextureUploadQueue(0);
+  }
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.graphics2j.common.textures.compression;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.alban098.graphics2j.common.textures.TextureFormat;
+import org.junit.Test;
+
+public class BlockEncoderTest {
+
+  private static int readShort(byte[] data, int offset) {
+    return (data[offset] & 0xFF) | (data[offset + 1] & 0xFF) << 8;
+  }
+
+  private static int readInt(byte[] data, int offset) {
+    return readShort(data, offset) | readShort(data, offset + 2) << 16;
+  }
+
+  /** Builds a 4*4 image from the colors of its texels, as 0xAARRGGBB */
+  private static byte[] image(int... texels) {
+    byte[] rgba = new byte[texels.length * 4];
+    for (int i = 0; i < texels.length; i++) {
+      rgba[i * 4] = (byte) (texels[i] >> 16);
+      rgba[i * 4 + 1] = (byte) (texels[i] >> 8);
+      rgba[i * 4 + 2] = (byte) texels[i];
+      rgba[i * 4 + 3] = (byte) (texels[i] >>> 24);
+    }
+    return rgba;
+  }
+
+  private static int[] fill(int color) {
+    int[] texels = new int[16];
+    Arrays.fill(texels, color);
+    return texels;
+  }
+
+  /**
+   * Decodes the palette of a BC1 color block as a GPU would, without the transparent entry of the 3
+   * color mode
+   */
+  private static int[][] palette(byte[] data, int offset) {
+    int color0 = readShort(data, offset);
+    int color1 = readShort(data, offset + 2);
+    int[][] palette = new int[color0 > color1 ? 4 : 3][3];
+    int[] endpoints = new int[6];
+    BlockEncoder.expandRgb565(color0, endpoints, 0);
+    BlockEncoder.expandRgb565(color1, endpoints, 3);
+    for (int c = 0; c < 3; c++) {
+      palette[0][c] = endpoints[c];
+      palette[1][c] = endpoints[3 + c];
+      if (color0 > color1) {
+        palette[2][c] = (2 * endpoints[c] + endpoints[3 + c]) / 3;
+        palette[3][c] = (endpoints[c] + 2 * endpoints[3 + c]) / 3;
+      } else {
+        palette[2][c] = (endpoints[c] + endpoints[3 + c]) / 2;
+      }
+    }
+    return palette;
+  }
+
+  /** Returns the 2-bit index of each texel of a BC1 color block */
+  private static int[] indices(byte[] data, int offset) {
+    int bits = readInt(data, offset + 4);
+    int[] indices = new int[16];
+    for (int i = 0; i < 16; i++) {
+      indices[i] = bits >>> (i * 2) & 3;
+    }
+    return indices;
+  }
+
+  private static int distance(int[] color, int texel) {
+    int dr = color[0] - (texel >> 16 & 0xFF);
+    int dg = color[1] - (texel >> 8 & 0xFF);
+    int db = color[2] - (texel & 0xFF);
+    return dr * dr + dg * dg + db * db;
+  }
+
+  @Test
+  public void solidBlockUsesASingleEndpoint() {
+    byte[] block = BlockEncoder.encodeBC1(image(fill(0xFFFF0000)), 4, 4);
+    assertEquals(8, block.length);
+    assertEquals(0xF800, readShort(block, 0));
+    assertEquals(0xF800, readShort(block, 2));
+    assertEquals(0, readInt(block, 4));
+  }
+
+  @Test
+  public void opaqueBlockUsesTheFourColorMode() {
+    int[] texels = new int[16];
+    for (int i = 0; i < 16; i++) {
+      texels[i] = i < 8 ? 0xFFFFFFFF : 0xFF000000;
+    }
+    byte[] block = BlockEncoder.encodeBC1(image(texels), 4, 4);
+    int color0 = readShort(block, 0);
+    int color1 = readShort(block, 2);
+    assertTrue(color0 > color1);
+    // The bounding box is inset by 1/16th of its extent, 255 - 15 and 0 + 15
+    assertEquals(BlockEncoder.toRgb565(240, 240, 240), color0);
+    assertEquals(BlockEncoder.toRgb565(15, 15, 15), color1);
+    int[] indices = indices(block, 0);
+    for (int i = 0; i < 16; i++) {
+      assertEquals(i < 8 ? 0 : 1, indices[i]);
+    }
+  }
+
+  @Test
+  public void indicesPickTheClosestPaletteEntry() {
+    Random random = new Random(1);
+    for (int round = 0; round < 100; round++) {
+      int[] texels = new int[16];
+      for (int i = 0; i < 16; i++) {
+        texels[i] = 0xFF000000 | random.nextInt(0x1000000);
+      }
+      byte[] block = BlockEncoder.encodeBC1(image(texels), 4, 4);
+      int[][] palette = palette(block, 0);
+      assertEquals(4, palette.length);
+      int[] indices = indices(block, 0);
+      for (int i = 0; i < 16; i++) {
+        for (int[] color : palette) {
+          assertTrue(distance(palette[indices[i]], texels[i]) <= distance(color, texels[i]));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void transparentTexelsUseTheThreeColorMode() {
+    int[] texels = fill(0xFF00FF00);
+    texels[0] = 0x00000000;
+    texels[5] = 0x7FFFFFFF;
+    texels[15] = 0xFF000000;
+    byte[] block = BlockEncoder.encodeBC1(image(texels), 4, 4);
+    assertTrue(readShort(block, 0) <= readShort(block, 2));
+    int[][] palette = palette(block, 0);
+    assertEquals(3, palette.length);
+    int[] indices = indices(block, 0);
+    for (int i = 0; i < 16; i++) {
+      if (i == 0 || i == 5) {
+        assertEquals(3, indices[i]);
+      } else {
+        assertTrue(indices[i] < 3);
+        for (int[] color : palette) {
+          assertTrue(distance(palette[indices[i]], texels[i]) <= distance(color, texels[i]));
+        }
+      }
+    }
+    assertTrue(palette[indices[1]][1] > 200);
+    assertTrue(palette[indices[15]][1] < 50);
+
+    byte[] empty = BlockEncoder.encodeBC1(image(fill(0x00FFFFFF)), 4, 4);
+    assertEquals(0, readShort(empty, 0));
+    assertEquals(0, readShort(empty, 2));
+    assertEquals(0xFFFFFFFF, readInt(empty, 4));
+  }
+
+  @Test
+  public void alphaIsFittedToAnEightValuePalette() {
+    int[] texels = new int[16];
+    for (int i = 0; i < 16; i++) {
+      texels[i] = (i * 17) << 24 | 0x336699;
+    }
+    byte[] block = BlockEncoder.encodeBC3(image(texels), 4, 4);
+    assertEquals(16, block.length);
+    int alpha0 = block[0] & 0xFF;
+    int alpha1 = block[1] & 0xFF;
+    assertEquals(255, alpha0);
+    assertEquals(0, alpha1);
+    int[] palette = {alpha0, alpha1, 0, 0, 0, 0, 0, 0};
+    for (int p = 2; p < 8; p++) {
+      palette[p] = ((8 - p) * alpha0 + (p - 1) * alpha1) / 7;
+    }
+    long indices = 0;
+    for (int b = 0; b < 6; b++) {
+      indices |= (long) (block[2 + b] & 0xFF) << (b * 8);
+    }
+    for (int i = 0; i < 16; i++) {
+      int alpha = palette[(int) (indices >>> (i * 3) & 7)];
+      // Never further than half a step of the palette
+      assertTrue(Math.abs(alpha - i * 17) <= 255 / 14 + 1);
+    }
+    // The first texel is the least opaque, the last one the most
+    assertEquals(1, (int) (indices & 7));
+    assertEquals(0, (int) (indices >>> 45 & 7));
+    // BC3 colors always use the four color mode, whatever the alpha
+    assertTrue(readShort(block, 8) >= readShort(block, 10));
+
+    byte[] constant = BlockEncoder.encodeBC3(image(fill(0x80FFFFFF)), 4, 4);
+    assertEquals(0x80, constant[0] & 0xFF);
+    assertEquals(0x80, constant[1] & 0xFF);
+    for (int b = 2; b < 8; b++) {
+      assertEquals(0, constant[b]);
+    }
+  }
+
+  @Test
+  public void partialBlocksClampToTheEdges() {
+    // A 5*3 image is 2 blocks, the second one only filled by the last column
+    int[] texels = new int[15];
+    for (int i = 0; i < 15; i++) {
+      texels[i] = i % 5 == 4 ? 0xFFFF0000 : 0xFF0000FF;
+    }
+    byte[] rgba = image(texels);
+    byte[] blocks = BlockEncoder.encode(rgba, 5, 3, TextureFormat.BC1);
+    assertEquals(16, blocks.length);
+    assertEquals(0xF800, readShort(blocks, 8));
+    assertEquals(0xF800, readShort(blocks, 10));
+    assertEquals(32, BlockEncoder.encode(rgba, 5, 3, TextureFormat.BC3).length);
+    assertEquals(8, BlockEncoder.encode(new byte[4], 1, 1, TextureFormat.BC1).length);
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> BlockEncoder.encode(rgba, 5, 3, TextureFormat.ETC2_RGB8));
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.graphics2j.common.textures.compression;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+import org.alban098.graphics2j.common.textures.CompressedImage;
+import org.alban098.graphics2j.common.textures.TextureFormat;
+import org.junit.Test;
+
+public class DdsContainerTest {
+
+  private static byte[] randomImage(int width, int height) {
+    byte[] rgba = new byte[width * height * 4];
+    new Random(width * 31 + height).nextBytes(rgba);
+    return rgba;
+  }
+
+  private static byte[] write(CompressedImage image) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    DdsContainer.write(image, out);
+    return out.toByteArray();
+  }
+
+  private static void assertSameImage(CompressedImage expected, CompressedImage actual) {
+    assertEquals(expected.getFormat(), actual.getFormat());
+    assertEquals(expected.getWidth(), actual.getWidth());
+    assertEquals(expected.getHeight(), actual.getHeight());
+    assertEquals(expected.getLevelCount(), actual.getLevelCount());
+    for (int level = 0; level < expected.getLevelCount(); level++) {
+      assertArrayEquals(expected.getLevel(level), actual.getLevel(level));
+    }
+  }
+
+  @Test
+  public void roundTripsAFullMipChain() throws IOException {
+    for (TextureFormat format : new TextureFormat[] {TextureFormat.BC1, TextureFormat.BC3}) {
+      CompressedImage image = TextureCompressor.compress(randomImage(13, 7), 13, 7, format, true);
+      assertEquals(4, image.getLevelCount());
+      byte[] file = write(image);
+      assertEquals(128 + format.getMipChainSize(13, 7, 4), file.length);
+      assertSameImage(image, DdsContainer.read(ByteBuffer.wrap(file)));
+    }
+
+    byte[][] levels = MipMapGenerator.generateChain(randomImage(6, 6), 6, 6);
+    CompressedImage rgba = new CompressedImage(TextureFormat.RGBA8, 6, 6, levels);
+    assertSameImage(rgba, DdsContainer.read(ByteBuffer.wrap(write(rgba))));
+  }
+
+  @Test
+  public void readsASingleLevel() throws IOException {
+    CompressedImage image =
+        TextureCompressor.compress(randomImage(8, 8), 8, 8, TextureFormat.BC1, false);
+    CompressedImage read = DdsContainer.read(ByteBuffer.wrap(write(image)));
+    assertEquals(1, read.getLevelCount());
+    assertSameImage(image, read);
+  }
+
+  @Test
+  public void rejectsMalformedFiles() throws IOException {
+    byte[] file =
+        write(TextureCompressor.compress(randomImage(8, 8), 8, 8, TextureFormat.BC3, true));
+    assertThrows(
+        IOException.class, () -> DdsContainer.read(ByteBuffer.wrap(Arrays.copyOf(file, 64))));
+    assertThrows(
+        IOException.class,
+        () -> DdsContainer.read(ByteBuffer.wrap(Arrays.copyOf(file, file.length - 1))));
+    byte[] badMagic = file.clone();
+    badMagic[0] = 'X';
+    assertThrows(IOException.class, () -> DdsContainer.read(ByteBuffer.wrap(badMagic)));
+    byte[] badFourCC = file.clone();
+    // The FourCC of the pixel format
+    badFourCC[87] = '9';
+    assertThrows(IOException.class, () -> DdsContainer.read(ByteBuffer.wrap(badFourCC)));
+
+    CompressedImage etc =
+        new CompressedImage(TextureFormat.ETC2_RGB8, 4, 4, new byte[][] {new byte[8]});
+    assertThrows(IOException.class, () -> write(etc));
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.graphics2j.common.textures.compression;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import org.alban098.graphics2j.common.textures.CompressedImage;
+import org.alban098.graphics2j.common.textures.TextureFormat;
+import org.junit.Test;
+
+public class KtxContainerTest {
+
+  private static final byte[] IDENTIFIER = {
+    (byte) 0xAB, 'K', 'T', 'X', ' ', '1', '1', (byte) 0xBB, '\r', '\n', 0x1A, '\n'
+  };
+
+  /**
+   * Builds a KTX 1 file of a 5*3 BC1 image with 3 levels, each level filled with its index, and 8
+   * bytes of key/value data to skip
+   */
+  private static ByteBuffer fixture(ByteOrder order, int faces, int secondLevelSize) {
+    ByteBuffer file = ByteBuffer.allocate(256).order(order);
+    file.put(IDENTIFIER);
+    file.putInt(0x04030201);
+    file.putInt(0); // glType
+    file.putInt(1); // glTypeSize
+    file.putInt(0); // glFormat
+    file.putInt(TextureFormat.BC1.getInternalFormat());
+    file.putInt(0x1908); // glBaseInternalFormat
+    file.putInt(5);
+    file.putInt(3);
+    file.putInt(0); // depth
+    file.putInt(0); // array elements
+    file.putInt(faces);
+    file.putInt(3); // levels
+    file.putInt(8);
+    file.putLong(-1);
+    int[] sizes = {16, secondLevelSize, 8};
+    for (int level = 0; level < sizes.length; level++) {
+      file.putInt(sizes[level]);
+      for (int i = 0; i < sizes[level]; i++) {
+        file.put((byte) level);
+      }
+    }
+    return file.flip();
+  }
+
+  @Test
+  public void readsTheHeaderAndEveryLevel() throws IOException {
+    for (ByteOrder order : new ByteOrder[] {ByteOrder.LITTLE_ENDIAN, ByteOrder.BIG_ENDIAN}) {
+      CompressedImage image = KtxContainer.read(fixture(order, 1, 8));
+      assertEquals(TextureFormat.BC1, image.getFormat());
+      assertEquals(5, image.getWidth());
+      assertEquals(3, image.getHeight());
+      assertEquals(3, image.getLevelCount());
+      // 5*3, 2*1 and 1*1 each rounded up to whole blocks
+      assertArrayEquals(new byte[16], image.getLevel(0));
+      for (int level = 1; level < 3; level++) {
+        assertEquals(8, image.getLevel(level).length);
+        for (byte b : image.getLevel(level)) {
+          assertEquals(level, b);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void skipsThePaddingOfUncompressedLevels() throws IOException {
+    ByteBuffer file = ByteBuffer.allocate(256).order(ByteOrder.LITTLE_ENDIAN);
+    file.put(IDENTIFIER);
+    file.putInt(0x04030201);
+    file.putInt(0x1401).putInt(1).putInt(0x1908);
+    file.putInt(TextureFormat.RGBA8.getInternalFormat());
+    file.putInt(0x1908);
+    // A 1 pixel high image, its height of 0 meaning 1
+    file.putInt(2).putInt(0).putInt(0).putInt(0).putInt(1).putInt(2).putInt(0);
+    file.putInt(8).put(new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+    file.putInt(4).put(new byte[] {9, 10, 11, 12});
+    CompressedImage image = KtxContainer.read(file.flip());
+    assertEquals(1, image.getHeight());
+    assertArrayEquals(new byte[] {9, 10, 11, 12}, image.getLevel(1));
+  }
+
+  @Test
+  public void rejectsMalformedFiles() {
+    assertThrows(IOException.class, () -> KtxContainer.read(ByteBuffer.allocate(16)));
+    ByteBuffer badIdentifier = fixture(ByteOrder.LITTLE_ENDIAN, 1, 8);
+    badIdentifier.put(1, (byte) 'X');
+    assertThrows(IOException.class, () -> KtxContainer.read(badIdentifier));
+    ByteBuffer badEndianness = fixture(ByteOrder.LITTLE_ENDIAN, 1, 8);
+    badEndianness.putInt(12, 0x01020305);
+    assertThrows(IOException.class, () -> KtxContainer.read(badEndianness));
+    // Cube maps are not supported
+    assertThrows(
+        IOException.class, () -> KtxContainer.read(fixture(ByteOrder.LITTLE_ENDIAN, 6, 8)));
+    // The size of a level must match its dimensions
+    assertThrows(
+        IOException.class, () -> KtxContainer.read(fixture(ByteOrder.LITTLE_ENDIAN, 1, 12)));
+    ByteBuffer badFormat = fixture(ByteOrder.LITTLE_ENDIAN, 1, 8);
+    badFormat.putInt(28, 0x1234);
+    assertThrows(IOException.class, () -> KtxContainer.read(badFormat));
+    ByteBuffer truncated = fixture(ByteOrder.LITTLE_ENDIAN, 1, 8);
+    truncated.limit(truncated.limit() - 4);
+    assertThrows(IOException.class, () -> KtxContainer.read(truncated));
+  }
+}
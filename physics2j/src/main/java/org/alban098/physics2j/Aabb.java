@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.physics2j;
+
+/**
+ * A mutable axis aligned bounding box in float coordinates. Unlike {@link java.awt.Rectangle} it is
+ * never rounded to integers, and every operation works in place, so bounds can be kept and updated
+ * every tick without allocating. An empty box has its lower bounds above its upper ones
+ */
+public final class Aabb {
+
+  /** The lower x bound of the box */
+  private float minX;
+  /** The lower y bound of the box */
+  private float minY;
+  /** The upper x bound of the box */
+  private float maxX;
+  /** The upper y bound of the box */
+  private float maxY;
+
+  /** Creates a new empty Aabb */
+  public Aabb() {
+    setEmpty();
+  }
+
+  /**
+   * Creates a new Aabb with set bounds
+   *
+   * @param minX the lower x bound of the box
+   * @param minY the lower y bound of the box
+   * @param maxX the upper x bound of the box
+   * @param maxY the upper y bound of the box
+   */
+  public Aabb(float minX, float minY, float maxX, float maxY) {
+    set(minX, minY, maxX, maxY);
+  }
+
+  /**
+   * Sets the bounds of the box
+   *
+   * @param minX the lower x bound of the box
+   * @param minY the lower y bound of the box
+   * @param maxX the upper x bound of the box
+   * @param maxY the upper y bound of the box
+   * @return this Aabb
+   */
+  public Aabb set(float minX, float minY, float maxX, float maxY) {
+    this.minX = minX;
+    this.minY = minY;
+    this.maxX = maxX;
+    this.maxY = maxY;
+    return this;
+  }
+
+  /**
+   * Sets the bounds of the box to the ones of another box
+   *
+   * @param other the box to copy
+   * @return this Aabb
+   */
+  public Aabb set(Aabb other) {
+    return set(other.minX, other.minY, other.maxX, other.maxY);
+  }
+
+  /**
+   * Empties the box, so that including a first point makes it that point
+   *
+   * @return this Aabb
+   */
+  public Aabb setEmpty() {
+    return set(
+        Float.POSITIVE_INFINITY,
+        Float.POSITIVE_INFINITY,
+        Float.NEGATIVE_INFINITY,
+        Float.NEGATIVE_INFINITY);
+  }
+
+  /**
+   * Grows the box to include a point
+   *
+   * @param x the x coordinate of the point
+   * @param y the y coordinate of the point
+   * @return this Aabb
+   */
+  public Aabb include(float x, float y) {
+    minX = Math.min(minX, x);
+    minY = Math.min(minY, y);
+    maxX = Math.max(maxX, x);
+    maxY = Math.max(maxY, y);
+    return this;
+  }
+
+  /**
+   * Sets the box to the bounds of a set of points
+   *
+   * @param xs the x coordinates of the points
+   * @param ys the y coordinates of the points
+   * @param count the number of points
+   * @return this Aabb
+   */
+  public Aabb setBounds(float[] xs, float[] ys, int count) {
+    setEmpty();
+    for (int i = 0; i < count; i++) {
+      include(xs[i], ys[i]);
+    }
+    return this;
+  }
+
+  /**
+   * Tests whether the box is empty
+   *
+   * @return true if the box contains no point, false otherwise
+   */
+  public boolean isEmpty() {
+    return minX > maxX || minY > maxY;
+  }
+
+  /**
+   * Tests whether the box contains a point, bounds included
+   *
+   * @param x the x coordinate of the point
+   * @param y the y coordinate of the point
+   * @return true if the point is inside the box, false otherwise
+   */
+  public boolean contains(float x, float y) {
+    return x >= minX && x <= maxX && y >= minY && y <= maxY;
+  }
+
+  /**
+   * Tests whether the box overlaps another one, touching boxes overlap
+   *
+   * @param other the other box
+   * @return true if the boxes overlap, false otherwise
+   */
+  public boolean overlaps(Aabb other) {
+    return overlaps(other.minX, other.minY, other.maxX, other.maxY);
+  }
+
+  /**
+   * Tests whether the box overlaps another one, touching boxes overlap
+   *
+   * @param minX the lower x bound of the other box
+   * @param minY the lower y bound of the other box
+   * @param maxX the upper x bound of the other box
+   * @param maxY the upper y bound of the other box
+   * @return true if the boxes overlap, false otherwise
+   */
+  public boolean overlaps(float minX, float minY, float maxX, float maxY) {
+    return this.minX <= maxX && minX <= this.maxX && this.minY <= maxY && minY <= this.maxY;
+  }
+
+  /**
+   * Returns the lower x bound of the box
+   *
+   * @return the lower x bound of the box
+   */
+  public float getMinX() {
+    return minX;
+  }
+
+  /**
+   * Returns the lower y bound of the box
+   *
+   * @return the lower y bound of the box
+   */
+  public float getMinY() {
+    return minY;
+  }
+
+  /**
+   * Returns the upper x bound of the box
+   *
+   * @return the upper x bound of the box
+   */
+  public float getMaxX() {
+    return maxX;
+  }
+
+  /**
+   * Returns the upper y bound of the box
+   *
+   * @return the upper y bound of the box
+   */
+  public float getMaxY() {
+    return maxY;
+  }
+
+  /**
+   * Returns the width of the box
+   *
+   * @return the width of the box, 0 if it is empty
+   */
+  public float getWidth() {
+    return isEmpty() ? 0 : maxX - minX;
+  }
+
+  /**
+   * Returns the height of the box
+   *
+   * @return the height of the box, 0 if it is empty
+   */
+  public float getHeight() {
+    return isEmpty() ? 0 : maxY - minY;
+  }
+
+  @Override
+  public String toString() {
+    return "Aabb[" + minX + ", " + minY + " -> " + maxX + ", " + maxY + "]";
+  }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.physics2j;
+
+import java.util.Arrays;
+import org.alban098.common.Transform;
+
+/**
+ * The state of every body simulated during a tick, packed into primitive arrays so the collision
+ * detection and the {@link ContactSolver} never dereference a {@link Physical}. Bodies are boxes,
+ * velocities are expressed as displacements per tick, as integrated by {@link PhysicsComponent}
+ */
+final class BodyBuffer {
+
+  /** The initial number of bodies the buffer can hold */
+  private static final int INITIAL_CAPACITY = 64;
+
+  /** The stable ids of the bodies, used to identify pairs across ticks */
+  int[] ids = new int[INITIAL_CAPACITY];
+  /** The x coordinates of the centers */
+  float[] x = new float[INITIAL_CAPACITY];
+  /** The y coordinates of the centers */
+  float[] y = new float[INITIAL_CAPACITY];
+  /** The rotations, in radians */
+  float[] angle = new float[INITIAL_CAPACITY];
+  /** The cosines of the rotations at the start of the tick */
+  float[] cos = new float[INITIAL_CAPACITY];
+  /** The sines of the rotations at the start of the tick */
+  float[] sin = new float[INITIAL_CAPACITY];
+  /** The x components of the linear velocities */
+  float[] vx = new float[INITIAL_CAPACITY];
+  /** The y components of the linear velocities */
+  float[] vy = new float[INITIAL_CAPACITY];
+  /** The angular velocities */
+  float[] w = new float[INITIAL_CAPACITY];
+  /** The inverse masses, 0 for immovable bodies, which are the ones without mass */
+  float[] invMass = new float[INITIAL_CAPACITY];
+  /** The inverse moments of inertia, 0 for immovable bodies */
+  float[] invInertia = new float[INITIAL_CAPACITY];
+  /** The half widths of the boxes */
+  float[] halfWidth = new float[INITIAL_CAPACITY];
+  /** The half heights of the boxes */
+  float[] halfHeight = new float[INITIAL_CAPACITY];
+  /** The coefficients of restitution */
+  float[] restitution = new float[INITIAL_CAPACITY];
+  /** The coefficients of friction */
+  float[] friction = new float[INITIAL_CAPACITY];
+  /** The lower x bounds of the hitboxes in world space */
+  float[] minX = new float[INITIAL_CAPACITY];
+  /** The lower y bounds of the hitboxes in world space */
+  float[] minY = new float[INITIAL_CAPACITY];
+  /** The upper x bounds of the hitboxes in world space */
+  float[] maxX = new float[INITIAL_CAPACITY];
+  /** The upper y bounds of the hitboxes in world space */
+  float[] maxY = new float[INITIAL_CAPACITY];
+  /** The category bits of each body */
+  int[] category = new int[INITIAL_CAPACITY];
+  /** The mask bits of each body */
+  int[] mask = new int[INITIAL_CAPACITY];
+  /** The collision group of each body */
+  int[] group = new int[INITIAL_CAPACITY];
+  /** The number of bodies in the buffer */
+  private int count = 0;
+  /** The number of dynamic bodies, packed before the static bodies touched during the tick */
+  private int dynamicCount = 0;
+
+  /** Empties the buffer before packing a new tick */
+  void clear() {
+    count = 0;
+    dynamicCount = 0;
+  }
+
+  /**
+   * Marks the bodies packed so far as the dynamic bodies of the tick, the bodies packed afterwards
+   * being static bodies
+   */
+  void sealDynamic() {
+    dynamicCount = count;
+  }
+
+  /**
+   * Packs the state of a body into the next slot, the world hitbox of the component must be
+   * up-to-date with the transform, as its rotation and bounds are reused rather than recomputed
+   *
+   * @param id the stable id of the body
+   * @param component the physical properties of the body
+   * @param transform the position and rotation of the body
+   * @return the index of the body in the buffer
+   */
+  int add(int id, PhysicsComponent component, Transform transform) {
+    if (count == ids.length) {
+      grow();
+    }
+    float mass = component.getMass();
+    ids[count] = id;
+    x[count] = transform.getDisplacement().x;
+    y[count] = transform.getDisplacement().y;
+    angle[count] = transform.getRotation();
+    cos[count] = component.getCos();
+    sin[count] = component.getSin();
+    vx[count] = mass > 0 ? component.getVelocity().x : 0;
+    vy[count] = mass > 0 ? component.getVelocity().y : 0;
+    w[count] = mass > 0 ? component.getAngularVelocity() : 0;
+    invMass[count] = mass > 0 ? 1 / mass : 0;
+    invInertia[count] = mass > 0 ? 1 / component.getMomentOfInertia() : 0;
+    halfWidth[count] = component.getHalfExtents().x;
+    halfHeight[count] = component.getHalfExtents().y;
+    restitution[count] = component.getRestitution();
+    friction[count] = component.getFriction();
+    category[count] = component.getCategoryBits();
+    mask[count] = component.getMaskBits();
+    group[count] = component.getGroup();
+    setBounds(count, component.getBounds());
+    return count++;
+  }
+
+  /**
+   * Packs the state of a static body into the next slot, the body being immovable whatever its
+   * mass, as the solver must never move it
+   *
+   * @param id the stable id of the body
+   * @param component the physical properties of the body
+   * @param transform the position and rotation of the body
+   * @return the index of the body in the buffer
+   */
+  int addStatic(int id, PhysicsComponent component, Transform transform) {
+    int body = add(id, component, transform);
+    vx[body] = 0;
+    vy[body] = 0;
+    w[body] = 0;
+    invMass[body] = 0;
+    invInertia[body] = 0;
+    return body;
+  }
+
+  /**
+   * Sets the bounds of the hitbox of a body in world space
+   *
+   * @param body the index of the body
+   * @param bounds the bounds of the hitbox
+   */
+  void setBounds(int body, Aabb bounds) {
+    minX[body] = bounds.getMinX();
+    minY[body] = bounds.getMinY();
+    maxX[body] = bounds.getMaxX();
+    maxY[body] = bounds.getMaxY();
+  }
+
+  /** Doubles the capacity of every array */
+  private void grow() {
+    int capacity = ids.length * 2;
+    ids = Arrays.copyOf(ids, capacity);
+    x = Arrays.copyOf(x, capacity);
+    y = Arrays.copyOf(y, capacity);
+    angle = Arrays.copyOf(angle, capacity);
+    cos = Arrays.copyOf(cos, capacity);
+    sin = Arrays.copyOf(sin, capacity);
+    vx = Arrays.copyOf(vx, capacity);
+    vy = Arrays.copyOf(vy, capacity);
+    w = Arrays.copyOf(w, capacity);
+    invMass = Arrays.copyOf(invMass, capacity);
+    invInertia = Arrays.copyOf(invInertia, capacity);
+    halfWidth = Arrays.copyOf(halfWidth, capacity);
+    halfHeight = Arrays.copyOf(halfHeight, capacity);
+    restitution = Arrays.copyOf(restitution, capacity);
+    friction = Arrays.copyOf(friction, capacity);
+    minX = Arrays.copyOf(minX, capacity);
+    minY = Arrays.copyOf(minY, capacity);
+    maxX = Arrays.copyOf(maxX, capacity);
+    maxY = Arrays.copyOf(maxY, capacity);
+    category = Arrays.copyOf(category, capacity);
+    mask = Arrays.copyOf(mask, capacity);
+    group = Arrays.copyOf(group, capacity);
+  }
+
+  /**
+   * Tests whether the filters of two bodies let them collide
+   *
+   * @param a the index of the first body
+   * @param b the index of the second body
+   * @return true if the bodies can collide, false otherwise
+   */
+  boolean shouldCollide(int a, int b) {
+    return CollisionFilter.shouldCollide(
+        category[a], mask[a], group[a], category[b], mask[b], group[b]);
+  }
+
+  /**
+   * Returns the number of bodies in the buffer
+   *
+   * @return the number of bodies in the buffer
+   */
+  int size() {
+    return count;
+  }
+
+  /**
+   * Returns the number of dynamic bodies in the buffer, which come first
+   *
+   * @return the number of dynamic bodies in the buffer
+   */
+  int dynamicSize() {
+    return dynamicCount;
+  }
+}
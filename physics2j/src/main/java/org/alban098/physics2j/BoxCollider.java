@@ -0,0 +1,363 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.physics2j;
+
+/**
+ * The narrow phase between two oriented boxes. The separating axis test picks the face of least
+ * penetration, favoring the faces of the first box to keep the reference face stable across ticks,
+ * then the incident edge of the other box is clipped against the side planes of the reference face,
+ * yielding up to 2 contact points. Each point is tagged with the edges it has been clipped by, so
+ * the same point can be recognized at the next tick to warm start the solver
+ */
+final class BoxCollider {
+
+  /** The id of an edge that does not take part in a feature */
+  private static final int NO_EDGE = 0;
+  /** The id of the +y face of a box */
+  private static final int EDGE1 = 1;
+  /** The id of the -x face of a box */
+  private static final int EDGE2 = 2;
+  /** The id of the -y face of a box */
+  private static final int EDGE3 = 3;
+  /** The id of the +x face of a box */
+  private static final int EDGE4 = 4;
+  /** The tolerance with which a face of the second box must be better to be chosen, relative */
+  private static final float RELATIVE_TOLERANCE = 0.95f;
+  /** The tolerance with which a face of the second box must be better to be chosen, absolute */
+  private static final float ABSOLUTE_TOLERANCE = 0.01f;
+
+  /** The x coordinates of the vertices of the incident edge */
+  private final float[] incidentX = new float[2];
+  /** The y coordinates of the vertices of the incident edge */
+  private final float[] incidentY = new float[2];
+  /** The features of the vertices of the incident edge */
+  private final int[] incidentFeature = new int[2];
+  /** The x coordinates of the vertices clipped once */
+  private final float[] clippedX = new float[2];
+  /** The y coordinates of the vertices clipped once */
+  private final float[] clippedY = new float[2];
+  /** The features of the vertices clipped once */
+  private final int[] clippedFeature = new int[2];
+
+  /**
+   * Collides two bodies, adding the resulting contact points to the solver
+   *
+   * @param bodies the bodies of the tick
+   * @param a the index of the first body
+   * @param b the index of the second body
+   * @param slot the slot in the cache of the pair of bodies
+   * @param solver the solver to add the contact points to
+   * @return the number of contact points found
+   */
+  int collide(BodyBuffer bodies, int a, int b, int slot, ContactSolver solver) {
+    float hAx = bodies.halfWidth[a];
+    float hAy = bodies.halfHeight[a];
+    float hBx = bodies.halfWidth[b];
+    float hBy = bodies.halfHeight[b];
+    float posAx = bodies.x[a];
+    float posAy = bodies.y[a];
+    float posBx = bodies.x[b];
+    float posBy = bodies.y[b];
+    float cA = bodies.cos[a];
+    float sA = bodies.sin[a];
+    float cB = bodies.cos[b];
+    float sB = bodies.sin[b];
+
+    // Offset between the centers, in the frame of each box
+    float dpx = posBx - posAx;
+    float dpy = posBy - posAy;
+    float dAx = cA * dpx + sA * dpy;
+    float dAy = -sA * dpx + cA * dpy;
+    float dBx = cB * dpx + sB * dpy;
+    float dBy = -sB * dpx + cB * dpy;
+
+    // Rotation of B relative to A, only its absolute value is needed to project the extents
+    float absC = Math.abs(cA * cB + sA * sB);
+    float absS = Math.abs(cA * sB - sA * cB);
+
+    float faceAx = Math.abs(dAx) - hAx - (absC * hBx + absS * hBy);
+    float faceAy = Math.abs(dAy) - hAy - (absS * hBx + absC * hBy);
+    if (faceAx > 0 || faceAy > 0) {
+      return 0;
+    }
+    float faceBx = Math.abs(dBx) - (absC * hAx + absS * hAy) - hBx;
+    float faceBy = Math.abs(dBy) - (absS * hAx + absC * hAy) - hBy;
+    if (faceBx > 0 || faceBy > 0) {
+      return 0;
+    }
+
+    // Find the axis of least penetration, the normal always pointing from A to B
+    boolean referenceIsA = true;
+    boolean xAxis = true;
+    float separation = faceAx;
+    float normalX = dAx > 0 ? cA : -cA;
+    float normalY = dAx > 0 ? sA : -sA;
+    if (faceAy > RELATIVE_TOLERANCE * separation + ABSOLUTE_TOLERANCE * hAy) {
+      xAxis = false;
+      separation = faceAy;
+      normalX = dAy > 0 ? -sA : sA;
+      normalY = dAy > 0 ? cA : -cA;
+    }
+    if (faceBx > RELATIVE_TOLERANCE * separation + ABSOLUTE_TOLERANCE * hBx) {
+      referenceIsA = false;
+      xAxis = true;
+      separation = faceBx;
+      normalX = dBx > 0 ? cB : -cB;
+      normalY = dBx > 0 ? sB : -sB;
+    }
+    if (faceBy > RELATIVE_TOLERANCE * separation + ABSOLUTE_TOLERANCE * hBy) {
+      referenceIsA = false;
+      xAxis = false;
+      normalX = dBy > 0 ? -sB : sB;
+      normalY = dBy > 0 ? cB : -cB;
+    }
+
+    // Setup the clipping planes of the reference face
+    float frontX = referenceIsA ? normalX : -normalX;
+    float frontY = referenceIsA ? normalY : -normalY;
+    float refX = referenceIsA ? posAx : posBx;
+    float refY = referenceIsA ? posAy : posBy;
+    float refC = referenceIsA ? cA : cB;
+    float refS = referenceIsA ? sA : sB;
+    float refHx = referenceIsA ? hAx : hBx;
+    float refHy = referenceIsA ? hAy : hBy;
+    float front;
+    float sideX;
+    float sideY;
+    float sideExtent;
+    int negEdge;
+    int posEdge;
+    if (xAxis) {
+      front = refX * frontX + refY * frontY + refHx;
+      sideX = -refS;
+      sideY = refC;
+      sideExtent = refHy;
+      negEdge = EDGE3;
+      posEdge = EDGE1;
+    } else {
+      front = refX * frontX + refY * frontY + refHy;
+      sideX = refC;
+      sideY = refS;
+      sideExtent = refHx;
+      negEdge = EDGE2;
+      posEdge = EDGE4;
+    }
+    float side = refX * sideX + refY * sideY;
+    if (referenceIsA) {
+      computeIncidentEdge(hBx, hBy, posBx, posBy, cB, sB, frontX, frontY);
+    } else {
+      computeIncidentEdge(hAx, hAy, posAx, posAy, cA, sA, frontX, frontY);
+    }
+
+    // Clip the incident edge against the side planes of the reference face
+    if (clip(
+            incidentX,
+            incidentY,
+            incidentFeature,
+            clippedX,
+            clippedY,
+            clippedFeature,
+            -sideX,
+            -sideY,
+            -side + sideExtent,
+            negEdge)
+        < 2) {
+      return 0;
+    }
+    if (clip(
+            clippedX,
+            clippedY,
+            clippedFeature,
+            incidentX,
+            incidentY,
+            incidentFeature,
+            sideX,
+            sideY,
+            side + sideExtent,
+            posEdge)
+        < 2) {
+      return 0;
+    }
+
+    // Keep the clipped points behind the reference face
+    int found = 0;
+    for (int i = 0; i < 2; i++) {
+      float pointSeparation = frontX * incidentX[i] + frontY * incidentY[i] - front;
+      if (pointSeparation <= 0) {
+        // The point on the reference face, facing the vertex of the incident box
+        float faceX = incidentX[i] - pointSeparation * frontX;
+        float faceY = incidentY[i] - pointSeparation * frontY;
+        if (referenceIsA) {
+          solver.addContact(
+              bodies,
+              slot,
+              a,
+              b,
+              normalX,
+              normalY,
+              faceX,
+              faceY,
+              incidentX[i],
+              incidentY[i],
+              pointSeparation,
+              incidentFeature[i]);
+        } else {
+          solver.addContact(
+              bodies,
+              slot,
+              a,
+              b,
+              normalX,
+              normalY,
+              incidentX[i],
+              incidentY[i],
+              faceX,
+              faceY,
+              pointSeparation,
+              flip(incidentFeature[i]));
+        }
+        found++;
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Computes the edge of the incident box most anti-parallel to the reference normal, into the
+   * incident edge arrays
+   *
+   * @param hx the half width of the incident box
+   * @param hy the half height of the incident box
+   * @param posX the x coordinate of the center of the incident box
+   * @param posY the y coordinate of the center of the incident box
+   * @param c the cosine of the rotation of the incident box
+   * @param s the sine of the rotation of the incident box
+   * @param normalX the x component of the normal of the reference face
+   * @param normalY the y component of the normal of the reference face
+   */
+  private void computeIncidentEdge(
+      float hx, float hy, float posX, float posY, float c, float s, float normalX, float normalY) {
+    // The reference normal in the frame of the incident box, flipped
+    float nx = -(c * normalX + s * normalY);
+    float ny = -(-s * normalX + c * normalY);
+    if (Math.abs(nx) > Math.abs(ny)) {
+      if (nx > 0) {
+        setIncidentVertex(0, hx, -hy, EDGE3, EDGE4);
+        setIncidentVertex(1, hx, hy, EDGE4, EDGE1);
+      } else {
+        setIncidentVertex(0, -hx, hy, EDGE1, EDGE2);
+        setIncidentVertex(1, -hx, -hy, EDGE2, EDGE3);
+      }
+    } else {
+      if (ny > 0) {
+        setIncidentVertex(0, hx, hy, EDGE4, EDGE1);
+        setIncidentVertex(1, -hx, hy, EDGE1, EDGE2);
+      } else {
+        setIncidentVertex(0, -hx, -hy, EDGE2, EDGE3);
+        setIncidentVertex(1, hx, -hy, EDGE3, EDGE4);
+      }
+    }
+    for (int i = 0; i < 2; i++) {
+      float localX = incidentX[i];
+      float localY = incidentY[i];
+      incidentX[i] = posX + c * localX - s * localY;
+      incidentY[i] = posY + s * localX + c * localY;
+    }
+  }
+
+  /**
+   * Sets a vertex of the incident edge, in the frame of the incident box
+   *
+   * @param index the index of the vertex
+   * @param x the x coordinate of the vertex
+   * @param y the y coordinate of the vertex
+   * @param inEdge the edge of the incident box entering the vertex
+   * @param outEdge the edge of the incident box leaving the vertex
+   */
+  private void setIncidentVertex(int index, float x, float y, int inEdge, int outEdge) {
+    incidentX[index] = x;
+    incidentY[index] = y;
+    incidentFeature[index] = feature(NO_EDGE, NO_EDGE, inEdge, outEdge);
+  }
+
+  /**
+   * Clips a segment against a half plane, keeping the part behind it
+   *
+   * @param inX the x coordinates of the segment to clip
+   * @param inY the y coordinates of the segment to clip
+   * @param inFeature the features of the segment to clip
+   * @param outX the x coordinates of the clipped segment
+   * @param outY the y coordinates of the clipped segment
+   * @param outFeature the features of the clipped segment
+   * @param normalX the x component of the normal of the plane
+   * @param normalY the y component of the normal of the plane
+   * @param offset the offset of the plane along its normal
+   * @param clipEdge the edge of the reference box the plane belongs to
+   * @return the number of vertices of the clipped segment
+   */
+  private static int clip(
+      float[] inX,
+      float[] inY,
+      int[] inFeature,
+      float[] outX,
+      float[] outY,
+      int[] outFeature,
+      float normalX,
+      float normalY,
+      float offset,
+      int clipEdge) {
+    int count = 0;
+    float distance0 = normalX * inX[0] + normalY * inY[0] - offset;
+    float distance1 = normalX * inX[1] + normalY * inY[1] - offset;
+    if (distance0 <= 0) {
+      outX[count] = inX[0];
+      outY[count] = inY[0];
+      outFeature[count++] = inFeature[0];
+    }
+    if (distance1 <= 0) {
+      outX[count] = inX[1];
+      outY[count] = inY[1];
+      outFeature[count++] = inFeature[1];
+    }
+    if (distance0 * distance1 < 0) {
+      // The segment crosses the plane, keep the intersection point
+      float interpolation = distance0 / (distance0 - distance1);
+      outX[count] = inX[0] + interpolation * (inX[1] - inX[0]);
+      outY[count] = inY[0] + interpolation * (inY[1] - inY[0]);
+      if (distance0 > 0) {
+        outFeature[count] = (inFeature[0] & 0xFF00FF00) | clipEdge;
+      } else {
+        outFeature[count] = (inFeature[1] & 0x00FF00FF) | (clipEdge << 8);
+      }
+      count++;
+    }
+    return count;
+  }
+
+  /**
+   * Packs the edges identifying a contact point into a feature id
+   *
+   * @param inEdge1 the edge of the reference box entering the point
+   * @param outEdge1 the edge of the reference box leaving the point
+   * @param inEdge2 the edge of the incident box entering the point
+   * @param outEdge2 the edge of the incident box leaving the point
+   * @return the feature id
+   */
+  private static int feature(int inEdge1, int outEdge1, int inEdge2, int outEdge2) {
+    return inEdge1 | (outEdge1 << 8) | (inEdge2 << 16) | (outEdge2 << 24);
+  }
+
+  /**
+   * Swaps the edges of the two boxes in a feature id, so it is expressed relative to the first box
+   * whichever box held the reference face
+   *
+   * @param feature the feature id
+   * @return the flipped feature id
+   */
+  private static int flip(int feature) {
+    return (feature << 16) | (feature >>> 16);
+  }
+}
@@ -0,0 +1,695 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.physics2j;
+
+import java.util.Arrays;
+
+/**
+ * A broad phase keeping a proxy of each body in a {@link DynamicAabbTree}, by the stable id of the
+ * body. Proxies are created the first tick a body is found, then moved after the solver so the tree
+ * matches the bodies between ticks, and again at the start of the next tick to catch the bodies
+ * moved meanwhile. Moving a proxy only touches the tree when its body has left its fattened box.
+ * Two fattened boxes can only start to overlap when one of them changes, so only the reinserted
+ * proxies query the tree, and the pairs they find are new ones. The pairs already known are kept by
+ * the {@link ContactCache} while {@link #testOverlap(int, int)} holds for them.
+ *
+ * <p>Bodies are split into layers, one tree for each set of category bits. A proxy only queries the
+ * layers its mask accepts, so the layers that can never collide with it are not searched at all,
+ * and the pairs found in the others are checked against the {@link CollisionFilter} of both bodies
+ * before being reported.
+ *
+ * <p>Static bodies never move, so they have no proxy. They are kept in a {@link StaticBvh} built
+ * from their hitboxes, only rebuilt when one of them is added, edited or removed, and never
+ * searched by each other. Only the reinserted proxies of the other bodies query it, so a static
+ * body costs nothing to the ticks during which nothing moves around it
+ */
+final class BroadPhase implements DynamicAabbTree.QueryCallback {
+
+  /** The initial number of bodies the broad phase can hold */
+  private static final int INITIAL_CAPACITY = 64;
+
+  /** The tree of each layer, holding the fattened boxes of its bodies */
+  private DynamicAabbTree[] trees = {new DynamicAabbTree()};
+  /** The category bits of the bodies of each layer */
+  private int[] layerCategories = {CollisionFilter.DEFAULT_CATEGORY};
+  /** The number of layers */
+  private int layerCount = 1;
+  /** The proxy of each body, indexed by its stable id, {@link DynamicAabbTree#NULL_NODE} if none */
+  private int[] proxies = new int[INITIAL_CAPACITY];
+  /** The layer of the proxy of each body, indexed by its stable id */
+  private int[] layers = new int[INITIAL_CAPACITY];
+  /** The mask bits of each body when its proxy was last updated, indexed by its stable id */
+  private int[] masks = new int[INITIAL_CAPACITY];
+  /** The group of each body when its proxy was last updated, indexed by its stable id */
+  private int[] groups = new int[INITIAL_CAPACITY];
+  /** The index of each body in the bodies of the tick, indexed by its stable id */
+  private int[] indices = new int[INITIAL_CAPACITY];
+  /** Has the proxy of each body been reinserted since the last search for new pairs, by id */
+  private boolean[] moved = new boolean[INITIAL_CAPACITY];
+  /** The stable ids of the bodies whose proxy has been reinserted since the last search */
+  private int[] moveBuffer = new int[INITIAL_CAPACITY];
+  /** The number of proxies reinserted since the last search for new pairs */
+  private int moveCount = 0;
+  /** The bodies of the new pairs found at the last tick, interleaved */
+  private int[] pairs = new int[INITIAL_CAPACITY * 2];
+  /** The number of new pairs found at the last tick */
+  private int pairCount = 0;
+  /** The bodies of the tick, while querying the tree */
+  private BodyBuffer queryBodies;
+  /** The index of the body currently querying the tree */
+  private int queryBody;
+  /** The stable id of the body currently querying the tree */
+  private int queryId;
+  /** The tree currently queried */
+  private DynamicAabbTree queryTree;
+
+  /** The static bodies, in a hierarchy built from their hitboxes and rebuilt only on edits */
+  private final StaticBvh staticTree = new StaticBvh();
+  /** The slot of each static body, indexed by its stable id, -1 if the body is not static */
+  private int[] staticSlots = new int[INITIAL_CAPACITY];
+  /** The stable id of the static body of each slot */
+  private int[] staticIds = new int[INITIAL_CAPACITY];
+  /** The bounds of the hitbox of the static body of each slot, interleaved */
+  private float[] staticBounds = new float[INITIAL_CAPACITY * 4];
+  /** The category bits, mask bits and group of the static body of each slot, interleaved */
+  private int[] staticFilters = new int[INITIAL_CAPACITY * 3];
+  /** The number of static bodies */
+  private int staticCount = 0;
+  /** Have the static bodies been edited since the hierarchy was last built */
+  private boolean staticDirty = false;
+  /** The bodies and the static bodies of the new pairs found at the last tick, interleaved */
+  private int[] staticPairs = new int[INITIAL_CAPACITY * 2];
+  /** The number of new pairs with a static body found at the last tick */
+  private int staticPairCount = 0;
+  /** The callback reporting the static bodies overlapping the querying body */
+  private final DynamicAabbTree.QueryCallback staticReport = this::reportStatic;
+
+  /** Creates a new BroadPhase */
+  BroadPhase() {
+    Arrays.fill(proxies, DynamicAabbTree.NULL_NODE);
+    Arrays.fill(staticSlots, -1);
+  }
+
+  /**
+   * Updates the proxies of the bodies, catching the bodies moved since the last tick, then finds
+   * the new pairs of bodies whose fattened boxes have started to overlap, and the new pairs of a
+   * body and a static body
+   *
+   * @param bodies the bodies of the tick, without any static body
+   */
+  void findPairs(BodyBuffer bodies) {
+    int size = bodies.size();
+    for (int i = 0; i < size; i++) {
+      int id = bodies.ids[i];
+      if (id >= proxies.length) {
+        grow(id);
+      }
+      indices[id] = i;
+      updateProxy(bodies, i);
+    }
+
+    pairCount = 0;
+    staticPairCount = 0;
+    queryBodies = bodies;
+    boolean rebuilt = staticDirty;
+    if (staticDirty) {
+      staticTree.build(staticBounds, staticIds, staticCount);
+      staticDirty = false;
+    }
+    for (int i = 0; i < moveCount; i++) {
+      queryId = moveBuffer[i];
+      // The body may have been removed since its proxy was moved
+      if (proxies[queryId] != DynamicAabbTree.NULL_NODE) {
+        queryLayers(bodies);
+        if (!rebuilt) {
+          queryStatics();
+        }
+      }
+    }
+    // Only cleared once every moved proxy has queried, so a pair of two moved proxies is skipped by
+    // the one with the highest id and reported once
+    for (int i = 0; i < moveCount; i++) {
+      moved[moveBuffer[i]] = false;
+    }
+    moveCount = 0;
+
+    // Edited static bodies may already overlap bodies that have not moved
+    if (rebuilt) {
+      for (int i = 0; i < size; i++) {
+        queryId = bodies.ids[i];
+        queryStatics();
+      }
+    }
+  }
+
+  /**
+   * Queries the static bodies with the fattened box of the querying body, unless it is immovable
+   */
+  private void queryStatics() {
+    queryBody = indices[queryId];
+    if (staticCount == 0 || queryBodies.invMass[queryBody] == 0) {
+      return;
+    }
+    int proxy = proxies[queryId];
+    DynamicAabbTree own = trees[layers[queryId]];
+    staticTree.query(
+        own.getMinX(proxy),
+        own.getMinY(proxy),
+        own.getMaxX(proxy),
+        own.getMaxY(proxy),
+        staticReport);
+  }
+
+  /**
+   * Reports a static body overlapping the fattened box of the querying body, if their filters let
+   * them collide
+   *
+   * @param id the stable id of the static body
+   * @return true, to continue the query
+   */
+  private boolean reportStatic(int id) {
+    int filter = staticSlots[id] * 3;
+    if (!CollisionFilter.shouldCollide(
+        queryBodies.category[queryBody],
+        queryBodies.mask[queryBody],
+        queryBodies.group[queryBody],
+        staticFilters[filter],
+        staticFilters[filter + 1],
+        staticFilters[filter + 2])) {
+      return true;
+    }
+    if (staticPairCount * 2 == staticPairs.length) {
+      staticPairs = Arrays.copyOf(staticPairs, staticPairs.length * 2);
+    }
+    staticPairs[staticPairCount * 2] = queryBody;
+    staticPairs[staticPairCount * 2 + 1] = id;
+    staticPairCount++;
+    return true;
+  }
+
+  /**
+   * Adds a static body, or updates it if it already is, the hierarchy of the static bodies being
+   * rebuilt at the next tick
+   *
+   * @param id the stable id of the body
+   * @param component the physical properties of the body, with its world hitbox up-to-date
+   */
+  void putStatic(int id, PhysicsComponent component) {
+    if (id >= proxies.length) {
+      grow(id);
+    }
+    if (staticSlots[id] < 0) {
+      if (staticCount == staticIds.length) {
+        int capacity = staticCount * 2;
+        staticIds = Arrays.copyOf(staticIds, capacity);
+        staticBounds = Arrays.copyOf(staticBounds, capacity * 4);
+        staticFilters = Arrays.copyOf(staticFilters, capacity * 3);
+      }
+      staticSlots[id] = staticCount;
+      staticIds[staticCount++] = id;
+    }
+    int slot = staticSlots[id];
+    Aabb bounds = component.getBounds();
+    staticBounds[slot * 4] = bounds.getMinX();
+    staticBounds[slot * 4 + 1] = bounds.getMinY();
+    staticBounds[slot * 4 + 2] = bounds.getMaxX();
+    staticBounds[slot * 4 + 3] = bounds.getMaxY();
+    staticFilters[slot * 3] = component.getCategoryBits();
+    staticFilters[slot * 3 + 1] = component.getMaskBits();
+    staticFilters[slot * 3 + 2] = component.getGroup();
+    staticDirty = true;
+  }
+
+  /**
+   * Removes a static body, moving the last one into its slot
+   *
+   * @param id the stable id of the body
+   */
+  private void removeStatic(int id) {
+    int slot = staticSlots[id];
+    int last = --staticCount;
+    if (slot != last) {
+      int lastId = staticIds[last];
+      staticIds[slot] = lastId;
+      staticSlots[lastId] = slot;
+      System.arraycopy(staticBounds, last * 4, staticBounds, slot * 4, 4);
+      System.arraycopy(staticFilters, last * 3, staticFilters, slot * 3, 3);
+    }
+    staticSlots[id] = -1;
+    staticDirty = true;
+  }
+
+  /**
+   * Queries the layers accepted by the querying body with its fattened box
+   *
+   * @param bodies the bodies of the tick
+   */
+  private void queryLayers(BodyBuffer bodies) {
+    int proxy = proxies[queryId];
+    DynamicAabbTree own = trees[layers[queryId]];
+    float minX = own.getMinX(proxy);
+    float minY = own.getMinY(proxy);
+    float maxX = own.getMaxX(proxy);
+    float maxY = own.getMaxY(proxy);
+    queryBody = indices[queryId];
+    int mask = bodies.mask[queryBody];
+    int group = bodies.group[queryBody];
+    for (int layer = 0; layer < layerCount; layer++) {
+      if (CollisionFilter.mayCollide(mask, group, layerCategories[layer])) {
+        queryTree = trees[layer];
+        queryTree.query(minX, minY, maxX, maxY, this);
+      }
+    }
+  }
+
+  /**
+   * Moves the proxies to the bodies as solved at the end of the tick, so the tree matches the
+   * bodies until the next one. The reinserted proxies will look for new pairs at the next tick
+   *
+   * @param bodies the bodies of the tick, with the bounds of their solved hitboxes
+   */
+  void synchronize(BodyBuffer bodies) {
+    int size = bodies.dynamicSize();
+    for (int i = 0; i < size; i++) {
+      updateProxy(bodies, i);
+    }
+  }
+
+  /**
+   * Creates or moves the proxy of a body to the bounds of its hitbox, moving it to another layer if
+   * its category has changed. A proxy whose filter has changed looks for new pairs again, as the
+   * bodies it was not allowed to collide with may already overlap it
+   *
+   * @param bodies the bodies of the tick
+   * @param body the index of the body
+   */
+  private void updateProxy(BodyBuffer bodies, int body) {
+    int id = bodies.ids[body];
+    float minX = bodies.minX[body];
+    float minY = bodies.minY[body];
+    float maxX = bodies.maxX[body];
+    float maxY = bodies.maxY[body];
+    int layer = layers[id];
+    if (proxies[id] == DynamicAabbTree.NULL_NODE
+        || layerCategories[layer] != bodies.category[body]) {
+      remove(id);
+      layer = getLayer(bodies.category[body]);
+      layers[id] = layer;
+      proxies[id] = trees[layer].createProxy(minX, minY, maxX, maxY, id);
+      markMoved(id);
+    } else if (trees[layer].moveProxy(
+        proxies[id], minX, minY, maxX, maxY, bodies.vx[body], bodies.vy[body])) {
+      markMoved(id);
+    } else if (masks[id] != bodies.mask[body] || groups[id] != bodies.group[body]) {
+      markMoved(id);
+    }
+    masks[id] = bodies.mask[body];
+    groups[id] = bodies.group[body];
+  }
+
+  /**
+   * Returns the layer of a set of category bits, creating it if needed
+   *
+   * @param category the category bits
+   * @return the index of the layer
+   */
+  private int getLayer(int category) {
+    for (int layer = 0; layer < layerCount; layer++) {
+      if (layerCategories[layer] == category) {
+        return layer;
+      }
+    }
+    if (layerCount == trees.length) {
+      trees = Arrays.copyOf(trees, layerCount * 2);
+      layerCategories = Arrays.copyOf(layerCategories, layerCount * 2);
+    }
+    trees[layerCount] = new DynamicAabbTree();
+    layerCategories[layerCount] = category;
+    return layerCount++;
+  }
+
+  /**
+   * Reports a proxy overlapping the one of the querying body. A pair of two reinserted proxies is
+   * only added by the one with the lowest id, and pairs of immovable bodies or of bodies whose
+   * filters do not let them collide are ignored
+   *
+   * @param proxy the proxy
+   * @return true, to continue the query
+   */
+  @Override
+  public boolean report(int proxy) {
+    int id = queryTree.getUserData(proxy);
+    if (id == queryId || (moved[id] && id < queryId)) {
+      return true;
+    }
+    int other = indices[id];
+    if (queryBodies.invMass[queryBody] == 0 && queryBodies.invMass[other] == 0) {
+      return true;
+    }
+    if (!queryBodies.shouldCollide(queryBody, other)) {
+      return true;
+    }
+    if (pairCount * 2 == pairs.length) {
+      pairs = Arrays.copyOf(pairs, pairs.length * 2);
+    }
+    pairs[pairCount * 2] = id < queryId ? other : queryBody;
+    pairs[pairCount * 2 + 1] = id < queryId ? queryBody : other;
+    pairCount++;
+    return true;
+  }
+
+  /**
+   * Tests whether the fattened boxes of two bodies still overlap
+   *
+   * @param idA the stable id of the first body
+   * @param idB the stable id of the second body
+   * @return true if both bodies are still simulated and their fattened boxes overlap
+   */
+  boolean testOverlap(int idA, int idB) {
+    if (idA >= proxies.length || idB >= proxies.length) {
+      return false;
+    }
+    if (staticSlots[idA] >= 0 || staticSlots[idB] >= 0) {
+      return testStaticOverlap(
+          staticSlots[idA] >= 0 ? idB : idA, staticSlots[idA] >= 0 ? idA : idB);
+    }
+    int a = proxies[idA];
+    int b = proxies[idB];
+    if (a == DynamicAabbTree.NULL_NODE || b == DynamicAabbTree.NULL_NODE) {
+      return false;
+    }
+    DynamicAabbTree treeA = trees[layers[idA]];
+    DynamicAabbTree treeB = trees[layers[idB]];
+    return treeA.getMinX(a) <= treeB.getMaxX(b)
+        && treeB.getMinX(b) <= treeA.getMaxX(a)
+        && treeA.getMinY(a) <= treeB.getMaxY(b)
+        && treeB.getMinY(b) <= treeA.getMaxY(a);
+  }
+
+  /**
+   * Tests whether the fattened box of a body still overlaps the hitbox of a static body
+   *
+   * @param id the stable id of the body
+   * @param staticId the stable id of the static body
+   * @return true if both bodies are still simulated and their boxes overlap
+   */
+  private boolean testStaticOverlap(int id, int staticId) {
+    int proxy = proxies[id];
+    int slot = staticSlots[staticId];
+    if (proxy == DynamicAabbTree.NULL_NODE || slot < 0) {
+      return false;
+    }
+    DynamicAabbTree tree = trees[layers[id]];
+    return tree.getMinX(proxy) <= staticBounds[slot * 4 + 2]
+        && staticBounds[slot * 4] <= tree.getMaxX(proxy)
+        && tree.getMinY(proxy) <= staticBounds[slot * 4 + 3]
+        && staticBounds[slot * 4 + 1] <= tree.getMaxY(proxy);
+  }
+
+  /**
+   * Removes the proxy of a body that is no longer simulated, or the body itself if it is static
+   *
+   * @param id the stable id of the body
+   */
+  void remove(int id) {
+    if (id < proxies.length && proxies[id] != DynamicAabbTree.NULL_NODE) {
+      trees[layers[id]].destroyProxy(proxies[id]);
+      proxies[id] = DynamicAabbTree.NULL_NODE;
+    }
+    if (id < proxies.length && staticSlots[id] >= 0) {
+      removeStatic(id);
+    }
+  }
+
+  /**
+   * Returns the number of bytes needed to save the broad phase into a {@link PhysicsSnapshot}
+   *
+   * @return the number of bytes needed to save the broad phase
+   */
+  int getSnapshotSize() {
+    int size =
+        3 * Integer.BYTES
+            + PhysicsSnapshot.arraySize(layerCount, Integer.BYTES)
+            + 4 * PhysicsSnapshot.arraySize(proxies.length, Integer.BYTES)
+            + PhysicsSnapshot.arraySize(moveCount, Integer.BYTES);
+    for (int layer = 0; layer < layerCount; layer++) {
+      size += trees[layer].getSnapshotSize();
+    }
+    return size;
+  }
+
+  /**
+   * Saves the tree of each layer, the proxy of each body and the proxies that will look for new
+   * pairs at the next tick into a snapshot
+   *
+   * @param snapshot the snapshot to write into
+   * @param offset the offset to write at
+   * @return the offset following the broad phase
+   */
+  int save(PhysicsSnapshot snapshot, int offset) {
+    offset = snapshot.putInt(offset, layerCount);
+    offset = snapshot.putInt(offset, proxies.length);
+    offset = snapshot.putInt(offset, moveCount);
+    offset = snapshot.putInts(offset, layerCategories, 0, layerCount);
+    for (int layer = 0; layer < layerCount; layer++) {
+      offset = trees[layer].save(snapshot, offset);
+    }
+    offset = snapshot.putInts(offset, proxies, 0, proxies.length);
+    offset = snapshot.putInts(offset, layers, 0, proxies.length);
+    offset = snapshot.putInts(offset, masks, 0, proxies.length);
+    offset = snapshot.putInts(offset, groups, 0, proxies.length);
+    return snapshot.putInts(offset, moveBuffer, 0, moveCount);
+  }
+
+  /**
+   * Restores the broad phase saved by {@link #save(PhysicsSnapshot, int)}
+   *
+   * @param snapshot the snapshot to read from
+   * @param offset the offset to read at
+   * @return the offset following the broad phase
+   */
+  int restore(PhysicsSnapshot snapshot, int offset) {
+    for (int i = 0; i < moveCount; i++) {
+      moved[moveBuffer[i]] = false;
+    }
+    int savedLayerCount = snapshot.getInt(offset);
+    int capacity = snapshot.getInt(offset + 4);
+    moveCount = snapshot.getInt(offset + 8);
+    if (savedLayerCount > trees.length) {
+      trees = Arrays.copyOf(trees, savedLayerCount);
+      layerCategories = Arrays.copyOf(layerCategories, savedLayerCount);
+    }
+    if (capacity > proxies.length) {
+      grow(capacity - 1);
+    } else if (capacity < proxies.length) {
+      Arrays.fill(proxies, capacity, proxies.length, DynamicAabbTree.NULL_NODE);
+    }
+    if (moveCount > moveBuffer.length) {
+      moveBuffer = new int[Math.max(moveCount, moveBuffer.length * 2)];
+    }
+    offset = snapshot.getInts(offset + 12, layerCategories, 0, savedLayerCount);
+    for (int layer = 0; layer < savedLayerCount; layer++) {
+      if (trees[layer] == null) {
+        trees[layer] = new DynamicAabbTree();
+      }
+      offset = trees[layer].restore(snapshot, offset);
+    }
+    // The layers created since the snapshot are dropped with their proxies
+    Arrays.fill(trees, savedLayerCount, layerCount, null);
+    layerCount = savedLayerCount;
+    offset = snapshot.getInts(offset, proxies, 0, capacity);
+    offset = snapshot.getInts(offset, layers, 0, capacity);
+    offset = snapshot.getInts(offset, masks, 0, capacity);
+    offset = snapshot.getInts(offset, groups, 0, capacity);
+    offset = snapshot.getInts(offset, moveBuffer, 0, moveCount);
+    for (int i = 0; i < moveCount; i++) {
+      moved[moveBuffer[i]] = true;
+    }
+    return offset;
+  }
+
+  /**
+   * Marks the proxy of a body as reinserted, so it looks for new pairs at the next search
+   *
+   * @param id the stable id of the body
+   */
+  private void markMoved(int id) {
+    if (moved[id]) {
+      return;
+    }
+    if (moveCount == moveBuffer.length) {
+      moveBuffer = Arrays.copyOf(moveBuffer, moveCount * 2);
+    }
+    moveBuffer[moveCount++] = id;
+    moved[id] = true;
+  }
+
+  /**
+   * Grows the arrays indexed by stable ids to hold an id
+   *
+   * @param id the id to hold
+   */
+  private void grow(int id) {
+    int capacity = Math.max(id + 1, proxies.length * 2);
+    int oldCapacity = proxies.length;
+    proxies = Arrays.copyOf(proxies, capacity);
+    Arrays.fill(proxies, oldCapacity, capacity, DynamicAabbTree.NULL_NODE);
+    indices = Arrays.copyOf(indices, capacity);
+    layers = Arrays.copyOf(layers, capacity);
+    masks = Arrays.copyOf(masks, capacity);
+    groups = Arrays.copyOf(groups, capacity);
+    moved = Arrays.copyOf(moved, capacity);
+    staticSlots = Arrays.copyOf(staticSlots, capacity);
+    Arrays.fill(staticSlots, oldCapacity, capacity, -1);
+  }
+
+  /**
+   * Returns the index of a body in the bodies of the tick
+   *
+   * @param id the stable id of the body
+   * @return the index of the body in the bodies of the tick
+   */
+  int getIndex(int id) {
+    return indices[id];
+  }
+
+  /**
+   * Sets the index of a body in the bodies of the tick, for the static bodies packed on demand
+   *
+   * @param id the stable id of the body
+   * @param index the index of the body in the bodies of the tick
+   */
+  void setIndex(int id, int index) {
+    indices[id] = index;
+  }
+
+  /**
+   * Returns whether a body is static
+   *
+   * @param id the stable id of the body
+   * @return true if the body is static, false otherwise
+   */
+  boolean isStatic(int id) {
+    return id < staticSlots.length && staticSlots[id] >= 0;
+  }
+
+  /**
+   * Returns the hierarchy of the static bodies, as of the last tick
+   *
+   * @return the hierarchy of the static bodies
+   */
+  StaticBvh getStaticTree() {
+    return staticTree;
+  }
+
+  /**
+   * Returns the number of static bodies
+   *
+   * @return the number of static bodies
+   */
+  int getStaticCount() {
+    return staticCount;
+  }
+
+  /**
+   * Returns the number of new pairs with a static body found at the last tick
+   *
+   * @return the number of new pairs with a static body found at the last tick
+   */
+  int getStaticPairCount() {
+    return staticPairCount;
+  }
+
+  /**
+   * Returns the body of a new pair with a static body
+   *
+   * @param pair the index of the pair
+   * @return the index of the body in the bodies of the tick
+   */
+  int getStaticPairBody(int pair) {
+    return staticPairs[pair * 2];
+  }
+
+  /**
+   * Returns the static body of a new pair with a static body
+   *
+   * @param pair the index of the pair
+   * @return the stable id of the static body
+   */
+  int getStaticPairId(int pair) {
+    return staticPairs[pair * 2 + 1];
+  }
+
+  /**
+   * Returns the number of layers
+   *
+   * @return the number of layers
+   */
+  int getLayerCount() {
+    return layerCount;
+  }
+
+  /**
+   * Returns the tree of a layer
+   *
+   * @param layer the index of the layer, the first one being the one of {@link
+   *     CollisionFilter#DEFAULT_CATEGORY}
+   * @return the tree holding the fattened boxes of the bodies of the layer
+   */
+  DynamicAabbTree getTree(int layer) {
+    return trees[layer];
+  }
+
+  /**
+   * Returns the category bits of the bodies of a layer
+   *
+   * @param layer the index of the layer
+   * @return the category bits of the bodies of the layer
+   */
+  int getLayerCategory(int layer) {
+    return layerCategories[layer];
+  }
+
+  /**
+   * Returns the index of the body owning a proxy of a layer
+   *
+   * @param layer the index of the layer
+   * @param proxy the proxy
+   * @return the index of the body owning the proxy in the bodies of the tick
+   */
+  int getIndex(int layer, int proxy) {
+    return indices[trees[layer].getUserData(proxy)];
+  }
+
+  /**
+   * Returns the number of new pairs found at the last tick
+   *
+   * @return the number of new pairs found at the last tick
+   */
+  int getPairCount() {
+    return pairCount;
+  }
+
+  /**
+   * Returns the body with the lowest id of a new pair
+   *
+   * @param pair the index of the pair
+   * @return the index of the body in the bodies of the tick
+   */
+  int getFirst(int pair) {
+    return pairs[pair * 2];
+  }
+
+  /**
+   * Returns the body with the highest id of a new pair
+   *
+   * @param pair the index of the pair
+   * @return the index of the body in the bodies of the tick
+   */
+  int getSecond(int pair) {
+    return pairs[pair * 2 + 1];
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.physics2j;
+
+/**
+ * The rules deciding whether two bodies can collide, from the filter of each {@link
+ * PhysicsComponent}. A filter is made of 32 category bits telling what a body is, 32 mask bits
+ * telling what it can collide with, and a group. Two bodies of the same positive group always
+ * collide, two bodies of the same negative group never do, otherwise each one must be in a category
+ * the other accepts. Filtered pairs are rejected by the broad phase, before any contact is
+ * computed, and bodies are kept in one tree per category so whole layers the querying body does not
+ * accept are never searched
+ */
+public final class CollisionFilter {
+
+  /** The category of a body that has not been given one */
+  public static final int DEFAULT_CATEGORY = 1;
+  /** The mask accepting every category */
+  public static final int ALL = 0xFFFFFFFF;
+  /** The group of a body that is not part of any */
+  public static final int NO_GROUP = 0;
+
+  /** Not instantiable */
+  private CollisionFilter() {}
+
+  /**
+   * Tests whether two bodies can collide
+   *
+   * @param categoryA the category bits of the first body
+   * @param maskA the mask bits of the first body
+   * @param groupA the group of the first body
+   * @param categoryB the category bits of the second body
+   * @param maskB the mask bits of the second body
+   * @param groupB the group of the second body
+   * @return true if the bodies can collide, false otherwise
+   */
+  public static boolean shouldCollide(
+      int categoryA, int maskA, int groupA, int categoryB, int maskB, int groupB) {
+    if (groupA == groupB && groupA != NO_GROUP) {
+      return groupA > 0;
+    }
+    return (categoryA & maskB) != 0 && (categoryB & maskA) != 0;
+  }
+
+  /**
+   * Tests whether two bodies can collide
+   *
+   * @param a the physical properties of the first body
+   * @param b the physical properties of the second body
+   * @return true if the bodies can collide, false otherwise
+   */
+  public static boolean shouldCollide(PhysicsComponent a, PhysicsComponent b) {
+    return shouldCollide(
+        a.getCategoryBits(),
+        a.getMaskBits(),
+        a.getGroup(),
+        b.getCategoryBits(),
+        b.getMaskBits(),
+        b.getGroup());
+  }
+
+  /**
+   * Tests whether a body may collide with any body of a category, without knowing their groups
+   *
+   * @param mask the mask bits of the body
+   * @param group the group of the body
+   * @param category the category bits
+   * @return false if no body of the category can collide with the body, true otherwise
+   */
+  static boolean mayCollide(int mask, int group, int category) {
+    // A positive group overrides the masks, so every category must be searched
+    return group > 0 || (category & mask) != 0;
+  }
+}
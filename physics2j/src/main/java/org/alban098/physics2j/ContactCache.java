@@ -0,0 +1,473 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.physics2j;
+
+import java.util.Arrays;
+import org.joml.Vector2f;
+
+/**
+ * The pairs of bodies found by the broad phase, kept across ticks in slots indexed by the packed
+ * ids of their bodies. Each slot holds the contact points of the pair at the last tick, with their
+ * impulses so the solver can be warm started, and whether the pair was touching, so contacts are
+ * reported once when they begin and once when they end instead of at every tick. A pair is kept
+ * while it is refreshed at every tick, that is while the fattened boxes of its bodies overlap, and
+ * its slot is recycled at the first tick it is not.
+ *
+ * <p>Events are buffered while updating and dispatched as a batch, once the solver is done with the
+ * tick
+ */
+final class ContactCache {
+
+  /** The maximum number of contact points of a pair */
+  static final int MAX_POINTS = 2;
+
+  /** The initial number of pairs the cache can hold */
+  private static final int INITIAL_CAPACITY = 256;
+  /** The type of event of a pair starting to touch */
+  private static final int BEGIN = 0;
+  /** The type of event of a pair stopping to touch */
+  private static final int END = 1;
+  /** The flag of a used slot, in a snapshot */
+  private static final int USED = 1;
+  /** The flag of a slot whose bodies are touching, in a snapshot */
+  private static final int TOUCHING = 2;
+
+  /** The slot of each pair, indexed by the packed ids of its bodies */
+  private final LongIntHashMap slots = new LongIntHashMap(INITIAL_CAPACITY);
+  /** The packed ids of the bodies of each slot */
+  private long[] keys = new long[INITIAL_CAPACITY];
+  /** The first body of each slot, null if the slot is free */
+  private Physical[] first = new Physical[INITIAL_CAPACITY];
+  /** The second body of each slot */
+  private Physical[] second = new Physical[INITIAL_CAPACITY];
+  /** The last tick at which each pair has been found or refreshed */
+  private long[] lastSeen = new long[INITIAL_CAPACITY];
+  /** The last tick at which each pair had contact points */
+  private long[] lastTouched = new long[INITIAL_CAPACITY];
+  /** Was each pair touching at the end of the last update */
+  private boolean[] touching = new boolean[INITIAL_CAPACITY];
+  /** The number of contact points of each pair at the last tick */
+  private int[] pointCount = new int[INITIAL_CAPACITY];
+  /** The features of the contact points, {@link #MAX_POINTS} per slot */
+  private int[] features = new int[INITIAL_CAPACITY * MAX_POINTS];
+  /** The normal impulses of the contact points, {@link #MAX_POINTS} per slot */
+  private float[] normalImpulses = new float[INITIAL_CAPACITY * MAX_POINTS];
+  /** The tangent impulses of the contact points, {@link #MAX_POINTS} per slot */
+  private float[] tangentImpulses = new float[INITIAL_CAPACITY * MAX_POINTS];
+  /** The x coordinates of the first contact point of each pair */
+  private float[] pointX = new float[INITIAL_CAPACITY];
+  /** The y coordinates of the first contact point of each pair */
+  private float[] pointY = new float[INITIAL_CAPACITY];
+  /** The slots freed by stale pairs, reused before new ones */
+  private int[] freeSlots = new int[INITIAL_CAPACITY];
+  /** The flags of each slot, packed before being copied to or from a snapshot */
+  private byte[] flags = new byte[INITIAL_CAPACITY];
+  /** The number of free slots */
+  private int freeCount = 0;
+  /** The number of slots ever used */
+  private int slotCount = 0;
+  /** The current tick */
+  private long tick = 0;
+
+  /** The type of each buffered event */
+  private int[] eventTypes = new int[INITIAL_CAPACITY];
+  /** The first body of each buffered event */
+  private Physical[] eventFirst = new Physical[INITIAL_CAPACITY];
+  /** The second body of each buffered event */
+  private Physical[] eventSecond = new Physical[INITIAL_CAPACITY];
+  /** The x coordinates of the contact points of the buffered events */
+  private float[] eventX = new float[INITIAL_CAPACITY];
+  /** The y coordinates of the contact points of the buffered events */
+  private float[] eventY = new float[INITIAL_CAPACITY];
+  /** The number of buffered events */
+  private int eventCount = 0;
+  /** The contact point passed to the collision callbacks, only valid during the call */
+  private final Vector2f contactPoint = new Vector2f();
+
+  /** The number of pairs that have started touching at the last update */
+  private int beginCount = 0;
+  /** The number of pairs that have kept touching at the last update */
+  private int persistCount = 0;
+  /** The number of pairs that have stopped touching at the last update */
+  private int endCount = 0;
+
+  /**
+   * Packs the stable ids of two bodies into the key of their pair
+   *
+   * @param idA the id of the first body
+   * @param idB the id of the second body
+   * @return the key of the pair
+   */
+  static long pairKey(int idA, int idB) {
+    return ((long) idA << 32) | (idB & 0xFFFFFFFFL);
+  }
+
+  /**
+   * Returns the slot of a pair found by the broad phase at this tick, creating it if needed
+   *
+   * @param key the packed ids of the bodies
+   * @param a the first body
+   * @param b the second body
+   * @return the slot of the pair
+   */
+  int acquire(long key, Physical a, Physical b) {
+    int slot = slots.get(key);
+    if (slot == LongIntHashMap.NO_VALUE) {
+      slot = freeCount > 0 ? freeSlots[--freeCount] : newSlot();
+      slots.put(key, slot);
+      keys[slot] = key;
+      first[slot] = a;
+      second[slot] = b;
+      touching[slot] = false;
+      pointCount[slot] = 0;
+      lastTouched[slot] = -1;
+    }
+    lastSeen[slot] = tick;
+    return slot;
+  }
+
+  /**
+   * Keeps a pair for this tick, its bodies being still close enough to touch
+   *
+   * @param slot the slot of the pair
+   */
+  void refresh(int slot) {
+    lastSeen[slot] = tick;
+  }
+
+  /**
+   * Returns the index of a contact point of the last tick, by its feature
+   *
+   * @param slot the slot of the pair
+   * @param feature the feature identifying the contact point within the pair
+   * @return the index of the contact point, -1 if the pair had no such point
+   */
+  int findPoint(int slot, int feature) {
+    for (int i = 0; i < pointCount[slot]; i++) {
+      if (features[slot * MAX_POINTS + i] == feature) {
+        return slot * MAX_POINTS + i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the normal impulse of a contact point of the last tick
+   *
+   * @param point the index of the contact point
+   * @return the normal impulse of the contact point
+   */
+  float getNormalImpulse(int point) {
+    return normalImpulses[point];
+  }
+
+  /**
+   * Returns the tangent impulse of a contact point of the last tick
+   *
+   * @param point the index of the contact point
+   * @return the tangent impulse of the contact point
+   */
+  float getTangentImpulse(int point) {
+    return tangentImpulses[point];
+  }
+
+  /**
+   * Stores a solved contact point of this tick, marking its pair as touching. Points of a pair must
+   * be stored in order, starting from 0
+   *
+   * @param slot the slot of the pair
+   * @param index the index of the point within the pair
+   * @param feature the feature identifying the contact point within the pair
+   * @param normalImpulse the accumulated normal impulse
+   * @param tangentImpulse the accumulated tangent impulse
+   * @param x the x coordinate of the contact point
+   * @param y the y coordinate of the contact point
+   */
+  void store(
+      int slot,
+      int index,
+      int feature,
+      float normalImpulse,
+      float tangentImpulse,
+      float x,
+      float y) {
+    int point = slot * MAX_POINTS + index;
+    features[point] = feature;
+    normalImpulses[point] = normalImpulse;
+    tangentImpulses[point] = tangentImpulse;
+    pointCount[slot] = index + 1;
+    if (index == 0) {
+      pointX[slot] = x;
+      pointY[slot] = y;
+    }
+    lastTouched[slot] = tick;
+  }
+
+  /**
+   * Compares the state of every pair to the previous tick, buffering the resulting events, then
+   * recycles the pairs that have not been refreshed and advances to the next tick
+   */
+  void update() {
+    beginCount = 0;
+    persistCount = 0;
+    endCount = 0;
+    for (int slot = 0; slot < slotCount; slot++) {
+      if (first[slot] == null) {
+        continue;
+      }
+      boolean touchingNow = lastTouched[slot] == tick;
+      if (touchingNow && !touching[slot]) {
+        beginCount++;
+        addEvent(BEGIN, slot);
+      } else if (touchingNow) {
+        persistCount++;
+      } else if (touching[slot]) {
+        endCount++;
+        pointCount[slot] = 0;
+        addEvent(END, slot);
+      }
+      touching[slot] = touchingNow;
+      if (lastSeen[slot] != tick) {
+        slots.remove(keys[slot]);
+        first[slot] = null;
+        second[slot] = null;
+        freeSlots[freeCount++] = slot;
+      }
+    }
+    tick++;
+  }
+
+  /** Dispatches the buffered events to the bodies, then empties the buffer */
+  void dispatch() {
+    for (int i = 0; i < eventCount; i++) {
+      Physical a = eventFirst[i];
+      Physical b = eventSecond[i];
+      if (eventTypes[i] == BEGIN) {
+        contactPoint.set(eventX[i], eventY[i]);
+        a.collisionCallback(b, contactPoint);
+        b.collisionCallback(a, contactPoint);
+      } else {
+        a.separationCallback(b);
+        b.separationCallback(a);
+      }
+      // Do not keep the bodies alive through the buffer
+      eventFirst[i] = null;
+      eventSecond[i] = null;
+    }
+    eventCount = 0;
+  }
+
+  /**
+   * Buffers an event of a pair
+   *
+   * @param type the type of the event
+   * @param slot the slot of the pair
+   */
+  private void addEvent(int type, int slot) {
+    if (eventCount == eventTypes.length) {
+      int capacity = eventCount * 2;
+      eventTypes = Arrays.copyOf(eventTypes, capacity);
+      eventFirst = Arrays.copyOf(eventFirst, capacity);
+      eventSecond = Arrays.copyOf(eventSecond, capacity);
+      eventX = Arrays.copyOf(eventX, capacity);
+      eventY = Arrays.copyOf(eventY, capacity);
+    }
+    eventTypes[eventCount] = type;
+    eventFirst[eventCount] = first[slot];
+    eventSecond[eventCount] = second[slot];
+    eventX[eventCount] = pointX[slot];
+    eventY[eventCount] = pointY[slot];
+    eventCount++;
+  }
+
+  /**
+   * Returns a slot never used before, growing the arrays if needed
+   *
+   * @return the new slot
+   */
+  private int newSlot() {
+    if (slotCount == keys.length) {
+      grow(slotCount * 2);
+    }
+    return slotCount++;
+  }
+
+  /**
+   * Grows the arrays of the slots
+   *
+   * @param capacity the new number of slots
+   */
+  private void grow(int capacity) {
+    keys = Arrays.copyOf(keys, capacity);
+    first = Arrays.copyOf(first, capacity);
+    second = Arrays.copyOf(second, capacity);
+    lastSeen = Arrays.copyOf(lastSeen, capacity);
+    lastTouched = Arrays.copyOf(lastTouched, capacity);
+    touching = Arrays.copyOf(touching, capacity);
+    pointCount = Arrays.copyOf(pointCount, capacity);
+    features = Arrays.copyOf(features, capacity * MAX_POINTS);
+    normalImpulses = Arrays.copyOf(normalImpulses, capacity * MAX_POINTS);
+    tangentImpulses = Arrays.copyOf(tangentImpulses, capacity * MAX_POINTS);
+    pointX = Arrays.copyOf(pointX, capacity);
+    pointY = Arrays.copyOf(pointY, capacity);
+    freeSlots = Arrays.copyOf(freeSlots, capacity);
+    flags = new byte[capacity];
+  }
+
+  /**
+   * Returns the number of bytes needed to save the pairs into a {@link PhysicsSnapshot}
+   *
+   * @return the number of bytes needed to save the pairs
+   */
+  int getSnapshotSize() {
+    return 2 * Integer.BYTES
+        + slots.getSnapshotSize()
+        + PhysicsSnapshot.arraySize(slotCount, Long.BYTES)
+        + PhysicsSnapshot.arraySize(slotCount, 1)
+        + 4 * PhysicsSnapshot.arraySize(slotCount, Integer.BYTES)
+        + 3 * PhysicsSnapshot.arraySize(slotCount * MAX_POINTS, Integer.BYTES);
+  }
+
+  /**
+   * Saves the slots of the pairs into a snapshot, with the impulses used to warm start the solver.
+   * The slots are saved as they are, so the pairs are solved in the same order once restored
+   *
+   * @param snapshot the snapshot to write into
+   * @param offset the offset to write at
+   * @return the offset following the pairs
+   */
+  int save(PhysicsSnapshot snapshot, int offset) {
+    offset = snapshot.putInt(offset, slotCount);
+    offset = snapshot.putInt(offset, freeCount);
+    offset = slots.save(snapshot, offset);
+    offset = snapshot.putLongs(offset, keys, slotCount);
+    for (int slot = 0; slot < slotCount; slot++) {
+      flags[slot] = (byte) ((first[slot] == null ? 0 : USED) | (touching[slot] ? TOUCHING : 0));
+    }
+    offset = snapshot.putBytes(offset, flags, slotCount);
+    offset = snapshot.putInts(offset, pointCount, 0, slotCount);
+    offset = snapshot.putInts(offset, features, 0, slotCount * MAX_POINTS);
+    offset = snapshot.putFloats(offset, normalImpulses, slotCount * MAX_POINTS);
+    offset = snapshot.putFloats(offset, tangentImpulses, slotCount * MAX_POINTS);
+    offset = snapshot.putFloats(offset, pointX, slotCount);
+    offset = snapshot.putFloats(offset, pointY, slotCount);
+    return snapshot.putInts(offset, freeSlots, 0, freeCount);
+  }
+
+  /**
+   * Restores the pairs saved by {@link #save(PhysicsSnapshot, int)}, in the same slots
+   *
+   * @param snapshot the snapshot to read from
+   * @param offset the offset to read at
+   * @param physicals the tracked Physicals, indexed by their stable id
+   * @return the offset following the pairs
+   */
+  int restore(PhysicsSnapshot snapshot, int offset, Physical[] physicals) {
+    int oldSlotCount = slotCount;
+    slotCount = snapshot.getInt(offset);
+    freeCount = snapshot.getInt(offset + 4);
+    if (slotCount > keys.length) {
+      grow(Math.max(slotCount, keys.length * 2));
+    }
+    offset = slots.restore(snapshot, offset + 8);
+    offset = snapshot.getLongs(offset, keys, slotCount);
+    offset = snapshot.getBytes(offset, flags, slotCount);
+    for (int slot = 0; slot < slotCount; slot++) {
+      boolean used = (flags[slot] & USED) != 0;
+      first[slot] = used ? physicals[(int) (keys[slot] >>> 32)] : null;
+      second[slot] = used ? physicals[(int) keys[slot]] : null;
+      touching[slot] = (flags[slot] & TOUCHING) != 0;
+    }
+    if (oldSlotCount > slotCount) {
+      Arrays.fill(first, slotCount, oldSlotCount, null);
+      Arrays.fill(second, slotCount, oldSlotCount, null);
+    }
+    Arrays.fill(lastSeen, 0, slotCount, -1);
+    Arrays.fill(lastTouched, 0, slotCount, -1);
+    offset = snapshot.getInts(offset, pointCount, 0, slotCount);
+    offset = snapshot.getInts(offset, features, 0, slotCount * MAX_POINTS);
+    offset = snapshot.getFloats(offset, normalImpulses, slotCount * MAX_POINTS);
+    offset = snapshot.getFloats(offset, tangentImpulses, slotCount * MAX_POINTS);
+    offset = snapshot.getFloats(offset, pointX, slotCount);
+    offset = snapshot.getFloats(offset, pointY, slotCount);
+    return snapshot.getInts(offset, freeSlots, 0, freeCount);
+  }
+
+  /**
+   * Returns the number of slots ever used, some of them may be free
+   *
+   * @return the number of slots ever used
+   */
+  int getSlotCount() {
+    return slotCount;
+  }
+
+  /**
+   * Returns whether a slot currently holds a pair
+   *
+   * @param slot the slot
+   * @return true if the slot holds a pair, false if it is free
+   */
+  boolean isUsed(int slot) {
+    return first[slot] != null;
+  }
+
+  /**
+   * Returns the stable id of the first body of a pair
+   *
+   * @param slot the slot of the pair
+   * @return the stable id of the body with the lowest id
+   */
+  int getFirstId(int slot) {
+    return (int) (keys[slot] >>> 32);
+  }
+
+  /**
+   * Returns the stable id of the second body of a pair
+   *
+   * @param slot the slot of the pair
+   * @return the stable id of the body with the highest id
+   */
+  int getSecondId(int slot) {
+    return (int) keys[slot];
+  }
+
+  /**
+   * Returns the number of pairs in the cache, touching or not
+   *
+   * @return the number of pairs in the cache
+   */
+  int getPairCount() {
+    return slots.size();
+  }
+
+  /**
+   * Returns the number of pairs that have started touching at the last update
+   *
+   * @return the number of pairs that have started touching
+   */
+  int getBeginCount() {
+    return beginCount;
+  }
+
+  /**
+   * Returns the number of pairs that have kept touching at the last update
+   *
+   * @return the number of pairs that have kept touching
+   */
+  int getPersistCount() {
+    return persistCount;
+  }
+
+  /**
+   * Returns the number of pairs that have stopped touching at the last update
+   *
+   * @return the number of pairs that have stopped touching
+   */
+  int getEndCount() {
+    return endCount;
+  }
+}
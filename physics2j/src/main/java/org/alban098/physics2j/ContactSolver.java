@@ -0,0 +1,437 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.physics2j;
+
+import java.util.Arrays;
+
+/**
+ * A sequential impulse contact solver. Every contact point is a non-penetration constraint along
+ * the normal, with a friction constraint along the tangent bounded by the normal impulse. The
+ * velocity iterations solve every constraint in turn until the impulses converge, restitution being
+ * applied as a velocity bias, then positions are integrated and the remaining penetration is
+ * removed by the position iterations, acting on positions directly so no energy is added.
+ *
+ * <p>The impulses of each contact point are kept in the {@link ContactCache} at the end of the
+ * tick, and applied again at the start of the next one if the same pair touches through the same
+ * features. Resting contacts then start from their converged state, which lets stacks settle in a
+ * few iterations instead of jittering.
+ *
+ * <p>Everything is stored in primitive arrays that only grow, so solving a contact never allocates
+ */
+public final class ContactSolver {
+
+  /** The default number of velocity iterations */
+  public static final int DEFAULT_VELOCITY_ITERATIONS = 8;
+  /** The default number of position iterations */
+  public static final int DEFAULT_POSITION_ITERATIONS = 3;
+
+  /** The initial number of contact points the solver can hold */
+  private static final int INITIAL_CAPACITY = 128;
+  /** The penetration allowed before correcting positions, keeping resting contacts alive */
+  private static final float LINEAR_SLOP = 0.005f;
+  /** The largest correction applied to a contact point in a single position iteration */
+  private static final float MAX_LINEAR_CORRECTION = 0.2f;
+  /** The fraction of the penetration removed by each position iteration */
+  private static final float BAUMGARTE = 0.2f;
+  /** The closing velocity, per tick, under which contacts do not bounce */
+  private static final float RESTITUTION_THRESHOLD = 0.02f;
+
+  /** The number of velocity iterations */
+  private int velocityIterations = DEFAULT_VELOCITY_ITERATIONS;
+  /** The number of position iterations */
+  private int positionIterations = DEFAULT_POSITION_ITERATIONS;
+  /** Should the impulses of the previous tick be applied before iterating */
+  private boolean warmStarting = true;
+
+  /** The index of the first body of each contact point */
+  private int[] bodyA = new int[INITIAL_CAPACITY];
+  /** The index of the second body of each contact point */
+  private int[] bodyB = new int[INITIAL_CAPACITY];
+  /** The slot in the cache of the pair of each contact point */
+  private int[] pairSlot = new int[INITIAL_CAPACITY];
+  /** The index of each contact point within its pair */
+  private int[] pairPoint = new int[INITIAL_CAPACITY];
+  /** The features identifying each contact point within its pair */
+  private int[] feature = new int[INITIAL_CAPACITY];
+  /** The x components of the normals, pointing from the first body to the second one */
+  private float[] normalX = new float[INITIAL_CAPACITY];
+  /** The y components of the normals, pointing from the first body to the second one */
+  private float[] normalY = new float[INITIAL_CAPACITY];
+  /** The x components of the offsets from the center of the first body to the contact point */
+  private float[] rAx = new float[INITIAL_CAPACITY];
+  /** The y components of the offsets from the center of the first body to the contact point */
+  private float[] rAy = new float[INITIAL_CAPACITY];
+  /** The x components of the offsets from the center of the second body to the contact point */
+  private float[] rBx = new float[INITIAL_CAPACITY];
+  /** The y components of the offsets from the center of the second body to the contact point */
+  private float[] rBy = new float[INITIAL_CAPACITY];
+  /** The separations at detection, negative when penetrating */
+  private float[] separation = new float[INITIAL_CAPACITY];
+  /** The effective masses along the normals */
+  private float[] normalMass = new float[INITIAL_CAPACITY];
+  /** The effective masses along the tangents */
+  private float[] tangentMass = new float[INITIAL_CAPACITY];
+  /** The velocities to reach along the normals, for restitution */
+  private float[] velocityBias = new float[INITIAL_CAPACITY];
+  /** The combined coefficients of friction */
+  private float[] friction = new float[INITIAL_CAPACITY];
+  /** The accumulated impulses along the normals */
+  private float[] normalImpulse = new float[INITIAL_CAPACITY];
+  /** The accumulated impulses along the tangents */
+  private float[] tangentImpulse = new float[INITIAL_CAPACITY];
+  /** The number of contact points of the tick */
+  private int count = 0;
+
+  /** The positions and rotations of the bodies when the contacts were detected, interleaved */
+  private float[] origin = new float[INITIAL_CAPACITY * 3];
+
+  /** The number of contact points of the tick that have been warm started */
+  private int warmStartedCount = 0;
+
+  /**
+   * Sets the number of velocity iterations, more iterations converge closer to the exact impulses
+   *
+   * @param velocityIterations the number of velocity iterations
+   */
+  public void setVelocityIterations(int velocityIterations) {
+    if (velocityIterations < 1) {
+      throw new IllegalArgumentException("At least one velocity iteration is required");
+    }
+    this.velocityIterations = velocityIterations;
+  }
+
+  /**
+   * Sets the number of position iterations, 0 leaving penetrations uncorrected
+   *
+   * @param positionIterations the number of position iterations
+   */
+  public void setPositionIterations(int positionIterations) {
+    if (positionIterations < 0) {
+      throw new IllegalArgumentException("The number of position iterations can not be negative");
+    }
+    this.positionIterations = positionIterations;
+  }
+
+  /**
+   * Enables or disables warm starting from the impulses of the previous tick
+   *
+   * @param warmStarting should the solver be warm started
+   */
+  public void setWarmStarting(boolean warmStarting) {
+    this.warmStarting = warmStarting;
+  }
+
+  /** Removes every contact point before detecting the contacts of a new tick */
+  void clear() {
+    count = 0;
+  }
+
+  /**
+   * Adds a contact point between two bodies, the anchors being the closest points of each body,
+   * which coincide when the bodies are just touching
+   *
+   * @param bodies the bodies of the tick
+   * @param slot the slot in the cache of the pair of bodies
+   * @param a the index of the first body
+   * @param b the index of the second body
+   * @param nx the x component of the normal, pointing from the first body to the second one
+   * @param ny the y component of the normal, pointing from the first body to the second one
+   * @param anchorAx the x coordinate of the anchor on the first body
+   * @param anchorAy the y coordinate of the anchor on the first body
+   * @param anchorBx the x coordinate of the anchor on the second body
+   * @param anchorBy the y coordinate of the anchor on the second body
+   * @param pointSeparation the separation along the normal, negative when penetrating
+   * @param pointFeature the feature identifying the contact point within the pair
+   */
+  void addContact(
+      BodyBuffer bodies,
+      int slot,
+      int a,
+      int b,
+      float nx,
+      float ny,
+      float anchorAx,
+      float anchorAy,
+      float anchorBx,
+      float anchorBy,
+      float pointSeparation,
+      int pointFeature) {
+    if (count == bodyA.length) {
+      grow();
+    }
+    bodyA[count] = a;
+    bodyB[count] = b;
+    pairSlot[count] = slot;
+    pairPoint[count] = count > 0 && pairSlot[count - 1] == slot ? pairPoint[count - 1] + 1 : 0;
+    feature[count] = pointFeature;
+    normalX[count] = nx;
+    normalY[count] = ny;
+    rAx[count] = anchorAx - bodies.x[a];
+    rAy[count] = anchorAy - bodies.y[a];
+    rBx[count] = anchorBx - bodies.x[b];
+    rBy[count] = anchorBy - bodies.y[b];
+    separation[count] = pointSeparation;
+    friction[count] = (float) Math.sqrt(bodies.friction[a] * bodies.friction[b]);
+    count++;
+  }
+
+  /**
+   * Solves every contact point of the tick, then integrates the positions of the bodies
+   *
+   * @param bodies the bodies of the tick, updated in place
+   * @param cache the cache to warm start from, and to store the solved contact points into
+   */
+  void solve(BodyBuffer bodies, ContactCache cache) {
+    preStep(bodies, cache);
+    for (int i = 0; i < velocityIterations; i++) {
+      solveVelocities(bodies);
+    }
+    for (int i = 0; i < bodies.size(); i++) {
+      bodies.x[i] += bodies.vx[i];
+      bodies.y[i] += bodies.vy[i];
+      bodies.angle[i] += bodies.w[i];
+    }
+    for (int i = 0; i < positionIterations; i++) {
+      if (solvePositions(bodies)) {
+        break;
+      }
+    }
+    for (int i = 0; i < count; i++) {
+      // The contact point is reported on the second body, as detected
+      int b = bodyB[i];
+      cache.store(
+          pairSlot[i],
+          pairPoint[i],
+          feature[i],
+          normalImpulse[i],
+          tangentImpulse[i],
+          origin[b * 3] + rBx[i],
+          origin[b * 3 + 1] + rBy[i]);
+    }
+  }
+
+  /**
+   * Computes the effective masses and restitution biases, then applies the impulses kept from the
+   * previous tick
+   *
+   * @param bodies the bodies of the tick
+   * @param cache the cache holding the contact points of the previous tick
+   */
+  private void preStep(BodyBuffer bodies, ContactCache cache) {
+    if (origin.length < bodies.size() * 3) {
+      origin = new float[bodies.ids.length * 3];
+    }
+    for (int i = 0; i < bodies.size(); i++) {
+      origin[i * 3] = bodies.x[i];
+      origin[i * 3 + 1] = bodies.y[i];
+      origin[i * 3 + 2] = bodies.angle[i];
+    }
+    warmStartedCount = 0;
+    for (int i = 0; i < count; i++) {
+      int a = bodyA[i];
+      int b = bodyB[i];
+      float mA = bodies.invMass[a];
+      float iA = bodies.invInertia[a];
+      float mB = bodies.invMass[b];
+      float iB = bodies.invInertia[b];
+      float nx = normalX[i];
+      float ny = normalY[i];
+
+      float rnA = rAx[i] * ny - rAy[i] * nx;
+      float rnB = rBx[i] * ny - rBy[i] * nx;
+      float kNormal = mA + mB + iA * rnA * rnA + iB * rnB * rnB;
+      normalMass[i] = kNormal > 0 ? 1 / kNormal : 0;
+
+      // The tangent is the normal rotated by -90°
+      float rtA = rAx[i] * -nx - rAy[i] * ny;
+      float rtB = rBx[i] * -nx - rBy[i] * ny;
+      float kTangent = mA + mB + iA * rtA * rtA + iB * rtB * rtB;
+      tangentMass[i] = kTangent > 0 ? 1 / kTangent : 0;
+
+      float dvx = bodies.vx[b] - bodies.w[b] * rBy[i] - bodies.vx[a] + bodies.w[a] * rAy[i];
+      float dvy = bodies.vy[b] + bodies.w[b] * rBx[i] - bodies.vy[a] - bodies.w[a] * rAx[i];
+      float closingVelocity = dvx * nx + dvy * ny;
+      float restitution = Math.max(bodies.restitution[a], bodies.restitution[b]);
+      velocityBias[i] =
+          closingVelocity < -RESTITUTION_THRESHOLD ? -restitution * closingVelocity : 0;
+
+      int cached = warmStarting ? cache.findPoint(pairSlot[i], feature[i]) : -1;
+      normalImpulse[i] = cached < 0 ? 0 : cache.getNormalImpulse(cached);
+      tangentImpulse[i] = cached < 0 ? 0 : cache.getTangentImpulse(cached);
+      if (cached >= 0) {
+        warmStartedCount++;
+        float px = normalImpulse[i] * nx + tangentImpulse[i] * ny;
+        float py = normalImpulse[i] * ny - tangentImpulse[i] * nx;
+        applyImpulse(bodies, i, px, py);
+      }
+    }
+  }
+
+  /**
+   * Runs a velocity iteration, solving the friction then the non-penetration of every contact
+   *
+   * @param bodies the bodies of the tick
+   */
+  private void solveVelocities(BodyBuffer bodies) {
+    for (int i = 0; i < count; i++) {
+      int a = bodyA[i];
+      int b = bodyB[i];
+      float nx = normalX[i];
+      float ny = normalY[i];
+      float tx = ny;
+      float ty = -nx;
+
+      // Friction, bounded by the current normal impulse
+      float dvx = bodies.vx[b] - bodies.w[b] * rBy[i] - bodies.vx[a] + bodies.w[a] * rAy[i];
+      float dvy = bodies.vy[b] + bodies.w[b] * rBx[i] - bodies.vy[a] - bodies.w[a] * rAx[i];
+      float lambda = -tangentMass[i] * (dvx * tx + dvy * ty);
+      float maxFriction = friction[i] * normalImpulse[i];
+      float accumulated = Math.max(-maxFriction, Math.min(maxFriction, tangentImpulse[i] + lambda));
+      lambda = accumulated - tangentImpulse[i];
+      tangentImpulse[i] = accumulated;
+      applyImpulse(bodies, i, lambda * tx, lambda * ty);
+
+      // Non-penetration, the bodies can only be pushed apart
+      dvx = bodies.vx[b] - bodies.w[b] * rBy[i] - bodies.vx[a] + bodies.w[a] * rAy[i];
+      dvy = bodies.vy[b] + bodies.w[b] * rBx[i] - bodies.vy[a] - bodies.w[a] * rAx[i];
+      lambda = -normalMass[i] * (dvx * nx + dvy * ny - velocityBias[i]);
+      accumulated = Math.max(0, normalImpulse[i] + lambda);
+      lambda = accumulated - normalImpulse[i];
+      normalImpulse[i] = accumulated;
+      applyImpulse(bodies, i, lambda * nx, lambda * ny);
+    }
+  }
+
+  /**
+   * Runs a position iteration, pushing penetrating bodies apart. The separation of each contact
+   * point is linearized around the state at detection, so no trigonometry is evaluated
+   *
+   * @param bodies the bodies of the tick
+   * @return true if every penetration is within tolerance, false otherwise
+   */
+  private boolean solvePositions(BodyBuffer bodies) {
+    float minSeparation = 0;
+    for (int i = 0; i < count; i++) {
+      int a = bodyA[i];
+      int b = bodyB[i];
+      float nx = normalX[i];
+      float ny = normalY[i];
+      float dxA = bodies.x[a] - origin[a * 3];
+      float dyA = bodies.y[a] - origin[a * 3 + 1];
+      float daA = bodies.angle[a] - origin[a * 3 + 2];
+      float dxB = bodies.x[b] - origin[b * 3];
+      float dyB = bodies.y[b] - origin[b * 3 + 1];
+      float daB = bodies.angle[b] - origin[b * 3 + 2];
+      float moveX = dxB - daB * rBy[i] - dxA + daA * rAy[i];
+      float moveY = dyB + daB * rBx[i] - dyA - daA * rAx[i];
+      float currentSeparation = separation[i] + moveX * nx + moveY * ny;
+      minSeparation = Math.min(minSeparation, currentSeparation);
+
+      float correction =
+          Math.max(
+              -MAX_LINEAR_CORRECTION, Math.min(0, BAUMGARTE * (currentSeparation + LINEAR_SLOP)));
+      float impulse = -normalMass[i] * correction;
+      float px = impulse * nx;
+      float py = impulse * ny;
+      bodies.x[a] -= bodies.invMass[a] * px;
+      bodies.y[a] -= bodies.invMass[a] * py;
+      bodies.angle[a] -= bodies.invInertia[a] * (rAx[i] * py - rAy[i] * px);
+      bodies.x[b] += bodies.invMass[b] * px;
+      bodies.y[b] += bodies.invMass[b] * py;
+      bodies.angle[b] += bodies.invInertia[b] * (rBx[i] * py - rBy[i] * px);
+    }
+    return minSeparation >= -3 * LINEAR_SLOP;
+  }
+
+  /**
+   * Applies an impulse at a contact point, pushing the second body along it and the first one
+   * against it
+   *
+   * @param bodies the bodies of the tick
+   * @param contact the index of the contact point
+   * @param px the x component of the impulse
+   * @param py the y component of the impulse
+   */
+  private void applyImpulse(BodyBuffer bodies, int contact, float px, float py) {
+    int a = bodyA[contact];
+    int b = bodyB[contact];
+    bodies.vx[a] -= bodies.invMass[a] * px;
+    bodies.vy[a] -= bodies.invMass[a] * py;
+    bodies.w[a] -= bodies.invInertia[a] * (rAx[contact] * py - rAy[contact] * px);
+    bodies.vx[b] += bodies.invMass[b] * px;
+    bodies.vy[b] += bodies.invMass[b] * py;
+    bodies.w[b] += bodies.invInertia[b] * (rBx[contact] * py - rBy[contact] * px);
+  }
+
+  /** Doubles the capacity of every per contact array */
+  private void grow() {
+    int capacity = bodyA.length * 2;
+    bodyA = Arrays.copyOf(bodyA, capacity);
+    bodyB = Arrays.copyOf(bodyB, capacity);
+    pairSlot = Arrays.copyOf(pairSlot, capacity);
+    pairPoint = Arrays.copyOf(pairPoint, capacity);
+    feature = Arrays.copyOf(feature, capacity);
+    normalX = Arrays.copyOf(normalX, capacity);
+    normalY = Arrays.copyOf(normalY, capacity);
+    rAx = Arrays.copyOf(rAx, capacity);
+    rAy = Arrays.copyOf(rAy, capacity);
+    rBx = Arrays.copyOf(rBx, capacity);
+    rBy = Arrays.copyOf(rBy, capacity);
+    separation = Arrays.copyOf(separation, capacity);
+    normalMass = Arrays.copyOf(normalMass, capacity);
+    tangentMass = Arrays.copyOf(tangentMass, capacity);
+    velocityBias = Arrays.copyOf(velocityBias, capacity);
+    friction = Arrays.copyOf(friction, capacity);
+    normalImpulse = Arrays.copyOf(normalImpulse, capacity);
+    tangentImpulse = Arrays.copyOf(tangentImpulse, capacity);
+  }
+
+  /**
+   * Returns the number of velocity iterations
+   *
+   * @return the number of velocity iterations
+   */
+  public int getVelocityIterations() {
+    return velocityIterations;
+  }
+
+  /**
+   * Returns the number of position iterations
+   *
+   * @return the number of position iterations
+   */
+  public int getPositionIterations() {
+    return positionIterations;
+  }
+
+  /**
+   * Returns whether the solver is warm started from the impulses of the previous tick
+   *
+   * @return true if warm starting is enabled, false otherwise
+   */
+  public boolean isWarmStarting() {
+    return warmStarting;
+  }
+
+  /**
+   * Returns the number of contact points solved at the last tick
+   *
+   * @return the number of contact points solved at the last tick
+   */
+  public int getContactCount() {
+    return count;
+  }
+
+  /**
+   * Returns the number of contact points of the last tick that existed at the previous one and have
+   * been warm started
+   *
+   * @return the number of contact points warm started at the last tick
+   */
+  public int getWarmStartedCount() {
+    return warmStartedCount;
+  }
+}
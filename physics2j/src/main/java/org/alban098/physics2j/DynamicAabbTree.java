@@ -0,0 +1,813 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.physics2j;
+
+import java.util.Arrays;
+
+/**
+ * A bounding volume hierarchy of axis aligned bounding boxes, kept balanced as proxies are
+ * inserted, moved and removed. Each leaf is a proxy holding a fattened box, enlarged by a margin
+ * and by the displacement of its owner, so a proxy is only reinserted once its tight box has left
+ * its fattened one, which rarely happens for bodies moving smoothly. Leaves are inserted next to
+ * the sibling minimizing the perimeter of the tree, and nodes are rotated when the heights of their
+ * children differ by more than one.
+ *
+ * <p>Nodes are stored in primitive arrays and recycled through a free list, so nothing is allocated
+ * except when the pool grows. Each thread has its own traversal stack, so several threads can query
+ * the tree at once as long as it is not modified meanwhile, but a callback must not query the tree
+ * it has been called by
+ */
+public final class DynamicAabbTree {
+
+  /** The index marking the absence of a node */
+  public static final int NULL_NODE = -1;
+
+  /** The default margin added around the boxes of the proxies */
+  private static final float DEFAULT_MARGIN = 0.1f;
+  /** The number of ticks of displacement a fattened box is enlarged by */
+  private static final float DISPLACEMENT_MULTIPLIER = 4f;
+  /** The initial number of nodes the pool can hold */
+  private static final int INITIAL_CAPACITY = 64;
+
+  /** The margin added around the boxes of the proxies */
+  private final float margin;
+  /**
+   * The boxes of the nodes, as lower x, lower y, upper x and upper y bounds, interleaved so a box
+   * is read from a single cache line when traversing the tree
+   */
+  private float[] bounds = new float[INITIAL_CAPACITY * 4];
+  /** The parent of each node, or the next free node for the nodes of the free list */
+  private int[] parent = new int[INITIAL_CAPACITY];
+  /** The first child of each node, {@link #NULL_NODE} for leaves */
+  private int[] child1 = new int[INITIAL_CAPACITY];
+  /** The second child of each node, {@link #NULL_NODE} for leaves */
+  private int[] child2 = new int[INITIAL_CAPACITY];
+  /** The height of each node, 0 for leaves and -1 for free nodes */
+  private int[] height = new int[INITIAL_CAPACITY];
+  /** The user data of each leaf */
+  private int[] userData = new int[INITIAL_CAPACITY];
+  /** The root of the tree */
+  private int root = NULL_NODE;
+  /** The first node of the free list */
+  private int freeList = 0;
+  /** The number of nodes in use */
+  private int nodeCount = 0;
+  /** The number of proxies in the tree */
+  private int proxyCount = 0;
+  /** The traversal stack of the queries of each thread */
+  private final ThreadLocal<int[]> stacks =
+      ThreadLocal.withInitial(() -> new int[INITIAL_CAPACITY]);
+
+  /** Creates a new DynamicAabbTree with the default margin */
+  public DynamicAabbTree() {
+    this(DEFAULT_MARGIN);
+  }
+
+  /**
+   * Creates a new DynamicAabbTree
+   *
+   * @param margin the margin added around the boxes of the proxies, in world units
+   */
+  public DynamicAabbTree(float margin) {
+    if (margin < 0) {
+      throw new IllegalArgumentException("The margin must be positive");
+    }
+    this.margin = margin;
+    linkFreeNodes(0);
+  }
+
+  /**
+   * Creates a proxy for a box, the box is fattened by the margin
+   *
+   * @param minX the lower x bound of the box
+   * @param minY the lower y bound of the box
+   * @param maxX the upper x bound of the box
+   * @param maxY the upper y bound of the box
+   * @param data the user data of the proxy, returned by {@link #getUserData(int)}
+   * @return the proxy
+   */
+  public int createProxy(float minX, float minY, float maxX, float maxY, int data) {
+    int proxy = allocateNode();
+    int box = proxy * 4;
+    bounds[box] = minX - margin;
+    bounds[box + 1] = minY - margin;
+    bounds[box + 2] = maxX + margin;
+    bounds[box + 3] = maxY + margin;
+    userData[proxy] = data;
+    height[proxy] = 0;
+    insertLeaf(proxy);
+    proxyCount++;
+    return proxy;
+  }
+
+  /**
+   * Removes a proxy from the tree
+   *
+   * @param proxy the proxy to remove
+   */
+  public void destroyProxy(int proxy) {
+    if (!isLeaf(proxy)) {
+      throw new IllegalArgumentException("Node " + proxy + " is not a proxy");
+    }
+    removeLeaf(proxy);
+    freeNode(proxy);
+    proxyCount--;
+  }
+
+  /**
+   * Moves a proxy to a new box. The proxy is only reinserted if the box has left its fattened box,
+   * or if the fattened box has become much larger than needed, the new fattened box being enlarged
+   * in the direction of the displacement so the proxy can keep moving without being reinserted
+   *
+   * @param proxy the proxy to move
+   * @param minX the lower x bound of the new box
+   * @param minY the lower y bound of the new box
+   * @param maxX the upper x bound of the new box
+   * @param maxY the upper y bound of the new box
+   * @param dx the displacement of the proxy along the x axis during a tick
+   * @param dy the displacement of the proxy along the y axis during a tick
+   * @return true if the proxy has been reinserted, false otherwise
+   */
+  public boolean moveProxy(
+      int proxy, float minX, float minY, float maxX, float maxY, float dx, float dy) {
+    float fatMinX = minX - margin;
+    float fatMinY = minY - margin;
+    float fatMaxX = maxX + margin;
+    float fatMaxY = maxY + margin;
+    float extendX = DISPLACEMENT_MULTIPLIER * dx;
+    float extendY = DISPLACEMENT_MULTIPLIER * dy;
+    if (extendX < 0) {
+      fatMinX += extendX;
+    } else {
+      fatMaxX += extendX;
+    }
+    if (extendY < 0) {
+      fatMinY += extendY;
+    } else {
+      fatMaxY += extendY;
+    }
+
+    int box = proxy * 4;
+    if (bounds[box] <= minX
+        && bounds[box + 1] <= minY
+        && maxX <= bounds[box + 2]
+        && maxY <= bounds[box + 3]) {
+      // Still inside its fattened box, keep it unless it is way too large for the proxy
+      float huge = 4 * margin;
+      if (fatMinX - huge <= bounds[box]
+          && fatMinY - huge <= bounds[box + 1]
+          && bounds[box + 2] <= fatMaxX + huge
+          && bounds[box + 3] <= fatMaxY + huge) {
+        return false;
+      }
+    }
+
+    removeLeaf(proxy);
+    bounds[box] = fatMinX;
+    bounds[box + 1] = fatMinY;
+    bounds[box + 2] = fatMaxX;
+    bounds[box + 3] = fatMaxY;
+    insertLeaf(proxy);
+    return true;
+  }
+
+  /**
+   * Reports every proxy whose fattened box overlaps a box
+   *
+   * @param minX the lower x bound of the box
+   * @param minY the lower y bound of the box
+   * @param maxX the upper x bound of the box
+   * @param maxY the upper y bound of the box
+   * @param callback the callback to report the proxies to
+   */
+  public void query(float minX, float minY, float maxX, float maxY, QueryCallback callback) {
+    int[] stack = stacks.get();
+    int top = 0;
+    stack[top++] = root;
+    while (top > 0) {
+      int node = stack[--top];
+      if (node == NULL_NODE) {
+        continue;
+      }
+      int box = node * 4;
+      if (bounds[box] <= maxX
+          && minX <= bounds[box + 2]
+          && bounds[box + 1] <= maxY
+          && minY <= bounds[box + 3]) {
+        if (child1[node] == NULL_NODE) {
+          if (!callback.report(node)) {
+            return;
+          }
+        } else {
+          if (top + 2 > stack.length) {
+            stack = Arrays.copyOf(stack, stack.length * 2);
+            stacks.set(stack);
+          }
+          stack[top++] = child1[node];
+          stack[top++] = child2[node];
+        }
+      }
+    }
+  }
+
+  /**
+   * Reports every proxy whose fattened box is crossed by a segment, the callback can clip the
+   * segment to skip the proxies further than the closest hit found so far
+   *
+   * @param x1 the x coordinate of the start of the segment
+   * @param y1 the y coordinate of the start of the segment
+   * @param x2 the x coordinate of the end of the segment
+   * @param y2 the y coordinate of the end of the segment
+   * @param maxFraction the fraction of the segment to cast, from its start
+   * @param callback the callback to report the proxies to
+   */
+  public void raycast(
+      float x1, float y1, float x2, float y2, float maxFraction, RaycastCallback callback) {
+    float rx = x2 - x1;
+    float ry = y2 - y1;
+    float length = (float) Math.sqrt(rx * rx + ry * ry);
+    if (length == 0) {
+      return;
+    }
+    // The normal of the segment, to discard the boxes lying entirely on one of its sides
+    float vx = -ry / length;
+    float vy = rx / length;
+    float absVx = Math.abs(vx);
+    float absVy = Math.abs(vy);
+
+    float endX = x1 + maxFraction * rx;
+    float endY = y1 + maxFraction * ry;
+    float segMinX = Math.min(x1, endX);
+    float segMinY = Math.min(y1, endY);
+    float segMaxX = Math.max(x1, endX);
+    float segMaxY = Math.max(y1, endY);
+
+    int[] stack = stacks.get();
+    int top = 0;
+    stack[top++] = root;
+    while (top > 0) {
+      int node = stack[--top];
+      if (node == NULL_NODE) {
+        continue;
+      }
+      int box = node * 4;
+      if (bounds[box] > segMaxX
+          || segMinX > bounds[box + 2]
+          || bounds[box + 1] > segMaxY
+          || segMinY > bounds[box + 3]) {
+        continue;
+      }
+      float centerX = (bounds[box] + bounds[box + 2]) * 0.5f;
+      float centerY = (bounds[box + 1] + bounds[box + 3]) * 0.5f;
+      float extentX = (bounds[box + 2] - bounds[box]) * 0.5f;
+      float extentY = (bounds[box + 3] - bounds[box + 1]) * 0.5f;
+      float separation =
+          Math.abs(vx * (x1 - centerX) + vy * (y1 - centerY)) - absVx * extentX - absVy * extentY;
+      if (separation > 0) {
+        continue;
+      }
+
+      if (child1[node] == NULL_NODE) {
+        float value = callback.report(node, x1, y1, x2, y2, maxFraction);
+        if (value == 0) {
+          return;
+        }
+        if (value > 0) {
+          maxFraction = value;
+          endX = x1 + maxFraction * rx;
+          endY = y1 + maxFraction * ry;
+          segMinX = Math.min(x1, endX);
+          segMinY = Math.min(y1, endY);
+          segMaxX = Math.max(x1, endX);
+          segMaxY = Math.max(y1, endY);
+        }
+      } else {
+        if (top + 2 > stack.length) {
+          stack = Arrays.copyOf(stack, stack.length * 2);
+          stacks.set(stack);
+        }
+        stack[top++] = child1[node];
+        stack[top++] = child2[node];
+      }
+    }
+  }
+
+  /**
+   * Inserts a leaf next to the sibling minimizing the perimeter added to the tree, then refits and
+   * rebalances its ancestors
+   *
+   * @param leaf the leaf to insert
+   */
+  private void insertLeaf(int leaf) {
+    if (root == NULL_NODE) {
+      root = leaf;
+      parent[leaf] = NULL_NODE;
+      return;
+    }
+
+    // Descend towards the cheapest sibling
+    int index = root;
+    while (child1[index] != NULL_NODE) {
+      int c1 = child1[index];
+      int c2 = child2[index];
+      float perimeter = perimeter(index);
+      float combinedPerimeter = combinedPerimeter(index, leaf);
+      // Cost of creating a new parent for this node and the leaf
+      float cost = 2 * combinedPerimeter;
+      // Minimum cost of pushing the leaf further down the tree
+      float inheritanceCost = 2 * (combinedPerimeter - perimeter);
+      float cost1 = descentCost(c1, leaf) + inheritanceCost;
+      float cost2 = descentCost(c2, leaf) + inheritanceCost;
+      if (cost < cost1 && cost < cost2) {
+        break;
+      }
+      index = cost1 < cost2 ? c1 : c2;
+    }
+    int sibling = index;
+
+    // Create a new parent for the sibling and the leaf
+    int oldParent = parent[sibling];
+    int newParent = allocateNode();
+    parent[newParent] = oldParent;
+    userData[newParent] = NULL_NODE;
+    combine(newParent, leaf, sibling);
+    height[newParent] = height[sibling] + 1;
+    if (oldParent != NULL_NODE) {
+      if (child1[oldParent] == sibling) {
+        child1[oldParent] = newParent;
+      } else {
+        child2[oldParent] = newParent;
+      }
+    } else {
+      root = newParent;
+    }
+    child1[newParent] = sibling;
+    child2[newParent] = leaf;
+    parent[sibling] = newParent;
+    parent[leaf] = newParent;
+
+    refit(parent[leaf]);
+  }
+
+  /**
+   * Removes a leaf, its sibling taking the place of their parent, then refits and rebalances the
+   * ancestors
+   *
+   * @param leaf the leaf to remove
+   */
+  private void removeLeaf(int leaf) {
+    if (leaf == root) {
+      root = NULL_NODE;
+      return;
+    }
+    int oldParent = parent[leaf];
+    int grandParent = parent[oldParent];
+    int sibling = child1[oldParent] == leaf ? child2[oldParent] : child1[oldParent];
+    if (grandParent != NULL_NODE) {
+      if (child1[grandParent] == oldParent) {
+        child1[grandParent] = sibling;
+      } else {
+        child2[grandParent] = sibling;
+      }
+      parent[sibling] = grandParent;
+      freeNode(oldParent);
+      refit(grandParent);
+    } else {
+      root = sibling;
+      parent[sibling] = NULL_NODE;
+      freeNode(oldParent);
+    }
+  }
+
+  /**
+   * Walks up the tree from a node, rebalancing each ancestor and recomputing its box and height
+   *
+   * @param node the first node to refit
+   */
+  private void refit(int node) {
+    while (node != NULL_NODE) {
+      node = balance(node);
+      int c1 = child1[node];
+      int c2 = child2[node];
+      height[node] = 1 + Math.max(height[c1], height[c2]);
+      combine(node, c1, c2);
+      node = parent[node];
+    }
+  }
+
+  /**
+   * Rotates a node if the heights of its children differ by more than one, promoting its highest
+   * child in its place
+   *
+   * @param a the node to balance
+   * @return the node now at the place of the balanced node
+   */
+  private int balance(int a) {
+    if (child1[a] == NULL_NODE || height[a] < 2) {
+      return a;
+    }
+    int b = child1[a];
+    int c = child2[a];
+    int imbalance = height[c] - height[b];
+    if (imbalance > 1) {
+      return rotate(a, c, b, false);
+    }
+    if (imbalance < -1) {
+      return rotate(a, b, c, true);
+    }
+    return a;
+  }
+
+  /**
+   * Promotes a child of a node in its place, the node keeping the lowest child of the promoted one
+   *
+   * @param a the node to rotate
+   * @param up the child of the node to promote
+   * @param other the other child of the node
+   * @param upIsFirst is the promoted child the first child of the node
+   * @return the promoted child
+   */
+  private int rotate(int a, int up, int other, boolean upIsFirst) {
+    int f = child1[up];
+    int g = child2[up];
+
+    // Put the promoted child in place of the node
+    child1[up] = a;
+    parent[up] = parent[a];
+    parent[a] = up;
+    if (parent[up] != NULL_NODE) {
+      if (child1[parent[up]] == a) {
+        child1[parent[up]] = up;
+      } else {
+        child2[parent[up]] = up;
+      }
+    } else {
+      root = up;
+    }
+
+    // The highest grandchild stays under the promoted child, the other one goes to the node
+    int kept = height[f] > height[g] ? f : g;
+    int given = kept == f ? g : f;
+    child2[up] = kept;
+    if (upIsFirst) {
+      child1[a] = given;
+    } else {
+      child2[a] = given;
+    }
+    parent[given] = a;
+    combine(a, other, given);
+    combine(up, a, kept);
+    height[a] = 1 + Math.max(height[other], height[given]);
+    height[up] = 1 + Math.max(height[a], height[kept]);
+    return up;
+  }
+
+  /**
+   * Returns the cost of descending into a child to insert a leaf, without the inheritance cost
+   *
+   * @param child the child to descend into
+   * @param leaf the leaf to insert
+   * @return the perimeter added to the tree by descending into the child
+   */
+  private float descentCost(int child, int leaf) {
+    if (child1[child] == NULL_NODE) {
+      return combinedPerimeter(child, leaf);
+    }
+    return combinedPerimeter(child, leaf) - perimeter(child);
+  }
+
+  /**
+   * Returns the perimeter of the box of a node
+   *
+   * @param node the node
+   * @return the perimeter of the box of the node
+   */
+  private float perimeter(int node) {
+    int box = node * 4;
+    return 2 * ((bounds[box + 2] - bounds[box]) + (bounds[box + 3] - bounds[box + 1]));
+  }
+
+  /**
+   * Returns the perimeter of the box enclosing the boxes of two nodes
+   *
+   * @param a the first node
+   * @param b the second node
+   * @return the perimeter of the box enclosing both nodes
+   */
+  private float combinedPerimeter(int a, int b) {
+    int boxA = a * 4;
+    int boxB = b * 4;
+    float width =
+        Math.max(bounds[boxA + 2], bounds[boxB + 2]) - Math.min(bounds[boxA], bounds[boxB]);
+    float h =
+        Math.max(bounds[boxA + 3], bounds[boxB + 3]) - Math.min(bounds[boxA + 1], bounds[boxB + 1]);
+    return 2 * (width + h);
+  }
+
+  /**
+   * Sets the box of a node to the box enclosing the boxes of two other nodes
+   *
+   * @param node the node to set the box of
+   * @param a the first enclosed node
+   * @param b the second enclosed node
+   */
+  private void combine(int node, int a, int b) {
+    int box = node * 4;
+    int boxA = a * 4;
+    int boxB = b * 4;
+    bounds[box] = Math.min(bounds[boxA], bounds[boxB]);
+    bounds[box + 1] = Math.min(bounds[boxA + 1], bounds[boxB + 1]);
+    bounds[box + 2] = Math.max(bounds[boxA + 2], bounds[boxB + 2]);
+    bounds[box + 3] = Math.max(bounds[boxA + 3], bounds[boxB + 3]);
+  }
+
+  /**
+   * Takes a node from the free list, growing the pool if it is empty
+   *
+   * @return the node
+   */
+  private int allocateNode() {
+    if (freeList == NULL_NODE) {
+      int oldCapacity = parent.length;
+      int capacity = oldCapacity * 2;
+      bounds = Arrays.copyOf(bounds, capacity * 4);
+      parent = Arrays.copyOf(parent, capacity);
+      child1 = Arrays.copyOf(child1, capacity);
+      child2 = Arrays.copyOf(child2, capacity);
+      height = Arrays.copyOf(height, capacity);
+      userData = Arrays.copyOf(userData, capacity);
+      linkFreeNodes(oldCapacity);
+    }
+    int node = freeList;
+    freeList = parent[node];
+    parent[node] = NULL_NODE;
+    child1[node] = NULL_NODE;
+    child2[node] = NULL_NODE;
+    height[node] = 0;
+    nodeCount++;
+    return node;
+  }
+
+  /**
+   * Returns a node to the free list
+   *
+   * @param node the node to free
+   */
+  private void freeNode(int node) {
+    parent[node] = freeList;
+    height[node] = -1;
+    freeList = node;
+    nodeCount--;
+  }
+
+  /**
+   * Chains the nodes of the pool from an index to its end into the free list
+   *
+   * @param from the first node to chain
+   */
+  private void linkFreeNodes(int from) {
+    int capacity = parent.length;
+    for (int i = from; i < capacity - 1; i++) {
+      parent[i] = i + 1;
+      height[i] = -1;
+    }
+    parent[capacity - 1] = NULL_NODE;
+    height[capacity - 1] = -1;
+    freeList = from;
+  }
+
+  /**
+   * Returns the number of bytes needed to save the tree into a {@link PhysicsSnapshot}
+   *
+   * @return the number of bytes needed to save the tree
+   */
+  int getSnapshotSize() {
+    int capacity = parent.length;
+    return 6 * Integer.BYTES
+        + PhysicsSnapshot.arraySize(capacity * 4, Float.BYTES)
+        + 5 * PhysicsSnapshot.arraySize(capacity, Integer.BYTES);
+  }
+
+  /**
+   * Saves the whole pool of nodes into a snapshot, free nodes included, so it can be restored with
+   * the exact same shape
+   *
+   * @param snapshot the snapshot to write into
+   * @param offset the offset to write at
+   * @return the offset following the tree
+   */
+  int save(PhysicsSnapshot snapshot, int offset) {
+    int capacity = parent.length;
+    offset = snapshot.putInt(offset, capacity);
+    offset = snapshot.putInt(offset, root);
+    offset = snapshot.putInt(offset, freeList);
+    offset = snapshot.putInt(offset, nodeCount);
+    offset = snapshot.putInt(offset, proxyCount);
+    offset = snapshot.putFloats(offset, bounds, capacity * 4);
+    offset = snapshot.putInts(offset, parent, 0, capacity);
+    offset = snapshot.putInts(offset, child1, 0, capacity);
+    offset = snapshot.putInts(offset, child2, 0, capacity);
+    offset = snapshot.putInts(offset, height, 0, capacity);
+    return snapshot.putInts(offset, userData, 0, capacity);
+  }
+
+  /**
+   * Restores the pool of nodes saved by {@link #save(PhysicsSnapshot, int)}, the arrays being only
+   * reallocated if the pool had a different size
+   *
+   * @param snapshot the snapshot to read from
+   * @param offset the offset to read at
+   * @return the offset following the tree
+   */
+  int restore(PhysicsSnapshot snapshot, int offset) {
+    int capacity = snapshot.getInt(offset);
+    if (capacity != parent.length) {
+      bounds = new float[capacity * 4];
+      parent = new int[capacity];
+      child1 = new int[capacity];
+      child2 = new int[capacity];
+      height = new int[capacity];
+      userData = new int[capacity];
+    }
+    root = snapshot.getInt(offset + 4);
+    freeList = snapshot.getInt(offset + 8);
+    nodeCount = snapshot.getInt(offset + 12);
+    proxyCount = snapshot.getInt(offset + 16);
+    offset = snapshot.getFloats(offset + 20, bounds, capacity * 4);
+    offset = snapshot.getInts(offset, parent, 0, capacity);
+    offset = snapshot.getInts(offset, child1, 0, capacity);
+    offset = snapshot.getInts(offset, child2, 0, capacity);
+    offset = snapshot.getInts(offset, height, 0, capacity);
+    return snapshot.getInts(offset, userData, 0, capacity);
+  }
+
+  /**
+   * Returns whether a node is a leaf, that is a proxy
+   *
+   * @param node the node
+   * @return true if the node is a leaf, false otherwise
+   */
+  public boolean isLeaf(int node) {
+    return child1[node] == NULL_NODE && height[node] == 0;
+  }
+
+  /**
+   * Returns the user data of a proxy
+   *
+   * @param proxy the proxy
+   * @return the user data given when creating the proxy
+   */
+  public int getUserData(int proxy) {
+    return userData[proxy];
+  }
+
+  /**
+   * Returns the lower x bound of the box of a node, fattened for proxies
+   *
+   * @param node the node
+   * @return the lower x bound of the box of the node
+   */
+  public float getMinX(int node) {
+    return bounds[node * 4];
+  }
+
+  /**
+   * Returns the lower y bound of the box of a node, fattened for proxies
+   *
+   * @param node the node
+   * @return the lower y bound of the box of the node
+   */
+  public float getMinY(int node) {
+    return bounds[node * 4 + 1];
+  }
+
+  /**
+   * Returns the upper x bound of the box of a node, fattened for proxies
+   *
+   * @param node the node
+   * @return the upper x bound of the box of the node
+   */
+  public float getMaxX(int node) {
+    return bounds[node * 4 + 2];
+  }
+
+  /**
+   * Returns the upper y bound of the box of a node, fattened for proxies
+   *
+   * @param node the node
+   * @return the upper y bound of the box of the node
+   */
+  public float getMaxY(int node) {
+    return bounds[node * 4 + 3];
+  }
+
+  /**
+   * Returns the root of the tree
+   *
+   * @return the root of the tree, {@link #NULL_NODE} if the tree is empty
+   */
+  public int getRoot() {
+    return root;
+  }
+
+  /**
+   * Returns the first child of a node
+   *
+   * @param node the node
+   * @return the first child of the node, {@link #NULL_NODE} for leaves
+   */
+  public int getChild1(int node) {
+    return child1[node];
+  }
+
+  /**
+   * Returns the second child of a node
+   *
+   * @param node the node
+   * @return the second child of the node, {@link #NULL_NODE} for leaves
+   */
+  public int getChild2(int node) {
+    return child2[node];
+  }
+
+  /**
+   * Returns the height of the tree
+   *
+   * @return the height of the tree, 0 if it is empty or holds a single proxy
+   */
+  public int getHeight() {
+    return root == NULL_NODE ? 0 : height[root];
+  }
+
+  /**
+   * Returns the ratio between the summed perimeters of the nodes and the perimeter of the root, a
+   * measure of the quality of the tree, lower being better
+   *
+   * @return the ratio between the summed perimeters of the nodes and the perimeter of the root
+   */
+  public float getPerimeterRatio() {
+    if (root == NULL_NODE) {
+      return 0;
+    }
+    float total = 0;
+    for (int i = 0; i < height.length; i++) {
+      if (height[i] >= 0) {
+        total += perimeter(i);
+      }
+    }
+    return total / perimeter(root);
+  }
+
+  /**
+   * Returns the number of nodes in use, leaves and internal nodes
+   *
+   * @return the number of nodes in use
+   */
+  public int getNodeCount() {
+    return nodeCount;
+  }
+
+  /**
+   * Returns the number of proxies in the tree
+   *
+   * @return the number of proxies in the tree
+   */
+  public int getProxyCount() {
+    return proxyCount;
+  }
+
+  /** A callback receiving the proxies found by {@link #query} */
+  @FunctionalInterface
+  public interface QueryCallback {
+
+    /**
+     * Reports a proxy overlapping the queried box
+     *
+     * @param proxy the proxy
+     * @return true to continue the query, false to stop it
+     */
+    boolean report(int proxy);
+  }
+
+  /** A callback receiving the proxies found by {@link #raycast} */
+  @FunctionalInterface
+  public interface RaycastCallback {
+
+    /**
+     * Reports a proxy whose fattened box is crossed by the segment
+     *
+     * @param proxy the proxy
+     * @param x1 the x coordinate of the start of the segment
+     * @param y1 the y coordinate of the start of the segment
+     * @param x2 the x coordinate of the end of the segment
+     * @param y2 the y coordinate of the end of the segment
+     * @param maxFraction the fraction of the segment currently cast
+     * @return 0 to stop the cast, a fraction in ]0, 1] to clip the segment to, or a negative value
+     *     to ignore the proxy and continue
+     */
+    float report(int proxy, float x1, float y1, float x2, float y2, float maxFraction);
+  }
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.physics2j;
+
+/**
+ * A hash map from long keys to int values, stored in two primitive arrays with open addressing and
+ * linear probing. Removals shift the following entries back instead of leaving tombstones, so
+ * lookups never degrade as entries come and go. Nothing is allocated except when the map grows
+ */
+final class LongIntHashMap {
+
+  /** The value returned when a key is absent */
+  static final int NO_VALUE = -1;
+
+  /** The key marking a free entry, stored apart when actually used as a key */
+  private static final long FREE_KEY = 0;
+  /** The maximum ratio of used entries before growing */
+  private static final float LOAD_FACTOR = 0.5f;
+
+  /** The keys of the entries */
+  private long[] keys;
+  /** The values of the entries */
+  private int[] values;
+  /** The mask turning a hash into an index, the capacity being a power of 2 */
+  private int mask;
+  /** The number of entries stored in the arrays */
+  private int size = 0;
+  /** Is the free key itself stored in the map */
+  private boolean hasFreeKey = false;
+  /** The value of the free key, if stored */
+  private int freeKeyValue = NO_VALUE;
+
+  /**
+   * Creates a new LongIntHashMap
+   *
+   * @param expectedSize the number of entries the map can hold without growing
+   */
+  LongIntHashMap(int expectedSize) {
+    int capacity = Integer.highestOneBit(Math.max(2, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+    keys = new long[capacity];
+    values = new int[capacity];
+    mask = capacity - 1;
+  }
+
+  /**
+   * Returns the value associated with a key
+   *
+   * @param key the key to look up
+   * @return the value associated with the key, {@link #NO_VALUE} if absent
+   */
+  int get(long key) {
+    if (key == FREE_KEY) {
+      return hasFreeKey ? freeKeyValue : NO_VALUE;
+    }
+    int index = indexOf(key);
+    while (keys[index] != FREE_KEY) {
+      if (keys[index] == key) {
+        return values[index];
+      }
+      index = (index + 1) & mask;
+    }
+    return NO_VALUE;
+  }
+
+  /**
+   * Associates a value with a key, replacing any previous value
+   *
+   * @param key the key
+   * @param value the value to associate, must not be {@link #NO_VALUE}
+   */
+  void put(long key, int value) {
+    if (key == FREE_KEY) {
+      if (!hasFreeKey) {
+        hasFreeKey = true;
+        size++;
+      }
+      freeKeyValue = value;
+      return;
+    }
+    int index = indexOf(key);
+    while (keys[index] != FREE_KEY) {
+      if (keys[index] == key) {
+        values[index] = value;
+        return;
+      }
+      index = (index + 1) & mask;
+    }
+    keys[index] = key;
+    values[index] = value;
+    if (++size > keys.length * LOAD_FACTOR) {
+      rehash(keys.length * 2);
+    }
+  }
+
+  /**
+   * Removes a key from the map
+   *
+   * @param key the key to remove
+   * @return the value that was associated with the key, {@link #NO_VALUE} if absent
+   */
+  int remove(long key) {
+    if (key == FREE_KEY) {
+      if (!hasFreeKey) {
+        return NO_VALUE;
+      }
+      hasFreeKey = false;
+      size--;
+      return freeKeyValue;
+    }
+    int index = indexOf(key);
+    while (keys[index] != FREE_KEY) {
+      if (keys[index] == key) {
+        int value = values[index];
+        shiftBack(index);
+        size--;
+        return value;
+      }
+      index = (index + 1) & mask;
+    }
+    return NO_VALUE;
+  }
+
+  /**
+   * Fills the hole left by a removed entry by moving back the following entries of the probe
+   * sequence that would not be reachable anymore
+   *
+   * @param hole the index of the removed entry
+   */
+  private void shiftBack(int hole) {
+    int index = hole;
+    while (true) {
+      index = (index + 1) & mask;
+      long key = keys[index];
+      if (key == FREE_KEY) {
+        break;
+      }
+      int home = indexOf(key);
+      // Move the entry if its home is not cyclically between the hole and its current index
+      if (((index - home) & mask) >= ((index - hole) & mask)) {
+        keys[hole] = key;
+        values[hole] = values[index];
+        hole = index;
+      }
+    }
+    keys[hole] = FREE_KEY;
+  }
+
+  /**
+   * Reinserts every entry into arrays of a new capacity
+   *
+   * @param capacity the new capacity, a power of 2
+   */
+  private void rehash(int capacity) {
+    long[] oldKeys = keys;
+    int[] oldValues = values;
+    keys = new long[capacity];
+    values = new int[capacity];
+    mask = capacity - 1;
+    for (int i = 0; i < oldKeys.length; i++) {
+      long key = oldKeys[i];
+      if (key != FREE_KEY) {
+        int index = indexOf(key);
+        while (keys[index] != FREE_KEY) {
+          index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        values[index] = oldValues[i];
+      }
+    }
+  }
+
+  /**
+   * Returns the home index of a key, the key being scrambled so packed ids spread evenly
+   *
+   * @param key the key
+   * @return the index the probe sequence of the key starts at
+   */
+  private int indexOf(long key) {
+    long hash = key * 0x9E3779B97F4A7C15L;
+    return (int) (hash ^ (hash >>> 32)) & mask;
+  }
+
+  /**
+   * Returns the number of bytes needed to save the map into a {@link PhysicsSnapshot}
+   *
+   * @return the number of bytes needed to save the map
+   */
+  int getSnapshotSize() {
+    return 4 * Integer.BYTES
+        + PhysicsSnapshot.arraySize(keys.length, Long.BYTES)
+        + PhysicsSnapshot.arraySize(keys.length, Integer.BYTES);
+  }
+
+  /**
+   * Saves the arrays of the map into a snapshot, so it can be restored without rehashing
+   *
+   * @param snapshot the snapshot to write into
+   * @param offset the offset to write at
+   * @return the offset following the map
+   */
+  int save(PhysicsSnapshot snapshot, int offset) {
+    offset = snapshot.putInt(offset, keys.length);
+    offset = snapshot.putInt(offset, size);
+    offset = snapshot.putInt(offset, hasFreeKey ? 1 : 0);
+    offset = snapshot.putInt(offset, freeKeyValue);
+    offset = snapshot.putLongs(offset, keys, keys.length);
+    return snapshot.putInts(offset, values, 0, values.length);
+  }
+
+  /**
+   * Restores the map saved by {@link #save(PhysicsSnapshot, int)}, the arrays being only
+   * reallocated if the map had a different capacity
+   *
+   * @param snapshot the snapshot to read from
+   * @param offset the offset to read at
+   * @return the offset following the map
+   */
+  int restore(PhysicsSnapshot snapshot, int offset) {
+    int capacity = snapshot.getInt(offset);
+    if (capacity != keys.length) {
+      keys = new long[capacity];
+      values = new int[capacity];
+      mask = capacity - 1;
+    }
+    size = snapshot.getInt(offset + 4);
+    hasFreeKey = snapshot.getInt(offset + 8) != 0;
+    freeKeyValue = snapshot.getInt(offset + 12);
+    offset = snapshot.getLongs(offset + 16, keys, capacity);
+    return snapshot.getInts(offset, values, 0, capacity);
+  }
+
+  /**
+   * Returns the number of entries in the map
+   *
+   * @return the number of entries in the map
+   */
+  int size() {
+    return size;
+  }
+}
@@ -15,4 +15,6 @@ public interface Physical {
   Transform getTransform();
 
   void collisionCallback(Physical other, Vector2f contactPoint);
+
+  default void separationCallback(Physical other) {}
 }
@@ -5,14 +5,16 @@
  */
 package org.alban098.physics2j;
 
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import org.alban098.common.Component;
+import org.alban098.common.Transform;
 import org.joml.Vector2f;
 
 public class PhysicsComponent extends Component {
 
-  private final Map<Vector2f, Force> forces = new HashMap<>();
+  // Resolved in the order they were applied, so the sums are the same from one run to another
+  private final Map<Vector2f, Force> forces = new LinkedHashMap<>();
   private final Vector2f drag = new Vector2f();
   private final Torque torque = new Torque(0);
   private final Vector2f velocity = new Vector2f();
@@ -20,16 +22,34 @@ public class PhysicsComponent extends Component {
   private float angularVelocity = 0;
   private float angularAcceleration = 0;
   private float mass;
+  private float restitution = 0;
+  private float friction = 0.5f;
+  private int categoryBits = CollisionFilter.DEFAULT_CATEGORY;
+  private int maskBits = CollisionFilter.ALL;
+  private int group = CollisionFilter.NO_GROUP;
   private final Polygon hitbox;
+  private final Vector2f halfExtents;
+  private float[] worldXPoints = new float[4];
+  private float[] worldYPoints = new float[4];
+  private int worldPointCount = -1;
+  private final Aabb bounds = new Aabb();
+  private float cos = 1;
+  private float sin = 0;
+  private Transform worldTransform;
+  private int worldVersion;
+  private int worldHitboxVersion;
+  private boolean worldStrict;
 
   public PhysicsComponent(float mass, Vector2f scale) {
     super();
     this.mass = mass;
     this.hitbox = new Polygon();
+    this.halfExtents = new Vector2f(scale).div(2);
+    // Counter-clockwise, so the edges of the hitbox are its sides and not its diagonals
     hitbox.addPoint(-scale.x / 2, -scale.y / 2);
     hitbox.addPoint(scale.x / 2, -scale.y / 2);
-    hitbox.addPoint(-scale.x / 2, scale.y / 2);
     hitbox.addPoint(scale.x / 2, scale.y / 2);
+    hitbox.addPoint(-scale.x / 2, scale.y / 2);
   }
 
   public void update(double deltaTime) {
@@ -74,6 +94,14 @@ public class PhysicsComponent extends Component {
     torque.set(0);
   }
 
+  public float getTorque() {
+    return torque.get();
+  }
+
+  public void setTorque(float torque) {
+    this.torque.set(torque);
+  }
+
   public Vector2f getVelocity() {
     return velocity;
   }
@@ -114,10 +142,140 @@ public class PhysicsComponent extends Component {
     this.mass = mass;
   }
 
+  public float getRestitution() {
+    return restitution;
+  }
+
+  public void setRestitution(float restitution) {
+    this.restitution = restitution;
+  }
+
+  public float getFriction() {
+    return friction;
+  }
+
+  public void setFriction(float friction) {
+    this.friction = friction;
+  }
+
+  public int getCategoryBits() {
+    return categoryBits;
+  }
+
+  public void setCategoryBits(int categoryBits) {
+    this.categoryBits = categoryBits;
+  }
+
+  public int getMaskBits() {
+    return maskBits;
+  }
+
+  public void setMaskBits(int maskBits) {
+    this.maskBits = maskBits;
+  }
+
+  public int getGroup() {
+    return group;
+  }
+
+  public void setGroup(int group) {
+    this.group = group;
+  }
+
+  public void setFilter(int categoryBits, int maskBits, int group) {
+    this.categoryBits = categoryBits;
+    this.maskBits = maskBits;
+    this.group = group;
+  }
+
+  public Vector2f getHalfExtents() {
+    return halfExtents;
+  }
+
   public Polygon getHitbox() {
     return hitbox;
   }
 
+  public boolean updateWorldHitbox(Transform transform) {
+    return updateWorldHitbox(transform, false);
+  }
+
+  boolean updateWorldHitbox(Transform transform, boolean strict) {
+    // Only recompute when the Transform has committed a change since the last time
+    if (isWorldHitboxValid(transform, strict)) {
+      return false;
+    }
+    // Math may use intrinsics whose results depend on the platform, StrictMath never does
+    float rotation = transform.getRotation();
+    setWorldHitbox(
+        transform,
+        (float) (strict ? StrictMath.cos(rotation) : Math.cos(rotation)),
+        (float) (strict ? StrictMath.sin(rotation) : Math.sin(rotation)),
+        strict);
+    return true;
+  }
+
+  void restoreWorldHitbox(Transform transform, float cos, float sin, boolean strict) {
+    // The saved cosine and sine are the ones computed for the saved rotation
+    if (!isWorldHitboxValid(transform, strict)) {
+      setWorldHitbox(transform, cos, sin, strict);
+    }
+  }
+
+  private boolean isWorldHitboxValid(Transform transform, boolean strict) {
+    return transform == worldTransform
+        && transform.getVersion() == worldVersion
+        && hitbox.getVersion() == worldHitboxVersion
+        && hitbox.npoints == worldPointCount
+        && strict == worldStrict;
+  }
+
+  private void setWorldHitbox(Transform transform, float cos, float sin, boolean strict) {
+    worldTransform = transform;
+    worldVersion = transform.getVersion();
+    worldPointCount = hitbox.npoints;
+    worldHitboxVersion = hitbox.getVersion();
+    worldStrict = strict;
+    if (worldXPoints.length < worldPointCount) {
+      worldXPoints = new float[worldPointCount];
+      worldYPoints = new float[worldPointCount];
+    }
+    this.cos = cos;
+    this.sin = sin;
+    float x = transform.getDisplacement().x;
+    float y = transform.getDisplacement().y;
+    bounds.setEmpty();
+    for (int i = 0; i < worldPointCount; i++) {
+      worldXPoints[i] = x + cos * hitbox.xpoints[i] - sin * hitbox.ypoints[i];
+      worldYPoints[i] = y + sin * hitbox.xpoints[i] + cos * hitbox.ypoints[i];
+      bounds.include(worldXPoints[i], worldYPoints[i]);
+    }
+  }
+
+  public float[] getWorldXPoints() {
+    return worldXPoints;
+  }
+
+  public float[] getWorldYPoints() {
+    return worldYPoints;
+  }
+
+  public int getWorldPointCount() {
+    return Math.max(worldPointCount, 0);
+  }
+
+  public Aabb getBounds() {
+    return bounds;
+  }
+
+  float getCos() {
+    return cos;
+  }
+
+  float getSin() {
+    return sin;
+  }
+
   public Vector2f getCenterOfMass() {
     return getHitbox().getCenter();
   }
@@ -5,8 +5,12 @@
  */
 package org.alban098.physics2j;
 
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import org.alban098.common.Transform;
 import org.joml.Vector2f;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -18,32 +22,103 @@ public class PhysicsManager {
 
   private static final int TPS = 50;
 
-  /** A Collection of all Movable physics should be applied to */
-  private final Collection<Physical> registered = new HashSet<>();
-
-  private final QuadTree<Physical> quadTree;
+  /**
+   * All Physical physics should be applied to, with the stable id identifying their pairs, iterated
+   * in the order they were tracked, which is the order of their ids
+   */
+  private final Map<Physical, Integer> registered = new LinkedHashMap<>();
+  /** The static Physicals, with their stable id, never packed unless a body touches them */
+  private final Map<Physical, Integer> statics = new LinkedHashMap<>();
 
   private final Force staticForce = new Force(0, 0);
 
   private double subTickAccumulator = 0;
 
+  /** The state of the bodies during a tick */
+  private final BodyBuffer bodies = new BodyBuffer();
+  /** The Physical owning each body of the tick */
+  private Physical[] physicals = new Physical[64];
+  /** The broad phase finding the pairs of bodies that may touch */
+  private final BroadPhase broadPhase = new BroadPhase();
+  /** The narrow phase computing the contact points of a pair */
+  private final BoxCollider collider = new BoxCollider();
+  /** The solver resolving the contact points */
+  private final ContactSolver solver = new ContactSolver();
+  /** The pairs of bodies kept across ticks, with their contact points */
+  private final ContactCache contactCache = new ContactCache();
+  /** The id to give to the next tracked Physical */
+  private int nextId = 0;
+  /** The query used by the casts and overlaps of the simulation thread */
+  private final WorldQuery query = new WorldQuery();
+  /** The query of each worker casting a batch in parallel */
+  private final ThreadLocal<WorldQuery> workerQueries = ThreadLocal.withInitial(WorldQuery::new);
+  /** Is the simulation reproducible bit for bit, and its state hashed after each tick */
+  private boolean deterministic = false;
+  /** The hash fingerprinting the state of the bodies */
+  private final StateHash stateHash = new StateHash();
+  /** The hash of the state of the bodies after the last tick, 0 if not deterministic */
+  private long lastStateHash = 0;
+  /** The number of ticks simulated so far */
+  private long tickCount = 0;
+  /** The tracked Physicals, indexed by their stable id */
+  private Physical[] trackedById = new Physical[64];
+  /** The snapshots of the last ticks, null if they are not kept */
+  private SnapshotRing history;
+  /** The records of the bodies, packed before being copied to or from a snapshot */
+  private int[] records = new int[0];
+  /** The records of the bodies of the baseline of a delta snapshot */
+  private int[] baseRecords = new int[0];
+  /** The Sensors detecting the bodies overlapping them */
+  private final SensorSystem sensors = new SensorSystem();
+
   public PhysicsManager(Force... staticForces) {
     for (Force force : staticForces) {
       staticForce.combine(force);
     }
-    quadTree = new QuadTree<>(new Vector2f(5000f, 5000f));
   }
 
   public void track(Physical physical) {
-    if (registered.add(physical)) {
-      quadTree.add(physical);
+    if (!statics.containsKey(physical) && registered.putIfAbsent(physical, nextId) == null) {
+      if (nextId == trackedById.length) {
+        trackedById = Arrays.copyOf(trackedById, nextId * 2);
+      }
+      trackedById[nextId++] = physical;
       physical.getPhysicsComponent().applyForce(staticForce, new Vector2f());
     }
   }
 
+  public void trackStatic(Physical physical) {
+    if (registered.containsKey(physical) || statics.putIfAbsent(physical, nextId) != null) {
+      return;
+    }
+    if (nextId == trackedById.length) {
+      trackedById = Arrays.copyOf(trackedById, nextId * 2);
+    }
+    trackedById[nextId] = physical;
+    PhysicsComponent component = physical.getPhysicsComponent();
+    component.updateWorldHitbox(physical.getTransform(), deterministic);
+    broadPhase.putStatic(nextId++, component);
+  }
+
+  public boolean updateStatic(Physical physical) {
+    Integer id = statics.get(physical);
+    if (id == null) {
+      return false;
+    }
+    PhysicsComponent component = physical.getPhysicsComponent();
+    component.updateWorldHitbox(physical.getTransform(), deterministic);
+    broadPhase.putStatic(id, component);
+    return true;
+  }
+
   public void unregister(Physical physical) {
-    if (registered.remove(physical)) {
-      quadTree.remove(physical);
+    Integer id = registered.remove(physical);
+    if (id == null) {
+      id = statics.remove(physical);
+    }
+    if (id != null) {
+      trackedById[id] = null;
+      broadPhase.remove(id);
       physical.getPhysicsComponent().clearForces();
       physical.getPhysicsComponent().clearTorques();
     }
@@ -57,27 +132,417 @@ public class PhysicsManager {
     // Execute as many ticks as necessary to cover the elapsed time
     while (elapsedTime > 1f / TPS) {
       elapsedTime -= 1f / TPS;
-      quadTree.clear();
-      quadTree.addAll(registered);
-      for (Physical physical : registered) {
-        PhysicsComponent component = physical.getPhysicsComponent();
+      tick();
+    }
+
+    // Keep track of the time that is shorter than a tick to process it next call
+    subTickAccumulator = elapsedTime;
+  }
 
+  public void step() {
+    tick();
+  }
+
+  private void tick() {
+    bodies.clear();
+    // Walked by id rather than through the map, whose iterator is only sometimes scalar replaced
+    for (int id = 0; id < nextId; id++) {
+      Physical physical = trackedById[id];
+      if (physical == null || broadPhase.isStatic(id)) {
+        continue;
+      }
+      PhysicsComponent component = physical.getPhysicsComponent();
+
+      // Bodies without mass are immovable, forces have no effect on them
+      if (component.getMass() > 0) {
         component.resolveForces();
         component.update(1f / TPS);
+      }
 
-        physical.getTransform().move(component.getVelocity());
-        physical.getTransform().rotate(component.getAngularVelocity());
-        physical.getTransform().commit();
+      component.updateWorldHitbox(physical.getTransform(), deterministic);
+      int body = bodies.add(id, component, physical.getTransform());
+      if (body == physicals.length) {
+        physicals = Arrays.copyOf(physicals, physicals.length * 2);
       }
+      physicals[body] = physical;
+    }
 
-      // TODO Process collisions
+    bodies.sealDynamic();
+
+    broadPhase.findPairs(bodies);
+    for (int i = 0; i < broadPhase.getPairCount(); i++) {
+      int a = broadPhase.getFirst(i);
+      int b = broadPhase.getSecond(i);
+      contactCache.acquire(
+          ContactCache.pairKey(bodies.ids[a], bodies.ids[b]), physicals[a], physicals[b]);
     }
+    for (int i = 0; i < broadPhase.getStaticPairCount(); i++) {
+      int a = broadPhase.getStaticPairBody(i);
+      int id = broadPhase.getStaticPairId(i);
+      if (bodies.ids[a] < id) {
+        contactCache.acquire(
+            ContactCache.pairKey(bodies.ids[a], id), physicals[a], trackedById[id]);
+      } else {
+        contactCache.acquire(
+            ContactCache.pairKey(id, bodies.ids[a]), trackedById[id], physicals[a]);
+      }
+    }
+    solver.clear();
+    for (int slot = 0; slot < contactCache.getSlotCount(); slot++) {
+      if (!contactCache.isUsed(slot)) {
+        continue;
+      }
+      int idA = contactCache.getFirstId(slot);
+      int idB = contactCache.getSecondId(slot);
+      // Pairs are kept until the fattened boxes of their bodies stop overlapping, or until their
+      // filters stop letting them collide
+      if (broadPhase.testOverlap(idA, idB)) {
+        int a = indexOf(idA);
+        int b = indexOf(idB);
+        if (bodies.shouldCollide(a, b)) {
+          contactCache.refresh(slot);
+          collider.collide(bodies, a, b, slot, solver);
+        }
+      }
+    }
+    solver.solve(bodies, contactCache);
 
-    // Keep track of the time that is shorter than a tick to process it next call
-    subTickAccumulator = elapsedTime;
+    for (int i = 0; i < bodies.dynamicSize(); i++) {
+      PhysicsComponent component = physicals[i].getPhysicsComponent();
+      Transform transform = physicals[i].getTransform();
+      component.setVelocity(bodies.vx[i], bodies.vy[i]);
+      component.setAngularVelocity(bodies.w[i]);
+      // Bodies that have not moved keep their Transform, and so their cached world hitbox
+      if (bodies.x[i] != transform.getDisplacement().x
+          || bodies.y[i] != transform.getDisplacement().y
+          || bodies.angle[i] != transform.getRotation()) {
+        transform.setDisplacement(bodies.x[i], bodies.y[i]);
+        // Rotate instead of setting the rotation, so it stays wrapped between 0 and 2*PI
+        transform.rotate(bodies.angle[i] - transform.getRotation());
+        transform.commit();
+        component.updateWorldHitbox(transform, deterministic);
+        bodies.setBounds(i, component.getBounds());
+      }
+    }
+    broadPhase.synchronize(bodies);
+    contactCache.update();
+    contactCache.dispatch();
+    sensors.update(bodies, physicals, broadPhase, trackedById);
+    tickCount++;
+    if (deterministic) {
+      lastStateHash = hashState();
+    }
+    if (history != null) {
+      snapshot(history.claim());
+    }
+  }
+
+  private int indexOf(int id) {
+    int body = broadPhase.getIndex(id);
+    if (!broadPhase.isStatic(id)) {
+      return body;
+    }
+    // Static bodies are only packed the first time a pair needs them during a tick
+    if (body < bodies.dynamicSize() || body >= bodies.size() || bodies.ids[body] != id) {
+      Physical physical = trackedById[id];
+      PhysicsComponent component = physical.getPhysicsComponent();
+      component.updateWorldHitbox(physical.getTransform(), deterministic);
+      body = bodies.addStatic(id, component, physical.getTransform());
+      if (body == physicals.length) {
+        physicals = Arrays.copyOf(physicals, physicals.length * 2);
+      }
+      physicals[body] = physical;
+      broadPhase.setIndex(id, body);
+    }
+    return body;
+  }
+
+  private long hashState() {
+    stateHash.reset(0).putInt(bodies.dynamicSize());
+    for (int i = 0; i < bodies.dynamicSize(); i++) {
+      stateHash
+          .putInt(bodies.ids[i])
+          .putFloat(bodies.x[i])
+          .putFloat(bodies.y[i])
+          .putFloat(bodies.angle[i])
+          .putFloat(bodies.vx[i])
+          .putFloat(bodies.vy[i])
+          .putFloat(bodies.w[i]);
+    }
+    return stateHash.finish();
+  }
+
+  public void snapshot(PhysicsSnapshot dest) {
+    int bodyCount = registered.size();
+    packRecords(bodyCount);
+    dest.begin(
+        PhysicsSnapshot.HEADER_SIZE
+            + bodyCount * PhysicsSnapshot.BODY_SIZE
+            + broadPhase.getSnapshotSize()
+            + contactCache.getSnapshotSize(),
+        null);
+    int offset =
+        dest.putInts(
+            PhysicsSnapshot.HEADER_SIZE, records, 0, bodyCount * PhysicsSnapshot.BODY_INTS);
+    offset = broadPhase.save(dest, offset);
+    offset = contactCache.save(dest, offset);
+    dest.end(offset, bodyCount, tickCount, subTickAccumulator, lastStateHash, bodyCount);
+  }
+
+  public void snapshotDelta(PhysicsSnapshot baseline, PhysicsSnapshot dest) {
+    int bodyCount = registered.size();
+    if (baseline == dest || baseline.size() == 0 || baseline.isDelta()) {
+      throw new IllegalArgumentException("The baseline of a delta must be another full snapshot");
+    }
+    if (baseline.getBodyCount() != bodyCount) {
+      throw new IllegalArgumentException("The baseline does not hold the tracked bodies");
+    }
+    packRecords(bodyCount);
+    int length = bodyCount * PhysicsSnapshot.BODY_INTS;
+    if (baseRecords.length < length) {
+      baseRecords = new int[records.length];
+    }
+    baseline.getInts(PhysicsSnapshot.HEADER_SIZE, baseRecords, 0, length);
+    dest.begin(
+        PhysicsSnapshot.HEADER_SIZE
+            + bodyCount * (PhysicsSnapshot.BODY_SIZE + Integer.BYTES)
+            + broadPhase.getSnapshotSize()
+            + contactCache.getSnapshotSize(),
+        baseline);
+    int offset = PhysicsSnapshot.HEADER_SIZE;
+    int recordCount = 0;
+    for (int from = 0, index = 0; from < length; from += PhysicsSnapshot.BODY_INTS, index++) {
+      int to = from + PhysicsSnapshot.BODY_INTS;
+      if (!Arrays.equals(records, from, to, baseRecords, from, to)) {
+        offset = dest.putInt(offset, index);
+        offset = dest.putInts(offset, records, from, PhysicsSnapshot.BODY_INTS);
+        recordCount++;
+      }
+    }
+    offset = broadPhase.save(dest, offset);
+    offset = contactCache.save(dest, offset);
+    dest.end(offset, bodyCount, tickCount, subTickAccumulator, lastStateHash, recordCount);
+  }
+
+  private void packRecords(int bodyCount) {
+    if (records.length < bodyCount * PhysicsSnapshot.BODY_INTS) {
+      records = new int[bodyCount * PhysicsSnapshot.BODY_INTS * 2];
+    }
+    int offset = 0;
+    for (int id = 0; id < nextId; id++) {
+      if (trackedById[id] != null && !broadPhase.isStatic(id)) {
+        PhysicsSnapshot.putBody(records, offset, id, trackedById[id]);
+        offset += PhysicsSnapshot.BODY_INTS;
+      }
+    }
+  }
+
+  public void restore(PhysicsSnapshot snapshot) {
+    if (snapshot.size() == 0) {
+      throw new IllegalArgumentException("The snapshot is empty");
+    }
+    PhysicsSnapshot baseline = snapshot.isDelta() ? snapshot.getBaseline() : snapshot;
+    if (baseline.isDelta()
+        || baseline.getTick() != snapshot.getBaselineTick() && baseline != snapshot) {
+      throw new IllegalStateException("The baseline of the snapshot has been overwritten");
+    }
+    int bodyCount = registered.size();
+    if (snapshot.getBodyCount() != bodyCount) {
+      throw new IllegalStateException("The snapshot does not hold the tracked bodies");
+    }
+    int length = bodyCount * PhysicsSnapshot.BODY_INTS;
+    if (records.length < length) {
+      records = new int[length * 2];
+    }
+    baseline.getInts(PhysicsSnapshot.HEADER_SIZE, records, 0, length);
+    if (snapshot != baseline) {
+      int offset = PhysicsSnapshot.HEADER_SIZE;
+      for (int i = 0; i < snapshot.getRecordCount(); i++) {
+        int index = snapshot.getInt(offset);
+        if (index < 0 || index >= bodyCount) {
+          throw new IllegalStateException("The snapshot does not hold the tracked bodies");
+        }
+        offset =
+            snapshot.getInts(
+                offset + Integer.BYTES,
+                records,
+                index * PhysicsSnapshot.BODY_INTS,
+                PhysicsSnapshot.BODY_INTS);
+      }
+    }
+    // Check every body before touching any, so a mismatching snapshot leaves the simulation as is
+    for (int id = 0, offset = 0; id < nextId; id++) {
+      if (trackedById[id] != null && !broadPhase.isStatic(id)) {
+        if (records[offset] != id) {
+          throw new IllegalStateException("The snapshot does not hold the tracked bodies");
+        }
+        offset += PhysicsSnapshot.BODY_INTS;
+      }
+    }
+    for (int id = 0, offset = 0; id < nextId; id++) {
+      if (trackedById[id] != null && !broadPhase.isStatic(id)) {
+        PhysicsSnapshot.getBody(records, offset, trackedById[id], deterministic);
+        offset += PhysicsSnapshot.BODY_INTS;
+      }
+    }
+
+    int offset = broadPhase.restore(snapshot, snapshot.getWorldOffset());
+    contactCache.restore(snapshot, offset, trackedById);
+    tickCount = snapshot.getTick();
+    subTickAccumulator = snapshot.getSubTick();
+    lastStateHash = snapshot.getStateHash();
+  }
+
+  public SnapshotRing getHistory() {
+    return history;
+  }
+
+  public void setHistory(int ticks) {
+    if (history != null) {
+      history.cleanUp();
+    }
+    history = ticks > 0 ? new SnapshotRing(ticks) : null;
+    if (history != null) {
+      snapshot(history.claim());
+    }
+  }
+
+  public boolean rollback(long tick) {
+    PhysicsSnapshot snapshot = history == null ? null : history.get(tick);
+    if (snapshot == null) {
+      return false;
+    }
+    restore(snapshot);
+    history.discardAfter(tick);
+    return true;
+  }
+
+  public boolean raycast(Vector2f origin, Vector2f direction, float maxDistance, RaycastHit hit) {
+    float length = direction.length();
+    if (length == 0 || maxDistance <= 0) {
+      hit.clear();
+      return false;
+    }
+    float scale = maxDistance / length;
+    query.bind(broadPhase, physicals, trackedById);
+    return query.castSegment(
+            origin.x, origin.y, origin.x + direction.x * scale, origin.y + direction.y * scale, hit)
+        >= 0;
+  }
+
+  public boolean segmentCast(Vector2f from, Vector2f to, RaycastHit hit) {
+    query.bind(broadPhase, physicals, trackedById);
+    return query.castSegment(from.x, from.y, to.x, to.y, hit) >= 0;
+  }
+
+  public int segmentCastBatch(
+      float[] segments,
+      int count,
+      float[] fractions,
+      float[] normals,
+      Physical[] bodies,
+      boolean parallel) {
+    if (segments.length < count * 4
+        || fractions.length < count
+        || (normals != null && normals.length < count * 2)
+        || (bodies != null && bodies.length < count)) {
+      throw new IllegalArgumentException("The arrays are too short for " + count + " segments");
+    }
+    if (parallel && count > SegmentCastBatch.GRAIN) {
+      ForkJoinPool.commonPool()
+          .invoke(
+              new SegmentCastBatch(
+                  broadPhase,
+                  physicals,
+                  trackedById,
+                  workerQueries,
+                  segments,
+                  0,
+                  count,
+                  fractions,
+                  normals,
+                  bodies));
+    } else {
+      query.bind(broadPhase, physicals, trackedById);
+      SegmentCastBatch.cast(query, segments, 0, count, fractions, normals, bodies);
+    }
+    int hits = 0;
+    for (int i = 0; i < count; i++) {
+      if (fractions[i] >= 0) {
+        hits++;
+      }
+    }
+    return hits;
+  }
+
+  public int overlapAabb(Vector2f min, Vector2f max, Collection<? super Physical> results) {
+    query.bind(broadPhase, physicals, trackedById);
+    return query.overlap(min.x, min.y, max.x, max.y, results);
+  }
+
+  public int overlapPolygon(Polygon polygon, Collection<? super Physical> results) {
+    query.bind(broadPhase, physicals, trackedById);
+    return query.overlap(polygon.xpoints, polygon.ypoints, polygon.npoints, results);
+  }
+
+  public boolean addSensor(Sensor sensor) {
+    return sensors.add(sensor);
+  }
+
+  public boolean removeSensor(Sensor sensor) {
+    return sensors.remove(sensor);
+  }
+
+  public SensorEventBuffer getSensorEvents() {
+    return sensors.getEvents();
+  }
+
+  public int getSensorCount() {
+    return sensors.getSensorCount();
+  }
+
+  public boolean isDeterministic() {
+    return deterministic;
+  }
+
+  public void setDeterministic(boolean deterministic) {
+    this.deterministic = deterministic;
+    lastStateHash = 0;
+  }
+
+  public long getStateHash() {
+    return lastStateHash;
+  }
+
+  public long getTickCount() {
+    return tickCount;
+  }
+
+  public ContactSolver getSolver() {
+    return solver;
+  }
+
+  public StaticBvh getStaticTree() {
+    return broadPhase.getStaticTree();
+  }
+
+  public int getStaticCount() {
+    return broadPhase.getStaticCount();
+  }
+
+  public DynamicAabbTree getTree() {
+    return broadPhase.getTree(0);
+  }
+
+  public int getLayerCount() {
+    return broadPhase.getLayerCount();
+  }
+
+  public DynamicAabbTree getTree(int layer) {
+    return broadPhase.getTree(layer);
   }
 
-  public QuadTree<Physical> getQuadTree() {
-    return quadTree;
+  public int getLayerCategory(int layer) {
+    return broadPhase.getLayerCategory(layer);
   }
 }
@@ -0,0 +1,512 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.physics2j;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import org.alban098.common.Cleanable;
+import org.alban098.common.MemoryManager;
+import org.alban098.common.Transform;
+import org.lwjgl.system.MemoryUtil;
+
+/**
+ * The whole state of a {@link PhysicsManager} at a given tick, serialized into an off-heap buffer
+ * reused from one snapshot to the next, so saving and restoring a simulation does not allocate once
+ * the buffer is large enough. The buffer has a fixed layout, in native byte order :
+ *
+ * <ul>
+ *   <li>a header of {@link #HEADER_SIZE} bytes : flags, body count, tick, baseline tick, sub-tick
+ *       time, state hash and number of body records
+ *   <li>the body records, {@link #BODY_SIZE} bytes each, in the order the bodies were tracked : id,
+ *       position, rotation, scale, linear and angular velocities and accelerations, torque, mass,
+ *       restitution, friction, drag, the cosine and sine of the rotation, then the collision
+ *       filter. In a delta snapshot, each record is preceded by the index of the body and only the
+ *       bodies that differ from the baseline have one
+ *   <li>the nodes of the {@link DynamicAabbTree} of each layer of the broad phase, the proxy of
+ *       each body and the proxies that will look for new pairs at the next tick
+ *   <li>the slots of the {@link ContactCache}, with the impulses used to warm start the solver
+ * </ul>
+ *
+ * The internal structures are saved as the arrays they are made of, each one being copied in bulk,
+ * so they are restored exactly and as fast as memory can be copied. The pairs are therefore found
+ * and solved in the same order as before the snapshot, and a deterministic simulation restored from
+ * a snapshot goes on bit for bit as it would have. Those sections are written in full in a delta
+ * snapshot too, only the bodies being compared to the baseline.
+ *
+ * <p>Forces are not part of the snapshot, they are inputs owned by the game and shared between
+ * bodies, as is the hitbox of each body
+ */
+public final class PhysicsSnapshot implements Cleanable {
+
+  /** The size of the header, in bytes */
+  static final int HEADER_SIZE = 48;
+  /** The number of ints of a body record */
+  static final int BODY_INTS = 23;
+  /** The size of a body record, in bytes */
+  static final int BODY_SIZE = BODY_INTS * Integer.BYTES;
+
+  /** The flag of a snapshot only holding the bodies that differ from its baseline */
+  private static final int DELTA = 1;
+  /** The offset of the flags in the header */
+  private static final int FLAGS = 0;
+  /** The offset of the number of bodies in the header */
+  private static final int BODY_COUNT = 4;
+  /** The offset of the tick in the header */
+  private static final int TICK = 8;
+  /** The offset of the tick of the baseline in the header */
+  private static final int BASELINE_TICK = 16;
+  /** The offset of the time not yet simulated in the header */
+  private static final int SUB_TICK = 24;
+  /** The offset of the state hash in the header */
+  private static final int STATE_HASH = 32;
+  /** The offset of the number of body records in the header */
+  private static final int RECORD_COUNT = 40;
+
+  /** The initial capacity of the buffer, in bytes */
+  private static final int INITIAL_CAPACITY = 4096;
+
+  /**
+   * The buffer holding the snapshot, in an array so the reclaim action frees the current buffer
+   * even after it has been grown
+   */
+  private final ByteBuffer[] storage = new ByteBuffer[1];
+  /** The buffer seen as ints, to copy int arrays in bulk */
+  private IntBuffer ints;
+  /** The buffer seen as floats, to copy float arrays in bulk */
+  private FloatBuffer floats;
+  /** The buffer seen as longs, to copy long arrays in bulk */
+  private LongBuffer longs;
+  /** The number of bytes written */
+  private int size = 0;
+  /** The snapshot this one is a delta of, null if it is a full snapshot */
+  private PhysicsSnapshot baseline;
+
+  /** Creates a new empty PhysicsSnapshot */
+  public PhysicsSnapshot() {
+    this(INITIAL_CAPACITY);
+  }
+
+  /**
+   * Creates a new empty PhysicsSnapshot
+   *
+   * @param capacity the initial capacity of the buffer, in bytes
+   */
+  public PhysicsSnapshot(int capacity) {
+    setStorage(MemoryUtil.memAlloc(Math.max(HEADER_SIZE, capacity)));
+    initialize();
+    MemoryManager.account(this, storage[0].capacity(), 0);
+  }
+
+  /**
+   * Sets the buffer holding the snapshot, and creates the views used to copy arrays in bulk
+   *
+   * @param buffer the new buffer
+   */
+  private void setStorage(ByteBuffer buffer) {
+    storage[0] = buffer.clear();
+    ints = buffer.asIntBuffer();
+    floats = buffer.asFloatBuffer();
+    longs = buffer.asLongBuffer();
+  }
+
+  /**
+   * Starts writing a new snapshot, growing the buffer if needed
+   *
+   * @param bytes the maximum number of bytes that will be written
+   * @param baseline the snapshot the new one is a delta of, null for a full snapshot
+   */
+  void begin(int bytes, PhysicsSnapshot baseline) {
+    if (storage[0].capacity() < bytes) {
+      setStorage(MemoryUtil.memRealloc(storage[0], Math.max(bytes, storage[0].capacity() * 2)));
+      MemoryManager.account(this, storage[0].capacity(), 0);
+    }
+    this.baseline = baseline;
+    size = 0;
+    ByteBuffer buffer = storage[0].clear();
+    buffer.putInt(FLAGS, baseline == null ? 0 : DELTA);
+    buffer.putLong(BASELINE_TICK, baseline == null ? -1 : baseline.getTick());
+  }
+
+  /**
+   * Writes the header of the snapshot, once every section has been written
+   *
+   * @param size the number of bytes written
+   * @param bodyCount the number of bodies
+   * @param tick the tick the snapshot is taken at
+   * @param subTick the time not yet simulated
+   * @param stateHash the hash of the state of the bodies
+   * @param recordCount the number of body records
+   */
+  void end(int size, int bodyCount, long tick, double subTick, long stateHash, int recordCount) {
+    ByteBuffer buffer = storage[0];
+    buffer.putInt(BODY_COUNT, bodyCount);
+    buffer.putLong(TICK, tick);
+    buffer.putDouble(SUB_TICK, subTick);
+    buffer.putLong(STATE_HASH, stateHash);
+    buffer.putInt(RECORD_COUNT, recordCount);
+    this.size = size;
+  }
+
+  /**
+   * Writes the record of a body, its floats being written by their exact bits
+   *
+   * @param dest the array to write into
+   * @param offset the index of the record in the array
+   * @param id the stable id of the body
+   * @param physical the body
+   */
+  static void putBody(int[] dest, int offset, int id, Physical physical) {
+    Transform transform = physical.getTransform();
+    PhysicsComponent component = physical.getPhysicsComponent();
+    dest[offset] = id;
+    dest[offset + 1] = Float.floatToRawIntBits(transform.getDisplacement().x);
+    dest[offset + 2] = Float.floatToRawIntBits(transform.getDisplacement().y);
+    dest[offset + 3] = Float.floatToRawIntBits(transform.getRotation());
+    dest[offset + 4] = Float.floatToRawIntBits(transform.getScale().x);
+    dest[offset + 5] = Float.floatToRawIntBits(transform.getScale().y);
+    dest[offset + 6] = Float.floatToRawIntBits(component.getVelocity().x);
+    dest[offset + 7] = Float.floatToRawIntBits(component.getVelocity().y);
+    dest[offset + 8] = Float.floatToRawIntBits(component.getAngularVelocity());
+    dest[offset + 9] = Float.floatToRawIntBits(component.getAcceleration().x);
+    dest[offset + 10] = Float.floatToRawIntBits(component.getAcceleration().y);
+    dest[offset + 11] = Float.floatToRawIntBits(component.getAngularAcceleration());
+    dest[offset + 12] = Float.floatToRawIntBits(component.getTorque());
+    dest[offset + 13] = Float.floatToRawIntBits(component.getMass());
+    dest[offset + 14] = Float.floatToRawIntBits(component.getRestitution());
+    dest[offset + 15] = Float.floatToRawIntBits(component.getFriction());
+    dest[offset + 16] = Float.floatToRawIntBits(component.getDrag().x);
+    dest[offset + 17] = Float.floatToRawIntBits(component.getDrag().y);
+    dest[offset + 18] = Float.floatToRawIntBits(component.getCos());
+    dest[offset + 19] = Float.floatToRawIntBits(component.getSin());
+    dest[offset + 20] = component.getCategoryBits();
+    dest[offset + 21] = component.getMaskBits();
+    dest[offset + 22] = component.getGroup();
+  }
+
+  /**
+   * Applies the record of a body to it. Its Transform is only committed if it differs from the
+   * record, so the bodies that have not moved keep their cached world hitbox, the others having it
+   * recomputed from the saved rotation without any trigonometry
+   *
+   * @param src the array to read from
+   * @param offset the index of the record in the array
+   * @param physical the body
+   * @param strict is the world hitbox computed with {@link StrictMath} in the simulation
+   */
+  static void getBody(int[] src, int offset, Physical physical, boolean strict) {
+    Transform transform = physical.getTransform();
+    PhysicsComponent component = physical.getPhysicsComponent();
+    float x = Float.intBitsToFloat(src[offset + 1]);
+    float y = Float.intBitsToFloat(src[offset + 2]);
+    float rotation = Float.intBitsToFloat(src[offset + 3]);
+    float scaleX = Float.intBitsToFloat(src[offset + 4]);
+    float scaleY = Float.intBitsToFloat(src[offset + 5]);
+    if (x != transform.getDisplacement().x
+        || y != transform.getDisplacement().y
+        || rotation != transform.getRotation()
+        || scaleX != transform.getScale().x
+        || scaleY != transform.getScale().y) {
+      transform.setDisplacement(x, y);
+      transform.setRotation(rotation);
+      transform.setScale(scaleX, scaleY);
+      transform.commit();
+    }
+    component.setVelocity(
+        Float.intBitsToFloat(src[offset + 6]), Float.intBitsToFloat(src[offset + 7]));
+    component.setAngularVelocity(Float.intBitsToFloat(src[offset + 8]));
+    component.setAcceleration(
+        Float.intBitsToFloat(src[offset + 9]), Float.intBitsToFloat(src[offset + 10]));
+    component.setAngularAcceleration(Float.intBitsToFloat(src[offset + 11]));
+    component.setTorque(Float.intBitsToFloat(src[offset + 12]));
+    component.setMass(Float.intBitsToFloat(src[offset + 13]));
+    component.setRestitution(Float.intBitsToFloat(src[offset + 14]));
+    component.setFriction(Float.intBitsToFloat(src[offset + 15]));
+    component.setDrag(
+        Float.intBitsToFloat(src[offset + 16]), Float.intBitsToFloat(src[offset + 17]));
+    component.setFilter(src[offset + 20], src[offset + 21], src[offset + 22]);
+    component.restoreWorldHitbox(
+        transform,
+        Float.intBitsToFloat(src[offset + 18]),
+        Float.intBitsToFloat(src[offset + 19]),
+        strict);
+  }
+
+  /**
+   * Returns the number of bytes needed to copy an array of ints, longs or floats, including the
+   * padding that may be needed to align it
+   *
+   * @param count the number of elements
+   * @param bytes the number of bytes of each element
+   * @return the number of bytes needed
+   */
+  static int arraySize(int count, int bytes) {
+    return count * bytes + Long.BYTES;
+  }
+
+  /**
+   * Aligns an offset to the next multiple of 8, so longs can be copied in bulk from there
+   *
+   * @param offset the offset
+   * @return the aligned offset
+   */
+  static int align(int offset) {
+    return (offset + Long.BYTES - 1) & -Long.BYTES;
+  }
+
+  /**
+   * Writes an int
+   *
+   * @param offset the offset to write at
+   * @param value the int
+   * @return the offset following the int
+   */
+  int putInt(int offset, int value) {
+    storage[0].putInt(offset, value);
+    return offset + Integer.BYTES;
+  }
+
+  /**
+   * Reads an int
+   *
+   * @param offset the offset to read at
+   * @return the int
+   */
+  int getInt(int offset) {
+    return storage[0].getInt(offset);
+  }
+
+  /**
+   * Copies the start of a byte array
+   *
+   * @param offset the offset to write at
+   * @param src the array
+   * @param count the number of bytes to copy
+   * @return the offset following the copied bytes
+   */
+  int putBytes(int offset, byte[] src, int count) {
+    storage[0].put(offset, src, 0, count);
+    return offset + count;
+  }
+
+  /**
+   * Copies bytes into the start of an array
+   *
+   * @param offset the offset to read at
+   * @param dest the array
+   * @param count the number of bytes to copy
+   * @return the offset following the copied bytes
+   */
+  int getBytes(int offset, byte[] dest, int count) {
+    storage[0].get(offset, dest, 0, count);
+    return offset + count;
+  }
+
+  /**
+   * Copies a range of an int array, after aligning the offset
+   *
+   * @param offset the offset to write at, aligned to the next multiple of 4
+   * @param src the array
+   * @param from the index of the first int to copy
+   * @param count the number of ints to copy
+   * @return the offset following the copied ints
+   */
+  int putInts(int offset, int[] src, int from, int count) {
+    offset = (offset + 3) & -4;
+    ints.put(offset / Integer.BYTES, src, from, count);
+    return offset + count * Integer.BYTES;
+  }
+
+  /**
+   * Copies ints into a range of an array, after aligning the offset
+   *
+   * @param offset the offset to read at, aligned to the next multiple of 4
+   * @param dest the array
+   * @param from the index of the first int to copy into
+   * @param count the number of ints to copy
+   * @return the offset following the copied ints
+   */
+  int getInts(int offset, int[] dest, int from, int count) {
+    offset = (offset + 3) & -4;
+    ints.get(offset / Integer.BYTES, dest, from, count);
+    return offset + count * Integer.BYTES;
+  }
+
+  /**
+   * Copies the start of a float array, after aligning the offset
+   *
+   * @param offset the offset to write at, aligned to the next multiple of 4
+   * @param src the array
+   * @param count the number of floats to copy
+   * @return the offset following the copied floats
+   */
+  int putFloats(int offset, float[] src, int count) {
+    offset = (offset + 3) & -4;
+    floats.put(offset / Float.BYTES, src, 0, count);
+    return offset + count * Float.BYTES;
+  }
+
+  /**
+   * Copies floats into the start of an array, after aligning the offset
+   *
+   * @param offset the offset to read at, aligned to the next multiple of 4
+   * @param dest the array
+   * @param count the number of floats to copy
+   * @return the offset following the copied floats
+   */
+  int getFloats(int offset, float[] dest, int count) {
+    offset = (offset + 3) & -4;
+    floats.get(offset / Float.BYTES, dest, 0, count);
+    return offset + count * Float.BYTES;
+  }
+
+  /**
+   * Copies the start of a long array, after aligning the offset
+   *
+   * @param offset the offset to write at, aligned to the next multiple of 8
+   * @param src the array
+   * @param count the number of longs to copy
+   * @return the offset following the copied longs
+   */
+  int putLongs(int offset, long[] src, int count) {
+    offset = align(offset);
+    longs.put(offset / Long.BYTES, src, 0, count);
+    return offset + count * Long.BYTES;
+  }
+
+  /**
+   * Copies longs into the start of an array, after aligning the offset
+   *
+   * @param offset the offset to read at, aligned to the next multiple of 8
+   * @param dest the array
+   * @param count the number of longs to copy
+   * @return the offset following the copied longs
+   */
+  int getLongs(int offset, long[] dest, int count) {
+    offset = align(offset);
+    longs.get(offset / Long.BYTES, dest, 0, count);
+    return offset + count * Long.BYTES;
+  }
+
+  /**
+   * Returns the buffer holding the snapshot, its content must not be modified
+   *
+   * @return the buffer holding the snapshot, with its limit set to the number of bytes written
+   */
+  public ByteBuffer getBuffer() {
+    return storage[0].clear().limit(size);
+  }
+
+  /**
+   * Returns the number of bytes written
+   *
+   * @return the number of bytes written, 0 if nothing has been written yet
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns whether the snapshot only holds the bodies that differ from its baseline
+   *
+   * @return true if the snapshot is a delta, false if it is a full snapshot
+   */
+  public boolean isDelta() {
+    return size > 0 && baseline != null;
+  }
+
+  /**
+   * Returns the snapshot this one is a delta of
+   *
+   * @return the baseline of the snapshot, null if it is a full snapshot
+   */
+  public PhysicsSnapshot getBaseline() {
+    return baseline;
+  }
+
+  /**
+   * Returns the tick the snapshot has been taken at
+   *
+   * @return the number of ticks simulated when the snapshot was taken, -1 if nothing has been
+   *     written yet
+   */
+  public long getTick() {
+    return size == 0 ? -1 : storage[0].getLong(TICK);
+  }
+
+  /**
+   * Returns the tick of the baseline the snapshot is a delta of, as it was when the delta was taken
+   *
+   * @return the tick of the baseline, -1 if the snapshot is a full one
+   */
+  public long getBaselineTick() {
+    return size == 0 ? -1 : storage[0].getLong(BASELINE_TICK);
+  }
+
+  /**
+   * Returns the number of bodies of the simulation when the snapshot was taken
+   *
+   * @return the number of bodies
+   */
+  public int getBodyCount() {
+    return size == 0 ? 0 : storage[0].getInt(BODY_COUNT);
+  }
+
+  /**
+   * Returns the number of body records, lower than the number of bodies for a delta
+   *
+   * @return the number of body records
+   */
+  public int getRecordCount() {
+    return size == 0 ? 0 : storage[0].getInt(RECORD_COUNT);
+  }
+
+  /**
+   * Returns the hash of the state of the bodies when the snapshot was taken
+   *
+   * @return the hash of the state of the bodies, 0 if the simulation was not deterministic
+   */
+  public long getStateHash() {
+    return size == 0 ? 0 : storage[0].getLong(STATE_HASH);
+  }
+
+  /**
+   * Returns the time that was not yet simulated when the snapshot was taken
+   *
+   * @return the time not yet simulated, in seconds
+   */
+  double getSubTick() {
+    return storage[0].getDouble(SUB_TICK);
+  }
+
+  /**
+   * Returns the offset of the sections following the body records
+   *
+   * @return the offset of the broad phase section
+   */
+  int getWorldOffset() {
+    int stride = isDelta() ? BODY_SIZE + Integer.BYTES : BODY_SIZE;
+    return HEADER_SIZE + getRecordCount() * stride;
+  }
+
+  /** Frees the buffer of the snapshot */
+  @Override
+  public void cleanUp() {
+    MemoryUtil.memFree(storage[0]);
+  }
+
+  /**
+   * Returns an action freeing the buffer of the snapshot once it has become unreachable
+   *
+   * @return an action freeing the buffer of the snapshot
+   */
+  @Override
+  public Runnable getReclaimAction() {
+    ByteBuffer[] buffers = storage;
+    return () -> MemoryUtil.memFree(buffers[0]);
+  }
+}
@@ -36,6 +36,9 @@ public class Polygon {
   public float[] xpoints;
   public float[] ypoints;
   protected Rectangle2D bounds;
+  // Bumped by every mutator, so caches of the points can tell they are stale even when their count
+  // is unchanged, invalidate() must be called after writing to xpoints or ypoints directly
+  private int version = 0;
 
   private static final int MIN_LENGTH = 4;
 
@@ -66,10 +69,25 @@ public class Polygon {
   public void reset() {
     npoints = 0;
     bounds = null;
+    version++;
   }
 
   public void invalidate() {
     bounds = null;
+    version++;
+  }
+
+  public int getVersion() {
+    return version;
+  }
+
+  public void setPoint(int index, float x, float y) {
+    if (index < 0 || index >= npoints) {
+      throw new IndexOutOfBoundsException("index " + index + " out of " + npoints + " points");
+    }
+    xpoints[index] = x;
+    ypoints[index] = y;
+    invalidate();
   }
 
   public void translate(float deltaX, float deltaY) {
@@ -78,15 +96,18 @@ public class Polygon {
       ypoints[i] += deltaY;
     }
     if (bounds != null) {
-      bounds.add(deltaX, deltaY);
+      bounds.setRect(
+          bounds.getX() + deltaX, bounds.getY() + deltaY, bounds.getWidth(), bounds.getHeight());
     }
+    version++;
   }
 
   void calculateBounds(float[] xpoints, float[] ypoints, int npoints) {
     float boundsMinX = Float.MAX_VALUE;
     float boundsMinY = Float.MAX_VALUE;
-    float boundsMaxX = Float.MIN_VALUE;
-    float boundsMaxY = Float.MIN_VALUE;
+    // Float.MIN_VALUE is the smallest positive float, not the lowest one
+    float boundsMaxX = -Float.MAX_VALUE;
+    float boundsMaxY = -Float.MAX_VALUE;
 
     for (int i = 0; i < npoints; i++) {
       float x = xpoints[i];
@@ -102,22 +123,7 @@ public class Polygon {
   }
 
   void updateBounds(float x, float y) {
-    if (x < bounds.getX()) {
-      bounds.setRect(x, bounds.getY(), bounds.getWidth() + (bounds.getX() - x), bounds.getHeight());
-    } else {
-      bounds.setRect(
-          bounds.getX(),
-          bounds.getY(),
-          Math.max(bounds.getWidth(), x - bounds.getX()),
-          bounds.getHeight());
-    }
-
-    if (y < bounds.getY()) {
-      bounds.setRect(bounds.getX(), y, bounds.getWidth(), bounds.getHeight() + (bounds.getY() - y));
-    } else {
-      bounds.setRect(
-          bounds.getX(), y, bounds.getWidth(), Math.max(bounds.getHeight(), y - bounds.getY()));
-    }
+    bounds.add(x, y);
   }
 
   public void addPoint(float x, float y) {
@@ -140,16 +146,27 @@ public class Polygon {
     if (bounds != null) {
       updateBounds(x, y);
     }
+    version++;
   }
 
   public Rectangle2D getBoundingBox() {
     if (npoints == 0) {
       return new Rectangle2D.Float();
     }
+    // A copy, so callers can't corrupt the cache, the bounds are not rounded to integers anymore,
+    // getBoundingBox(Aabb) avoids the allocation
+    return (Rectangle2D) cachedBounds().clone();
+  }
+
+  private Rectangle2D cachedBounds() {
     if (bounds == null) {
       calculateBounds(xpoints, ypoints, npoints);
     }
-    return bounds.getBounds();
+    return bounds;
+  }
+
+  public Aabb getBoundingBox(Aabb dest) {
+    return dest.setBounds(xpoints, ypoints, npoints);
   }
 
   @Deprecated
@@ -158,7 +175,7 @@ public class Polygon {
   }
 
   public boolean contains(float x, float y) {
-    if (npoints <= 2 || !getBoundingBox().contains(x, y)) {
+    if (npoints <= 2 || !cachedBounds().contains(x, y)) {
       return false;
     }
     int hits = 0;
@@ -242,13 +259,11 @@ public class Polygon {
   }
 
   public float getMomentOfInertia(float m) {
-    if (bounds == null) {
-      calculateBounds(xpoints, ypoints, npoints);
-    }
+    Rectangle2D bounds = cachedBounds();
     return (float)
         (m
-            * (bounds.getWidth() * bounds.getWidth()
-                + bounds.getHeight() * bounds.getHeight() / 12));
+            * (bounds.getWidth() * bounds.getWidth() + bounds.getHeight() * bounds.getHeight())
+            / 12);
   }
 
   static class PolygonPathIterator implements PathIterator {
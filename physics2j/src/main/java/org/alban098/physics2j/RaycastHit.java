@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.physics2j;
+
+import org.joml.Vector2f;
+
+/**
+ * The closest hit of a raycast or a segment cast, filled by the {@link PhysicsManager}. A
+ * RaycastHit is meant to be reused from one cast to the next, so casting does not allocate
+ */
+public final class RaycastHit {
+
+  /** The Physical that has been hit */
+  private Physical body;
+  /** The fraction of the cast segment at which the hit occurred, in [0, 1] */
+  private float fraction;
+  /** The point at which the hit occurred */
+  private final Vector2f point = new Vector2f();
+  /** The normal of the hitbox at the hit, facing the start of the cast */
+  private final Vector2f normal = new Vector2f();
+
+  /**
+   * Sets the RaycastHit to a new hit
+   *
+   * @param body the Physical that has been hit
+   * @param x1 the x coordinate of the start of the cast segment
+   * @param y1 the y coordinate of the start of the cast segment
+   * @param x2 the x coordinate of the end of the cast segment
+   * @param y2 the y coordinate of the end of the cast segment
+   * @param fraction the fraction of the segment at which the hit occurred
+   * @param normalX the x component of the normal at the hit
+   * @param normalY the y component of the normal at the hit
+   */
+  void set(
+      Physical body,
+      float x1,
+      float y1,
+      float x2,
+      float y2,
+      float fraction,
+      float normalX,
+      float normalY) {
+    this.body = body;
+    this.fraction = fraction;
+    point.set(x1 + (x2 - x1) * fraction, y1 + (y2 - y1) * fraction);
+    normal.set(normalX, normalY);
+  }
+
+  /** Clears the RaycastHit, after a cast that has hit nothing */
+  void clear() {
+    body = null;
+    fraction = 1;
+    point.set(0);
+    normal.set(0);
+  }
+
+  /**
+   * Returns the Physical that has been hit
+   *
+   * @return the Physical that has been hit, null if the cast has hit nothing
+   */
+  public Physical getBody() {
+    return body;
+  }
+
+  /**
+   * Returns the fraction of the cast segment at which the hit occurred, for a raycast the distance
+   * to the hit is this fraction of the maximum distance
+   *
+   * @return the fraction of the cast segment at which the hit occurred
+   */
+  public float getFraction() {
+    return fraction;
+  }
+
+  /**
+   * Returns the point at which the hit occurred
+   *
+   * @return the point at which the hit occurred
+   */
+  public Vector2f getPoint() {
+    return point;
+  }
+
+  /**
+   * Returns the normal of the hitbox at the hit, facing the start of the cast
+   *
+   * @return the normal of the hitbox at the hit
+   */
+  public Vector2f getNormal() {
+    return normal;
+  }
+}
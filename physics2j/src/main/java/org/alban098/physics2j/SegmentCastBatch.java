@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.physics2j;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A range of a batch of segment casts, split in halves until small enough to be cast by a single
+ * worker. Each worker casts with its own {@link WorldQuery}, reused from one batch to the next
+ */
+final class SegmentCastBatch extends RecursiveAction {
+
+  /** The number of segments below which a range is cast by a single worker */
+  static final int GRAIN = 256;
+
+  /** The broad phase of the queried world */
+  private final BroadPhase broadPhase;
+  /** The Physical owning each body of the last tick */
+  private final Physical[] physicals;
+  /** The tracked Physicals, indexed by their stable id */
+  private final Physical[] trackedById;
+  /** The WorldQuery of each worker */
+  private final ThreadLocal<WorldQuery> queries;
+  /** The segments to cast, as 4 floats per segment : x1, y1, x2, y2 */
+  private final float[] segments;
+  /** The first segment of the range */
+  private final int from;
+  /** The segment after the last one of the range */
+  private final int to;
+  /** The fraction of each segment at its closest hit, -1 if nothing was hit */
+  private final float[] fractions;
+  /** The normals at the closest hits, as 2 floats per segment, may be null */
+  private final float[] normals;
+  /** The Physical hit by each segment, may be null */
+  private final Physical[] bodies;
+
+  /**
+   * Creates a new SegmentCastBatch
+   *
+   * @param broadPhase the broad phase of the queried world
+   * @param physicals the Physical owning each body of the last tick
+   * @param trackedById the tracked Physicals, indexed by their stable id
+   * @param queries the WorldQuery of each worker
+   * @param segments the segments to cast, as 4 floats per segment : x1, y1, x2, y2
+   * @param from the first segment of the range
+   * @param to the segment after the last one of the range
+   * @param fractions the array receiving the fraction of each segment at its closest hit
+   * @param normals the array receiving the normals at the closest hits, may be null
+   * @param bodies the array receiving the Physical hit by each segment, may be null
+   */
+  SegmentCastBatch(
+      BroadPhase broadPhase,
+      Physical[] physicals,
+      Physical[] trackedById,
+      ThreadLocal<WorldQuery> queries,
+      float[] segments,
+      int from,
+      int to,
+      float[] fractions,
+      float[] normals,
+      Physical[] bodies) {
+    this.broadPhase = broadPhase;
+    this.physicals = physicals;
+    this.trackedById = trackedById;
+    this.queries = queries;
+    this.segments = segments;
+    this.from = from;
+    this.to = to;
+    this.fractions = fractions;
+    this.normals = normals;
+    this.bodies = bodies;
+  }
+
+  /** Casts the range, or splits it in halves cast in parallel */
+  @Override
+  protected void compute() {
+    if (to - from <= GRAIN) {
+      WorldQuery query = queries.get();
+      query.bind(broadPhase, physicals, trackedById);
+      cast(query, segments, from, to, fractions, normals, bodies);
+      return;
+    }
+    int middle = (from + to) >>> 1;
+    invokeAll(
+        new SegmentCastBatch(
+            broadPhase,
+            physicals,
+            trackedById,
+            queries,
+            segments,
+            from,
+            middle,
+            fractions,
+            normals,
+            bodies),
+        new SegmentCastBatch(
+            broadPhase,
+            physicals,
+            trackedById,
+            queries,
+            segments,
+            middle,
+            to,
+            fractions,
+            normals,
+            bodies));
+  }
+
+  /**
+   * Casts a range of segments with a WorldQuery, filling the result arrays
+   *
+   * @param query the WorldQuery to cast with, bound to the queried world
+   * @param segments the segments to cast, as 4 floats per segment : x1, y1, x2, y2
+   * @param from the first segment of the range
+   * @param to the segment after the last one of the range
+   * @param fractions the array receiving the fraction of each segment at its closest hit
+   * @param normals the array receiving the normals at the closest hits, may be null
+   * @param bodies the array receiving the Physical hit by each segment, may be null
+   */
+  static void cast(
+      WorldQuery query,
+      float[] segments,
+      int from,
+      int to,
+      float[] fractions,
+      float[] normals,
+      Physical[] bodies) {
+    for (int i = from; i < to; i++) {
+      int segment = i * 4;
+      float fraction =
+          query.castSegment(
+              segments[segment],
+              segments[segment + 1],
+              segments[segment + 2],
+              segments[segment + 3],
+              null);
+      fractions[i] = fraction;
+      if (normals != null) {
+        normals[i * 2] = fraction < 0 ? 0 : query.getHitNormalX();
+        normals[i * 2 + 1] = fraction < 0 ? 0 : query.getHitNormalY();
+      }
+      if (bodies != null) {
+        bodies[i] = query.getHitBody();
+      }
+    }
+  }
+}
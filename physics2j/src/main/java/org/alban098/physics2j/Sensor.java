@@ -0,0 +1,280 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.physics2j;
+
+import org.alban098.common.Transform;
+
+/**
+ * A non-solid volume detecting the bodies overlapping it, for pickups, area effects or camera
+ * regions. A Sensor is never integrated nor solved, it only takes part in the broad phase and in an
+ * exact overlap test against the hitboxes of the bodies, the {@link PhysicsManager} reporting the
+ * bodies entering and leaving it through its {@link SensorEventBuffer}.
+ *
+ * <p>A static Sensor has its shape given in world space once and for all, and is kept in a tree of
+ * its own that is only touched when a static Sensor is added or removed. Only the bodies that have
+ * moved during a tick are tested against it, so a static Sensor costs nothing while nothing moves
+ * around it. A moving Sensor follows a {@link Transform}, its shape being rotated and translated
+ * like a hitbox, and searches the bodies overlapping it every tick. Only the bodies tracked with
+ * {@link PhysicsManager#track(Physical)} are detected, static bodies never are
+ */
+public final class Sensor {
+
+  /**
+   * The shape of the Sensor, in world space if it is static, relative to its Transform otherwise
+   */
+  private final Polygon shape;
+  /** The Transform the Sensor follows, null if it is static */
+  private final Transform transform;
+  /** The x coordinates of the vertices of the shape, in world space */
+  private float[] worldXPoints;
+  /** The y coordinates of the vertices of the shape, in world space */
+  private float[] worldYPoints;
+  /** The number of vertices of the shape in world space, -1 until first computed */
+  private int worldPointCount = -1;
+  /** The bounds of the shape in world space */
+  private final Aabb bounds = new Aabb();
+  /** The version of the Transform the shape in world space has been computed for */
+  private int worldVersion;
+  /** The version of the shape the shape in world space has been computed for */
+  private int worldShapeVersion;
+  /** The category bits of the Sensor */
+  private int categoryBits = CollisionFilter.DEFAULT_CATEGORY;
+  /** The mask bits of the Sensor, telling which categories of bodies it detects */
+  private int maskBits = CollisionFilter.ALL;
+  /** The stable id of the Sensor in its {@link PhysicsManager}, -1 if not added to any */
+  private int id = -1;
+  /** The proxy of a static Sensor in the tree of the static Sensors */
+  private int proxy = DynamicAabbTree.NULL_NODE;
+  /** The system the Sensor has been added to, null if none */
+  private SensorSystem system;
+
+  /**
+   * Creates a new static Sensor
+   *
+   * @param shape the shape of the Sensor, in world space
+   */
+  public Sensor(Polygon shape) {
+    this(shape, null);
+  }
+
+  /**
+   * Creates a new Sensor
+   *
+   * @param shape the shape of the Sensor, relative to the Transform if any, in world space
+   *     otherwise
+   * @param transform the Transform the Sensor follows, null for a static Sensor
+   */
+  public Sensor(Polygon shape, Transform transform) {
+    if (shape.npoints < 3) {
+      throw new IllegalArgumentException("The shape of a Sensor must have at least 3 vertices");
+    }
+    this.shape = shape;
+    this.transform = transform;
+    this.worldXPoints = new float[shape.npoints];
+    this.worldYPoints = new float[shape.npoints];
+  }
+
+  /**
+   * Brings the shape in world space up to date with the Transform, only recomputing it if the
+   * Transform has committed a change or the shape has been edited since the last time
+   *
+   * @return true if the shape in world space has been recomputed, false otherwise
+   */
+  boolean updateWorldShape() {
+    int count = shape.npoints;
+    if (worldPointCount == count
+        && shape.getVersion() == worldShapeVersion
+        && (transform == null || transform.getVersion() == worldVersion)) {
+      return false;
+    }
+    if (worldXPoints.length < count) {
+      worldXPoints = new float[count];
+      worldYPoints = new float[count];
+    }
+    worldPointCount = count;
+    worldShapeVersion = shape.getVersion();
+    if (transform == null) {
+      System.arraycopy(shape.xpoints, 0, worldXPoints, 0, count);
+      System.arraycopy(shape.ypoints, 0, worldYPoints, 0, count);
+    } else {
+      worldVersion = transform.getVersion();
+      float cos = (float) Math.cos(transform.getRotation());
+      float sin = (float) Math.sin(transform.getRotation());
+      float x = transform.getDisplacement().x;
+      float y = transform.getDisplacement().y;
+      for (int i = 0; i < count; i++) {
+        worldXPoints[i] = x + cos * shape.xpoints[i] - sin * shape.ypoints[i];
+        worldYPoints[i] = y + sin * shape.xpoints[i] + cos * shape.ypoints[i];
+      }
+    }
+    bounds.setBounds(worldXPoints, worldYPoints, count);
+    return true;
+  }
+
+  /**
+   * Returns whether the Sensor is static
+   *
+   * @return true if the Sensor does not follow any Transform, false otherwise
+   */
+  public boolean isStatic() {
+    return transform == null;
+  }
+
+  /**
+   * Returns the shape of the Sensor, a static Sensor must be removed and added back for a change to
+   * its shape to be seen
+   *
+   * @return the shape of the Sensor, in world space if it is static, relative to its Transform
+   *     otherwise
+   */
+  public Polygon getShape() {
+    return shape;
+  }
+
+  /**
+   * Returns the Transform the Sensor follows
+   *
+   * @return the Transform the Sensor follows, null if it is static
+   */
+  public Transform getTransform() {
+    return transform;
+  }
+
+  /**
+   * Returns the x coordinates of the vertices of the shape in world space, as of the last tick
+   *
+   * @return the x coordinates of the vertices of the shape in world space
+   */
+  public float[] getWorldXPoints() {
+    return worldXPoints;
+  }
+
+  /**
+   * Returns the y coordinates of the vertices of the shape in world space, as of the last tick
+   *
+   * @return the y coordinates of the vertices of the shape in world space
+   */
+  public float[] getWorldYPoints() {
+    return worldYPoints;
+  }
+
+  /**
+   * Returns the number of vertices of the shape in world space
+   *
+   * @return the number of vertices of the shape in world space, 0 if not computed yet
+   */
+  public int getWorldPointCount() {
+    return Math.max(worldPointCount, 0);
+  }
+
+  /**
+   * Returns the bounds of the shape in world space, as of the last tick
+   *
+   * @return the bounds of the shape in world space
+   */
+  public Aabb getBounds() {
+    return bounds;
+  }
+
+  /**
+   * Returns the category bits of the Sensor
+   *
+   * @return the category bits of the Sensor
+   */
+  public int getCategoryBits() {
+    return categoryBits;
+  }
+
+  /**
+   * Returns the mask bits of the Sensor
+   *
+   * @return the mask bits of the Sensor, telling which categories of bodies it detects
+   */
+  public int getMaskBits() {
+    return maskBits;
+  }
+
+  /**
+   * Sets the filter of the Sensor. A body is only detected if the filters of both accept the other,
+   * as for a collision, groups being ignored. A static Sensor is tested again against every body at
+   * the next tick
+   *
+   * @param categoryBits the category bits of the Sensor
+   * @param maskBits the mask bits of the Sensor, telling which categories of bodies it detects
+   */
+  public void setFilter(int categoryBits, int maskBits) {
+    this.categoryBits = categoryBits;
+    this.maskBits = maskBits;
+    if (system != null) {
+      system.rescan(this);
+    }
+  }
+
+  /**
+   * Tests whether the filters of the Sensor and of a body let the Sensor detect the body
+   *
+   * @param category the category bits of the body
+   * @param mask the mask bits of the body
+   * @return true if the Sensor detects the body, false otherwise
+   */
+  boolean accepts(int category, int mask) {
+    return (categoryBits & mask) != 0 && (category & maskBits) != 0;
+  }
+
+  /**
+   * Returns the stable id of the Sensor in its {@link PhysicsManager}
+   *
+   * @return the stable id of the Sensor, -1 if not added to any
+   */
+  int getId() {
+    return id;
+  }
+
+  /**
+   * Sets the stable id of the Sensor in its {@link PhysicsManager}
+   *
+   * @param id the stable id of the Sensor, -1 once removed
+   */
+  void setId(int id) {
+    this.id = id;
+  }
+
+  /**
+   * Returns the proxy of a static Sensor in the tree of the static Sensors
+   *
+   * @return the proxy of the Sensor, {@link DynamicAabbTree#NULL_NODE} if none
+   */
+  int getProxy() {
+    return proxy;
+  }
+
+  /**
+   * Sets the proxy of a static Sensor in the tree of the static Sensors
+   *
+   * @param proxy the proxy of the Sensor, {@link DynamicAabbTree#NULL_NODE} if none
+   */
+  void setProxy(int proxy) {
+    this.proxy = proxy;
+  }
+
+  /**
+   * Returns the system the Sensor has been added to
+   *
+   * @return the system the Sensor has been added to, null if none
+   */
+  SensorSystem getSystem() {
+    return system;
+  }
+
+  /**
+   * Sets the system the Sensor has been added to
+   *
+   * @param system the system the Sensor has been added to, null once removed
+   */
+  void setSystem(SensorSystem system) {
+    this.system = system;
+  }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.physics2j;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A lock-free single producer, single consumer ring of {@link Sensor} events. The simulation
+ * produces the events of a tick into a private batch, then publishes the batch with a single atomic
+ * store, so the consumer, the simulation thread itself or any other single thread, only ever sees
+ * whole ticks and neither side ever waits for the other. When the ring is full, the events that do
+ * not fit stay in the batch and are published at the next tick, in order, so no event is ever lost
+ * nor reordered
+ */
+public final class SensorEventBuffer {
+
+  /** The default number of events the ring can hold */
+  static final int DEFAULT_CAPACITY = 4096;
+
+  /** The type of event of a body entering a Sensor */
+  private static final int ENTER = 0;
+  /** The type of event of a body leaving a Sensor */
+  private static final int EXIT = 1;
+
+  /** The mask turning a position into an index of the ring, the capacity being a power of 2 */
+  private final int mask;
+  /** The type of each event of the ring */
+  private final int[] types;
+  /** The Sensor of each event of the ring */
+  private final Sensor[] sensors;
+  /** The body of each event of the ring */
+  private final Physical[] bodies;
+  /** The number of events ever published, only written by the producer */
+  private final AtomicLong tail = new AtomicLong();
+  /** The number of events ever consumed, only written by the consumer */
+  private final AtomicLong head = new AtomicLong();
+
+  /** The type of each event of the batch not published yet */
+  private int[] batchTypes = new int[64];
+  /** The Sensor of each event of the batch not published yet */
+  private Sensor[] batchSensors = new Sensor[64];
+  /** The body of each event of the batch not published yet */
+  private Physical[] batchBodies = new Physical[64];
+  /** The number of events of the batch not published yet */
+  private int batchCount = 0;
+
+  /**
+   * Creates a new SensorEventBuffer
+   *
+   * @param capacity the number of events the ring can hold, rounded up to a power of 2
+   */
+  public SensorEventBuffer(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("The capacity of a SensorEventBuffer must be positive");
+    }
+    int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+    mask = size - 1;
+    types = new int[size];
+    sensors = new Sensor[size];
+    bodies = new Physical[size];
+  }
+
+  /**
+   * Adds the event of a body entering a Sensor to the batch, must only be called by the producer
+   *
+   * @param sensor the Sensor
+   * @param body the body entering the Sensor
+   */
+  void addEnter(Sensor sensor, Physical body) {
+    add(ENTER, sensor, body);
+  }
+
+  /**
+   * Adds the event of a body leaving a Sensor to the batch, must only be called by the producer
+   *
+   * @param sensor the Sensor
+   * @param body the body leaving the Sensor
+   */
+  void addExit(Sensor sensor, Physical body) {
+    add(EXIT, sensor, body);
+  }
+
+  /**
+   * Adds an event to the batch
+   *
+   * @param type the type of the event
+   * @param sensor the Sensor
+   * @param body the body
+   */
+  private void add(int type, Sensor sensor, Physical body) {
+    if (batchCount == batchTypes.length) {
+      int capacity = batchCount * 2;
+      batchTypes = Arrays.copyOf(batchTypes, capacity);
+      batchSensors = Arrays.copyOf(batchSensors, capacity);
+      batchBodies = Arrays.copyOf(batchBodies, capacity);
+    }
+    batchTypes[batchCount] = type;
+    batchSensors[batchCount] = sensor;
+    batchBodies[batchCount] = body;
+    batchCount++;
+  }
+
+  /**
+   * Publishes as many events of the batch as the ring can hold, the others staying in the batch
+   * until the next publication, must only be called by the producer
+   *
+   * @return the number of events published
+   */
+  int publish() {
+    long position = tail.get();
+    int count = (int) Math.min(batchCount, types.length - (position - head.get()));
+    for (int i = 0; i < count; i++) {
+      int index = (int) (position + i) & mask;
+      types[index] = batchTypes[i];
+      sensors[index] = batchSensors[i];
+      bodies[index] = batchBodies[i];
+    }
+    // Every event is written before the new tail becomes visible to the consumer
+    tail.lazySet(position + count);
+
+    int left = batchCount - count;
+    System.arraycopy(batchTypes, count, batchTypes, 0, left);
+    System.arraycopy(batchSensors, count, batchSensors, 0, left);
+    System.arraycopy(batchBodies, count, batchBodies, 0, left);
+    // Do not keep the Sensors and bodies alive through the batch
+    Arrays.fill(batchSensors, left, batchCount, null);
+    Arrays.fill(batchBodies, left, batchCount, null);
+    batchCount = left;
+    return count;
+  }
+
+  /**
+   * Hands every published event to a listener, in the order they occurred, must only be called by
+   * the consumer
+   *
+   * @param listener the listener receiving the events
+   * @return the number of events drained
+   */
+  public int drain(SensorListener listener) {
+    long start = head.get();
+    long position = start;
+    long end = tail.get();
+    try {
+      for (; position < end; position++) {
+        int index = (int) position & mask;
+        Sensor sensor = sensors[index];
+        Physical body = bodies[index];
+        // The slot is freed before the listener runs, so it may throw without corrupting the ring
+        sensors[index] = null;
+        bodies[index] = null;
+        if (types[index] == ENTER) {
+          listener.onEnter(sensor, body);
+        } else {
+          listener.onExit(sensor, body);
+        }
+      }
+    } finally {
+      head.lazySet(Math.min(position + 1, end));
+    }
+    return (int) (end - start);
+  }
+
+  /**
+   * Returns the number of published events waiting to be drained
+   *
+   * @return the number of published events waiting to be drained
+   */
+  public int size() {
+    return (int) (tail.get() - head.get());
+  }
+
+  /**
+   * Returns the number of events that did not fit in the ring at the last publication, they will be
+   * published at the next tick, must only be called by the producer
+   *
+   * @return the number of events waiting to be published
+   */
+  public int getPendingCount() {
+    return batchCount;
+  }
+
+  /**
+   * Returns the number of events the ring can hold
+   *
+   * @return the number of events the ring can hold
+   */
+  public int getCapacity() {
+    return types.length;
+  }
+}
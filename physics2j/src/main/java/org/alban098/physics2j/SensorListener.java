@@ -0,0 +1,27 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.physics2j;
+
+/** Receives the events drained from a {@link SensorEventBuffer} */
+public interface SensorListener {
+
+  /**
+   * Called when a body has started to overlap a Sensor
+   *
+   * @param sensor the Sensor
+   * @param body the body entering the Sensor
+   */
+  void onEnter(Sensor sensor, Physical body);
+
+  /**
+   * Called when a body has stopped overlapping a Sensor, or when one of them has been removed from
+   * the simulation while they were overlapping
+   *
+   * @param sensor the Sensor
+   * @param body the body leaving the Sensor
+   */
+  default void onExit(Sensor sensor, Physical body) {}
+}
@@ -0,0 +1,466 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.physics2j;
+
+import java.util.Arrays;
+
+/**
+ * Finds the bodies overlapping each {@link Sensor} and turns the changes into events. Sensors are
+ * never part of the broad phase of the bodies, so they never create contacts: moving Sensors query
+ * the trees of the broad phase with their own bounds, and static Sensors are kept in a tree of
+ * their own, fitted tightly around them and only modified when a static Sensor is added or removed,
+ * that only the bodies that have moved since the last tick query.
+ *
+ * <p>The pairs of a Sensor and a body are kept across ticks in slots indexed by their packed ids. A
+ * pair found at a tick is kept, a pair that was not found is dropped, and its exit reported, only
+ * if it could have been found, that is if its Sensor moves or its body has moved, so pairs of a
+ * static Sensor and a resting body are kept without being tested again
+ */
+final class SensorSystem implements DynamicAabbTree.QueryCallback {
+
+  /** The initial number of Sensors, bodies and pairs the system can hold */
+  private static final int INITIAL_CAPACITY = 64;
+
+  /** The static Sensors, whose boxes are not fattened as they never move */
+  private final DynamicAabbTree staticTree = new DynamicAabbTree(0);
+  /** The moving Sensors, in the order they were added */
+  private Sensor[] moving = new Sensor[INITIAL_CAPACITY];
+  /** The number of moving Sensors */
+  private int movingCount = 0;
+  /** The static Sensors to test against every body at the next tick */
+  private Sensor[] rescans = new Sensor[INITIAL_CAPACITY];
+  /** The number of static Sensors to test against every body at the next tick */
+  private int rescanCount = 0;
+  /** The Sensors, indexed by their stable id, null once removed */
+  private Sensor[] sensorsById = new Sensor[INITIAL_CAPACITY];
+  /** The last tick at which each Sensor has been tested against every body, by stable id */
+  private long[] scannedTick = new long[INITIAL_CAPACITY];
+  /** The id to give to the next added Sensor */
+  private int nextId = 0;
+  /** The number of Sensors */
+  private int sensorCount = 0;
+
+  /** The lower x bound of the hitbox of each body when last tested, by stable id */
+  private float[] lastMinX = new float[0];
+  /** The lower y bound of the hitbox of each body when last tested, by stable id */
+  private float[] lastMinY = new float[0];
+  /** The upper x bound of the hitbox of each body when last tested, by stable id */
+  private float[] lastMaxX = new float[0];
+  /** The upper y bound of the hitbox of each body when last tested, by stable id */
+  private float[] lastMaxY = new float[0];
+  /** The rotation of each body when last tested, by stable id */
+  private float[] lastAngle = new float[0];
+  /** The category bits of each body when last tested, by stable id */
+  private int[] lastCategory = new int[0];
+  /** The mask bits of each body when last tested, by stable id */
+  private int[] lastMask = new int[0];
+  /** The last tick at which each body has moved, by stable id */
+  private long[] movedTick = new long[0];
+
+  /** The slot of each pair, indexed by the packed ids of its Sensor and body */
+  private final LongIntHashMap slots = new LongIntHashMap(INITIAL_CAPACITY);
+  /** The packed ids of the Sensor and body of each slot */
+  private long[] keys = new long[INITIAL_CAPACITY];
+  /** The Sensor of each slot, null if the slot is free */
+  private Sensor[] slotSensors = new Sensor[INITIAL_CAPACITY];
+  /** The body of each slot */
+  private Physical[] slotBodies = new Physical[INITIAL_CAPACITY];
+  /** The last tick at which each pair has been found */
+  private long[] lastSeen = new long[INITIAL_CAPACITY];
+  /** The slots freed by dropped pairs, reused before new ones */
+  private int[] freeSlots = new int[INITIAL_CAPACITY];
+  /** The number of free slots */
+  private int freeCount = 0;
+  /** The number of slots ever used */
+  private int slotCount = 0;
+  /** The current tick */
+  private long tick = 0;
+
+  /** The buffer the events are published to */
+  private final SensorEventBuffer events =
+      new SensorEventBuffer(SensorEventBuffer.DEFAULT_CAPACITY);
+
+  /** The bodies of the current tick */
+  private BodyBuffer bodies;
+  /** The Physical owning each body of the current tick */
+  private Physical[] physicals;
+  /** The broad phase holding the bodies of the current tick */
+  private BroadPhase broadPhase;
+  /** The layer of the broad phase currently queried */
+  private int layer;
+  /** The Sensor querying the broad phase, null when a body queries the static Sensors */
+  private Sensor querySensor;
+  /** The index of the body querying the static Sensors */
+  private int queryBody;
+
+  /**
+   * Adds a Sensor to the system, a static Sensor is tested against every body at the next tick,
+   * then only against the bodies that move
+   *
+   * @param sensor the Sensor to add
+   * @return true if the Sensor has been added, false if it already was
+   * @throws IllegalStateException if the Sensor has been added to another system
+   */
+  boolean add(Sensor sensor) {
+    if (sensor.getSystem() == this) {
+      return false;
+    }
+    if (sensor.getSystem() != null) {
+      throw new IllegalStateException("The Sensor has already been added to another simulation");
+    }
+    if (nextId == sensorsById.length) {
+      sensorsById = Arrays.copyOf(sensorsById, nextId * 2);
+      scannedTick = Arrays.copyOf(scannedTick, nextId * 2);
+    }
+    int id = nextId++;
+    sensorsById[id] = sensor;
+    scannedTick[id] = -1;
+    sensor.setId(id);
+    sensor.setSystem(this);
+    sensor.updateWorldShape();
+    if (sensor.isStatic()) {
+      Aabb bounds = sensor.getBounds();
+      sensor.setProxy(
+          staticTree.createProxy(
+              bounds.getMinX(), bounds.getMinY(), bounds.getMaxX(), bounds.getMaxY(), id));
+      rescan(sensor);
+    } else {
+      if (movingCount == moving.length) {
+        moving = Arrays.copyOf(moving, movingCount * 2);
+      }
+      moving[movingCount++] = sensor;
+    }
+    sensorCount++;
+    return true;
+  }
+
+  /**
+   * Removes a Sensor from the system, the exits of the bodies overlapping it are reported at the
+   * next tick
+   *
+   * @param sensor the Sensor to remove
+   * @return true if the Sensor has been removed, false if it was not part of the system
+   */
+  boolean remove(Sensor sensor) {
+    if (sensor.getSystem() != this) {
+      return false;
+    }
+    sensorsById[sensor.getId()] = null;
+    if (sensor.isStatic()) {
+      staticTree.destroyProxy(sensor.getProxy());
+      sensor.setProxy(DynamicAabbTree.NULL_NODE);
+      rescanCount = removeFrom(rescans, rescanCount, sensor);
+    } else {
+      movingCount = removeFrom(moving, movingCount, sensor);
+    }
+    sensor.setId(-1);
+    sensor.setSystem(null);
+    sensorCount--;
+    return true;
+  }
+
+  /**
+   * Removes a Sensor from an array, keeping the order of the others
+   *
+   * @param sensors the array
+   * @param count the number of Sensors in the array
+   * @param sensor the Sensor to remove
+   * @return the new number of Sensors in the array
+   */
+  private static int removeFrom(Sensor[] sensors, int count, Sensor sensor) {
+    for (int i = 0; i < count; i++) {
+      if (sensors[i] == sensor) {
+        System.arraycopy(sensors, i + 1, sensors, i, count - i - 1);
+        sensors[--count] = null;
+        break;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Schedules a static Sensor to be tested against every body at the next tick, as when its filter
+   * has changed
+   *
+   * @param sensor the Sensor
+   */
+  void rescan(Sensor sensor) {
+    if (!sensor.isStatic()) {
+      return;
+    }
+    for (int i = 0; i < rescanCount; i++) {
+      if (rescans[i] == sensor) {
+        return;
+      }
+    }
+    if (rescanCount == rescans.length) {
+      rescans = Arrays.copyOf(rescans, rescanCount * 2);
+    }
+    rescans[rescanCount++] = sensor;
+  }
+
+  /**
+   * Finds the pairs that have started or stopped overlapping during a tick and publishes their
+   * events, the broad phase must be synchronized with the bodies
+   *
+   * @param bodies the bodies of the tick
+   * @param physicals the Physical owning each body of the tick
+   * @param broadPhase the broad phase holding the bodies
+   * @param trackedById the tracked Physicals, indexed by their stable id
+   */
+  void update(
+      BodyBuffer bodies, Physical[] physicals, BroadPhase broadPhase, Physical[] trackedById) {
+    if (sensorCount == 0 && slotCount == freeCount) {
+      events.publish();
+      return;
+    }
+    tick++;
+    this.bodies = bodies;
+    this.physicals = physicals;
+    this.broadPhase = broadPhase;
+
+    for (int i = 0; i < movingCount; i++) {
+      moving[i].updateWorldShape();
+      scan(moving[i]);
+    }
+    for (int i = 0; i < rescanCount; i++) {
+      scan(rescans[i]);
+      scannedTick[rescans[i].getId()] = tick;
+      rescans[i] = null;
+    }
+    rescanCount = 0;
+
+    // Only the bodies that have moved can enter or leave a static Sensor
+    if (staticTree.getProxyCount() > 0) {
+      querySensor = null;
+      for (int i = 0; i < bodies.dynamicSize(); i++) {
+        if (hasMoved(i)) {
+          movedTick[bodies.ids[i]] = tick;
+          queryBody = i;
+          staticTree.query(bodies.minX[i], bodies.minY[i], bodies.maxX[i], bodies.maxY[i], this);
+        }
+      }
+    }
+
+    for (int slot = 0; slot < slotCount; slot++) {
+      Sensor sensor = slotSensors[slot];
+      if (sensor == null || lastSeen[slot] == tick) {
+        continue;
+      }
+      int sensorId = (int) (keys[slot] >>> 32);
+      int bodyId = (int) keys[slot];
+      if (sensorsById[sensorId] != sensor
+          || trackedById[bodyId] != slotBodies[slot]
+          || !sensor.isStatic()
+          || scannedTick[sensorId] == tick
+          || bodyId < movedTick.length && movedTick[bodyId] == tick) {
+        events.addExit(sensor, slotBodies[slot]);
+        freeSlot(slot);
+      }
+    }
+    events.publish();
+
+    this.bodies = null;
+    this.physicals = null;
+    this.broadPhase = null;
+    querySensor = null;
+  }
+
+  /**
+   * Tests a Sensor against the bodies of every layer of the broad phase it detects
+   *
+   * @param sensor the Sensor
+   */
+  private void scan(Sensor sensor) {
+    querySensor = sensor;
+    Aabb bounds = sensor.getBounds();
+    for (layer = 0; layer < broadPhase.getLayerCount(); layer++) {
+      if ((broadPhase.getLayerCategory(layer) & sensor.getMaskBits()) != 0) {
+        broadPhase
+            .getTree(layer)
+            .query(bounds.getMinX(), bounds.getMinY(), bounds.getMaxX(), bounds.getMaxY(), this);
+      }
+    }
+  }
+
+  /**
+   * Tests whether a body has moved or changed its filter since it was last tested, and remembers
+   * its current state
+   *
+   * @param body the index of the body
+   * @return true if the body has changed, false otherwise
+   */
+  private boolean hasMoved(int body) {
+    int id = bodies.ids[body];
+    if (id >= movedTick.length) {
+      growBodies(id);
+    }
+    if (lastMinX[id] == bodies.minX[body]
+        && lastMinY[id] == bodies.minY[body]
+        && lastMaxX[id] == bodies.maxX[body]
+        && lastMaxY[id] == bodies.maxY[body]
+        && lastAngle[id] == bodies.angle[body]
+        && lastCategory[id] == bodies.category[body]
+        && lastMask[id] == bodies.mask[body]) {
+      return false;
+    }
+    lastMinX[id] = bodies.minX[body];
+    lastMinY[id] = bodies.minY[body];
+    lastMaxX[id] = bodies.maxX[body];
+    lastMaxY[id] = bodies.maxY[body];
+    lastAngle[id] = bodies.angle[body];
+    lastCategory[id] = bodies.category[body];
+    lastMask[id] = bodies.mask[body];
+    return true;
+  }
+
+  /**
+   * Grows the arrays indexed by the stable ids of the bodies so they can hold an id, the bodies
+   * never tested being seen as moved
+   *
+   * @param id the id to hold
+   */
+  private void growBodies(int id) {
+    int from = movedTick.length;
+    int capacity = Math.max(INITIAL_CAPACITY, Integer.highestOneBit(id) << 1);
+    lastMinX = Arrays.copyOf(lastMinX, capacity);
+    lastMinY = Arrays.copyOf(lastMinY, capacity);
+    lastMaxX = Arrays.copyOf(lastMaxX, capacity);
+    lastMaxY = Arrays.copyOf(lastMaxY, capacity);
+    lastAngle = Arrays.copyOf(lastAngle, capacity);
+    lastCategory = Arrays.copyOf(lastCategory, capacity);
+    lastMask = Arrays.copyOf(lastMask, capacity);
+    movedTick = Arrays.copyOf(movedTick, capacity);
+    Arrays.fill(lastMinX, from, capacity, Float.NaN);
+    Arrays.fill(movedTick, from, capacity, -1);
+  }
+
+  /**
+   * Tests a Sensor and a body whose boxes overlap, from either a Sensor querying the broad phase or
+   * a body querying the static Sensors
+   *
+   * @param proxy the proxy
+   * @return true, to continue the query
+   */
+  @Override
+  public boolean report(int proxy) {
+    Sensor sensor;
+    int body;
+    if (querySensor != null) {
+      sensor = querySensor;
+      body = broadPhase.getIndex(layer, proxy);
+    } else {
+      sensor = sensorsById[staticTree.getUserData(proxy)];
+      body = queryBody;
+    }
+    if (!sensor.accepts(bodies.category[body], bodies.mask[body])
+        || !sensor
+            .getBounds()
+            .overlaps(bodies.minX[body], bodies.minY[body], bodies.maxX[body], bodies.maxY[body])) {
+      return true;
+    }
+    PhysicsComponent component = physicals[body].getPhysicsComponent();
+    if (WorldQuery.overlaps(
+        sensor.getWorldXPoints(),
+        sensor.getWorldYPoints(),
+        sensor.getWorldPointCount(),
+        component.getWorldXPoints(),
+        component.getWorldYPoints(),
+        component.getWorldPointCount())) {
+      acquire(sensor, physicals[body], bodies.ids[body]);
+    }
+    return true;
+  }
+
+  /**
+   * Marks a pair as found at the current tick, reporting its enter if it is new
+   *
+   * @param sensor the Sensor
+   * @param body the body overlapping the Sensor
+   * @param bodyId the stable id of the body
+   */
+  private void acquire(Sensor sensor, Physical body, int bodyId) {
+    long key = ((long) sensor.getId() << 32) | (bodyId & 0xFFFFFFFFL);
+    int slot = slots.get(key);
+    if (slot == LongIntHashMap.NO_VALUE) {
+      slot = newSlot();
+      keys[slot] = key;
+      slotSensors[slot] = sensor;
+      slotBodies[slot] = body;
+      slots.put(key, slot);
+      events.addEnter(sensor, body);
+    }
+    lastSeen[slot] = tick;
+  }
+
+  /**
+   * Returns a free slot, reusing a freed one if any
+   *
+   * @return the slot
+   */
+  private int newSlot() {
+    if (freeCount > 0) {
+      return freeSlots[--freeCount];
+    }
+    if (slotCount == keys.length) {
+      int capacity = slotCount * 2;
+      keys = Arrays.copyOf(keys, capacity);
+      slotSensors = Arrays.copyOf(slotSensors, capacity);
+      slotBodies = Arrays.copyOf(slotBodies, capacity);
+      lastSeen = Arrays.copyOf(lastSeen, capacity);
+      freeSlots = Arrays.copyOf(freeSlots, capacity);
+    }
+    return slotCount++;
+  }
+
+  /**
+   * Frees the slot of a dropped pair
+   *
+   * @param slot the slot
+   */
+  private void freeSlot(int slot) {
+    slots.remove(keys[slot]);
+    slotSensors[slot] = null;
+    slotBodies[slot] = null;
+    freeSlots[freeCount++] = slot;
+  }
+
+  /**
+   * Returns the buffer the events are published to
+   *
+   * @return the buffer the events are published to
+   */
+  SensorEventBuffer getEvents() {
+    return events;
+  }
+
+  /**
+   * Returns the number of Sensors
+   *
+   * @return the number of Sensors
+   */
+  int getSensorCount() {
+    return sensorCount;
+  }
+
+  /**
+   * Returns the number of pairs of a Sensor and a body overlapping it
+   *
+   * @return the number of pairs of a Sensor and a body overlapping it
+   */
+  int getPairCount() {
+    return slotCount - freeCount;
+  }
+
+  /**
+   * Returns the tree of the static Sensors
+   *
+   * @return the tree of the static Sensors
+   */
+  DynamicAabbTree getStaticTree() {
+    return staticTree;
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.physics2j;
+
+import org.alban098.common.MemoryManager;
+
+/**
+ * The full snapshots of the last ticks of a simulation, in a ring of reused {@link
+ * PhysicsSnapshot}s, the oldest one being overwritten by each new tick. Used to roll a simulation
+ * back a few ticks, to correct it with late inputs or to rewind it while debugging
+ */
+public final class SnapshotRing {
+
+  /** The snapshots of the ring */
+  private final PhysicsSnapshot[] snapshots;
+  /** The index of the snapshot to overwrite next */
+  private int next = 0;
+  /** The number of snapshots holding a tick */
+  private int count = 0;
+
+  /**
+   * Creates a new SnapshotRing
+   *
+   * @param capacity the number of ticks to keep
+   */
+  public SnapshotRing(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("The capacity of a SnapshotRing must be positive");
+    }
+    snapshots = new PhysicsSnapshot[capacity];
+    for (int i = 0; i < capacity; i++) {
+      snapshots[i] = new PhysicsSnapshot();
+    }
+  }
+
+  /**
+   * Returns the snapshot to write the next tick into, which is the oldest one once the ring is full
+   *
+   * @return the snapshot to write the next tick into
+   */
+  PhysicsSnapshot claim() {
+    PhysicsSnapshot snapshot = snapshots[next];
+    next = (next + 1) % snapshots.length;
+    count = Math.min(count + 1, snapshots.length);
+    return snapshot;
+  }
+
+  /**
+   * Returns the snapshot of a tick
+   *
+   * @param tick the tick
+   * @return the snapshot of the tick, null if it is not in the ring
+   */
+  public PhysicsSnapshot get(long tick) {
+    for (int i = 0; i < count; i++) {
+      PhysicsSnapshot snapshot = snapshots[index(i)];
+      if (snapshot.getTick() == tick) {
+        return snapshot;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns the snapshot of the most recent tick
+   *
+   * @return the snapshot of the most recent tick, null if the ring is empty
+   */
+  public PhysicsSnapshot getLatest() {
+    return count == 0 ? null : snapshots[index(0)];
+  }
+
+  /**
+   * Drops the snapshots of the ticks after a given one, as they do not belong to the simulation
+   * anymore once it has been rolled back to that tick
+   *
+   * @param tick the last tick to keep
+   */
+  void discardAfter(long tick) {
+    while (count > 0 && snapshots[index(0)].getTick() > tick) {
+      next = (next - 1 + snapshots.length) % snapshots.length;
+      count--;
+    }
+  }
+
+  /**
+   * Returns the index of a snapshot, by its age
+   *
+   * @param age the age of the snapshot, 0 being the most recent one
+   * @return the index of the snapshot in the ring
+   */
+  private int index(int age) {
+    return (next - 1 - age + 2 * snapshots.length) % snapshots.length;
+  }
+
+  /**
+   * Returns the number of ticks held by the ring
+   *
+   * @return the number of ticks held by the ring
+   */
+  public int size() {
+    return count;
+  }
+
+  /**
+   * Returns the number of ticks the ring can hold
+   *
+   * @return the number of ticks the ring can hold
+   */
+  public int getCapacity() {
+    return snapshots.length;
+  }
+
+  /** Frees the buffers of every snapshot of the ring */
+  public void cleanUp() {
+    for (PhysicsSnapshot snapshot : snapshots) {
+      MemoryManager.free(snapshot);
+    }
+  }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.physics2j;
+
+/**
+ * A streaming xxHash64 over the little-endian bytes of the values put into it, used to fingerprint
+ * the state of the bodies after each tick. Values are hashed by their exact bits, so two states
+ * hash to the same value only if every float is bitwise identical, which is what lockstep
+ * simulations and replays need to compare. Nothing is allocated, a StateHash is reset and reused
+ * every tick
+ */
+final class StateHash {
+
+  /** The first prime of xxHash64 */
+  private static final long PRIME_1 = 0x9E3779B185EBCA87L;
+  /** The second prime of xxHash64 */
+  private static final long PRIME_2 = 0xC2B2AE3D27D4EB4FL;
+  /** The third prime of xxHash64 */
+  private static final long PRIME_3 = 0x165667B19E3779F9L;
+  /** The fourth prime of xxHash64 */
+  private static final long PRIME_4 = 0x85EBCA77C2B2AE63L;
+  /** The fifth prime of xxHash64 */
+  private static final long PRIME_5 = 0x27D4EB2F165667C5L;
+
+  /** The seed of the hash in progress */
+  private long seed;
+  /** The four accumulators of the hash in progress */
+  private long v1, v2, v3, v4;
+  /** The lanes of the stripe in progress, xxHash64 consumes 4 lanes of 8 bytes at a time */
+  private final long[] lanes = new long[4];
+  /** The number of complete lanes in the stripe in progress */
+  private int laneCount;
+  /** The int waiting for a second one to complete a lane */
+  private int pendingInt;
+  /** Is an int waiting for a second one to complete a lane */
+  private boolean hasPendingInt;
+  /** The number of bytes hashed so far */
+  private long length;
+
+  /**
+   * Starts a new hash
+   *
+   * @param seed the seed of the hash
+   * @return this StateHash
+   */
+  StateHash reset(long seed) {
+    this.seed = seed;
+    v1 = seed + PRIME_1 + PRIME_2;
+    v2 = seed + PRIME_2;
+    v3 = seed;
+    v4 = seed - PRIME_1;
+    laneCount = 0;
+    hasPendingInt = false;
+    length = 0;
+    return this;
+  }
+
+  /**
+   * Hashes an int
+   *
+   * @param value the int to hash
+   * @return this StateHash
+   */
+  StateHash putInt(int value) {
+    length += Integer.BYTES;
+    if (hasPendingInt) {
+      hasPendingInt = false;
+      putLane((pendingInt & 0xFFFFFFFFL) | ((long) value << 32));
+    } else {
+      pendingInt = value;
+      hasPendingInt = true;
+    }
+    return this;
+  }
+
+  /**
+   * Hashes a float by its exact bits, so 0 and -0 or two different NaNs hash differently
+   *
+   * @param value the float to hash
+   * @return this StateHash
+   */
+  StateHash putFloat(float value) {
+    return putInt(Float.floatToRawIntBits(value));
+  }
+
+  /**
+   * Adds a complete lane to the stripe in progress, consuming the stripe once full
+   *
+   * @param lane the lane
+   */
+  private void putLane(long lane) {
+    lanes[laneCount++] = lane;
+    if (laneCount == 4) {
+      v1 = round(v1, lanes[0]);
+      v2 = round(v2, lanes[1]);
+      v3 = round(v3, lanes[2]);
+      v4 = round(v4, lanes[3]);
+      laneCount = 0;
+    }
+  }
+
+  /**
+   * Finishes the hash, the StateHash must be reset before hashing again
+   *
+   * @return the hash of every value put since the last reset
+   */
+  long finish() {
+    long hash;
+    if (length >= 32) {
+      hash =
+          Long.rotateLeft(v1, 1)
+              + Long.rotateLeft(v2, 7)
+              + Long.rotateLeft(v3, 12)
+              + Long.rotateLeft(v4, 18);
+      hash = mergeRound(hash, v1);
+      hash = mergeRound(hash, v2);
+      hash = mergeRound(hash, v3);
+      hash = mergeRound(hash, v4);
+    } else {
+      hash = seed + PRIME_5;
+    }
+    hash += length;
+
+    for (int i = 0; i < laneCount; i++) {
+      hash ^= round(0, lanes[i]);
+      hash = Long.rotateLeft(hash, 27) * PRIME_1 + PRIME_4;
+    }
+    if (hasPendingInt) {
+      hash ^= (pendingInt & 0xFFFFFFFFL) * PRIME_1;
+      hash = Long.rotateLeft(hash, 23) * PRIME_2 + PRIME_3;
+    }
+
+    hash ^= hash >>> 33;
+    hash *= PRIME_2;
+    hash ^= hash >>> 29;
+    hash *= PRIME_3;
+    hash ^= hash >>> 32;
+    return hash;
+  }
+
+  /**
+   * Mixes a lane into an accumulator
+   *
+   * @param accumulator the accumulator
+   * @param lane the lane
+   * @return the new value of the accumulator
+   */
+  private static long round(long accumulator, long lane) {
+    accumulator += lane * PRIME_2;
+    accumulator = Long.rotateLeft(accumulator, 31);
+    return accumulator * PRIME_1;
+  }
+
+  /**
+   * Merges an accumulator into the hash
+   *
+   * @param hash the hash
+   * @param accumulator the accumulator
+   * @return the new value of the hash
+   */
+  private static long mergeRound(long hash, long accumulator) {
+    hash ^= round(0, accumulator);
+    return hash * PRIME_1 + PRIME_4;
+  }
+}
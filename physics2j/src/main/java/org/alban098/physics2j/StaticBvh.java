@@ -0,0 +1,428 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.physics2j;
+
+import java.util.Arrays;
+
+/**
+ * A bounding volume hierarchy of axis aligned bounding boxes that never move, built at once from
+ * every box and immutable until built again. Boxes are sorted along a Morton curve of their
+ * centers, so boxes close in space are close in the sort, then the sorted range is split in halves
+ * down to leaves of a few boxes. The nodes are laid out in depth first order, the first child of a
+ * node following it, so a query walks the arrays mostly forward, and the boxes are stored tightly,
+ * without any margin, as they are never moved.
+ *
+ * <p>Building sorts every box, so it is only meant to be done when the boxes are edited, not at
+ * every tick. Each thread has its own traversal stack, so several threads can query the hierarchy
+ * at once as long as it is not built again meanwhile
+ */
+public final class StaticBvh {
+
+  /** The maximum number of boxes of a leaf */
+  private static final int LEAF_SIZE = 4;
+  /** The number of bits of each coordinate of a Morton code */
+  private static final int MORTON_BITS = 15;
+  /** The initial number of nodes and boxes the hierarchy can hold */
+  private static final int INITIAL_CAPACITY = 16;
+
+  /** The boxes of the nodes, as lower x, lower y, upper x and upper y bounds, interleaved */
+  private float[] nodeBounds = new float[INITIAL_CAPACITY * 4];
+  /** The first box of each leaf, or the second child of each inner node */
+  private int[] nodeStart = new int[INITIAL_CAPACITY];
+  /** The number of boxes of each leaf, 0 for inner nodes */
+  private int[] nodeSize = new int[INITIAL_CAPACITY];
+  /** The boxes, in the order of the leaves, as lower x, lower y, upper x and upper y bounds */
+  private float[] boxes = new float[INITIAL_CAPACITY * 4];
+  /** The user data of each box, in the order of the leaves */
+  private int[] userData = new int[INITIAL_CAPACITY];
+  /** The Morton code of each box packed with its index, sorted while building */
+  private long[] sortKeys = new long[INITIAL_CAPACITY];
+  /** The number of nodes */
+  private int nodeCount = 0;
+  /** The number of boxes */
+  private int boxCount = 0;
+  /** The height of the hierarchy, 0 if it is empty */
+  private int height = 0;
+  /** The traversal stack of the queries of each thread */
+  private final ThreadLocal<int[]> stacks =
+      ThreadLocal.withInitial(() -> new int[INITIAL_CAPACITY]);
+
+  /**
+   * Builds the hierarchy from a set of boxes, replacing the previous ones
+   *
+   * @param bounds the boxes, as lower x, lower y, upper x and upper y bounds, interleaved
+   * @param data the user data of each box, reported by the queries
+   * @param count the number of boxes
+   */
+  public void build(float[] bounds, int[] data, int count) {
+    boxCount = count;
+    nodeCount = 0;
+    height = 0;
+    if (count == 0) {
+      return;
+    }
+    if (userData.length < count) {
+      int capacity = Math.max(count, userData.length * 2);
+      boxes = new float[capacity * 4];
+      userData = new int[capacity];
+      sortKeys = new long[capacity];
+    }
+    // A leaf holds at least one box and an inner node has two children
+    int maxNodes = 2 * count;
+    if (nodeSize.length < maxNodes) {
+      nodeBounds = new float[maxNodes * 4];
+      nodeStart = new int[maxNodes];
+      nodeSize = new int[maxNodes];
+    }
+
+    float minX = Float.POSITIVE_INFINITY;
+    float minY = Float.POSITIVE_INFINITY;
+    float maxX = Float.NEGATIVE_INFINITY;
+    float maxY = Float.NEGATIVE_INFINITY;
+    for (int i = 0; i < count; i++) {
+      float centerX = (bounds[i * 4] + bounds[i * 4 + 2]) * 0.5f;
+      float centerY = (bounds[i * 4 + 1] + bounds[i * 4 + 3]) * 0.5f;
+      minX = Math.min(minX, centerX);
+      minY = Math.min(minY, centerY);
+      maxX = Math.max(maxX, centerX);
+      maxY = Math.max(maxY, centerY);
+    }
+    float scale = (1 << MORTON_BITS) - 1;
+    float scaleX = maxX > minX ? scale / (maxX - minX) : 0;
+    float scaleY = maxY > minY ? scale / (maxY - minY) : 0;
+    for (int i = 0; i < count; i++) {
+      float centerX = (bounds[i * 4] + bounds[i * 4 + 2]) * 0.5f;
+      float centerY = (bounds[i * 4 + 1] + bounds[i * 4 + 3]) * 0.5f;
+      long code =
+          interleave((int) ((centerX - minX) * scaleX))
+              | interleave((int) ((centerY - minY) * scaleY)) << 1;
+      sortKeys[i] = code << 32 | i;
+    }
+    Arrays.sort(sortKeys, 0, count);
+    for (int i = 0; i < count; i++) {
+      int box = (int) sortKeys[i];
+      System.arraycopy(bounds, box * 4, boxes, i * 4, 4);
+      userData[i] = data[box];
+    }
+    height = buildNode(0, count);
+  }
+
+  /**
+   * Spreads the bits of a coordinate so they can be interleaved with the ones of another
+   *
+   * @param value the coordinate, on {@link #MORTON_BITS} bits
+   * @return the coordinate with a 0 inserted before each of its bits
+   */
+  private static long interleave(int value) {
+    long bits = value & 0xFFFFL;
+    bits = (bits | bits << 8) & 0x00FF00FFL;
+    bits = (bits | bits << 4) & 0x0F0F0F0FL;
+    bits = (bits | bits << 2) & 0x33333333L;
+    bits = (bits | bits << 1) & 0x55555555L;
+    return bits;
+  }
+
+  /**
+   * Builds the node of a range of the sorted boxes, then its children
+   *
+   * @param start the first box of the range
+   * @param end the box following the range
+   * @return the height of the node
+   */
+  private int buildNode(int start, int end) {
+    int node = nodeCount++;
+    int bound = node * 4;
+    nodeBounds[bound] = Float.POSITIVE_INFINITY;
+    nodeBounds[bound + 1] = Float.POSITIVE_INFINITY;
+    nodeBounds[bound + 2] = Float.NEGATIVE_INFINITY;
+    nodeBounds[bound + 3] = Float.NEGATIVE_INFINITY;
+    for (int i = start; i < end; i++) {
+      nodeBounds[bound] = Math.min(nodeBounds[bound], boxes[i * 4]);
+      nodeBounds[bound + 1] = Math.min(nodeBounds[bound + 1], boxes[i * 4 + 1]);
+      nodeBounds[bound + 2] = Math.max(nodeBounds[bound + 2], boxes[i * 4 + 2]);
+      nodeBounds[bound + 3] = Math.max(nodeBounds[bound + 3], boxes[i * 4 + 3]);
+    }
+    if (end - start <= LEAF_SIZE) {
+      nodeStart[node] = start;
+      nodeSize[node] = end - start;
+      return 1;
+    }
+    int middle = (start + end) >>> 1;
+    nodeSize[node] = 0;
+    int height1 = buildNode(start, middle);
+    nodeStart[node] = nodeCount;
+    int height2 = buildNode(middle, end);
+    return 1 + Math.max(height1, height2);
+  }
+
+  /**
+   * Reports the user data of every box overlapping a box
+   *
+   * @param minX the lower x bound of the box
+   * @param minY the lower y bound of the box
+   * @param maxX the upper x bound of the box
+   * @param maxY the upper y bound of the box
+   * @param callback the callback to report the user data to
+   */
+  public void query(
+      float minX, float minY, float maxX, float maxY, DynamicAabbTree.QueryCallback callback) {
+    if (nodeCount == 0) {
+      return;
+    }
+    int[] stack = getStack();
+    int top = 0;
+    stack[top++] = 0;
+    while (top > 0) {
+      int node = stack[--top];
+      int bound = node * 4;
+      if (nodeBounds[bound] > maxX
+          || minX > nodeBounds[bound + 2]
+          || nodeBounds[bound + 1] > maxY
+          || minY > nodeBounds[bound + 3]) {
+        continue;
+      }
+      if (nodeSize[node] == 0) {
+        stack[top++] = nodeStart[node];
+        stack[top++] = node + 1;
+        continue;
+      }
+      for (int i = nodeStart[node], end = i + nodeSize[node]; i < end; i++) {
+        int box = i * 4;
+        if (boxes[box] <= maxX
+            && minX <= boxes[box + 2]
+            && boxes[box + 1] <= maxY
+            && minY <= boxes[box + 3]
+            && !callback.report(userData[i])) {
+          return;
+        }
+      }
+    }
+  }
+
+  /**
+   * Reports the user data of every box crossed by a segment, the callback can clip the segment to
+   * skip the boxes further than the closest hit found so far
+   *
+   * @param x1 the x coordinate of the start of the segment
+   * @param y1 the y coordinate of the start of the segment
+   * @param x2 the x coordinate of the end of the segment
+   * @param y2 the y coordinate of the end of the segment
+   * @param maxFraction the fraction of the segment to cast, from its start
+   * @param callback the callback to report the user data to
+   */
+  public void raycast(
+      float x1,
+      float y1,
+      float x2,
+      float y2,
+      float maxFraction,
+      DynamicAabbTree.RaycastCallback callback) {
+    float rx = x2 - x1;
+    float ry = y2 - y1;
+    float length = (float) Math.sqrt(rx * rx + ry * ry);
+    if (nodeCount == 0 || length == 0) {
+      return;
+    }
+    // The normal of the segment, to discard the boxes lying entirely on one of its sides
+    float vx = -ry / length;
+    float vy = rx / length;
+    float absVx = Math.abs(vx);
+    float absVy = Math.abs(vy);
+
+    int[] stack = getStack();
+    int top = 0;
+    stack[top++] = 0;
+    while (top > 0) {
+      int node = stack[--top];
+      if (!crosses(nodeBounds, node * 4, x1, y1, rx, ry, maxFraction, vx, vy, absVx, absVy)) {
+        continue;
+      }
+      if (nodeSize[node] == 0) {
+        stack[top++] = nodeStart[node];
+        stack[top++] = node + 1;
+        continue;
+      }
+      for (int i = nodeStart[node], end = i + nodeSize[node]; i < end; i++) {
+        if (!crosses(boxes, i * 4, x1, y1, rx, ry, maxFraction, vx, vy, absVx, absVy)) {
+          continue;
+        }
+        float value = callback.report(userData[i], x1, y1, x2, y2, maxFraction);
+        if (value == 0) {
+          return;
+        }
+        if (value > 0) {
+          maxFraction = value;
+        }
+      }
+    }
+  }
+
+  /**
+   * Tests whether a segment may cross a box, that is whether the bounds of the segment overlap the
+   * box and the box does not lie entirely on one side of the segment
+   *
+   * @param bounds the array holding the box
+   * @param box the index of the lower x bound of the box in the array
+   * @param x1 the x coordinate of the start of the segment
+   * @param y1 the y coordinate of the start of the segment
+   * @param rx the x component of the segment
+   * @param ry the y component of the segment
+   * @param maxFraction the fraction of the segment currently cast
+   * @param vx the x component of the unit normal of the segment
+   * @param vy the y component of the unit normal of the segment
+   * @param absVx the absolute value of the x component of the normal
+   * @param absVy the absolute value of the y component of the normal
+   * @return true if the segment may cross the box, false otherwise
+   */
+  private static boolean crosses(
+      float[] bounds,
+      int box,
+      float x1,
+      float y1,
+      float rx,
+      float ry,
+      float maxFraction,
+      float vx,
+      float vy,
+      float absVx,
+      float absVy) {
+    float endX = x1 + maxFraction * rx;
+    float endY = y1 + maxFraction * ry;
+    if (bounds[box] > Math.max(x1, endX)
+        || Math.min(x1, endX) > bounds[box + 2]
+        || bounds[box + 1] > Math.max(y1, endY)
+        || Math.min(y1, endY) > bounds[box + 3]) {
+      return false;
+    }
+    float centerX = (bounds[box] + bounds[box + 2]) * 0.5f;
+    float centerY = (bounds[box + 1] + bounds[box + 3]) * 0.5f;
+    float extentX = (bounds[box + 2] - bounds[box]) * 0.5f;
+    float extentY = (bounds[box + 3] - bounds[box + 1]) * 0.5f;
+    return Math.abs(vx * (x1 - centerX) + vy * (y1 - centerY)) - absVx * extentX - absVy * extentY
+        <= 0;
+  }
+
+  /**
+   * Returns the traversal stack of the calling thread, large enough for the hierarchy, as a query
+   * never holds more than one pending node per level
+   *
+   * @return the traversal stack of the calling thread
+   */
+  private int[] getStack() {
+    int[] stack = stacks.get();
+    if (stack.length < height + 2) {
+      stack = new int[height + 2];
+      stacks.set(stack);
+    }
+    return stack;
+  }
+
+  /**
+   * Returns the root of the hierarchy
+   *
+   * @return the root of the hierarchy, {@link DynamicAabbTree#NULL_NODE} if it is empty
+   */
+  public int getRoot() {
+    return nodeCount == 0 ? DynamicAabbTree.NULL_NODE : 0;
+  }
+
+  /**
+   * Returns whether a node is a leaf
+   *
+   * @param node the node
+   * @return true if the node is a leaf, false otherwise
+   */
+  public boolean isLeaf(int node) {
+    return nodeSize[node] > 0;
+  }
+
+  /**
+   * Returns the first child of an inner node
+   *
+   * @param node the node
+   * @return the first child of the node
+   */
+  public int getChild1(int node) {
+    return node + 1;
+  }
+
+  /**
+   * Returns the second child of an inner node
+   *
+   * @param node the node
+   * @return the second child of the node
+   */
+  public int getChild2(int node) {
+    return nodeStart[node];
+  }
+
+  /**
+   * Returns the lower x bound of the box of a node
+   *
+   * @param node the node
+   * @return the lower x bound of the box of the node
+   */
+  public float getMinX(int node) {
+    return nodeBounds[node * 4];
+  }
+
+  /**
+   * Returns the lower y bound of the box of a node
+   *
+   * @param node the node
+   * @return the lower y bound of the box of the node
+   */
+  public float getMinY(int node) {
+    return nodeBounds[node * 4 + 1];
+  }
+
+  /**
+   * Returns the upper x bound of the box of a node
+   *
+   * @param node the node
+   * @return the upper x bound of the box of the node
+   */
+  public float getMaxX(int node) {
+    return nodeBounds[node * 4 + 2];
+  }
+
+  /**
+   * Returns the upper y bound of the box of a node
+   *
+   * @param node the node
+   * @return the upper y bound of the box of the node
+   */
+  public float getMaxY(int node) {
+    return nodeBounds[node * 4 + 3];
+  }
+
+  /**
+   * Returns the height of the hierarchy
+   *
+   * @return the height of the hierarchy, 0 if it is empty
+   */
+  public int getHeight() {
+    return height;
+  }
+
+  /**
+   * Returns the number of nodes of the hierarchy
+   *
+   * @return the number of nodes of the hierarchy
+   */
+  public int getNodeCount() {
+    return nodeCount;
+  }
+
+  /**
+   * Returns the number of boxes of the hierarchy
+   *
+   * @return the number of boxes of the hierarchy
+   */
+  public int getBoxCount() {
+    return boxCount;
+  }
+}
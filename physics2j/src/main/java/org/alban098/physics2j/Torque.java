@@ -26,7 +26,11 @@ public class Torque {
     this.w += torque;
   }
 
-  public void set(int torque) {
+  public void set(float torque) {
     this.w = torque;
   }
+
+  public float get() {
+    return w;
+  }
 }
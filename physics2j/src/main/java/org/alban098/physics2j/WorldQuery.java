@@ -0,0 +1,426 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.physics2j;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Casts segments and overlaps shapes against the bodies of the last tick. The trees of the layers
+ * of the {@link BroadPhase} select the bodies whose fattened box is touched, then each of them is
+ * tested against the bounds of its hitbox, and exactly against the hitbox itself if they are
+ * touched. Both are read from the world space hitbox cached by the {@link PhysicsComponent}, so a
+ * query neither transforms a vertex nor allocates. The static bodies are searched the same way,
+ * through the {@link StaticBvh} of the broad phase.
+ *
+ * <p>A WorldQuery holds the state of the query in progress, a thread must therefore use its own
+ * instance, several of them can query the same world at once as long as it is not modified
+ */
+final class WorldQuery implements DynamicAabbTree.QueryCallback, DynamicAabbTree.RaycastCallback {
+
+  /** The layer marking a query of the static bodies */
+  private static final int STATIC_LAYER = -1;
+
+  /** The broad phase of the queried world */
+  private BroadPhase broadPhase;
+  /** The Physical owning each body of the last tick */
+  private Physical[] physicals;
+  /** The tracked Physicals, indexed by their stable id */
+  private Physical[] trackedById;
+  /** The layer currently queried, {@link #STATIC_LAYER} for the static bodies */
+  private int layer;
+
+  /** The closest Physical hit by the cast in progress */
+  private Physical hitBody;
+  /** The fraction of the segment at the closest hit of the cast in progress */
+  private float hitFraction;
+  /** The x component of the normal at the closest hit of the cast in progress */
+  private float hitNormalX;
+  /** The y component of the normal at the closest hit of the cast in progress */
+  private float hitNormalY;
+
+  /** The x coordinates of the vertices of the overlapped shape, in world space */
+  private float[] shapeX = new float[8];
+  /** The y coordinates of the vertices of the overlapped shape, in world space */
+  private float[] shapeY = new float[8];
+  /** The bounds of the overlapped shape */
+  private final Aabb shapeBounds = new Aabb();
+  /** The number of vertices of the overlapped shape */
+  private int shapeCount = 0;
+  /** The collection receiving the overlapping Physicals */
+  private Collection<? super Physical> results;
+  /** The number of overlapping Physicals found by the overlap in progress */
+  private int resultCount = 0;
+
+  /**
+   * Binds the WorldQuery to the state of a world, must be called before querying after each tick
+   *
+   * @param broadPhase the broad phase of the world
+   * @param physicals the Physical owning each body of the last tick
+   * @param trackedById the tracked Physicals, indexed by their stable id
+   */
+  void bind(BroadPhase broadPhase, Physical[] physicals, Physical[] trackedById) {
+    this.broadPhase = broadPhase;
+    this.physicals = physicals;
+    this.trackedById = trackedById;
+  }
+
+  /**
+   * Finds the closest hitbox crossed by a segment, ignoring the hitboxes containing its start
+   *
+   * @param x1 the x coordinate of the start of the segment
+   * @param y1 the y coordinate of the start of the segment
+   * @param x2 the x coordinate of the end of the segment
+   * @param y2 the y coordinate of the end of the segment
+   * @param hit the hit to fill, may be null
+   * @return the fraction of the segment at which the closest hit occurred, -1 if nothing was hit
+   */
+  float castSegment(float x1, float y1, float x2, float y2, RaycastHit hit) {
+    hitBody = null;
+    // The trees clip the segment to the fraction of each hit, so the last hit is the closest one
+    for (layer = 0; layer < broadPhase.getLayerCount(); layer++) {
+      broadPhase.getTree(layer).raycast(x1, y1, x2, y2, hitBody == null ? 1 : hitFraction, this);
+    }
+    layer = STATIC_LAYER;
+    broadPhase.getStaticTree().raycast(x1, y1, x2, y2, hitBody == null ? 1 : hitFraction, this);
+    if (hitBody == null) {
+      if (hit != null) {
+        hit.clear();
+      }
+      return -1;
+    }
+    if (hit != null) {
+      hit.set(hitBody, x1, y1, x2, y2, hitFraction, hitNormalX, hitNormalY);
+    }
+    return hitFraction;
+  }
+
+  /**
+   * Returns the Physical hit by the last cast, only valid until the next one
+   *
+   * @return the Physical hit by the last cast, null if nothing was hit
+   */
+  Physical getHitBody() {
+    return hitBody;
+  }
+
+  /**
+   * Returns the x component of the normal at the hit of the last cast
+   *
+   * @return the x component of the normal at the hit of the last cast
+   */
+  float getHitNormalX() {
+    return hitNormalX;
+  }
+
+  /**
+   * Returns the y component of the normal at the hit of the last cast
+   *
+   * @return the y component of the normal at the hit of the last cast
+   */
+  float getHitNormalY() {
+    return hitNormalY;
+  }
+
+  /**
+   * Tests the segment against the hitbox of a proxy crossed by it
+   *
+   * @param proxy the proxy
+   * @param x1 the x coordinate of the start of the segment
+   * @param y1 the y coordinate of the start of the segment
+   * @param x2 the x coordinate of the end of the segment
+   * @param y2 the y coordinate of the end of the segment
+   * @param maxFraction the fraction of the segment currently cast
+   * @return the fraction of the hit to clip the segment to, -1 if the hitbox is missed
+   */
+  @Override
+  public float report(int proxy, float x1, float y1, float x2, float y2, float maxFraction) {
+    Physical body = getPhysical(proxy);
+    PhysicsComponent component = body.getPhysicsComponent();
+    float directionX = x2 - x1;
+    float directionY = y2 - y1;
+    float endX = x1 + directionX * maxFraction;
+    float endY = y1 + directionY * maxFraction;
+    if (!component
+        .getBounds()
+        .overlaps(Math.min(x1, endX), Math.min(y1, endY), Math.max(x1, endX), Math.max(y1, endY))) {
+      return -1;
+    }
+
+    float[] xs = component.getWorldXPoints();
+    float[] ys = component.getWorldYPoints();
+    int count = component.getWorldPointCount();
+    if (contains(xs, ys, count, x1, y1)) {
+      return -1;
+    }
+
+    float best = maxFraction;
+    float normalX = 0;
+    float normalY = 0;
+    boolean found = false;
+    for (int i = 0, j = count - 1; i < count; j = i++) {
+      float edgeX = xs[i] - xs[j];
+      float edgeY = ys[i] - ys[j];
+      float denominator = directionX * edgeY - directionY * edgeX;
+      if (denominator == 0) {
+        continue;
+      }
+      float toEdgeX = xs[j] - x1;
+      float toEdgeY = ys[j] - y1;
+      float t = (toEdgeX * edgeY - toEdgeY * edgeX) / denominator;
+      float u = (toEdgeX * directionY - toEdgeY * directionX) / denominator;
+      if (t >= 0 && t <= best && u >= 0 && u <= 1) {
+        best = t;
+        normalX = edgeY;
+        normalY = -edgeX;
+        found = true;
+      }
+    }
+    if (!found) {
+      return -1;
+    }
+
+    // Face the normal towards the start of the segment
+    if (normalX * directionX + normalY * directionY > 0) {
+      normalX = -normalX;
+      normalY = -normalY;
+    }
+    float length = (float) Math.sqrt(normalX * normalX + normalY * normalY);
+    hitNormalX = normalX / length;
+    hitNormalY = normalY / length;
+    hitBody = body;
+    hitFraction = best;
+    return best;
+  }
+
+  /**
+   * Finds every hitbox overlapping a polygon
+   *
+   * @param xs the x coordinates of the vertices of the polygon, in world space
+   * @param ys the y coordinates of the vertices of the polygon, in world space
+   * @param count the number of vertices of the polygon
+   * @param results the collection receiving the overlapping Physicals
+   * @return the number of overlapping Physicals added to the collection
+   */
+  int overlap(float[] xs, float[] ys, int count, Collection<? super Physical> results) {
+    if (count < 3) {
+      return 0;
+    }
+    if (shapeX.length < count) {
+      shapeX = Arrays.copyOf(shapeX, count);
+      shapeY = Arrays.copyOf(shapeY, count);
+    }
+    System.arraycopy(xs, 0, shapeX, 0, count);
+    System.arraycopy(ys, 0, shapeY, 0, count);
+    shapeCount = count;
+    shapeBounds.setBounds(xs, ys, count);
+    this.results = results;
+    resultCount = 0;
+    queryLayers(
+        shapeBounds.getMinX(), shapeBounds.getMinY(), shapeBounds.getMaxX(), shapeBounds.getMaxY());
+    this.results = null;
+    return resultCount;
+  }
+
+  /**
+   * Finds every hitbox overlapping an axis aligned box
+   *
+   * @param minX the lower x bound of the box
+   * @param minY the lower y bound of the box
+   * @param maxX the upper x bound of the box
+   * @param maxY the upper y bound of the box
+   * @param results the collection receiving the overlapping Physicals
+   * @return the number of overlapping Physicals added to the collection
+   */
+  int overlap(
+      float minX, float minY, float maxX, float maxY, Collection<? super Physical> results) {
+    shapeX[0] = minX;
+    shapeY[0] = minY;
+    shapeX[1] = maxX;
+    shapeY[1] = minY;
+    shapeX[2] = maxX;
+    shapeY[2] = maxY;
+    shapeX[3] = minX;
+    shapeY[3] = maxY;
+    shapeCount = 4;
+    shapeBounds.set(minX, minY, maxX, maxY);
+    this.results = results;
+    resultCount = 0;
+    queryLayers(minX, minY, maxX, maxY);
+    this.results = null;
+    return resultCount;
+  }
+
+  /**
+   * Queries the tree of every layer and the static bodies with a box
+   *
+   * @param minX the lower x bound of the box
+   * @param minY the lower y bound of the box
+   * @param maxX the upper x bound of the box
+   * @param maxY the upper y bound of the box
+   */
+  private void queryLayers(float minX, float minY, float maxX, float maxY) {
+    for (layer = 0; layer < broadPhase.getLayerCount(); layer++) {
+      broadPhase.getTree(layer).query(minX, minY, maxX, maxY, this);
+    }
+    layer = STATIC_LAYER;
+    broadPhase.getStaticTree().query(minX, minY, maxX, maxY, this);
+  }
+
+  /**
+   * Tests the overlapped shape against the hitbox of a proxy whose fattened box it touches
+   *
+   * @param proxy the proxy
+   * @return true, to continue the query
+   */
+  @Override
+  public boolean report(int proxy) {
+    Physical body = getPhysical(proxy);
+    PhysicsComponent component = body.getPhysicsComponent();
+    if (component.getBounds().overlaps(shapeBounds)
+        && overlaps(
+            component.getWorldXPoints(),
+            component.getWorldYPoints(),
+            component.getWorldPointCount(),
+            shapeX,
+            shapeY,
+            shapeCount)) {
+      results.add(body);
+      resultCount++;
+    }
+    return true;
+  }
+
+  /**
+   * Returns the Physical owning a proxy of the layer currently queried
+   *
+   * @param proxy the proxy, or the stable id of a static body
+   * @return the Physical owning the proxy
+   */
+  private Physical getPhysical(int proxy) {
+    if (layer == STATIC_LAYER) {
+      return trackedById[proxy];
+    }
+    return physicals[broadPhase.getIndex(layer, proxy)];
+  }
+
+  /**
+   * Tests whether two polygons overlap, that is whether a vertex of one is inside the other or two
+   * of their edges cross. The polygons do not need to be convex
+   *
+   * @param ax the x coordinates of the vertices of the first polygon
+   * @param ay the y coordinates of the vertices of the first polygon
+   * @param aCount the number of vertices of the first polygon
+   * @param bx the x coordinates of the vertices of the second polygon
+   * @param by the y coordinates of the vertices of the second polygon
+   * @param bCount the number of vertices of the second polygon
+   * @return true if the polygons overlap, false otherwise
+   */
+  static boolean overlaps(float[] ax, float[] ay, int aCount, float[] bx, float[] by, int bCount) {
+    if (aCount < 3 || bCount < 3) {
+      return false;
+    }
+    if (contains(ax, ay, aCount, bx[0], by[0]) || contains(bx, by, bCount, ax[0], ay[0])) {
+      return true;
+    }
+    for (int i = 0, j = aCount - 1; i < aCount; j = i++) {
+      for (int k = 0, l = bCount - 1; k < bCount; l = k++) {
+        if (crosses(ax[j], ay[j], ax[i], ay[i], bx[l], by[l], bx[k], by[k])) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Tests whether a point is inside a polygon, with the even-odd rule
+   *
+   * @param xs the x coordinates of the vertices of the polygon
+   * @param ys the y coordinates of the vertices of the polygon
+   * @param count the number of vertices of the polygon
+   * @param x the x coordinate of the point
+   * @param y the y coordinate of the point
+   * @return true if the point is inside the polygon, false otherwise
+   */
+  static boolean contains(float[] xs, float[] ys, int count, float x, float y) {
+    boolean inside = false;
+    for (int i = 0, j = count - 1; i < count; j = i++) {
+      if ((ys[i] > y) != (ys[j] > y)
+          && x < (xs[j] - xs[i]) * (y - ys[i]) / (ys[j] - ys[i]) + xs[i]) {
+        inside = !inside;
+      }
+    }
+    return inside;
+  }
+
+  /**
+   * Tests whether two segments cross or touch
+   *
+   * @param x1 the x coordinate of the start of the first segment
+   * @param y1 the y coordinate of the start of the first segment
+   * @param x2 the x coordinate of the end of the first segment
+   * @param y2 the y coordinate of the end of the first segment
+   * @param x3 the x coordinate of the start of the second segment
+   * @param y3 the y coordinate of the start of the second segment
+   * @param x4 the x coordinate of the end of the second segment
+   * @param y4 the y coordinate of the end of the second segment
+   * @return true if the segments cross or touch, false otherwise
+   */
+  private static boolean crosses(
+      float x1, float y1, float x2, float y2, float x3, float y3, float x4, float y4) {
+    float d1 = orientation(x3, y3, x4, y4, x1, y1);
+    float d2 = orientation(x3, y3, x4, y4, x2, y2);
+    float d3 = orientation(x1, y1, x2, y2, x3, y3);
+    float d4 = orientation(x1, y1, x2, y2, x4, y4);
+    if (d1 == 0 && d2 == 0) {
+      // Collinear segments only touch if their projections overlap
+      return Math.min(x1, x2) <= Math.max(x3, x4)
+          && Math.min(x3, x4) <= Math.max(x1, x2)
+          && Math.min(y1, y2) <= Math.max(y3, y4)
+          && Math.min(y3, y4) <= Math.max(y1, y2);
+    }
+    return ((d1 > 0 && d2 < 0) || (d1 < 0 && d2 > 0)) && ((d3 > 0 && d4 < 0) || (d3 < 0 && d4 > 0))
+        || d1 == 0 && between(x3, y3, x4, y4, x1, y1)
+        || d2 == 0 && between(x3, y3, x4, y4, x2, y2)
+        || d3 == 0 && between(x1, y1, x2, y2, x3, y3)
+        || d4 == 0 && between(x1, y1, x2, y2, x4, y4);
+  }
+
+  /**
+   * Returns on which side of a line a point lies
+   *
+   * @param ax the x coordinate of a first point of the line
+   * @param ay the y coordinate of a first point of the line
+   * @param bx the x coordinate of a second point of the line
+   * @param by the y coordinate of a second point of the line
+   * @param px the x coordinate of the point
+   * @param py the y coordinate of the point
+   * @return a positive value if the point is on the left, negative if on the right, 0 if on the
+   *     line
+   */
+  private static float orientation(float ax, float ay, float bx, float by, float px, float py) {
+    return (bx - ax) * (py - ay) - (by - ay) * (px - ax);
+  }
+
+  /**
+   * Tests whether a point known to be on the line of a segment lies within the segment
+   *
+   * @param ax the x coordinate of the start of the segment
+   * @param ay the y coordinate of the start of the segment
+   * @param bx the x coordinate of the end of the segment
+   * @param by the y coordinate of the end of the segment
+   * @param px the x coordinate of the point
+   * @param py the y coordinate of the point
+   * @return true if the point lies within the segment, false otherwise
+   */
+  private static boolean between(float ax, float ay, float bx, float by, float px, float py) {
+    return Math.min(ax, bx) <= px
+        && px <= Math.max(ax, bx)
+        && Math.min(ay, by) <= py
+        && py <= Math.max(ay, by);
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.physics2j.debug;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import org.alban098.common.Transform;
+import org.alban098.graphics2j.common.Renderable;
+import org.alban098.graphics2j.common.RenderableComponent;
+import org.alban098.graphics2j.common.components.RenderElement;
+import org.alban098.graphics2j.common.shaders.data.model.Models;
+import org.alban098.physics2j.DynamicAabbTree;
+import org.joml.Vector4f;
+
+/**
+ * A debug view of the boxes of a {@link DynamicAabbTree}, proxies in red and internal nodes in
+ * green. The {@link Node}s are pooled and reused from one update to the next, so the view can be
+ * refreshed every frame without allocating {@link Transform}s
+ */
+public final class AabbTreeOverlay {
+
+  /** The look of the proxies */
+  private static final RenderableComponent LEAF =
+      new RenderableComponent(
+          new RenderElement(new Vector4f(1f, 0f, 0f, 1f), Models.POINT), "leaf");
+  /** The look of the internal nodes */
+  private static final RenderableComponent BRANCH =
+      new RenderableComponent(
+          new RenderElement(new Vector4f(0f, 1f, 0f, 0.5f), Models.POINT), "branch");
+
+  /** The pooled nodes, the first {@link #count} being the ones of the last update */
+  private final List<Node> nodes = new ArrayList<>();
+  /** The number of nodes of the last update */
+  private int count = 0;
+  /** The traversal stack of the tree */
+  private int[] stack = new int[64];
+
+  /**
+   * Mirrors the boxes of a tree into the pooled {@link Node}s
+   *
+   * @param tree the tree to mirror
+   */
+  public void update(DynamicAabbTree tree) {
+    clear();
+    add(tree);
+  }
+
+  /** Drops the {@link Node}s of the last update, keeping them pooled */
+  public void clear() {
+    count = 0;
+  }
+
+  /**
+   * Mirrors the boxes of a tree into the pooled {@link Node}s, after the ones already mirrored, so
+   * the trees of several layers can be shown at once
+   *
+   * @param tree the tree to mirror
+   */
+  public void add(DynamicAabbTree tree) {
+    int top = 0;
+    stack[top++] = tree.getRoot();
+    while (top > 0) {
+      int node = stack[--top];
+      if (node == DynamicAabbTree.NULL_NODE) {
+        continue;
+      }
+      if (count == nodes.size()) {
+        nodes.add(new Node());
+      }
+      Node debugNode = nodes.get(count++);
+      debugNode.component = tree.isLeaf(node) ? LEAF : BRANCH;
+      debugNode.transform.setDisplacement(
+          (tree.getMinX(node) + tree.getMaxX(node)) / 2f,
+          (tree.getMinY(node) + tree.getMaxY(node)) / 2f);
+      debugNode.transform.setScale(
+          tree.getMaxX(node) - tree.getMinX(node), tree.getMaxY(node) - tree.getMinY(node));
+      debugNode.transform.commit();
+      if (!tree.isLeaf(node)) {
+        if (top + 2 > stack.length) {
+          stack = Arrays.copyOf(stack, stack.length * 2);
+        }
+        stack[top++] = tree.getChild1(node);
+        stack[top++] = tree.getChild2(node);
+      }
+    }
+  }
+
+  /**
+   * Hands every {@link Node} of the last update to a consumer
+   *
+   * @param consumer the consumer of the nodes
+   */
+  public void forEach(Consumer<? super Node> consumer) {
+    for (int i = 0; i < count; i++) {
+      consumer.accept(nodes.get(i));
+    }
+  }
+
+  /** The box of a node of the tree, as a {@link Renderable} */
+  public static final class Node implements Renderable {
+
+    /** The Transform of the box, its scale being the size of the box */
+    private final Transform transform = new Transform();
+    /** The look of the box, depending on the kind of node */
+    private RenderableComponent component = LEAF;
+
+    /**
+     * Returns the {@link RenderableComponent} of the box
+     *
+     * @return the {@link RenderableComponent} of the box
+     */
+    @Override
+    public RenderableComponent getRenderableComponent() {
+      return component;
+    }
+
+    /**
+     * Returns the {@link Transform} of the box
+     *
+     * @return the {@link Transform} of the box
+     */
+    @Override
+    public Transform getTransform() {
+      return transform;
+    }
+  }
+}
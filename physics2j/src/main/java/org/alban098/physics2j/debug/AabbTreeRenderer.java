@@ -17,15 +17,14 @@ import org.alban098.graphics2j.common.shaders.data.uniform.Uniform;
 import org.alban098.graphics2j.common.shaders.data.uniform.UniformMat4;
 import org.alban098.graphics2j.common.shaders.data.uniform.Uniforms;
 import org.alban098.graphics2j.objects.renderers.AbstractRenderer;
-import org.alban098.physics2j.QuadTree;
 import org.joml.Matrix4f;
 
-public class QuadTreeRenderer extends AbstractRenderer<QuadTree.Node<?>> {
+public class AabbTreeRenderer extends AbstractRenderer<AabbTreeOverlay.Node> {
 
-  public QuadTreeRenderer() {
+  public AabbTreeRenderer() {
     super(
         new ShaderProgram(
-            "QuadTree Shader",
+            "AABB Tree Shader",
             new File("assets/shaders/example.vert"),
             new File("assets/shaders/example.geom"),
             new File("assets/shaders/example.frag"),
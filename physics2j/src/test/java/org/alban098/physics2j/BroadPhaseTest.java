@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.physics2j;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+import org.alban098.common.Transform;
+import org.joml.Vector2f;
+import org.junit.Test;
+
+public class BroadPhaseTest {
+
+  private static BodyBuffer pack(Transform[] transforms, PhysicsComponent[] components) {
+    BodyBuffer bodies = new BodyBuffer();
+    for (int i = 0; i < transforms.length; i++) {
+      components[i].updateWorldHitbox(transforms[i]);
+      bodies.add(i, components[i], transforms[i]);
+    }
+    bodies.sealDynamic();
+    return bodies;
+  }
+
+  private static Set<Long> collectPairs(BroadPhase broadPhase, BodyBuffer bodies) {
+    Set<Long> pairs = new HashSet<>();
+    for (int pair = 0; pair < broadPhase.getPairCount(); pair++) {
+      int a = bodies.ids[broadPhase.getFirst(pair)];
+      int b = bodies.ids[broadPhase.getSecond(pair)];
+      assertTrue("pair reported twice", pairs.add(((long) Math.min(a, b) << 32) | Math.max(a, b)));
+    }
+    return pairs;
+  }
+
+  @Test
+  public void reportsEachPairOfMovedProxiesOnce() {
+    int count = 4;
+    Transform[] transforms = new Transform[count];
+    PhysicsComponent[] components = new PhysicsComponent[count];
+    for (int i = 0; i < count; i++) {
+      transforms[i] = new Transform(new Vector2f(i * 0.25f, 0), new Vector2f(1, 1), 0);
+      components[i] = new PhysicsComponent(1, new Vector2f(1, 1));
+    }
+    BroadPhase broadPhase = new BroadPhase();
+    BodyBuffer bodies = pack(transforms, components);
+    broadPhase.findPairs(bodies);
+
+    // Every proxy is new, so every one of them has moved and overlaps every other one
+    assertEquals(count * (count - 1) / 2, collectPairs(broadPhase, bodies).size());
+    assertEquals(count * (count - 1) / 2, broadPhase.getPairCount());
+  }
+
+  @Test
+  public void onlyReportsPairsOfProxiesMovedSinceLastSearch() {
+    Transform[] transforms = {
+      new Transform(new Vector2f(0, 0), new Vector2f(1, 1), 0),
+      new Transform(new Vector2f(5, 0), new Vector2f(1, 1), 0),
+      new Transform(new Vector2f(10, 0), new Vector2f(1, 1), 0)
+    };
+    PhysicsComponent[] components = {
+      new PhysicsComponent(1, new Vector2f(1, 1)),
+      new PhysicsComponent(1, new Vector2f(1, 1)),
+      new PhysicsComponent(1, new Vector2f(1, 1))
+    };
+    BroadPhase broadPhase = new BroadPhase();
+    broadPhase.findPairs(pack(transforms, components));
+    assertEquals(0, broadPhase.getPairCount());
+
+    // Nothing moved, nothing to report
+    broadPhase.findPairs(pack(transforms, components));
+    assertEquals(0, broadPhase.getPairCount());
+
+    transforms[1].setDisplacement(9.5f, 0);
+    transforms[1].commit();
+    BodyBuffer bodies = pack(transforms, components);
+    broadPhase.findPairs(bodies);
+    Set<Long> pairs = collectPairs(broadPhase, bodies);
+    assertEquals(1, pairs.size());
+    assertTrue(pairs.contains((1L << 32) | 2));
+  }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.physics2j;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.joml.Vector2f;
+import org.junit.Test;
+
+public class CollisionFilterTest {
+
+  private static final int TERRAIN = 1;
+  private static final int BULLET = 2;
+  private static final int DEBRIS = 4;
+  private static final double TICK = 1.0 / 50 + 1e-6;
+
+  private static void run(PhysicsManager manager, int ticks) {
+    for (int i = 0; i < ticks; i++) {
+      manager.applyPhysics(TICK);
+    }
+  }
+
+  @Test
+  public void categoriesMasksAndGroupsFormTheMatrix() {
+    int all = CollisionFilter.ALL;
+    int none = CollisionFilter.NO_GROUP;
+    // Both masks must accept the category of the other
+    assertTrue(CollisionFilter.shouldCollide(TERRAIN, all, none, BULLET, TERRAIN, none));
+    assertFalse(CollisionFilter.shouldCollide(BULLET, TERRAIN, none, BULLET, TERRAIN, none));
+    assertFalse(CollisionFilter.shouldCollide(TERRAIN, DEBRIS, none, BULLET, all, none));
+    assertFalse(CollisionFilter.shouldCollide(TERRAIN, all, none, BULLET, DEBRIS, none));
+    // A shared positive group always collides, a shared negative group never does
+    assertTrue(CollisionFilter.shouldCollide(BULLET, TERRAIN, 3, BULLET, TERRAIN, 3));
+    assertFalse(CollisionFilter.shouldCollide(TERRAIN, all, -3, TERRAIN, all, -3));
+    // Different groups fall back to the masks
+    assertTrue(CollisionFilter.shouldCollide(TERRAIN, all, -1, TERRAIN, all, -2));
+    assertFalse(CollisionFilter.shouldCollide(BULLET, TERRAIN, 1, BULLET, TERRAIN, 2));
+
+    for (int categoryA = 1; categoryA < 8; categoryA++) {
+      for (int maskA = 0; maskA < 8; maskA++) {
+        for (int categoryB = 1; categoryB < 8; categoryB++) {
+          for (int maskB = 0; maskB < 8; maskB++) {
+            for (int group = -1; group <= 1; group++) {
+              boolean collide =
+                  CollisionFilter.shouldCollide(categoryA, maskA, group, categoryB, maskB, group);
+              assertEquals(
+                  collide,
+                  CollisionFilter.shouldCollide(categoryB, maskB, group, categoryA, maskA, group));
+              if (collide) {
+                // A body is searched among the categories it may collide with
+                assertTrue(CollisionFilter.mayCollide(maskA, group, categoryB));
+              }
+            }
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void filteredPairsAreNeverSolvedNorReported() {
+    PhysicsManager manager = new PhysicsManager(new Force(0, -2f));
+    manager.track(new TestBody(0, -0.5f, 100, 1, 0));
+    // Overlapping bullets ignoring each other
+    TestBody bullet1 = new TestBody(0, 0.5f, 1, 1, 1);
+    TestBody bullet2 = new TestBody(0.3f, 0.5f, 1, 1, 1);
+    // Stacks of debris only colliding with the terrain, of a negative group, of a positive group
+    // overriding masks excluding each other, and of default bodies
+    TestBody[] stacks = new TestBody[8];
+    for (int i = 0; i < stacks.length; i++) {
+      stacks[i] = new TestBody(10 + i / 2 * 10, 0.5f + i % 2, 1, 1, 1);
+    }
+    bullet1.getPhysicsComponent().setFilter(BULLET, TERRAIN, 0);
+    bullet2.getPhysicsComponent().setFilter(BULLET, TERRAIN, 0);
+    stacks[0].getPhysicsComponent().setFilter(DEBRIS, TERRAIN, 0);
+    stacks[1].getPhysicsComponent().setFilter(DEBRIS, TERRAIN, 0);
+    stacks[2].getPhysicsComponent().setGroup(-1);
+    stacks[3].getPhysicsComponent().setGroup(-1);
+    stacks[4].getPhysicsComponent().setFilter(BULLET, TERRAIN, 3);
+    stacks[5].getPhysicsComponent().setFilter(BULLET, TERRAIN, 3);
+    manager.track(bullet1);
+    manager.track(bullet2);
+    for (TestBody body : stacks) {
+      manager.track(body);
+    }
+    run(manager, 150);
+
+    // One layer per category in use
+    assertEquals(3, manager.getLayerCount());
+    assertEquals(0.5f, bullet1.getY(), 0.01f);
+    assertEquals(0.5f, bullet2.getY(), 0.01f);
+    // Only the ground has been touched
+    assertEquals(1, bullet1.getCollisions());
+    assertEquals(1, bullet2.getCollisions());
+    for (int i = 0; i < 4; i++) {
+      assertEquals(0.5f, stacks[i].getY(), 0.01f);
+    }
+    for (int i = 4; i < 8; i++) {
+      assertEquals(0.5f + i % 2, stacks[i].getY(), 0.02f);
+    }
+
+    // Queries and raycasts see the bodies of every layer, the ground included
+    List<Physical> found = new ArrayList<>();
+    manager.overlapAabb(new Vector2f(-1, 0), new Vector2f(41, 2), found);
+    assertEquals(11, found.size());
+    RaycastHit hit = new RaycastHit();
+    assertTrue(manager.raycast(new Vector2f(0, 5), new Vector2f(0, -1), 10, hit));
+    assertTrue(hit.getBody() == bullet1 || hit.getBody() == bullet2);
+  }
+
+  @Test
+  public void filterChangesApplyAtTheNextTick() {
+    PhysicsManager manager = new PhysicsManager(new Force(0, -2f));
+    manager.track(new TestBody(0, -0.5f, 100, 1, 0));
+    TestBody bottom = new TestBody(0, 0.5f, 1, 1, 1);
+    TestBody top = new TestBody(0, 1.5f, 1, 1, 1);
+    manager.track(bottom);
+    manager.track(top);
+    run(manager, 100);
+    assertEquals(1.5f, top.getY(), 0.02f);
+
+    // Moved to a new category accepting nothing, the top box falls through everything
+    top.getPhysicsComponent().setFilter(64, 0, 0);
+    run(manager, 20);
+    assertEquals(2, manager.getLayerCount());
+    assertTrue(top.getY() < -1);
+    assertEquals(0.5f, bottom.getY(), 0.02f);
+    // The contact with the bottom box has ended
+    assertEquals(1, top.getSeparations());
+  }
+}
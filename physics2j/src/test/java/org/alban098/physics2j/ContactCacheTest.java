@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.physics2j;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.Random;
+import org.alban098.common.metrics.AllocationProbe;
+import org.junit.Test;
+
+public class ContactCacheTest {
+
+  private static final double TICK = 1.0 / 50 + 1e-6;
+
+  @Test
+  public void classifiesPairsAsBeginPersistAndEnd() {
+    ContactCache cache = new ContactCache();
+    TestBody a = new TestBody(0, 0, 1, 1, 1);
+    TestBody b = new TestBody(0, 1, 1, 1, 1);
+    long key = ContactCache.pairKey(1, 2);
+
+    int slot = cache.acquire(key, a, b);
+    cache.store(slot, 0, 7, 0.5f, 0.1f, 2, 3);
+    cache.update();
+    assertEquals(1, cache.getBeginCount());
+    cache.dispatch();
+    assertEquals(1, a.getCollisions());
+    assertEquals(1, b.getCollisions());
+
+    // The impulses of the last tick are found back by feature to warm start the solver
+    assertEquals(slot, cache.acquire(key, a, b));
+    int point = cache.findPoint(slot, 7);
+    assertEquals(0.5f, cache.getNormalImpulse(point), 0);
+    assertEquals(0.1f, cache.getTangentImpulse(point), 0);
+    assertEquals(-1, cache.findPoint(slot, 8));
+    cache.refresh(slot);
+    cache.store(slot, 0, 7, 0.6f, 0, 2, 3);
+    cache.update();
+    cache.dispatch();
+    assertEquals(0, cache.getBeginCount());
+    assertEquals(1, cache.getPersistCount());
+    assertEquals(1, a.getCollisions());
+
+    // Still close but no longer touching
+    cache.acquire(key, a, b);
+    cache.refresh(slot);
+    cache.update();
+    cache.dispatch();
+    assertEquals(1, cache.getEndCount());
+    assertEquals(1, a.getSeparations());
+    assertEquals(1, b.getSeparations());
+    assertEquals(1, cache.getPairCount());
+
+    // Not reported anymore, the slot is recycled
+    cache.update();
+    cache.dispatch();
+    assertEquals(0, cache.getPairCount());
+    assertEquals(1, a.getSeparations());
+    assertEquals(slot, cache.acquire(ContactCache.pairKey(3, 4), a, b));
+  }
+
+  @Test
+  public void packsPairKeysOfAnyIds() {
+    assertNotEquals(ContactCache.pairKey(1, 2), ContactCache.pairKey(2, 1));
+    assertNotEquals(ContactCache.pairKey(0, -1), ContactCache.pairKey(-1, 0));
+    assertEquals(0x0000000100000002L, ContactCache.pairKey(1, 2));
+  }
+
+  @Test
+  public void reportsOneBeginAndEndPerBounce() {
+    PhysicsManager manager = new PhysicsManager(new Force(0, -0.4f));
+    TestBody ground = new TestBody(0, -0.5f, 40, 1, 0);
+    TestBody box = new TestBody(0, 3, 1, 1, 2);
+    box.getPhysicsComponent().setRestitution(0.5f);
+    manager.track(ground);
+    manager.track(box);
+    int touchingTicks = 0;
+
+    for (int tick = 0; tick < 300; tick++) {
+      manager.applyPhysics(TICK);
+      int touching = box.getCollisions() - box.getSeparations();
+      // Events alternate, the box only ever touches the ground
+      assertTrue(touching == 0 || touching == 1);
+      touchingTicks += touching;
+    }
+
+    assertTrue(box.getCollisions() > 2);
+    assertEquals(box.getCollisions() - 1, box.getSeparations());
+    assertEquals(box.getCollisions(), ground.getCollisions());
+    assertTrue(touchingTicks > box.getCollisions() * 10);
+    assertEquals(0.5f, box.getY(), 0.01f);
+
+    manager.unregister(box);
+    manager.applyPhysics(TICK);
+    assertEquals(box.getCollisions(), box.getSeparations());
+    assertEquals(ground.getCollisions(), ground.getSeparations());
+  }
+
+  @Test
+  public void tickDoesNotAllocate() {
+    assumeTrue(AllocationProbe.isSupported());
+    PhysicsManager manager = new PhysicsManager(new Force(0, -0.4f));
+    manager.track(new TestBody(0, -0.5f, 200, 1, 0));
+    Random random = new Random(1);
+    for (int i = 0; i < 500; i++) {
+      manager.track(
+          new TestBody(random.nextFloat() * 150 - 75, 0.5f + random.nextFloat() * 20, 1, 1, 2));
+    }
+    for (int tick = 0; tick < 300; tick++) {
+      manager.applyPhysics(TICK);
+    }
+    Runnable tick = () -> manager.applyPhysics(TICK);
+
+    double bytes = AllocationProbe.measure(tick, 100, 200);
+    // A one time allocation shows in a single round, one made by every tick in all of them
+    for (int round = 1; round < 3 && bytes > 0; round++) {
+      bytes = AllocationProbe.measure(tick, 0, 200);
+    }
+    assertEquals(0, bytes, 0);
+    assertTrue(manager.getSolver().getContactCount() > 500);
+  }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.physics2j;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class ContactSolverTest {
+
+  /** Slightly more than a tick, so each call runs exactly one tick */
+  private static final double TICK = 1.0 / 50 + 1e-6;
+
+  private static TestBody[] stack(PhysicsManager manager, int height) {
+    manager.track(new TestBody(0, -0.5f, 40, 1, 0));
+    TestBody[] boxes = new TestBody[height];
+    for (int i = 0; i < height; i++) {
+      // Slightly staggered so the stack is not perfectly aligned
+      boxes[i] = new TestBody(0.02f * (i % 2), 0.5f + i, 1, 1, 2);
+      manager.track(boxes[i]);
+    }
+    return boxes;
+  }
+
+  @Test
+  public void stackSettlesWithWarmStarting() {
+    PhysicsManager manager = new PhysicsManager(new Force(0, -2));
+    TestBody[] boxes = stack(manager, 6);
+
+    for (int tick = 0; tick < 600; tick++) {
+      manager.applyPhysics(TICK);
+    }
+
+    float maxSpeed = 0;
+    for (TestBody box : boxes) {
+      maxSpeed = Math.max(maxSpeed, box.getSpeed());
+      assertEquals(0, box.getX(), 0.1f);
+    }
+    assertTrue(maxSpeed < 0.005f);
+    assertEquals(5.5f, boxes[5].getY(), 0.05f);
+    // Two contact points per touching pair, all carried over from the previous tick
+    assertEquals(12, manager.getSolver().getContactCount());
+    assertEquals(12, manager.getSolver().getWarmStartedCount());
+  }
+
+  @Test
+  public void stackCollapsesWithoutWarmStarting() {
+    PhysicsManager manager = new PhysicsManager(new Force(0, -2));
+    manager.getSolver().setWarmStarting(false);
+    TestBody[] boxes = stack(manager, 6);
+
+    for (int tick = 0; tick < 600; tick++) {
+      manager.applyPhysics(TICK);
+    }
+
+    assertEquals(0, manager.getSolver().getWarmStartedCount());
+    assertTrue(boxes[5].getY() < 2);
+  }
+
+  @Test
+  public void bodiesWithoutMassAreImmovable() {
+    PhysicsManager manager = new PhysicsManager(new Force(0, -2));
+    TestBody ground = new TestBody(0, -0.5f, 40, 1, 0);
+    manager.track(ground);
+    TestBody box = new TestBody(0, 3, 1, 1, 5);
+    manager.track(box);
+
+    for (int tick = 0; tick < 200; tick++) {
+      manager.applyPhysics(TICK);
+    }
+
+    assertEquals(-0.5f, ground.getY(), 0);
+    assertEquals(0, ground.getSpeed(), 0);
+    assertEquals(0.5f, box.getY(), 0.01f);
+    assertTrue(box.getCollisions() > 0);
+  }
+
+  @Test
+  public void restitutionMakesBodiesBounce() {
+    float[] apexes = new float[2];
+    float[] restitutions = {0, 1};
+    for (int i = 0; i < restitutions.length; i++) {
+      PhysicsManager manager = new PhysicsManager(new Force(0, -2));
+      TestBody ground = new TestBody(0, -0.5f, 40, 1, 0);
+      TestBody box = new TestBody(0, 3, 1, 1, 1);
+      ground.getPhysicsComponent().setRestitution(restitutions[i]);
+      box.getPhysicsComponent().setRestitution(restitutions[i]);
+      manager.track(ground);
+      manager.track(box);
+      boolean bounced = false;
+      for (int tick = 0; tick < 50; tick++) {
+        manager.applyPhysics(TICK);
+        bounced |= box.getPhysicsComponent().getVelocity().y > 0;
+        if (bounced) {
+          apexes[i] = Math.max(apexes[i], box.getY());
+        }
+      }
+    }
+
+    assertEquals(0.5f, apexes[0], 0.01f);
+    assertTrue(apexes[1] > 3);
+  }
+
+  @Test
+  public void frictionStopsSlidingBodies() {
+    float[] friction = {0, 0.8f};
+    float[] distances = new float[2];
+    for (int i = 0; i < friction.length; i++) {
+      PhysicsManager manager = new PhysicsManager(new Force(0, -2));
+      TestBody ground = new TestBody(0, -0.5f, 400, 1, 0);
+      TestBody box = new TestBody(0, 0.5f, 1, 1, 1);
+      ground.getPhysicsComponent().setFriction(friction[i]);
+      box.getPhysicsComponent().setFriction(friction[i]);
+      box.getPhysicsComponent().setVelocity(3, 0);
+      manager.track(ground);
+      manager.track(box);
+      for (int tick = 0; tick < 200; tick++) {
+        manager.applyPhysics(TICK);
+      }
+      distances[i] = box.getX();
+      if (friction[i] > 0) {
+        assertEquals(0, box.getPhysicsComponent().getVelocity().x, 1e-4f);
+      }
+    }
+
+    assertEquals(600, distances[0], 0.01f);
+    // Decelerated by friction * gravity until stopped, covering v^2 / (2 * deceleration)
+    float deceleration = 0.8f * 2 / 50;
+    assertEquals(3 * 3 / (2 * deceleration), distances[1], 3);
+  }
+
+  @Test
+  public void rejectsInvalidIterationCounts() {
+    ContactSolver solver = new PhysicsManager().getSolver();
+    assertThrows(IllegalArgumentException.class, () -> solver.setVelocityIterations(0));
+    assertThrows(IllegalArgumentException.class, () -> solver.setPositionIterations(-1));
+    solver.setPositionIterations(0);
+    assertEquals(0, solver.getPositionIterations());
+    assertEquals(ContactSolver.DEFAULT_VELOCITY_ITERATIONS, solver.getVelocityIterations());
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.physics2j;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.util.Random;
+import org.junit.Test;
+
+public class DeterminismTest {
+
+  private static final int BODIES = 300;
+  private static final int TICKS = 200;
+
+  /** Builds a pile of rotated boxes falling on the ground, always from the same seed */
+  private static PhysicsManager scene() {
+    PhysicsManager manager = new PhysicsManager(new Force(0, -0.4f));
+    manager.setDeterministic(true);
+    manager.track(new TestBody(0, -0.5f, 100, 1, 0));
+    Random random = new Random(1);
+    for (int i = 0; i < BODIES; i++) {
+      TestBody body =
+          new TestBody(random.nextFloat() * 60 - 30, 0.5f + random.nextFloat() * 20, 1, 1, 2);
+      body.getTransform().setRotation(random.nextFloat());
+      body.getTransform().commit();
+      body.getPhysicsComponent().setAngularVelocity(random.nextFloat() * 0.05f);
+      manager.track(body);
+    }
+    return manager;
+  }
+
+  private static long[] run(PhysicsManager manager) {
+    long[] hashes = new long[TICKS];
+    for (int tick = 0; tick < TICKS; tick++) {
+      manager.step();
+      hashes[tick] = manager.getStateHash();
+    }
+    return hashes;
+  }
+
+  @Test
+  public void identicalScenesHashIdenticallyEveryTick() {
+    long[] first = run(scene());
+    long[] second = run(scene());
+
+    assertArrayEquals(first, second);
+    // The state changes as the boxes fall
+    assertNotEquals(first[0], first[TICKS - 1]);
+  }
+
+  @Test
+  public void anyDifferenceChangesTheHash() {
+    PhysicsManager reference = scene();
+    PhysicsManager perturbed = scene();
+    reference.step();
+    perturbed.step();
+    assertEquals(reference.getStateHash(), perturbed.getStateHash());
+
+    // Add a body whose velocity differs by the smallest representable amount
+    TestBody body = new TestBody(0, 100, 1, 1, 1);
+    TestBody twin = new TestBody(0, 100, 1, 1, 1);
+    twin.getPhysicsComponent().setVelocity(Math.nextUp(0f), 0);
+    reference.track(body);
+    perturbed.track(twin);
+    reference.step();
+    perturbed.step();
+
+    assertNotEquals(reference.getStateHash(), perturbed.getStateHash());
+  }
+
+  @Test
+  public void stepRunsExactlyOneTick() {
+    PhysicsManager manager = scene();
+    manager.step();
+    manager.step();
+    assertEquals(2, manager.getTickCount());
+
+    manager.applyPhysics(0.05);
+    assertEquals(4, manager.getTickCount());
+  }
+
+  @Test
+  public void hashIsOnlyComputedInDeterministicMode() {
+    PhysicsManager manager = scene();
+    manager.setDeterministic(false);
+    manager.step();
+    assertEquals(0, manager.getStateHash());
+
+    manager.setDeterministic(true);
+    manager.step();
+    assertNotEquals(0, manager.getStateHash());
+  }
+}
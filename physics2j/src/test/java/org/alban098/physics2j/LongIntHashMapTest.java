@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.physics2j;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+
+public class LongIntHashMapTest {
+
+  @Test
+  public void storesAndRemovesEntries() {
+    LongIntHashMap map = new LongIntHashMap(4);
+    map.put(0, 10);
+    map.put(42, 20);
+    map.put(-1, 30);
+    map.put(42, 21);
+
+    assertEquals(3, map.size());
+    assertEquals(10, map.get(0));
+    assertEquals(21, map.get(42));
+    assertEquals(30, map.get(-1));
+    assertEquals(LongIntHashMap.NO_VALUE, map.get(7));
+    assertEquals(10, map.remove(0));
+    assertEquals(LongIntHashMap.NO_VALUE, map.remove(0));
+    assertEquals(LongIntHashMap.NO_VALUE, map.get(0));
+    assertEquals(2, map.size());
+  }
+
+  @Test
+  public void matchesHashMapUnderRandomOperations() {
+    Random random = new Random(5);
+    LongIntHashMap map = new LongIntHashMap(16);
+    Map<Long, Integer> expected = new HashMap<>();
+    for (int i = 0; i < 200_000; i++) {
+      // Few distinct keys, packed like pairs of body ids, so probe chains collide and shift back
+      long key = ContactCache.pairKey(random.nextInt(64), random.nextInt(64));
+      switch (random.nextInt(3)) {
+        case 0 -> {
+          map.put(key, i);
+          expected.put(key, i);
+        }
+        case 1 -> assertEquals(
+            (int) expected.getOrDefault(key, LongIntHashMap.NO_VALUE), map.get(key));
+        default -> {
+          Integer removed = expected.remove(key);
+          assertEquals(removed == null ? LongIntHashMap.NO_VALUE : removed, map.remove(key));
+        }
+      }
+      assertEquals(expected.size(), map.size());
+    }
+    for (Map.Entry<Long, Integer> entry : expected.entrySet()) {
+      assertEquals((int) entry.getValue(), map.get(entry.getKey()));
+    }
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.physics2j;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.alban098.common.Transform;
+import org.joml.Vector2f;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PhysicsComponentTest {
+
+  private static final float EPSILON = 1e-5f;
+
+  private Transform transform;
+  private PhysicsComponent component;
+
+  @Before
+  public void setUp() {
+    transform = new Transform(new Vector2f(3, 4), new Vector2f(2, 1), 0);
+    component = new PhysicsComponent(1, new Vector2f(2, 1));
+  }
+
+  @Test
+  public void computesWorldHitboxFromTransform() {
+    assertTrue(component.updateWorldHitbox(transform));
+    assertEquals(4, component.getWorldPointCount());
+    assertEquals(2, component.getBounds().getMinX(), EPSILON);
+    assertEquals(3.5f, component.getBounds().getMinY(), EPSILON);
+    assertEquals(4, component.getBounds().getMaxX(), EPSILON);
+    assertEquals(4.5f, component.getBounds().getMaxY(), EPSILON);
+  }
+
+  @Test
+  public void reusesWorldHitboxUntilTransformCommits() {
+    assertTrue(component.updateWorldHitbox(transform));
+    assertFalse(component.updateWorldHitbox(transform));
+
+    transform.setRotation((float) (Math.PI / 2));
+    // Not committed yet, the cached hitbox is still the one of the committed state
+    assertFalse(component.updateWorldHitbox(transform));
+    transform.commit();
+    assertTrue(component.updateWorldHitbox(transform));
+    assertEquals(2.5f, component.getBounds().getMinX(), EPSILON);
+    assertEquals(3, component.getBounds().getMinY(), EPSILON);
+    assertEquals(3.5f, component.getBounds().getMaxX(), EPSILON);
+    assertEquals(5, component.getBounds().getMaxY(), EPSILON);
+  }
+
+  @Test
+  public void recomputesWorldHitboxWhenPointsAreEdited() {
+    component.updateWorldHitbox(transform);
+    Polygon hitbox = component.getHitbox();
+
+    hitbox.setPoint(2, 2, 0.5f);
+    assertTrue(component.updateWorldHitbox(transform));
+    assertEquals(5, component.getBounds().getMaxX(), EPSILON);
+    assertFalse(component.updateWorldHitbox(transform));
+
+    hitbox.translate(1, 0);
+    assertTrue(component.updateWorldHitbox(transform));
+    assertEquals(3, component.getBounds().getMinX(), EPSILON);
+
+    hitbox.xpoints[0] = -5;
+    hitbox.invalidate();
+    assertTrue(component.updateWorldHitbox(transform));
+    assertEquals(-2, component.getBounds().getMinX(), EPSILON);
+    assertEquals(4, component.getWorldPointCount());
+  }
+
+  @Test
+  public void recomputesWorldHitboxWhenPointsAreAdded() {
+    component.updateWorldHitbox(transform);
+    component.getHitbox().addPoint(0, 2);
+    assertTrue(component.updateWorldHitbox(transform));
+    assertEquals(5, component.getWorldPointCount());
+    assertEquals(6, component.getBounds().getMaxY(), EPSILON);
+  }
+
+  @Test
+  public void recomputesWorldHitboxForAnotherTransform() {
+    component.updateWorldHitbox(transform);
+    Transform other = new Transform(new Vector2f(-3, 0), new Vector2f(2, 1), 0);
+    assertTrue(component.updateWorldHitbox(other));
+    assertEquals(-4, component.getBounds().getMinX(), EPSILON);
+  }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.physics2j;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.alban098.common.metrics.AllocationProbe;
+import org.junit.Test;
+
+public class PhysicsSnapshotTest {
+
+  private static final int BODIES = 300;
+
+  /** Builds boxes falling on the ground, some of them far enough apart to stay asleep in a delta */
+  private static PhysicsManager scene() {
+    PhysicsManager manager = new PhysicsManager(new Force(0, -0.4f));
+    manager.setDeterministic(true);
+    manager.track(new TestBody(0, -0.5f, 400, 1, 0));
+    Random random = new Random(1);
+    for (int i = 0; i < BODIES; i++) {
+      TestBody body =
+          new TestBody(random.nextFloat() * 300 - 150, 0.5f + random.nextFloat() * 10, 1, 1, 2);
+      body.getTransform().setRotation(random.nextFloat());
+      body.getTransform().commit();
+      manager.track(body);
+    }
+    return manager;
+  }
+
+  private static long[] hashes(PhysicsManager manager, int ticks) {
+    long[] hashes = new long[ticks];
+    for (int tick = 0; tick < ticks; tick++) {
+      manager.step();
+      hashes[tick] = manager.getStateHash();
+    }
+    return hashes;
+  }
+
+  @Test
+  public void restoringASnapshotResimulatesIdentically() {
+    PhysicsManager manager = scene();
+    hashes(manager, 50);
+    PhysicsSnapshot snapshot = new PhysicsSnapshot();
+    manager.snapshot(snapshot);
+    long[] expected = hashes(manager, 100);
+
+    manager.restore(snapshot);
+
+    assertEquals(50, manager.getTickCount());
+    assertEquals(snapshot.getStateHash(), manager.getStateHash());
+    assertArrayEquals(expected, hashes(manager, 100));
+    assertFalse(snapshot.isDelta());
+    assertEquals(BODIES + 1, snapshot.getBodyCount());
+  }
+
+  @Test
+  public void rollbackResimulatesIdentically() {
+    long[] expected = hashes(scene(), 200);
+    PhysicsManager manager = scene();
+    manager.setHistory(32);
+
+    long[] hashes = hashes(manager, 150);
+    assertEquals(expected[149], hashes[149]);
+    assertEquals(32, manager.getHistory().size());
+
+    assertTrue(manager.rollback(130));
+    assertEquals(130, manager.getTickCount());
+    assertEquals(expected[129], manager.getStateHash());
+    // The snapshots after the restored tick are discarded, then recorded again
+    assertEquals(null, manager.getHistory().get(140));
+    assertArrayEquals(Arrays.copyOfRange(expected, 130, 200), hashes(manager, 70));
+    assertFalse(manager.rollback(100));
+  }
+
+  @Test
+  public void deltaSnapshotsOnlyHoldTheBodiesThatChanged() {
+    PhysicsManager manager = scene();
+    // Let most boxes come to rest
+    hashes(manager, 400);
+    PhysicsSnapshot baseline = new PhysicsSnapshot();
+    PhysicsSnapshot delta = new PhysicsSnapshot();
+    manager.snapshot(baseline);
+    long baselineHash = manager.getStateHash();
+    hashes(manager, 10);
+    manager.snapshotDelta(baseline, delta);
+    long deltaHash = manager.getStateHash();
+    long[] expected = hashes(manager, 20);
+
+    assertTrue(delta.isDelta());
+    assertEquals(baseline.getTick(), delta.getBaselineTick());
+    assertTrue(delta.getRecordCount() < delta.getBodyCount());
+    assertTrue(delta.size() < baseline.size());
+
+    manager.restore(delta);
+    assertEquals(deltaHash, manager.getStateHash());
+    assertArrayEquals(expected, hashes(manager, 20));
+    manager.restore(baseline);
+    assertEquals(baselineHash, manager.getStateHash());
+    assertEquals(baseline.getTick(), manager.getTickCount());
+  }
+
+  @Test
+  public void rejectsMismatchingSnapshots() {
+    PhysicsManager manager = scene();
+    manager.step();
+    PhysicsSnapshot baseline = new PhysicsSnapshot();
+    PhysicsSnapshot delta = new PhysicsSnapshot();
+    manager.snapshot(baseline);
+    manager.step();
+    manager.snapshotDelta(baseline, delta);
+
+    assertThrows(IllegalArgumentException.class, () -> manager.snapshotDelta(delta, baseline));
+    assertThrows(IllegalArgumentException.class, () -> manager.snapshotDelta(baseline, baseline));
+    assertThrows(IllegalArgumentException.class, () -> manager.restore(new PhysicsSnapshot()));
+
+    // The baseline of the delta is overwritten by a later tick
+    manager.step();
+    manager.snapshot(baseline);
+    assertThrows(IllegalStateException.class, () -> manager.restore(delta));
+
+    long hash = manager.getStateHash();
+    manager.track(new TestBody(0, 100, 1, 1, 1));
+    assertThrows(IllegalStateException.class, () -> manager.restore(baseline));
+    assertEquals(hash, manager.getStateHash());
+  }
+
+  @Test
+  public void historyDoesNotAllocate() {
+    assumeTrue(AllocationProbe.isSupported());
+    PhysicsManager manager = scene();
+    manager.setHistory(16);
+    hashes(manager, 100);
+    Runnable tick = manager::step;
+
+    double bytes = AllocationProbe.measure(tick, 100, 200);
+    // A one time allocation shows in a single round, one made by every tick in all of them
+    for (int round = 1; round < 3 && bytes > 0; round++) {
+      bytes = AllocationProbe.measure(tick, 0, 200);
+    }
+    assertEquals(0, bytes, 0);
+  }
+}
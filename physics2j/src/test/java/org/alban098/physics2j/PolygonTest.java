@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.physics2j;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.geom.Rectangle2D;
+import org.junit.Test;
+
+public class PolygonTest {
+
+  private static Polygon square() {
+    return new Polygon(new float[] {0, 2, 2, 0}, new float[] {0, 0, 2, 2}, 4);
+  }
+
+  @Test
+  public void boundingBoxKeepsFractionalBounds() {
+    Polygon polygon =
+        new Polygon(new float[] {0.25f, 1.75f, 1.75f}, new float[] {0.5f, 0.5f, 1.5f}, 3);
+    Rectangle2D box = polygon.getBoundingBox();
+    assertEquals(0.25, box.getX(), 0);
+    assertEquals(0.5, box.getY(), 0);
+    assertEquals(1.5, box.getWidth(), 0);
+    assertEquals(1, box.getHeight(), 0);
+  }
+
+  @Test
+  public void mutatingBoundingBoxDoesNotCorruptCache() {
+    Polygon polygon = square();
+    assertTrue(polygon.contains(1, 1));
+    Rectangle2D box = polygon.getBoundingBox();
+    assertNotSame(box, polygon.getBoundingBox());
+
+    box.setRect(10, 10, 0, 0);
+    assertTrue(polygon.contains(1, 1));
+    assertEquals(0, polygon.getBoundingBox().getX(), 0);
+    assertEquals(2, polygon.getBoundingBox().getWidth(), 0);
+  }
+
+  @Test
+  public void boundingBoxFollowsMutations() {
+    Polygon polygon = square();
+    polygon.getBoundingBox();
+    polygon.translate(1, 0);
+    assertEquals(1, polygon.getBoundingBox().getX(), 0);
+    assertFalse(polygon.contains(0.5f, 1));
+
+    polygon.setPoint(1, 5, 0);
+    assertEquals(4, polygon.getBoundingBox().getWidth(), 0);
+    assertTrue(polygon.contains(3.5f, 0.5f));
+  }
+
+  @Test
+  public void emptyPolygonHasEmptyBoundingBox() {
+    assertTrue(new Polygon().getBoundingBox().isEmpty());
+  }
+}
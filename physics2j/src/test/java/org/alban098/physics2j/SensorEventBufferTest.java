@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.physics2j;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.Test;
+
+public class SensorEventBufferTest {
+
+  private static final Sensor SENSOR =
+      new Sensor(new Polygon(new float[] {0, 1, 1, 0}, new float[] {0, 0, 1, 1}, 4));
+
+  /** Records the events as the indices of the bodies, negated for an exit */
+  private static final class Recorder implements SensorListener {
+
+    private final Physical[] bodies;
+    private final List<Integer> events = new ArrayList<>();
+
+    private Recorder(Physical[] bodies) {
+      this.bodies = bodies;
+    }
+
+    private int indexOf(Physical body) {
+      for (int i = 0; i < bodies.length; i++) {
+        if (bodies[i] == body) {
+          return i;
+        }
+      }
+      throw new AssertionError("Unknown body");
+    }
+
+    @Override
+    public void onEnter(Sensor sensor, Physical body) {
+      assertSame(SENSOR, sensor);
+      events.add(indexOf(body) + 1);
+    }
+
+    @Override
+    public void onExit(Sensor sensor, Physical body) {
+      assertSame(SENSOR, sensor);
+      events.add(-indexOf(body) - 1);
+    }
+  }
+
+  private static Physical[] bodies(int count) {
+    Physical[] bodies = new Physical[count];
+    for (int i = 0; i < count; i++) {
+      bodies[i] = new TestBody(i, 0, 1, 1, 1);
+    }
+    return bodies;
+  }
+
+  @Test
+  public void capacityIsRoundedUpToAPowerOfTwo() {
+    assertEquals(2, new SensorEventBuffer(1).getCapacity());
+    assertEquals(8, new SensorEventBuffer(5).getCapacity());
+    assertEquals(8, new SensorEventBuffer(8).getCapacity());
+    assertEquals(4096, new SensorEventBuffer(SensorEventBuffer.DEFAULT_CAPACITY).getCapacity());
+    assertThrows(IllegalArgumentException.class, () -> new SensorEventBuffer(0));
+  }
+
+  @Test
+  public void onlyPublishedEventsAreDrainedInOrder() {
+    Physical[] bodies = bodies(3);
+    SensorEventBuffer buffer = new SensorEventBuffer(8);
+    Recorder recorder = new Recorder(bodies);
+    buffer.addEnter(SENSOR, bodies[0]);
+    buffer.addEnter(SENSOR, bodies[1]);
+    assertEquals(0, buffer.drain(recorder));
+    assertEquals(0, buffer.size());
+
+    assertEquals(2, buffer.publish());
+    buffer.addExit(SENSOR, bodies[0]);
+    assertEquals(2, buffer.size());
+    assertEquals(2, buffer.drain(recorder));
+    assertEquals(List.of(1, 2), recorder.events);
+
+    buffer.publish();
+    assertEquals(1, buffer.drain(recorder));
+    assertEquals(List.of(1, 2, -1), recorder.events);
+  }
+
+  @Test
+  public void eventsThatDoNotFitArePublishedLater() {
+    Physical[] bodies = bodies(20);
+    SensorEventBuffer buffer = new SensorEventBuffer(8);
+    Recorder recorder = new Recorder(bodies);
+    for (Physical body : bodies) {
+      buffer.addEnter(SENSOR, body);
+    }
+    assertEquals(8, buffer.publish());
+    assertEquals(12, buffer.getPendingCount());
+    // Nothing is published while the ring is full
+    assertEquals(0, buffer.publish());
+
+    buffer.drain(recorder);
+    assertEquals(8, buffer.publish());
+    buffer.drain(recorder);
+    assertEquals(4, buffer.publish());
+    assertEquals(0, buffer.getPendingCount());
+    buffer.drain(recorder);
+    for (int i = 0; i < bodies.length; i++) {
+      assertEquals(i + 1, (int) recorder.events.get(i));
+    }
+  }
+
+  @Test
+  public void aThrowingListenerDoesNotLoseTheFollowingEvents() {
+    Physical[] bodies = bodies(3);
+    SensorEventBuffer buffer = new SensorEventBuffer(8);
+    for (Physical body : bodies) {
+      buffer.addEnter(SENSOR, body);
+    }
+    buffer.publish();
+    Recorder recorder = new Recorder(bodies);
+    SensorListener failing =
+        (sensor, body) -> {
+          recorder.onEnter(sensor, body);
+          if (body == bodies[1]) {
+            throw new IllegalStateException();
+          }
+        };
+    assertThrows(IllegalStateException.class, () -> buffer.drain(failing));
+    assertEquals(1, buffer.size());
+    buffer.drain(recorder);
+    assertEquals(List.of(1, 2, 3), recorder.events);
+  }
+
+  @Test
+  public void drainsFromAnotherThread() throws InterruptedException {
+    Physical[] bodies = bodies(10);
+    SensorEventBuffer buffer = new SensorEventBuffer(16);
+    Recorder recorder = new Recorder(bodies);
+    AtomicBoolean done = new AtomicBoolean();
+    Thread consumer =
+        new Thread(
+            () -> {
+              while (!done.get() || buffer.size() > 0) {
+                if (buffer.drain(recorder) == 0) {
+                  Thread.onSpinWait();
+                }
+              }
+            });
+    consumer.start();
+    int ticks = 20_000;
+    for (int tick = 0; tick < ticks; tick++) {
+      // Every body enters then leaves, more events than the ring holds at times
+      Physical body = bodies[tick % bodies.length];
+      buffer.addEnter(SENSOR, body);
+      buffer.addExit(SENSOR, body);
+      buffer.publish();
+    }
+    while (buffer.getPendingCount() > 0) {
+      buffer.publish();
+    }
+    done.set(true);
+    consumer.join();
+
+    assertEquals(2 * ticks, recorder.events.size());
+    for (int tick = 0; tick < ticks; tick++) {
+      int body = tick % bodies.length + 1;
+      assertEquals(body, (int) recorder.events.get(2 * tick));
+      assertEquals(-body, (int) recorder.events.get(2 * tick + 1));
+    }
+  }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.physics2j;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.alban098.common.Transform;
+import org.alban098.common.metrics.AllocationProbe;
+import org.joml.Vector2f;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SensorTest {
+
+  private static final double TICK = 1.0 / 50 + 1e-6;
+
+  private final List<String> events = new ArrayList<>();
+  private PhysicsManager manager;
+  private TestBody ground;
+  private TestBody box;
+
+  private final SensorListener recorder =
+      new SensorListener() {
+        @Override
+        public void onEnter(Sensor sensor, Physical body) {
+          events.add("enter " + name(body));
+        }
+
+        @Override
+        public void onExit(Sensor sensor, Physical body) {
+          events.add("exit " + name(body));
+        }
+      };
+
+  private String name(Physical body) {
+    return body == ground ? "ground" : body == box ? "box" : "other";
+  }
+
+  private static Polygon rect(float x0, float y0, float x1, float y1) {
+    return new Polygon(new float[] {x0, x1, x1, x0}, new float[] {y0, y0, y1, y1}, 4);
+  }
+
+  /** Runs a tick and returns the events it has produced */
+  private List<String> tick() {
+    events.clear();
+    manager.applyPhysics(TICK);
+    manager.getSensorEvents().drain(recorder);
+    return events;
+  }
+
+  @Before
+  public void setUp() {
+    manager = new PhysicsManager(new Force(0, -2));
+    ground = new TestBody(0, -0.5f, 40, 1, 0);
+    box = new TestBody(0, 10, 1, 1, 2);
+    manager.track(ground);
+    manager.track(box);
+  }
+
+  @Test
+  public void aFallingBodyEntersAndLeavesOnce() {
+    manager.addSensor(new Sensor(rect(-2, 4, 2, 6)));
+    int enter = -1;
+    int exit = -1;
+    for (int tick = 0; tick < 200; tick++) {
+      for (String event : tick()) {
+        if (event.equals("enter box")) {
+          assertEquals(-1, enter);
+          enter = tick;
+        } else {
+          assertEquals("exit box", event);
+          assertEquals(-1, exit);
+          exit = tick;
+        }
+      }
+    }
+    assertTrue(enter > 0);
+    assertTrue(exit > enter);
+    assertEquals(0.5f, box.getY(), 0.02f);
+  }
+
+  @Test
+  public void restingBodiesAreDetectedByANewSensorOnlyOnce() {
+    for (int tick = 0; tick < 200; tick++) {
+      tick();
+    }
+    Sensor floor = new Sensor(rect(-1, -0.2f, 1, 0.5f));
+    assertTrue(manager.addSensor(floor));
+    assertFalse(manager.addSensor(floor));
+    List<String> entered = new ArrayList<>(tick());
+    assertEquals(2, entered.size());
+    assertTrue(entered.containsAll(List.of("enter ground", "enter box")));
+    for (int tick = 0; tick < 50; tick++) {
+      assertEquals(List.of(), tick());
+    }
+
+    // A filter change is seen at the next tick
+    ground.getPhysicsComponent().setFilter(2, CollisionFilter.ALL, 0);
+    floor.setFilter(1, 1);
+    assertEquals(List.of("exit ground"), tick());
+
+    // Removing the Sensor or the body ends the overlap
+    assertTrue(manager.removeSensor(floor));
+    assertEquals(List.of("exit box"), tick());
+    manager.addSensor(floor);
+    assertEquals(List.of("enter box"), tick());
+    manager.unregister(box);
+    assertEquals(List.of("exit box"), tick());
+    assertThrows(IllegalStateException.class, () -> new PhysicsManager().addSensor(floor));
+  }
+
+  @Test
+  public void aMovingSensorFollowsItsTransform() {
+    for (int tick = 0; tick < 200; tick++) {
+      tick();
+    }
+    Transform transform = new Transform(new Vector2f(20, 5), new Vector2f(1, 1), 0);
+    Sensor sensor = new Sensor(rect(-1, -1, 1, 1), transform);
+    manager.addSensor(sensor);
+    assertEquals(List.of(), tick());
+
+    transform.setDisplacement(0, 1.2f);
+    transform.commit();
+    assertEquals(List.of("enter box"), tick());
+    // Rotated by 45 degrees, the lower corner of the Sensor reaches into the ground
+    transform.setRotation((float) Math.PI / 4);
+    transform.commit();
+    assertEquals(List.of("enter ground"), tick());
+    transform.setDisplacement(0, 5);
+    transform.commit();
+    List<String> left = new ArrayList<>(tick());
+    assertEquals(2, left.size());
+    assertTrue(left.containsAll(List.of("exit ground", "exit box")));
+  }
+
+  @Test
+  public void sensorsDoNotAllocate() {
+    assumeTrue(AllocationProbe.isSupported());
+    manager.unregister(box);
+    Random random = new Random(1);
+    for (int i = 0; i < 100; i++) {
+      manager.track(new TestBody(-15 + i * 0.3f, 0.5f + i % 3 * 1.01f, 0.25f, 0.8f, 1));
+    }
+    for (int i = 0; i < 500; i++) {
+      float x = random.nextFloat() * 40 - 20;
+      float y = random.nextFloat() * 4;
+      manager.addSensor(new Sensor(rect(x, y, x + 0.5f, y + 0.5f)));
+    }
+    Transform transform = new Transform(new Vector2f(0, 1), new Vector2f(1, 1), 0);
+    manager.addSensor(new Sensor(rect(-2, -2, 2, 2), transform));
+    long[] ticks = {0};
+    int[] counts = {0};
+    SensorListener counter = (sensor, body) -> counts[0]++;
+    Runnable tick =
+        () -> {
+          transform.setDisplacement(ticks[0]++ % 37 - 18, 1);
+          transform.commit();
+          manager.applyPhysics(TICK);
+          manager.getSensorEvents().drain(counter);
+        };
+
+    double bytes = AllocationProbe.measure(tick, 500, 500);
+    // A one time allocation shows in a single round, one made by every tick in all of them
+    for (int round = 1; round < 3 && bytes > 0; round++) {
+      bytes = AllocationProbe.measure(tick, 0, 500);
+    }
+    assertEquals(0, bytes, 0);
+    assertEquals(501, manager.getSensorCount());
+    assertTrue(counts[0] > 0);
+  }
+}
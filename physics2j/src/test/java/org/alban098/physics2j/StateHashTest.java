@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.physics2j;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import org.junit.Test;
+
+/** The expected values are those of the reference xxHash64 over the little-endian ints */
+public class StateHashTest {
+
+  private static long hash(long seed, int... values) {
+    StateHash hash = new StateHash().reset(seed);
+    for (int value : values) {
+      hash.putInt(value);
+    }
+    return hash.finish();
+  }
+
+  @Test
+  public void matchesReferenceXxHash64() {
+    assertEquals(0xEF46DB3751D8E999L, hash(0));
+    assertEquals(0xF42F94001FCB5351L, hash(0, 1));
+    assertEquals(0xCD3D4C871EE4183AL, hash(0, 1, 2));
+    assertEquals(0x05DF6B7ADB49D27FL, hash(0, 0, 1, 2, 3, 4, 5, 6, 7, 8));
+    assertEquals(
+        0xC5044A6710666351L, hash(7, 0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16));
+  }
+
+  @Test
+  public void isReusableAfterReset() {
+    StateHash hash = new StateHash();
+    hash.reset(0).putInt(42).putFloat(1.5f).finish();
+
+    long reused = hash.reset(0).putInt(1).putInt(2).finish();
+
+    assertEquals(hash(0, 1, 2), reused);
+  }
+
+  @Test
+  public void hashesFloatsByTheirExactBits() {
+    long zero = new StateHash().reset(0).putFloat(0f).finish();
+    long negativeZero = new StateHash().reset(0).putFloat(-0f).finish();
+    long next = new StateHash().reset(0).putFloat(Math.nextUp(0f)).finish();
+
+    assertNotEquals(zero, negativeZero);
+    assertNotEquals(zero, next);
+    assertEquals(
+        hash(0, Float.floatToRawIntBits(1.25f)), new StateHash().reset(0).putFloat(1.25f).finish());
+  }
+}
@@ -0,0 +1,313 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.physics2j;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.alban098.common.Transform;
+import org.joml.Vector2f;
+import org.junit.Test;
+
+public class StaticBvhTest {
+
+  private static final double TICK = 1.0 / 50 + 1e-6;
+  /** The margin the fattened boxes of the bodies are grown by */
+  private static final float MARGIN = 0.1f;
+
+  private static float[] randomBoxes(Random random, int count) {
+    float[] bounds = new float[count * 4];
+    for (int i = 0; i < count; i++) {
+      float x = random.nextFloat() * 200 - 100;
+      float y = random.nextFloat() * 200 - 100;
+      bounds[i * 4] = x;
+      bounds[i * 4 + 1] = y;
+      bounds[i * 4 + 2] = x + 0.1f + random.nextFloat() * 5;
+      bounds[i * 4 + 3] = y + 0.1f + random.nextFloat() * 5;
+    }
+    return bounds;
+  }
+
+  private static int[] identity(int count) {
+    int[] data = new int[count];
+    for (int i = 0; i < count; i++) {
+      data[i] = i;
+    }
+    return data;
+  }
+
+  /** Checks the bounds and sizes of a node and of its children, returning its number of boxes */
+  private static int checkNode(StaticBvh bvh, int node, int depth) {
+    assertTrue(depth <= bvh.getHeight());
+    if (bvh.isLeaf(node)) {
+      return 1;
+    }
+    for (int child : new int[] {bvh.getChild1(node), bvh.getChild2(node)}) {
+      assertTrue(bvh.getMinX(node) <= bvh.getMinX(child));
+      assertTrue(bvh.getMinY(node) <= bvh.getMinY(child));
+      assertTrue(bvh.getMaxX(node) >= bvh.getMaxX(child));
+      assertTrue(bvh.getMaxY(node) >= bvh.getMaxY(child));
+    }
+    return checkNode(bvh, bvh.getChild1(node), depth + 1)
+        + checkNode(bvh, bvh.getChild2(node), depth + 1);
+  }
+
+  @Test
+  public void queriesMatchABruteForceSearch() {
+    Random random = new Random(5);
+    StaticBvh bvh = new StaticBvh();
+    for (int count : new int[] {1, 3, 50, 2000}) {
+      float[] bounds = randomBoxes(random, count);
+      bvh.build(bounds, identity(count), count);
+      assertEquals(count, bvh.getBoxCount());
+      assertTrue(checkNode(bvh, bvh.getRoot(), 1) <= bvh.getNodeCount());
+
+      for (int query = 0; query < 200; query++) {
+        float minX = random.nextFloat() * 220 - 110;
+        float minY = random.nextFloat() * 220 - 110;
+        float maxX = minX + random.nextFloat() * 20;
+        float maxY = minY + random.nextFloat() * 20;
+        List<Integer> reported = new ArrayList<>();
+        bvh.query(minX, minY, maxX, maxY, reported::add);
+        Set<Integer> found = new HashSet<>(reported);
+        assertEquals(reported.size(), found.size());
+        Set<Integer> expected = new HashSet<>();
+        for (int i = 0; i < count; i++) {
+          if (bounds[i * 4] <= maxX
+              && minX <= bounds[i * 4 + 2]
+              && bounds[i * 4 + 1] <= maxY
+              && minY <= bounds[i * 4 + 3]) {
+            expected.add(i);
+          }
+        }
+        assertEquals(expected, found);
+      }
+    }
+    // Building again replaces every box
+    bvh.build(new float[0], new int[0], 0);
+    assertEquals(DynamicAabbTree.NULL_NODE, bvh.getRoot());
+    bvh.query(-1000, -1000, 1000, 1000, data -> false);
+  }
+
+  @Test
+  public void raycastsReportEveryBoxCrossed() {
+    Random random = new Random(6);
+    int count = 1000;
+    float[] bounds = randomBoxes(random, count);
+    StaticBvh bvh = new StaticBvh();
+    bvh.build(bounds, identity(count), count);
+
+    for (int ray = 0; ray < 200; ray++) {
+      float x1 = random.nextFloat() * 200 - 100;
+      float y1 = random.nextFloat() * 200 - 100;
+      float x2 = random.nextFloat() * 200 - 100;
+      float y2 = random.nextFloat() * 200 - 100;
+      Set<Integer> found = new HashSet<>();
+      bvh.raycast(x1, y1, x2, y2, 1, (data, ax, ay, bx, by, fraction) -> found.add(data) ? -1 : 0);
+      for (int i = 0; i < count; i++) {
+        // Slab test of the segment against the box
+        float enter = 0;
+        float exit = 1;
+        for (int axis = 0; axis < 2; axis++) {
+          float origin = axis == 0 ? x1 : y1;
+          float delta = (axis == 0 ? x2 : y2) - origin;
+          float min = bounds[i * 4 + axis];
+          float max = bounds[i * 4 + 2 + axis];
+          if (Math.abs(delta) < 1e-9f) {
+            if (origin < min || origin > max) {
+              exit = -1;
+            }
+            continue;
+          }
+          float t1 = (min - origin) / delta;
+          float t2 = (max - origin) / delta;
+          enter = Math.max(enter, Math.min(t1, t2));
+          exit = Math.min(exit, Math.max(t1, t2));
+        }
+        // Only the boxes clearly crossed or clearly missed are checked
+        if (exit - enter > 1e-4f) {
+          assertTrue(found.contains(i));
+        } else if (exit - enter < -1e-4f) {
+          assertFalse(found.contains(i));
+        }
+      }
+    }
+
+    // The callback clips the segment, so a hit stops the boxes behind it from being reported
+    float[] row = {0, 0, 1, 1, 4, 0, 5, 1, 8, 0, 9, 1};
+    bvh.build(row, identity(3), 3);
+    List<Integer> hits = new ArrayList<>();
+    bvh.raycast(
+        -1,
+        0.5f,
+        10,
+        0.5f,
+        1,
+        (data, ax, ay, bx, by, fraction) -> {
+          hits.add(data);
+          return data == 1 ? (5 - ax) / (bx - ax) : -1;
+        });
+    assertTrue(hits.contains(1));
+    assertFalse(hits.contains(2));
+  }
+
+  @Test
+  public void staticPairsMatchABruteForceSearch() {
+    Random random = new Random(7);
+    int bodyCount = 300;
+    int staticCount = 400;
+    BroadPhase broadPhase = new BroadPhase();
+    PhysicsComponent[] statics = new PhysicsComponent[staticCount];
+    for (int i = 0; i < staticCount; i++) {
+      Transform transform =
+          new Transform(
+              new Vector2f(random.nextFloat() * 100, random.nextFloat() * 100),
+              new Vector2f(1, 1),
+              random.nextFloat());
+      statics[i] = new PhysicsComponent(0, new Vector2f(1 + random.nextFloat() * 3, 1));
+      // A quarter of them is filtered out of the default category
+      if (i % 4 == 0) {
+        statics[i].setFilter(2, 2, 0);
+      }
+      statics[i].updateWorldHitbox(transform);
+      broadPhase.putStatic(bodyCount + i, statics[i]);
+    }
+    PhysicsComponent[] components = new PhysicsComponent[bodyCount];
+    Transform[] transforms = new Transform[bodyCount];
+    BodyBuffer bodies = new BodyBuffer();
+    for (int i = 0; i < bodyCount; i++) {
+      transforms[i] =
+          new Transform(
+              new Vector2f(random.nextFloat() * 100, random.nextFloat() * 100),
+              new Vector2f(1, 1),
+              0);
+      components[i] = new PhysicsComponent(1, new Vector2f(0.5f + random.nextFloat(), 1));
+      components[i].updateWorldHitbox(transforms[i]);
+      bodies.add(i, components[i], transforms[i]);
+    }
+    bodies.sealDynamic();
+    broadPhase.findPairs(bodies);
+
+    Set<Long> found = new HashSet<>();
+    for (int pair = 0; pair < broadPhase.getStaticPairCount(); pair++) {
+      long key =
+          (long) bodies.ids[broadPhase.getStaticPairBody(pair)] << 32
+              | broadPhase.getStaticPairId(pair);
+      assertTrue("pair reported twice", found.add(key));
+    }
+    int expected = 0;
+    for (int body = 0; body < bodyCount; body++) {
+      Aabb a = components[body].getBounds();
+      for (int i = 0; i < staticCount; i++) {
+        Aabb b = statics[i].getBounds();
+        boolean overlap =
+            b.getMinX() <= a.getMaxX() + MARGIN
+                && a.getMinX() - MARGIN <= b.getMaxX()
+                && b.getMinY() <= a.getMaxY() + MARGIN
+                && a.getMinY() - MARGIN <= b.getMaxY();
+        boolean expectedPair = overlap && i % 4 != 0;
+        expected += expectedPair ? 1 : 0;
+        assertEquals(expectedPair, found.contains((long) body << 32 | (bodyCount + i)));
+      }
+    }
+    assertTrue(expected > 0);
+
+    // Nothing has moved nor been edited, no new pair
+    broadPhase.findPairs(bodies);
+    assertEquals(0, broadPhase.getStaticPairCount());
+    assertEquals(staticCount, broadPhase.getStaticCount());
+    assertTrue(broadPhase.isStatic(bodyCount));
+    broadPhase.remove(bodyCount);
+    assertFalse(broadPhase.isStatic(bodyCount));
+    assertEquals(staticCount - 1, broadPhase.getStaticCount());
+  }
+
+  /** Builds a floor of tiles, tracked as immovable bodies or as static ones, with boxes on it */
+  private static PhysicsManager level(boolean asStatic, List<TestBody> boxes) {
+    PhysicsManager manager = new PhysicsManager(new Force(0, -2));
+    for (int i = 0; i < 50; i++) {
+      TestBody tile = new TestBody(-50 + i * 2 + 1, -0.5f, 2, 0.5f, 0);
+      if (asStatic) {
+        manager.trackStatic(tile);
+      } else {
+        manager.track(tile);
+      }
+    }
+    for (int i = 0; i < 90; i++) {
+      TestBody box = new TestBody(-45 + i % 45 * 2, 1 + i / 45 * 2.5f, 0.8f, 0.8f, 1);
+      manager.track(box);
+      boxes.add(box);
+    }
+    return manager;
+  }
+
+  @Test
+  public void staticBodiesBehaveAsImmovableTrackedBodies() {
+    List<TestBody> tracked = new ArrayList<>();
+    List<TestBody> statics = new ArrayList<>();
+    PhysicsManager trackedLevel = level(false, tracked);
+    PhysicsManager staticLevel = level(true, statics);
+    for (int tick = 0; tick < 300; tick++) {
+      trackedLevel.applyPhysics(TICK);
+      staticLevel.applyPhysics(TICK);
+    }
+    assertEquals(50, staticLevel.getStaticCount());
+    assertEquals(
+        trackedLevel.getSolver().getContactCount(), staticLevel.getSolver().getContactCount());
+    for (int i = 0; i < tracked.size(); i++) {
+      assertEquals(tracked.get(i).getX(), statics.get(i).getX(), 0.05f);
+      assertEquals(tracked.get(i).getY(), statics.get(i).getY(), 0.05f);
+      // Resting on the tiles, whose top is at -0.25
+      assertTrue(statics.get(i).getY() > 0.1f);
+    }
+
+    // Queries and raycasts find the static bodies
+    List<Physical> found = new ArrayList<>();
+    staticLevel.overlapAabb(new Vector2f(-50.5f, -1), new Vector2f(-49.5f, -0.3f), found);
+    assertEquals(1, found.size());
+    RaycastHit hit = new RaycastHit();
+    assertTrue(staticLevel.raycast(new Vector2f(-49.9f, 10), new Vector2f(0, -1), 20, hit));
+    assertSame(found.get(0), hit.getBody());
+  }
+
+  @Test
+  public void staticBodiesCanBeMovedAndUnregistered() {
+    PhysicsManager manager = new PhysicsManager(new Force(0, -2));
+    TestBody tile = new TestBody(0, -0.5f, 5, 0.5f, 0);
+    TestBody ball = new TestBody(0, 2, 0.5f, 0.5f, 1);
+    manager.trackStatic(tile);
+    manager.track(ball);
+    assertFalse(manager.updateStatic(ball));
+    for (int tick = 0; tick < 200; tick++) {
+      manager.applyPhysics(TICK);
+    }
+    assertEquals(0, ball.getY(), 0.02f);
+
+    tile.getTransform().setDisplacement(0, -3);
+    tile.getTransform().commit();
+    assertTrue(manager.updateStatic(tile));
+    for (int tick = 0; tick < 200; tick++) {
+      manager.applyPhysics(TICK);
+    }
+    assertEquals(-2.5f, ball.getY(), 0.02f);
+    // A static body never moves on its own
+    assertEquals(-3, tile.getY(), 0);
+
+    manager.unregister(tile);
+    for (int tick = 0; tick < 50; tick++) {
+      manager.applyPhysics(TICK);
+    }
+    assertEquals(0, manager.getStaticCount());
+    assertTrue(ball.getY() < -3.5f);
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.physics2j;
+
+import org.alban098.common.Transform;
+import org.joml.Vector2f;
+
+/** A box shaped body shared by the physics tests */
+final class TestBody implements Physical {
+
+  private final Transform transform;
+  private final PhysicsComponent physicsComponent;
+  private int collisions = 0;
+  private int separations = 0;
+
+  /**
+   * Creates a new box
+   *
+   * @param x the x coordinate of the center of the box
+   * @param y the y coordinate of the center of the box
+   * @param width the width of the box
+   * @param height the height of the box
+   * @param mass the mass of the box, 0 for an immovable box
+   */
+  TestBody(float x, float y, float width, float height, float mass) {
+    this.transform = new Transform(new Vector2f(x, y), new Vector2f(width, height), 0);
+    this.physicsComponent = new PhysicsComponent(mass, new Vector2f(width, height));
+  }
+
+  @Override
+  public PhysicsComponent getPhysicsComponent() {
+    return physicsComponent;
+  }
+
+  @Override
+  public Transform getTransform() {
+    return transform;
+  }
+
+  @Override
+  public void collisionCallback(Physical other, Vector2f contactPoint) {
+    collisions++;
+  }
+
+  @Override
+  public void separationCallback(Physical other) {
+    separations++;
+  }
+
+  float getX() {
+    return transform.getDisplacement().x;
+  }
+
+  float getY() {
+    return transform.getDisplacement().y;
+  }
+
+  float getSpeed() {
+    return physicsComponent.getVelocity().length();
+  }
+
+  int getCollisions() {
+    return collisions;
+  }
+
+  int getSeparations() {
+    return separations;
+  }
+}
@@ -0,0 +1,293 @@
+/*
+ * Copyright (c) 2023, @Author Alban098
+ *
+ * Code licensed under MIT license.
+ */
+package org.alban098.physics2j;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.alban098.common.Transform;
+import org.joml.Vector2f;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class WorldQueryTest {
+
+  private static final double TICK = 1.0 / 50 + 1e-6;
+
+  private static PhysicsManager manager;
+  private static List<TestBody> bodies;
+
+  /** A scene of rotated boxes of various sizes, half of them static and half of them moving */
+  @BeforeClass
+  public static void setUp() {
+    Random random = new Random(3);
+    manager = new PhysicsManager();
+    bodies = new ArrayList<>();
+    for (int i = 0; i < 400; i++) {
+      float width = 0.5f + random.nextFloat() * 4;
+      float height = 0.5f + random.nextFloat() * 4;
+      TestBody body =
+          new TestBody(random.nextFloat() * 200, random.nextFloat() * 200, width, height, i % 2);
+      body.getTransform().setRotation(random.nextFloat() * 6.28f);
+      body.getTransform().commit();
+      if (i % 2 == 1) {
+        body.getPhysicsComponent()
+            .setVelocity(random.nextFloat() - 0.5f, random.nextFloat() - 0.5f);
+      }
+      body.getPhysicsComponent().setAngularVelocity((random.nextFloat() - 0.5f) * 0.1f);
+      bodies.add(body);
+      manager.track(body);
+    }
+    for (int tick = 0; tick < 30; tick++) {
+      manager.applyPhysics(TICK);
+    }
+  }
+
+  @Test
+  public void raycastReportsTheFirstHit() {
+    PhysicsManager manager = new PhysicsManager();
+    TestBody near = new TestBody(5, 0, 2, 2, 1);
+    TestBody far = new TestBody(10, 0, 2, 2, 1);
+    manager.track(near);
+    manager.track(far);
+    manager.applyPhysics(TICK);
+    RaycastHit hit = new RaycastHit();
+
+    assertTrue(manager.raycast(new Vector2f(0, 0), new Vector2f(2, 0), 20, hit));
+    assertSame(near, hit.getBody());
+    assertEquals(4 / 20f, hit.getFraction(), 1e-5f);
+    assertEquals(4, hit.getPoint().x, 1e-4f);
+    assertEquals(0, hit.getPoint().y, 1e-4f);
+    assertEquals(-1, hit.getNormal().x, 1e-4f);
+    assertEquals(0, hit.getNormal().y, 1e-4f);
+
+    // The body containing the origin is ignored
+    assertTrue(manager.segmentCast(new Vector2f(5, 0), new Vector2f(20, 0), hit));
+    assertSame(far, hit.getBody());
+    assertFalse(manager.segmentCast(new Vector2f(0, 0), new Vector2f(3.9f, 0), hit));
+    assertFalse(manager.raycast(new Vector2f(0, 0), new Vector2f(0, 0), 20, hit));
+    assertNull(hit.getBody());
+  }
+
+  @Test
+  public void segmentCastMatchesBruteForce() {
+    Random random = new Random(4);
+    RaycastHit hit = new RaycastHit();
+    int hits = 0;
+    for (int query = 0; query < 1_000; query++) {
+      float x1 = random.nextFloat() * 200;
+      float y1 = random.nextFloat() * 200;
+      float x2 = random.nextFloat() * 200;
+      float y2 = random.nextFloat() * 200;
+      float best = 2;
+      for (TestBody body : bodies) {
+        float fraction = castBruteForce(body, x1, y1, x2, y2);
+        if (fraction >= 0 && fraction < best) {
+          best = fraction;
+        }
+      }
+
+      boolean found = manager.segmentCast(new Vector2f(x1, y1), new Vector2f(x2, y2), hit);
+
+      assertEquals(best <= 1, found);
+      if (found) {
+        hits++;
+        assertEquals(best, hit.getFraction(), 1e-4f);
+        // Another body may be hit at the same fraction
+        TestBody body = (TestBody) hit.getBody();
+        assertEquals(best, castBruteForce(body, x1, y1, x2, y2), 1e-4f);
+        assertEquals(1, hit.getNormal().length(), 1e-3f);
+      }
+    }
+    assertTrue(hits > 100);
+  }
+
+  @Test
+  public void batchedCastsMatchSingleCasts() {
+    Random random = new Random(5);
+    int count = 2_000;
+    float[] segments = new float[count * 4];
+    for (int i = 0; i < segments.length; i++) {
+      segments[i] = random.nextFloat() * 200;
+    }
+    float[] sequential = new float[count];
+    float[] parallel = new float[count];
+    float[] normals = new float[count * 2];
+    Physical[] hitBodies = new Physical[count];
+
+    int sequentialHits = manager.segmentCastBatch(segments, count, sequential, null, null, false);
+    int parallelHits =
+        manager.segmentCastBatch(segments, count, parallel, normals, hitBodies, true);
+
+    assertEquals(sequentialHits, parallelHits);
+    assertArrayEquals(sequential, parallel, 0);
+    RaycastHit hit = new RaycastHit();
+    for (int i = 0; i < count; i++) {
+      Vector2f from = new Vector2f(segments[i * 4], segments[i * 4 + 1]);
+      Vector2f to = new Vector2f(segments[i * 4 + 2], segments[i * 4 + 3]);
+      boolean found = manager.segmentCast(from, to, hit);
+      assertEquals(found, parallel[i] >= 0);
+      if (found) {
+        assertEquals(hit.getFraction(), parallel[i], 0);
+        assertSame(hit.getBody(), hitBodies[i]);
+        assertEquals(hit.getNormal().x, normals[i * 2], 0);
+        assertEquals(hit.getNormal().y, normals[i * 2 + 1], 0);
+      }
+    }
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> manager.segmentCastBatch(segments, count, new float[1], null, null, false));
+  }
+
+  @Test
+  public void overlapAabbMatchesBruteForce() {
+    Random random = new Random(6);
+    int found = 0;
+    for (int query = 0; query < 500; query++) {
+      float x = random.nextFloat() * 200;
+      float y = random.nextFloat() * 200;
+      float width = random.nextFloat() * 10;
+      float height = random.nextFloat() * 10;
+      List<Physical> results = new ArrayList<>();
+
+      int count =
+          manager.overlapAabb(new Vector2f(x, y), new Vector2f(x + width, y + height), results);
+
+      Set<Physical> unique = new HashSet<>(results);
+      assertEquals(results.size(), unique.size());
+      assertEquals(count, results.size());
+      float[] xs = {x, x + width, x + width, x};
+      float[] ys = {y, y, y + height, y + height};
+      for (TestBody body : bodies) {
+        boolean overlaps = overlapBruteForce(body, xs, ys);
+        assertEquals(overlaps, unique.contains(body));
+        found += overlaps ? 1 : 0;
+      }
+    }
+    assertTrue(found > 50);
+  }
+
+  @Test
+  public void overlapPolygonMatchesBruteForce() {
+    Random random = new Random(7);
+    int found = 0;
+    for (int query = 0; query < 500; query++) {
+      float x = random.nextFloat() * 200;
+      float y = random.nextFloat() * 200;
+      float[] xs = {x, x + random.nextFloat() * 8, x - random.nextFloat() * 8};
+      float[] ys = {y, y + random.nextFloat() * 8, y + random.nextFloat() * 8};
+      List<Physical> results = new ArrayList<>();
+
+      manager.overlapPolygon(new Polygon(xs, ys, 3), results);
+
+      for (TestBody body : bodies) {
+        boolean overlaps = overlapBruteForce(body, xs, ys);
+        assertEquals(overlaps, results.contains(body));
+        found += overlaps ? 1 : 0;
+      }
+    }
+    assertTrue(found > 50);
+  }
+
+  /** Computes the corners of a body from its Transform and half extents */
+  private static void corners(TestBody body, float[] xs, float[] ys) {
+    Transform transform = body.getTransform();
+    Vector2f halfExtents = body.getPhysicsComponent().getHalfExtents();
+    float cos = (float) Math.cos(transform.getRotation());
+    float sin = (float) Math.sin(transform.getRotation());
+    float[] localX = {-halfExtents.x, halfExtents.x, halfExtents.x, -halfExtents.x};
+    float[] localY = {-halfExtents.y, -halfExtents.y, halfExtents.y, halfExtents.y};
+    for (int i = 0; i < 4; i++) {
+      xs[i] = transform.getDisplacement().x + cos * localX[i] - sin * localY[i];
+      ys[i] = transform.getDisplacement().y + sin * localX[i] + cos * localY[i];
+    }
+  }
+
+  /** Tests the overlap of a body and a convex polygon with the separating axis theorem */
+  private static boolean overlapBruteForce(TestBody body, float[] xs, float[] ys) {
+    float[] bodyX = new float[4];
+    float[] bodyY = new float[4];
+    corners(body, bodyX, bodyY);
+    return !separates(bodyX, bodyY, xs, ys) && !separates(xs, ys, bodyX, bodyY);
+  }
+
+  private static boolean separates(float[] ax, float[] ay, float[] bx, float[] by) {
+    for (int i = 0; i < ax.length; i++) {
+      int j = (i + 1) % ax.length;
+      float nx = ay[j] - ay[i];
+      float ny = ax[i] - ax[j];
+      float aMin = Float.MAX_VALUE;
+      float aMax = -Float.MAX_VALUE;
+      float bMin = Float.MAX_VALUE;
+      float bMax = -Float.MAX_VALUE;
+      for (int k = 0; k < ax.length; k++) {
+        float projection = nx * ax[k] + ny * ay[k];
+        aMin = Math.min(aMin, projection);
+        aMax = Math.max(aMax, projection);
+      }
+      for (int k = 0; k < bx.length; k++) {
+        float projection = nx * bx[k] + ny * by[k];
+        bMin = Math.min(bMin, projection);
+        bMax = Math.max(bMax, projection);
+      }
+      if (aMax < bMin - 1e-4f || bMax < aMin - 1e-4f) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Casts a segment against a body with the slab method in the frame of the body
+   *
+   * @return the fraction of the segment at which the body is hit, -1 if missed or if the segment
+   *     starts inside the body
+   */
+  private static float castBruteForce(TestBody body, float x1, float y1, float x2, float y2) {
+    Transform transform = body.getTransform();
+    Vector2f halfExtents = body.getPhysicsComponent().getHalfExtents();
+    double cos = Math.cos(transform.getRotation());
+    double sin = Math.sin(transform.getRotation());
+    double px = x1 - transform.getDisplacement().x;
+    double py = y1 - transform.getDisplacement().y;
+    double qx = x2 - transform.getDisplacement().x;
+    double qy = y2 - transform.getDisplacement().y;
+    double[] origin = {cos * px + sin * py, -sin * px + cos * py};
+    double[] delta = {cos * qx + sin * qy - origin[0], -sin * qx + cos * qy - origin[1]};
+    double[] extents = {halfExtents.x, halfExtents.y};
+    if (Math.abs(origin[0]) < extents[0] && Math.abs(origin[1]) < extents[1]) {
+      return -1;
+    }
+    double enter = 0;
+    double exit = 1;
+    for (int axis = 0; axis < 2; axis++) {
+      if (Math.abs(delta[axis]) < 1e-12) {
+        if (Math.abs(origin[axis]) > extents[axis]) {
+          return -1;
+        }
+        continue;
+      }
+      double near = (-extents[axis] - origin[axis]) / delta[axis];
+      double far = (extents[axis] - origin[axis]) / delta[axis];
+      enter = Math.max(enter, Math.min(near, far));
+      exit = Math.min(exit, Math.max(near, far));
+      if (enter > exit) {
+        return -1;
+      }
+    }
+    return (float) enter;
+  }
+}